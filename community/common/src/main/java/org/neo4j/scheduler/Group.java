@@ -54,8 +54,18 @@ public enum Group
     INDEX_POPULATION( "IndexPopulationMain" ),
     /** Background index population work. */
     INDEX_POPULATION_WORK( "IndexPopulationWork", ExecutorServiceFactory.fixedWithBackPressure() ),
+    /** Workers scanning the store in parallel for background index population. */
+    INDEX_POPULATION_SCAN( "IndexPopulationScan" ),
     /** Background index sampling */
     INDEX_SAMPLING( "IndexSampling" ),
+    /** Background compaction of fragmented indexes. */
+    INDEX_COMPACTION( "IndexCompaction" ),
+    /** Moving the records of nodes closer together in the store. */
+    NODE_DEFRAGMENTATION( "NodeDefragmentation" ),
+    /** Forcing of indexes as part of a check point. */
+    INDEX_FORCE( "IndexForce" ),
+    /** Writing the records of large transactions to the stores in parallel, when they are applied. */
+    PARALLEL_APPLY( "ParallelApply" ),
     /** Background index update applier, for eventually consistent indexes. */
     INDEX_UPDATING( "IndexUpdating", ExecutorServiceFactory.singleThread() ), // Single-threaded to serialise updates with opening/closing/flushing of indexes.
     /** Thread pool for anyone who want some help doing file IO in parallel. */
@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.commons.lang3.mutable.MutableObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.pagecache.DelegatingPageSwapper;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+
+class CompressedPageSwapperTest
+{
+    private static final int FILE_PAGE_SIZE = 8192;
+    private static final PageEvictionCallback NO_CALLBACK = filePageId -> {};
+    private static final String[] WORDS = {"neo4j", "graph", "node", "relationship", "property", "label", "index", "store", "page", "cache"};
+
+    private EphemeralFileSystemAbstraction fs;
+    private PageSwapperFactory factory;
+    private Path path;
+    private final List<PageSwapper> swappers = new ArrayList<>();
+    private final List<Long> pages = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    {
+        fs = new EphemeralFileSystemAbstraction();
+        factory = new CompressedPageSwapperFactory( new SingleFilePageSwapperFactory( fs ) );
+        path = Path.of( "file" ).normalize();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        for ( PageSwapper swapper : swappers )
+        {
+            swapper.close();
+        }
+        for ( long page : pages )
+        {
+            UnsafeUtil.free( page, FILE_PAGE_SIZE * 2, INSTANCE );
+        }
+        fs.close();
+    }
+
+    @Test
+    void compressiblePagesMustTakeUpLessSpaceThanUncompressedPages() throws Exception
+    {
+        int pageCount = 64;
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        for ( int filePageId = 0; filePageId < pageCount; filePageId++ )
+        {
+            fillCompressible( page, filePageId );
+            swapper.write( filePageId, page );
+        }
+        swapper.force();
+
+        assertThat( fs.getFileSize( path ) ).isLessThan( pageCount * FILE_PAGE_SIZE / 4 );
+        assertThat( swapper.getLastPageId() ).isEqualTo( pageCount - 1 );
+        for ( int filePageId = 0; filePageId < pageCount; filePageId++ )
+        {
+            assertThat( swapper.read( filePageId, page ) ).isGreaterThan( 0 ).isLessThan( FILE_PAGE_SIZE );
+            assertCompressible( page, filePageId );
+        }
+    }
+
+    @Test
+    void incompressiblePagesMustBeStoredUncompressed() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        byte[] data = new byte[FILE_PAGE_SIZE];
+        ThreadLocalRandom.current().nextBytes( data );
+        putBytes( page, data );
+        swapper.write( 0, page );
+        swapper.force();
+
+        assertThat( fs.getFileSize( path ) ).isEqualTo( FILE_PAGE_SIZE );
+        UnsafeUtil.setMemory( page, FILE_PAGE_SIZE, (byte) 0 );
+        assertThat( swapper.read( 0, page ) ).isEqualTo( FILE_PAGE_SIZE );
+        assertThat( getBytes( page, FILE_PAGE_SIZE ) ).isEqualTo( data );
+    }
+
+    @Test
+    void unwrittenPagesMustReadAsZeros() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 3, page );
+
+        assertThat( swapper.getLastPageId() ).isEqualTo( 3 );
+        for ( long filePageId : new long[]{0, 2, 4, 100} )
+        {
+            fillCompressible( page, 1 );
+            assertThat( swapper.read( filePageId, page ) ).isZero();
+            assertThat( getBytes( page, FILE_PAGE_SIZE ) ).as( "page " + filePageId ).containsOnly( 0 );
+        }
+    }
+
+    @Test
+    void pagesMustSurviveReopeningTheFile() throws Exception
+    {
+        int pageCount = 100;
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        for ( int filePageId = 0; filePageId < pageCount; filePageId += 3 )
+        {
+            fillCompressible( page, filePageId );
+            swapper.write( filePageId, page );
+        }
+        swapper.close();
+
+        swapper = createSwapper( false );
+        assertThat( swapper.getLastPageId() ).isEqualTo( 99 );
+        for ( int filePageId = 0; filePageId < pageCount; filePageId++ )
+        {
+            swapper.read( filePageId, page );
+            if ( filePageId % 3 == 0 )
+            {
+                assertCompressible( page, filePageId );
+            }
+            else
+            {
+                assertThat( getBytes( page, FILE_PAGE_SIZE ) ).as( "page " + filePageId ).containsOnly( 0 );
+            }
+        }
+    }
+
+    @Test
+    void vectoredWritesAndReadsMustHandleBuffersSpanningSeveralPages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long first = createPage();
+        long second = createPage();
+        fillCompressible( first, 10 );
+        fillCompressible( first + FILE_PAGE_SIZE, 11 );
+        fillCompressible( second, 12 );
+        swapper.write( 5, new long[]{first, second}, new int[]{FILE_PAGE_SIZE * 2, FILE_PAGE_SIZE}, 2, 3 );
+
+        long[] pagesRead = {createPage(), createPage(), createPage()};
+        swapper.read( 5, pagesRead, new int[]{FILE_PAGE_SIZE, FILE_PAGE_SIZE, FILE_PAGE_SIZE}, 3 );
+        assertCompressible( pagesRead[0], 10 );
+        assertCompressible( pagesRead[1], 11 );
+        assertCompressible( pagesRead[2], 12 );
+        assertThat( swapper.getLastPageId() ).isEqualTo( 7 );
+    }
+
+    @Test
+    void partialPageWritesMustKeepTheRestOfThePage() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        fillCompressible( page, 7 );
+        swapper.write( 0, page );
+
+        long prefix = createPage();
+        UnsafeUtil.setMemory( prefix, 16, (byte) 0xFF );
+        swapper.write( 0, prefix, 16 );
+
+        swapper.read( 0, page );
+        assertThat( getBytes( page, 16 ) ).containsOnly( (byte) 0xFF );
+        assertThat( UnsafeUtil.getLong( page + 16 ) ).isEqualTo( 7 * 1000L + 2 );
+        assertThat( UnsafeUtil.getLong( page + FILE_PAGE_SIZE - Long.BYTES ) ).isEqualTo( 7 * 1000L + FILE_PAGE_SIZE / Long.BYTES - 1 );
+    }
+
+    @Test
+    void rewritingPagesBetweenForcesMustReuseTheirSlots() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        fillCompressible( page, 0 );
+        swapper.write( 0, page );
+        swapper.write( 0, page );
+        long fileSize = fs.getFileSize( path );
+        for ( int i = 0; i < 100; i++ )
+        {
+            swapper.write( 0, page );
+        }
+        assertThat( fs.getFileSize( path ) ).isEqualTo( fileSize );
+    }
+
+    @Test
+    void forceDuringWriteMustNotMakeTheSlotBeingWrittenDurable() throws Exception
+    {
+        MutableObject<PageSwapper> compressedSwapper = new MutableObject<>();
+        MutableBoolean forceOnNextWrite = new MutableBoolean();
+        MutableObject<EphemeralFileSystemAbstraction> crashImage = new MutableObject<>();
+        factory = new CompressedPageSwapperFactory( new SingleFilePageSwapperFactory( fs )
+        {
+            @Override
+            public PageSwapper createPageSwapper( Path file, int filePageSize, PageEvictionCallback onEviction, boolean createIfNotExist,
+                    boolean useDirectIO ) throws IOException
+            {
+                PageSwapper swapper = super.createPageSwapper( file, filePageSize, onEviction, createIfNotExist, useDirectIO );
+                if ( !file.equals( path ) )
+                {
+                    return swapper;
+                }
+                return new DelegatingPageSwapper( swapper )
+                {
+                    @Override
+                    public long write( long filePageId, long bufferAddress, int bufferLength ) throws IOException
+                    {
+                        if ( forceOnNextWrite.isTrue() )
+                        {
+                            // A checkpoint comes by while the page is being written, and the write is torn by a crash.
+                            forceOnNextWrite.setFalse();
+                            compressedSwapper.getValue().force();
+                            super.write( filePageId, bufferAddress, bufferLength / 2 );
+                            crashImage.setValue( fs.snapshot() );
+                        }
+                        return super.write( filePageId, bufferAddress, bufferLength );
+                    }
+                };
+            }
+        } );
+        compressedSwapper.setValue( createSwapper( true ) );
+        long page = createPage();
+        fillCompressible( page, 0 );
+        compressedSwapper.getValue().write( 0, page );
+        forceOnNextWrite.setTrue();
+        fillCompressible( page, 1 );
+        compressedSwapper.getValue().write( 0, page );
+
+        // The durable page map must still point to the first version, and the torn write must not have touched it.
+        try ( EphemeralFileSystemAbstraction crashedFs = crashImage.getValue() )
+        {
+            PageSwapper swapper = new CompressedPageSwapperFactory( new SingleFilePageSwapperFactory( crashedFs ) )
+                    .createPageSwapper( path, FILE_PAGE_SIZE, NO_CALLBACK, false, false );
+            try
+            {
+                swapper.read( 0, page );
+                assertCompressible( page, 0 );
+            }
+            finally
+            {
+                swapper.closeAndDelete();
+            }
+        }
+    }
+
+    @Test
+    void replacedSlotsMustBeReusedAfterForce() throws Exception
+    {
+        int pageCount = 32;
+        CompressedPageSwapper swapper = (CompressedPageSwapper) createSwapper( true );
+        long page = createPage();
+        fillCompressible( page, 0 );
+        swapper.write( 0, page );
+        long slotSize = swapper.dataFileSize();
+
+        for ( int round = 0; round < 10; round++ )
+        {
+            for ( int filePageId = 0; filePageId < pageCount; filePageId++ )
+            {
+                fillCompressible( page, filePageId + round );
+                swapper.write( filePageId, page );
+            }
+            swapper.force();
+        }
+        // Every page has at most its current version and the version it replaced in the data file.
+        assertThat( swapper.dataFileSize() ).isLessThanOrEqualTo( 2 * pageCount * slotSize );
+        for ( int filePageId = 0; filePageId < pageCount; filePageId++ )
+        {
+            swapper.read( filePageId, page );
+            assertCompressible( page, filePageId + 9 );
+        }
+    }
+
+    @Test
+    void freeSpaceMustBeFoundAgainAfterReopening() throws Exception
+    {
+        int pageCount = 16;
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        for ( int round = 0; round < 2; round++ )
+        {
+            for ( int filePageId = 0; filePageId < pageCount; filePageId++ )
+            {
+                fillCompressible( page, filePageId + round );
+                swapper.write( filePageId, page );
+            }
+            swapper.force();
+        }
+        swapper.close();
+        long fileSize = fs.getFileSize( path );
+
+        swapper = createSwapper( false );
+        for ( int filePageId = 0; filePageId < pageCount; filePageId++ )
+        {
+            swapper.read( filePageId, page );
+            assertCompressible( page, filePageId + 1 );
+            swapper.write( filePageId, page );
+        }
+        swapper.force();
+        // The file holds two versions of every page, so without reusing the free space it would have grown by half.
+        assertThat( fs.getFileSize( path ) ).isLessThan( fileSize * 5 / 4 );
+    }
+
+    @Test
+    void truncatedFilesMustBeEmpty() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 0, page );
+        swapper.write( 1, page );
+        swapper.force();
+
+        swapper.truncate();
+        assertThat( swapper.getLastPageId() ).isEqualTo( -1 );
+        assertThat( fs.getFileSize( path ) ).isZero();
+        assertThat( swapper.read( 0, page ) ).isZero();
+        assertThat( getBytes( page, FILE_PAGE_SIZE ) ).containsOnly( 0 );
+    }
+
+    @Test
+    void readMustFailOnCorruptPages() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        fillCompressible( page, 1 );
+        swapper.write( 0, page );
+        swapper.close();
+
+        PageSwapper raw = new SingleFilePageSwapperFactory( fs ).createPageSwapper( path, CompressedPageSwapper.SECTOR_SIZE, NO_CALLBACK, false, false );
+        UnsafeUtil.setMemory( page, CompressedPageSwapper.SECTOR_SIZE, (byte) 0x5A );
+        raw.write( 0, page );
+        raw.close();
+
+        PageSwapper reopened = createSwapper( false );
+        assertThrows( IOException.class, () -> reopened.read( 0, page ) );
+    }
+
+    @Test
+    void mustNotMapUncompressedFileAsCompressed() throws Exception
+    {
+        PageSwapper uncompressed = new SingleFilePageSwapperFactory( fs ).createPageSwapper( path, FILE_PAGE_SIZE, NO_CALLBACK, true, false );
+        long page = createPage();
+        fillCompressible( page, 0 );
+        uncompressed.write( 0, page );
+        uncompressed.close();
+
+        assertThrows( IOException.class, () -> createSwapper( true ) );
+    }
+
+    @Test
+    void mustRejectTooLargeFilePageSizes()
+    {
+        assertThrows( IllegalArgumentException.class,
+                () -> factory.createPageSwapper( path, CompressedPageSwapper.MAX_FILE_PAGE_SIZE * 2, NO_CALLBACK, true, false ) );
+    }
+
+    @Test
+    void mustThrowForNegativeFilePageIds() throws Exception
+    {
+        PageSwapper swapper = createSwapper( true );
+        long page = createPage();
+        assertThrows( IOException.class, () -> swapper.read( -1, page ) );
+        assertThrows( IOException.class, () -> swapper.write( -1, page ) );
+    }
+
+    @Test
+    void mustRunEvictionCallbackUntilClosed() throws Exception
+    {
+        List<Long> evictions = new ArrayList<>();
+        PageSwapper swapper = factory.createPageSwapper( path, FILE_PAGE_SIZE, evictions::add, true, false );
+        swapper.evicted( 42 );
+        swapper.close();
+        swapper.evicted( 43 );
+        assertThat( evictions ).containsExactly( 42L );
+    }
+
+    @Test
+    void closeAndDeleteMustDeleteThePageMap() throws Exception
+    {
+        PageSwapper swapper = factory.createPageSwapper( path, FILE_PAGE_SIZE, NO_CALLBACK, true, false );
+        long page = createPage();
+        fillCompressible( page, 0 );
+        swapper.write( 0, page );
+        swapper.force();
+        assertThat( fs.fileExists( CompressedPageSwapper.pageMapFile( path ) ) ).isTrue();
+
+        swapper.closeAndDelete();
+        assertThat( fs.fileExists( path ) ).isFalse();
+        assertThat( fs.fileExists( CompressedPageSwapper.pageMapFile( path ) ) ).isFalse();
+    }
+
+    @Test
+    void compressedRecordPagesMustTakeUpLessSpaceAndNeedFewerBytesForScans() throws Exception
+    {
+        int filePages = 256;
+        Path uncompressedFile = Path.of( "uncompressed" );
+        long[] uncompressed = writeAndScanRecordPages( new SingleFilePageSwapperFactory( fs ), uncompressedFile, filePages );
+        long[] compressed = writeAndScanRecordPages( factory, path, filePages );
+
+        assertThat( fs.getFileSize( uncompressedFile ) ).isEqualTo( (long) filePages * FILE_PAGE_SIZE );
+        assertThat( fs.getFileSize( path ) + fs.getFileSize( CompressedPageSwapper.pageMapFile( path ) ) )
+                .isLessThan( fs.getFileSize( uncompressedFile ) / 2 );
+        assertThat( compressed[1] ).isLessThan( uncompressed[1] / 2 );
+        assertThat( compressed[0] ).isEqualTo( uncompressed[0] );
+    }
+
+    /**
+     * Write the given number of record-like pages to the file, then scan it from start to end with a new swapper, like a cold scan
+     * through the page cache would.
+     *
+     * @return a checksum of the scanned page contents, and the number of bytes the scan read from the file.
+     */
+    private long[] writeAndScanRecordPages( PageSwapperFactory swapperFactory, Path file, int filePages ) throws IOException
+    {
+        long page = createPage();
+        Random random = new Random( 42 );
+        PageSwapper writer = swapperFactory.createPageSwapper( file, FILE_PAGE_SIZE, NO_CALLBACK, true, false );
+        try
+        {
+            for ( int filePageId = 0; filePageId < filePages; filePageId++ )
+            {
+                fillWithRecords( page, random );
+                writer.write( filePageId, page );
+            }
+            writer.force();
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        long checksum = 0;
+        long bytesRead = 0;
+        PageSwapper reader = swapperFactory.createPageSwapper( file, FILE_PAGE_SIZE, NO_CALLBACK, false, false );
+        try
+        {
+            for ( int filePageId = 0; filePageId < filePages; filePageId++ )
+            {
+                bytesRead += reader.read( filePageId, page );
+                for ( int offset = 0; offset < FILE_PAGE_SIZE; offset += Long.BYTES )
+                {
+                    checksum = checksum * 31 + UnsafeUtil.getLong( page + offset );
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return new long[]{checksum, bytesRead};
+    }
+
+    private PageSwapper createSwapper( boolean createIfNotExist ) throws IOException
+    {
+        PageSwapper swapper = factory.createPageSwapper( path, FILE_PAGE_SIZE, NO_CALLBACK, createIfNotExist, false );
+        swappers.add( swapper );
+        return swapper;
+    }
+
+    /**
+     * @return a buffer that fits two file pages.
+     */
+    private long createPage()
+    {
+        long page = UnsafeUtil.allocateMemory( FILE_PAGE_SIZE * 2, INSTANCE );
+        pages.add( page );
+        return page;
+    }
+
+    /**
+     * Fill the page with something that looks like records: mostly small, increasing numbers.
+     */
+    static void fillCompressible( long page, int seed )
+    {
+        for ( int offset = 0; offset < FILE_PAGE_SIZE; offset += Long.BYTES )
+        {
+            UnsafeUtil.putLong( page + offset, seed * 1000L + offset / Long.BYTES );
+        }
+    }
+
+    /**
+     * Fill the page with 41 byte records, each made up of a few small ids and a short string, much like property records with inlined
+     * string values.
+     */
+    private static void fillWithRecords( long page, Random random )
+    {
+        UnsafeUtil.setMemory( page, FILE_PAGE_SIZE, (byte) 0 );
+        for ( int offset = 0; offset + 41 <= FILE_PAGE_SIZE; offset += 41 )
+        {
+            UnsafeUtil.putByte( page + offset, (byte) 1 );
+            UnsafeUtil.putInt( page + offset + 1, random.nextInt( 1000 ) );
+            UnsafeUtil.putLong( page + offset + 5, random.nextInt( 1_000_000 ) );
+            byte[] word = WORDS[random.nextInt( WORDS.length )].getBytes( StandardCharsets.UTF_8 );
+            putBytes( page + offset + 13, word );
+        }
+    }
+
+    private static void assertCompressible( long page, int seed )
+    {
+        for ( int offset = 0; offset < FILE_PAGE_SIZE; offset += Long.BYTES )
+        {
+            assertThat( UnsafeUtil.getLong( page + offset ) ).as( "offset " + offset ).isEqualTo( seed * 1000L + offset / Long.BYTES );
+        }
+    }
+
+    private static void putBytes( long page, byte[] data )
+    {
+        for ( int i = 0; i < data.length; i++ )
+        {
+            UnsafeUtil.putByte( page + i, data[i] );
+        }
+    }
+
+    private static byte[] getBytes( long page, int length )
+    {
+        byte[] data = new byte[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            data[i] = UnsafeUtil.getByte( page + i );
+        }
+        return data;
+    }
+}
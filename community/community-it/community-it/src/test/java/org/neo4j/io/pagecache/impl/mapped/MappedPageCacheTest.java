@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.mapped;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.eclipse.collections.api.factory.Sets.immutable;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier.EMPTY;
+
+@TestDirectoryExtension
+class MappedPageCacheTest
+{
+    private static final int PAGE_SIZE = 128;
+
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private TestDirectory testDirectory;
+
+    private MappedPageCache pageCache;
+    private Path file;
+
+    @BeforeEach
+    void setUp()
+    {
+        pageCache = new MappedPageCache( fs, EMPTY );
+        file = testDirectory.homePath().resolve( "file" );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        pageCache.close();
+    }
+
+    @Test
+    void mustReadAllPagesOfTheFile() throws IOException
+    {
+        writeFile( 10 * PAGE_SIZE );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            assertThat( pagedFile.getLastPageId() ).isEqualTo( 9 );
+            for ( int pageId = 0; pageId < 10; pageId++ )
+            {
+                assertThat( cursor.next() ).isTrue();
+                assertThat( cursor.getCurrentPageId() ).isEqualTo( pageId );
+                for ( int offset = 0; offset < PAGE_SIZE; offset += Long.BYTES )
+                {
+                    assertThat( cursor.getLong() ).isEqualTo( valueAt( (long) pageId * PAGE_SIZE + offset ) );
+                }
+                assertThat( cursor.shouldRetry() ).isFalse();
+                assertThat( cursor.checkAndClearBoundsFlag() ).isFalse();
+            }
+            assertThat( cursor.next() ).isFalse();
+            assertThat( cursor.getCurrentPageId() ).isEqualTo( PageCursor.UNBOUND_PAGE_ID );
+        }
+    }
+
+    @Test
+    void mustZeroPadPartialLastPage() throws IOException
+    {
+        writeFile( 2 * PAGE_SIZE + 16 );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE );
+              PageCursor cursor = pagedFile.io( 2, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            assertThat( pagedFile.getLastPageId() ).isEqualTo( 2 );
+            assertThat( cursor.next() ).isTrue();
+            assertThat( cursor.getLong( 0 ) ).isEqualTo( valueAt( 2 * PAGE_SIZE ) );
+            assertThat( cursor.getLong( 8 ) ).isEqualTo( valueAt( 2 * PAGE_SIZE + 8 ) );
+            assertThat( cursor.getLong( 16 ) ).isZero();
+            assertThat( cursor.getLong( PAGE_SIZE - Long.BYTES ) ).isZero();
+            assertThat( cursor.checkAndClearBoundsFlag() ).isFalse();
+        }
+    }
+
+    @Test
+    void mustRaiseBoundsFlagOnAccessOutsideOfPage() throws IOException
+    {
+        writeFile( 2 * PAGE_SIZE );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            assertThat( cursor.next() ).isTrue();
+            assertThat( cursor.getLong( PAGE_SIZE - 4 ) ).isZero();
+            assertThat( cursor.checkAndClearBoundsFlag() ).isTrue();
+            cursor.getByte( -1 );
+            assertThat( cursor.checkAndClearBoundsFlag() ).isTrue();
+            cursor.setOffset( PAGE_SIZE - 2 );
+            cursor.getBytes( new byte[4] );
+            assertThat( cursor.checkAndClearBoundsFlag() ).isTrue();
+            assertThat( cursor.checkAndClearBoundsFlag() ).isFalse();
+        }
+    }
+
+    @Test
+    void mustCopyPageContentsToBuffers() throws IOException
+    {
+        writeFile( 2 * PAGE_SIZE );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE );
+              PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            assertThat( cursor.next() ).isTrue();
+            ByteBuffer buffer = ByteBuffer.allocate( 2 * PAGE_SIZE );
+            assertThat( cursor.copyTo( 8, buffer ) ).isEqualTo( PAGE_SIZE - 8 );
+            assertThat( buffer.position() ).isEqualTo( PAGE_SIZE - 8 );
+            assertThat( buffer.getLong( 0 ) ).isEqualTo( valueAt( PAGE_SIZE + 8 ) );
+
+            byte[] bytes = new byte[Long.BYTES];
+            cursor.setOffset( 16 );
+            cursor.getBytes( bytes );
+            assertThat( ByteBuffer.wrap( bytes ).getLong() ).isEqualTo( valueAt( PAGE_SIZE + 16 ) );
+            assertThat( cursor.getOffset() ).isEqualTo( 24 );
+        }
+    }
+
+    @Test
+    void linkedCursorsMustReadOtherPages() throws IOException
+    {
+        writeFile( 4 * PAGE_SIZE );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            assertThat( cursor.next() ).isTrue();
+            PageCursor linked = cursor.openLinkedCursor( 3 );
+            assertThat( linked.next() ).isTrue();
+            assertThat( linked.getLong( 0 ) ).isEqualTo( valueAt( 3 * PAGE_SIZE ) );
+            assertThat( cursor.getLong( 0 ) ).isEqualTo( valueAt( 0 ) );
+            linked.getLong( PAGE_SIZE );
+            assertThat( cursor.checkAndClearBoundsFlag() ).isTrue();
+        }
+    }
+
+    @Test
+    void mustNotAllowWrites() throws IOException
+    {
+        writeFile( PAGE_SIZE );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertThatThrownBy( () -> pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) ).isInstanceOf( UnsupportedOperationException.class );
+            assertThatThrownBy( () -> pagedFile.setDeleteOnClose( true ) ).isInstanceOf( UnsupportedOperationException.class );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+            {
+                assertThat( cursor.next() ).isTrue();
+                assertThatThrownBy( () -> cursor.putLong( 0, 1 ) ).isInstanceOf( IllegalStateException.class );
+            }
+        }
+        assertThatThrownBy( () -> pageCache.map( file, PAGE_SIZE, immutable.of( TRUNCATE_EXISTING ) ) )
+                .isInstanceOf( UnsupportedOperationException.class );
+        assertThatThrownBy( () -> pageCache.map( testDirectory.homePath().resolve( "other" ), PAGE_SIZE, immutable.of( CREATE ) ) )
+                .isInstanceOf( NoSuchFileException.class );
+    }
+
+    @Test
+    void mustShareMappingsOfTheSameFile() throws IOException
+    {
+        writeFile( PAGE_SIZE );
+        PagedFile first = pageCache.map( file, PAGE_SIZE );
+        PagedFile second = pageCache.map( file, PAGE_SIZE, immutable.of( CREATE ) );
+        assertThat( second ).isSameAs( first );
+        assertThat( pageCache.listExistingMappings() ).containsExactly( first );
+        assertThatThrownBy( () -> pageCache.map( file, PAGE_SIZE * 2 ) ).isInstanceOf( IllegalArgumentException.class );
+
+        first.close();
+        assertThat( second.getLastPageId() ).isZero();
+        assertThatThrownBy( pageCache::close ).isInstanceOf( IllegalStateException.class );
+
+        second.close();
+        assertThatThrownBy( second::getLastPageId ).isInstanceOf( FileIsNotMappedException.class );
+        assertThat( pageCache.listExistingMappings() ).isEmpty();
+    }
+
+    private void writeFile( int bytes ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( bytes );
+        for ( int offset = 0; offset + Long.BYTES <= bytes; offset += Long.BYTES )
+        {
+            buffer.putLong( valueAt( offset ) );
+        }
+        buffer.clear();
+        try ( StoreChannel channel = fs.write( file ) )
+        {
+            channel.writeAll( buffer );
+        }
+    }
+
+    private static long valueAt( long fileOffset )
+    {
+        return fileOffset * 31 + 7;
+    }
+}
@@ -20,6 +20,7 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.commons.lang3.mutable.MutableLong;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -29,6 +30,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
@@ -43,15 +45,19 @@ import org.neo4j.io.fs.DelegatingFileSystemAbstraction;
 import org.neo4j.io.fs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.memory.ByteBuffers;
 import org.neo4j.io.pagecache.DelegatingPageSwapper;
 import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageEvictionCallback;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.CompressedPageSwapper;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
@@ -60,15 +66,20 @@ import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
 import org.neo4j.memory.ScopedMemoryTracker;
+import org.neo4j.time.Clocks;
 
+import static java.nio.file.StandardOpenOption.CREATE;
 import static java.time.Duration.ofMillis;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.eclipse.collections.api.factory.Sets.immutable;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -79,7 +90,9 @@ import static org.junit.jupiter.api.Assumptions.assumeFalse;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_buffered_flush_enabled;
 import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_flush_buffer_size_in_pages;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.buffer.IOBufferFactory.DISABLED_BUFFER_FACTORY;
@@ -291,6 +304,376 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    void mustSplitPageListIntoContiguousEvictionPartitions()
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 64, 4, PageCacheTracer.NULL ) )
+        {
+            assertThat( pageCache.partitions ).hasSize( 4 );
+            int expectedStart = 0;
+            for ( EvictionPartition partition : pageCache.partitions )
+            {
+                assertThat( partition.startPageId ).isEqualTo( expectedStart );
+                assertThat( partition.pageCount() ).isEqualTo( 16 );
+                expectedStart = partition.endPageId;
+            }
+            assertThat( expectedStart ).isEqualTo( 64 );
+        }
+    }
+
+    @Test
+    void mustNotCreateMoreEvictionPartitionsThanPagesAllow()
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 6, 8, PageCacheTracer.NULL ) )
+        {
+            assertThat( pageCache.partitions ).hasSize( 3 );
+            assertThat( pageCache.partitions[2].endPageId ).isEqualTo( 6 );
+        }
+    }
+
+    @Test
+    void mustEvictFromAllPartitionsAndKeepDataIntact() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        int partitions = 4;
+        int filePages = 200;
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 40, partitions, tracer );
+                PagedFile pagedFile = map( pageCache, file( "a" ), pageCache.pageSize() ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+            {
+                for ( long pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    cursor.putLong( pageId );
+                }
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+            {
+                for ( long pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong( 0 );
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertThat( value ).isEqualTo( pageId );
+                }
+            }
+            // Page faulting threads also evict, cooperatively, but the eviction thread of every partition must have evicted pages of its own
+            assertTimeoutPreemptively( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+            {
+                for ( int partition = 0; partition < partitions; partition++ )
+                {
+                    while ( tracer.freeListSize( partition ) == -1 || tracer.evictions( partition ) == 0 )
+                    {
+                        Thread.sleep( 10 );
+                    }
+                }
+            } );
+            long partitionEvictions = 0;
+            for ( int partition = 0; partition < partitions; partition++ )
+            {
+                assertThat( tracer.evictions( partition ) ).isPositive();
+                partitionEvictions += tracer.evictions( partition );
+            }
+            assertThat( partitionEvictions ).isLessThanOrEqualTo( tracer.evictions() );
+        }
+    }
+
+    @Test
+    void sequentialReadAheadScanMustFaultInRunsOfPagesWithVectoredReads() throws Exception
+    {
+        int filePages = 400;
+        Path file = file( "a" );
+        writeSequentialPages( file, filePages );
+
+        VectoredReadCountingSwapperFactory swapperFactory = new VectoredReadCountingSwapperFactory();
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( swapperFactory, 1024, 1, tracer );
+                PagedFile pagedFile = map( pageCache, file, pageCache.pageSize() ) )
+        {
+            assertSequentialPages( pagedFile, PF_SHARED_READ_LOCK | PF_READ_AHEAD, filePages, tracer );
+            assertThat( swapperFactory.vectoredReads ).isGreaterThan( 0 );
+            assertThat( swapperFactory.vectoredReadPages ).isGreaterThan( filePages / 2 );
+            assertThat( tracer.faults() ).isLessThan( filePages / 4 );
+        }
+    }
+
+    @Test
+    void sequentialScanWithoutReadAheadMustFaultInSinglePages() throws Exception
+    {
+        int filePages = 100;
+        Path file = file( "a" );
+        writeSequentialPages( file, filePages );
+
+        VectoredReadCountingSwapperFactory swapperFactory = new VectoredReadCountingSwapperFactory();
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( swapperFactory, 1024, 1, tracer );
+                PagedFile pagedFile = map( pageCache, file, pageCache.pageSize() ) )
+        {
+            assertSequentialPages( pagedFile, PF_SHARED_READ_LOCK, filePages, tracer );
+            assertThat( swapperFactory.vectoredReads ).isZero();
+            assertThat( tracer.faults() ).isEqualTo( filePages );
+        }
+    }
+
+    @Test
+    void readAheadMustNotFaultPagesThatAreAlreadyInMemory() throws Exception
+    {
+        int filePages = 100;
+        Path file = file( "a" );
+        writeSequentialPages( file, filePages );
+
+        VectoredReadCountingSwapperFactory swapperFactory = new VectoredReadCountingSwapperFactory();
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( swapperFactory, 1024, 1, PageCacheTracer.NULL );
+                PagedFile pagedFile = map( pageCache, file, pageCache.pageSize() ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+            {
+                for ( long pageId = 10; pageId < filePages; pageId += 10 )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                }
+            }
+            assertSequentialPages( pagedFile, PF_SHARED_READ_LOCK | PF_READ_AHEAD, filePages, PageCacheTracer.NULL );
+            assertThat( swapperFactory.vectoredReadPages ).isLessThanOrEqualTo( filePages - filePages / 10 );
+        }
+    }
+
+    @Test
+    void preFetchMustLoadPageInBackground() throws Exception
+    {
+        int filePages = 20;
+        Path file = file( "a" );
+        writeSequentialPages( file, filePages );
+
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 64, 1, PageCacheTracer.NULL );
+                PagedFile pagedFile = map( pageCache, file, pageCache.pageSize() ) )
+        {
+            assertFalse( isResident( pagedFile, 13 ) );
+            pagedFile.preFetch( 13 );
+            assertTimeoutPreemptively( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+            {
+                while ( !isResident( pagedFile, 13 ) )
+                {
+                    Thread.sleep( 10 );
+                }
+            } );
+            assertFalse( isResident( pagedFile, 12 ) );
+            assertFalse( isResident( pagedFile, 14 ) );
+        }
+    }
+
+    @Test
+    void preFetchMustIgnorePagesBeyondEndOfFile() throws Exception
+    {
+        int filePages = 4;
+        Path file = file( "a" );
+        writeSequentialPages( file, filePages );
+
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 64, 1, PageCacheTracer.NULL );
+                PagedFile pagedFile = map( pageCache, file, pageCache.pageSize() ) )
+        {
+            pagedFile.preFetch( -1 );
+            pagedFile.preFetch( filePages );
+            assertThat( pagedFile.getLastPageId() ).isEqualTo( filePages - 1 );
+        }
+    }
+
+    @Test
+    void highPriorityPagesMustSurviveScansOfNormalFiles() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        int hotPages = 20;
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 400, 1, tracer );
+                PagedFile hotFile = map( pageCache, existingFile( "hot" ), pageCache.pageSize(), immutable.of( PageCachePriority.HIGH ) );
+                PagedFile bulkFile = map( pageCache, existingFile( "bulk" ), pageCache.pageSize() ) )
+        {
+            writePages( hotFile, hotPages );
+            writePages( bulkFile, 2000 );
+
+            for ( long pageId = 0; pageId < hotPages; pageId++ )
+            {
+                assertTrue( isResident( hotFile, pageId ), "page " + pageId );
+            }
+            assertThat( tracer.residentPages( PageCachePriority.HIGH ) ).isEqualTo( hotPages );
+            assertThat( tracer.residentPages( PageCachePriority.NORMAL ) ).isGreaterThan( 0 );
+        }
+    }
+
+    @Test
+    void highPriorityPagesBeyondPinBudgetMustBeEvictable() throws Exception
+    {
+        int hotPages = 100;
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 200, 1, PageCacheTracer.NULL );
+                PagedFile hotFile = map( pageCache, existingFile( "hot" ), pageCache.pageSize(), immutable.of( PageCachePriority.HIGH ) );
+                PagedFile bulkFile = map( pageCache, existingFile( "bulk" ), pageCache.pageSize() ) )
+        {
+            writePages( hotFile, hotPages );
+            writePages( bulkFile, 2000 );
+
+            int residentHotPages = 0;
+            for ( long pageId = 0; pageId < hotPages; pageId++ )
+            {
+                residentHotPages += isResident( hotFile, pageId ) ? 1 : 0;
+            }
+            assertThat( residentHotPages ).isLessThan( hotPages );
+        }
+    }
+
+    @Test
+    void compressedFilesMustRoundTripThroughThePageCache() throws Exception
+    {
+        int filePages = 200;
+        Path path = file( "compressed" );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, PageCacheTracer.NULL ) )
+        {
+            try ( PagedFile pagedFile = map( pageCache, path, pageCache.pageSize(), immutable.of( CREATE, PageCacheOpenOptions.COMPRESSED ) ) )
+            {
+                writePages( pagedFile, filePages );
+            }
+            assertThat( fs.fileExists( CompressedPageSwapper.pageMapFile( path ) ) ).isTrue();
+            assertThat( fs.getFileSize( path ) ).isLessThan( (long) filePages * pageCache.pageSize() / 4 );
+
+            try ( PagedFile pagedFile = map( pageCache, path, pageCache.pageSize(), immutable.of( PageCacheOpenOptions.COMPRESSED ) );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD, NULL ) )
+            {
+                assertThat( pagedFile.getLastPageId() ).isEqualTo( filePages - 1 );
+                for ( long pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    assertThat( cursor.getLong() ).isEqualTo( pageId );
+                }
+            }
+        }
+    }
+
+    @Test
+    void asynchronousFlushMustWriteAllDirtyPagesOfAllFiles() throws Exception
+    {
+        var pageCacheTracer = new DefaultPageCacheTracer();
+        Path fileA = existingFile( "a" );
+        Path fileB = existingFile( "b" );
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 40, 1, pageCacheTracer );
+              PagedFile pagedFileA = map( pageCache, fileA, pageCache.pageSize() );
+              PagedFile pagedFileB = map( pageCache, fileB, pageCache.pageSize() ) )
+        {
+            pageCache.setMaxFlushWritesInFlight( 2 );
+            // Three runs of dirty pages in the first file, and a single run in the second.
+            writePageIds( pagedFileA, 0, 1, 2, 4, 5, 7 );
+            writePageIds( pagedFileB, 0, 1, 2, 3 );
+
+            pageCache.flushAndForce();
+
+            assertThat( pageCacheTracer.flushes() ).isEqualTo( 10 );
+            assertThat( readFilePage( fileA, pageCache.pageSize(), 7 ) ).isEqualTo( 7 );
+            assertThat( readFilePage( fileB, pageCache.pageSize(), 3 ) ).isEqualTo( 3 );
+
+            // The flushed pages are clean now, so flushing again must not write anything.
+            pageCache.flushAndForce();
+            assertThat( pageCacheTracer.flushes() ).isEqualTo( 10 );
+
+            writePageIds( pagedFileA, 6 );
+            pagedFileA.flushAndForce();
+            assertThat( pageCacheTracer.flushes() ).isEqualTo( 11 );
+            assertThat( readFilePage( fileA, pageCache.pageSize(), 6 ) ).isEqualTo( 6 );
+        }
+    }
+
+    @Test
+    void asynchronousFlushMustLimitIOOfAllFilesWithOneLimiterStamp() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 40, 1, PageCacheTracer.NULL );
+              PagedFile pagedFileA = map( pageCache, existingFile( "a" ), pageCache.pageSize() );
+              PagedFile pagedFileB = map( pageCache, existingFile( "b" ), pageCache.pageSize() ) )
+        {
+            pageCache.setMaxFlushWritesInFlight( 4 );
+            writePageIds( pagedFileA, 0, 2, 4, 6 );
+            writePageIds( pagedFileB, 1, 3, 5 );
+
+            List<Long> stamps = new CopyOnWriteArrayList<>();
+            MutableLong completedIOs = new MutableLong();
+            IOLimiter limiter = ( previousStamp, recentlyCompletedIOs, flushable ) ->
+            {
+                stamps.add( previousStamp );
+                completedIOs.add( recentlyCompletedIOs );
+                return previousStamp + 1;
+            };
+            pageCache.flushAndForce( limiter );
+
+            // One call per write, with the stamps threaded through the flushes of both files.
+            assertThat( stamps ).containsExactly( 0L, 1L, 2L, 3L, 4L, 5L, 6L );
+            assertThat( completedIOs.longValue() ).isBetween( 0L, 7L );
+        }
+    }
+
+    @Test
+    void asynchronousFlushMustPropagateWriteFailuresAndLeavePagesDirty() throws Exception
+    {
+        MutableBoolean failWrites = new MutableBoolean( true );
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory( fs )
+        {
+            @Override
+            public PageSwapper createPageSwapper( Path file, int filePageSize, PageEvictionCallback onEviction, boolean createIfNotExist,
+                    boolean useDirectIO ) throws IOException
+            {
+                return new DelegatingPageSwapper( super.createPageSwapper( file, filePageSize, onEviction, createIfNotExist, useDirectIO ) )
+                {
+                    @Override
+                    public long write( long startFilePageId, long[] bufferAddresses, int[] bufferLengths, int length, int totalAffectedPages )
+                            throws IOException
+                    {
+                        if ( failWrites.booleanValue() )
+                        {
+                            throw new IOException( "boom" );
+                        }
+                        return super.write( startFilePageId, bufferAddresses, bufferLengths, length, totalAffectedPages );
+                    }
+                };
+            }
+        };
+        var pageCacheTracer = new DefaultPageCacheTracer();
+        Path path = existingFile( "a" );
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( swapperFactory, 40, 1, pageCacheTracer );
+              PagedFile pagedFile = map( pageCache, path, pageCache.pageSize() ) )
+        {
+            pageCache.setMaxFlushWritesInFlight( 2 );
+            writePageIds( pagedFile, 0, 2, 4 );
+
+            assertThatThrownBy( pageCache::flushAndForce ).isInstanceOf( IOException.class ).hasMessage( "boom" );
+            assertThat( pageCacheTracer.flushes() ).isZero();
+
+            // The pages of the failed writes must have been unlocked, and still be dirty.
+            failWrites.setFalse();
+            pageCache.flushAndForce();
+            assertThat( pageCacheTracer.flushes() ).isEqualTo( 3 );
+            assertThat( readFilePage( path, pageCache.pageSize(), 4 ) ).isEqualTo( 4 );
+        }
+    }
+
+    @Test
+    void asynchronousFlushMustOnlyUseFlushEventsOnTheFlushingThread() throws Exception
+    {
+        ThreadRecordingFlushTracer pageCacheTracer = new ThreadRecordingFlushTracer();
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 40, 1, pageCacheTracer );
+              PagedFile pagedFileA = map( pageCache, existingFile( "a" ), pageCache.pageSize() );
+              PagedFile pagedFileB = map( pageCache, existingFile( "b" ), pageCache.pageSize() ) )
+        {
+            pageCache.setMaxFlushWritesInFlight( 4 );
+            writePageIds( pagedFileA, 0, 2, 4, 6 );
+            writePageIds( pagedFileB, 1, 3, 5 );
+
+            pageCache.flushAndForce();
+
+            assertThat( pageCacheTracer.eventThreads ).containsExactly( Thread.currentThread() );
+            assertThat( pageCacheTracer.pagesFlushed ).isEqualTo( 7 );
+            assertThat( pageCacheTracer.flushesDone ).isEqualTo( 7 );
+        }
+    }
+
     @Test
     void trackPageModificationTransactionId() throws Exception
     {
@@ -1345,6 +1728,95 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    private MuninnPageCache createPartitionedPageCache( int maxPages, int partitions, PageCacheTracer tracer )
+    {
+        return createPartitionedPageCache( new SingleFilePageSwapperFactory( fs ), maxPages, partitions, tracer );
+    }
+
+    private MuninnPageCache createPartitionedPageCache( PageSwapperFactory swapperFactory, int maxPages, int partitions, PageCacheTracer tracer )
+    {
+        MemoryAllocator allocator = MemoryAllocator.createAllocator( MuninnPageCache.memoryRequiredForPages( maxPages ), INSTANCE );
+        return new MuninnPageCache( swapperFactory, allocator, MuninnPageCache.PAGE_SIZE, tracer, EMPTY, jobScheduler,
+                Clocks.nanoClock(), INSTANCE, DISABLED_BUFFER_FACTORY, partitions, PageReplacementPolicy.CLOCK );
+    }
+
+    private void writeSequentialPages( Path file, int filePages ) throws IOException
+    {
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 16, 1, PageCacheTracer.NULL );
+                PagedFile pagedFile = map( pageCache, file, pageCache.pageSize() );
+                PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                assertTrue( cursor.next( pageId ) );
+                cursor.putLong( pageId );
+            }
+        }
+    }
+
+    private static void assertSequentialPages( PagedFile pagedFile, int pf_flags, int filePages, PageCacheTracer tracer ) throws IOException
+    {
+        try ( PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "sequentialScan" );
+                PageCursor cursor = pagedFile.io( 0, pf_flags, cursorTracer ) )
+        {
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                assertTrue( cursor.next() );
+                long value;
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+                assertThat( value ).isEqualTo( pageId );
+            }
+            assertFalse( cursor.next() );
+        }
+    }
+
+    private static void writePages( PagedFile pagedFile, int filePages ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                assertTrue( cursor.next( pageId ) );
+                cursor.putLong( pageId );
+            }
+        }
+    }
+
+    private static void writePageIds( PagedFile pagedFile, long... pageIds ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( long pageId : pageIds )
+            {
+                assertTrue( cursor.next( pageId ) );
+                cursor.putLong( pageId );
+            }
+        }
+    }
+
+    private long readFilePage( Path file, int pageSize, long pageId ) throws IOException
+    {
+        try ( StoreChannel channel = fs.read( file ) )
+        {
+            ByteBuffer buffer = ByteBuffers.allocate( Long.BYTES, INSTANCE );
+            channel.position( pageId * pageSize );
+            channel.readAll( buffer );
+            return buffer.flip().getLong();
+        }
+    }
+
+    private static boolean isResident( PagedFile pagedFile, long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK | PF_NO_FAULT, NULL ) )
+        {
+            return cursor.next() && cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID;
+        }
+    }
+
     private void evictAllPages( MuninnPageCache pageCache ) throws IOException
     {
         PageList pages = pageCache.pages;
@@ -1458,6 +1930,88 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    /**
+     * Records the threads that use its flush events, which count the flushed pages without any synchronization.
+     */
+    private static class ThreadRecordingFlushTracer extends DefaultPageCacheTracer
+    {
+        private final Set<Thread> eventThreads = ConcurrentHashMap.newKeySet();
+        private long pagesFlushed;
+        private long flushesDone;
+
+        private final FlushEvent flushEvent = new FlushEvent()
+        {
+            @Override
+            public void addBytesWritten( long bytes )
+            {
+                eventThreads.add( Thread.currentThread() );
+            }
+
+            @Override
+            public void done()
+            {
+                eventThreads.add( Thread.currentThread() );
+                flushesDone++;
+            }
+
+            @Override
+            public void done( IOException exception )
+            {
+                eventThreads.add( Thread.currentThread() );
+            }
+
+            @Override
+            public void addPagesFlushed( int pageCount )
+            {
+                eventThreads.add( Thread.currentThread() );
+                pagesFlushed += pageCount;
+            }
+
+            @Override
+            public void addPagesMerged( int pagesMerged )
+            {
+                eventThreads.add( Thread.currentThread() );
+            }
+        };
+
+        @Override
+        public MajorFlushEvent beginFileFlush( PageSwapper swapper )
+        {
+            return new MajorFlushEvent()
+            {
+                @Override
+                public FlushEventOpportunity flushEventOpportunity()
+                {
+                    return new FlushEventOpportunity()
+                    {
+                        @Override
+                        public FlushEvent beginFlush( long filePageId, long cachePageId, PageSwapper swapper, int pagesToFlush, int mergedPages )
+                        {
+                            eventThreads.add( Thread.currentThread() );
+                            return flushEvent;
+                        }
+
+                        @Override
+                        public void startFlush( int[][] translationTable )
+                        {
+                        }
+
+                        @Override
+                        public ChunkEvent startChunk( int[] chunk )
+                        {
+                            return ChunkEvent.NULL;
+                        }
+                    };
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+        }
+    }
+
     private static class FlushInfoTracer extends DefaultPageCacheTracer
     {
         private final CopyOnWriteArrayList<ChunkInfo> observedChunks = new CopyOnWriteArrayList<>();
@@ -1557,6 +2111,33 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    private class VectoredReadCountingSwapperFactory extends SingleFilePageSwapperFactory
+    {
+        private volatile int vectoredReads;
+        private volatile int vectoredReadPages;
+
+        VectoredReadCountingSwapperFactory()
+        {
+            super( MuninnPageCacheTest.this.fs );
+        }
+
+        @Override
+        public PageSwapper createPageSwapper( Path file, int filePageSize, PageEvictionCallback onEviction, boolean createIfNotExist, boolean useDirectIO )
+                throws IOException
+        {
+            return new DelegatingPageSwapper( super.createPageSwapper( file, filePageSize, onEviction, createIfNotExist, useDirectIO ) )
+            {
+                @Override
+                public long read( long startFilePageId, long[] bufferAddresses, int[] bufferLengths, int length ) throws IOException
+                {
+                    vectoredReads++;
+                    vectoredReadPages += length;
+                    return super.read( startFilePageId, bufferAddresses, bufferLengths, length );
+                }
+            };
+        }
+    }
+
     private class MultiChunkSwapperFilePageSwapperFactory extends SingleFilePageSwapperFactory
     {
         MultiChunkSwapperFilePageSwapperFactory()
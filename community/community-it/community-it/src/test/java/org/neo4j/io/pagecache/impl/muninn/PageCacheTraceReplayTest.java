@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.time.Clocks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.buffer.IOBufferFactory.DISABLED_BUFFER_FACTORY;
+import static org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier.EMPTY;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+
+/**
+ * Replays traces of page accesses against a {@link MuninnPageCache}, to compare the hit ratios of the {@link PageReplacementPolicy page
+ * replacement policies}.
+ */
+@TestDirectoryExtension
+class PageCacheTraceReplayTest
+{
+    private static final int CACHE_PAGES = 400;
+    private static final int HOT_PAGES = 200;
+    private static final int SCAN_PAGES = 10_000;
+
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private TestDirectory testDirectory;
+
+    private ThreadPoolJobScheduler jobScheduler;
+
+    @BeforeEach
+    void setUp()
+    {
+        jobScheduler = new ThreadPoolJobScheduler();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        jobScheduler.close();
+    }
+
+    @Test
+    void twoQueuePolicyMustKeepHotPagesThroughLargeScan() throws Exception
+    {
+        List<PageAccess> trace = hotSetWithScanTrace( new Random( 42 ) );
+
+        double clockHitRatio = replay( trace, PageReplacementPolicy.CLOCK );
+        double twoQueueHitRatio = replay( trace, PageReplacementPolicy.TWO_QUEUE );
+
+        assertThat( twoQueueHitRatio ).isGreaterThan( clockHitRatio );
+    }
+
+    @Test
+    void policiesMustAgreeOnTraceThatFitsInCache() throws Exception
+    {
+        List<PageAccess> trace = new ArrayList<>();
+        for ( int round = 0; round < 4; round++ )
+        {
+            for ( int i = 0; i < HOT_PAGES; i++ )
+            {
+                trace.add( new PageAccess( "hot", i ) );
+            }
+        }
+
+        assertThat( replay( trace, PageReplacementPolicy.CLOCK ) ).isEqualTo( 0.75 );
+        assertThat( replay( trace, PageReplacementPolicy.TWO_QUEUE ) ).isEqualTo( 0.75 );
+    }
+
+    /**
+     * A hot set of pages that is accessed at random, interleaved with a sequential scan of a file that is much larger than the cache.
+     */
+    private static List<PageAccess> hotSetWithScanTrace( Random random )
+    {
+        List<PageAccess> trace = new ArrayList<>();
+        for ( int round = 0; round < 2; round++ )
+        {
+            for ( int i = 0; i < HOT_PAGES; i++ )
+            {
+                trace.add( new PageAccess( "hot", i ) );
+            }
+        }
+        for ( int i = 0; i < SCAN_PAGES; i++ )
+        {
+            trace.add( new PageAccess( "scan", i ) );
+            trace.add( new PageAccess( "hot", random.nextInt( HOT_PAGES ) ) );
+        }
+        return trace;
+    }
+
+    /**
+     * Replay the given trace against an empty page cache with the given policy.
+     *
+     * @return the hit ratio of the page accesses in the trace.
+     */
+    private double replay( List<PageAccess> trace, PageReplacementPolicy policy ) throws IOException
+    {
+        Path directory = testDirectory.directory( policy.name() );
+        Map<String,Long> lastPageIds = new HashMap<>();
+        for ( PageAccess access : trace )
+        {
+            lastPageIds.merge( access.file, access.filePageId, Math::max );
+        }
+        for ( Map.Entry<String,Long> entry : lastPageIds.entrySet() )
+        {
+            createFile( directory.resolve( entry.getKey() ), entry.getValue() );
+        }
+
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        MemoryAllocator allocator = MemoryAllocator.createAllocator( MuninnPageCache.memoryRequiredForPages( CACHE_PAGES ), INSTANCE );
+        try ( MuninnPageCache pageCache = new MuninnPageCache( new SingleFilePageSwapperFactory( fs ), allocator, PageCache.PAGE_SIZE, tracer, EMPTY,
+                      jobScheduler, Clocks.nanoClock(), INSTANCE, DISABLED_BUFFER_FACTORY, 1, policy );
+              PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "replay" ) )
+        {
+            Map<String,PagedFile> pagedFiles = new HashMap<>();
+            try
+            {
+                for ( String file : lastPageIds.keySet() )
+                {
+                    pagedFiles.put( file, pageCache.map( directory.resolve( file ), PageCache.PAGE_SIZE ) );
+                }
+                for ( PageAccess access : trace )
+                {
+                    try ( PageCursor cursor = pagedFiles.get( access.file ).io( access.filePageId, PF_SHARED_READ_LOCK, cursorTracer ) )
+                    {
+                        cursor.next();
+                    }
+                }
+                return cursorTracer.hitRatio();
+            }
+            finally
+            {
+                for ( PagedFile pagedFile : pagedFiles.values() )
+                {
+                    pagedFile.close();
+                }
+            }
+        }
+        finally
+        {
+            allocator.close();
+        }
+    }
+
+    private void createFile( Path file, long lastPageId ) throws IOException
+    {
+        try ( StoreChannel channel = fs.write( file ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( 1 ), (lastPageId + 1) * PageCache.PAGE_SIZE - 1 );
+        }
+    }
+
+    private static final class PageAccess
+    {
+        final String file;
+        final long filePageId;
+
+        PageAccess( String file, long filePageId )
+        {
+            this.file = file;
+            this.filePageId = filePageId;
+        }
+    }
+}
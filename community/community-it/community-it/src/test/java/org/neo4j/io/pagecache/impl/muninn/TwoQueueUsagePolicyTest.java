@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.tracing.DummyPageSwapper;
+import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
+import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.io.ByteUnit.MebiByte;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+
+class TwoQueueUsagePolicyTest
+{
+    private static final int PAGES = 16;
+
+    private MemoryAllocator mman;
+    private TwoQueueUsagePolicy policy;
+    private PageList pageList;
+    private int swapperId;
+
+    @BeforeEach
+    void setUp()
+    {
+        mman = MemoryAllocator.createAllocator( MebiByte.toBytes( 1 ), INSTANCE );
+        int pageSize = UnsafeUtil.pageSize();
+        SwapperSet swappers = new SwapperSet();
+        swapperId = swappers.allocate( new DummyPageSwapper( "file", pageSize ) );
+        policy = new TwoQueueUsagePolicy( PAGES );
+        pageList = new PageList( PAGES, pageSize, mman, swappers, VictimPageReference.getVictimPage( pageSize, INSTANCE ), Long.BYTES, policy );
+        for ( int i = 0; i < PAGES; i++ )
+        {
+            pageList.unlockExclusive( pageList.deref( i ) );
+        }
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        mman.close();
+    }
+
+    @Test
+    void pagePinnedOnceAfterFaultMustBeEvictable() throws IOException
+    {
+        long pageRef = fault( 0, 1 );
+        pageList.incrementUsage( pageRef );
+
+        assertThat( policy.probationaryPages() ).isOne();
+        assertTrue( pageList.decrementUsage( pageRef ) );
+    }
+
+    @Test
+    void pagePinnedTwiceAfterFaultMustBePromoted() throws IOException
+    {
+        long pageRef = fault( 0, 1 );
+        pageList.incrementUsage( pageRef );
+        pageList.incrementUsage( pageRef );
+
+        assertFalse( pageList.decrementUsage( pageRef ) );
+        assertThat( policy.probationaryPages() ).isZero();
+        assertTrue( pageList.decrementUsage( pageRef ) );
+    }
+
+    @Test
+    void probationaryPageFaultedBackInMustBeAdmittedAsHot() throws IOException
+    {
+        long pageRef = fault( 0, 7 );
+        pageList.incrementUsage( pageRef );
+        evict( pageRef );
+        assertThat( policy.probationaryPages() ).isZero();
+
+        pageRef = fault( 1, 7 );
+        pageList.incrementUsage( pageRef );
+        assertThat( policy.probationaryPages() ).isZero();
+        assertTrue( pageList.decrementUsage( pageRef ) );
+    }
+
+    @Test
+    void hotPagesMustNotBeAgedWhileProbationarySetIsLarge() throws IOException
+    {
+        long hotPageRef = fault( 0, 0 );
+        pageList.incrementUsage( hotPageRef );
+        pageList.incrementUsage( hotPageRef );
+        assertFalse( pageList.decrementUsage( hotPageRef ) ); // Promoted.
+
+        for ( int i = 1; i < PAGES; i++ )
+        {
+            pageList.incrementUsage( fault( i, i ) );
+        }
+        assertThat( policy.probationaryPages() ).isEqualTo( PAGES - 1 );
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertFalse( pageList.decrementUsage( hotPageRef ) );
+        }
+
+        // Once the scan pages are gone, the hot page ages like in CLOCK.
+        for ( int i = 1; i < PAGES; i++ )
+        {
+            evict( pageList.deref( i ) );
+        }
+        assertTrue( pageList.decrementUsage( hotPageRef ) );
+    }
+
+    private long fault( int pageId, long filePageId ) throws IOException
+    {
+        long pageRef = pageList.deref( pageId );
+        assertTrue( pageList.tryExclusiveLock( pageRef ) );
+        pageList.initBuffer( pageRef );
+        pageList.fault( pageRef, new DummyPageSwapper( "file", UnsafeUtil.pageSize() ), swapperId, filePageId, PageFaultEvent.NULL );
+        pageList.unlockExclusive( pageRef );
+        return pageRef;
+    }
+
+    private void evict( long pageRef ) throws IOException
+    {
+        assertTrue( pageList.tryEvict( pageRef, EvictionRunEvent.NULL ) );
+        pageList.unlockExclusive( pageRef );
+    }
+}
@@ -68,6 +68,12 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.beginPageEvictions( pageCountToEvict );
     }
 
+    @Override
+    public EvictionRunEvent beginPageEvictions( int partition, int pageCountToEvict )
+    {
+        return delegate.beginPageEvictions( partition, pageCountToEvict );
+    }
+
     @Override
     public long unpins()
     {
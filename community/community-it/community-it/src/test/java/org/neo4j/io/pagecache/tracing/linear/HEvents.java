@@ -25,9 +25,11 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.StringReader;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.IdentityHashMap;
 import java.util.Map;
 
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
@@ -116,6 +118,9 @@ class HEvents
     public static class EvictionRunHEvent extends IntervalHEvent implements EvictionRunEvent
     {
         int pagesToEvict;
+        int partition;
+        int freePages;
+        long[] residentPages = new long[PageCachePriority.values().length];
 
         EvictionRunHEvent( LinearHistoryTracer tracer, int pagesToEvict )
         {
@@ -129,11 +134,30 @@ class HEvents
             return tracer.add( new EvictionHEvent( tracer ) );
         }
 
+        @Override
+        public void freeListSize( int partition, int freePages )
+        {
+            this.partition = partition;
+            this.freePages = freePages;
+        }
+
+        @Override
+        public void residentPages( PageCachePriority priority, long pages )
+        {
+            residentPages[priority.ordinal()] = pages;
+        }
+
         @Override
         void printBody( PrintStream out, String exceptionLinePrefix )
         {
             out.print( ", pagesToEvict:" );
             out.print( pagesToEvict );
+            out.print( ", partition:" );
+            out.print( partition );
+            out.print( ", freePages:" );
+            out.print( freePages );
+            out.print( ", residentPages:" );
+            out.print( Arrays.toString( residentPages ) );
         }
     }
 
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
@@ -71,6 +72,16 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
                 return new RecordingEvictionEvent();
             }
 
+            @Override
+            public void freeListSize( int partition, int freePages )
+            {
+            }
+
+            @Override
+            public void residentPages( PageCachePriority priority, long pages )
+            {
+            }
+
             @Override
             public void close()
             {
@@ -36,6 +36,7 @@ import org.neo4j.kernel.impl.index.schema.GenericNativeIndexProviderFactory;
 import static org.neo4j.configuration.GraphDatabaseSettings.SchemaIndex.NATIVE_BTREE10;
 import static org.neo4j.configuration.GraphDatabaseSettings.default_schema_provider;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
 
 public class GenericIndexProviderCompatibilitySuiteTest extends IndexProviderCompatibilityTestSuite
 {
@@ -46,7 +47,7 @@ public class GenericIndexProviderCompatibilitySuiteTest extends IndexProviderCom
         Config config = Config.defaults( default_schema_provider, NATIVE_BTREE10.providerName() );
         OperationalMode mode = OperationalMode.SINGLE;
         RecoveryCleanupWorkCollector recoveryCleanupWorkCollector = RecoveryCleanupWorkCollector.immediate();
-        return GenericNativeIndexProviderFactory.create( pageCache, graphDbDir, fs, monitor, config, mode, recoveryCleanupWorkCollector );
+        return GenericNativeIndexProviderFactory.create( pageCache, graphDbDir, fs, monitor, config, mode, recoveryCleanupWorkCollector, INSTANCE );
     }
 
     @Override
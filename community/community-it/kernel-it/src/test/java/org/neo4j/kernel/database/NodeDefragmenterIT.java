@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.database;
+
+import org.junit.jupiter.api.Test;
+
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+import org.neo4j.test.extension.ExtensionCallback;
+import org.neo4j.test.extension.ImpermanentDbmsExtension;
+import org.neo4j.test.extension.Inject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+@ImpermanentDbmsExtension( configurationCallback = "configure" )
+class NodeDefragmenterIT
+{
+    private static final int ROUNDS = 20;
+    private static final int FILLERS_PER_ROUND = 250;
+
+    @Inject
+    private GraphDatabaseAPI db;
+    @Inject
+    private NodeDefragmenter defragmenter;
+
+    @ExtensionCallback
+    static void configure( TestDatabaseManagementServiceBuilder builder )
+    {
+        builder.setConfig( GraphDatabaseSettings.dense_node_threshold, 1 );
+        builder.setConfig( GraphDatabaseInternalSettings.node_defragmentation_max_nodes_per_second, 0 );
+    }
+
+    @Test
+    void shouldMovePropertyAndGroupRecordsOfNodeCloserTogether() throws Exception
+    {
+        long nodeId = createNodeWithScatteredRecords();
+
+        NodeDefragmenter.Report report = defragmenter.defragment( new long[]{nodeId} );
+
+        assertThat( report.nodes() ).isEqualTo( 1 );
+        assertThat( report.defragmentedNodes() ).isEqualTo( 1 );
+        assertThat( report.pagesBefore() ).isGreaterThan( ROUNDS );
+        assertThat( report.pagesAfter() ).isLessThan( report.pagesBefore() ).isLessThanOrEqualTo( 4 );
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = tx.getNodeById( nodeId );
+            for ( int i = 0; i < ROUNDS; i++ )
+            {
+                for ( int j = 0; j < 4; j++ )
+                {
+                    assertThat( node.getProperty( "key" + i + "_" + j ) ).isEqualTo( i * 10 + j );
+                }
+                assertThat( count( node.getRelationships( type( i ) ) ) ).isEqualTo( 1 );
+            }
+            assertThat( node.getDegree() ).isEqualTo( ROUNDS );
+        }
+
+        NodeDefragmenter.Report secondReport = defragmenter.defragment( new long[]{nodeId} );
+        assertThat( secondReport.defragmentedNodes() ).isZero();
+        assertThat( secondReport.pagesBefore() ).isEqualTo( report.pagesAfter() );
+        assertThat( secondReport.pagesAfter() ).isEqualTo( report.pagesAfter() );
+    }
+
+    @Test
+    void shouldNotChangeAnythingForNodesWhichDoNotExist() throws Exception
+    {
+        NodeDefragmenter.Report report = defragmenter.defragment( new long[]{1234} );
+
+        assertThat( report.nodes() ).isEqualTo( 1 );
+        assertThat( report.defragmentedNodes() ).isZero();
+        assertThat( report.pagesBefore() ).isZero();
+    }
+
+    /**
+     * Adds a property record and a relationship group to the node in each round, with enough records of other nodes created in
+     * between for each record of the node to end up on a page of its own.
+     */
+    private long createNodeWithScatteredRecords()
+    {
+        long nodeId;
+        try ( Transaction tx = db.beginTx() )
+        {
+            nodeId = tx.createNode().getId();
+            tx.commit();
+        }
+        for ( int i = 0; i < ROUNDS; i++ )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                Node node = tx.getNodeById( nodeId );
+                for ( int j = 0; j < 4; j++ )
+                {
+                    node.setProperty( "key" + i + "_" + j, i * 10 + j );
+                }
+                node.createRelationshipTo( tx.createNode(), type( i ) );
+                for ( int j = 0; j < FILLERS_PER_ROUND; j++ )
+                {
+                    Node filler = tx.createNode();
+                    filler.setProperty( "filler", j );
+                    filler.createRelationshipTo( tx.createNode(), type( ROUNDS ) );
+                    filler.createRelationshipTo( tx.createNode(), type( ROUNDS + 1 ) );
+                }
+                tx.commit();
+            }
+        }
+        return nodeId;
+    }
+
+    private static RelationshipType type( int i )
+    {
+        return RelationshipType.withName( "TYPE_" + i );
+    }
+}
@@ -211,9 +211,9 @@ class IndexPopulationJobTest
         assertTrue( populator.resultSampled );
         assertTrue( populator.closeCall );
 
-        assertThat( pageCacheTracer.pins() ).isEqualTo( 19 );
-        assertThat( pageCacheTracer.unpins() ).isEqualTo( 19 );
-        assertThat( pageCacheTracer.hits() ).isEqualTo( 18 );
+        assertThat( pageCacheTracer.pins() ).isEqualTo( 18 );
+        assertThat( pageCacheTracer.unpins() ).isEqualTo( 18 );
+        assertThat( pageCacheTracer.hits() ).isEqualTo( 17 );
         assertThat( pageCacheTracer.faults() ).isEqualTo( 1 );
     }
 
@@ -264,9 +264,9 @@ class IndexPopulationJobTest
         assertTrue( populator.resultSampled );
         assertTrue( populator.closeCall );
 
-        assertThat( pageCacheTracer.pins() ).isEqualTo( 17 );
-        assertThat( pageCacheTracer.unpins() ).isEqualTo( 17 );
-        assertThat( pageCacheTracer.hits() ).isEqualTo( 16 );
+        assertThat( pageCacheTracer.pins() ).isEqualTo( 16 );
+        assertThat( pageCacheTracer.unpins() ).isEqualTo( 16 );
+        assertThat( pageCacheTracer.hits() ).isEqualTo( 15 );
         assertThat( pageCacheTracer.faults() ).isEqualTo( 1 );
     }
 
@@ -628,8 +628,9 @@ class IndexPopulationJobTest
                     }
 
                     @Override
-                    public void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
+                    public boolean acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
                     {
+                        return true;
                     }
 
                     @Override
@@ -668,8 +669,9 @@ class IndexPopulationJobTest
         }
 
         @Override
-        public void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
+        public boolean acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
         {
+            return true;
         }
 
         @Override
@@ -148,6 +148,15 @@ public interface ProcedureITBase
                         "Triggers an index resample and waits for it to complete, and after that clears query caches." +
                                 " After this procedure has finished queries will be planned using the latest database " + "statistics.",
                         stringArray( "admin" ), "READ" ),
+                proc( "db.compactIndexes", "() :: VOID",
+                        "Compacts all indexes which have become fragmented, e.g. after many removals, by rewriting them into key order. " +
+                        "Writes to an index, and so transactions updating it, wait while it's being rewritten.",
+                        stringArray( "admin" ), "READ" ),
+                proc( "db.defragmentNodes",
+                        "(nodeIds :: LIST? OF INTEGER?) :: (nodes :: INTEGER?, defragmentedNodes :: INTEGER?, pagesBefore :: INTEGER?, pagesAfter :: INTEGER?)",
+                        "Moves the property and relationship group records of the given nodes next to each other in the store, " +
+                                "so that reading the nodes touches fewer pages, and reports how many pages that was before and after.",
+                        stringArray( "admin" ), "READ" ),
                 proc( "db.stats.retrieve", "(section :: STRING?, config = {} :: MAP?) :: (section :: STRING?, data :: MAP?)",
                         "Retrieve statistical data about the current database. Valid sections are 'GRAPH COUNTS', 'TOKENS', 'QUERIES', 'META'",
                         stringArray( "admin" ), "READ" ),
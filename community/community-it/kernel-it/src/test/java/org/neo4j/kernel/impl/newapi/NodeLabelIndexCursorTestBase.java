@@ -136,6 +136,91 @@ abstract class NodeLabelIndexCursorTestBase<G extends KernelAPIWriteTestSupport>
         }
     }
 
+    @Test
+    void shouldFindNodesByAllAndAnyOfLabels() throws Exception
+    {
+        long oneAndTwo;
+        long oneTwoAndThree;
+        long onlyOne;
+        long onlyTwo;
+        try ( KernelTransaction tx = beginTransaction() )
+        {
+            oneAndTwo = createNode( tx.dataWrite(), labelOne, labelTwo );
+            onlyOne = createNode( tx.dataWrite(), labelOne );
+            onlyTwo = createNode( tx.dataWrite(), labelTwo );
+            oneTwoAndThree = createNode( tx.dataWrite(), labelOne, labelTwo, labelThree );
+            createNode( tx.dataWrite(), labelThree );
+            tx.commit();
+        }
+
+        try ( KernelTransaction tx = beginTransaction() )
+        {
+            Read read = tx.dataRead();
+
+            try ( NodeLabelIndexCursor cursor = tx.cursors().allocateNodeLabelIndexCursor( tx.pageCursorTracer() ) )
+            {
+                // when
+                read.nodeLabelIntersectionScan( new int[]{labelOne, labelTwo}, cursor, IndexOrder.NONE );
+
+                // then
+                assertNodes( cursor, new LongHashSet(), oneAndTwo, oneTwoAndThree );
+
+                // when
+                read.nodeLabelUnionScan( new int[]{labelOne, labelTwo}, cursor, IndexOrder.NONE );
+
+                // then
+                assertNodes( cursor, new LongHashSet(), oneAndTwo, onlyOne, onlyTwo, oneTwoAndThree );
+            }
+        }
+    }
+
+    @Test
+    void shouldFindNodesByAllAndAnyOfLabelsInTx() throws Exception
+    {
+        long inStore;
+        long labelAddedInTx;
+        long labelRemovedInTx;
+        long deletedInTx;
+        long createdInTx;
+        long onlyTwo;
+
+        try ( KernelTransaction tx = beginTransaction() )
+        {
+            inStore = createNode( tx.dataWrite(), labelOne, labelTwo );
+            labelAddedInTx = createNode( tx.dataWrite(), labelOne );
+            labelRemovedInTx = createNode( tx.dataWrite(), labelOne, labelTwo );
+            deletedInTx = createNode( tx.dataWrite(), labelOne, labelTwo );
+            onlyTwo = createNode( tx.dataWrite(), labelTwo );
+            tx.commit();
+        }
+
+        try ( KernelTransaction tx = beginTransaction() )
+        {
+            tx.dataWrite().nodeAddLabel( labelAddedInTx, labelTwo );
+            tx.dataWrite().nodeRemoveLabel( labelRemovedInTx, labelOne );
+            tx.dataWrite().nodeDelete( deletedInTx );
+            createdInTx = createNode( tx.dataWrite(), labelOne, labelTwo );
+            createNode( tx.dataWrite(), labelOne );
+
+            Read read = tx.dataRead();
+
+            try ( NodeLabelIndexCursor cursor = tx.cursors().allocateNodeLabelIndexCursor( tx.pageCursorTracer() ) )
+            {
+                // when
+                read.nodeLabelIntersectionScan( new int[]{labelOne, labelTwo}, cursor, IndexOrder.ASCENDING );
+
+                // then
+                assertNodes( cursor, new LongHashSet(), inStore, labelAddedInTx, createdInTx );
+
+                // when
+                read.nodeLabelUnionScan( new int[]{labelTwo, labelThree}, cursor, IndexOrder.NONE );
+
+                // then
+                assertNodes( cursor, new LongHashSet(), inStore, labelAddedInTx, labelRemovedInTx, onlyTwo, createdInTx );
+            }
+        }
+    }
+
     private long createNode( Write write, int... labels ) throws KernelException
     {
         long nodeId = write.nodeCreate();
@@ -30,6 +30,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.function.LongSupplier;
 
 import org.neo4j.collection.Dependencies;
@@ -55,6 +56,7 @@ import org.neo4j.io.fs.UncloseableDelegatingFileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.CompressedPageSwapper;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
@@ -106,6 +108,7 @@ import static org.neo4j.configuration.GraphDatabaseInternalSettings.counts_store
 import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
 import static org.neo4j.internal.kernel.api.security.LoginContext.AUTH_DISABLED;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.kernel.impl.store.RecordStoreSettings.compressed_store_types;
 import static org.neo4j.kernel.impl.store.format.standard.MetaDataRecordFormat.FIELD_NOT_PRESENT;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
@@ -663,6 +666,36 @@ public class NeoStoresTest
         }
     }
 
+    @Test
+    void configuredStoreTypesMustBeCreatedCompressed() throws Exception
+    {
+        fs.deleteRecursively( databaseLayout.databaseDirectory() );
+        Config config = Config.newBuilder().setRaw( Map.of( compressed_store_types.name(), "PROPERTY, property_string" ) ).build();
+        int stringDataSize;
+        try ( NeoStores neoStores = getStoreFactory( config, databaseLayout, fs, NullLogProvider.getInstance() ).openAllNeoStores( true ) )
+        {
+            stringDataSize = neoStores.getPropertyStore().getStringStore().getRecordDataSize();
+        }
+        assertTrue( fs.fileExists( CompressedPageSwapper.pageMapFile( databaseLayout.propertyStore() ) ) );
+        assertTrue( fs.fileExists( CompressedPageSwapper.pageMapFile( databaseLayout.propertyStringStore() ) ) );
+        assertFalse( fs.fileExists( CompressedPageSwapper.pageMapFile( databaseLayout.nodeStore() ) ) );
+
+        // Existing stores stay compressed, regardless of configuration
+        try ( NeoStores neoStores = getStoreFactory( Config.defaults(), databaseLayout, fs, NullLogProvider.getInstance() ).openAllNeoStores() )
+        {
+            assertEquals( stringDataSize, neoStores.getPropertyStore().getStringStore().getRecordDataSize() );
+        }
+    }
+
+    @Test
+    void mustNotAcceptMetaDataOrUnknownStoresToCompress()
+    {
+        assertThrows( IllegalArgumentException.class,
+                () -> Config.newBuilder().setRaw( Map.of( compressed_store_types.name(), "META_DATA" ) ).build() );
+        assertThrows( IllegalArgumentException.class,
+                () -> Config.newBuilder().setRaw( Map.of( compressed_store_types.name(), "PROPERTY_STRINGS" ) ).build() );
+    }
+
     @Test
     void isPresentFalseAfterCreatingAllButLastStoreType() throws Exception
     {
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+import org.neo4j.test.extension.ExtensionCallback;
+import org.neo4j.test.extension.ImpermanentDbmsExtension;
+import org.neo4j.test.extension.Inject;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.internal.helpers.collection.Iterators.count;
+import static org.neo4j.internal.helpers.collection.Iterators.single;
+
+@ImpermanentDbmsExtension( configurationCallback = "configure" )
+class ParallelApplyIT
+{
+    private static final int NODES = 2_000;
+    private static final Label LABEL = Label.label( "Label" );
+    private static final RelationshipType TYPE = RelationshipType.withName( "TYPE" );
+
+    @Inject
+    private GraphDatabaseAPI db;
+
+    @ExtensionCallback
+    static void configure( TestDatabaseManagementServiceBuilder builder )
+    {
+        builder.setConfig( GraphDatabaseInternalSettings.parallel_apply_threads, 4 );
+        builder.setConfig( GraphDatabaseInternalSettings.parallel_apply_min_records, 100 );
+        builder.setConfig( GraphDatabaseSettings.dense_node_threshold, 10 );
+    }
+
+    @Test
+    void shouldApplyLargeTransactionsUsingSeveralThreads()
+    {
+        // given
+        try ( Transaction tx = db.beginTx() )
+        {
+            tx.schema().indexFor( LABEL ).on( "key" ).create();
+            tx.commit();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            tx.schema().awaitIndexesOnline( 1, MINUTES );
+        }
+
+        // when creating many records in one transaction
+        List<Long> nodeIds = new ArrayList<>();
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node hub = tx.createNode();
+            for ( int i = 0; i < NODES; i++ )
+            {
+                Node node = tx.createNode( LABEL );
+                node.setProperty( "key", i );
+                node.setProperty( "name", "node " + i + " with a long enough name to go into the string store" );
+                node.createRelationshipTo( hub, TYPE ).setProperty( "weight", i );
+                nodeIds.add( node.getId() );
+            }
+            tx.commit();
+        }
+
+        // then
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < NODES; i++ )
+            {
+                Node node = tx.getNodeById( nodeIds.get( i ) );
+                assertThat( node.getProperty( "key" ) ).isEqualTo( i );
+                assertThat( node.getProperty( "name" ) ).isEqualTo( "node " + i + " with a long enough name to go into the string store" );
+                Relationship relationship = node.getSingleRelationship( TYPE, Direction.OUTGOING );
+                assertThat( relationship.getProperty( "weight" ) ).isEqualTo( i );
+                assertThat( relationship.getEndNode().getDegree() ).isEqualTo( NODES );
+            }
+            assertThat( count( tx.findNodes( LABEL, "key", NODES / 2 ) ) ).isEqualTo( 1 );
+            assertThat( count( tx.findNodes( LABEL ) ) ).isEqualTo( NODES );
+        }
+
+        // and when deleting them again in one transaction
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( long nodeId : nodeIds )
+            {
+                Node node = tx.getNodeById( nodeId );
+                node.getRelationships().forEach( Relationship::delete );
+                node.delete();
+            }
+            tx.commit();
+        }
+
+        // then
+        try ( Transaction tx = db.beginTx() )
+        {
+            assertThat( count( tx.findNodes( LABEL ) ) ).isZero();
+            assertThat( count( tx.getAllRelationships().iterator() ) ).isZero();
+            assertThat( count( tx.getAllNodes().iterator() ) ).isEqualTo( 1 );
+        }
+    }
+
+    @Test
+    void shouldUpdateCompositeIndexWhenOneOfItsPropertiesChangesInLargeTransaction()
+    {
+        // given
+        try ( Transaction tx = db.beginTx() )
+        {
+            tx.schema().indexFor( LABEL ).on( "key" ).on( "name" ).create();
+            tx.commit();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            tx.schema().awaitIndexesOnline( 1, MINUTES );
+        }
+        List<Long> nodeIds = new ArrayList<>();
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < NODES; i++ )
+            {
+                Node node = tx.createNode( LABEL );
+                node.setProperty( "key", i );
+                node.setProperty( "name", "name " + i );
+                nodeIds.add( node.getId() );
+            }
+            tx.commit();
+        }
+
+        // when changing only one of the indexed properties, to a value that takes more space in the property record
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < NODES; i++ )
+            {
+                tx.getNodeById( nodeIds.get( i ) ).setProperty( "key", "key " + i + " with a long enough value to go into the string store" );
+            }
+            tx.commit();
+        }
+
+        // then
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < NODES; i++ )
+            {
+                Node node = single( tx.findNodes( LABEL, "key", "key " + i + " with a long enough value to go into the string store", "name", "name " + i ) );
+                assertThat( node.getId() ).isEqualTo( nodeIds.get( i ) );
+                assertThat( count( tx.findNodes( LABEL, "key", i, "name", "name " + i ) ) ).isZero();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import org.junit.jupiter.api.Test;
+
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+import org.neo4j.test.extension.ExtensionCallback;
+import org.neo4j.test.extension.ImpermanentDbmsExtension;
+import org.neo4j.test.extension.Inject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.internal.helpers.collection.Iterables.count;
+
+@ImpermanentDbmsExtension( configurationCallback = "configure" )
+class RelationshipGroupDirectoryIT
+{
+    private static final int TYPES = 100;
+
+    @Inject
+    private GraphDatabaseAPI db;
+
+    @ExtensionCallback
+    static void configure( TestDatabaseManagementServiceBuilder builder )
+    {
+        builder.setConfig( GraphDatabaseSettings.dense_node_threshold, 1 );
+    }
+
+    @Test
+    void shouldTraverseRelationshipsOfSelectedTypesOfNodeWithManyTypes()
+    {
+        // given a node with relationships of every other type
+        long nodeId;
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = tx.createNode();
+            for ( int i = 0; i < TYPES; i += 2 )
+            {
+                node.createRelationshipTo( tx.createNode(), type( i ) );
+                tx.createNode().createRelationshipTo( node, type( i ) );
+            }
+            nodeId = node.getId();
+            tx.commit();
+        }
+
+        // when traversing it repeatedly, so that its groups are looked up in the directory, then
+        assertRelationships( nodeId, 0 );
+        assertRelationships( nodeId, 0 );
+
+        // when creating and deleting groups of it
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = tx.getNodeById( nodeId );
+            node.createRelationshipTo( tx.createNode(), type( 1 ) );
+            node.createRelationshipTo( node, type( TYPES - 1 ) );
+            for ( Relationship relationship : node.getRelationships( type( 4 ) ) )
+            {
+                relationship.delete();
+            }
+            tx.commit();
+        }
+
+        // then
+        assertRelationships( nodeId, 4 );
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = tx.getNodeById( nodeId );
+            assertThat( count( node.getRelationships( type( 1 ) ) ) ).isEqualTo( 1 );
+            assertThat( node.getDegree( type( 1 ), Direction.OUTGOING ) ).isEqualTo( 1 );
+            assertThat( count( node.getRelationships( type( TYPES - 1 ) ) ) ).isEqualTo( 1 );
+            assertThat( node.getDegree( type( TYPES - 1 ) ) ).isEqualTo( 1 );
+            assertThat( count( node.getRelationships( type( 1 ), type( 4 ), type( TYPES - 1 ) ) ) ).isEqualTo( 2 );
+        }
+    }
+
+    private void assertRelationships( long nodeId, int deletedType )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = tx.getNodeById( nodeId );
+            for ( int i = 0; i < TYPES - 2; i += 2 )
+            {
+                int expected = i == deletedType && deletedType != 0 ? 0 : 2;
+                assertThat( count( node.getRelationships( type( i ) ) ) ).isEqualTo( expected );
+                assertThat( count( node.getRelationships( Direction.OUTGOING, type( i ) ) ) ).isEqualTo( expected / 2 );
+                assertThat( node.getDegree( type( i ) ) ).isEqualTo( expected );
+                assertThat( node.getDegree( type( i ), Direction.INCOMING ) ).isEqualTo( expected / 2 );
+                assertThat( count( node.getRelationships( type( i + 1 ) ) ) ).isEqualTo( i + 1 == 1 && deletedType != 0 ? 1 : 0 );
+            }
+            assertThat( count( node.getRelationships( type( 2 ), type( 6 ), type( 3 ) ) ) ).isEqualTo( 4 );
+        }
+    }
+
+    private static RelationshipType type( int i )
+    {
+        return RelationshipType.withName( "TYPE" + i );
+    }
+}
@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.exceptions.KernelException;
@@ -49,6 +50,7 @@ import org.neo4j.internal.schema.LabelSchemaDescriptor;
 import org.neo4j.internal.schema.RelationTypeSchemaDescriptor;
 import org.neo4j.internal.schema.SchemaDescriptor;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.impl.api.index.StoreScan;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.impl.store.NeoStores;
@@ -57,6 +59,9 @@ import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.lock.Lock;
 import org.neo4j.lock.LockService;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobMonitoringParams;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.EntityTokenUpdate;
 import org.neo4j.storageengine.api.EntityUpdates;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
@@ -95,6 +100,8 @@ class NeoStoreIndexStoreViewTest
     private RecordStorageEngine storageEngine;
     @Inject
     private CheckPointer checkPointer;
+    @Inject
+    private JobScheduler jobScheduler;
 
     private final Map<Long, Lock> lockMocks = new HashMap<>();
     private final Label label = Label.label( "Person" );
@@ -185,6 +192,43 @@ class NeoStoreIndexStoreViewTest
                 add( sKnowsA.getId(), relPropertyKeyId, "lengthy", new long[]{relTypeId} ) ), visitor.getUpdates() );
     }
 
+    @Test
+    void shouldScanAllNodesInParallel() throws Exception
+    {
+        // given
+        int nodeCount = 3 * PropertyAwareEntityStoreScan.RANGE_SIZE + 10;
+        Set<Long> expectedNodes = new HashSet<>( List.of( alistair.getId(), stefan.getId() ) );
+        for ( int i = 0; i < nodeCount; i += 1_000 )
+        {
+            try ( Transaction tx = graphDb.beginTx() )
+            {
+                for ( int j = i; j < Math.min( nodeCount, i + 1_000 ); j++ )
+                {
+                    Node node = tx.createNode( label );
+                    node.setProperty( "name", "Node" + j );
+                    expectedNodes.add( node.getId() );
+                }
+                tx.commit();
+            }
+        }
+        Set<Long> scannedNodes = ConcurrentHashMap.newKeySet();
+        StoreScan<Exception> storeScan = new NeoStoreIndexStoreView( LockService.NO_LOCK_SERVICE, storageEngine::newReader ).visitNodes(
+                new int[]{labelId}, id -> id == propertyKeyId, updates ->
+                {
+                    assertTrue( scannedNodes.add( updates.getEntityId() ) );
+                    return false;
+                }, null, false, NULL, INSTANCE );
+        storeScan.setParallelism( 3, PageCacheTracer.NULL,
+                worker -> jobScheduler.schedule( Group.INDEX_POPULATION_SCAN, JobMonitoringParams.NOT_MONITORED, worker ) );
+
+        // when
+        storeScan.run();
+
+        // then
+        assertEquals( expectedNodes, scannedNodes );
+        assertEquals( 1f, storeScan.getProgress().getProgress() );
+    }
+
     @Test
     void shouldIgnoreDeletedNodesDuringScan() throws Exception
     {
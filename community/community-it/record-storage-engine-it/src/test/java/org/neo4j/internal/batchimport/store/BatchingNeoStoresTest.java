@@ -397,7 +397,7 @@ class BatchingNeoStoresTest
                             new StandardConstraintSemantics(), indexConfigCompleter, LockService.NO_LOCK_SERVICE,
                             new DatabaseHealth( PanicEventGenerator.NO_OP, nullLog ),
                             new DefaultIdGeneratorFactory( fileSystem, immediate() ), new DefaultIdController(),
-                            recoveryCleanupWorkCollector, PageCacheTracer.NULL, true, INSTANCE ) );
+                            recoveryCleanupWorkCollector, scheduler, PageCacheTracer.NULL, true, INSTANCE ) );
             // Create the relationship type token
             TxState txState = new TxState();
             Monitors monitors = new Monitors();
@@ -84,6 +84,26 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Integer> experimental_consistency_checker_stop_threshold =
             newBuilder( "unsupported.consistency_checker.experimental.fail_fast", INT, 0 ).addConstraint( min( 0 ) ).build();
 
+    @Internal
+    @Description( "The page replacement policy of the page cache. 'CLOCK' evicts the pages that have been used the least recently and " +
+            "frequently. 'TWO_QUEUE' is scan-resistant: pages are only considered hot once they have been used more than once, so large scans " +
+            "of the store do not evict the hot working set." )
+    public static final Setting<PageCacheReplacementPolicy> pagecache_replacement_policy =
+            newBuilder( "unsupported.dbms.memory.pagecache.replacement_policy", ofEnum( PageCacheReplacementPolicy.class ),
+                    PageCacheReplacementPolicy.CLOCK ).build();
+
+    public enum PageCacheReplacementPolicy
+    {
+        CLOCK, TWO_QUEUE
+    }
+
+    @Internal
+    @Description( "Make the page caches of offline tools memory map the store files read-only, instead of copying their pages into a page cache. " +
+            "Reads then go straight to the operating system page cache, but any attempt to write to the store fails. Only stores on a file " +
+            "system backed by real files can be memory mapped, and the store files must not be modified while they are mapped." )
+    public static final Setting<Boolean> pagecache_memory_mapped_read_only =
+            newBuilder( "unsupported.dbms.memory.pagecache.memory_mapped_read_only", BOOL, false ).build();
+
     public enum CypherRuntime
     {
         DEFAULT, INTERPRETED, SLOTTED, PIPELINED
@@ -312,6 +332,11 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Integer> index_sampling_parallelism =
             newBuilder( "unsupported.dbms.index_sampling.parallelism", INT, 4 ).addConstraint( min( 0 ) ).build();
 
+    @Internal
+    @Description( "Set the maximum number of threads that can concurrently be used to force indexes during a check point. Zero means unrestricted." )
+    public static final Setting<Integer> index_force_parallelism =
+            newBuilder( "unsupported.dbms.index.force_parallelism", INT, 4 ).addConstraint( min( 0 ) ).build();
+
     @Internal
     @Description( "Set the maximum number of concurrent index populations across system. " +
             "This also limit the number of threads used to scan store. " +
@@ -474,10 +499,72 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Boolean> archive_failed_index =
             newBuilder( "unsupported.dbms.index.archive_failed", BOOL, false ).build();
 
+    @Internal
+    @Description( "Maximum size of the sorted in-memory buffer of updates kept in front of each native schema index. " +
+            "Buffered updates are applied to the index in sorted batches when the index is checkpointed or when the buffer is full, " +
+            "and are merged into the results of index reads until then. Zero disables the buffer." )
+    public static final Setting<Long> native_index_write_buffer_size =
+            newBuilder( "unsupported.dbms.index.native.write_buffer_size", BYTES, 0L ).addConstraint( min( 0L ) ).build();
+
+    @Internal
+    @Description( "Create new native schema indexes with their keys written values first, in leaves where neighbouring keys share their " +
+            "common prefix. Saves a lot of space for indexed strings with long common prefixes. Existing indexes keep the key format " +
+            "they were created with, regardless of this setting." )
+    public static final Setting<Boolean> native_index_key_prefix_compression =
+            newBuilder( "unsupported.dbms.index.native.key_prefix_compression", BOOL, false ).build();
+
+    @Internal
+    @Description( "Interval between background compactions of the native indexes and token scan stores of a database. " +
+            "Compaction rewrites a fragmented index into key order in the pages it frees, e.g. after many removals. " +
+            "Writes to an index, and so commits updating it, and checkpoints wait while it's being rewritten, " +
+            "but not while its fragmentation is measured. " +
+            "Zero disables background compaction, which can still be triggered with the db.compactIndexes() procedure." )
+    public static final Setting<Duration> index_compaction_interval =
+            newBuilder( "unsupported.dbms.index.compaction.interval", DURATION, Duration.ZERO ).build();
+
+    @Internal
+    @Description( "How fragmented, between 0 and 1, a native index or token scan store must be for background compaction to compact it. " +
+            "Fragmentation is the greater of the unused part of its leaves and the part of its leaves which are out of key order in the file." )
+    public static final Setting<Double> index_compaction_min_fragmentation =
+            newBuilder( "unsupported.dbms.index.compaction.min_fragmentation", DOUBLE, 0.5 ).addConstraint( range( 0.0, 1.0 ) ).build();
+
+    @Internal
+    @Description( "Maximum number of nodes per second that node defragmentation, e.g. by the db.defragmentNodes() procedure, moves the " +
+            "property and relationship group records of. Each node is defragmented in a transaction of its own. Zero means no limit." )
+    public static final Setting<Integer> node_defragmentation_max_nodes_per_second =
+            newBuilder( "unsupported.dbms.node_defragmentation.max_nodes_per_second", INT, 100 ).addConstraint( min( 0 ) ).build();
+
+    @Internal
+    @Description( "Maximum number of dense nodes with many relationship types to keep a directory of relationship groups in memory for. " +
+            "The directory lets typed expansions and degree lookups of such a node find the group of a type without walking " +
+            "its whole group chain. Zero disables the directory." )
+    public static final Setting<Integer> relationship_group_directory_max_nodes =
+            newBuilder( "unsupported.dbms.relationship_group_directory.max_nodes", INT, 1000 ).addConstraint( min( 0 ) ).build();
+
+    @Internal
+    @Description( "Minimum number of node, relationship and property records changed by a transaction for them to be written to the store " +
+            "by several threads when the transaction is applied. Zero, the default, disables parallel application." )
+    public static final Setting<Integer> parallel_apply_min_records =
+            newBuilder( "unsupported.dbms.parallel_apply.min_records", INT, 0 ).addConstraint( min( 0 ) ).build();
+
+    @Internal
+    @Description( "Number of threads writing the records of large transactions to the store when they are applied, " +
+            "see unsupported.dbms.parallel_apply.min_records. Zero means one thread per cpu core." )
+    public static final Setting<Integer> parallel_apply_threads =
+            newBuilder( "unsupported.dbms.parallel_apply.threads", INT, 0 ).addConstraint( min( 0 ) ).build();
+
     @Internal
     @Description( "Forces smaller ID cache, in order to preserve memory." )
     public static final Setting<Boolean> force_small_id_cache = newBuilder( "unsupported.dbms.force_small_id_cache", BOOL, Boolean.FALSE ).build();
 
+    @Internal
+    @Description( "Number of ids that each transaction allocates at a time from the node, relationship, relationship group and property id generators " +
+            "and keeps for its own use, handing back what's left when it's disposed. " +
+            "Allocating in batches reduces contention on the id generators and keeps records created together close to each other in the store. " +
+            "A value of 1 allocates ids one by one." )
+    public static final Setting<Integer> record_id_batch_size =
+            newBuilder( "unsupported.dbms.record_id_batch_size", INT, 1 ).addConstraint( min( 1 ) ).build();
+
     @Internal
     public static final Setting<Boolean> consistency_check_on_apply =
             newBuilder( "unsupported.dbms.storage.consistency_check_on_apply", BOOL, Boolean.FALSE ).build();
@@ -520,6 +607,14 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Integer> checkpoint_logical_log_keep_threshold =
             newBuilder( "unsupported.dbms.checkpoint_log.rotation.keep.files", INT, 3 ).addConstraint( range( 2, 100 ) ).build();
 
+    @Internal
+    @Description( "Target for the 99th percentile of the time committing transactions wait for the transaction log to be forced. " +
+            "When set, the checkpoint IO rate adapts to the observed commit latency: it is lowered while the target is exceeded, " +
+            "and raised while commits are comfortably within the target. The adaptive rate starts out at `dbms.checkpoint.iops.limit`. " +
+            "A zero duration disables the adaptive IO limit." )
+    public static final Setting<Duration> checkpoint_commit_latency_target =
+            newBuilder( "unsupported.dbms.checkpoint.commit_latency_target", DURATION, Duration.ZERO ).addConstraint( min( Duration.ZERO ) ).build();
+
     @Internal
     @Description( "The name of the user that should be allowed to call dbms.upgrade when `unsupported.dbms.upgrade_restriction_enabled` is enabled" )
     public static final Setting<String> upgrade_username =
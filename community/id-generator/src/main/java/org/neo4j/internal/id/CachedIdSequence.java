@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.id;
+
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+
+import static org.neo4j.internal.id.IdRangeIterator.VALUE_REPRESENTING_NULL;
+
+/**
+ * {@link IdSequence} which allocates ids from an {@link IdGenerator} in batches and hands them out from a local cache,
+ * such that a thread allocating many ids doesn't have to go to the shared id generator for every one of them.
+ * Not thread safe, it's meant to be owned by one thread at a time, e.g. by a transaction.
+ * <p>
+ * Ids are handed out in ascending order, except for {@link #nextIdNear(long, PageCursorTracer)} which picks the cached id closest to
+ * the given id. Ids left in the cache must be handed back to the id generator using {@link #releaseUnused(PageCursorTracer)}.
+ */
+public class CachedIdSequence implements IdSequence
+{
+    private final IdGenerator source;
+    private final int batchSize;
+    private final long[] ids;
+    private int from;
+    private int to;
+
+    /**
+     * @param source {@link IdGenerator} to allocate batches of ids from.
+     * @param batchSize number of ids to allocate per batch, where a size of {@code 1} or less means no caching.
+     */
+    public CachedIdSequence( IdGenerator source, int batchSize )
+    {
+        this.source = source;
+        this.batchSize = batchSize;
+        this.ids = batchSize > 1 ? new long[batchSize] : new long[0];
+    }
+
+    @Override
+    public long nextId( PageCursorTracer cursorTracer )
+    {
+        if ( !ensureCached( cursorTracer ) )
+        {
+            return source.nextId( cursorTracer );
+        }
+        return ids[from++];
+    }
+
+    @Override
+    public long nextIdNear( long nearId, PageCursorTracer cursorTracer )
+    {
+        if ( !ensureCached( cursorTracer ) )
+        {
+            return source.nextId( cursorTracer );
+        }
+
+        int index = Arrays.binarySearch( ids, from, to, nearId );
+        if ( index < 0 )
+        {
+            // Not in the cache, pick the closest of the ids around the insertion point
+            int insertionPoint = -index - 1;
+            index = insertionPoint == to || (insertionPoint > from && nearId - ids[insertionPoint - 1] <= ids[insertionPoint] - nearId)
+                    ? insertionPoint - 1 : insertionPoint;
+        }
+
+        // Move the lower ids up one step to keep the cached ids in one sorted range
+        long id = ids[index];
+        System.arraycopy( ids, from, ids, from + 1, index - from );
+        from++;
+        return id;
+    }
+
+    /**
+     * Hands back the ids left in the cache to the id generator, see {@link IdGenerator#releaseUnusedIds(long[], PageCursorTracer)}.
+     *
+     * @param cursorTracer for tracing page accesses.
+     */
+    public void releaseUnused( PageCursorTracer cursorTracer )
+    {
+        if ( from < to )
+        {
+            source.releaseUnusedIds( Arrays.copyOfRange( ids, from, to ), cursorTracer );
+        }
+        from = 0;
+        to = 0;
+    }
+
+    private boolean ensureCached( PageCursorTracer cursorTracer )
+    {
+        if ( batchSize <= 1 )
+        {
+            return false;
+        }
+        if ( from == to )
+        {
+            IdRangeIterator batch = source.nextIdBatch( batchSize, false, cursorTracer ).iterator();
+            from = 0;
+            to = 0;
+            long id;
+            while ( to < batchSize && (id = batch.nextId( cursorTracer )) != VALUE_REPRESENTING_NULL )
+            {
+                ids[to++] = id;
+            }
+            Arrays.sort( ids, from, to );
+        }
+        return from < to;
+    }
+}
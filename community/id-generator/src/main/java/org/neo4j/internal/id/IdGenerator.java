@@ -42,6 +42,17 @@ public interface IdGenerator extends IdSequence, Closeable, ConsistencyCheckable
      */
     IdRange nextIdBatch( int size, boolean forceConsecutiveAllocation, PageCursorTracer cursorTracer );
 
+    /**
+     * Hands back ids allocated from this id generator which ended up not being used, e.g. what's left of a batch of ids
+     * cached by an allocating thread. The ids may be handed out again, so the caller must not use them after this call.
+     *
+     * @param ids the allocated and unused ids.
+     * @param cursorTracer for tracing page accesses.
+     */
+    default void releaseUnusedIds( long[] ids, PageCursorTracer cursorTracer )
+    {   // by default the ids are left for the id generator to pick up on its own, like ids of rolled back transactions
+    }
+
     /**
      * @param id the highest in use + 1
      */
@@ -114,6 +125,12 @@ public interface IdGenerator extends IdSequence, Closeable, ConsistencyCheckable
             return delegate.nextIdBatch( size, forceConsecutiveAllocation, cursorTracer );
         }
 
+        @Override
+        public void releaseUnusedIds( long[] ids, PageCursorTracer cursorTracer )
+        {
+            delegate.releaseUnusedIds( ids, cursorTracer );
+        }
+
         @Override
         public void setHighId( long id )
         {
@@ -24,4 +24,17 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 public interface IdSequence
 {
     long nextId( PageCursorTracer cursorTracer );
+
+    /**
+     * Allocates an id, preferably one close to {@code nearId}. Used when allocating ids for records which are accessed together with
+     * the record of {@code nearId}, so that they are more likely to end up on the same page. The hint is best effort and by default ignored.
+     *
+     * @param nearId id of a related record which the allocated id preferably should be close to.
+     * @param cursorTracer underlying page cursor tracer.
+     * @return the allocated id.
+     */
+    default long nextIdNear( long nearId, PageCursorTracer cursorTracer )
+    {
+        return nextId( cursorTracer );
+    }
 }
@@ -28,6 +28,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -48,6 +49,7 @@ import org.neo4j.internal.id.IdType;
 import org.neo4j.internal.id.IdValidator;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
@@ -399,7 +401,7 @@ public class IndexedIdGenerator implements IdGenerator
         {
             final HeaderWriter headerWriter = new HeaderWriter( highId::get, highestWrittenId::get, STARTING_GENERATION, idsPerEntry );
             return new GBPTree<>( pageCache, path, layout, GBPTree.NO_MONITOR, NO_HEADER_READER, headerWriter, recoveryCleanupWorkCollector,
-                    readOnly, NULL, openOptions, "Indexed ID generator" );
+                    readOnly, NULL, openOptions.newWith( PageCachePriority.HIGH ), "Indexed ID generator" );
         }
         catch ( TreeFileNotFoundException e )
         {
@@ -450,13 +452,7 @@ public class IndexedIdGenerator implements IdGenerator
 
         if ( forceConsecutiveAllocation )
         {
-            long startId;
-            do
-            {
-                startId = highId.getAndAdd( size );
-            }
-            while ( IdValidator.hasReservedIdInRange( startId, startId + size ) );
-            return new org.neo4j.internal.id.IdRange( EMPTY_LONG_ARRAY, startId, size );
+            return new org.neo4j.internal.id.IdRange( EMPTY_LONG_ARRAY, allocateConsecutiveFromHigh( size ), size );
         }
 
         long prev = -1;
@@ -465,7 +461,28 @@ public class IndexedIdGenerator implements IdGenerator
         MutableLongList other = null;
         for ( int i = 0; i < size; i++ )
         {
-            long id = nextId( cursorTracer );
+            long id = cache.takeOrDefault( NO_ID );
+            if ( id == NO_ID )
+            {
+                // The cache ran dry, allocate the rest of the batch from high id in one go instead of contending on it id by id.
+                // The reused ids go among the non-consecutive ones and the ids from high id become the consecutive range.
+                int highLength = size - i;
+                long highStart = allocateConsecutiveFromHigh( highLength );
+                for ( long highIdInRange = highStart; highIdInRange < highStart + highLength; highIdInRange++ )
+                {
+                    monitor.allocatedFromHigh( highIdInRange );
+                }
+                if ( other == null )
+                {
+                    other = LongLists.mutable.empty();
+                }
+                for ( int j = 0; j < rangeLength; j++ )
+                {
+                    other.add( startOfRange + j );
+                }
+                return new org.neo4j.internal.id.IdRange( other.toArray(), highStart, highLength );
+            }
+            monitor.allocatedFromReused( id );
             if ( other != null )
             {
                 other.add( id );
@@ -496,6 +513,51 @@ public class IndexedIdGenerator implements IdGenerator
         return new org.neo4j.internal.id.IdRange( other != null ? other.toArray() : EMPTY_LONG_ARRAY, startOfRange, rangeLength );
     }
 
+    private long allocateConsecutiveFromHigh( int size )
+    {
+        long startId;
+        do
+        {
+            startId = highId.getAndAdd( size );
+            IdValidator.assertIdWithinMaxCapacity( idType, startId + size - 1, maxId );
+        }
+        while ( IdValidator.hasReservedIdInRange( startId, startId + size ) );
+        return startId;
+    }
+
+    @Override
+    public void releaseUnusedIds( long[] ids, PageCursorTracer cursorTracer )
+    {
+        assertNotReadOnly();
+        long[] sortedIds = ids.clone();
+        Arrays.sort( sortedIds );
+        boolean unreservedAny = false;
+        try ( IdRangeMarker marker = lockAndInstantiateMarker( false, cursorTracer ) )
+        {
+            for ( int i = sortedIds.length - 1; i >= 0; i-- )
+            {
+                long id = sortedIds[i];
+                if ( id <= highestWrittenId.get() )
+                {
+                    // This id has been written before so it was either reused from the cache, where it got marked as reserved,
+                    // or it was bridged as deleted. Either way unreserving it lets the free id scanner find it again when free
+                    marker.markUnreserved( id );
+                    unreservedAny = true;
+                }
+                else
+                {
+                    // This id was allocated from high id and is unknown to the tree. Try to give it straight back to high id,
+                    // which only works if nothing has been allocated after it. Otherwise it gets bridged later on, like ids of rolled back transactions
+                    highId.compareAndSet( id + 1, id );
+                }
+            }
+        }
+        if ( unreservedAny )
+        {
+            atLeastOneIdOnFreelist.set( true );
+        }
+    }
+
     @Override
     public Marker marker( PageCursorTracer cursorTracer )
     {
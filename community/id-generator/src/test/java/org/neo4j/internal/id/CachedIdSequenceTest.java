@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.id;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+class CachedIdSequenceTest
+{
+    @Test
+    void shouldHandOutBatchInAscendingOrder()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( 4, false, NULL ) ).thenReturn( new IdRange( new long[]{17, 3}, 10, 2 ) );
+        CachedIdSequence ids = new CachedIdSequence( idGenerator, 4 );
+
+        // when/then
+        assertEquals( 3, ids.nextId( NULL ) );
+        assertEquals( 10, ids.nextId( NULL ) );
+        assertEquals( 11, ids.nextId( NULL ) );
+        assertEquals( 17, ids.nextId( NULL ) );
+        verify( idGenerator, times( 1 ) ).nextIdBatch( anyInt(), anyBoolean(), any() );
+    }
+
+    @Test
+    void shouldPickCachedIdClosestToHint()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( 5, false, NULL ) ).thenReturn( new IdRange( new long[]{100, 3, 50}, 10, 2 ) );
+        CachedIdSequence ids = new CachedIdSequence( idGenerator, 5 );
+
+        // when/then
+        assertEquals( 50, ids.nextIdNear( 60, NULL ) );
+        assertEquals( 100, ids.nextIdNear( 1000, NULL ) );
+        assertEquals( 3, ids.nextIdNear( 0, NULL ) );
+        assertEquals( 11, ids.nextIdNear( 11, NULL ) );
+        assertEquals( 10, ids.nextId( NULL ) );
+    }
+
+    @Test
+    void shouldReleaseUnusedIds()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( 4, false, NULL ) ).thenReturn( new IdRange( new long[0], 10, 4 ) );
+        CachedIdSequence ids = new CachedIdSequence( idGenerator, 4 );
+        ids.nextId( NULL );
+
+        // when
+        ids.releaseUnused( NULL );
+
+        // then
+        verify( idGenerator ).releaseUnusedIds( new long[]{11, 12, 13}, NULL );
+        ids.releaseUnused( NULL );
+        verify( idGenerator, times( 1 ) ).releaseUnusedIds( any(), any() );
+    }
+
+    @Test
+    void shouldNotCacheWithBatchSizeOne()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextId( NULL ) ).thenReturn( 5L, 6L );
+        CachedIdSequence ids = new CachedIdSequence( idGenerator, 1 );
+
+        // when
+        long first = ids.nextId( NULL );
+        long second = ids.nextIdNear( 100, NULL );
+        ids.releaseUnused( NULL );
+
+        // then
+        assertThat( new long[]{first, second} ).containsExactly( 5, 6 );
+        verify( idGenerator, never() ).nextIdBatch( anyInt(), anyBoolean(), any() );
+        verify( idGenerator, never() ).releaseUnusedIds( any(), any() );
+    }
+}
@@ -439,6 +439,68 @@ class IndexedIdGeneratorTest
         }
     }
 
+    @Test
+    void shouldAllocateRestOfBatchFromHighIdWhenCacheRunsDry() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        for ( int i = 0; i < 10; i++ )
+        {
+            markUsed( idGenerator.nextId( NULL ) );
+        }
+        markDeleted( 3 );
+        markDeleted( 5 );
+        markFree( 3 );
+        markFree( 5 );
+
+        // when
+        IdRange batch = idGenerator.nextIdBatch( 4, false, NULL );
+
+        // then
+        assertThat( batch.getDefragIds() ).containsExactlyInAnyOrder( 3, 5 );
+        assertEquals( 10, batch.getRangeStart() );
+        assertEquals( 2, batch.getRangeLength() );
+        assertEquals( 12, idGenerator.getHighId() );
+    }
+
+    @Test
+    void shouldMakeReleasedReusedIdsAvailableAgain() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        for ( int i = 0; i < 5; i++ )
+        {
+            markUsed( idGenerator.nextId( NULL ) );
+        }
+        markDeleted( 2 );
+        markFree( 2 );
+        long reusedId = idGenerator.nextId( NULL );
+        assertEquals( 2, reusedId );
+
+        // when
+        idGenerator.releaseUnusedIds( new long[]{reusedId}, NULL );
+
+        // then
+        assertEquals( 2, idGenerator.nextId( NULL ) );
+    }
+
+    @Test
+    void shouldGiveReleasedIdsAtTheTopBackToHighId() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        IdRange batch = idGenerator.nextIdBatch( 5, false, NULL );
+        assertEquals( 0, batch.getRangeStart() );
+        assertEquals( 5, batch.getRangeLength() );
+
+        // when
+        idGenerator.releaseUnusedIds( new long[]{4, 2, 3}, NULL );
+
+        // then
+        assertEquals( 2, idGenerator.getHighId() );
+        assertEquals( 2, idGenerator.nextId( NULL ) );
+    }
+
     @Test
     void shouldUseHighIdSupplierOnCreatingNewFile() throws IOException
     {
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
+import static org.neo4j.index.internal.gbptree.PageCursorUtil.goTo;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Bloom filter over the {@link Layout#filterHash(Object) filter hashes} of the keys in a {@link GBPTree}, telling whether or not a key
+ * may be in the tree. Bits are only ever set, never cleared, which means that additions can be made concurrently with each other
+ * and with lookups, and that keys removed from the tree will still pass the filter.
+ * <p>
+ * The filter is persisted in its own file, next to the tree file, as a header followed by the bits:
+ * <pre>
+ * [magic:8B][stamp:8B][numberOfBits:8B][numberOfKeys:8B][numberOfHashes:4B][unused:4B][bits...]
+ * </pre>
+ * The stamp is the stable generation of the checkpoint the filter was written as part of, such that a filter which doesn't
+ * know about all keys in the tree isn't loaded. Once a filter has been written, later writes of the same filter only write the header
+ * and the chunks of bits which have changed since.
+ * <p>
+ * A filter never takes up more than {@link #MAX_MEGABYTES} of memory, however many keys the tree has; a tree with more keys than that
+ * fits gets a less precise filter instead.
+ */
+class BloomFilter
+{
+    private static final long MAGIC = 0x426C6F6F6D464C54L;
+    private static final int HEADER_SIZE = 5 * Long.BYTES;
+    private static final String BITS_PER_KEY_NAME = "bits_per_key";
+    private static final int BITS_PER_KEY_DEFAULT = 10;
+    private static final int BITS_PER_KEY = Math.max( 1, FeatureToggles.getInteger( BloomFilter.class, BITS_PER_KEY_NAME, BITS_PER_KEY_DEFAULT ) );
+    private static final int NUMBER_OF_HASHES = (int) Math.max( 1, Math.round( BITS_PER_KEY * Math.log( 2 ) ) );
+    private static final String MAX_MEGABYTES_NAME = "max_megabytes";
+    private static final int MAX_MEGABYTES_DEFAULT = 16;
+    private static final String KEYS_PER_FILL_STEP_NAME = "keys_per_fill_step";
+    private static final int KEYS_PER_FILL_STEP_DEFAULT = 1 << 16;
+    static final long MIN_NUMBER_OF_BITS = 1L << 16;
+    static final long MAX_NUMBER_OF_BITS = 1L << 32;
+    /**
+     * Memory budget of a single filter, which caps its {@link #numberOfBits()}.
+     */
+    static final long MAX_MEGABYTES = Math.max( 1, FeatureToggles.getInteger( BloomFilter.class, MAX_MEGABYTES_NAME, MAX_MEGABYTES_DEFAULT ) );
+    private static final long BUDGET_NUMBER_OF_BITS =
+            Math.max( MIN_NUMBER_OF_BITS, Long.highestOneBit( Math.min( MAX_NUMBER_OF_BITS, MAX_MEGABYTES * 1024 * 1024 * Byte.SIZE ) ) );
+    /**
+     * Number of keys of the tree that are added to a filter which is being grown or rebuilt, per step. See {@link GBPTree}.
+     */
+    static final int KEYS_PER_FILL_STEP = Math.max( 1, FeatureToggles.getInteger( BloomFilter.class, KEYS_PER_FILL_STEP_NAME, KEYS_PER_FILL_STEP_DEFAULT ) );
+    // Changes are tracked in chunks of 512 words, i.e. 4KiB
+    private static final int CHUNK_SHIFT = 9;
+
+    private final AtomicLongArray words;
+    private final AtomicLongArray dirtyChunks;
+    private final long mask;
+    private final int numberOfHashes;
+    private final LongAdder numberOfKeys = new LongAdder();
+    /**
+     * Whether or not this filter has been written to, or read from, the filter file, which then holds all bits but those in dirty chunks.
+     */
+    private volatile boolean persisted;
+
+    private BloomFilter( long numberOfBits, int numberOfHashes )
+    {
+        int numberOfWords = (int) (numberOfBits >>> 6);
+        this.words = new AtomicLongArray( numberOfWords );
+        this.dirtyChunks = new AtomicLongArray( ((numberOfWords >>> CHUNK_SHIFT) + Long.SIZE) / Long.SIZE );
+        this.mask = numberOfBits - 1;
+        this.numberOfHashes = numberOfHashes;
+    }
+
+    /**
+     * @param expectedNumberOfKeys number of keys the filter should be able to hold without losing precision.
+     * @param minNumberOfBits the filter should have at least this many bits, unless that is more than the memory budget allows.
+     * @return a new empty filter, with a number of bits which is a power of two.
+     */
+    static BloomFilter forKeys( long expectedNumberOfKeys, long minNumberOfBits )
+    {
+        long wantedNumberOfBits = Math.max( minNumberOfBits, Math.min( expectedNumberOfKeys, MAX_NUMBER_OF_BITS / BITS_PER_KEY ) * BITS_PER_KEY );
+        long numberOfBits = Math.max( MIN_NUMBER_OF_BITS, Long.highestOneBit( wantedNumberOfBits ) );
+        if ( numberOfBits < wantedNumberOfBits )
+        {
+            numberOfBits <<= 1;
+        }
+        return new BloomFilter( Math.min( BUDGET_NUMBER_OF_BITS, numberOfBits ), NUMBER_OF_HASHES );
+    }
+
+    /**
+     * @return a new empty filter which is larger than this one, sized for twice the keys that have been added to this one.
+     */
+    BloomFilter grown()
+    {
+        return forKeys( 2 * numberOfKeys.sum(), numberOfBits() * 2 );
+    }
+
+    static Path filterFile( Path indexFile )
+    {
+        return indexFile.resolveSibling( indexFile.getFileName() + ".bloom" );
+    }
+
+    /**
+     * @param hash {@link Layout#filterHash(Object) filter hash} of a key which is about to be added to the tree.
+     */
+    void add( long hash )
+    {
+        long h1 = mix( hash );
+        long h2 = mix( h1 ) | 1;
+        boolean changed = false;
+        for ( int i = 0; i < numberOfHashes; i++ )
+        {
+            changed |= setBit( (h1 + i * h2) & mask );
+        }
+        if ( changed )
+        {
+            numberOfKeys.increment();
+        }
+    }
+
+    /**
+     * @param hash {@link Layout#filterHash(Object) filter hash} of a key to look up.
+     * @return {@code false} if no key with this hash has been added, otherwise {@code true}, i.e. a key with this hash may have been added.
+     */
+    boolean mightContain( long hash )
+    {
+        long h1 = mix( hash );
+        long h2 = mix( h1 ) | 1;
+        for ( int i = 0; i < numberOfHashes; i++ )
+        {
+            long bit = (h1 + i * h2) & mask;
+            if ( (words.get( (int) (bit >>> 6) ) & (1L << bit)) == 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long numberOfBits()
+    {
+        return mask + 1;
+    }
+
+    /**
+     * The number of keys is counted as the number of additions which set at least one bit, which is slightly less than the number
+     * of distinct keys added.
+     * @return {@code true} if more keys have been added than this filter was sized for, such that it has started to lose precision,
+     * and the memory budget has room for a larger filter.
+     */
+    boolean shouldGrow()
+    {
+        return shouldGrow( numberOfKeys.sum() );
+    }
+
+    /**
+     * @param expectedNumberOfKeys number of keys which are expected to be added to this filter.
+     * @return {@code true} if that is more keys than this filter is sized for, and the memory budget has room for a larger filter.
+     */
+    boolean shouldGrow( long expectedNumberOfKeys )
+    {
+        return numberOfBits() < BUDGET_NUMBER_OF_BITS && expectedNumberOfKeys > numberOfBits() / BITS_PER_KEY;
+    }
+
+    private boolean setBit( long bit )
+    {
+        int index = (int) (bit >>> 6);
+        long bitMask = 1L << bit;
+        long word = words.get( index );
+        while ( (word & bitMask) == 0 )
+        {
+            if ( words.compareAndSet( index, word, word | bitMask ) )
+            {
+                markDirty( index );
+                return true;
+            }
+            word = words.get( index );
+        }
+        return false;
+    }
+
+    private void markDirty( int wordIndex )
+    {
+        int chunk = wordIndex >>> CHUNK_SHIFT;
+        int index = chunk >>> 6;
+        long chunkMask = 1L << chunk;
+        if ( (dirtyChunks.get( index ) & chunkMask) == 0 )
+        {
+            dirtyChunks.getAndAccumulate( index, chunkMask, ( a, b ) -> a | b );
+        }
+    }
+
+    /**
+     * Finalizer of MurmurHash3, so that layouts can use simple hashes, like the key itself, as filter hash.
+     */
+    private static long mix( long hash )
+    {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Writes this filter to {@code file} and forces it. Only the header and the chunks of bits which have changed since this filter
+     * was last written are written, unless this is the first time this filter is written.
+     * @param file {@link PagedFile} of the filter file.
+     * @param stamp stable generation of the checkpoint this filter is written as part of.
+     * @param cursorTracer underlying page cursor tracer.
+     * @throws IOException on page cache error.
+     */
+    void write( PagedFile file, long stamp, PageCursorTracer cursorTracer ) throws IOException
+    {
+        int pageSize = file.pageSize();
+        int numberOfWords = words.length();
+        try ( PageCursor cursor = file.io( 0, PF_SHARED_WRITE_LOCK, cursorTracer ) )
+        {
+            goTo( cursor, "bloom filter header", 0 );
+            cursor.putLong( MAGIC );
+            cursor.putLong( stamp );
+            cursor.putLong( numberOfBits() );
+            cursor.putLong( numberOfKeys.sum() );
+            cursor.putInt( numberOfHashes );
+            cursor.putInt( 0 );
+            checkOutOfBounds( cursor );
+
+            // Bits set concurrently with this write mark their chunk dirty again, to be written next time
+            boolean all = !persisted;
+            for ( int i = 0; i < dirtyChunks.length(); i++ )
+            {
+                long dirty = dirtyChunks.getAndSet( i, 0 );
+                while ( dirty != 0 && !all )
+                {
+                    int chunk = i * Long.SIZE + Long.numberOfTrailingZeros( dirty );
+                    int from = chunk << CHUNK_SHIFT;
+                    writeWords( cursor, pageSize, from, Math.min( numberOfWords, from + (1 << CHUNK_SHIFT) ) );
+                    dirty &= dirty - 1;
+                }
+            }
+            if ( all )
+            {
+                writeWords( cursor, pageSize, 0, numberOfWords );
+            }
+        }
+        file.flushAndForce();
+        persisted = true;
+    }
+
+    private void writeWords( PageCursor cursor, int pageSize, int fromIndex, int toIndex ) throws IOException
+    {
+        long position = HEADER_SIZE + (long) fromIndex * Long.BYTES;
+        goTo( cursor, "bloom filter", position / pageSize );
+        cursor.setOffset( (int) (position % pageSize) );
+        for ( int index = fromIndex; index < toIndex; index++ )
+        {
+            if ( cursor.getOffset() == pageSize )
+            {
+                checkOutOfBounds( cursor );
+                goTo( cursor, "bloom filter", cursor.getCurrentPageId() + 1 );
+            }
+            cursor.putLong( words.get( index ) );
+        }
+        checkOutOfBounds( cursor );
+    }
+
+    /**
+     * Reads a filter previously {@link #write(PagedFile, long, PageCursorTracer) written} to {@code file}.
+     * @param file {@link PagedFile} of the filter file.
+     * @param stamp stable generation of the tree, the filter must have been written as part of the checkpoint of this generation.
+     * @param cursorTracer underlying page cursor tracer.
+     * @return the read filter, or {@code null} if the file doesn't contain a complete filter written with the given stamp, or if the
+     * filter is larger than the memory budget.
+     * @throws IOException on page cache error.
+     */
+    static BloomFilter read( PagedFile file, long stamp, PageCursorTracer cursorTracer ) throws IOException
+    {
+        int pageSize = file.pageSize();
+        try ( PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK, cursorTracer ) )
+        {
+            if ( !cursor.next() )
+            {
+                return null;
+            }
+            long magic;
+            long fileStamp;
+            long numberOfBits;
+            long numberOfKeys;
+            int numberOfHashes;
+            do
+            {
+                magic = cursor.getLong();
+                fileStamp = cursor.getLong();
+                numberOfBits = cursor.getLong();
+                numberOfKeys = cursor.getLong();
+                numberOfHashes = cursor.getInt();
+            }
+            while ( cursor.shouldRetry() );
+            checkOutOfBounds( cursor );
+            if ( magic != MAGIC || fileStamp != stamp || Long.bitCount( numberOfBits ) != 1 ||
+                    numberOfBits < MIN_NUMBER_OF_BITS || numberOfBits > BUDGET_NUMBER_OF_BITS || numberOfHashes <= 0 ||
+                    HEADER_SIZE + numberOfBits / Byte.SIZE > (file.getLastPageId() + 1) * pageSize )
+            {
+                return null;
+            }
+
+            BloomFilter filter = new BloomFilter( numberOfBits, numberOfHashes );
+            filter.numberOfKeys.add( numberOfKeys );
+            int numberOfWords = filter.words.length();
+            int index = 0;
+            int offset = HEADER_SIZE;
+            while ( index < numberOfWords )
+            {
+                int count = Math.min( numberOfWords - index, (pageSize - offset) / Long.BYTES );
+                do
+                {
+                    cursor.setOffset( offset );
+                    for ( int i = 0; i < count; i++ )
+                    {
+                        filter.words.set( index + i, cursor.getLong() );
+                    }
+                }
+                while ( cursor.shouldRetry() );
+                checkOutOfBounds( cursor );
+                index += count;
+                offset = 0;
+                if ( index < numberOfWords )
+                {
+                    goTo( cursor, "bloom filter", cursor.getCurrentPageId() + 1 );
+                }
+            }
+            filter.persisted = true;
+            return filter;
+        }
+    }
+
+    /**
+     * Overwrites the header of the filter in {@code file}, if any, so that it's never {@link #read(PagedFile, long, PageCursorTracer) read}
+     * again, and forces it.
+     * @param file {@link PagedFile} of the filter file.
+     * @param cursorTracer underlying page cursor tracer.
+     * @throws IOException on page cache error.
+     */
+    static void invalidate( PagedFile file, PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( file.getLastPageId() < 0 )
+        {
+            return;
+        }
+        try ( PageCursor cursor = file.io( 0, PF_SHARED_WRITE_LOCK, cursorTracer ) )
+        {
+            goTo( cursor, "bloom filter header", 0 );
+            cursor.putLong( 0 );
+            checkOutOfBounds( cursor );
+        }
+        file.flushAndForce();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.NO_NEED_DEFRAG;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.YES;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Builds a tree bottom-up from entries appended in strictly ascending key order.
+ * <p>
+ * Entries are appended to the rightmost leaf until it is full, at which point a new leaf is started to the right of it and
+ * a splitter between the two leaves is appended to the rightmost internal node of the level above, which in turn is split
+ * in the same way when full. A new level is added on top whenever the current top level gets its second node.
+ * All nodes are new nodes of the unstable generation and every node is written to only while it is the rightmost node of
+ * its level, so each level is written sequentially and leaves are packed as densely as the {@link TreeNode} allows.
+ * <p>
+ * Nothing built here is reachable until the caller makes {@link #rootId()} the root of the tree.
+ *
+ * @param <KEY> type of keys
+ * @param <VALUE> type of values
+ */
+class BottomUpTreeBuilder<KEY,VALUE>
+{
+    private final PagedFile pagedFile;
+    private final IdProvider idProvider;
+    private final TreeNode<KEY,VALUE> bTreeNode;
+    private final Layout<KEY,VALUE> layout;
+    private final GBPTree.Monitor monitor;
+    private final long stableGeneration;
+    private final long unstableGeneration;
+    private final PageCursorTracer cursorTracer;
+    // Level 0 is the leaf level
+    private final List<Level> levels = new ArrayList<>();
+    private final KEY previousKey;
+    private final KEY splitter;
+    private boolean hasPreviousKey;
+
+    BottomUpTreeBuilder( PagedFile pagedFile, IdProvider idProvider, TreeNode<KEY,VALUE> bTreeNode, Layout<KEY,VALUE> layout, GBPTree.Monitor monitor,
+            long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer )
+    {
+        this.pagedFile = pagedFile;
+        this.idProvider = idProvider;
+        this.bTreeNode = bTreeNode;
+        this.layout = layout;
+        this.monitor = monitor;
+        this.stableGeneration = stableGeneration;
+        this.unstableGeneration = unstableGeneration;
+        this.cursorTracer = cursorTracer;
+        this.previousKey = layout.newKey();
+        this.splitter = layout.newKey();
+    }
+
+    /**
+     * Appends the given entry to the rightmost leaf, starting a new leaf if it doesn't fit.
+     *
+     * @throws IllegalArgumentException if the key is not greater than the previously added key, or if key and value
+     * combined are too large to be stored in the tree.
+     */
+    void add( KEY key, VALUE value ) throws IOException
+    {
+        if ( hasPreviousKey && layout.compare( previousKey, key ) >= 0 )
+        {
+            throw new IllegalArgumentException( "Keys must be added in strictly ascending order, but " + key + " was added after " + previousKey );
+        }
+        bTreeNode.validateKeyValueSize( key, value );
+
+        if ( levels.isEmpty() )
+        {
+            levels.add( newLevel( true ) );
+        }
+        Level leaf = levels.get( 0 );
+        TreeNode.Overflow overflow = bTreeNode.leafOverflow( leaf.cursor, leaf.keyCount, key, value );
+        if ( overflow == YES )
+        {
+            layout.minimalSplitter( previousKey, key, splitter );
+            long leftLeaf = leaf.nodeId;
+            startRightSibling( leaf, true );
+            addToInternal( 1, splitter, leftLeaf, leaf.nodeId );
+        }
+        else if ( overflow == NO_NEED_DEFRAG )
+        {
+            bTreeNode.defragmentLeaf( leaf.cursor );
+        }
+        bTreeNode.insertKeyValueAt( leaf.cursor, key, value, leaf.keyCount, leaf.keyCount, stableGeneration, unstableGeneration, cursorTracer );
+        TreeNode.setKeyCount( leaf.cursor, ++leaf.keyCount );
+        layout.copyKey( key, previousKey );
+        hasPreviousKey = true;
+    }
+
+    /**
+     * @return whether or not any entry has been added.
+     */
+    boolean isEmpty()
+    {
+        return levels.isEmpty();
+    }
+
+    /**
+     * @return id of the single node on the top level, which is the root of the built tree.
+     */
+    long rootId()
+    {
+        return levels.get( levels.size() - 1 ).nodeId;
+    }
+
+    void close()
+    {
+        for ( Level level : levels )
+        {
+            level.cursor.close();
+        }
+    }
+
+    /**
+     * Releases every node built so far, and the offload pages of their keys, back to the {@link IdProvider}, for when the built tree
+     * is abandoned instead of being made the root of the tree. The nodes of each level are found by following the left sibling
+     * pointers from its rightmost node. Must be called after {@link #close()}.
+     */
+    void releaseNodes() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0L /*Ignored*/, PF_SHARED_WRITE_LOCK, cursorTracer ) )
+        {
+            for ( int levelIndex = 0; levelIndex < levels.size(); levelIndex++ )
+            {
+                TreeNode.Type type = levelIndex == 0 ? TreeNode.Type.LEAF : TreeNode.Type.INTERNAL;
+                long nodeId = levels.get( levelIndex ).nodeId;
+                while ( nodeId != TreeNode.NO_NODE_FLAG )
+                {
+                    PageCursorUtil.goTo( cursor, "built node", nodeId );
+                    int keyCount = TreeNode.keyCount( cursor );
+                    for ( int pos = 0; pos < keyCount; pos++ )
+                    {
+                        long offloadId = bTreeNode.offloadIdAt( cursor, pos, type );
+                        if ( offloadId != TreeNode.NO_OFFLOAD_ID )
+                        {
+                            idProvider.releaseId( stableGeneration, unstableGeneration, offloadId, cursorTracer );
+                        }
+                    }
+                    long leftSibling = GenerationSafePointerPair.pointer( TreeNode.leftSibling( cursor, stableGeneration, unstableGeneration ) );
+                    idProvider.releaseId( stableGeneration, unstableGeneration, nodeId, cursorTracer );
+                    nodeId = leftSibling;
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends {@code key} and its right child to the rightmost node of the internal level {@code levelIndex}, creating
+     * that level if it doesn't exist yet, in which case its first child will be {@code leftChild}.
+     */
+    private void addToInternal( int levelIndex, KEY key, long leftChild, long rightChild ) throws IOException
+    {
+        if ( levelIndex == levels.size() )
+        {
+            Level level = newLevel( false );
+            bTreeNode.setChildAt( level.cursor, leftChild, 0, stableGeneration, unstableGeneration );
+            levels.add( level );
+            monitor.treeGrowth();
+        }
+        Level level = levels.get( levelIndex );
+        TreeNode.Overflow overflow = bTreeNode.internalOverflow( level.cursor, level.keyCount, key );
+        if ( overflow == YES )
+        {
+            // The key moves up to the level above, separating the full node from its new right sibling
+            long leftNode = level.nodeId;
+            startRightSibling( level, false );
+            bTreeNode.setChildAt( level.cursor, rightChild, 0, stableGeneration, unstableGeneration );
+            addToInternal( levelIndex + 1, key, leftNode, level.nodeId );
+            return;
+        }
+        if ( overflow == NO_NEED_DEFRAG )
+        {
+            bTreeNode.defragmentInternal( level.cursor );
+        }
+        bTreeNode.insertKeyAndRightChildAt( level.cursor, key, rightChild, level.keyCount, level.keyCount, stableGeneration, unstableGeneration,
+                cursorTracer );
+        TreeNode.setKeyCount( level.cursor, ++level.keyCount );
+    }
+
+    private Level newLevel( boolean leaf ) throws IOException
+    {
+        Level level = new Level( pagedFile.io( 0L /*Ignored*/, PF_SHARED_WRITE_LOCK, cursorTracer ) );
+        level.nodeId = idProvider.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+        PageCursorUtil.goTo( level.cursor, "new node", level.nodeId );
+        initialize( level.cursor, leaf );
+        return level;
+    }
+
+    private void startRightSibling( Level level, boolean leaf ) throws IOException
+    {
+        long leftId = level.nodeId;
+        long rightId = idProvider.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+        TreeNode.setRightSibling( level.cursor, rightId, stableGeneration, unstableGeneration );
+        PageCursorUtil.goTo( level.cursor, "right sibling", rightId );
+        initialize( level.cursor, leaf );
+        TreeNode.setLeftSibling( level.cursor, leftId, stableGeneration, unstableGeneration );
+        level.nodeId = rightId;
+        level.keyCount = 0;
+    }
+
+    private void initialize( PageCursor cursor, boolean leaf )
+    {
+        if ( leaf )
+        {
+            bTreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+        }
+        else
+        {
+            bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+        }
+    }
+
+    /**
+     * The rightmost node of a level, which is the only node of that level that can still be written to.
+     */
+    private static class Level
+    {
+        private final PageCursor cursor;
+        private long nodeId;
+        private int keyCount;
+
+        Level( PageCursor cursor )
+        {
+            this.cursor = cursor;
+        }
+    }
+}
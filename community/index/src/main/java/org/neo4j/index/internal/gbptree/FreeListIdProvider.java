@@ -28,6 +28,11 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
 import static org.neo4j.index.internal.gbptree.PageCursorUtil.goTo;
 
+/**
+ * {@link IdProvider} which keeps released ids in a free-list of pages in the tree file, and otherwise hands out ids from the end of the file.
+ * Acquiring and releasing ids is synchronized, because {@link GBPTree#parallelWriter(PageCursorTracer) parallel writers} may
+ * acquire and release offload pages concurrently.
+ */
 class FreeListIdProvider implements IdProvider
 {
     interface Monitor
@@ -138,7 +143,7 @@ class FreeListIdProvider implements IdProvider
     }
 
     @Override
-    public long acquireNewId( long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    public synchronized long acquireNewId( long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
     {
         try ( PageCursor cursor = pagedFile.io( 0, PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
         {
@@ -202,7 +207,7 @@ class FreeListIdProvider implements IdProvider
     }
 
     @Override
-    public void releaseId( long stableGeneration, long unstableGeneration, long id, PageCursorTracer cursorTracer ) throws IOException
+    public synchronized void releaseId( long stableGeneration, long unstableGeneration, long id, PageCursorTracer cursorTracer ) throws IOException
     {
         try ( PageCursor cursor = pagedFile.io( writePageId, PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
         {
@@ -21,7 +21,9 @@ package org.neo4j.index.internal.gbptree;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.apache.commons.lang3.tuple.Pair;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
 import org.eclipse.collections.api.set.ImmutableSet;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -37,10 +39,18 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
+import org.neo4j.index.internal.gbptree.InternalTreeLogic.LeafChange;
 import org.neo4j.internal.helpers.Exceptions;
 import org.neo4j.io.IOUtils;
 import org.neo4j.io.pagecache.CursorException;
@@ -93,6 +103,9 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
  * <p>
  * A single writer w/ multiple concurrent readers is supported. Assuming usage adheres to this
  * constraint neither writer nor readers are blocking. Readers are virtually garbage-free.
+ * Alternatively, several {@link #parallelWriter(PageCursorTracer) parallel writers} can change the tree concurrently,
+ * each from its own thread. They block each other only when changing the same leaf, or when a change needs to
+ * change the structure of the tree.
  * <p>
  * An reader of GB+Tree is a {@link SeekCursor} that returns result as it finds them.
  * As the cursor move over keys/values, returned results are considered "behind" it
@@ -140,6 +153,7 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
 {
     private static final String INDEX_INTERNAL_TAG = "indexInternal";
+    private static final int LEAF_LATCH_STRIPES = 64;
 
     /**
      * For monitoring {@link GBPTree}.
@@ -384,6 +398,30 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
      */
     private final SingleWriter writer;
 
+    /**
+     * Creates a {@link TreeNode} for every {@link ParallelWriter}, because tree nodes keep scratch state when changing nodes.
+     * Offloaded keys are stored in pages from the given {@link IdProvider}.
+     */
+    private final Function<IdProvider,TreeNode<KEY,VALUE>> treeNodeFactory;
+
+    /**
+     * Held shared by {@link ParallelWriter parallel writers} while changing a single leaf in place, and exclusively while changing
+     * the structure of the tree, i.e. creating successors, splitting, merging or rebalancing tree nodes, or changing the root.
+     * Internal tree nodes never change while this lock is held shared, so parallel writers only need to latch the leaf they change.
+     */
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    /**
+     * Number of structure changes made by parallel writers, guarded by {@link #structureLock}. A parallel writer can keep using the
+     * path down the tree from its previous change for as long as this number hasn't changed.
+     */
+    private long structureChanges;
+
+    /**
+     * Latches on the leaves which parallel writers change in place, created when the first parallel writer is opened.
+     */
+    private TreeNodeLatches leafLatches;
+
     /**
      * Tells whether or not there have been made changes (using {@link #writer(PageCursorTracer)}) to this tree
      * since last call to {@link #checkpoint(IOLimiter, PageCursorTracer)}. This variable is set when calling {@link #writer(PageCursorTracer)}
@@ -407,6 +445,19 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
      */
     private final GBPTreeLock lock = new GBPTreeLock();
 
+    /**
+     * Held by {@link #compact(double, IOLimiter, PageCursorTracer) compaction} while it builds the compacted tree, which writers
+     * keep changing the current tree alongside. Checkpoints and close take it before the {@link #lock}, such that they wait for the
+     * compaction to complete, rather than make a partly built tree, and the ids taken from the free-list for it, durable.
+     */
+    private final Lock compactionLock = new ReentrantLock();
+
+    /**
+     * Number of writers and bulk loaders that have been opened. Compaction discards the tree it built if this has changed while
+     * it did, since the entries copied into that tree may then be stale.
+     */
+    private final AtomicLong writerSessions = new AtomicLong();
+
     /**
      * Page size, i.e. tree node size, of the tree nodes in this tree. The page size is determined on
      * tree creation, stored in meta page and read when opening tree later.
@@ -500,6 +551,35 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
      */
     private final CleanupJob cleaning;
 
+    /**
+     * {@link PagedFile} of the file which the {@link BloomFilter} is persisted in, or {@code null} if the layout doesn't
+     * want a {@link Layout#bloomFilter() bloom filter}, or if the tree is opened read-only and there's no such file.
+     */
+    private final PagedFile bloomFilterFile;
+
+    /**
+     * Filter over the keys in this tree, consulted by seeks which are {@link Layout#isFilterKeyLookup(Object, Object) lookups}
+     * of a single key. {@code null} if there's no filter, if it couldn't be loaded for a tree opened read-only, or while
+     * it's being rebuilt into {@link #growingBloomFilter}.
+     */
+    private volatile BloomFilter bloomFilter;
+
+    /**
+     * Filter which is being filled with the keys in the tree, either because a checkpoint found {@link #bloomFilter} saturated
+     * or because the filter couldn't be loaded on open, and which replaces {@link #bloomFilter} once filled. Writers add keys
+     * to both of them in the meantime. It's filled {@link BloomFilter#KEYS_PER_FILL_STEP a bounded number of keys} at a time
+     * after each checkpoint, outside of the checkpoint lock, so that no single checkpoint has to scan the whole tree.
+     */
+    private volatile BloomFilter growingBloomFilter;
+
+    /**
+     * Key to continue filling {@link #growingBloomFilter} from, at the next fill step.
+     */
+    private KEY growingBloomFilterFrom;
+
+    private final LongAdder bloomFilterSkippedSeeks = new LongAdder();
+    private final LongAdder bloomFilterPassedSeeks = new LongAdder();
+
     /**
      * {@link Consumer} to hand out to others who want to decorate information about this tree
      * to exceptions thrown out from its surface.
@@ -606,16 +686,20 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
                 this.freeList = new FreeListIdProvider( pagedFile, rootId );
                 OffloadStoreImpl<KEY,VALUE> offloadStore = buildOffload( layout, freeList, pagedFile, pageSize );
                 this.bTreeNode = format.create( pageSize, layout, offloadStore );
-                this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout, monitor ) );
+                this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout, monitor ), bTreeNode );
+                this.treeNodeFactory = idProvider -> format.create( pageSize, layout, buildOffload( layout, idProvider, pagedFile, pageSize ) );
 
                 // Create or load state
+                this.bloomFilterFile = layout.bloomFilter() ? openBloomFilterFile( pageCache, indexFile ) : null;
                 if ( created )
                 {
+                    bloomFilter = bloomFilterFile != null ? BloomFilter.forKeys( 0, BloomFilter.MIN_NUMBER_OF_BITS ) : null;
                     initializeAfterCreation( headerWriter, cursorTracer );
                 }
                 else
                 {
                     loadState( pagedFile, headerReader, cursorTracer );
+                    loadBloomFilter( cursorTracer );
                 }
                 this.monitor.startupState( clean );
 
@@ -686,6 +770,55 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         clean = true;
     }
 
+    private PagedFile openBloomFilterFile( PageCache pageCache, Path indexFile ) throws IOException
+    {
+        Path filterFile = BloomFilter.filterFile( indexFile );
+        if ( !readOnly )
+        {
+            return pageCache.map( filterFile, pageCache.pageSize(), openOptions.newWith( CREATE ) );
+        }
+        try
+        {
+            return pageCache.map( filterFile, pageCache.pageSize(), openOptions );
+        }
+        catch ( NoSuchFileException e )
+        {
+            return null;
+        }
+    }
+
+    private void loadBloomFilter( PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( bloomFilterFile == null )
+        {
+            return;
+        }
+        BloomFilter filter = clean ? BloomFilter.read( bloomFilterFile, stableGeneration( generation ), cursorTracer ) : null;
+        if ( readOnly )
+        {
+            bloomFilter = filter;
+            return;
+        }
+        long numberOfEntries = estimateNumberOfEntriesInTree( cursorTracer );
+        if ( filter == null )
+        {
+            // Either the tree wasn't closed cleanly or the filter wasn't written as part of the last checkpoint, so there may be keys
+            // in the tree that the filter doesn't know about. Rebuild it, sized for the entries in the tree, from the keys in the tree
+            // and the keys that writers, including recovery, add in the meantime. Until then there's no filter, and the file mustn't
+            // be mistaken for one written at a later checkpoint.
+            BloomFilter.invalidate( bloomFilterFile, cursorTracer );
+            startFillingBloomFilter( BloomFilter.forKeys( 2 * numberOfEntries, BloomFilter.MIN_NUMBER_OF_BITS ) );
+        }
+        else
+        {
+            bloomFilter = filter;
+            if ( filter.shouldGrow( numberOfEntries ) )
+            {
+                startFillingBloomFilter( BloomFilter.forKeys( 2 * numberOfEntries, filter.numberOfBits() * 2 ) );
+            }
+        }
+    }
+
     private PagedFile openOrCreate( PageCache pageCache, Path indexFile, PageCursorTracer cursorTracer,
             ImmutableSet<OpenOption> openOptions ) throws IOException, MetadataMismatchException
     {
@@ -1005,9 +1138,43 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
     @Override
     public Seeker<KEY,VALUE> seek( KEY fromInclusive, KEY toExclusive, PageCursorTracer cursorTracer ) throws IOException
     {
+        BloomFilter filter = bloomFilter;
+        if ( filter != null && layout.isFilterKeyLookup( fromInclusive, toExclusive ) )
+        {
+            if ( !filter.mightContain( layout.filterHash( fromInclusive ) ) )
+            {
+                bloomFilterSkippedSeeks.increment();
+                return emptySeeker();
+            }
+            bloomFilterPassedSeeks.increment();
+        }
         return seekInternal( fromInclusive, toExclusive, cursorTracer, DEFAULT_MAX_READ_AHEAD, SeekCursor.NO_MONITOR, LEAF_LEVEL );
     }
 
+    /**
+     * @return number of seeks which the {@link Layout#bloomFilter() bloom filter} of this tree answered without searching the tree,
+     * because the key wasn't in the tree.
+     */
+    public long bloomFilterSkippedSeeks()
+    {
+        return bloomFilterSkippedSeeks.sum();
+    }
+
+    /**
+     * @return number of seeks which the {@link Layout#bloomFilter() bloom filter} of this tree couldn't rule out, and so went on
+     * to search the tree. Includes both seeks which found the key and seeks which didn't, i.e. false positives of the filter.
+     */
+    public long bloomFilterPassedSeeks()
+    {
+        return bloomFilterPassedSeeks.sum();
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static <KEY,VALUE> Seeker<KEY,VALUE> emptySeeker()
+    {
+        return (Seeker<KEY,VALUE>) EmptySeeker.INSTANCE;
+    }
+
     private Seeker<KEY,VALUE> seekInternal( KEY fromInclusive, KEY toExclusive, PageCursorTracer cursorTracer, int readAheadLength, SeekCursor.Monitor monitor,
             int searchLevel ) throws IOException
     {
@@ -1021,7 +1188,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         // Returns cursor which is now initiated with left-most leaf node for the specified range
         return new SeekCursor<>( cursor, bTreeNode, fromInclusive, toExclusive, layout,
                 stableGeneration, unstableGeneration, generationSupplier, rootCatchupSupplier.get(), rootGeneration,
-                exceptionDecorator, readAheadLength, searchLevel, monitor, cursorTracer );
+                exceptionDecorator, readAheadLength, searchLevel, monitor, pagedFile::preFetch, cursorTracer );
     }
 
     /**
@@ -1242,6 +1409,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
 
         // Block writers, or if there's a current writer then wait for it to complete and then block
         // From this point and till the lock is released we know that the tree won't change.
+        compactionLock.lock();
         lock.writerAndCleanerLock();
         try
         {
@@ -1255,6 +1423,8 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             // and write the tree state (rootId, lastId, generation a.s.o.) to state page.
             long unstableGeneration = unstableGeneration( generation );
             generation = Generation.generation( unstableGeneration, unstableGeneration + 1 );
+            // Write the bloom filter before the state, so that if we crash in between then the tree is dirty and the filter rebuilt.
+            writeBloomFilter( cursorTracer );
             writeState( pagedFile, headerWriter, cursorTracer );
 
             // Flush the state page.
@@ -1265,12 +1435,97 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
 
             // Clear flag so that until next change there's no need to do another checkpoint.
             changesSinceLastCheckpoint = false;
+
+            startGrowingBloomFilter();
         }
         finally
         {
             // Unblock writers, any writes after this point and up until the next checkpoint will have
             // the new unstable generation.
             lock.writerAndCleanerUnlock();
+            compactionLock.unlock();
+        }
+
+        fillGrowingBloomFilter( cursorTracer );
+    }
+
+    private void writeBloomFilter( PageCursorTracer cursorTracer ) throws IOException
+    {
+        BloomFilter filter = bloomFilter;
+        if ( filter != null )
+        {
+            filter.write( bloomFilterFile, stableGeneration( generation ), cursorTracer );
+        }
+    }
+
+    /**
+     * Must be called while holding the writer and cleaner lock, so that all writers opened after this call see the growing filter.
+     */
+    private void startGrowingBloomFilter()
+    {
+        BloomFilter filter = bloomFilter;
+        if ( filter != null && growingBloomFilter == null && filter.shouldGrow() )
+        {
+            startFillingBloomFilter( filter.grown() );
+        }
+    }
+
+    private synchronized void startFillingBloomFilter( BloomFilter filter )
+    {
+        growingBloomFilterFrom = layout.newKey();
+        layout.initializeAsLowest( growingBloomFilterFrom );
+        growingBloomFilter = filter;
+    }
+
+    /**
+     * Adds the next {@link BloomFilter#KEYS_PER_FILL_STEP} keys of the tree to the growing filter, if there is one, concurrently with
+     * writers. Once it has seen all keys it replaces the current filter. Keys which writers insert concurrently with this scan,
+     * or between steps, are added to the growing filter by the writers.
+     */
+    private synchronized void fillGrowingBloomFilter( PageCursorTracer cursorTracer ) throws IOException
+    {
+        BloomFilter growing = growingBloomFilter;
+        if ( growing == null )
+        {
+            return;
+        }
+        KEY high = layout.newKey();
+        layout.initializeAsHighest( high );
+        try ( Seeker<KEY,VALUE> seek = seekInternal( growingBloomFilterFrom, high, cursorTracer, DEFAULT_MAX_READ_AHEAD, SeekCursor.NO_MONITOR,
+                LEAF_LEVEL ) )
+        {
+            for ( int i = 0; i < BloomFilter.KEYS_PER_FILL_STEP; i++ )
+            {
+                if ( !seek.next() )
+                {
+                    bloomFilter = growing;
+                    growingBloomFilter = null;
+                    growingBloomFilterFrom = null;
+                    return;
+                }
+                growing.add( layout.filterHash( seek.key() ) );
+            }
+            // Continue from the last added key, it's cheaper to add it again than to figure out its successor
+            layout.copyKey( seek.key(), growingBloomFilterFrom );
+        }
+    }
+
+    private void addToBloomFilter( KEY key )
+    {
+        // Read the growing filter first, since it's cleared only after it has replaced the current filter
+        BloomFilter growing = growingBloomFilter;
+        BloomFilter filter = bloomFilter;
+        if ( filter != null || growing != null )
+        {
+            long hash = layout.filterHash( key );
+            if ( filter != null )
+            {
+                filter.add( hash );
+            }
+            if ( growing != null )
+            {
+                growing.add( hash );
+            }
         }
     }
 
@@ -1307,6 +1562,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
                 doClose();
                 return;
             }
+            compactionLock.lock();
             lock.writerLock();
             try
             {
@@ -1338,6 +1594,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             finally
             {
                 lock.writerUnlock();
+                compactionLock.unlock();
             }
         }
     }
@@ -1345,6 +1602,10 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
     public void setDeleteOnClose( boolean deleteOnClose )
     {
         pagedFile.setDeleteOnClose( deleteOnClose );
+        if ( bloomFilterFile != null )
+        {
+            bloomFilterFile.setDeleteOnClose( deleteOnClose );
+        }
     }
 
     private void maybeForceCleanState( PageCursorTracer cursorTracer ) throws IOException
@@ -1354,6 +1615,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             clean = true;
             if ( !pagedFile.isDeleteOnClose() )
             {
+                writeBloomFilter( cursorTracer );
                 forceState( cursorTracer );
             }
         }
@@ -1366,6 +1628,10 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             // Will be null if exception while mapping file
             pagedFile.close();
         }
+        if ( bloomFilterFile != null )
+        {
+            bloomFilterFile.close();
+        }
         closed = true;
     }
 
@@ -1399,6 +1665,264 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         return writer;
     }
 
+    /**
+     * Use default value for ratioToKeepInLeftOnSplit
+     * @param cursorTracer underlying page cursor tracer
+     * @see GBPTree#parallelWriter(double, PageCursorTracer)
+     */
+    public Writer<KEY,VALUE> parallelWriter( PageCursorTracer cursorTracer ) throws IOException
+    {
+        return parallelWriter( InternalTreeLogic.DEFAULT_SPLIT_RATIO, cursorTracer );
+    }
+
+    /**
+     * Returns a new {@link Writer} able to modify the index, which can be used concurrently with other parallel writers,
+     * each from its own thread. After usage the returned writer must be closed, typically by using try-with-resource clause.
+     * <p>
+     * Parallel writers and the {@link #writer(double, PageCursorTracer) single writer} exclude each other, and
+     * {@link #checkpoint(IOLimiter, PageCursorTracer) checkpoints} wait for all parallel writers to be closed.
+     * <p>
+     * A change which only affects a single leaf is made while holding a latch on only that leaf. Such a change is first attempted
+     * optimistically, which means that the {@link ValueMerger} given to
+     * {@link Writer#merge(Object, Object, ValueMerger)} can be consulted twice for the same change, if the change turns out to require
+     * a change to the structure of the tree. The merger must therefore not depend on how many times it has been called.
+     *
+     * @param ratioToKeepInLeftOnSplit Decide how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
+     * @param cursorTracer underlying page cursor tracer
+     * @return a new {@link Writer} for this index.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> parallelWriter( double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer ) throws IOException
+    {
+        assertNotReadOnly( "Open parallel tree writer." );
+        TreeNode<KEY,VALUE> treeNode = treeNodeFactory.apply( freeList );
+        ParallelWriter parallelWriter = new ParallelWriter( new InternalTreeLogic<>( freeList, treeNode, layout, monitor ), treeNode, leafLatches() );
+        parallelWriter.initialize( ratioToKeepInLeftOnSplit, cursorTracer );
+        changesSinceLastCheckpoint = true;
+        return parallelWriter;
+    }
+
+    /**
+     * Returns a {@link BulkLoader} able to build the contents of this tree from entries in strictly ascending key order,
+     * which is much faster than inserting the same entries using a {@link #writer(PageCursorTracer) writer}.
+     * The tree must be empty. The loader excludes writers and checkpoints in the same way as the single writer does and
+     * the loaded entries become visible when the loader is closed.
+     *
+     * @param cursorTracer underlying page cursor tracer
+     * @return a new {@link BulkLoader} for this tree.
+     * @throws IOException on error accessing the index.
+     * @throws IllegalStateException if this tree isn't empty.
+     */
+    public BulkLoader<KEY,VALUE> bulkLoader( PageCursorTracer cursorTracer ) throws IOException
+    {
+        assertNotReadOnly( "Open tree bulk loader." );
+        TreeBulkLoader bulkLoader = new TreeBulkLoader( cursorTracer );
+        changesSinceLastCheckpoint = true;
+        return bulkLoader;
+    }
+
+    /**
+     * Rewrites the tree into key order if it has become fragmented, i.e. if its leaves are either sparsely filled or scattered
+     * over the file such that range scans have to jump back and forth in it. All entries are copied into a new, densely packed
+     * tree built bottom-up, whose nodes are allocated in ascending page order from ids taken from the free-list up front,
+     * after which the new tree replaces the current one and the nodes of the old tree are released to the free-list.
+     * <p>
+     * Fragmentation is measured by a seek, alongside writers, so a tree which isn't fragmented enough is left alone without holding
+     * up any writer. The compacted tree is built next to the current one in the same way, and readers and writers keep using the
+     * current tree throughout. Only checkpoints and {@link #close()} wait for compaction to complete, such that nodes of a tree
+     * which is still being built are never made durable. Writers are only excluded while the ids of the old tree are collected, and
+     * while the new tree replaces it. If the tree has been written to while the new tree was built, the new tree may miss those
+     * changes, so it is discarded instead, and {@code false} is returned. A new tree which is discarded, or whose build fails, has
+     * all of its nodes released to the free-list again.
+     * <p>
+     * Like other changes the compacted tree becomes durable by the next checkpoint, until which a crash leaves the tree as it was.
+     * The file isn't made smaller, but its freed pages are reused by later allocations.
+     *
+     * @param minFragmentation fragmentation, between 0 and 1, the tree must have for it to be compacted. See {@link CompactionStatistics}.
+     * @param ioLimiter {@link IOLimiter} consulted as the new tree is written.
+     * @param cursorTracer underlying page cursor tracer.
+     * @return {@code true} if the tree was compacted, otherwise {@code false}.
+     * @throws IOException on error accessing the index.
+     */
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( readOnly )
+        {
+            return false;
+        }
+        assertRecoveryCleanSuccessful();
+        CompactionStatistics<KEY,VALUE> statistics = new CompactionStatistics<>( layout, pagedFile.pageSize() );
+        KEY low = layout.newKey();
+        layout.initializeAsLowest( low );
+        KEY high = layout.newKey();
+        layout.initializeAsHighest( high );
+        try ( Seeker<KEY,VALUE> seek = seekInternal( low, high, cursorTracer, DEFAULT_MAX_READ_AHEAD, statistics, LEAF_LEVEL ) )
+        {
+            while ( seek.next() )
+            {
+                statistics.entry( seek.key(), seek.value() );
+            }
+        }
+        if ( statistics.leafCount <= 1 || statistics.fragmentation() < minFragmentation )
+        {
+            return false;
+        }
+
+        compactionLock.lock();
+        try
+        {
+            return compactTree( ioLimiter, cursorTracer );
+        }
+        catch ( Throwable t )
+        {
+            appendTreeInformation( t );
+            throw t;
+        }
+        finally
+        {
+            compactionLock.unlock();
+        }
+    }
+
+    private boolean compactTree( IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException
+    {
+        CompactionIdProvider compactionIds = new CompactionIdProvider();
+        long stableGeneration;
+        long unstableGeneration;
+        long writerSessionsAtStart;
+        TreePageIds<KEY,VALUE> oldPageIds = new TreePageIds<>();
+        SortedIdProvider idProvider;
+        compactionIds.excludeWriters();
+        try
+        {
+            assertRecoveryCleanSuccessful();
+            stableGeneration = stableGeneration( generation );
+            unstableGeneration = unstableGeneration( generation );
+            writerSessionsAtStart = writerSessions.get();
+            try ( PageCursor cursor = openRootCursor( PF_SHARED_READ_LOCK, cursorTracer ) )
+            {
+                new GBPTreeStructure<>( bTreeNode, layout, stableGeneration, unstableGeneration ).visitTree( cursor, null, oldPageIds, cursorTracer );
+            }
+            if ( oldPageIds.treeNodeIds.size() <= 1 )
+            {
+                // Shrunk to a single leaf since fragmentation was measured
+                return false;
+            }
+            idProvider = SortedIdProvider.acquire( compactionIds, oldPageIds.treeNodeIds.size(), stableGeneration, unstableGeneration,
+                    ioLimiter, pagedFile::flushAndForce, cursorTracer );
+        }
+        finally
+        {
+            compactionIds.allowWriters();
+        }
+
+        // Offloaded keys are copied using the same ids as the nodes, which take the writer lock if they need more ids from the free-list.
+        BottomUpTreeBuilder<KEY,VALUE> builder = new BottomUpTreeBuilder<>( pagedFile, idProvider, treeNodeFactory.apply( idProvider ), layout, monitor,
+                stableGeneration, unstableGeneration, cursorTracer );
+        long newRootId = TreeNode.NO_NODE_FLAG;
+        boolean compacted = false;
+        try
+        {
+            newRootId = buildCompacted( builder, idProvider, stableGeneration, unstableGeneration, writerSessionsAtStart, cursorTracer );
+            compactionIds.excludeWriters();
+            if ( newRootId != TreeNode.NO_NODE_FLAG && writerSessions.get() == writerSessionsAtStart )
+            {
+                setRoot( newRootId, unstableGeneration );
+                changesSinceLastCheckpoint = true;
+                compacted = true;
+                for ( int i = 0; i < oldPageIds.treeNodeIds.size(); i++ )
+                {
+                    freeList.releaseId( stableGeneration, unstableGeneration, oldPageIds.treeNodeIds.get( i ), cursorTracer );
+                }
+                for ( int i = 0; i < oldPageIds.offloadIds.size(); i++ )
+                {
+                    freeList.releaseId( stableGeneration, unstableGeneration, oldPageIds.offloadIds.get( i ), cursorTracer );
+                }
+            }
+        }
+        finally
+        {
+            if ( !compactionIds.writersExcluded )
+            {
+                compactionIds.excludeWriters();
+            }
+            try
+            {
+                if ( !compacted )
+                {
+                    // Discarded, or failed to build, so nothing of the new tree is reachable
+                    builder.releaseNodes();
+                    if ( builder.isEmpty() && newRootId != TreeNode.NO_NODE_FLAG )
+                    {
+                        freeList.releaseId( stableGeneration, unstableGeneration, newRootId, cursorTracer );
+                    }
+                }
+                idProvider.releaseUnused( stableGeneration, unstableGeneration, cursorTracer );
+            }
+            finally
+            {
+                compactionIds.allowWriters();
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Builds the compacted tree from the entries of the current tree.
+     *
+     * @return the root of the compacted tree, or {@link TreeNode#NO_NODE_FLAG} if the tree has been written to since
+     * {@code writerSessionsAtStart}, in which case the compacted tree may be missing changes and must be discarded.
+     */
+    private long buildCompacted( BottomUpTreeBuilder<KEY,VALUE> builder, IdProvider idProvider, long stableGeneration, long unstableGeneration,
+            long writerSessionsAtStart, PageCursorTracer cursorTracer ) throws IOException
+    {
+        try
+        {
+            KEY low = layout.newKey();
+            layout.initializeAsLowest( low );
+            KEY high = layout.newKey();
+            layout.initializeAsHighest( high );
+            try ( Seeker<KEY,VALUE> seek = seekInternal( low, high, cursorTracer, DEFAULT_MAX_READ_AHEAD, SeekCursor.NO_MONITOR, LEAF_LEVEL ) )
+            {
+                while ( seek.next() )
+                {
+                    if ( writerSessions.get() != writerSessionsAtStart )
+                    {
+                        return TreeNode.NO_NODE_FLAG;
+                    }
+                    builder.add( seek.key(), seek.value() );
+                }
+            }
+        }
+        finally
+        {
+            builder.close();
+        }
+        if ( !builder.isEmpty() )
+        {
+            return builder.rootId();
+        }
+
+        // Nothing left in the tree, so the compacted tree is a single empty leaf
+        long rootId = idProvider.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+        try ( PageCursor cursor = pagedFile.io( rootId, PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
+        {
+            PageCursorUtil.goTo( cursor, "new root", rootId );
+            bTreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+            checkOutOfBounds( cursor );
+        }
+        return rootId;
+    }
+
+    private synchronized TreeNodeLatches leafLatches()
+    {
+        if ( leafLatches == null )
+        {
+            leafLatches = new TreeNodeLatches( LEAF_LATCH_STRIPES );
+        }
+        return leafLatches;
+    }
+
     private void setRoot( long rootId, long rootGeneration )
     {
         this.root = new Root( rootId, rootGeneration );
@@ -1539,12 +2063,21 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
     // Utility method
     public boolean consistencyCheck( GBPTreeConsistencyCheckVisitor<KEY> visitor, boolean reportDirty, PageCursorTracer cursorTracer ) throws IOException
     {
-        CleanTrackingConsistencyCheckVisitor<KEY> cleanTrackingVisitor = new CleanTrackingConsistencyCheckVisitor<>( visitor );
-        try ( PageCursor cursor = pagedFile.io( 0L /*ignored*/, PF_SHARED_READ_LOCK, cursorTracer ) )
+        return consistencyCheck( visitor, reportDirty, cursorTracer, GBPTreeConsistencyChecker.NUMBER_OF_WORKERS );
+    }
+
+    /**
+     * Checks the consistency of this tree, where partitions of the tree may be checked in parallel by up to {@code numberOfWorkers} threads.
+     */
+    boolean consistencyCheck( GBPTreeConsistencyCheckVisitor<KEY> visitor, boolean reportDirty, PageCursorTracer cursorTracer, int numberOfWorkers )
+            throws IOException
+    {
+        CleanTrackingConsistencyCheckVisitor<KEY> cleanTrackingVisitor = new CleanTrackingConsistencyCheckVisitor<>( visitor );
+        try ( PageCursor cursor = pagedFile.io( 0L /*ignored*/, PF_SHARED_READ_LOCK, cursorTracer ) )
         {
             long unstableGeneration = unstableGeneration( generation );
             GBPTreeConsistencyChecker<KEY> consistencyChecker = new GBPTreeConsistencyChecker<>( bTreeNode, layout, freeList,
-                    stableGeneration( generation ), unstableGeneration, reportDirty );
+                    stableGeneration( generation ), unstableGeneration, reportDirty, pagedFile, pageCacheTracer, numberOfWorkers );
 
             if ( dirtyOnStartup && reportDirty )
             {
@@ -1604,21 +2137,23 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
          * guard so that only one writer ever exist.
          */
         private final AtomicBoolean writerTaken = new AtomicBoolean();
-        private final InternalTreeLogic<KEY,VALUE> treeLogic;
+        final InternalTreeLogic<KEY,VALUE> treeLogic;
+        final TreeNode<KEY,VALUE> treeNode;
         private final StructurePropagation<KEY> structurePropagation;
-        private PageCursor cursor;
-        private PageCursorTracer cursorTracer;
+        PageCursor cursor;
+        PageCursorTracer cursorTracer;
 
         // Writer can't live past a checkpoint because of the mutex with checkpoint,
         // therefore safe to locally cache these generation fields from the volatile generation in the tree
-        private long stableGeneration;
-        private long unstableGeneration;
-        private double ratioToKeepInLeftOnSplit;
+        long stableGeneration;
+        long unstableGeneration;
+        double ratioToKeepInLeftOnSplit;
 
-        SingleWriter( InternalTreeLogic<KEY,VALUE> treeLogic )
+        SingleWriter( InternalTreeLogic<KEY,VALUE> treeLogic, TreeNode<KEY,VALUE> treeNode )
         {
             this.structurePropagation = new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
             this.treeLogic = treeLogic;
+            this.treeNode = treeNode;
         }
 
         /**
@@ -1654,15 +2189,14 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             try
             {
                 // Block here until cleaning has completed, if cleaning was required
-                lock.writerAndCleanerLock();
+                lockWriter();
+                writerSessions.incrementAndGet();
                 assertRecoveryCleanSuccessful();
-                cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer );
                 this.cursorTracer = cursorTracer;
                 stableGeneration = stableGeneration( generation );
                 unstableGeneration = unstableGeneration( generation );
                 this.ratioToKeepInLeftOnSplit = ratioToKeepInLeftOnSplit;
-                assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
-                treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+                openCursorAtRoot();
                 success = true;
             }
             catch ( Throwable e )
@@ -1679,6 +2213,13 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             }
         }
 
+        void openCursorAtRoot() throws IOException
+        {
+            cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer );
+            assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
+            treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+        }
+
         @Override
         public void put( KEY key, VALUE value )
         {
@@ -1688,6 +2229,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         @Override
         public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
         {
+            addToBloomFilter( key );
             internalMerge( key, value, valueMerger, true );
         }
 
@@ -1697,7 +2239,17 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             internalMerge( key, value, valueMerger, false );
         }
 
-        private void internalMerge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists )
+        void lockWriter()
+        {
+            lock.writerAndCleanerLock();
+        }
+
+        void unlockWriter()
+        {
+            lock.writerAndCleanerUnlock();
+        }
+
+        void internalMerge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists )
         {
             try
             {
@@ -1761,10 +2313,10 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
                 long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
                 PageCursorUtil.goTo( cursor, "new root", newRootId );
 
-                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
-                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
+                treeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+                treeNode.setChildAt( cursor, structurePropagation.midChild, 0,
                         stableGeneration, unstableGeneration );
-                bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
+                treeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
                         stableGeneration, unstableGeneration, cursorTracer );
                 TreeNode.setKeyCount( cursor, 1 );
                 setRoot( newRootId );
@@ -1786,7 +2338,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
                         ", but writer is already closed." );
             }
             closeCursor();
-            lock.writerAndCleanerUnlock();
+            unlockWriter();
         }
 
         private void closeCursor()
@@ -1799,6 +2351,510 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         }
     }
 
+    /**
+     * Measures how fragmented the tree is as a seek over all of its entries moves through its leaves. Fragmentation is the greater
+     * of how empty the leaves are, i.e. the part of the leaf pages not used by key and value bytes, and how scattered the leaves are,
+     * i.e. the part of the steps from a leaf to its right sibling which go backwards in the file. Since the seek runs alongside
+     * writers this is an estimate of a tree which may be changing meanwhile.
+     */
+    static class CompactionStatistics<KEY,VALUE> extends SeekCursor.MonitorAdaptor
+    {
+        private final Layout<KEY,VALUE> layout;
+        private final int leafCapacity;
+        private long leafCount;
+        private long leafBytes;
+        private long previousLeafId = -1;
+        private long backwardSteps;
+
+        CompactionStatistics( Layout<KEY,VALUE> layout, int pageSize )
+        {
+            this.layout = layout;
+            this.leafCapacity = pageSize - TreeNode.BASE_HEADER_LENGTH;
+        }
+
+        @Override
+        public void leafPage( long pageId )
+        {
+            if ( pageId == previousLeafId )
+            {
+                // Read again because of a concurrent change
+                return;
+            }
+            if ( previousLeafId != -1 && pageId < previousLeafId )
+            {
+                backwardSteps++;
+            }
+            previousLeafId = pageId;
+            leafCount++;
+        }
+
+        void entry( KEY key, VALUE value )
+        {
+            leafBytes += layout.keySize( key ) + layout.valueSize( value );
+        }
+
+        double fragmentation()
+        {
+            if ( leafCount == 0 )
+            {
+                return 0;
+            }
+            double emptiness = 1 - Math.min( 1d, (double) leafBytes / (leafCount * leafCapacity) );
+            double scattering = leafCount > 1 ? (double) backwardSteps / (leafCount - 1) : 0;
+            return Math.max( emptiness, scattering );
+        }
+    }
+
+    /**
+     * Collects the ids of all nodes and offload pages of the tree as it's visited.
+     */
+    private static class TreePageIds<KEY,VALUE> extends GBPTreeVisitor.Adaptor<KEY,VALUE>
+    {
+        private final MutableLongList treeNodeIds = new LongArrayList();
+        private final MutableLongList offloadIds = new LongArrayList();
+
+        @Override
+        public void beginNode( long pageId, boolean isLeaf, long generation, int keyCount )
+        {
+            treeNodeIds.add( pageId );
+        }
+
+        @Override
+        public void key( KEY key, boolean isLeaf, long offloadId )
+        {
+            if ( offloadId != TreeNode.NO_OFFLOAD_ID )
+            {
+                offloadIds.add( offloadId );
+            }
+        }
+    }
+
+    /**
+     * Hands out ids from the {@link #freeList} to {@link #compact(double, IOLimiter, PageCursorTracer) compaction}, which runs
+     * alongside writers that use the free-list too. Ids are therefore only taken or released while writers are excluded, either
+     * for as long as the compaction excludes them anyway, or just for that one id.
+     */
+    private class CompactionIdProvider implements IdProvider
+    {
+        private boolean writersExcluded;
+
+        void excludeWriters()
+        {
+            lock.writerAndCleanerLock();
+            writersExcluded = true;
+        }
+
+        void allowWriters()
+        {
+            writersExcluded = false;
+            lock.writerAndCleanerUnlock();
+        }
+
+        @Override
+        public long acquireNewId( long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+        {
+            if ( writersExcluded )
+            {
+                return freeList.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+            }
+            excludeWriters();
+            try
+            {
+                return freeList.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+            }
+            finally
+            {
+                allowWriters();
+            }
+        }
+
+        @Override
+        public void releaseId( long stableGeneration, long unstableGeneration, long id, PageCursorTracer cursorTracer ) throws IOException
+        {
+            if ( writersExcluded )
+            {
+                freeList.releaseId( stableGeneration, unstableGeneration, id, cursorTracer );
+                return;
+            }
+            excludeWriters();
+            try
+            {
+                freeList.releaseId( stableGeneration, unstableGeneration, id, cursorTracer );
+            }
+            finally
+            {
+                allowWriters();
+            }
+        }
+
+        @Override
+        public void visitFreelist( IdProviderVisitor visitor, PageCursorTracer cursorTracer ) throws IOException
+        {
+            freeList.visitFreelist( visitor, cursorTracer );
+        }
+
+        @Override
+        public long lastId()
+        {
+            return freeList.lastId();
+        }
+    }
+
+    /**
+     * Builds the tree bottom-up using a {@link BottomUpTreeBuilder}, next to the current empty root, and replaces the root with
+     * the root of the built tree when closed. Until then the built nodes aren't reachable, which is also what happens to them
+     * if there's a crash before the next checkpoint.
+     */
+    private class TreeBulkLoader implements BulkLoader<KEY,VALUE>
+    {
+        private final BottomUpTreeBuilder<KEY,VALUE> builder;
+        private final PageCursorTracer cursorTracer;
+        private final long stableGeneration;
+        private final long unstableGeneration;
+        private boolean failed;
+        private boolean closed;
+
+        TreeBulkLoader( PageCursorTracer cursorTracer ) throws IOException
+        {
+            lock.writerAndCleanerLock();
+            boolean success = false;
+            try
+            {
+                writerSessions.incrementAndGet();
+                assertRecoveryCleanSuccessful();
+                this.cursorTracer = cursorTracer;
+                this.stableGeneration = stableGeneration( generation );
+                this.unstableGeneration = unstableGeneration( generation );
+                assertEmpty();
+                this.builder = new BottomUpTreeBuilder<>( pagedFile, freeList, treeNodeFactory.apply( freeList ), layout, monitor, stableGeneration,
+                        unstableGeneration, cursorTracer );
+                success = true;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    lock.writerAndCleanerUnlock();
+                }
+            }
+        }
+
+        private void assertEmpty() throws IOException
+        {
+            try ( PageCursor cursor = openRootCursor( PF_SHARED_READ_LOCK, cursorTracer ) )
+            {
+                boolean empty;
+                do
+                {
+                    empty = TreeNode.isLeaf( cursor ) && TreeNode.keyCount( cursor ) == 0;
+                }
+                while ( cursor.shouldRetry() );
+                if ( !empty )
+                {
+                    throw new IllegalStateException( "Can only bulk load into an empty tree, but " + GBPTree.this + " isn't empty" );
+                }
+            }
+        }
+
+        @Override
+        public void add( KEY key, VALUE value )
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "Tried to add to bulk loader of " + GBPTree.this + ", but bulk loader is already closed." );
+            }
+            if ( failed )
+            {
+                throw new IllegalStateException( "Tried to add to bulk loader of " + GBPTree.this + ", but an earlier add has failed." );
+            }
+            boolean success = false;
+            try
+            {
+                addToBloomFilter( key );
+                builder.add( key, value );
+                success = true;
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    // Whatever failed, the built tree may be missing entries or be left in any state, so it must never become the root
+                    failed = true;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+            try
+            {
+                builder.close();
+                if ( failed )
+                {
+                    builder.releaseNodes();
+                }
+                else if ( !builder.isEmpty() )
+                {
+                    long oldRootId = root.id();
+                    GBPTree.this.setRoot( builder.rootId(), unstableGeneration );
+                    freeList.releaseId( stableGeneration, unstableGeneration, oldRootId, cursorTracer );
+                }
+            }
+            finally
+            {
+                lock.writerAndCleanerUnlock();
+            }
+        }
+    }
+
+    /**
+     * A {@link Writer} which can change the tree concurrently with other parallel writers, each from its own thread.
+     * <p>
+     * Most changes only affect a single leaf, which is already of the unstable generation and which the change neither overflows nor
+     * underflows. Such changes are made optimistically: the writer finds the leaf while holding the {@link #structureLock} shared,
+     * which guarantees that no internal node changes underneath it, and then changes the leaf in place while holding a latch on only
+     * that leaf. Changes which need a successor, a split, a merge or a rebalance are retried pessimistically while holding the
+     * structure lock exclusively, using the same {@link InternalTreeLogic} as the single writer. Generation-safe pointers and
+     * crash recovery are therefore unaffected, since the optimistic changes are exactly the in place changes that the single writer
+     * makes to leaves of the unstable generation.
+     */
+    private class ParallelWriter extends SingleWriter
+    {
+        private final TreeNodeLatches leafLatches;
+        private long seenStructureChanges;
+
+        ParallelWriter( InternalTreeLogic<KEY,VALUE> treeLogic, TreeNode<KEY,VALUE> treeNode, TreeNodeLatches leafLatches )
+        {
+            super( treeLogic, treeNode );
+            this.leafLatches = leafLatches;
+        }
+
+        @Override
+        void initialize( double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer ) throws IOException
+        {
+            super.initialize( ratioToKeepInLeftOnSplit, cursorTracer );
+            seenStructureChanges = -1;
+        }
+
+        @Override
+        void openCursorAtRoot() throws IOException
+        {
+            // Other parallel writers may be replacing the root
+            structureLock.readLock().lock();
+            try
+            {
+                super.openCursorAtRoot();
+            }
+            finally
+            {
+                structureLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        void lockWriter()
+        {
+            lock.parallelWriterLock();
+        }
+
+        @Override
+        void unlockWriter()
+        {
+            lock.parallelWriterUnlock();
+        }
+
+        @Override
+        void internalMerge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists )
+        {
+            LeafChange change;
+            try
+            {
+                treeNode.validateKeyValueSize( key, value );
+                structureLock.readLock().lock();
+                try
+                {
+                    moveToLeaf( key );
+                    Lock latch = leafLatches.latch( cursor.getCurrentPageId() );
+                    latch.lock();
+                    try
+                    {
+                        change = treeLogic.tryInsertInLeaf( cursor, key, value, valueMerger, createIfNotExists, stableGeneration, unstableGeneration,
+                                cursorTracer );
+                    }
+                    finally
+                    {
+                        latch.unlock();
+                    }
+                }
+                finally
+                {
+                    structureLock.readLock().unlock();
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable t )
+            {
+                appendTreeInformation( t );
+                throw t;
+            }
+
+            if ( change == LeafChange.STRUCTURAL )
+            {
+                structureLock.writeLock().lock();
+                try
+                {
+                    resetPathIfStructureChanged();
+                    super.internalMerge( key, value, valueMerger, createIfNotExists );
+                    seenStructureChanges = ++structureChanges;
+                }
+                finally
+                {
+                    structureLock.writeLock().unlock();
+                }
+            }
+            else
+            {
+                checkOutOfBounds( cursor );
+            }
+        }
+
+        @Override
+        public VALUE remove( KEY key )
+        {
+            VALUE result = layout.newValue();
+            LeafChange change;
+            try
+            {
+                structureLock.readLock().lock();
+                try
+                {
+                    moveToLeaf( key );
+                    Lock latch = leafLatches.latch( cursor.getCurrentPageId() );
+                    latch.lock();
+                    try
+                    {
+                        change = treeLogic.tryRemoveFromLeaf( cursor, key, result, stableGeneration, unstableGeneration, cursorTracer );
+                    }
+                    finally
+                    {
+                        latch.unlock();
+                    }
+                }
+                finally
+                {
+                    structureLock.readLock().unlock();
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable t )
+            {
+                appendTreeInformation( t );
+                throw t;
+            }
+
+            if ( change == LeafChange.STRUCTURAL )
+            {
+                structureLock.writeLock().lock();
+                try
+                {
+                    resetPathIfStructureChanged();
+                    result = super.remove( key );
+                    seenStructureChanges = ++structureChanges;
+                }
+                finally
+                {
+                    structureLock.writeLock().unlock();
+                }
+                return result;
+            }
+            checkOutOfBounds( cursor );
+            return change == LeafChange.APPLIED ? result : null;
+        }
+
+        /**
+         * Must be called while holding the {@link #structureLock}.
+         */
+        private void moveToLeaf( KEY key ) throws IOException
+        {
+            resetPathIfStructureChangedUnchecked();
+            treeLogic.moveToLeaf( cursor, key, stableGeneration, unstableGeneration, cursorTracer );
+        }
+
+        /**
+         * The path down the tree which the tree logic remembers from the previous change is only valid if no other parallel writer has
+         * changed the structure of the tree since. Must be called while holding the {@link #structureLock}.
+         */
+        private void resetPathIfStructureChangedUnchecked() throws IOException
+        {
+            if ( seenStructureChanges != structureChanges )
+            {
+                root.goTo( cursor );
+                treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+                seenStructureChanges = structureChanges;
+            }
+        }
+
+        private void resetPathIfStructureChanged()
+        {
+            try
+            {
+                resetPathIfStructureChangedUnchecked();
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    private static class EmptySeeker implements Seeker<Object,Object>
+    {
+        static final EmptySeeker INSTANCE = new EmptySeeker();
+
+        @Override
+        public boolean next()
+        {
+            return false;
+        }
+
+        @Override
+        public Object key()
+        {
+            throw new IllegalStateException( "No result" );
+        }
+
+        @Override
+        public Object value()
+        {
+            throw new IllegalStateException( "No result" );
+        }
+
+        @Override
+        public void close()
+        {   // no-op
+        }
+    }
+
     /**
      * Total size limit for key and value.
      * This limit includes storage overhead that is specific to key implementation for example entity id or meta data about type.
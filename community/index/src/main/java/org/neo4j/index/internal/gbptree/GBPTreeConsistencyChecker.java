@@ -24,6 +24,7 @@ import org.eclipse.collections.api.list.primitive.MutableLongList;
 import org.eclipse.collections.impl.factory.Lists;
 import org.eclipse.collections.impl.factory.primitive.LongLists;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -31,11 +32,21 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+import org.neo4j.internal.helpers.NamedThreadFactory;
 import org.neo4j.io.pagecache.CursorException;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.util.FeatureToggles;
 
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static org.neo4j.index.internal.gbptree.GenerationSafePointerPair.pointer;
 import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
@@ -51,9 +62,22 @@ import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
  * <li>sibling pointers match
  * <li>GSPP
  * </ul>
+ * <p>
+ * Given a {@link PagedFile} and more than one worker, the tree is partitioned into subtrees on the topmost level that has enough nodes
+ * to give each worker a partition, similar to how {@link GBPTree#partitionedSeek(Object, Object, int, PageCursorTracer)} partitions
+ * on splitter keys. The levels above that are checked by the calling thread, and each partition, a sequence of neighbouring subtrees,
+ * is checked by a worker. Inconsistencies found by the workers are reported to the visitor by the calling thread, in partition order.
+ * Sibling pointers and generations between the rightmost node of a partition and the leftmost node of the next, on each level,
+ * as well as page ids seen in more than one partition, are checked when joining the partitions.
  */
 class GBPTreeConsistencyChecker<KEY>
 {
+    private static final String CONSISTENCY_CHECKER_TAG = "gbptreeConsistencyChecker";
+    private static final String NUMBER_OF_WORKERS_NAME = "number_of_workers";
+    private static final int NUMBER_OF_WORKERS_DEFAULT = min( 8, Runtime.getRuntime().availableProcessors() );
+    static final int NUMBER_OF_WORKERS = FeatureToggles.getInteger( GBPTreeConsistencyChecker.class, NUMBER_OF_WORKERS_NAME, NUMBER_OF_WORKERS_DEFAULT );
+    private static final int NO_PARTITIONING = -1;
+
     private final TreeNode<KEY,?> node;
     private final Comparator<KEY> comparator;
     private final Layout<KEY,?> layout;
@@ -65,18 +89,43 @@ class GBPTreeConsistencyChecker<KEY>
     private final boolean reportDirty;
     private final GenerationKeeper generationTarget = new GenerationKeeper();
     private final MutableLongList offloadIds = new LongArrayList();
+    private final PagedFile pagedFile;
+    private final PageCacheTracer pageCacheTracer;
+    private final int numberOfWorkers;
+    // Whether or not this checker checks a partition of the tree, i.e. a sequence of subtrees not starting with the leftmost subtree.
+    private final boolean partition;
+    // Level at which subtrees are collected into partitions, instead of being checked right away, or NO_PARTITIONING.
+    private int partitionLevel = NO_PARTITIONING;
+    private final List<Subtree<KEY>> subtrees = new ArrayList<>();
 
     GBPTreeConsistencyChecker( TreeNode<KEY,?> node, Layout<KEY,?> layout, IdProvider idProvider, long stableGeneration,
             long unstableGeneration, boolean reportDirty )
+    {
+        this( node, layout, idProvider, stableGeneration, unstableGeneration, reportDirty, null, PageCacheTracer.NULL, 1 );
+    }
+
+    GBPTreeConsistencyChecker( TreeNode<KEY,?> node, Layout<KEY,?> layout, IdProvider idProvider, long stableGeneration,
+            long unstableGeneration, boolean reportDirty, PagedFile pagedFile, PageCacheTracer pageCacheTracer, int numberOfWorkers )
+    {
+        this( node, layout, idProvider, idProvider.lastId(), stableGeneration, unstableGeneration, reportDirty, pagedFile, pageCacheTracer,
+                numberOfWorkers, false );
+    }
+
+    private GBPTreeConsistencyChecker( TreeNode<KEY,?> node, Layout<KEY,?> layout, IdProvider idProvider, long lastId, long stableGeneration,
+            long unstableGeneration, boolean reportDirty, PagedFile pagedFile, PageCacheTracer pageCacheTracer, int numberOfWorkers, boolean partition )
     {
         this.node = node;
         this.comparator = node.keyComparator();
         this.layout = layout;
         this.idProvider = idProvider;
-        this.lastId = idProvider.lastId();
+        this.lastId = lastId;
         this.stableGeneration = stableGeneration;
         this.unstableGeneration = unstableGeneration;
         this.reportDirty = reportDirty;
+        this.pagedFile = pagedFile;
+        this.pageCacheTracer = pageCacheTracer;
+        this.numberOfWorkers = numberOfWorkers;
+        this.partition = partition;
     }
 
     /**
@@ -102,8 +151,16 @@ class GBPTreeConsistencyChecker<KEY>
 
         // Check structure of GBPTree
         long rootGeneration = root.goTo( cursor );
+        if ( pagedFile != null && numberOfWorkers > 1 )
+        {
+            partitionLevel = partitionLevel( cursor, numberOfWorkers );
+        }
         KeyRange<KEY> openRange = new KeyRange<>( -1, -1, comparator, null, null, layout, null );
         checkSubtree( file, cursor, openRange, -1, rootGeneration, GBPTreePointerType.noPointer(), 0, visitor, seenIds, cursorTracer );
+        if ( !subtrees.isEmpty() )
+        {
+            checkPartitions( file, visitor, seenIds );
+        }
 
         // Assert that rightmost node on each level has empty right sibling.
         rightmostPerLevel.forEach( rightmost -> rightmost.assertLast( visitor ) );
@@ -268,16 +325,21 @@ class GBPTreeConsistencyChecker<KEY>
     private void assertSiblings( Path file, PageCursor cursor, long currentNodeGeneration, long leftSiblingPointer,
             long leftSiblingPointerGeneration, long rightSiblingPointer, long rightSiblingPointerGeneration, int level,
             GBPTreeConsistencyCheckVisitor<KEY> visitor )
+    {
+        RightmostInChain rightmost = rightmostOnLevel( file, level );
+
+        rightmost.assertNext( cursor, currentNodeGeneration, leftSiblingPointer, leftSiblingPointerGeneration, rightSiblingPointer,
+                rightSiblingPointerGeneration, visitor );
+    }
+
+    private RightmostInChain rightmostOnLevel( Path file, int level )
     {
         // If this is the first time on this level, we will add a new entry
         for ( int i = rightmostPerLevel.size(); i <= level; i++ )
         {
-            rightmostPerLevel.add( i, new RightmostInChain( file ) );
+            rightmostPerLevel.add( i, partition ? RightmostInChain.detached( file ) : new RightmostInChain( file ) );
         }
-        RightmostInChain rightmost = rightmostPerLevel.get( level );
-
-        rightmost.assertNext( cursor, currentNodeGeneration, leftSiblingPointer, leftSiblingPointerGeneration, rightSiblingPointer,
-                rightSiblingPointerGeneration, visitor );
+        return rightmostPerLevel.get( level );
     }
 
     private void assertSubtrees( Path file, PageCursor cursor, KeyRange<KEY> range, int keyCount, int level,
@@ -311,10 +373,7 @@ class GBPTreeConsistencyChecker<KEY>
                 childRange = childRange.restrictLeft( prev );
             }
 
-            TreeNode.goTo( cursor, "child at pos " + pos, child );
-            checkSubtree( file, cursor, childRange, pageId, childGeneration, GBPTreePointerType.child( pos ), level + 1, visitor, seenIds, cursorTracer );
-
-            TreeNode.goTo( cursor, "parent", pageId );
+            checkChild( file, cursor, child, childRange, pageId, childGeneration, pos, level + 1, visitor, seenIds, cursorTracer );
 
             if ( pos == 0 )
             {
@@ -337,10 +396,165 @@ class GBPTreeConsistencyChecker<KEY>
         while ( cursor.shouldRetry() );
         checkAfterShouldRetry( cursor );
 
-        TreeNode.goTo( cursor, "child at pos " + pos, child );
         childRange = range.newSubRange( level, pageId ).restrictLeft( prev );
-        checkSubtree( file, cursor, childRange, pageId, childGeneration, GBPTreePointerType.child( pos ), level + 1, visitor, seenIds, cursorTracer );
-        TreeNode.goTo( cursor, "parent", pageId );
+        checkChild( file, cursor, child, childRange, pageId, childGeneration, pos, level + 1, visitor, seenIds, cursorTracer );
+    }
+
+    private void checkChild( Path file, PageCursor cursor, long child, KeyRange<KEY> childRange, long parentNode, long childGeneration, int pos,
+            int childLevel, GBPTreeConsistencyCheckVisitor<KEY> visitor, BitSet seenIds, PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( childLevel == partitionLevel )
+        {
+            // Leave this subtree to one of the partitions
+            subtrees.add( new Subtree<>( child, childRange, parentNode, childGeneration, pos, childLevel ) );
+            return;
+        }
+        TreeNode.goTo( cursor, "child at pos " + pos, child );
+        checkSubtree( file, cursor, childRange, parentNode, childGeneration, GBPTreePointerType.child( pos ), childLevel, visitor, seenIds, cursorTracer );
+        TreeNode.goTo( cursor, "parent", parentNode );
+    }
+
+    /**
+     * Finds the topmost level with at least {@code numberOfPartitions} nodes, or the leaf level if there is no such level, by reading only
+     * the child pointers of the internal nodes above it. Gives up on partitioning on anything out of the ordinary, leaving it to the
+     * sequential check to report it.
+     *
+     * @param cursor {@link PageCursor} placed at the root, where it is also left when this method returns.
+     * @param numberOfPartitions number of partitions we want to create.
+     * @return the level to partition on, or {@link #NO_PARTITIONING} if the tree shouldn't be partitioned.
+     */
+    private int partitionLevel( PageCursor cursor, int numberOfPartitions ) throws IOException
+    {
+        long rootId = cursor.getCurrentPageId();
+        LongHashSet seenNodes = LongHashSet.newSetWith( rootId );
+        MutableLongList levelNodes = LongArrayList.newListWith( rootId );
+        int level = 0;
+        try
+        {
+            while ( levelNodes.size() < numberOfPartitions )
+            {
+                MutableLongList children = new LongArrayList();
+                for ( int i = 0; i < levelNodes.size(); i++ )
+                {
+                    TreeNode.goTo( cursor, "partitioning", levelNodes.get( i ) );
+                    byte nodeType;
+                    boolean isInternal;
+                    int keyCount;
+                    do
+                    {
+                        nodeType = TreeNode.nodeType( cursor );
+                        isInternal = TreeNode.isInternal( cursor );
+                        keyCount = TreeNode.keyCount( cursor );
+                    }
+                    while ( cursor.shouldRetry() );
+                    checkAfterShouldRetry( cursor );
+                    if ( nodeType != TreeNode.NODE_TYPE_TREE_NODE || !node.reasonableKeyCount( keyCount ) )
+                    {
+                        return NO_PARTITIONING;
+                    }
+                    if ( !isInternal )
+                    {
+                        // Reached leaf level without finding enough nodes on any level, make do with fewer partitions
+                        return level > 0 ? level : NO_PARTITIONING;
+                    }
+                    for ( int pos = 0; pos <= keyCount; pos++ )
+                    {
+                        long child;
+                        do
+                        {
+                            child = childAt( cursor, pos, generationTarget );
+                        }
+                        while ( cursor.shouldRetry() );
+                        checkAfterShouldRetry( cursor );
+                        if ( !GenerationSafePointerPair.isSuccess( child ) || !TreeNode.isNode( child ) || !seenNodes.add( pointer( child ) ) )
+                        {
+                            return NO_PARTITIONING;
+                        }
+                        children.add( pointer( child ) );
+                    }
+                }
+                levelNodes = children;
+                level++;
+            }
+            return level;
+        }
+        finally
+        {
+            TreeNode.goTo( cursor, "root", rootId );
+        }
+    }
+
+    /**
+     * Checks the {@link #subtrees} collected on the {@link #partitionLevel} in partitions on a number of workers,
+     * then joins the results of the partitions, in order, into the state of this checker.
+     */
+    private void checkPartitions( Path file, GBPTreeConsistencyCheckVisitor<KEY> visitor, BitSet seenIds ) throws IOException
+    {
+        int numberOfPartitions = min( numberOfWorkers, subtrees.size() );
+        List<Partition<KEY>> partitions = new ArrayList<>( numberOfPartitions );
+        for ( int i = 0; i < numberOfPartitions; i++ )
+        {
+            int from = i * subtrees.size() / numberOfPartitions;
+            int to = (i + 1) * subtrees.size() / numberOfPartitions;
+            partitions.add( new Partition<>( new GBPTreeConsistencyChecker<>( node, layout, idProvider, lastId, stableGeneration, unstableGeneration,
+                    reportDirty, pagedFile, pageCacheTracer, 1, true ), subtrees.subList( from, to ) ) );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( numberOfPartitions, new NamedThreadFactory( "GBPTreeConsistencyChecker" ) );
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>( numberOfPartitions );
+            for ( Partition<KEY> partition : partitions )
+            {
+                futures.add( executor.submit( () -> partition.check( file ) ) );
+            }
+            for ( int i = 0; i < numberOfPartitions; i++ )
+            {
+                awaitPartition( futures.get( i ) );
+                join( file, partitions.get( i ), visitor, seenIds );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitPartition( Future<?> future ) throws IOException
+    {
+        try
+        {
+            future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for partitions to be checked", e );
+        }
+        catch ( ExecutionException e )
+        {
+            // Failures in the partitions are kept in the partitions and thrown when joining them
+            throw new IllegalStateException( e.getCause() );
+        }
+    }
+
+    private void join( Path file, Partition<KEY> partition, GBPTreeConsistencyCheckVisitor<KEY> visitor, BitSet seenIds ) throws IOException
+    {
+        partition.reports.replay( visitor );
+        partition.throwFailure();
+
+        // Page ids seen in the partition, that have also been seen elsewhere
+        BitSet seenInBoth = (BitSet) partition.seenIds.clone();
+        seenInBoth.and( seenIds );
+        seenInBoth.stream().forEach( id -> visitor.pageIdSeenMultipleTimes( id, file ) );
+        seenIds.or( partition.seenIds );
+
+        // Continue the sibling chains on each level with the chains of the partition
+        List<RightmostInChain> partitionRightmostPerLevel = partition.checker.rightmostPerLevel;
+        for ( int level = partitionLevel; level < partitionRightmostPerLevel.size(); level++ )
+        {
+            rightmostOnLevel( file, level ).append( partitionRightmostPerLevel.get( level ), visitor );
+        }
     }
 
     private static void checkAfterShouldRetry( PageCursor cursor ) throws CursorException
@@ -515,6 +729,212 @@ class GBPTreeConsistencyChecker<KEY>
         }
     }
 
+    /**
+     * Child pointer to a subtree on the {@link #partitionLevel}, with everything needed to check it as if reached from its parent.
+     */
+    private static class Subtree<KEY>
+    {
+        private final long pageId;
+        private final KeyRange<KEY> range;
+        private final long parentNode;
+        private final long pointerGeneration;
+        private final int pos;
+        private final int level;
+
+        Subtree( long pageId, KeyRange<KEY> range, long parentNode, long pointerGeneration, int pos, int level )
+        {
+            this.pageId = pageId;
+            this.range = range;
+            this.parentNode = parentNode;
+            this.pointerGeneration = pointerGeneration;
+            this.pos = pos;
+            this.level = level;
+        }
+    }
+
+    /**
+     * A sequence of neighbouring subtrees, checked by its own {@link GBPTreeConsistencyChecker} with its own page cursor,
+     * keeping the reported inconsistencies and seen page ids until joined with the other partitions.
+     */
+    private static class Partition<KEY>
+    {
+        private final GBPTreeConsistencyChecker<KEY> checker;
+        private final List<Subtree<KEY>> subtrees;
+        private final RecordingVisitor<KEY> reports = new RecordingVisitor<>();
+        private final BitSet seenIds = new BitSet();
+        private Throwable failure;
+
+        Partition( GBPTreeConsistencyChecker<KEY> checker, List<Subtree<KEY>> subtrees )
+        {
+            this.checker = checker;
+            this.subtrees = subtrees;
+        }
+
+        void check( Path file )
+        {
+            try ( PageCursorTracer cursorTracer = checker.pageCacheTracer.createPageCursorTracer( CONSISTENCY_CHECKER_TAG );
+                  PageCursor cursor = checker.pagedFile.io( 0L /*ignored*/, PagedFile.PF_SHARED_READ_LOCK, cursorTracer ) )
+            {
+                for ( Subtree<KEY> subtree : subtrees )
+                {
+                    TreeNode.goTo( cursor, "child at pos " + subtree.pos, subtree.pageId );
+                    checker.checkSubtree( file, cursor, subtree.range, subtree.parentNode, subtree.pointerGeneration,
+                            GBPTreePointerType.child( subtree.pos ), subtree.level, reports, seenIds, cursorTracer );
+                }
+            }
+            catch ( Throwable e )
+            {
+                failure = e;
+            }
+        }
+
+        void throwFailure() throws IOException
+        {
+            if ( failure instanceof IOException )
+            {
+                throw (IOException) failure;
+            }
+            if ( failure instanceof RuntimeException )
+            {
+                throw (RuntimeException) failure;
+            }
+            if ( failure instanceof Error )
+            {
+                throw (Error) failure;
+            }
+        }
+    }
+
+    /**
+     * Keeps everything reported to it, to be replayed on another visitor later.
+     */
+    private static class RecordingVisitor<KEY> implements GBPTreeConsistencyCheckVisitor<KEY>
+    {
+        private final List<Consumer<GBPTreeConsistencyCheckVisitor<KEY>>> reports = new ArrayList<>();
+
+        void replay( GBPTreeConsistencyCheckVisitor<KEY> visitor )
+        {
+            reports.forEach( report -> report.accept( visitor ) );
+        }
+
+        @Override
+        public void notATreeNode( long pageId, Path file )
+        {
+            reports.add( visitor -> visitor.notATreeNode( pageId, file ) );
+        }
+
+        @Override
+        public void unknownTreeNodeType( long pageId, byte treeNodeType, Path file )
+        {
+            reports.add( visitor -> visitor.unknownTreeNodeType( pageId, treeNodeType, file ) );
+        }
+
+        @Override
+        public void siblingsDontPointToEachOther( long leftNode, long leftNodeGeneration, long leftRightSiblingPointerGeneration,
+                long leftRightSiblingPointer, long rightLeftSiblingPointer, long rightLeftSiblingPointerGeneration, long rightNode,
+                long rightNodeGeneration, Path file )
+        {
+            reports.add( visitor -> visitor.siblingsDontPointToEachOther( leftNode, leftNodeGeneration, leftRightSiblingPointerGeneration,
+                    leftRightSiblingPointer, rightLeftSiblingPointer, rightLeftSiblingPointerGeneration, rightNode, rightNodeGeneration, file ) );
+        }
+
+        @Override
+        public void rightmostNodeHasRightSibling( long rightSiblingPointer, long rightmostNode, Path file )
+        {
+            reports.add( visitor -> visitor.rightmostNodeHasRightSibling( rightSiblingPointer, rightmostNode, file ) );
+        }
+
+        @Override
+        public void pointerToOldVersionOfTreeNode( long pageId, long successorPointer, Path file )
+        {
+            reports.add( visitor -> visitor.pointerToOldVersionOfTreeNode( pageId, successorPointer, file ) );
+        }
+
+        @Override
+        public void pointerHasLowerGenerationThanNode( GBPTreePointerType pointerType, long sourceNode, long pointerGeneration, long pointer,
+                long targetNodeGeneration, Path file )
+        {
+            reports.add( visitor -> visitor.pointerHasLowerGenerationThanNode( pointerType, sourceNode, pointerGeneration, pointer,
+                    targetNodeGeneration, file ) );
+        }
+
+        @Override
+        public void keysOutOfOrderInNode( long pageId, Path file )
+        {
+            reports.add( visitor -> visitor.keysOutOfOrderInNode( pageId, file ) );
+        }
+
+        @Override
+        public void keysLocatedInWrongNode( KeyRange<KEY> range, KEY key, int pos, int keyCount, long pageId, Path file )
+        {
+            reports.add( visitor -> visitor.keysLocatedInWrongNode( range, key, pos, keyCount, pageId, file ) );
+        }
+
+        @Override
+        public void unusedPage( long pageId, Path file )
+        {
+            reports.add( visitor -> visitor.unusedPage( pageId, file ) );
+        }
+
+        @Override
+        public void pageIdExceedLastId( long lastId, long pageId, Path file )
+        {
+            reports.add( visitor -> visitor.pageIdExceedLastId( lastId, pageId, file ) );
+        }
+
+        @Override
+        public void nodeMetaInconsistency( long pageId, String message, Path file )
+        {
+            reports.add( visitor -> visitor.nodeMetaInconsistency( pageId, message, file ) );
+        }
+
+        @Override
+        public void pageIdSeenMultipleTimes( long pageId, Path file )
+        {
+            reports.add( visitor -> visitor.pageIdSeenMultipleTimes( pageId, file ) );
+        }
+
+        @Override
+        public void crashedPointer( long pageId, GBPTreePointerType pointerType, long generationA, long readPointerA, long pointerA, byte stateA,
+                long generationB, long readPointerB, long pointerB, byte stateB, Path file )
+        {
+            reports.add( visitor -> visitor.crashedPointer( pageId, pointerType, generationA, readPointerA, pointerA, stateA, generationB, readPointerB,
+                    pointerB, stateB, file ) );
+        }
+
+        @Override
+        public void brokenPointer( long pageId, GBPTreePointerType pointerType, long generationA, long readPointerA, long pointerA, byte stateA,
+                long generationB, long readPointerB, long pointerB, byte stateB, Path file )
+        {
+            reports.add( visitor -> visitor.brokenPointer( pageId, pointerType, generationA, readPointerA, pointerA, stateA, generationB, readPointerB,
+                    pointerB, stateB, file ) );
+        }
+
+        @Override
+        public void unreasonableKeyCount( long pageId, int keyCount, Path file )
+        {
+            reports.add( visitor -> visitor.unreasonableKeyCount( pageId, keyCount, file ) );
+        }
+
+        @Override
+        public void childNodeFoundAmongParentNodes( KeyRange<KEY> superRange, int level, long pageId, Path file )
+        {
+            reports.add( visitor -> visitor.childNodeFoundAmongParentNodes( superRange, level, pageId, file ) );
+        }
+
+        @Override
+        public void exception( Exception e )
+        {
+            reports.add( visitor -> visitor.exception( e ) );
+        }
+
+        @Override
+        public void dirtyOnStartup( Path file )
+        {
+            reports.add( visitor -> visitor.dirtyOnStartup( file ) );
+        }
+    }
+
     private static class FreelistSeenIdsVisitor<KEY> implements IdProvider.IdProviderVisitor
     {
         private final Path path;
@@ -19,6 +19,7 @@
  */
 package org.neo4j.index.internal.gbptree;
 
+import org.eclipse.collections.api.iterator.LongIterator;
 import org.eclipse.collections.api.list.primitive.ImmutableLongList;
 
 import java.util.List;
@@ -102,4 +103,42 @@ public class GBPTreeInspection<KEY,VALUE>
     {
         return treeState;
     }
+
+    /**
+     * @return average number of keys per leaf, i.e. how many entries each leaf page holds.
+     */
+    public double getAverageLeafKeyCount()
+    {
+        return averageKeyCount( leafNodes );
+    }
+
+    /**
+     * @return average number of children per internal node, i.e. the fan-out of the tree.
+     */
+    public double getAverageInternalFanOut()
+    {
+        return internalNodes.isEmpty() ? 0 : averageKeyCount( internalNodes ) + 1;
+    }
+
+    /**
+     * @return number of pages used by the tree, including pages in offload store.
+     */
+    public int getTotalNodeCount()
+    {
+        return allNodes.size() + offloadNodes.size();
+    }
+
+    private double averageKeyCount( ImmutableLongList nodes )
+    {
+        if ( nodes.isEmpty() )
+        {
+            return 0;
+        }
+        long totalKeyCount = 0;
+        for ( LongIterator iterator = nodes.longIterator(); iterator.hasNext(); )
+        {
+            totalKeyCount += keyCounts.get( iterator.next() );
+        }
+        return (double) totalKeyCount / nodes.size();
+    }
 }
@@ -30,6 +30,9 @@ class GBPTreeLock
     private static final long stateOffset = UnsafeUtil.getFieldOffset( GBPTreeLock.class, "state" );
     private static final long writerLockBit = 0x00000000_00000001L;
     private static final long cleanerLockBit = 0x00000000_00000002L;
+    // Parallel writers share the writer and cleaner lock, the number of them is kept in the high half of the state.
+    private static final long parallelWriterUnit = 0x00000001_00000000L;
+    private static final long parallelWriterMask = 0xFFFFFFFF_00000000L;
     private volatile long state;
 
     // Used for testing
@@ -70,6 +73,39 @@ class GBPTreeLock
         doUnlock( writerLockBit | cleanerLockBit );
     }
 
+    /**
+     * Shared version of {@link #writerAndCleanerLock()}, held by each open parallel writer. Blocks while the writer or cleaner lock
+     * is held, and the writer and cleaner locks cannot be taken until all parallel writers have released this lock.
+     */
+    void parallelWriterLock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            while ( (currentState & (writerLockBit | cleanerLockBit)) != 0 )
+            {
+                sleep();
+                currentState = state;
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState + parallelWriterUnit ) );
+    }
+
+    void parallelWriterUnlock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            if ( (currentState & parallelWriterMask) == 0 )
+            {
+                throw new IllegalStateException( "Can not unlock parallel writer lock that is not locked" );
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState - parallelWriterUnit ) );
+    }
+
     private void doLock( long targetLockBit )
     {
         long currentState;
@@ -105,7 +141,7 @@ class GBPTreeLock
 
     private boolean canLock( long state, long targetLockBit )
     {
-        return (state & targetLockBit) == 0;
+        return (state & (targetLockBit | parallelWriterMask)) == 0;
     }
 
     private boolean canUnlock( long state, long targetLockBit )
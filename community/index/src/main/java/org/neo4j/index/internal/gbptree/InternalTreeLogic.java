@@ -158,6 +158,25 @@ class InternalTreeLogic<KEY,VALUE>
         }
     }
 
+    /**
+     * Outcome of an attempt to change a single leaf in place.
+     */
+    enum LeafChange
+    {
+        /**
+         * The leaf reflects the change, which may have been to not change anything at all.
+         */
+        APPLIED,
+        /**
+         * The key to remove doesn't exist.
+         */
+        NOT_FOUND,
+        /**
+         * The change requires changes to other tree nodes than the leaf, and nothing was changed.
+         */
+        STRUCTURAL
+    }
+
     InternalTreeLogic( IdProvider idProvider, TreeNode<KEY,VALUE> bTreeNode, Layout<KEY,VALUE> layout, GBPTree.Monitor monitor )
     {
         this.idProvider = idProvider;
@@ -760,6 +779,133 @@ class InternalTreeLogic<KEY,VALUE>
         return into;
     }
 
+    /**
+     * Moves the cursor to the leaf which covers {@code key}, without changing anything. Used by parallel writers, which latch the leaf
+     * before attempting to change it using {@link #tryInsertInLeaf(PageCursor, Object, Object, ValueMerger, boolean, long, long, PageCursorTracer)}
+     * or {@link #tryRemoveFromLeaf(PageCursor, Object, Object, long, long, PageCursorTracer)}.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree (if first call since {@link #initialize(PageCursor)}) or at where last
+     * call left it.
+     * @param key key to find the leaf for.
+     * @param stableGeneration stable generation.
+     * @param unstableGeneration unstable generation.
+     * @param cursorTracer underlying page cursor tracer.
+     * @throws IOException on cursor failure
+     */
+    void moveToLeaf( PageCursor cursor, KEY key, long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration, cursorTracer );
+    }
+
+    /**
+     * Attempts to insert {@code key}, or merge it with an existing key, in the leaf where the cursor is at, without changing any other
+     * tree node. This is only possible if the leaf already is of the unstable generation and the change neither overflows nor underflows
+     * the leaf, otherwise {@link LeafChange#STRUCTURAL} is returned and the leaf is left untouched. In that case the {@code valueMerger}
+     * may already have been consulted, and will be consulted again when the change is retried using
+     * {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, boolean, long, long, PageCursorTracer)}.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf which covers {@code key}.
+     * @param key key to be inserted
+     * @param value value to be associated with key
+     * @param valueMerger {@link ValueMerger} for deciding what to do with existing keys
+     * @param createIfNotExists create this key if it doesn't exist
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorTracer underlying page cursor tracer
+     * @return {@link LeafChange#APPLIED} if the leaf now reflects the change, otherwise {@link LeafChange#STRUCTURAL}.
+     * @throws IOException on cursor failure
+     */
+    LeafChange tryInsertInLeaf( PageCursor cursor, KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists,
+            long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, LEAF, key, readKey, keyCount, cursorTracer );
+        int pos = positionOf( search );
+        boolean unstable = TreeNode.generation( cursor ) == unstableGeneration;
+        if ( isHit( search ) )
+        {
+            bTreeNode.valueAt( cursor, readValue, pos, cursorTracer );
+            ValueMerger.MergeResult mergeResult = valueMerger.merge( readKey, key, readValue, value );
+            switch ( mergeResult )
+            {
+            case UNCHANGED:
+                return LeafChange.APPLIED;
+            case REPLACED:
+            case MERGED:
+                VALUE mergedValue = mergeResult == ValueMerger.MergeResult.REPLACED ? value : readValue;
+                // Values of different size would have to be removed and inserted again, which may overflow or underflow the leaf
+                return unstable && bTreeNode.setValueAt( cursor, mergedValue, pos ) ? LeafChange.APPLIED : LeafChange.STRUCTURAL;
+            case REMOVED:
+                return unstable ? tryRemoveAt( cursor, readValue, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer )
+                                : LeafChange.STRUCTURAL;
+            default:
+                throw new UnsupportedOperationException( "Unexpected merge result " + mergeResult );
+            }
+        }
+
+        if ( !createIfNotExists )
+        {
+            return LeafChange.APPLIED;
+        }
+        Overflow overflow = bTreeNode.leafOverflow( cursor, keyCount, key, value );
+        if ( !unstable || overflow == YES )
+        {
+            return LeafChange.STRUCTURAL;
+        }
+        if ( overflow == NO_NEED_DEFRAG )
+        {
+            bTreeNode.defragmentLeaf( cursor );
+        }
+        bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer );
+        TreeNode.setKeyCount( cursor, keyCount + 1 );
+        return LeafChange.APPLIED;
+    }
+
+    /**
+     * Attempts to remove {@code key} from the leaf where the cursor is at, without changing any other tree node. This is only possible if
+     * the leaf already is of the unstable generation and the removal doesn't underflow the leaf, otherwise {@link LeafChange#STRUCTURAL}
+     * is returned and the leaf is left untouched.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf which covers {@code key}.
+     * @param key key to be removed
+     * @param into {@code VALUE} instance to write removed value to
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorTracer underlying page cursor tracer
+     * @return {@link LeafChange#APPLIED} if the key was removed, {@link LeafChange#NOT_FOUND} if the key doesn't exist,
+     * otherwise {@link LeafChange#STRUCTURAL}.
+     * @throws IOException on cursor failure
+     */
+    LeafChange tryRemoveFromLeaf( PageCursor cursor, KEY key, VALUE into, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, LEAF, key, readKey, keyCount, cursorTracer );
+        if ( !isHit( search ) )
+        {
+            return LeafChange.NOT_FOUND;
+        }
+        if ( TreeNode.generation( cursor ) != unstableGeneration )
+        {
+            return LeafChange.STRUCTURAL;
+        }
+        return tryRemoveAt( cursor, into, positionOf( search ), keyCount, stableGeneration, unstableGeneration, cursorTracer );
+    }
+
+    private LeafChange tryRemoveAt( PageCursor cursor, VALUE into, int pos, int keyCount, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        // For dynamic size nodes this doesn't account for the space of the removed entry, so a removal may still leave the leaf
+        // slightly underflowed. That is harmless, underflow is only ever handled on a best effort basis.
+        if ( bTreeNode.leafUnderflow( cursor, keyCount - 1 ) )
+        {
+            return LeafChange.STRUCTURAL;
+        }
+        simplyRemoveFromLeaf( cursor, into, keyCount, pos, stableGeneration, unstableGeneration, cursorTracer );
+        return LeafChange.APPLIED;
+    }
+
     private void handleStructureChanges( PageCursor cursor, StructurePropagation<KEY> structurePropagation,
             long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
     {
@@ -110,6 +110,53 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
      */
     boolean fixedSize();
 
+    /**
+     * Indicate if leaves of a tree with dynamic size keys should store the keys against a prefix common to all keys in the leaf,
+     * instead of storing every key in full. Only useful for layouts where the serialized form of neighbouring keys
+     * commonly share leading bytes, e.g. keys that start with a long shared path or name.
+     * Has no effect on layouts with fixed size keys and values.
+     * @return true if keys in leaves should be prefix compressed, otherwise false.
+     */
+    default boolean compressKeyPrefixes()
+    {
+        return false;
+    }
+
+    /**
+     * Indicate if the tree should keep a bloom filter over its keys, such that seeks for a single key which isn't in the tree
+     * can be answered without searching the tree. Only useful for layouts where most such lookups miss, e.g. for uniqueness checks.
+     * The filter is kept in a file next to the tree file. Layouts returning {@code true} must implement {@link #filterHash(Object)}.
+     * @return true if the tree should keep a bloom filter over its keys, otherwise false.
+     */
+    default boolean bloomFilter()
+    {
+        return false;
+    }
+
+    /**
+     * Hash of the part of {@code key} which is looked up in seeks where {@link #isFilterKeyLookup(Object, Object)} is {@code true}.
+     * Keys which are equal in that regard must have the same hash. The hash is persisted and so must also be the same between runs.
+     * Only called for layouts where {@link #bloomFilter()} is {@code true}.
+     * @param key key to hash.
+     * @return hash of the key.
+     */
+    default long filterHash( KEY key )
+    {
+        throw new UnsupportedOperationException( getClass().getSimpleName() + " doesn't support bloom filters" );
+    }
+
+    /**
+     * Decides whether or not a seek in the given range is a lookup which the bloom filter can answer, i.e. whether all keys in the range
+     * have the same {@link #filterHash(Object) filter hash} as {@code fromInclusive}. By default only exact match seeks are.
+     * @param fromInclusive lower bound of the seek.
+     * @param toExclusive higher bound of the seek.
+     * @return true if the seek is a lookup of the filter key of {@code fromInclusive}, otherwise false.
+     */
+    default boolean isFilterKeyLookup( KEY fromInclusive, KEY toExclusive )
+    {
+        return compare( fromInclusive, toExclusive ) == 0;
+    }
+
     /**
      * Find shortest key (best effort) that separate left from right in sort order
      * and initialize into with result.
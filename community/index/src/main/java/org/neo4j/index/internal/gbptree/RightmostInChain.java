@@ -31,18 +31,40 @@ import static org.neo4j.index.internal.gbptree.TreeNode.NO_NODE_FLAG;
  * to be right sibling to previous call to verify that they are indeed linked together correctly.
  * <p>
  * When assertNext has been called on node that is expected to be last in chain, use {@link #assertLast(GBPTreeConsistencyCheckVisitor)} to verify.
+ * <p>
+ * A chain can also be {@link #detached(Path) detached}, meaning that it covers a part of a level that doesn't start with the leftmost node.
+ * A detached chain doesn't verify its first node against anything, but remembers it such that it can later be verified when the chain
+ * is {@link #append(RightmostInChain, GBPTreeConsistencyCheckVisitor) appended} to the chain covering the part of the level to its left.
  */
 class RightmostInChain
 {
     private final Path path;
+    private final boolean detached;
+    private boolean empty = true;
     private long currentRightmostNode = TreeNode.NO_NODE_FLAG;
     private long currentRightmostRightSiblingPointer = TreeNode.NO_NODE_FLAG;
     private long currentRightmostRightSiblingPointerGeneration;
     private long currentRightmostNodeGeneration;
+    // Only kept for detached chains, to be verified when appended to the chain to the left of it.
+    private long leftmostNode = TreeNode.NO_NODE_FLAG;
+    private long leftmostNodeGeneration;
+    private long leftmostLeftSiblingPointer;
+    private long leftmostLeftSiblingPointerGeneration;
 
     RightmostInChain( Path path )
+    {
+        this( path, false );
+    }
+
+    private RightmostInChain( Path path, boolean detached )
     {
         this.path = path;
+        this.detached = detached;
+    }
+
+    static RightmostInChain detached( Path path )
+    {
+        return new RightmostInChain( path, true );
     }
 
     void assertNext( PageCursor cursor, long newRightmostNodeGeneration,
@@ -51,7 +73,54 @@ class RightmostInChain
             GBPTreeConsistencyCheckVisitor visitor )
     {
         long newRightmostNode = cursor.getCurrentPageId();
+        if ( detached && empty )
+        {
+            // The node to the left of this one is in another chain, which this chain will be appended to later
+            leftmostNode = newRightmostNode;
+            leftmostNodeGeneration = newRightmostNodeGeneration;
+            leftmostLeftSiblingPointer = newRightmostLeftSiblingPointer;
+            leftmostLeftSiblingPointerGeneration = newRightmostLeftSiblingPointerGeneration;
+        }
+        else
+        {
+            assertSiblings( newRightmostNode, newRightmostNodeGeneration, newRightmostLeftSiblingPointer, newRightmostLeftSiblingPointerGeneration,
+                    visitor );
+        }
+        updateRightmost( newRightmostNode, newRightmostNodeGeneration, newRightmostRightSiblingPointer, newRightmostRightSiblingPointerGeneration );
+    }
 
+    /**
+     * Continues this chain with the nodes of the given {@link #detached(Path) detached} chain, verifying that the rightmost node of this chain
+     * and the leftmost node of the given chain are siblings.
+     *
+     * @param next detached chain covering the part of the level right after the part covered by this chain.
+     * @param visitor {@link GBPTreeConsistencyCheckVisitor} to report inconsistencies to.
+     */
+    void append( RightmostInChain next, GBPTreeConsistencyCheckVisitor visitor )
+    {
+        if ( next.empty )
+        {
+            return;
+        }
+        if ( detached && empty )
+        {
+            leftmostNode = next.leftmostNode;
+            leftmostNodeGeneration = next.leftmostNodeGeneration;
+            leftmostLeftSiblingPointer = next.leftmostLeftSiblingPointer;
+            leftmostLeftSiblingPointerGeneration = next.leftmostLeftSiblingPointerGeneration;
+        }
+        else
+        {
+            assertSiblings( next.leftmostNode, next.leftmostNodeGeneration, next.leftmostLeftSiblingPointer, next.leftmostLeftSiblingPointerGeneration,
+                    visitor );
+        }
+        updateRightmost( next.currentRightmostNode, next.currentRightmostNodeGeneration, next.currentRightmostRightSiblingPointer,
+                next.currentRightmostRightSiblingPointerGeneration );
+    }
+
+    private void assertSiblings( long newRightmostNode, long newRightmostNodeGeneration, long newRightmostLeftSiblingPointer,
+            long newRightmostLeftSiblingPointerGeneration, GBPTreeConsistencyCheckVisitor visitor )
+    {
         // Assert we have reached expected node and that we agree about being siblings
         assertSiblingsAgreeOnBeingSiblings( currentRightmostNode, currentRightmostNodeGeneration, currentRightmostRightSiblingPointer,
                 currentRightmostRightSiblingPointerGeneration, newRightmostNode, newRightmostNodeGeneration, newRightmostLeftSiblingPointer,
@@ -60,8 +129,12 @@ class RightmostInChain
         assertSiblingPointerGeneration( currentRightmostNode, currentRightmostNodeGeneration, currentRightmostRightSiblingPointer,
                 currentRightmostRightSiblingPointerGeneration, newRightmostNode, newRightmostNodeGeneration, newRightmostLeftSiblingPointer,
                 newRightmostLeftSiblingPointerGeneration, visitor );
+    }
 
-        // Update currentRightmostNode = newRightmostNode;
+    private void updateRightmost( long newRightmostNode, long newRightmostNodeGeneration, long newRightmostRightSiblingPointer,
+            long newRightmostRightSiblingPointerGeneration )
+    {
+        empty = false;
         currentRightmostNode = newRightmostNode;
         currentRightmostNodeGeneration = newRightmostNodeGeneration;
         currentRightmostRightSiblingPointer = newRightmostRightSiblingPointer;
@@ -21,10 +21,13 @@ package org.neo4j.index.internal.gbptree;
 
 import java.io.IOException;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.function.LongSupplier;
 
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.util.FeatureToggles;
 
 import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
 import static org.neo4j.index.internal.gbptree.TreeNode.Type.INTERNAL;
@@ -154,6 +157,12 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
          * @param keyCount number of keys in the visited leaf node.
          */
         void leafNode( int depth, int keyCount );
+
+        /**
+         * @param pageId id of a leaf the seek moves on to, either at the end of its way down the tree or from its sibling.
+         * May be called more than once for the same leaf when there are concurrent changes.
+         */
+        void leafPage( long pageId );
     }
 
     static class MonitorAdaptor implements Monitor
@@ -167,11 +176,26 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
         public void leafNode( int depth, int keyCount )
         {   // no-op
         }
+
+        @Override
+        public void leafPage( long pageId )
+        {   // no-op
+        }
     }
 
     static final Monitor NO_MONITOR = new MonitorAdaptor();
 
     static final int DEFAULT_MAX_READ_AHEAD = 20;
+    static final LongConsumer NO_PRE_FETCH = pageId -> {};
+
+    /**
+     * How much of a leaf, in percent of its keys, a range seek reads before it hints to the page cache that the next sibling
+     * will soon be needed, see {@link PagedFile#preFetch(long)}. A value above 100 disables pre-fetching of siblings.
+     */
+    static final String PRE_FETCH_SIBLING_PERCENTAGE_NAME = "preFetchSiblingPercentage";
+    static final int PRE_FETCH_SIBLING_PERCENTAGE_DEFAULT = 50;
+    static final int PRE_FETCH_SIBLING_PERCENTAGE =
+            FeatureToggles.getInteger( SeekCursor.class, PRE_FETCH_SIBLING_PERCENTAGE_NAME, PRE_FETCH_SIBLING_PERCENTAGE_DEFAULT );
     static final int LEAF_LEVEL = Integer.MAX_VALUE;
 
     /**
@@ -406,6 +430,12 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
      */
     private final KEY firstKeyInNode;
 
+    /**
+     * Key on pos {@code keyCount - 1} if traversing forward, pos 0 if traversing backwards. Read to decide whether or not the seek
+     * is likely to continue into the next sibling, when a read-ahead batch ends before the end of the leaf.
+     */
+    private final KEY lastKeyInNode;
+
     /**
      * {@code true} to indicate that first key in node needs to be verified to ensure no keys
      * was moved passed us while we where changing nodes.
@@ -427,6 +457,21 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
      */
     private final Monitor monitor;
 
+    /**
+     * Receives the id of the next sibling, in seek direction, once enough of the current leaf has been read.
+     */
+    private final LongConsumer preFetcher;
+
+    /**
+     * Next sibling pointer read together with the most recent batch, which should be pre-fetched, or {@link TreeNode#NO_NODE_FLAG}.
+     */
+    private long preFetchSibling;
+
+    /**
+     * Id of the leaf from which the next sibling was most recently pre-fetched, such that it's only done once per leaf.
+     */
+    private long preFetchedFromNode = TreeNode.NO_NODE_FLAG;
+
     /**
      * Normally {@link #readHeader()} is called when {@link #concurrentWriteHappened} is {@code true}. However this flag
      * guards for cases where the header must be read and {@link #concurrentWriteHappened} is {@code false},
@@ -443,9 +488,10 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
     SeekCursor( PageCursor cursor, TreeNode<KEY,VALUE> bTreeNode, KEY fromInclusive, KEY toExclusive,
             Layout<KEY,VALUE> layout, long stableGeneration, long unstableGeneration, LongSupplier generationSupplier,
             RootCatchup rootCatchup, long lastFollowedPointerGeneration, Consumer<Throwable> exceptionDecorator, int maxReadAhead, int searchLevel,
-            Monitor monitor, PageCursorTracer cursorTracer ) throws IOException
+            Monitor monitor, LongConsumer preFetcher, PageCursorTracer cursorTracer ) throws IOException
     {
         this.cursor = cursor;
+        this.preFetcher = preFetcher;
         this.cursorTracer = cursorTracer;
         this.fromInclusive = fromInclusive;
         this.toExclusive = toExclusive;
@@ -469,6 +515,7 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
         this.stride = seekForward ? 1 : -1;
         this.expectedFirstAfterGoToNext = layout.newKey();
         this.firstKeyInNode = layout.newKey();
+        this.lastKeyInNode = layout.newKey();
         this.searchLevel = searchLevel;
 
         try
@@ -572,6 +619,7 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
         else
         {
             monitor.leafNode( completedReadLevel, keyCount );
+            monitor.leafPage( cursor.getCurrentPageId() );
         }
 
         // We've now come to the first relevant leaf, initialize the state for the coming leaf scan
@@ -678,6 +726,7 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
             cachedIndex = 0;
             cachedLength = 0;
             resultOnTrack = false;
+            preFetchSibling = TreeNode.NO_NODE_FLAG;
 
             // Where we are
             if ( concurrentWriteHappened || forceReadHeader || !seekForward )
@@ -720,7 +769,9 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
                 pointerId = readNextSibling();
                 pointerGeneration = generationKeeper.generation;
             }
-            for ( int readPos = pos; cachedLength < mutableKeys.length && 0 <= readPos && readPos < keyCount; readPos += stride )
+            int readPos = pos;
+            boolean endOfRange = false;
+            for ( ; cachedLength < mutableKeys.length && 0 <= readPos && readPos < keyCount; readPos += stride )
             {
                 // Read the next value in this leaf
                 if ( mutableKeys[cachedLength] == null )
@@ -749,9 +800,14 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
                 else
                 {
                     // OK so we read too far, abort this ahead-reading
+                    endOfRange = true;
                     break;
                 }
             }
+            if ( !isInternal && !endOfRange && shouldPreFetchSibling( readPos ) && rangeContinuesAfterNode() )
+            {
+                preFetchSibling = readNextSibling();
+            }
         }
         while ( concurrentWriteHappened = cursor.shouldRetry() );
         checkOutOfBoundsAndClosed();
@@ -785,9 +841,56 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
             return false;
         }
 
+        preFetchNextSibling();
         return true;
     }
 
+    /**
+     * @param readPos position after the last key read in the most recent batch, in seek direction.
+     * @return {@code true} if enough of the current leaf has been read that its next sibling should be pre-fetched.
+     */
+    private boolean shouldPreFetchSibling( int readPos )
+    {
+        if ( exactMatch || PRE_FETCH_SIBLING_PERCENTAGE > 100 || cursor.getCurrentPageId() == preFetchedFromNode )
+        {
+            return false;
+        }
+        int keysRead = seekForward ? readPos : keyCount - 1 - readPos;
+        return (long) keysRead * 100 >= (long) keyCount * PRE_FETCH_SIBLING_PERCENTAGE;
+    }
+
+    /**
+     * The read-ahead batch may end before the end of the leaf, in which case the end of the range can still be within the leaf.
+     * @return {@code true} if the last key of the current leaf, in seek direction, is within the range.
+     */
+    private boolean rangeContinuesAfterNode()
+    {
+        if ( keyCount <= 0 )
+        {
+            return false;
+        }
+        bTreeNode.keyAt( cursor, lastKeyInNode, seekForward ? keyCount - 1 : 0, LEAF, cursorTracer );
+        return seekForward ? layout.compare( lastKeyInNode, toExclusive ) < 0
+                           : layout.compare( lastKeyInNode, toExclusive ) > 0;
+    }
+
+    /**
+     * Hints that the next sibling read along with the most recent batch, if any, will soon be visited. Done at most once per leaf.
+     */
+    private void preFetchNextSibling()
+    {
+        if ( GenerationSafePointerPair.isSuccess( preFetchSibling ) )
+        {
+            long siblingId = GenerationSafePointerPair.pointer( preFetchSibling );
+            if ( TreeNode.isNode( siblingId ) )
+            {
+                preFetchedFromNode = cursor.getCurrentPageId();
+                preFetcher.accept( siblingId );
+            }
+        }
+        preFetchSibling = TreeNode.NO_NODE_FLAG;
+    }
+
     /**
      * Check out of bounds for cursor. If out of bounds, check if seeker has been closed and throw exception accordingly
      */
@@ -1007,6 +1110,10 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
                 // TODO: Possibly by getting highest expected from IdProvider
                 TreeNode.goTo( cursor, "sibling", pointerId );
                 lastFollowedPointerGeneration = pointerGeneration;
+                if ( !isInternal )
+                {
+                    monitor.leafPage( pointerId );
+                }
                 if ( first )
                 {
                     // Have not yet found first hit among leaves.
@@ -1031,6 +1138,10 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
                     TreeNode.goTo( cursor, "sibling", pointerId );
                     verifyExpectedFirstAfterGoToNext = true;
                     lastFollowedPointerGeneration = pointerGeneration;
+                    if ( !isInternal )
+                    {
+                        monitor.leafPage( pointerId );
+                    }
                 }
                 else
                 {
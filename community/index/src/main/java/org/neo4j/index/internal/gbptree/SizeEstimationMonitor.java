@@ -50,6 +50,11 @@ class SizeEstimationMonitor implements SeekCursor.Monitor
         }
     }
 
+    @Override
+    public void leafPage( long pageId )
+    {   // no-op
+    }
+
     void clear()
     {
         treeDepth = DEPTH_NOT_DECIDED;
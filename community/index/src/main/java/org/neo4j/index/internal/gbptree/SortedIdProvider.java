@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+
+/**
+ * {@link IdProvider} handing out ids in ascending order from a pool of ids acquired up front from another {@link IdProvider},
+ * such that nodes allocated one after the other, e.g. leaves written left to right, end up in ascending page order in the file.
+ * Falls back to the delegate when the pool runs out. Every {@link #IO_LIMIT_INTERVAL} handed out ids the {@link IOLimiter} is consulted.
+ * Ids which are still pooled when done are given back to the delegate with {@link #releaseUnused(long, long, PageCursorTracer)}.
+ */
+class SortedIdProvider implements IdProvider
+{
+    static final int IO_LIMIT_INTERVAL = 64;
+
+    private final IdProvider delegate;
+    private final MutableLongList pool;
+    private final IOLimiter ioLimiter;
+    private final Flushable flushable;
+    private int nextPooled;
+    private int sinceLastLimit;
+    private long ioStamp = IOLimiter.INITIAL_STAMP;
+
+    private SortedIdProvider( IdProvider delegate, MutableLongList pool, IOLimiter ioLimiter, Flushable flushable )
+    {
+        this.delegate = delegate;
+        this.pool = pool.sortThis();
+        this.ioLimiter = ioLimiter;
+        this.flushable = flushable;
+    }
+
+    /**
+     * Acquires up to {@code count} ids from {@code delegate} into the pool of a new {@link SortedIdProvider}. Stops at the first id
+     * which grows the file, i.e. once the delegate has no more free ids to reuse, since the ids after that are in order anyway.
+     */
+    static SortedIdProvider acquire( IdProvider delegate, int count, long stableGeneration, long unstableGeneration, IOLimiter ioLimiter, Flushable flushable,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        MutableLongList pool = new LongArrayList( count );
+        boolean success = false;
+        try
+        {
+            long lastReusableId = delegate.lastId();
+            for ( int i = 0; i < count; i++ )
+            {
+                long id = delegate.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+                pool.add( id );
+                if ( id > lastReusableId )
+                {
+                    break;
+                }
+            }
+            success = true;
+        }
+        finally
+        {
+            if ( !success )
+            {
+                for ( int i = 0; i < pool.size(); i++ )
+                {
+                    delegate.releaseId( stableGeneration, unstableGeneration, pool.get( i ), cursorTracer );
+                }
+            }
+        }
+        return new SortedIdProvider( delegate, pool, ioLimiter, flushable );
+    }
+
+    @Override
+    public long acquireNewId( long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( ++sinceLastLimit == IO_LIMIT_INTERVAL )
+        {
+            ioStamp = ioLimiter.maybeLimitIO( ioStamp, sinceLastLimit, flushable );
+            sinceLastLimit = 0;
+        }
+        if ( nextPooled < pool.size() )
+        {
+            return pool.get( nextPooled++ );
+        }
+        return delegate.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+    }
+
+    @Override
+    public void releaseId( long stableGeneration, long unstableGeneration, long id, PageCursorTracer cursorTracer ) throws IOException
+    {
+        delegate.releaseId( stableGeneration, unstableGeneration, id, cursorTracer );
+    }
+
+    /**
+     * Releases the pooled ids which haven't been handed out back to the delegate.
+     */
+    void releaseUnused( long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        while ( nextPooled < pool.size() )
+        {
+            delegate.releaseId( stableGeneration, unstableGeneration, pool.get( nextPooled++ ), cursorTracer );
+        }
+    }
+
+    @Override
+    public void visitFreelist( IdProviderVisitor visitor, PageCursorTracer cursorTracer ) throws IOException
+    {
+        delegate.visitFreelist( visitor, cursorTracer );
+    }
+
+    @Override
+    public long lastId()
+    {
+        return delegate.lastId();
+    }
+}
@@ -0,0 +1,803 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
+import org.neo4j.io.pagecache.CursorException;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+
+import static java.lang.String.format;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractKeySize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractOffload;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.getOverhead;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.putKeySize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.putKeyValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.putOffloadId;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.readKeyValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.readOffloadId;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+
+/**
+ * {@link TreeNodeDynamicSize} where inline keys in leaves are stored against a prefix common to all keys in the leaf.
+ * <p>
+ * Internal nodes are identical to {@link TreeNodeDynamicSize}. Leaves have one additional header field, PREFIXOFFSET,
+ * placed directly after DEADSPACE, which points to the prefix of the leaf:
+ * <pre>
+ * # = empty space
+ * P = prefix entry, [keySize][prefix bytes], not referenced from the offset array
+ * K* = offset to suffix entry of key or offloaded entry
+ * Ks = suffix entry, [keyValueSize][key bytes after the prefix][value bytes]
+ *
+ * [                         HEADER                               ]|[  OFFSET ARRAY  ]|[ ALLOC SPACE ]|[    KEY VALUES     ]
+ * [NODETYPE][GEN][KEYCOUNT][ALLOCOFFSET][DEADSPACE][PREFIXOFFSET]|[K0*,K1*,K2*,...]|[#############]|[K2s,K0s,P,...,K1s]
+ * </pre>
+ * PREFIXOFFSET is 0 if the leaf has no prefix, in which case suffix entries hold the whole key and the leaf is read exactly like
+ * a leaf in {@link TreeNodeDynamicSize}. Offloaded entries always store their key in full in the offload store.
+ * <p>
+ * A prefix is chosen when a leaf is rewritten, i.e. when it is defragmented, split, rebalanced or merged, or when a key that
+ * doesn't share the current prefix is inserted. It is the longest prefix shared by all inline keys, leaving at least one byte
+ * of every key as suffix, and only used if it makes the leaf smaller. Keys inserted between rewrites that share the current
+ * prefix are written as suffix entries directly into alloc space.
+ * <p>
+ * Readers reconstruct the key by concatenating prefix and suffix in a thread local buffer which is then handed to
+ * {@link Layout#readKey(PageCursor, Object, int)}, so layouts need not know about prefix compression at all.
+ */
+class TreeNodeDynamicSizePrefixCompressed<KEY,VALUE> extends TreeNodeDynamicSize<KEY,VALUE>
+{
+    static final byte FORMAT_IDENTIFIER = 4;
+    static final byte FORMAT_VERSION = 0;
+
+    private static final int NO_PREFIX = 0;
+    private static final int OFFLOADED = -2;
+    private static final ThreadLocal<KeyBuffer> READ_BUFFERS = ThreadLocal.withInitial( KeyBuffer::new );
+
+    private final int bytePosPrefixOffset;
+    // Below are only used by the single writer
+    private final KeyBuffer writeBuffer = new KeyBuffer();
+    private final KeyBuffer prefixBuffer = new KeyBuffer();
+    private final Entries entries = new Entries();
+    private final KEY splitKeyLeft;
+    private final KEY splitKeyRight;
+
+    TreeNodeDynamicSizePrefixCompressed( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore )
+    {
+        super( pageSize, layout, offloadStore, selectOffsetFormat( pageSize ).offsetSize() );
+        this.bytePosPrefixOffset = offsetFormat.getHeaderLength();
+        this.splitKeyLeft = layout.newKey();
+        this.splitKeyRight = layout.newKey();
+    }
+
+    @Override
+    void writeAdditionalHeader( PageCursor cursor )
+    {
+        super.writeAdditionalHeader( cursor );
+        setPrefixOffset( cursor, NO_PREFIX );
+    }
+
+    /**
+     * Suffix entries can be as small as a single byte key size and a single byte suffix, so a leaf can hold more keys than
+     * the entries of {@link TreeNodeDynamicSize} allow for.
+     */
+    @Override
+    boolean reasonableKeyCount( int keyCount )
+    {
+        return keyCount >= 0 && keyCount <= totalSpace / (offsetFormat.offsetSize() + 2);
+    }
+
+    @Override
+    KEY keyAt( PageCursor cursor, KEY into, int pos, Type type, PageCursorTracer cursorTracer )
+    {
+        if ( type == LEAF )
+        {
+            int prefixOffset = getPrefixOffset( cursor );
+            if ( prefixOffset != NO_PREFIX && readPrefixedKey( cursor, prefixOffset, into, pos ) != OFFLOADED )
+            {
+                return into;
+            }
+        }
+        return super.keyAt( cursor, into, pos, type, cursorTracer );
+    }
+
+    @Override
+    void keyValueAt( PageCursor cursor, KEY intoKey, VALUE intoValue, int pos, PageCursorTracer cursorTracer )
+    {
+        int prefixOffset = getPrefixOffset( cursor );
+        if ( prefixOffset != NO_PREFIX )
+        {
+            int valueSize = readPrefixedKey( cursor, prefixOffset, intoKey, pos );
+            if ( valueSize != OFFLOADED )
+            {
+                if ( valueSize >= 0 )
+                {
+                    layout.readValue( cursor, intoValue, valueSize );
+                }
+                return;
+            }
+        }
+        super.keyValueAt( cursor, intoKey, intoValue, pos, cursorTracer );
+    }
+
+    /**
+     * Reads the key at {@code pos} by concatenating the prefix of the leaf and the suffix stored in the entry.
+     * Leaves the cursor at the value of the entry.
+     *
+     * @return size of the value of the entry, {@link #OFFLOADED} if the entry is offloaded, in which case nothing has been read,
+     * or -1 if the entry could not be read reliably, in which case a cursor exception has been set. That includes the layout
+     * failing to read the key from the concatenated bytes.
+     */
+    private int readPrefixedKey( PageCursor cursor, int prefixOffset, KEY into, int pos )
+    {
+        placeCursorAtActualKey( cursor, pos, LEAF );
+        long keyValueSize = readKeyValueSize( cursor, msbIsOffload );
+        if ( extractOffload( keyValueSize ) )
+        {
+            return OFFLOADED;
+        }
+        int suffixOffset = cursor.getOffset();
+        int suffixSize = extractKeySize( keyValueSize );
+        int valueSize = extractValueSize( keyValueSize );
+
+        if ( prefixOffset < getHeaderLength() || prefixOffset >= pageSize )
+        {
+            cursor.setCursorException( format( "Tried to read key prefix on offset=%d, headerLength=%d, pageSize=%d, pos=%d",
+                    prefixOffset, getHeaderLength(), pageSize, pos ) );
+            return -1;
+        }
+        cursor.setOffset( prefixOffset );
+        int prefixLength = extractKeySize( readKeyValueSize( cursor, msbIsOffload ) );
+        int keySize = prefixLength + suffixSize;
+        if ( keyValueSizeTooLarge( keySize, valueSize ) || suffixSize < 0 || valueSize < 0 )
+        {
+            readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
+            return -1;
+        }
+
+        KeyBuffer buffer = READ_BUFFERS.get();
+        byte[] bytes = buffer.bytes( keySize );
+        cursor.getBytes( bytes, 0, prefixLength );
+        cursor.setOffset( suffixOffset );
+        cursor.getBytes( bytes, prefixLength, suffixSize );
+        PageCursor keyCursor = buffer.cursor();
+        try
+        {
+            layout.readKey( keyCursor, into, keySize );
+            keyCursor.checkAndClearCursorException();
+        }
+        catch ( CursorException e )
+        {
+            cursor.setCursorException( e.getMessage() );
+            return -1;
+        }
+        catch ( BufferUnderflowException | IndexOutOfBoundsException e )
+        {
+            // Unlike a page, the key buffer can't flag reads out of bounds. Such reads are either made while the leaf changes
+            // under our feet, in which case the caller retries the read, or the leaf is broken.
+            cursor.setCursorException( format( "Tried to read key beyond its keySize=%d, prefixLength=%d, pos=%d", keySize, prefixLength, pos ) );
+            return -1;
+        }
+        return valueSize;
+    }
+
+    @Override
+    void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        int keySize = layout.keySize( key );
+        int valueSize = layout.valueSize( value );
+        if ( !canInline( keySize + valueSize ) )
+        {
+            // Offloaded entries don't care about the prefix, only make sure there is room for the entry itself
+            if ( bytesKeyOffset() + getOverhead( keySize, valueSize, true ) > getAllocSpace( cursor, keyCount, LEAF ) )
+            {
+                defragmentLeaf( cursor );
+            }
+            super.insertKeyValueAt( cursor, key, value, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer );
+            return;
+        }
+
+        byte[] keyBytes = serialize( key, value, keySize );
+        int prefixLength = readPrefix( cursor, prefixBuffer );
+        if ( sharesPrefix( keyBytes, keySize, prefixLength ) )
+        {
+            int suffixSize = keySize - prefixLength;
+            int entrySize = getOverhead( suffixSize, valueSize, false ) + suffixSize + valueSize;
+            if ( bytesKeyOffset() + entrySize <= getAllocSpace( cursor, keyCount, LEAF ) )
+            {
+                int newKeyValueOffset = getAllocOffset( cursor ) - entrySize;
+                cursor.setOffset( newKeyValueOffset );
+                putKeyValueSize( cursor, suffixSize, valueSize, false );
+                cursor.putBytes( keyBytes, prefixLength, suffixSize + valueSize );
+                setAllocOffset( cursor, newKeyValueOffset );
+
+                insertSlotsAt( cursor, pos, 1, keyCount, keyPosOffsetLeaf( 0 ), bytesKeyOffset() );
+                cursor.setOffset( keyPosOffsetLeaf( pos ) );
+                offsetFormat.putOffset( cursor, newKeyValueOffset );
+                return;
+            }
+        }
+
+        // Either the key doesn't share the prefix or there's not enough room for it as it is, rewrite the leaf with the new entry
+        entries.clear();
+        entries.read( cursor, keyCount );
+        entries.insertInline( pos, keyBytes, keySize, valueSize );
+        writeLeaf( cursor, 0, entries.count );
+    }
+
+    @Override
+    Overflow leafOverflow( PageCursor cursor, int currentKeyCount, KEY newKey, VALUE newValue )
+    {
+        int keySize = layout.keySize( newKey );
+        int valueSize = layout.valueSize( newValue );
+        int allocSpace = getAllocSpace( cursor, currentKeyCount, LEAF );
+        boolean inline = canInline( keySize + valueSize );
+        if ( inline )
+        {
+            byte[] keyBytes = serialize( newKey, newValue, keySize );
+            int prefixLength = readPrefix( cursor, prefixBuffer );
+            int suffixSize = keySize - prefixLength;
+            if ( sharesPrefix( keyBytes, keySize, prefixLength ) &&
+                    bytesKeyOffset() + getOverhead( suffixSize, valueSize, false ) + suffixSize + valueSize <= allocSpace )
+            {
+                return Overflow.NO;
+            }
+        }
+        else if ( bytesKeyOffset() + getOverhead( keySize, valueSize, true ) <= allocSpace )
+        {
+            return Overflow.NO;
+        }
+
+        // The leaf would need to be rewritten to fit the new entry, see if it fits when it is
+        entries.clear();
+        entries.read( cursor, currentKeyCount );
+        if ( inline )
+        {
+            entries.insertInline( currentKeyCount, writeBuffer.bytes, keySize, valueSize );
+        }
+        else
+        {
+            entries.insertOffloaded( currentKeyCount, NO_OFFLOAD_ID );
+        }
+        return entries.space( 0, entries.count ) <= totalSpace ? Overflow.NO : Overflow.YES;
+    }
+
+    @Override
+    void defragmentLeaf( PageCursor cursor )
+    {
+        entries.clear();
+        entries.read( cursor, keyCount( cursor ) );
+        writeLeaf( cursor, 0, entries.count );
+    }
+
+    @Override
+    int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        entries.clear();
+        entries.read( leftCursor, leftKeyCount );
+        entries.read( rightCursor, rightKeyCount );
+        int count = entries.count;
+        if ( entries.space( 0, count ) < totalSpace )
+        {
+            // We can merge
+            return -1;
+        }
+        int leftActiveSpace = entries.space( 0, leftKeyCount );
+        int rightActiveSpace = entries.space( leftKeyCount, count );
+        if ( leftActiveSpace < rightActiveSpace )
+        {
+            // Moving keys to the right will only create more imbalance
+            return 0;
+        }
+
+        // Space of each side depends on the prefix of that side, so it needs to be recalculated for every candidate
+        int currentDelta = leftActiveSpace - rightActiveSpace;
+        int keysToMove = 0;
+        while ( keysToMove < leftKeyCount - 1 )
+        {
+            int candidateLeft = entries.space( 0, leftKeyCount - keysToMove - 1 );
+            int candidateRight = entries.space( leftKeyCount - keysToMove - 1, count );
+            int candidateDelta = Math.abs( candidateLeft - candidateRight );
+            if ( candidateDelta >= currentDelta )
+            {
+                break;
+            }
+            keysToMove++;
+            currentDelta = candidateDelta;
+            leftActiveSpace = candidateLeft;
+            rightActiveSpace = candidateRight;
+        }
+
+        int halfSpace = this.halfSpace;
+        boolean canRebalance = leftActiveSpace > halfSpace && rightActiveSpace > halfSpace && rightActiveSpace <= totalSpace;
+        return canRebalance ? keysToMove : 0;
+    }
+
+    @Override
+    boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        entries.clear();
+        entries.read( leftCursor, leftKeyCount );
+        entries.read( rightCursor, rightKeyCount );
+        return entries.space( 0, entries.count ) <= totalSpace;
+    }
+
+    @Override
+    void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos, KEY newKey,
+            VALUE newValue, KEY newSplitter, double ratioToKeepInLeftOnSplit, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        entries.clear();
+        entries.read( leftCursor, leftKeyCount );
+        int keySize = layout.keySize( newKey );
+        int valueSize = layout.valueSize( newValue );
+        if ( canInline( keySize + valueSize ) )
+        {
+            entries.insertInline( insertPos, serialize( newKey, newValue, keySize ), keySize, valueSize );
+        }
+        else
+        {
+            entries.insertOffloaded( insertPos, offloadStore.writeKeyValue( newKey, newValue, stableGeneration, unstableGeneration, cursorTracer ) );
+        }
+
+        int splitPos = splitPosInLeaf( ratioToKeepInLeftOnSplit );
+        KEY leftInSplit = splitPos - 1 == insertPos ? newKey : entries.readKey( splitPos - 1, splitKeyLeft, cursorTracer );
+        KEY rightInSplit = splitPos == insertPos ? newKey : entries.readKey( splitPos, splitKeyRight, cursorTracer );
+        layout.minimalSplitter( leftInSplit, rightInSplit, newSplitter );
+
+        writeLeaf( rightCursor, splitPos, entries.count );
+        writeLeaf( leftCursor, 0, splitPos );
+    }
+
+    /**
+     * Split position among current {@link #entries}, aiming for {@code ratioToKeepInLeftOnSplit} of total space in left leaf.
+     * Sizes are first estimated against the prefix shared by all entries, which neither side can do worse than,
+     * and verified with the actual prefix of each side.
+     */
+    private int splitPosInLeaf( double ratioToKeepInLeftOnSplit )
+    {
+        int count = entries.count;
+        int commonPrefixLength = entries.prefixLength( 0, count );
+        int prefixSpace = commonPrefixLength == 0 ? 0 : prefixEntrySize( commonPrefixLength );
+        int targetLeftSpace = (int) (totalSpace * ratioToKeepInLeftOnSplit);
+
+        int bestSplitPos = -1;
+        int bestDelta = Integer.MAX_VALUE;
+        int leftSpace = prefixSpace;
+        int rightSpace = prefixSpace;
+        for ( int i = 0; i < count; i++ )
+        {
+            rightSpace += entries.entrySpace( i, commonPrefixLength );
+        }
+        for ( int splitPos = 1; splitPos < count; splitPos++ )
+        {
+            int entrySpace = entries.entrySpace( splitPos - 1, commonPrefixLength );
+            leftSpace += entrySpace;
+            rightSpace -= entrySpace;
+            int delta = Math.abs( leftSpace - targetLeftSpace );
+            if ( leftSpace <= totalSpace && rightSpace <= totalSpace && delta < bestDelta )
+            {
+                bestSplitPos = splitPos;
+                bestDelta = delta;
+            }
+        }
+        if ( bestSplitPos != -1 && fits( bestSplitPos ) )
+        {
+            return bestSplitPos;
+        }
+
+        // Estimate was off, fall back to checking all candidates properly
+        bestSplitPos = -1;
+        bestDelta = Integer.MAX_VALUE;
+        for ( int splitPos = 1; splitPos < count; splitPos++ )
+        {
+            int delta = Math.abs( entries.space( 0, splitPos ) - targetLeftSpace );
+            if ( delta < bestDelta && fits( splitPos ) )
+            {
+                bestSplitPos = splitPos;
+                bestDelta = delta;
+            }
+        }
+        if ( bestSplitPos == -1 )
+        {
+            throw new IllegalStateException( format( "Could not find a split position among %d entries that fits in two leaves, totalSpace=%d",
+                    count, totalSpace ) );
+        }
+        return bestSplitPos;
+    }
+
+    private boolean fits( int splitPos )
+    {
+        return entries.space( 0, splitPos ) <= totalSpace && entries.space( splitPos, entries.count ) <= totalSpace;
+    }
+
+    @Override
+    void moveKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount,
+            int fromPosInLeftNode )
+    {
+        entries.clear();
+        entries.read( leftCursor, leftKeyCount );
+        entries.read( rightCursor, rightKeyCount );
+        writeLeaf( rightCursor, fromPosInLeftNode, entries.count );
+        writeLeaf( leftCursor, 0, fromPosInLeftNode );
+    }
+
+    @Override
+    void copyKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        entries.clear();
+        entries.read( leftCursor, leftKeyCount );
+        entries.read( rightCursor, rightKeyCount );
+        writeLeaf( rightCursor, 0, entries.count );
+    }
+
+    @Override
+    String checkMetaConsistency( PageCursor cursor, int keyCount, Type type, GBPTreeConsistencyCheckVisitor<KEY> visitor )
+    {
+        String inconsistency = super.checkMetaConsistency( cursor, keyCount, type, visitor );
+        int prefixOffset = getPrefixOffset( cursor );
+        if ( prefixOffset != NO_PREFIX && (type != LEAF || prefixOffset < getAllocOffset( cursor ) || prefixOffset >= pageSize) )
+        {
+            String prefixInconsistency = format( "Misplaced key prefix, type=%s, prefixOffset=%d, allocOffset=%d",
+                    type, prefixOffset, getAllocOffset( cursor ) );
+            return inconsistency.isEmpty()
+                   ? "Meta data for tree node is inconsistent, id=" + cursor.getCurrentPageId() + ": " + prefixInconsistency
+                   : inconsistency + ", " + prefixInconsistency;
+        }
+        return inconsistency;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNodeDynamicSizePrefixCompressed[pageSize:" + pageSize + ", keyValueSizeCap:" + keyValueSizeCap() +
+                ", inlineKeyValueSizeCap:" + inlineKeyValueSizeCap() + "]";
+    }
+
+    /**
+     * Rewrite leaf at {@code cursor} with {@link #entries} in range [from, to), using the prefix that makes the leaf smallest.
+     * Updates alloc offset, dead space, prefix offset and key count.
+     */
+    private void writeLeaf( PageCursor cursor, int from, int to )
+    {
+        int prefixLength = entries.prefixLength( from, to );
+        int space = entries.space( from, to, prefixLength );
+        if ( space > totalSpace )
+        {
+            throw new IllegalStateException( format( "Entries in range [%d,%d) need %d bytes, which doesn't fit in leaf with totalSpace=%d",
+                    from, to, space, totalSpace ) );
+        }
+
+        int allocOffset = pageSize;
+        int prefixOffset = NO_PREFIX;
+        if ( prefixLength > 0 )
+        {
+            allocOffset -= prefixEntrySize( prefixLength );
+            prefixOffset = allocOffset;
+            cursor.setOffset( allocOffset );
+            putKeySize( cursor, prefixLength, false );
+            cursor.putBytes( entries.data, entries.dataOffsets[entries.firstInline( from, to )], prefixLength );
+        }
+        for ( int i = from; i < to; i++ )
+        {
+            allocOffset -= entries.entrySpace( i, prefixLength ) - bytesKeyOffset();
+            cursor.setOffset( allocOffset );
+            if ( entries.isOffloaded( i ) )
+            {
+                putKeyValueSize( cursor, 0, 0, true );
+                putOffloadId( cursor, entries.offloadIds[i] );
+            }
+            else
+            {
+                int suffixSize = entries.keySizes[i] - prefixLength;
+                putKeyValueSize( cursor, suffixSize, entries.valueSizes[i], false );
+                cursor.putBytes( entries.data, entries.dataOffsets[i] + prefixLength, suffixSize + entries.valueSizes[i] );
+            }
+            cursor.setOffset( keyPosOffsetLeaf( i - from ) );
+            offsetFormat.putOffset( cursor, allocOffset );
+        }
+
+        int offsetArrayEnd = keyPosOffsetLeaf( to - from );
+        zeroPad( cursor, offsetArrayEnd, allocOffset - offsetArrayEnd );
+        setAllocOffset( cursor, allocOffset );
+        setDeadSpace( cursor, 0 );
+        setPrefixOffset( cursor, prefixOffset );
+        setKeyCount( cursor, to - from );
+    }
+
+    /**
+     * Serialize key followed by value into {@link #writeBuffer}.
+     * @return the bytes of {@link #writeBuffer}.
+     */
+    private byte[] serialize( KEY key, VALUE value, int keySize )
+    {
+        byte[] bytes = writeBuffer.bytes( keySize + layout.valueSize( value ) );
+        PageCursor cursor = writeBuffer.cursor();
+        layout.writeKey( cursor, key );
+        layout.writeValue( cursor, value );
+        return bytes;
+    }
+
+    /**
+     * Read prefix of leaf at {@code cursor} into the beginning of {@code into}. Only to be used by the writer.
+     * @return length of the prefix, 0 if leaf has no prefix.
+     */
+    private int readPrefix( PageCursor cursor, KeyBuffer into )
+    {
+        int prefixOffset = getPrefixOffset( cursor );
+        if ( prefixOffset == NO_PREFIX )
+        {
+            return 0;
+        }
+        cursor.setOffset( prefixOffset );
+        int prefixLength = extractKeySize( readKeyValueSize( cursor, msbIsOffload ) );
+        cursor.getBytes( into.bytes( prefixLength ), 0, prefixLength );
+        return prefixLength;
+    }
+
+    private boolean sharesPrefix( byte[] keyBytes, int keySize, int prefixLength )
+    {
+        return prefixLength == 0 ||
+                keySize > prefixLength && Arrays.equals( keyBytes, 0, prefixLength, prefixBuffer.bytes, 0, prefixLength );
+    }
+
+    private int getPrefixOffset( PageCursor cursor )
+    {
+        return offsetFormat.getOffset( cursor, bytePosPrefixOffset );
+    }
+
+    private void setPrefixOffset( PageCursor cursor, int prefixOffset )
+    {
+        offsetFormat.putOffset( cursor, bytePosPrefixOffset, prefixOffset );
+    }
+
+    private static int prefixEntrySize( int prefixLength )
+    {
+        return getOverhead( prefixLength, 0, false ) + prefixLength;
+    }
+
+    /**
+     * Growable byte array with a {@link PageCursor} on top of it, used to serialize and deserialize whole keys.
+     */
+    private static class KeyBuffer
+    {
+        private byte[] bytes = new byte[0];
+        private PageCursor cursor;
+
+        byte[] bytes( int capacity )
+        {
+            if ( cursor == null || bytes.length < capacity )
+            {
+                bytes = new byte[Math.max( capacity, bytes.length * 2 )];
+                cursor = ByteArrayPageCursor.wrap( bytes );
+            }
+            return bytes;
+        }
+
+        PageCursor cursor()
+        {
+            cursor.setOffset( 0 );
+            return cursor;
+        }
+    }
+
+    /**
+     * Entries of one or more leaves materialized on heap with whole keys, such that leaves can be rewritten with a new prefix.
+     * Offloaded entries only keep their offload id.
+     */
+    private class Entries
+    {
+        private int count;
+        private int[] keySizes = new int[16];
+        private int[] valueSizes = new int[16];
+        private int[] dataOffsets = new int[16];
+        private long[] offloadIds = new long[16];
+        private byte[] data = new byte[1024];
+        private int dataLength;
+
+        void clear()
+        {
+            count = 0;
+            dataLength = 0;
+        }
+
+        /**
+         * Append all entries of leaf at {@code cursor}, with their whole keys.
+         */
+        void read( PageCursor cursor, int keyCount )
+        {
+            int prefixLength = readPrefix( cursor, prefixBuffer );
+            for ( int pos = 0; pos < keyCount; pos++ )
+            {
+                placeCursorAtActualKey( cursor, pos, LEAF );
+                long keyValueSize = readKeyValueSize( cursor, msbIsOffload );
+                int index = makeRoom( count );
+                if ( extractOffload( keyValueSize ) )
+                {
+                    setOffloaded( index, readOffloadId( cursor ) );
+                }
+                else
+                {
+                    int suffixSize = extractKeySize( keyValueSize );
+                    int valueSize = extractValueSize( keyValueSize );
+                    int dataOffset = allocateData( prefixLength + suffixSize + valueSize );
+                    System.arraycopy( prefixBuffer.bytes, 0, data, dataOffset, prefixLength );
+                    cursor.getBytes( data, dataOffset + prefixLength, suffixSize + valueSize );
+                    setInline( index, dataOffset, prefixLength + suffixSize, valueSize );
+                }
+            }
+        }
+
+        void insertInline( int pos, byte[] keyValueBytes, int keySize, int valueSize )
+        {
+            int index = makeRoom( pos );
+            int dataOffset = allocateData( keySize + valueSize );
+            System.arraycopy( keyValueBytes, 0, data, dataOffset, keySize + valueSize );
+            setInline( index, dataOffset, keySize, valueSize );
+        }
+
+        void insertOffloaded( int pos, long offloadId )
+        {
+            setOffloaded( makeRoom( pos ), offloadId );
+        }
+
+        boolean isOffloaded( int index )
+        {
+            return keySizes[index] == -1;
+        }
+
+        KEY readKey( int index, KEY into, PageCursorTracer cursorTracer ) throws IOException
+        {
+            if ( isOffloaded( index ) )
+            {
+                offloadStore.readKey( offloadIds[index], into, cursorTracer );
+            }
+            else
+            {
+                layout.readKey( ByteArrayPageCursor.wrap( data, dataOffsets[index], keySizes[index] ), into, keySizes[index] );
+            }
+            return into;
+        }
+
+        /**
+         * @return total space, including offset array, needed by entries in range [from, to) when written using the best prefix.
+         */
+        int space( int from, int to )
+        {
+            return space( from, to, prefixLength( from, to ) );
+        }
+
+        private int space( int from, int to, int prefixLength )
+        {
+            int space = prefixLength == 0 ? 0 : prefixEntrySize( prefixLength );
+            for ( int i = from; i < to; i++ )
+            {
+                space += entrySpace( i, prefixLength );
+            }
+            return space;
+        }
+
+        /**
+         * @return space needed by entry at {@code index}, including its slot in the offset array, if its key is stored against
+         * a prefix of given length.
+         */
+        int entrySpace( int index, int prefixLength )
+        {
+            if ( isOffloaded( index ) )
+            {
+                return bytesKeyOffset() + getOverhead( 0, 0, true );
+            }
+            int suffixSize = keySizes[index] - prefixLength;
+            return bytesKeyOffset() + getOverhead( suffixSize, valueSizes[index], false ) + suffixSize + valueSizes[index];
+        }
+
+        /**
+         * @return length of the prefix to use for entries in range [from, to), i.e. longest common prefix of all inline keys
+         * leaving at least one byte of suffix, or 0 if using a prefix doesn't save any space.
+         */
+        int prefixLength( int from, int to )
+        {
+            int first = firstInline( from, to );
+            if ( first == -1 )
+            {
+                return 0;
+            }
+            int firstOffset = dataOffsets[first];
+            int prefixLength = keySizes[first] - 1;
+            for ( int i = first + 1; i < to && prefixLength > 0; i++ )
+            {
+                if ( !isOffloaded( i ) )
+                {
+                    int maxLength = Math.min( prefixLength, keySizes[i] - 1 );
+                    int offset = dataOffsets[i];
+                    int length = 0;
+                    while ( length < maxLength && data[firstOffset + length] == data[offset + length] )
+                    {
+                        length++;
+                    }
+                    prefixLength = length;
+                }
+            }
+            return prefixLength > 0 && space( from, to, prefixLength ) < space( from, to, 0 ) ? prefixLength : 0;
+        }
+
+        int firstInline( int from, int to )
+        {
+            for ( int i = from; i < to; i++ )
+            {
+                if ( !isOffloaded( i ) )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int makeRoom( int pos )
+        {
+            if ( count == keySizes.length )
+            {
+                int newLength = count * 2;
+                keySizes = Arrays.copyOf( keySizes, newLength );
+                valueSizes = Arrays.copyOf( valueSizes, newLength );
+                dataOffsets = Arrays.copyOf( dataOffsets, newLength );
+                offloadIds = Arrays.copyOf( offloadIds, newLength );
+            }
+            int toMove = count - pos;
+            System.arraycopy( keySizes, pos, keySizes, pos + 1, toMove );
+            System.arraycopy( valueSizes, pos, valueSizes, pos + 1, toMove );
+            System.arraycopy( dataOffsets, pos, dataOffsets, pos + 1, toMove );
+            System.arraycopy( offloadIds, pos, offloadIds, pos + 1, toMove );
+            count++;
+            return pos;
+        }
+
+        private int allocateData( int length )
+        {
+            if ( dataLength + length > data.length )
+            {
+                data = Arrays.copyOf( data, Math.max( dataLength + length, data.length * 2 ) );
+            }
+            int offset = dataLength;
+            dataLength += length;
+            return offset;
+        }
+
+        private void setInline( int index, int dataOffset, int keySize, int valueSize )
+        {
+            keySizes[index] = keySize;
+            valueSizes[index] = valueSize;
+            dataOffsets[index] = dataOffset;
+            offloadIds[index] = NO_OFFLOAD_ID;
+        }
+
+        private void setOffloaded( int index, long offloadId )
+        {
+            keySizes[index] = -1;
+            valueSizes[index] = 0;
+            dataOffsets[index] = 0;
+            offloadIds[index] = offloadId;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive latches on tree nodes, used by parallel writers to make sure that no two writers change the same leaf at the same time.
+ * The latches are striped by tree node id, such that unrelated tree nodes may share a latch. Since a writer only ever holds one latch
+ * at a time this can not deadlock, it only costs some contention. Neighbouring tree nodes are often allocated with consecutive ids,
+ * which map to different stripes.
+ */
+class TreeNodeLatches
+{
+    private final Lock[] latches;
+    private final int mask;
+
+    TreeNodeLatches( int stripes )
+    {
+        if ( Integer.bitCount( stripes ) != 1 )
+        {
+            throw new IllegalArgumentException( "Number of stripes must be a power of two, but was " + stripes );
+        }
+        this.latches = new Lock[stripes];
+        for ( int i = 0; i < stripes; i++ )
+        {
+            latches[i] = new ReentrantLock();
+        }
+        this.mask = stripes - 1;
+    }
+
+    Lock latch( long treeNodeId )
+    {
+        return latches[(int) treeNodeId & mask];
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.TestDirectory;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.collections.impl.factory.Sets.immutable;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeBloomFilterTest
+{
+    private static final int COUNT = 2_000;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( 512 ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private PageCache pageCache;
+
+    private final SimpleLongLayout layout = SimpleLongLayout.longLayout().withBloomFilter( true ).build();
+    private final SimpleLongLayout layoutWithoutFilter = SimpleLongLayout.longLayout().build();
+
+    @Test
+    void shouldSkipExactSeeksForKeysNotInTree() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // given
+            insertEven( tree, 0, COUNT );
+
+            // when/then
+            assertFindsEvenAndNotOdd( tree, 0, COUNT );
+            assertThat( tree.bloomFilterPassedSeeks() ).isGreaterThanOrEqualTo( COUNT / 2 );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isGreaterThan( COUNT / 2 * 9 / 10 );
+        }
+    }
+
+    @Test
+    void shouldNotUseFilterForRangeSeeks() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // given
+            insertEven( tree, 0, COUNT );
+
+            // when
+            int count = 0;
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( new MutableLong( 1 ), new MutableLong( 2 ), NULL ) )
+            {
+                while ( seek.next() )
+                {
+                    count++;
+                }
+            }
+
+            // then
+            assertThat( count ).isZero();
+            assertThat( tree.bloomFilterSkippedSeeks() ).isZero();
+            assertThat( tree.bloomFilterPassedSeeks() ).isZero();
+        }
+    }
+
+    @Test
+    void shouldNotHaveFilterForLayoutNotAskingForOne() throws IOException
+    {
+        Path file = directory.file( "index" );
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layoutWithoutFilter ) )
+        {
+            insertEven( tree, 0, COUNT );
+            assertFindsEvenAndNotOdd( tree, 0, COUNT );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isZero();
+            assertThat( tree.bloomFilterPassedSeeks() ).isZero();
+        }
+        assertThat( fs.fileExists( BloomFilter.filterFile( file ) ) ).isFalse();
+    }
+
+    @Test
+    void shouldKeepFilterOverCleanRestart() throws IOException
+    {
+        // given
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            insertEven( tree, 0, COUNT );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+
+        // when
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // then
+            assertFindsEvenAndNotOdd( tree, 0, COUNT );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isGreaterThan( COUNT / 2 * 9 / 10 );
+        }
+    }
+
+    @Test
+    void shouldRebuildFilterOnDirtyRestart() throws IOException
+    {
+        // given
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            insertEven( tree, 0, COUNT );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            // closing without checkpoint after these changes leaves the tree dirty
+            insertEven( tree, COUNT, 2 * COUNT );
+        }
+
+        // when
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // then the keys of the last checkpoint are in the rebuilt filter and recovery can add the rest
+            assertFindsEvenAndNotOdd( tree, 0, COUNT );
+            insertEven( tree, COUNT, 2 * COUNT );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            assertFindsEvenAndNotOdd( tree, 0, 2 * COUNT );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isGreaterThan( COUNT * 9 / 10 );
+        }
+    }
+
+    @Test
+    void shouldRebuildFilterInBoundedStepsAfterCheckpoints() throws IOException
+    {
+        // given a dirty tree with more keys than are added to a filter in one step, which needs a filter sized for all of them
+        int count = BloomFilter.KEYS_PER_FILL_STEP + COUNT;
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            insertEven( tree, 0, 2 * count );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            insertEven( tree, 2 * count, 2 * count + 2 );
+        }
+
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // when
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+
+            // then there's no filter yet
+            assertFindsEvenAndNotOdd( tree, 0, COUNT );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isZero();
+
+            // when
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+
+            // then
+            assertFindsEvenAndNotOdd( tree, 2 * count - COUNT, 2 * count );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isGreaterThan( COUNT / 2 * 9 / 10 );
+        }
+    }
+
+    @Test
+    void shouldNotLoadFilterWrittenBeforeLastCheckpoint() throws IOException
+    {
+        // given a filter written at one checkpoint
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            insertEven( tree, 0, COUNT );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+        // and keys added at a later checkpoint, by something not maintaining the filter
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layoutWithoutFilter ) )
+        {
+            insertEven( tree, COUNT, 2 * COUNT );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+
+        // when
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // then
+            assertFindsEvenAndNotOdd( tree, 0, 2 * COUNT );
+        }
+    }
+
+    @Test
+    void shouldGrowSaturatedFilterToNumberOfKeysOnCheckpoint() throws IOException
+    {
+        int count = (int) (BloomFilter.MIN_NUMBER_OF_BITS / 2);
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // given
+            insertEven( tree, 0, 2 * count );
+
+            // when
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+
+            // then the filter has grown in one go to fit all the keys, not just doubled
+            assertFindsEvenAndNotOdd( tree, 0, 2 * count );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isGreaterThan( count * 99L / 100 );
+        }
+    }
+
+    @Test
+    void shouldNotGrowFilterBeyondMemoryBudget()
+    {
+        // when
+        BloomFilter filter = BloomFilter.forKeys( Long.MAX_VALUE, BloomFilter.MAX_NUMBER_OF_BITS );
+
+        // then
+        assertThat( filter.numberOfBits() ).isLessThanOrEqualTo( BloomFilter.MAX_MEGABYTES * 1024 * 1024 * Byte.SIZE );
+        assertThat( filter.grown().numberOfBits() ).isEqualTo( filter.numberOfBits() );
+        filter.add( 1 );
+        assertThat( filter.shouldGrow( Long.MAX_VALUE ) ).isFalse();
+    }
+
+    @Test
+    void shouldOnlyWriteChangedChunksOfWrittenFilter() throws IOException
+    {
+        // given
+        BloomFilter filter = BloomFilter.forKeys( 0, BloomFilter.MIN_NUMBER_OF_BITS * 16 );
+        try ( PagedFile file = pageCache.map( directory.file( "filter" ), pageCache.pageSize(), immutable.of( CREATE ) ) )
+        {
+            DefaultPageCacheTracer pageCacheTracer = new DefaultPageCacheTracer();
+            try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( "full" ) )
+            {
+                filter.write( file, 1, cursorTracer );
+            }
+            long fullWritePins = pageCacheTracer.pins();
+
+            // when
+            filter.add( 42 );
+            try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( "incremental" ) )
+            {
+                filter.write( file, 2, cursorTracer );
+            }
+
+            // then
+            assertThat( pageCacheTracer.pins() - fullWritePins ).isLessThan( fullWritePins / 4 );
+            BloomFilter read = BloomFilter.read( file, 2, NULL );
+            assertThat( read ).isNotNull();
+            assertThat( read.mightContain( 42 ) ).isTrue();
+            assertThat( read.numberOfBits() ).isEqualTo( filter.numberOfBits() );
+        }
+    }
+
+    @Test
+    void shouldAddBulkLoadedKeysToFilter() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            // given
+            try ( BulkLoader<MutableLong,MutableLong> bulkLoader = tree.bulkLoader( NULL ) )
+            {
+                for ( long key = 0; key < COUNT; key += 2 )
+                {
+                    bulkLoader.add( new MutableLong( key ), new MutableLong( key ) );
+                }
+            }
+
+            // when/then
+            assertFindsEvenAndNotOdd( tree, 0, COUNT );
+            assertThat( tree.bloomFilterSkippedSeeks() ).isGreaterThan( COUNT / 2 * 9 / 10 );
+        }
+    }
+
+    @Test
+    void shouldDeleteFilterFileTogetherWithTree() throws IOException
+    {
+        // given
+        Path file = directory.file( "index" );
+        try ( GBPTree<MutableLong,MutableLong> tree = tree( layout ) )
+        {
+            insertEven( tree, 0, COUNT );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            assertThat( fs.fileExists( BloomFilter.filterFile( file ) ) ).isTrue();
+
+            // when
+            tree.setDeleteOnClose( true );
+        }
+
+        // then
+        assertThat( fs.fileExists( file ) ).isFalse();
+        assertThat( fs.fileExists( BloomFilter.filterFile( file ) ) ).isFalse();
+    }
+
+    private GBPTree<MutableLong,MutableLong> tree( SimpleLongLayout layout )
+    {
+        return new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build();
+    }
+
+    private static void insertEven( GBPTree<MutableLong,MutableLong> tree, long from, long to ) throws IOException
+    {
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+        {
+            for ( long key = from; key < to; key += 2 )
+            {
+                writer.put( new MutableLong( key ), new MutableLong( key ) );
+            }
+        }
+    }
+
+    private static void assertFindsEvenAndNotOdd( GBPTree<MutableLong,MutableLong> tree, long from, long to ) throws IOException
+    {
+        for ( long key = from; key < to; key++ )
+        {
+            MutableLong searchKey = new MutableLong( key );
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( searchKey, searchKey, NULL ) )
+            {
+                boolean found = seek.next();
+                assertThat( found ).as( "key " + key ).isEqualTo( key % 2 == 0 );
+                if ( found )
+                {
+                    assertThat( seek.key().longValue() ).isEqualTo( key );
+                    assertThat( seek.next() ).isFalse();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.index.internal.gbptree.TreeNodeDynamicSize.keyValueSizeCapFromPageSize;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeBulkLoaderTest
+{
+    private static final int PAGE_SIZE = 512;
+    private static final int COUNT = 10_000;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( PAGE_SIZE ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+
+    enum LayoutType
+    {
+        FIXED_SIZE
+                {
+                    @Override
+                    TestLayout<?,?> create()
+                    {
+                        return SimpleLongLayout.longLayout().withFixedSize( true ).build();
+                    }
+                },
+        DYNAMIC_SIZE
+                {
+                    @Override
+                    TestLayout<?,?> create()
+                    {
+                        return SimpleLongLayout.longLayout().withFixedSize( false ).build();
+                    }
+                },
+        DYNAMIC_SIZE_WITH_LARGE_ENTRIES
+                {
+                    @Override
+                    TestLayout<?,?> create()
+                    {
+                        return new SimpleByteArrayLayout( keyValueSizeCapFromPageSize( PAGE_SIZE ) / 2, 7 );
+                    }
+                },
+        DYNAMIC_SIZE_PREFIX_COMPRESSED
+                {
+                    @Override
+                    TestLayout<?,?> create()
+                    {
+                        return new SimpleByteArrayLayout()
+                        {
+                            @Override
+                            public boolean compressKeyPrefixes()
+                            {
+                                return true;
+                            }
+                        };
+                    }
+                };
+
+        abstract TestLayout<?,?> create();
+    }
+
+    @ParameterizedTest
+    @EnumSource( LayoutType.class )
+    void shouldBulkLoadSortedEntries( LayoutType layoutType ) throws IOException
+    {
+        shouldBulkLoadSortedEntries( layoutType.create() );
+    }
+
+    private <KEY,VALUE> void shouldBulkLoadSortedEntries( TestLayout<KEY,VALUE> layout ) throws IOException
+    {
+        Path file = directory.file( "index" );
+        try ( GBPTree<KEY,VALUE> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            // when
+            try ( BulkLoader<KEY,VALUE> loader = tree.bulkLoader( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i++ )
+                {
+                    loader.add( layout.key( i ), layout.value( i ) );
+                }
+            }
+
+            // then
+            assertEntries( tree, layout, 0, COUNT, 1 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+
+        try ( GBPTree<KEY,VALUE> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            assertEntries( tree, layout, 0, COUNT, 1 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource( LayoutType.class )
+    void shouldAllowWritesAfterBulkLoad( LayoutType layoutType ) throws IOException
+    {
+        shouldAllowWritesAfterBulkLoad( layoutType.create() );
+    }
+
+    private <KEY,VALUE> void shouldAllowWritesAfterBulkLoad( TestLayout<KEY,VALUE> layout ) throws IOException
+    {
+        try ( GBPTree<KEY,VALUE> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // given every even key, bulk loaded
+            try ( BulkLoader<KEY,VALUE> loader = tree.bulkLoader( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i += 2 )
+                {
+                    loader.add( layout.key( i ), layout.value( i ) );
+                }
+            }
+
+            // when inserting every odd key into the densely packed leaves and then removing every even key
+            try ( Writer<KEY,VALUE> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 1; i < COUNT; i += 2 )
+                {
+                    writer.put( layout.key( i ), layout.value( i ) );
+                }
+            }
+            assertEntries( tree, layout, 0, COUNT, 1 );
+            try ( Writer<KEY,VALUE> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i += 2 )
+                {
+                    writer.remove( layout.key( i ) );
+                }
+            }
+
+            // then
+            assertEntries( tree, layout, 1, COUNT, 2 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @Test
+    void shouldPackLeavesDenserThanWriter() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( false ).build();
+        int writtenNodes;
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "written" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i++ )
+                {
+                    writer.put( layout.key( i ), layout.value( i ) );
+                }
+            }
+            writtenNodes = tree.visit( new InspectingVisitor<>(), NULL ).get().getTotalNodeCount();
+        }
+
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "loaded" ), layout ).build() )
+        {
+            try ( BulkLoader<MutableLong,MutableLong> loader = tree.bulkLoader( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i++ )
+                {
+                    loader.add( layout.key( i ), layout.value( i ) );
+                }
+            }
+            int loadedNodes = tree.visit( new InspectingVisitor<>(), NULL ).get().getTotalNodeCount();
+            assertThat( loadedNodes ).isLessThan( writtenNodes );
+        }
+    }
+
+    @Test
+    void shouldThrowOnKeysNotInAscendingOrder() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( BulkLoader<MutableLong,MutableLong> loader = tree.bulkLoader( NULL ) )
+            {
+                loader.add( layout.key( 10 ), layout.value( 10 ) );
+                loader.add( layout.key( 20 ), layout.value( 20 ) );
+                assertThatThrownBy( () -> loader.add( layout.key( 20 ), layout.value( 20 ) ) ).isInstanceOf( IllegalArgumentException.class );
+                assertThatThrownBy( () -> loader.add( layout.key( 30 ), layout.value( 30 ) ) ).isInstanceOf( IllegalStateException.class );
+            }
+
+            // then none of the entries are loaded
+            assertEntries( tree, layout, 0, 0, 1 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource( LayoutType.class )
+    void shouldReleaseBuiltNodesAndLeaveTreeEmptyIfAddFails( LayoutType layoutType ) throws IOException
+    {
+        shouldReleaseBuiltNodesAndLeaveTreeEmptyIfAddFails( layoutType.create() );
+    }
+
+    private <KEY,VALUE> void shouldReleaseBuiltNodesAndLeaveTreeEmptyIfAddFails( TestLayout<KEY,VALUE> layout ) throws IOException
+    {
+        try ( GBPTree<KEY,VALUE> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            long rootBefore = tree.visit( new InspectingVisitor<>(), NULL ).get().getRootNode();
+            try ( BulkLoader<KEY,VALUE> loader = tree.bulkLoader( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i++ )
+                {
+                    loader.add( layout.key( i ), layout.value( i ) );
+                }
+                assertThatThrownBy( () -> loader.add( layout.key( 0 ), layout.value( 0 ) ) ).isInstanceOf( IllegalArgumentException.class );
+            }
+
+            // then the tree is left as it was, with every node built before the failure released to the free-list
+            assertThat( tree.visit( new InspectingVisitor<>(), NULL ).get().getRootNode() ).isEqualTo( rootBefore );
+            assertEntries( tree, layout, 0, 0, 1 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+
+            // and the tree must still be writable
+            try ( Writer<KEY,VALUE> writer = tree.writer( NULL ) )
+            {
+                writer.put( layout.key( 1 ), layout.value( 1 ) );
+            }
+            assertEntries( tree, layout, 1, 2, 1 );
+        }
+    }
+
+    @Test
+    void shouldThrowOnNonEmptyTree() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                writer.put( layout.key( 1 ), layout.value( 1 ) );
+            }
+
+            assertThatThrownBy( () -> tree.bulkLoader( NULL ) ).isInstanceOf( IllegalStateException.class );
+
+            // and the tree must still be writable, i.e. the failed bulk loader must not hold on to the writer lock
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                writer.put( layout.key( 2 ), layout.value( 2 ) );
+            }
+            assertEntries( tree, layout, 1, 3, 1 );
+        }
+    }
+
+    @Test
+    void shouldLeaveTreeEmptyIfNothingAdded() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            long rootBefore = tree.visit( new InspectingVisitor<>(), NULL ).get().getRootNode();
+            tree.bulkLoader( NULL ).close();
+
+            GBPTreeInspection<MutableLong,MutableLong> inspection = tree.visit( new InspectingVisitor<>(), NULL ).get();
+            assertThat( inspection.getRootNode() ).isEqualTo( rootBefore );
+            assertEntries( tree, layout, 0, 0, 1 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    private static <KEY,VALUE> void assertEntries( GBPTree<KEY,VALUE> tree, TestLayout<KEY,VALUE> layout, long from, long to, long stride )
+            throws IOException
+    {
+        try ( Seeker<KEY,VALUE> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+        {
+            for ( long expected = from; expected < to; expected += stride )
+            {
+                assertThat( seek.next() ).isTrue();
+                assertThat( layout.keySeed( seek.key() ) ).isEqualTo( expected );
+                assertThat( layout.valueSeed( seek.value() ) ).isEqualTo( expected );
+            }
+            assertThat( seek.next() ).isFalse();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.eclipse.collections.api.list.primitive.ImmutableLongList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.index.internal.gbptree.GBPTreeBulkLoaderTest.LayoutType;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.TestDirectory;
+
+import static java.time.Duration.ofSeconds;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeCompactionTest
+{
+    private static final int PAGE_SIZE = 512;
+    private static final int COUNT = 10_000;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( PAGE_SIZE ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+
+    @ParameterizedTest
+    @EnumSource( LayoutType.class )
+    void shouldKeepEntriesAndPackLeavesInKeyOrder( LayoutType layoutType ) throws IOException
+    {
+        shouldKeepEntriesAndPackLeavesInKeyOrder( layoutType.create() );
+    }
+
+    private <KEY,VALUE> void shouldKeepEntriesAndPackLeavesInKeyOrder( TestLayout<KEY,VALUE> layout ) throws IOException
+    {
+        Path file = directory.file( "index" );
+        try ( GBPTree<KEY,VALUE> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            // given a tree written in random order, of which three quarters of the entries have been removed again
+            insertShuffledAndRemoveMost( tree, layout );
+            int nodesBefore = tree.visit( new InspectingVisitor<>(), NULL ).get().getTotalNodeCount();
+
+            // when
+            assertThat( tree.compact( 0, IOLimiter.UNLIMITED, NULL ) ).isTrue();
+
+            // then
+            GBPTreeInspection<KEY,VALUE> inspection = tree.visit( new InspectingVisitor<>(), NULL ).get();
+            assertThat( inspection.getTotalNodeCount() ).isLessThan( nodesBefore );
+            assertThat( inspection.getLeafNodes().toArray() ).isSorted();
+            assertEntries( tree, layout, 0, COUNT, 4 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+
+        try ( GBPTree<KEY,VALUE> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            assertEntries( tree, layout, 0, COUNT, 4 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @Test
+    void shouldNotCompactTreeLessFragmentedThanRequested() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            insertShuffledAndRemoveMost( tree, layout );
+            long rootBefore = tree.visit( new InspectingVisitor<>(), NULL ).get().getRootNode();
+            assertThat( tree.compact( 1, IOLimiter.UNLIMITED, NULL ) ).isFalse();
+            assertThat( tree.visit( new InspectingVisitor<>(), NULL ).get().getRootNode() ).isEqualTo( rootBefore );
+
+            assertThat( tree.compact( 0, IOLimiter.UNLIMITED, NULL ) ).isTrue();
+
+            // then the compacted tree is dense and in key order
+            assertThat( tree.compact( 0.5, IOLimiter.UNLIMITED, NULL ) ).isFalse();
+        }
+    }
+
+    @Test
+    void shouldMeasureFragmentationWithoutWaitingForWriter() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
+        AtomicReference<GBPTree<MutableLong,MutableLong>> treeInCheckpoint = new AtomicReference<>();
+        AtomicReference<Boolean> compacted = new AtomicReference<>();
+        GBPTree.Monitor monitor = new GBPTree.Monitor.Adaptor()
+        {
+            @Override
+            public void checkpointCompleted()
+            {
+                // The checkpoint excludes writers while it notifies about its completion
+                GBPTree<MutableLong,MutableLong> tree = treeInCheckpoint.get();
+                if ( tree != null )
+                {
+                    compacted.set( assertTimeoutPreemptively( ofSeconds( 30 ), () -> tree.compact( 1, IOLimiter.UNLIMITED, NULL ) ) );
+                }
+            }
+        };
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).with( monitor ).build() )
+        {
+            insertShuffledAndRemoveMost( tree, layout );
+
+            // when compacting while writers are excluded
+            treeInCheckpoint.set( tree );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            treeInCheckpoint.set( null );
+
+            // then a tree which isn't fragmented enough is left alone without waiting for the writer lock
+            assertThat( compacted.get() ).isFalse();
+        }
+    }
+
+    @Test
+    void shouldAllowWritesAfterCompaction() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( false ).build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            insertShuffledAndRemoveMost( tree, layout );
+            assertThat( tree.compact( 0, IOLimiter.UNLIMITED, NULL ) ).isTrue();
+
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i += 2 )
+                {
+                    writer.put( layout.key( i ), layout.value( i ) );
+                }
+            }
+
+            assertEntries( tree, layout, 0, COUNT, 2 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @Test
+    void shouldCompactEmptiedTreeIntoSingleLeaf() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i++ )
+                {
+                    writer.put( layout.key( i ), layout.value( i ) );
+                }
+            }
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 0; i < COUNT; i++ )
+                {
+                    writer.remove( layout.key( i ) );
+                }
+            }
+
+            tree.compact( 0, IOLimiter.UNLIMITED, NULL );
+
+            GBPTreeInspection<MutableLong,MutableLong> inspection = tree.visit( new InspectingVisitor<>(), NULL ).get();
+            assertThat( inspection.getTotalNodeCount() ).isOne();
+            assertEntries( tree, layout, 0, 0, 1 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @Test
+    void shouldBuildCompactedTreeFromFreedPages() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // given pages freed by removals, which are reusable after the checkpoint
+            insertShuffledAndRemoveMost( tree, layout );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            long lastIdBeforeCompaction = tree.visit( new InspectingVisitor<>(), NULL ).get().getTreeState().lastId();
+
+            // when
+            assertThat( tree.compact( 0, IOLimiter.UNLIMITED, NULL ) ).isTrue();
+
+            // then the compacted tree fits in the freed pages, i.e. the file doesn't grow
+            ImmutableLongList nodes = tree.visit( new InspectingVisitor<>(), NULL ).get().getAllNodes();
+            assertThat( nodes.max() ).isLessThanOrEqualTo( lastIdBeforeCompaction );
+            assertEntries( tree, layout, 0, COUNT, 4 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @Test
+    void shouldLetWritersWriteWhileBuildingAndDiscardTheStaleCompactedTree() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            insertShuffledAndRemoveMost( tree, layout );
+            long rootBefore = tree.visit( new InspectingVisitor<>(), NULL ).get().getRootNode();
+            MutableBoolean written = new MutableBoolean();
+            IOLimiter writeWhileBuilding = ( previousStamp, recentlyCompletedIOs, flushable ) ->
+            {
+                if ( written.isFalse() )
+                {
+                    written.setTrue();
+                    try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+                    {
+                        writer.put( layout.key( 1 ), layout.value( 1 ) );
+                    }
+                    catch ( IOException e )
+                    {
+                        throw new UncheckedIOException( e );
+                    }
+                }
+                return previousStamp;
+            };
+
+            // when a writer writes to the tree while the compacted tree is built
+            boolean compacted = assertTimeoutPreemptively( ofSeconds( 30 ), () -> tree.compact( 0, writeWhileBuilding, NULL ) );
+
+            // then the compacted tree, which may be missing the write, is discarded along with all of its nodes
+            assertThat( written.isTrue() ).isTrue();
+            assertThat( compacted ).isFalse();
+            assertThat( tree.visit( new InspectingVisitor<>(), NULL ).get().getRootNode() ).isEqualTo( rootBefore );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( 1 ), layout.key( 2 ), NULL ) )
+            {
+                assertThat( seek.next() ).isTrue();
+            }
+
+            assertThat( tree.compact( 0, IOLimiter.UNLIMITED, NULL ) ).isTrue();
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @Test
+    void shouldReleaseAllNodesOfCompactedTreeIfBuildFails() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            insertShuffledAndRemoveMost( tree, layout );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            IOLimiter failing = ( previousStamp, recentlyCompletedIOs, flushable ) ->
+            {
+                throw new IllegalStateException( "boom" );
+            };
+
+            // when
+            assertThatThrownBy( () -> tree.compact( 0, failing, NULL ) ).hasMessageContaining( "boom" );
+
+            // then no page is left unused, and the tree can still be compacted
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+            assertEntries( tree, layout, 0, COUNT, 4 );
+            assertThat( tree.compact( 0, IOLimiter.UNLIMITED, NULL ) ).isTrue();
+            assertEntries( tree, layout, 0, COUNT, 4 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    private static <KEY,VALUE> void insertShuffledAndRemoveMost( GBPTree<KEY,VALUE> tree, TestLayout<KEY,VALUE> layout ) throws IOException
+    {
+        List<Long> seeds = shuffledSeeds();
+        try ( Writer<KEY,VALUE> writer = tree.writer( NULL ) )
+        {
+            for ( long seed : seeds )
+            {
+                writer.put( layout.key( seed ), layout.value( seed ) );
+            }
+        }
+        try ( Writer<KEY,VALUE> writer = tree.writer( NULL ) )
+        {
+            for ( long seed : seeds )
+            {
+                if ( seed % 4 != 0 )
+                {
+                    writer.remove( layout.key( seed ) );
+                }
+            }
+        }
+    }
+
+    private static List<Long> shuffledSeeds()
+    {
+        List<Long> seeds = new ArrayList<>();
+        for ( long i = 0; i < COUNT; i++ )
+        {
+            seeds.add( i );
+        }
+        Collections.shuffle( seeds, new Random( 42 ) );
+        return seeds;
+    }
+
+    private static <KEY,VALUE> void assertEntries( GBPTree<KEY,VALUE> tree, TestLayout<KEY,VALUE> layout, long from, long to, long stride )
+            throws IOException
+    {
+        try ( Seeker<KEY,VALUE> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+        {
+            for ( long expected = from; expected < to; expected += stride )
+            {
+                assertThat( seek.next() ).isTrue();
+                assertThat( layout.keySeed( seek.key() ) ).isEqualTo( expected );
+                assertThat( layout.valueSeed( seek.value() ) ).isEqualTo( expected );
+            }
+            assertThat( seek.next() ).isFalse();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeKeyPrefixCompressionTest
+{
+    private static final int KEY_COUNT = 5_000;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( 8192 ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+
+    @Test
+    void shouldIncreaseFanOutForKeysWithSharedPrefixes() throws IOException
+    {
+        // when
+        GBPTreeInspection<RawBytes,RawBytes> plain = populate( directory.file( "plain" ), new SimpleByteArrayLayout( false ) );
+        GBPTreeInspection<RawBytes,RawBytes> compressed = populate( directory.file( "compressed" ), compressingLayout() );
+
+        // then
+        assertThat( compressed.getAverageLeafKeyCount() ).isGreaterThan( plain.getAverageLeafKeyCount() * 2 );
+        assertThat( compressed.getLeafNodes().size() ).isLessThan( plain.getLeafNodes().size() / 2 );
+        assertThat( compressed.getTotalNodeCount() ).isLessThan( plain.getTotalNodeCount() );
+    }
+
+    @Test
+    void shouldNotOpenCompressedTreeWithLayoutNotCompressingKeys() throws IOException
+    {
+        // given
+        Path file = directory.file( "index" );
+        populate( file, compressingLayout() );
+
+        // when/then
+        assertThrows( MetadataMismatchException.class, () -> new GBPTreeBuilder<>( pageCache, file, new SimpleByteArrayLayout( false ) ).build() );
+    }
+
+    @Test
+    void shouldReadLeavesFullOfKeysDifferingOnlyInLastByte() throws IOException
+    {
+        // given keys which only differ in their last byte and empty values, i.e. as small entries as a compressed leaf can have
+        SimpleByteArrayLayout layout = compressingLayout();
+        int keyCount = 1_500;
+        try ( GBPTree<RawBytes,RawBytes> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // when
+            try ( Writer<RawBytes,RawBytes> writer = tree.writer( NULL ) )
+            {
+                for ( int i = 0; i < keyCount; i++ )
+                {
+                    writer.put( smallKey( i ), emptyValue() );
+                }
+            }
+
+            // then
+            try ( Seeker<RawBytes,RawBytes> seek = tree.seek( smallKey( 0 ), smallKey( keyCount ), NULL ) )
+            {
+                for ( int i = 0; i < keyCount; i++ )
+                {
+                    assertThat( seek.next() ).isTrue();
+                    assertThat( layout.compare( smallKey( i ), seek.key() ) ).isZero();
+                }
+                assertThat( seek.next() ).isFalse();
+            }
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    private GBPTreeInspection<RawBytes,RawBytes> populate( Path file, SimpleByteArrayLayout layout ) throws IOException
+    {
+        try ( GBPTree<RawBytes,RawBytes> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            // Insert in random-ish order to exercise splits and rewrites of leaves anywhere in the tree
+            try ( Writer<RawBytes,RawBytes> writer = tree.writer( NULL ) )
+            {
+                for ( int i = 0; i < KEY_COUNT; i++ )
+                {
+                    writer.put( key( (i * 7919) % KEY_COUNT ), value() );
+                }
+            }
+            try ( Seeker<RawBytes,RawBytes> seek = tree.seek( key( 0 ), key( KEY_COUNT ), NULL ) )
+            {
+                for ( int i = 0; i < KEY_COUNT; i++ )
+                {
+                    assertThat( seek.next() ).isTrue();
+                    assertThat( layout.compare( key( i ), seek.key() ) ).isZero();
+                }
+                assertThat( seek.next() ).isFalse();
+            }
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            return tree.visit( new InspectingVisitor<>(), NULL ).get();
+        }
+    }
+
+    private static SimpleByteArrayLayout compressingLayout()
+    {
+        return new SimpleByteArrayLayout( false )
+        {
+            @Override
+            public boolean compressKeyPrefixes()
+            {
+                return true;
+            }
+        };
+    }
+
+    private static RawBytes key( int number )
+    {
+        RawBytes key = new RawBytes();
+        key.bytes = String.format( "https://www.some-rather-long-company-domain.example.com/users/%08d", number ).getBytes( StandardCharsets.UTF_8 );
+        return key;
+    }
+
+    /**
+     * Bytes are kept below 128 since the layout compares them signed.
+     */
+    private static RawBytes smallKey( int number )
+    {
+        RawBytes key = new RawBytes();
+        key.bytes = new byte[]{1, 2, 3, 4, 5, (byte) (number >> 14 & 0x7F), (byte) (number >> 7 & 0x7F), (byte) (number & 0x7F)};
+        return key;
+    }
+
+    private static RawBytes emptyValue()
+    {
+        RawBytes value = new RawBytes();
+        value.bytes = new byte[0];
+        return value;
+    }
+
+    private static RawBytes value()
+    {
+        RawBytes value = new RawBytes();
+        value.bytes = new byte[Long.BYTES];
+        return value;
+    }
+}
@@ -21,6 +21,7 @@ package org.neo4j.index.internal.gbptree;
 
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -163,6 +164,61 @@ class GBPTreeLockTest
         assertOnlyOneSucceeds( lock::writerAndCleanerLock, lock::writerAndCleanerLock );
     }
 
+    @Test
+    void parallelWritersMustNotBlockEachOther() throws Exception
+    {
+        // given
+        lock.parallelWriterLock();
+        lock.parallelWriterLock();
+
+        // then
+        lock.parallelWriterUnlock();
+        lock.parallelWriterUnlock();
+        assertThrows( IllegalStateException.class, lock::parallelWriterUnlock );
+        assertUU();
+    }
+
+    @Test
+    void parallelWriterMustBlockWriterAndCleaner() throws Exception
+    {
+        // given
+        lock.parallelWriterLock();
+
+        // then
+        copy = lock.copy();
+        assertBlock( copy::writerLock, copy::parallelWriterUnlock );
+        copy = lock.copy();
+        assertBlock( copy::writerAndCleanerLock, copy::parallelWriterUnlock );
+        copy = lock.copy();
+        assertBlock( copy::cleanerLock, copy::parallelWriterUnlock );
+    }
+
+    @Test
+    void writerAndCleanerMustBlockParallelWriter() throws Exception
+    {
+        Method parallelWriterLock = GBPTreeLock.class.getDeclaredMethod( "parallelWriterLock" );
+        lock.writerLock();
+        copy = lock.copy();
+        assertBlock( copy::parallelWriterLock, copy::writerUnlock, parallelWriterLock );
+        lock.writerUnlock();
+
+        lock.cleanerLock();
+        copy = lock.copy();
+        assertBlock( copy::parallelWriterLock, copy::cleanerUnlock, parallelWriterLock );
+    }
+
+    @Test
+    void test_race_parallelWriterVsParallelWriter() throws Throwable
+    {
+        assertBothSucceeds( lock::parallelWriterLock, lock::parallelWriterLock );
+    }
+
+    @Test
+    void test_race_parallelWriterVsLL() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::parallelWriterLock, lock::writerAndCleanerLock );
+    }
+
     private void assertOnlyOneSucceeds( Runnable lockAction1, Runnable lockAction2 ) throws Throwable
     {
         assertUU();
@@ -250,13 +306,18 @@ class GBPTreeLockTest
     }
 
     private void assertBlock( Runnable runLock, Runnable runUnlock ) throws Exception
+    {
+        assertBlock( runLock, runUnlock, GBPTreeLock.class.getDeclaredMethod( "doLock", long.class ) );
+    }
+
+    private void assertBlock( Runnable runLock, Runnable runUnlock, Method waitingIn ) throws Exception
     {
         Future<Object> future = executor.submit( () ->
         {
             runLock.run();
             return null;
         } );
-        executor.untilWaitingIn( GBPTreeLock.class.getDeclaredMethod( "doLock", long.class ) );
+        executor.untilWaitingIn( waitingIn );
         runUnlock.run();
         future.get();
     }
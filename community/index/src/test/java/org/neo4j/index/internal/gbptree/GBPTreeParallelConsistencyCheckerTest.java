@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.eclipse.collections.api.list.primitive.ImmutableLongList;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.neo4j.index.internal.gbptree.GBPTreeCorruption.pageSpecificCorruption;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeParallelConsistencyCheckerTest
+{
+    private static final int KEYS = 20_000;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( 512 ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+
+    private final SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+
+    @ParameterizedTest
+    @ValueSource( ints = {2, 3, 8, 100} )
+    void shouldFindConsistentTreeConsistent( int numberOfWorkers ) throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // given
+            insertKeys( tree );
+
+            // when
+            GBPTreeConsistencyCheckVisitor<MutableLong> visitor = newVisitor();
+            boolean consistent = tree.consistencyCheck( visitor, true, NULL, numberOfWorkers );
+
+            // then
+            assertThat( consistent ).isTrue();
+            assertThat( reports( visitor ) ).isEmpty();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource( ints = {2, 3, 8, 100} )
+    void shouldReportSameInconsistenciesAsSingleThreadedCheck( int numberOfWorkers ) throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // given
+            insertKeys( tree );
+            GBPTreeInspection<MutableLong,MutableLong> inspection = tree.visit( new InspectingVisitor<>(), NULL ).get();
+            ImmutableLongList leaves = inspection.getLeafNodes();
+            ImmutableLongList internalNodes = inspection.getNodesPerLevel().get( 1 );
+            for ( int i = 1; i < leaves.size(); i += 7 )
+            {
+                tree.unsafe( pageSpecificCorruption( leaves.get( i ), GBPTreeCorruption.leftSiblingPointToNonExisting() ), NULL );
+            }
+            for ( int i = 0; i < leaves.size() - 1; i += 11 )
+            {
+                tree.unsafe( pageSpecificCorruption( leaves.get( i ), GBPTreeCorruption.rightSiblingPointerHasTooLowGeneration() ), NULL );
+            }
+            tree.unsafe( pageSpecificCorruption( leaves.get( leaves.size() / 2 ), GBPTreeCorruption.swapKeyOrderLeaf( 0, 1,
+                    inspection.getKeyCounts().get( leaves.get( leaves.size() / 2 ) ) ) ), NULL );
+            tree.unsafe( pageSpecificCorruption( internalNodes.get( internalNodes.size() / 3 ), GBPTreeCorruption.hasSuccessor() ), NULL );
+            // a child pointer to a leaf in another subtree, such that the leaf is seen in two partitions
+            tree.unsafe( pageSpecificCorruption( internalNodes.getLast(), GBPTreeCorruption.setChild( 0, leaves.getFirst() ) ), NULL );
+
+            // when
+            GBPTreeConsistencyCheckVisitor<MutableLong> singleThreadedVisitor = newVisitor();
+            tree.consistencyCheck( singleThreadedVisitor, true, NULL, 1 );
+            GBPTreeConsistencyCheckVisitor<MutableLong> parallelVisitor = newVisitor();
+            tree.consistencyCheck( parallelVisitor, true, NULL, numberOfWorkers );
+
+            // then
+            List<String> expectedReports = reports( singleThreadedVisitor );
+            assertThat( expectedReports ).anyMatch( report -> report.startsWith( "pageIdSeenMultipleTimes" ) );
+            assertThat( expectedReports ).anyMatch( report -> report.startsWith( "siblingsDontPointToEachOther" ) );
+            assertThat( reports( parallelVisitor ) ).isEqualTo( expectedReports );
+        }
+    }
+
+    private void insertKeys( GBPTree<MutableLong,MutableLong> tree ) throws IOException
+    {
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+        {
+            for ( long key = 0; key < KEYS; key++ )
+            {
+                writer.put( layout.key( key ), layout.value( key ) );
+            }
+        }
+        assertThat( tree.visit( new InspectingVisitor<>(), NULL ).get().getLastLevel() ).isGreaterThanOrEqualTo( 2 );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private static GBPTreeConsistencyCheckVisitor<MutableLong> newVisitor()
+    {
+        return mock( GBPTreeConsistencyCheckVisitor.class );
+    }
+
+    /**
+     * @return all reports made to the given visitor, in a well defined order.
+     */
+    private static List<String> reports( GBPTreeConsistencyCheckVisitor<MutableLong> visitor )
+    {
+        return mockingDetails( visitor ).getInvocations().stream()
+                .map( invocation -> invocation.getMethod().getName() + Arrays.toString( invocation.getArguments() ) )
+                .sorted()
+                .collect( Collectors.toList() );
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongPredicate;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.Race;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.index.internal.gbptree.ValueMerger.MergeResult.MERGED;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.test.Race.throwing;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeParallelWriterTest
+{
+    private static final int THREADS = 4;
+    private static final int KEYS_PER_THREAD = 5_000;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( 512 ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+
+    @ParameterizedTest
+    @ValueSource( booleans = {true, false} )
+    void shouldInsertDisjointKeysConcurrently( boolean fixedSize ) throws Throwable
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( fixedSize ).build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // when keys of all threads are interleaved, so that the threads compete for the same leaves
+            Race race = new Race();
+            race.addContestants( THREADS, thread -> throwing( () ->
+            {
+                List<Long> keys = new ArrayList<>();
+                for ( long i = 0; i < KEYS_PER_THREAD; i++ )
+                {
+                    keys.add( i * THREADS + thread );
+                }
+                Collections.shuffle( keys, new Random( thread ) );
+                try ( Writer<MutableLong,MutableLong> writer = tree.parallelWriter( NULL ) )
+                {
+                    for ( long key : keys )
+                    {
+                        writer.put( layout.key( key ), layout.value( key ) );
+                    }
+                }
+            } ), 1 );
+            race.go();
+
+            // then
+            assertKeys( tree, layout, THREADS * KEYS_PER_THREAD, key -> true );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource( booleans = {true, false} )
+    void shouldRemoveAndInsertConcurrently( boolean fixedSize ) throws Throwable
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( fixedSize ).build();
+        int count = THREADS * KEYS_PER_THREAD;
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // given every odd key, checkpointed so that the parallel writers must create successors of the leaves
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                for ( long key = 1; key < count; key += 2 )
+                {
+                    writer.put( layout.key( key ), layout.value( key ) );
+                }
+            }
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+
+            // when half of the threads insert the even keys and the other half remove the odd keys
+            Race race = new Race();
+            race.addContestants( THREADS, thread -> throwing( () ->
+            {
+                try ( Writer<MutableLong,MutableLong> writer = tree.parallelWriter( NULL ) )
+                {
+                    for ( long key = thread; key < count; key += THREADS )
+                    {
+                        if ( key % 2 == 0 )
+                        {
+                            writer.put( layout.key( key ), layout.value( key ) );
+                        }
+                        else
+                        {
+                            assertThat( writer.remove( layout.key( key ) ) ).isEqualTo( layout.value( key ) );
+                        }
+                    }
+                }
+            } ), 1 );
+            race.go();
+
+            // then
+            assertKeys( tree, layout, count / 2, key -> key % 2 == 0 );
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource( booleans = {true, false} )
+    void shouldMergeSameKeysConcurrently( boolean fixedSize ) throws Throwable
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( fixedSize ).build();
+        int keys = 1_000;
+        int rounds = 10;
+        ValueMerger<MutableLong,MutableLong> adder = ( existingKey, newKey, existingValue, newValue ) ->
+        {
+            existingValue.add( newValue.longValue() );
+            return MERGED;
+        };
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // when
+            Race race = new Race();
+            race.addContestants( THREADS, thread -> throwing( () ->
+            {
+                try ( Writer<MutableLong,MutableLong> writer = tree.parallelWriter( NULL ) )
+                {
+                    for ( int round = 0; round < rounds; round++ )
+                    {
+                        for ( long key = 0; key < keys; key++ )
+                        {
+                            writer.merge( layout.key( key ), new MutableLong( 1 ), adder );
+                        }
+                    }
+                }
+            } ), 1 );
+            race.go();
+
+            // then each merge must have been applied exactly once
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+            {
+                long expectedKey = 0;
+                while ( seek.next() )
+                {
+                    assertThat( seek.key().longValue() ).isEqualTo( expectedKey++ );
+                    assertThat( seek.value().longValue() ).isEqualTo( THREADS * rounds );
+                }
+                assertThat( expectedKey ).isEqualTo( keys );
+            }
+            assertThat( tree.consistencyCheck( NULL ) ).isTrue();
+        }
+    }
+
+    private static void assertKeys( GBPTree<MutableLong,MutableLong> tree, SimpleLongLayout layout, int expectedCount,
+            LongPredicate expected ) throws IOException
+    {
+        try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+        {
+            int count = 0;
+            long previous = -1;
+            while ( seek.next() )
+            {
+                long key = layout.keySeed( seek.key() );
+                assertThat( key ).isGreaterThan( previous );
+                assertThat( expected.test( key ) ).as( "unexpected key " + key ).isTrue();
+                assertThat( seek.value() ).isEqualTo( layout.value( key ) );
+                previous = key;
+                count++;
+            }
+            assertThat( count ).isEqualTo( expectedCount );
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class InternalTreeLogicDynamicSizePrefixCompressedTest extends InternalTreeLogicDynamicSizeTest
+{
+    @Override
+    protected TreeNode<RawBytes,RawBytes> getTreeNode( int pageSize, Layout<RawBytes,RawBytes> layout, OffloadStore<RawBytes,RawBytes> offloadStore )
+    {
+        return new TreeNodeDynamicSizePrefixCompressed<>( pageSize, layout, offloadStore );
+    }
+
+    /**
+     * Compressed leaves with few keys use little space, so the middle leaf underflows when its value is replaced
+     * and is merged into a new version of its stable left sibling, instead of only getting a new version of its own.
+     */
+    @ParameterizedTest
+    @MethodSource( "generators" )
+    @Override
+    void shouldCreateNewVersionWhenInsertInStableLeaf( String name, GenerationManager generationManager, boolean isCheckpointing ) throws Exception
+    {
+        assumeTrue( isCheckpointing, "No checkpointing, no successor" );
+
+        // GIVEN:
+        //       ------root-------
+        //      /        |         \
+        //     v         v          v
+        //   left <--> middle <--> right
+        initialize();
+        long targetLastId = id.lastId() + 3; // 2 splits and 1 new allocated root
+        long i = 0;
+        for ( ; id.lastId() < targetLastId; i++ )
+        {
+            insert( key( i ), value( i ) );
+        }
+        root.goTo( readCursor );
+        assertEquals( 2, keyCount() );
+        long oldRoot = root.id();
+        long leftChild = childAt( readCursor, 0, stableGeneration, unstableGeneration );
+        long middleChild = childAt( readCursor, 1, stableGeneration, unstableGeneration );
+        long rightChild = childAt( readCursor, 2, stableGeneration, unstableGeneration );
+        assertSiblings( leftChild, middleChild, rightChild );
+
+        // WHEN
+        generationManager.checkpoint();
+        long middle = i / 2;
+        RawBytes middleKey = key( middle ); // Should be located in middle leaf
+        RawBytes oldValue = value( middle );
+        RawBytes newValue = value( middle * 11 );
+        insert( middleKey, newValue );
+
+        // THEN
+        // new version of left child and of root
+        long expectedNewLeftChild = targetLastId + 1;
+        long expectedNewRoot = targetLastId + 2;
+        assertEquals( expectedNewRoot, id.lastId() );
+        assertEquals( expectedNewRoot, root.id() );
+        goTo( readCursor, oldRoot );
+        assertEquals( expectedNewRoot, successor( readCursor, stableGeneration, unstableGeneration ) );
+
+        // root have new left child, which middle has been merged into, and the same right child
+        root.goTo( readCursor );
+        assertEquals( 1, keyCount() );
+        assertEquals( expectedNewLeftChild, childAt( readCursor, 0, stableGeneration, unstableGeneration ) );
+        assertEquals( rightChild, childAt( readCursor, 1, stableGeneration, unstableGeneration ) );
+
+        // old left child has successor
+        goTo( readCursor, leftChild );
+        assertEquals( expectedNewLeftChild, successor( readCursor, stableGeneration, unstableGeneration ) );
+
+        // old middle child has seen no change
+        goTo( readCursor, middleChild );
+        assertKeyAssociatedWithValue( middleKey, oldValue );
+
+        // new left child has seen change
+        goTo( readCursor, expectedNewLeftChild );
+        assertKeyAssociatedWithValue( middleKey, newValue );
+
+        // sibling pointers updated
+        assertSiblings( TreeNode.NO_NODE_FLAG, expectedNewLeftChild, rightChild );
+    }
+}
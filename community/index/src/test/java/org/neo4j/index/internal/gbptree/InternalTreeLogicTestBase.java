@@ -66,15 +66,15 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
 {
     static final String INDEX_RESOURCE = "index";
     private static final int PAGE_SIZE = 256;
-    private static long stableGeneration = GenerationSafePointer.MIN_GENERATION;
-    private static long unstableGeneration = stableGeneration + 1;
+    static long stableGeneration = GenerationSafePointer.MIN_GENERATION;
+    static long unstableGeneration = stableGeneration + 1;
 
     @Inject
     private RandomRule random;
 
     private PageAwareByteArrayCursor cursor;
-    private PageAwareByteArrayCursor readCursor;
-    private SimpleIdProvider id;
+    PageAwareByteArrayCursor readCursor;
+    SimpleIdProvider id;
 
     private ValueMerger<KEY,VALUE> adder;
     private InternalTreeLogic<KEY,VALUE> treeLogic;
@@ -1796,7 +1796,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         }
     }
 
-    private int keyCount()
+    int keyCount()
     {
         return TreeNode.keyCount( readCursor );
     }
@@ -1819,7 +1819,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
                 GBPTreePointerType.successor(), TreeNode.BYTE_POS_SUCCESSOR, new ThrowingConsistencyCheckVisitor<>(), false );
     }
 
-    private void assertKeyAssociatedWithValue( KEY key, VALUE expectedValue )
+    void assertKeyAssociatedWithValue( KEY key, VALUE expectedValue )
     {
         KEY readKey = layout.newKey();
         VALUE readValue = layout.newValue();
@@ -1837,7 +1837,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         assertFalse( KeySearch.isHit( search ) );
     }
 
-    private void assertSiblings( long left, long middle, long right ) throws IOException
+    void assertSiblings( long left, long middle, long right ) throws IOException
     {
         long origin = readCursor.getCurrentPageId();
         goTo( readCursor, middle );
@@ -1994,7 +1994,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         return result;
     }
 
-    private interface GenerationManager
+    interface GenerationManager
     {
         void checkpoint();
 
@@ -2032,7 +2032,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         };
     }
 
-    private static void goTo( PageCursor cursor, long pageId ) throws IOException
+    static void goTo( PageCursor cursor, long pageId ) throws IOException
     {
         PageCursorUtil.goTo( cursor, "test", pointer( pageId ) );
     }
@@ -2049,7 +2049,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         goToSuccessor( cursor );
     }
 
-    private long childAt( PageCursor cursor, int pos, long stableGeneration, long unstableGeneration )
+    long childAt( PageCursor cursor, int pos, long stableGeneration, long unstableGeneration )
     {
         return pointer( node.childAt( cursor, pos, stableGeneration, unstableGeneration ) );
     }
@@ -2064,7 +2064,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         return pointer( TreeNode.leftSibling( cursor, stableGeneration, unstableGeneration ) );
     }
 
-    private long successor( PageCursor cursor, long stableGeneration, long unstableGeneration )
+    long successor( PageCursor cursor, long stableGeneration, long unstableGeneration )
     {
         return pointer( TreeNode.successor( cursor, stableGeneration, unstableGeneration ) );
     }
@@ -20,6 +20,7 @@
 package org.neo4j.index.internal.gbptree;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,6 +33,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.function.LongSupplier;
 
 import org.neo4j.io.pagecache.PageCursor;
@@ -338,6 +340,63 @@ abstract class SeekCursorTestBase<KEY, VALUE>
         assertFalse( nextCalled.get(), "Cursor continued to next leaf even though end of range is within first leaf" );
     }
 
+    @Test
+    void mustPreFetchNextSiblingWhenSeekingAcrossLeaves() throws Exception
+    {
+        // GIVEN
+        long i = fullLeaf();
+        long left = createRightSibling( cursor );
+        long right = cursor.getCurrentPageId();
+        long j = fullLeaf( i );
+        cursor.next( left );
+        LongArrayList preFetched = new LongArrayList();
+
+        // WHEN
+        try ( SeekCursor<KEY,VALUE> cursor = seekCursor( 0, j, preFetched::add ) )
+        {
+            // THEN
+            assertRangeInSingleLeaf( 0, j, cursor );
+        }
+        assertThat( preFetched.toArray() ).containsExactly( right );
+    }
+
+    @Test
+    void mustPreFetchNextSiblingWhenSeekingAcrossLeavesBackwards() throws Exception
+    {
+        // GIVEN
+        long i = fullLeaf();
+        long left = createRightSibling( cursor );
+        long j = fullLeaf( i );
+        LongArrayList preFetched = new LongArrayList();
+
+        // WHEN
+        try ( SeekCursor<KEY,VALUE> cursor = seekCursor( j - 1, -1, preFetched::add ) )
+        {
+            // THEN
+            assertRangeInSingleLeaf( j - 1, -1, cursor );
+        }
+        assertThat( preFetched.toArray() ).containsExactly( left );
+    }
+
+    @Test
+    void mustNotPreFetchNextSiblingWhenEndOfRangeIsWithinLeaf() throws Exception
+    {
+        // GIVEN
+        long i = fullLeaf();
+        long left = createRightSibling( cursor );
+        fullLeaf( i );
+        cursor.next( left );
+        LongArrayList preFetched = new LongArrayList();
+
+        // WHEN
+        try ( SeekCursor<KEY,VALUE> cursor = seekCursor( 0, i - 1, preFetched::add ) )
+        {
+            // THEN
+            assertRangeInSingleLeaf( 0, i - 1, cursor );
+        }
+        assertTrue( preFetched.isEmpty() );
+    }
+
     @Test
     void shouldHandleEmptyRange() throws IOException
     {
@@ -1304,7 +1363,7 @@ abstract class SeekCursorTestBase<KEY, VALUE>
         // WHEN
         try ( SeekCursor<KEY,VALUE> cursor = new SeekCursor<>( this.cursor,
                 node, from, to, layout, stableGeneration, unstableGeneration, () -> 0L, failingRootCatchup,
-                unstableGeneration, exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, NULL ) )
+                unstableGeneration, exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, SeekCursor.NO_PRE_FETCH, NULL ) )
         {
             // reading a couple of keys
             assertTrue( cursor.next() );
@@ -1950,7 +2009,7 @@ abstract class SeekCursorTestBase<KEY, VALUE>
         //noinspection EmptyTryBlock
         try ( SeekCursor<KEY,VALUE> ignored = new SeekCursor<>( cursor, node, key( 0 ), key( 1 ), layout,
                 stableGeneration, unstableGeneration, generationSupplier, rootCatchup, generation - 1,
-                exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, NULL ) )
+                exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, SeekCursor.NO_PRE_FETCH, NULL ) )
         {
             // do nothing
         }
@@ -2001,7 +2060,7 @@ abstract class SeekCursorTestBase<KEY, VALUE>
         //noinspection EmptyTryBlock
         try ( SeekCursor<KEY,VALUE> ignored = new SeekCursor<>( cursor, node, from, to, layout,
                 stableGeneration, unstableGeneration, generationSupplier, rootCatchup, unstableGeneration,
-                exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, NULL ) )
+                exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, SeekCursor.NO_PRE_FETCH, NULL ) )
         {
             // do nothing
         }
@@ -2050,7 +2109,7 @@ abstract class SeekCursorTestBase<KEY, VALUE>
         KEY to = key( 20L );
         try ( SeekCursor<KEY,VALUE> seek = new SeekCursor<>( cursor, node, from, to, layout,
                 stableGeneration - 1, unstableGeneration - 1, generationSupplier, rootCatchup, unstableGeneration,
-                exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, NULL ) )
+                exceptionDecorator, 1, LEAF_LEVEL, SeekCursor.NO_MONITOR, SeekCursor.NO_PRE_FETCH, NULL ) )
         {
             while ( seek.next() )
             {
@@ -2403,7 +2462,7 @@ abstract class SeekCursorTestBase<KEY, VALUE>
     {
         return new SeekCursor<>( cursor, node, key( fromInclusive ), key( toExclusive ), layout, stableGeneration, unstableGeneration,
                 generationSupplier, failingRootCatchup, unstableGeneration, exceptionDecorator, random.nextInt( 1, DEFAULT_MAX_READ_AHEAD ), level,
-                SeekCursor.NO_MONITOR, NULL );
+                SeekCursor.NO_MONITOR, SeekCursor.NO_PRE_FETCH, NULL );
     }
 
     private SeekCursor<KEY,VALUE> seekCursor( long fromInclusive, long toExclusive ) throws IOException
@@ -2411,6 +2470,13 @@ abstract class SeekCursorTestBase<KEY, VALUE>
         return seekCursor( fromInclusive, toExclusive, cursor );
     }
 
+    private SeekCursor<KEY,VALUE> seekCursor( long fromInclusive, long toExclusive, LongConsumer preFetcher ) throws IOException
+    {
+        return new SeekCursor<>( cursor, node, key( fromInclusive ), key( toExclusive ), layout, stableGeneration, unstableGeneration,
+                generationSupplier, failingRootCatchup, unstableGeneration, exceptionDecorator, random.nextInt( 1, DEFAULT_MAX_READ_AHEAD ),
+                LEAF_LEVEL, SeekCursor.NO_MONITOR, preFetcher, NULL );
+    }
+
     private SeekCursor<KEY,VALUE> seekCursor( long fromInclusive, long toExclusive,
             PageCursor pageCursor ) throws IOException
     {
@@ -2428,7 +2494,7 @@ abstract class SeekCursorTestBase<KEY, VALUE>
     {
         return new SeekCursor<>( pageCursor, node, key( fromInclusive ), key( toExclusive ), layout, stableGeneration, unstableGeneration,
                 generationSupplier, rootCatchup, unstableGeneration , exceptionDecorator, random.nextInt( 1, DEFAULT_MAX_READ_AHEAD ),
-                LEAF_LEVEL, SeekCursor.NO_MONITOR, NULL );
+                LEAF_LEVEL, SeekCursor.NO_MONITOR, SeekCursor.NO_PRE_FETCH, NULL );
     }
 
     /**
@@ -28,6 +28,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class SimpleLongLayout extends TestLayout<MutableLong,MutableLong>
 {
     private final int keyPadding;
+    private final boolean bloomFilter;
     private String customNameAsMetaData;
 
     public static class Builder
@@ -38,6 +39,7 @@ public class SimpleLongLayout extends TestLayout<MutableLong,MutableLong>
         private int minorVersion;
         private String customNameAsMetaData = "test";
         private boolean fixedSize = true;
+        private boolean bloomFilter;
 
         public Builder withKeyPadding( int keyPadding )
         {
@@ -75,9 +77,15 @@ public class SimpleLongLayout extends TestLayout<MutableLong,MutableLong>
             return this;
         }
 
+        public Builder withBloomFilter( boolean bloomFilter )
+        {
+            this.bloomFilter = bloomFilter;
+            return this;
+        }
+
         public SimpleLongLayout build()
         {
-            return new SimpleLongLayout( keyPadding, customNameAsMetaData, fixedSize, identifier, majorVersion, minorVersion );
+            return new SimpleLongLayout( keyPadding, customNameAsMetaData, fixedSize, bloomFilter, identifier, majorVersion, minorVersion );
         }
     }
 
@@ -86,10 +94,12 @@ public class SimpleLongLayout extends TestLayout<MutableLong,MutableLong>
         return new Builder();
     }
 
-    private SimpleLongLayout( int keyPadding, String customNameAsMetaData, boolean fixedSize, int identifier, int majorVersion, int minorVersion )
+    private SimpleLongLayout( int keyPadding, String customNameAsMetaData, boolean fixedSize, boolean bloomFilter, int identifier, int majorVersion,
+            int minorVersion )
     {
         super( fixedSize, identifier, majorVersion, minorVersion );
         this.keyPadding = keyPadding;
+        this.bloomFilter = bloomFilter;
         this.customNameAsMetaData = customNameAsMetaData;
     }
 
@@ -105,6 +115,18 @@ public class SimpleLongLayout extends TestLayout<MutableLong,MutableLong>
         return compare( v1, v2 );
     }
 
+    @Override
+    public boolean bloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    @Override
+    public long filterHash( MutableLong key )
+    {
+        return key.longValue();
+    }
+
     @Override
     public MutableLong newKey()
     {
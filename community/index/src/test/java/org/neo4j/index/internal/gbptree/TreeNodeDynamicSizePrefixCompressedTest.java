@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.YES;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+public class TreeNodeDynamicSizePrefixCompressedTest extends TreeNodeTestBase<RawBytes,RawBytes>
+{
+    private static final String PREFIX = "https://www.example.com/some/long/path/";
+
+    private final SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+    private final SimpleByteArrayLayout bytewiseLayout = new SimpleByteArrayLayout( false );
+
+    @Override
+    protected TestLayout<RawBytes,RawBytes> getLayout()
+    {
+        return layout;
+    }
+
+    @Override
+    protected TreeNodeDynamicSizePrefixCompressed<RawBytes,RawBytes> getNode( int pageSize, Layout<RawBytes,RawBytes> layout,
+            OffloadStore<RawBytes,RawBytes> offloadStore )
+    {
+        return new TreeNodeDynamicSizePrefixCompressed<>( pageSize, layout, offloadStore );
+    }
+
+    @Override
+    void assertAdditionalHeader( PageCursor cursor, TreeNode<RawBytes,RawBytes> node, int pageSize )
+    {
+        // When
+        int currentAllocSpace = ((TreeNodeDynamicSize) node).getAllocOffset( cursor );
+
+        // Then
+        assertEquals( pageSize, currentAllocSpace, "allocSpace point to end of page" );
+    }
+
+    @Test
+    void shouldFitMoreKeysWithSharedPrefixInLeaf() throws IOException
+    {
+        // given
+        TreeNodeDynamicSize<RawBytes,RawBytes> plainNode = new TreeNodeDynamicSize<>( PAGE_SIZE, bytewiseLayout, createOffloadStore() );
+        TreeNodeDynamicSize<RawBytes,RawBytes> compressedNode = getNode( PAGE_SIZE, bytewiseLayout, createOffloadStore() );
+
+        // when
+        int plainKeyCount = fillLeaf( plainNode );
+        int compressedKeyCount = fillLeaf( compressedNode );
+
+        // then
+        assertThat( compressedKeyCount ).isGreaterThan( plainKeyCount * 3 );
+        assertKeys( compressedNode, compressedKeyCount );
+        assertThat( compressedNode.checkMetaConsistency( cursor, compressedKeyCount, LEAF, null ) ).isEmpty();
+    }
+
+    @Test
+    void shouldRewriteLeafWhenInsertingKeyNotSharingPrefix() throws IOException
+    {
+        // given a leaf that has been defragmented, and so compressed
+        TreeNodeDynamicSize<RawBytes,RawBytes> node = getNode( PAGE_SIZE, bytewiseLayout, createOffloadStore() );
+        int keyCount = 5;
+        insertKeys( node, keyCount );
+        int allocOffsetBeforeDefrag = node.getAllocOffset( cursor );
+        node.defragmentLeaf( cursor );
+        assertThat( node.getAllocOffset( cursor ) ).isGreaterThan( allocOffsetBeforeDefrag );
+
+        // when
+        RawBytes otherKey = key( "ftp://" );
+        RawBytes value = emptyValue();
+        assertThat( node.leafOverflow( cursor, keyCount, otherKey, value ) ).isNotEqualTo( YES );
+        node.insertKeyValueAt( cursor, otherKey, value, 0, keyCount, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+        TreeNode.setKeyCount( cursor, ++keyCount );
+
+        // then
+        assertKeyEquals( otherKey, node.keyAt( cursor, bytewiseLayout.newKey(), 0, LEAF, NULL ) );
+        for ( int pos = 1; pos < keyCount; pos++ )
+        {
+            assertKeyEquals( prefixedKey( pos - 1 ), node.keyAt( cursor, bytewiseLayout.newKey(), pos, LEAF, NULL ) );
+        }
+        assertThat( node.checkMetaConsistency( cursor, keyCount, LEAF, null ) ).isEmpty();
+    }
+
+    @Test
+    void shouldSplitLeafWithPrefixOnBothSides() throws IOException
+    {
+        // given
+        TreeNodeDynamicSize<RawBytes,RawBytes> node = getNode( PAGE_SIZE, bytewiseLayout, createOffloadStore() );
+        int keyCount = fillLeaf( node );
+        PageAwareByteArrayCursor rightCursor = new PageAwareByteArrayCursor( PAGE_SIZE );
+        rightCursor.next();
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+
+        // when
+        RawBytes newKey = prefixedKey( keyCount );
+        RawBytes newValue = emptyValue();
+        RawBytes splitter = bytewiseLayout.newKey();
+        node.doSplitLeaf( cursor, keyCount, rightCursor, keyCount, newKey, newValue, splitter, 0.5, STABLE_GENERATION, UNSTABLE_GENERATION,
+                NULL );
+
+        // then
+        int leftKeyCount = TreeNode.keyCount( cursor );
+        int rightKeyCount = TreeNode.keyCount( rightCursor );
+        assertEquals( keyCount + 1, leftKeyCount + rightKeyCount );
+        for ( int pos = 0; pos < leftKeyCount; pos++ )
+        {
+            assertKeyEquals( prefixedKey( pos ), node.keyAt( cursor, bytewiseLayout.newKey(), pos, LEAF, NULL ) );
+        }
+        for ( int pos = 0; pos < rightKeyCount; pos++ )
+        {
+            assertKeyEquals( prefixedKey( leftKeyCount + pos ), node.keyAt( rightCursor, bytewiseLayout.newKey(), pos, LEAF, NULL ) );
+        }
+        RawBytes lastInLeft = node.keyAt( cursor, bytewiseLayout.newKey(), leftKeyCount - 1, LEAF, NULL );
+        RawBytes firstInRight = node.keyAt( rightCursor, bytewiseLayout.newKey(), 0, LEAF, NULL );
+        assertThat( bytewiseLayout.compare( lastInLeft, splitter ) ).isNegative();
+        assertThat( bytewiseLayout.compare( splitter, firstInRight ) ).isLessThanOrEqualTo( 0 );
+        assertThat( node.checkMetaConsistency( cursor, leftKeyCount, LEAF, null ) ).isEmpty();
+        assertThat( node.checkMetaConsistency( rightCursor, rightKeyCount, LEAF, null ) ).isEmpty();
+    }
+
+    /**
+     * Inserts keys sharing {@link #PREFIX}, in order, into an empty leaf until it is full.
+     * @return number of keys in leaf.
+     */
+    private int fillLeaf( TreeNodeDynamicSize<RawBytes,RawBytes> node ) throws IOException
+    {
+        cursor.zapPage();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        RawBytes value = emptyValue();
+        int keyCount = 0;
+        while ( true )
+        {
+            RawBytes key = prefixedKey( keyCount );
+            if ( node.leafOverflow( cursor, keyCount, key, value ) == YES )
+            {
+                return keyCount;
+            }
+            node.insertKeyValueAt( cursor, key, value, keyCount, keyCount, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+            TreeNode.setKeyCount( cursor, ++keyCount );
+        }
+    }
+
+    private void insertKeys( TreeNodeDynamicSize<RawBytes,RawBytes> node, int keyCount ) throws IOException
+    {
+        cursor.zapPage();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            node.insertKeyValueAt( cursor, prefixedKey( pos ), emptyValue(), pos, pos, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+            TreeNode.setKeyCount( cursor, pos + 1 );
+        }
+    }
+
+    private void assertKeys( TreeNode<RawBytes,RawBytes> node, int keyCount )
+    {
+        RawBytes readKey = bytewiseLayout.newKey();
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            assertKeyEquals( prefixedKey( pos ), node.keyAt( cursor, readKey, pos, LEAF, NULL ) );
+        }
+    }
+
+    private void assertKeyEquals( RawBytes expected, RawBytes actual )
+    {
+        assertEquals( 0, bytewiseLayout.compare( expected, actual ), () -> "expected " + expected + " but was " + actual );
+    }
+
+    private static RawBytes emptyValue()
+    {
+        RawBytes value = new RawBytes();
+        value.bytes = new byte[0];
+        return value;
+    }
+
+    private static RawBytes prefixedKey( int number )
+    {
+        return key( String.format( "%s%05d", PREFIX, number ) );
+    }
+
+    private static RawBytes key( String string )
+    {
+        RawBytes key = new RawBytes();
+        key.bytes = string.getBytes( StandardCharsets.UTF_8 );
+        return key;
+    }
+}
@@ -26,6 +26,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 
@@ -175,6 +176,16 @@ public class StoreFileChannel implements StoreChannel
         }
     }
 
+    /**
+     * Memory map a region of the file. The mapping remains valid after this channel has been closed.
+     *
+     * @see FileChannel#map(FileChannel.MapMode, long, long)
+     */
+    public MappedByteBuffer map( FileChannel.MapMode mode, long position, long size ) throws IOException
+    {
+        return channel.map( mode, position, size );
+    }
+
     @Override
     public StoreFileChannel truncate( long size ) throws IOException
     {
@@ -44,5 +44,14 @@ public enum PageCacheOpenOptions implements OpenOption
      * Please check that your platform is supported before providing this option.
      * @see ExtendedOpenOption for details.
      */
-    DIRECT
+    DIRECT,
+
+    /**
+     * Store the pages of the file compressed.
+     * A compressed file is accompanied by a page map file, that says where in the file each page is stored. Both files must be
+     * kept together, and a file must always be mapped with this option once it has been created with it.
+     * This option takes precedence over {@link #DIRECT}, which is ignored for compressed files.
+     * @see org.neo4j.io.pagecache.impl.CompressedPageSwapper for details.
+     */
+    COMPRESSED
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache;
+
+import org.eclipse.collections.api.set.ImmutableSet;
+
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+
+/**
+ * The priority class of a mapped file, which decides how eagerly the page cache evicts the pages of that file, compared to the pages of
+ * other files. The priority class is given as an {@link OpenOption} to {@link PageCache#map(Path, int, ImmutableSet)}, and files that are
+ * mapped without one get the {@link #NORMAL} priority. If a file is mapped more than once, then the first mapping decides the priority.
+ */
+public enum PageCachePriority implements OpenOption
+{
+    /**
+     * The pages of the file age twice as fast as normal pages, so they are evicted before the pages of other files.
+     * Meant for files that are scanned in bulk, where each page is unlikely to be accessed again soon.
+     */
+    LOW,
+
+    /**
+     * The pages of the file are evicted based on their usage alone. This is the default.
+     */
+    NORMAL,
+
+    /**
+     * The pages of the file are kept in memory, until all of the high priority pages in the page cache together exceed the pin budget of
+     * the page cache. Beyond that, they are evicted like normal pages. Meant for small and latency critical files, like the counts store,
+     * the ID files and the label scan store, which would otherwise be pushed out of the cache by bulk scans over larger files.
+     */
+    HIGH
+}
@@ -140,6 +140,16 @@ public interface PagedFile extends AutoCloseable
      */
     PageCursor io( long pageId, int pf_flags, PageCursorTracer tracer ) throws IOException;
 
+    /**
+     * Hint that the file-page with the given id will soon be accessed, such that it can be loaded into memory in the background,
+     * if it isn't there already. This is only a hint. The page may not get loaded, and failures to load it are ignored.
+     * <p>
+     * This is useful for accessing pages that are not next to each other in the file, where {@link #PF_READ_AHEAD} does not help.
+     *
+     * @param pageId The file-page-id of the page that will soon be accessed.
+     */
+    void preFetch( long pageId );
+
     /**
      * Get the size of the file-pages, in bytes.
      */
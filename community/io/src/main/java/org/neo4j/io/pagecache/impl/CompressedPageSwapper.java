@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import com.github.luben.zstd.Zstd;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+
+/**
+ * A {@link PageSwapper} that stores every file page zstd compressed, such that files with compressible content take up less disk
+ * space, and cold scans of them need fewer bytes read from the device.
+ * <p>
+ * Compressed pages have varying sizes, so they cannot be found by their file page id alone. The compressed file is therefore made up of
+ * two files: the data file at {@link #path()}, which holds the compressed pages in slots of whole {@value #SECTOR_SIZE} byte sectors,
+ * and the {@link #pageMapFile(Path) page map file} next to it, which holds one 8 byte entry per file page saying where in the data file
+ * the page is stored, and how big it is. Pages that do not compress by at least one sector are stored uncompressed. Pages that have
+ * never been written have no entry, and read as all zeros, just like the holes in a sparse file.
+ * <p>
+ * Pages are written copy-on-write: a slot is never overwritten while the page map refers to it. Instead the new version is written to a
+ * free slot, and the page map is only switched over to it once the write has completed. The old slot is released for reuse after the
+ * next {@link #force()} has made a page map pointing to the new slot durable, or right away if no durable page map refers to it yet.
+ * Because the page map is written after the data file has been forced, a crash can never leave a durable page map pointing at data
+ * that did not make it to the device, or at a slot that was being written when the page map was forced. Repeatedly flushing the same
+ * page between checkpoints alternates between two slots, so it does not grow the file.
+ * <p>
+ * The page map is kept in memory in its entirety while the file is open, which costs 8 bytes per file page.
+ */
+public class CompressedPageSwapper implements PageSwapper
+{
+    public static final String PAGE_MAP_SUFFIX = ".pagemap";
+    static final int SECTOR_SIZE = 512;
+    static final int MAP_PAGE_SIZE = 4096;
+    static final int MAX_FILE_PAGE_SIZE = 32768;
+    private static final int ENTRIES_PER_MAP_PAGE = MAP_PAGE_SIZE / Long.BYTES;
+    private static final int COMPRESSION_LEVEL = FeatureToggles.getInteger( CompressedPageSwapper.class, "compressionLevel", 1 );
+
+    // Layout of a page map entry, from the least significant bit: 16 bits of stored length in bytes, 8 bits of slot capacity in
+    // sectors, 1 bit saying that the slot has not been made durable yet (only ever set in memory), and 39 bits of first sector id.
+    private static final long STORED_LENGTH_MASK = 0xFFFF;
+    private static final int CAPACITY_SHIFT = 16;
+    private static final long CAPACITY_MASK = 0xFF;
+    private static final long FRESH_BIT = 1L << 24;
+    private static final int SECTOR_SHIFT = 25;
+
+    private final Path path;
+    private final int filePageSize;
+    private final int pageSectors;
+    private final PageEvictionCallback onEviction;
+    private final PageSwapper dataSwapper;
+    private final PageSwapper mapSwapper;
+    private final int scratchBufferSize;
+    private final ConcurrentLinkedQueue<Long> scratchBuffers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> allScratchBuffers = new ConcurrentLinkedQueue<>();
+    private final Object forceLock = new Object();
+    private final ByteBuffer mapBuffer; // guarded by forceLock
+    private final long mapBufferAddress;
+    private boolean buffersFreed; // guarded by forceLock
+
+    // All of the following fields are guarded by 'this'.
+    private long[] entries;
+    private long pageCount;
+    private long endSector;
+    private final MutableLongList[] freeSlots;
+    private MutableLongList replacedSlots = new LongArrayList();
+    private final MutableLongSet dirtyMapPages = new LongHashSet();
+    private volatile boolean closed;
+
+    CompressedPageSwapper( Path path, int filePageSize, PageEvictionCallback onEviction, PageSwapper dataSwapper, PageSwapper mapSwapper )
+            throws IOException
+    {
+        if ( filePageSize > MAX_FILE_PAGE_SIZE )
+        {
+            throw new IllegalArgumentException(
+                    "Cannot compress files with a filePageSize (" + filePageSize + ") that is greater than " + MAX_FILE_PAGE_SIZE + " bytes" );
+        }
+        this.path = path;
+        this.filePageSize = filePageSize;
+        this.pageSectors = sectorsFor( filePageSize );
+        this.onEviction = onEviction;
+        this.dataSwapper = dataSwapper;
+        this.mapSwapper = mapSwapper;
+        this.scratchBufferSize = (int) roundUpToSector( Math.max( Zstd.compressBound( filePageSize ), filePageSize ) );
+        this.freeSlots = new MutableLongList[pageSectors + 1];
+        for ( int i = 0; i < freeSlots.length; i++ )
+        {
+            freeSlots[i] = new LongArrayList();
+        }
+        this.mapBuffer = UnsafeUtil.allocateByteBuffer( MAP_PAGE_SIZE, INSTANCE );
+        this.mapBufferAddress = UnsafeUtil.getDirectByteBufferAddress( mapBuffer );
+        try
+        {
+            loadPageMap();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            UnsafeUtil.freeByteBuffer( mapBuffer, INSTANCE );
+            throw e;
+        }
+    }
+
+    /**
+     * @return the page map file that belongs to the given compressed data file.
+     */
+    public static Path pageMapFile( Path path )
+    {
+        return path.resolveSibling( path.getFileName() + PAGE_MAP_SUFFIX );
+    }
+
+    private void loadPageMap() throws IOException
+    {
+        long lastMapPageId = mapSwapper.getLastPageId();
+        entries = new long[Math.toIntExact( Math.max( 1, lastMapPageId + 1 ) * ENTRIES_PER_MAP_PAGE )];
+        for ( long mapPageId = 0; mapPageId <= lastMapPageId; mapPageId++ )
+        {
+            mapSwapper.read( mapPageId, mapBufferAddress, MAP_PAGE_SIZE );
+            int base = Math.toIntExact( mapPageId * ENTRIES_PER_MAP_PAGE );
+            for ( int i = 0; i < ENTRIES_PER_MAP_PAGE; i++ )
+            {
+                entries[base + i] = mapBuffer.getLong( i * Long.BYTES );
+            }
+        }
+
+        // Everything in the data file that is not referenced by the page map is free space.
+        long[] slots = new long[entries.length];
+        int slotCount = 0;
+        for ( int i = 0; i < entries.length; i++ )
+        {
+            long entry = entries[i];
+            if ( entry != 0 )
+            {
+                pageCount = i + 1;
+                slots[slotCount++] = entry;
+            }
+        }
+        slots = Arrays.copyOf( slots, slotCount );
+        for ( int i = 0; i < slotCount; i++ )
+        {
+            slots[i] = (sectorOf( slots[i] ) << 8) | capacityOf( slots[i] );
+        }
+        Arrays.sort( slots );
+        long nextSector = 0;
+        for ( long slot : slots )
+        {
+            long sector = slot >>> 8;
+            if ( sector > nextSector )
+            {
+                releaseSlot( nextSector, sector - nextSector );
+            }
+            nextSector = Math.max( nextSector, sector + (slot & CAPACITY_MASK) );
+        }
+        endSector = nextSector;
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress ) throws IOException
+    {
+        return read( filePageId, bufferAddress, filePageSize );
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferLength ) throws IOException
+    {
+        return readRange( positionOf( filePageId ), bufferAddress, bufferLength );
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int[] bufferLengths, int length ) throws IOException
+    {
+        long position = positionOf( startFilePageId );
+        long bytesRead = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytesRead += readRange( position, bufferAddresses[i], bufferLengths[i] );
+            position += bufferLengths[i];
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long write( long filePageId, long bufferAddress ) throws IOException
+    {
+        return write( filePageId, bufferAddress, filePageSize );
+    }
+
+    @Override
+    public long write( long filePageId, long bufferAddress, int bufferLength ) throws IOException
+    {
+        return writeRange( positionOf( filePageId ), bufferAddress, bufferLength );
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int[] bufferLengths, int length, int totalAffectedPages ) throws IOException
+    {
+        long position = positionOf( startFilePageId );
+        long bytesWritten = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytesWritten += writeRange( position, bufferAddresses[i], bufferLengths[i] );
+            position += bufferLengths[i];
+        }
+        return bytesWritten;
+    }
+
+    private long positionOf( long filePageId ) throws IOException
+    {
+        if ( filePageId < 0 )
+        {
+            throw new IOException( "Invalid file page id: " + filePageId );
+        }
+        return filePageId * filePageSize;
+    }
+
+    /**
+     * Read the given range of uncompressed bytes. Whole pages are decompressed straight into the buffer, while partial pages are
+     * decompressed into a scratch buffer first.
+     *
+     * @return the number of bytes read from the data file.
+     */
+    private long readRange( long position, long bufferAddress, int length ) throws IOException
+    {
+        long bytesRead = 0;
+        int offset = 0;
+        while ( offset < length )
+        {
+            long filePageId = position / filePageSize;
+            int pageOffset = (int) (position % filePageSize);
+            int bytes = Math.min( filePageSize - pageOffset, length - offset );
+            if ( bytes == filePageSize )
+            {
+                bytesRead += readPage( filePageId, bufferAddress + offset );
+            }
+            else
+            {
+                long page = takeScratchBuffer();
+                try
+                {
+                    bytesRead += readPage( filePageId, page );
+                    UnsafeUtil.copyMemory( page + pageOffset, bufferAddress + offset, bytes );
+                }
+                finally
+                {
+                    releaseScratchBuffer( page );
+                }
+            }
+            offset += bytes;
+            position += bytes;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Write the given range of uncompressed bytes. Partial pages are read, modified and written back as a whole.
+     *
+     * @return the number of bytes written to the data file.
+     */
+    private long writeRange( long position, long bufferAddress, int length ) throws IOException
+    {
+        long bytesWritten = 0;
+        int offset = 0;
+        while ( offset < length )
+        {
+            long filePageId = position / filePageSize;
+            int pageOffset = (int) (position % filePageSize);
+            int bytes = Math.min( filePageSize - pageOffset, length - offset );
+            if ( bytes == filePageSize )
+            {
+                bytesWritten += writePage( filePageId, bufferAddress + offset );
+            }
+            else
+            {
+                long page = takeScratchBuffer();
+                try
+                {
+                    readPage( filePageId, page );
+                    UnsafeUtil.copyMemory( bufferAddress + offset, page + pageOffset, bytes );
+                    bytesWritten += writePage( filePageId, page );
+                }
+                finally
+                {
+                    releaseScratchBuffer( page );
+                }
+            }
+            offset += bytes;
+            position += bytes;
+        }
+        return bytesWritten;
+    }
+
+    private long readPage( long filePageId, long bufferAddress ) throws IOException
+    {
+        long entry = entryOf( filePageId );
+        int storedLength = storedLengthOf( entry );
+        if ( storedLength == 0 )
+        {
+            UnsafeUtil.setMemory( bufferAddress, filePageSize, (byte) 0 );
+            return 0;
+        }
+        if ( storedLength == filePageSize )
+        {
+            return dataSwapper.read( sectorOf( entry ), bufferAddress, filePageSize );
+        }
+        long compressed = takeScratchBuffer();
+        try
+        {
+            long bytesRead = dataSwapper.read( sectorOf( entry ), compressed, storedLength );
+            long result = Zstd.decompressUnsafe( bufferAddress, filePageSize, compressed, storedLength );
+            if ( Zstd.isError( result ) || result != filePageSize )
+            {
+                throw new IOException( "Cannot decompress page " + filePageId + " of " + path + ": " +
+                        (Zstd.isError( result ) ? Zstd.getErrorName( result ) : "decompressed to " + result + " bytes") );
+            }
+            return bytesRead;
+        }
+        finally
+        {
+            releaseScratchBuffer( compressed );
+        }
+    }
+
+    private long writePage( long filePageId, long bufferAddress ) throws IOException
+    {
+        long compressed = takeScratchBuffer();
+        try
+        {
+            long source = bufferAddress;
+            int storedLength = filePageSize;
+            long compressedLength = Zstd.compressUnsafe( compressed, scratchBufferSize, bufferAddress, filePageSize, COMPRESSION_LEVEL );
+            if ( !Zstd.isError( compressedLength ) && sectorsFor( compressedLength ) < pageSectors )
+            {
+                source = compressed;
+                storedLength = (int) compressedLength;
+            }
+            long entry = allocateSlot( filePageId, storedLength );
+            long bytesWritten = dataSwapper.write( sectorOf( entry ), source, storedLength );
+            publishEntry( filePageId, entry );
+            return bytesWritten;
+        }
+        finally
+        {
+            releaseScratchBuffer( compressed );
+        }
+    }
+
+    private synchronized long entryOf( long filePageId )
+    {
+        return filePageId < pageCount ? entries[(int) filePageId] : 0;
+    }
+
+    /**
+     * Find a slot for a new version of the given page. A free slot is taken, or the data file is extended. The slot the page map currently
+     * refers to is never reused, even if it has not been made durable yet, because a concurrent {@link #force()} may make it durable while
+     * the new version is being written.
+     *
+     * @return the page map entry for the new version of the page.
+     */
+    private synchronized long allocateSlot( long filePageId, int storedLength ) throws IOException
+    {
+        if ( filePageId >= Integer.MAX_VALUE )
+        {
+            throw new IOException( "File page id " + filePageId + " is too large for a compressed file" );
+        }
+        int sectors = sectorsFor( storedLength );
+        for ( int capacity = sectors; capacity <= pageSectors; capacity++ )
+        {
+            MutableLongList slots = freeSlots[capacity];
+            if ( !slots.isEmpty() )
+            {
+                long sector = slots.removeAtIndex( slots.size() - 1 );
+                if ( capacity > sectors )
+                {
+                    releaseSlot( sector + sectors, capacity - sectors );
+                }
+                return entry( sector, sectors, storedLength );
+            }
+        }
+        long sector = endSector;
+        endSector += sectors;
+        return entry( sector, sectors, storedLength );
+    }
+
+    private synchronized void publishEntry( long filePageId, long entry )
+    {
+        int index = (int) filePageId;
+        if ( index >= entries.length )
+        {
+            int mapPages = index / ENTRIES_PER_MAP_PAGE + 1;
+            entries = Arrays.copyOf( entries, Math.max( mapPages, entries.length / ENTRIES_PER_MAP_PAGE * 2 ) * ENTRIES_PER_MAP_PAGE );
+        }
+        long previous = entries[index];
+        if ( previous != 0 )
+        {
+            if ( (previous & FRESH_BIT) != 0 )
+            {
+                releaseSlot( sectorOf( previous ), capacityOf( previous ) );
+            }
+            else
+            {
+                replacedSlots.add( previous );
+            }
+        }
+        entries[index] = entry | FRESH_BIT;
+        pageCount = Math.max( pageCount, filePageId + 1 );
+        dirtyMapPages.add( filePageId / ENTRIES_PER_MAP_PAGE );
+    }
+
+    private void releaseSlot( long sector, long sectors )
+    {
+        while ( sectors > 0 )
+        {
+            int capacity = (int) Math.min( sectors, pageSectors );
+            freeSlots[capacity].add( sector );
+            sector += capacity;
+            sectors -= capacity;
+        }
+    }
+
+    @Override
+    public void evicted( long pageId )
+    {
+        if ( onEviction != null && !closed )
+        {
+            onEviction.onEvict( pageId );
+        }
+    }
+
+    @Override
+    public Path path()
+    {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+        try
+        {
+            force();
+        }
+        finally
+        {
+            closed = true;
+            try
+            {
+                dataSwapper.close();
+            }
+            finally
+            {
+                mapSwapper.close();
+                freeBuffers();
+            }
+        }
+    }
+
+    @Override
+    public void closeAndDelete() throws IOException
+    {
+        closed = true;
+        try
+        {
+            dataSwapper.closeAndDelete();
+        }
+        finally
+        {
+            mapSwapper.closeAndDelete();
+            freeBuffers();
+        }
+    }
+
+    /**
+     * Force the data file, then write and force the parts of the page map that changed, and finally release the slots of the
+     * page versions that the now durable page map no longer refers to.
+     */
+    @Override
+    public void force() throws IOException
+    {
+        synchronized ( forceLock )
+        {
+            long[] mapPageIds;
+            long[][] mapPages;
+            MutableLongList releasableSlots;
+            synchronized ( this )
+            {
+                mapPageIds = dirtyMapPages.toSortedArray();
+                mapPages = new long[mapPageIds.length][];
+                for ( int i = 0; i < mapPageIds.length; i++ )
+                {
+                    int base = Math.toIntExact( mapPageIds[i] * ENTRIES_PER_MAP_PAGE );
+                    for ( int j = base; j < base + ENTRIES_PER_MAP_PAGE; j++ )
+                    {
+                        entries[j] &= ~FRESH_BIT;
+                    }
+                    mapPages[i] = Arrays.copyOfRange( entries, base, base + ENTRIES_PER_MAP_PAGE );
+                }
+                dirtyMapPages.clear();
+                releasableSlots = replacedSlots;
+                replacedSlots = new LongArrayList();
+            }
+
+            dataSwapper.force();
+            for ( int i = 0; i < mapPageIds.length; i++ )
+            {
+                for ( int j = 0; j < ENTRIES_PER_MAP_PAGE; j++ )
+                {
+                    mapBuffer.putLong( j * Long.BYTES, mapPages[i][j] );
+                }
+                mapSwapper.write( mapPageIds[i], mapBufferAddress, MAP_PAGE_SIZE );
+            }
+            mapSwapper.force();
+
+            synchronized ( this )
+            {
+                releasableSlots.forEach( slot -> releaseSlot( sectorOf( slot ), capacityOf( slot ) ) );
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getLastPageId()
+    {
+        return pageCount - 1;
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        synchronized ( forceLock )
+        {
+            synchronized ( this )
+            {
+                entries = new long[ENTRIES_PER_MAP_PAGE];
+                pageCount = 0;
+                endSector = 0;
+                for ( MutableLongList slots : freeSlots )
+                {
+                    slots.clear();
+                }
+                replacedSlots.clear();
+                dirtyMapPages.clear();
+            }
+            dataSwapper.truncate();
+            mapSwapper.truncate();
+        }
+    }
+
+    @Override
+    public boolean canAllocate()
+    {
+        // Compressed pages have no fixed place in the data file, so there is nothing to preallocate.
+        return false;
+    }
+
+    @Override
+    public void allocate( long newFileSize )
+    {
+        throw new UnsupportedOperationException( "Cannot preallocate compressed files" );
+    }
+
+    /**
+     * @return the number of bytes of the data file that are referenced by the page map, or are free to be reused.
+     */
+    synchronized long dataFileSize()
+    {
+        return endSector * SECTOR_SIZE;
+    }
+
+    private long takeScratchBuffer()
+    {
+        Long buffer = scratchBuffers.poll();
+        if ( buffer == null )
+        {
+            buffer = UnsafeUtil.allocateMemory( scratchBufferSize, INSTANCE );
+            allScratchBuffers.add( buffer );
+        }
+        return buffer;
+    }
+
+    private void releaseScratchBuffer( long buffer )
+    {
+        scratchBuffers.offer( buffer );
+    }
+
+    private void freeBuffers()
+    {
+        synchronized ( forceLock )
+        {
+            if ( buffersFreed )
+            {
+                return;
+            }
+            buffersFreed = true;
+            Long buffer;
+            while ( (buffer = allScratchBuffers.poll()) != null )
+            {
+                UnsafeUtil.free( buffer, scratchBufferSize, INSTANCE );
+            }
+            scratchBuffers.clear();
+            UnsafeUtil.freeByteBuffer( mapBuffer, INSTANCE );
+        }
+    }
+
+    private static long entry( long sector, int capacity, int storedLength )
+    {
+        return (sector << SECTOR_SHIFT) | ((long) capacity << CAPACITY_SHIFT) | storedLength;
+    }
+
+    private static long sectorOf( long entry )
+    {
+        return entry >>> SECTOR_SHIFT;
+    }
+
+    private static int capacityOf( long entry )
+    {
+        return (int) ((entry >>> CAPACITY_SHIFT) & CAPACITY_MASK);
+    }
+
+    private static int storedLengthOf( long entry )
+    {
+        return (int) (entry & STORED_LENGTH_MASK);
+    }
+
+    private static int sectorsFor( long bytes )
+    {
+        return (int) ((bytes + SECTOR_SIZE - 1) / SECTOR_SIZE);
+    }
+
+    private static long roundUpToSector( long bytes )
+    {
+        return sectorsFor( bytes ) * (long) SECTOR_SIZE;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompressedPageSwapper{filePageSize=" + filePageSize + ", path=" + path + "}";
+    }
+}
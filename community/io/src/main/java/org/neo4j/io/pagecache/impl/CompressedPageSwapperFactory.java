@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+import static org.neo4j.io.pagecache.impl.CompressedPageSwapper.MAP_PAGE_SIZE;
+import static org.neo4j.io.pagecache.impl.CompressedPageSwapper.SECTOR_SIZE;
+import static org.neo4j.io.pagecache.impl.CompressedPageSwapper.pageMapFile;
+
+/**
+ * A factory for CompressedPageSwapper instances, that stores the compressed data file and the page map file through the swappers of
+ * another factory.
+ * <p>
+ * Direct I/O is not supported for compressed files, since compressed pages are not aligned to the file page size.
+ *
+ * @see org.neo4j.io.pagecache.impl.CompressedPageSwapper
+ */
+public class CompressedPageSwapperFactory implements PageSwapperFactory
+{
+    private static final PageEvictionCallback NO_CALLBACK = filePageId -> {};
+
+    private final PageSwapperFactory delegate;
+
+    public CompressedPageSwapperFactory( PageSwapperFactory delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            Path path,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean useDirectIO ) throws IOException
+    {
+        PageSwapper dataSwapper = delegate.createPageSwapper( path, SECTOR_SIZE, NO_CALLBACK, createIfNotExist, false );
+        PageSwapper mapSwapper = null;
+        try
+        {
+            mapSwapper = delegate.createPageSwapper( pageMapFile( path ), MAP_PAGE_SIZE, NO_CALLBACK, createIfNotExist, false );
+            if ( mapSwapper.getLastPageId() < 0 && dataSwapper.getLastPageId() >= 0 )
+            {
+                throw new IOException( "Cannot map " + path + " as a compressed file, because it already has content, but no page map" );
+            }
+            return new CompressedPageSwapper( path, filePageSize, onEviction, dataSwapper, mapSwapper );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            dataSwapper.close();
+            if ( mapSwapper != null )
+            {
+                mapSwapper.close();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        // The delegate factory is owned by whoever created it
+    }
+}
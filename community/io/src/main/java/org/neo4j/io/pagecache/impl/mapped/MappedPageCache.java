@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.mapped;
+
+import org.eclipse.collections.api.set.ImmutableSet;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.buffer.IOBufferFactory;
+import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
+
+import static org.neo4j.io.pagecache.buffer.IOBufferFactory.DISABLED_BUFFER_FACTORY;
+
+/**
+ * A read-only {@link PageCache} that memory maps the files it is asked to map, instead of copying their pages into a cache.
+ * <p>
+ * The page cursors read straight from the memory mapped regions of the files, which means that the operating system page cache is the
+ * only cache involved. There are no page faults to copy data around, no eviction, and no locking, since nothing can change the files.
+ * This makes it a good fit for offline tools that only read the store, such as store dumps and read-only analysis of store copies.
+ * <p>
+ * Only read locked page cursors can be opened, and mapping a file that does not exist, or with options that would change it, fails.
+ * The files must not be modified, and in particular not truncated, while they are mapped, since that would make reads from the mapped
+ * regions fail with an {@link InternalError}.
+ * <p>
+ * The mapped regions are unmapped by the garbage collector once they are no longer referenced, rather than when the files are closed.
+ * This way a page cursor that is used after its file has been closed can never read unmapped memory.
+ */
+public class MappedPageCache implements PageCache
+{
+    private final FileSystemAbstraction fs;
+    private final VersionContextSupplier versionContextSupplier;
+    // Guarded by synchronized(this).
+    private final Map<Path,MappedPagedFile> mappedFiles = new LinkedHashMap<>();
+    private volatile boolean closed;
+
+    public MappedPageCache( FileSystemAbstraction fs, VersionContextSupplier versionContextSupplier )
+    {
+        this.fs = fs;
+        this.versionContextSupplier = versionContextSupplier;
+    }
+
+    @Override
+    public synchronized PagedFile map( Path path, VersionContextSupplier versionContextSupplier, int filePageSize, ImmutableSet<OpenOption> openOptions,
+            String databaseName ) throws IOException
+    {
+        assertNotClosed();
+        if ( filePageSize > PAGE_SIZE )
+        {
+            throw new IllegalArgumentException(
+                    "Cannot map files with a filePageSize (" + filePageSize + ") that is greater than the cachePageSize (" + PAGE_SIZE + ")" );
+        }
+        if ( filePageSize < Long.BYTES )
+        {
+            throw new IllegalArgumentException( "Cannot map files with a filePageSize (" + filePageSize + ") that is less than " + Long.BYTES + " bytes" );
+        }
+        boolean anyPageSize = false;
+        for ( OpenOption option : openOptions )
+        {
+            if ( option.equals( StandardOpenOption.TRUNCATE_EXISTING ) || option.equals( StandardOpenOption.DELETE_ON_CLOSE ) ||
+                 option.equals( PageCacheOpenOptions.COMPRESSED ) )
+            {
+                throw new UnsupportedOperationException( "Cannot map file " + path + " with option " + option + " in a read-only memory mapped page cache" );
+            }
+            if ( option.equals( PageCacheOpenOptions.ANY_PAGE_SIZE ) )
+            {
+                anyPageSize = true;
+            }
+        }
+
+        path = path.normalize();
+        MappedPagedFile pagedFile = mappedFiles.get( path );
+        if ( pagedFile != null )
+        {
+            if ( pagedFile.pageSize() != filePageSize && !anyPageSize )
+            {
+                throw new IllegalArgumentException( "Cannot map file " + path + " with filePageSize " + filePageSize + " bytes, " +
+                        "because it has already been mapped with a filePageSize of " + pagedFile.pageSize() + " bytes." );
+            }
+            pagedFile.refCount++;
+            return pagedFile;
+        }
+
+        // Creating the file would be a modification, so the CREATE option is only accepted for files that already exist.
+        if ( !fs.fileExists( path ) )
+        {
+            throw new NoSuchFileException( path.toString(), null, "Cannot map non-existing file" );
+        }
+        pagedFile = new MappedPagedFile( this, fs, path, filePageSize, databaseName );
+        pagedFile.refCount++;
+        mappedFiles.put( path, pagedFile );
+        return pagedFile;
+    }
+
+    synchronized void unmap( MappedPagedFile pagedFile )
+    {
+        if ( pagedFile.refCount > 0 && --pagedFile.refCount == 0 )
+        {
+            pagedFile.unmapped = true;
+            mappedFiles.remove( pagedFile.path() );
+        }
+    }
+
+    @Override
+    public synchronized Optional<PagedFile> getExistingMapping( Path path )
+    {
+        assertNotClosed();
+        MappedPagedFile pagedFile = mappedFiles.get( path.normalize() );
+        if ( pagedFile != null )
+        {
+            pagedFile.refCount++;
+            return Optional.of( pagedFile );
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized List<PagedFile> listExistingMappings()
+    {
+        assertNotClosed();
+        return new ArrayList<>( mappedFiles.values() );
+    }
+
+    @Override
+    public void flushAndForce()
+    {
+        // Nothing is ever written through this page cache.
+    }
+
+    @Override
+    public void flushAndForce( IOLimiter limiter )
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOLimiter cannot be null" );
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+        if ( !mappedFiles.isEmpty() )
+        {
+            StringBuilder msg = new StringBuilder( "Cannot close the PageCache while files are still mapped:" );
+            for ( MappedPagedFile pagedFile : mappedFiles.values() )
+            {
+                msg.append( "\n\t" ).append( pagedFile.path() ).append( " (" ).append( pagedFile.refCount );
+                msg.append( pagedFile.refCount == 1 ? " mapping)" : " mappings)" );
+            }
+            throw new IllegalStateException( msg.toString() );
+        }
+        closed = true;
+    }
+
+    @Override
+    public int pageSize()
+    {
+        return PAGE_SIZE;
+    }
+
+    /**
+     * @return the number of pages in the files that are currently mapped, since all of them are accessible without any page faults.
+     */
+    @Override
+    public synchronized long maxCachedPages()
+    {
+        long pages = 0;
+        for ( MappedPagedFile pagedFile : mappedFiles.values() )
+        {
+            pages += pagedFile.pageCount();
+        }
+        return pages;
+    }
+
+    @Override
+    public VersionContextSupplier versionContextSupplier()
+    {
+        return versionContextSupplier;
+    }
+
+    @Override
+    public IOBufferFactory getBufferFactory()
+    {
+        return DISABLED_BUFFER_FACTORY;
+    }
+
+    private void assertNotClosed()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( "The PageCache has been shut down" );
+        }
+    }
+}
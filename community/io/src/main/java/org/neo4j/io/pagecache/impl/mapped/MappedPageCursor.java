@@ -0,0 +1,482 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.mapped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+
+import org.neo4j.io.pagecache.CursorException;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * A read locked page cursor of a {@link MappedPagedFile}, that reads directly from the memory mapped regions of the file.
+ * <p>
+ * The files are never modified while they are mapped, so there are no page locks to take, and reads never have to be retried.
+ * Accesses outside of the current page raise the out-of-bounds flag, and return zero, rather than reading from another page.
+ */
+final class MappedPageCursor extends PageCursor
+{
+    private static final String READ_ONLY_MESSAGE = "Cannot write to read-locked page";
+
+    private final int pf_flags;
+    private final int filePageSize;
+    private final long initialPageId;
+    private MappedPagedFile pagedFile;
+    private MappedPageCursor linkedCursor;
+    private long nextPageId;
+    private long currentPageId = UNBOUND_PAGE_ID;
+    // The buffer that holds the current page, a private view of the shared region buffer, and the offset of the page within it.
+    private ByteBuffer buffer;
+    private ByteBuffer sharedBuffer;
+    private int pageOffset;
+    // Zero when the cursor is not on a page, such that all accesses are out of bounds.
+    private int pageSize;
+    private int offset;
+    private int mark;
+    private boolean outOfBounds;
+    private String cursorException;
+
+    MappedPageCursor( MappedPagedFile pagedFile, long pageId, int pf_flags )
+    {
+        this.pagedFile = pagedFile;
+        this.filePageSize = pagedFile.pageSize();
+        this.initialPageId = pageId;
+        this.nextPageId = pageId;
+        this.pf_flags = pf_flags;
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        MappedPagedFile file = pagedFile;
+        if ( file == null )
+        {
+            throw new IllegalStateException( "Cannot move a closed page cursor" );
+        }
+        long lastPageId = file.getLastPageId();
+        if ( nextPageId > lastPageId || nextPageId < 0 )
+        {
+            unbind();
+            return false;
+        }
+        bind( file, nextPageId );
+        nextPageId++;
+        return true;
+    }
+
+    @Override
+    public boolean next( long pageId ) throws IOException
+    {
+        if ( currentPageId == pageId )
+        {
+            return true;
+        }
+        nextPageId = pageId;
+        return next();
+    }
+
+    private void bind( MappedPagedFile file, long pageId )
+    {
+        ByteBuffer pageBuffer = file.bufferOf( pageId );
+        if ( pageBuffer != sharedBuffer )
+        {
+            // The buffer position is used for bulk reads, so every cursor needs its own view of the shared buffer.
+            sharedBuffer = pageBuffer;
+            buffer = pageBuffer.duplicate();
+        }
+        currentPageId = pageId;
+        pageOffset = file.offsetOf( pageId );
+        pageSize = filePageSize;
+        offset = 0;
+        cursorException = null;
+    }
+
+    private void unbind()
+    {
+        currentPageId = UNBOUND_PAGE_ID;
+        pageSize = 0;
+        offset = 0;
+        cursorException = null;
+    }
+
+    @Override
+    public void rewind()
+    {
+        nextPageId = initialPageId;
+        unbind();
+    }
+
+    @Override
+    public void close()
+    {
+        MappedPageCursor cursor = this;
+        while ( cursor != null && cursor.pagedFile != null )
+        {
+            cursor.unbind();
+            cursor.pagedFile = null;
+            cursor.buffer = null;
+            cursor.sharedBuffer = null;
+            cursor = cursor.linkedCursor;
+        }
+    }
+
+    @Override
+    public boolean shouldRetry()
+    {
+        // Nothing can change the mapped files, so reads are always consistent.
+        return false;
+    }
+
+    @Override
+    public long getCurrentPageId()
+    {
+        return currentPageId;
+    }
+
+    @Override
+    public int getCurrentPageSize()
+    {
+        return currentPageId == UNBOUND_PAGE_ID ? UNBOUND_PAGE_SIZE : pageSize;
+    }
+
+    @Override
+    public Path getCurrentFile()
+    {
+        return currentPageId == UNBOUND_PAGE_ID ? null : pagedFile.path();
+    }
+
+    @Override
+    public PageCursor openLinkedCursor( long pageId )
+    {
+        MappedPagedFile file = pagedFile;
+        if ( file == null )
+        {
+            throw new IllegalStateException( "Cannot open linked cursor on closed page cursor" );
+        }
+        if ( linkedCursor != null )
+        {
+            linkedCursor.close();
+        }
+        linkedCursor = new MappedPageCursor( file, pageId, pf_flags );
+        return linkedCursor;
+    }
+
+    // --- IO methods:
+
+    /**
+     * @return the position in the buffer of an access of the given size at the given offset in the page, or -1 if the access would be
+     * out of bounds, in which case the {@link #outOfBounds} flag has been raised.
+     */
+    private int position( int offset, int size )
+    {
+        if ( offset < 0 || offset + size > pageSize )
+        {
+            outOfBounds = true;
+            return -1;
+        }
+        return pageOffset + offset;
+    }
+
+    @Override
+    public byte getByte()
+    {
+        byte value = getByte( offset );
+        offset++;
+        return value;
+    }
+
+    @Override
+    public byte getByte( int offset )
+    {
+        int p = position( offset, Byte.BYTES );
+        return p == -1 ? 0 : buffer.get( p );
+    }
+
+    @Override
+    public short getShort()
+    {
+        short value = getShort( offset );
+        offset += Short.BYTES;
+        return value;
+    }
+
+    @Override
+    public short getShort( int offset )
+    {
+        int p = position( offset, Short.BYTES );
+        return p == -1 ? 0 : buffer.getShort( p );
+    }
+
+    @Override
+    public int getInt()
+    {
+        int value = getInt( offset );
+        offset += Integer.BYTES;
+        return value;
+    }
+
+    @Override
+    public int getInt( int offset )
+    {
+        int p = position( offset, Integer.BYTES );
+        return p == -1 ? 0 : buffer.getInt( p );
+    }
+
+    @Override
+    public long getLong()
+    {
+        long value = getLong( offset );
+        offset += Long.BYTES;
+        return value;
+    }
+
+    @Override
+    public long getLong( int offset )
+    {
+        int p = position( offset, Long.BYTES );
+        return p == -1 ? 0 : buffer.getLong( p );
+    }
+
+    @Override
+    public void getBytes( byte[] data )
+    {
+        getBytes( data, 0, data.length );
+    }
+
+    @Override
+    public void getBytes( byte[] data, int arrayOffset, int length )
+    {
+        if ( arrayOffset + length > data.length )
+        {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        int p = position( offset, length );
+        if ( p != -1 )
+        {
+            buffer.position( p );
+            buffer.get( data, arrayOffset, length );
+        }
+        offset += length;
+    }
+
+    @Override
+    public int copyTo( int sourceOffset, PageCursor targetCursor, int targetOffset, int lengthInBytes )
+    {
+        if ( !targetCursor.isWriteLocked() )
+        {
+            throw new IllegalArgumentException( "Target cursor must be writable" );
+        }
+        int sourcePageSize = getCurrentPageSize();
+        int targetPageSize = targetCursor.getCurrentPageSize();
+        if ( sourceOffset >= 0 && targetOffset >= 0 && sourceOffset < sourcePageSize && targetOffset < targetPageSize && lengthInBytes >= 0 )
+        {
+            int bytes = Math.min( lengthInBytes, Math.min( sourcePageSize - sourceOffset, targetPageSize - targetOffset ) );
+            for ( int i = 0; i < bytes; i++ )
+            {
+                targetCursor.putByte( targetOffset + i, buffer.get( pageOffset + sourceOffset + i ) );
+            }
+            return bytes;
+        }
+        outOfBounds = true;
+        return 0;
+    }
+
+    @Override
+    public int copyTo( int sourceOffset, ByteBuffer targetBuffer )
+    {
+        int bytesToCopy = Math.min( targetBuffer.remaining(), pageSize - sourceOffset );
+        if ( sourceOffset >= 0 && sourceOffset < pageSize )
+        {
+            int p = pageOffset + sourceOffset;
+            buffer.limit( p + bytesToCopy ).position( p );
+            targetBuffer.put( buffer );
+            buffer.clear();
+        }
+        else
+        {
+            outOfBounds = true;
+        }
+        return bytesToCopy;
+    }
+
+    @Override
+    public void setOffset( int offset )
+    {
+        this.offset = offset;
+        if ( offset < 0 || offset > filePageSize )
+        {
+            this.offset = 0;
+            outOfBounds = true;
+        }
+    }
+
+    @Override
+    public int getOffset()
+    {
+        return offset;
+    }
+
+    @Override
+    public void mark()
+    {
+        mark = offset;
+    }
+
+    @Override
+    public void setOffsetToMark()
+    {
+        offset = mark;
+    }
+
+    @Override
+    public boolean checkAndClearBoundsFlag()
+    {
+        boolean result = false;
+        for ( MappedPageCursor cursor = this; cursor != null; cursor = cursor.linkedCursor )
+        {
+            result |= cursor.outOfBounds;
+            cursor.outOfBounds = false;
+        }
+        return result;
+    }
+
+    @Override
+    public void checkAndClearCursorException() throws CursorException
+    {
+        for ( MappedPageCursor cursor = this; cursor != null; cursor = cursor.linkedCursor )
+        {
+            String message = cursor.cursorException;
+            if ( message != null )
+            {
+                clearCursorException();
+                throw new CursorException( message );
+            }
+        }
+    }
+
+    @Override
+    public void raiseOutOfBounds()
+    {
+        outOfBounds = true;
+    }
+
+    @Override
+    public void setCursorException( String message )
+    {
+        cursorException = Objects.requireNonNull( message );
+    }
+
+    @Override
+    public void clearCursorException()
+    {
+        for ( MappedPageCursor cursor = this; cursor != null; cursor = cursor.linkedCursor )
+        {
+            cursor.cursorException = null;
+        }
+    }
+
+    @Override
+    public boolean isWriteLocked()
+    {
+        return false;
+    }
+
+    // --- Write methods, which are not supported since the cursor is always read locked:
+
+    @Override
+    public void putByte( byte value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putByte( int offset, byte value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putShort( short value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putShort( int offset, short value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putInt( int value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putInt( int offset, int value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putLong( long value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putLong( int offset, long value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putBytes( byte[] data )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putBytes( byte[] data, int arrayOffset, int length )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void putBytes( int bytes, byte value )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void shiftBytes( int sourceOffset, int length, int shift )
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+
+    @Override
+    public void zapPage()
+    {
+        throw new IllegalStateException( READ_ONLY_MESSAGE );
+    }
+}
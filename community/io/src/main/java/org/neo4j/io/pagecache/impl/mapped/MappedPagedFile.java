@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.mapped;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+
+/**
+ * A file mapped by the {@link MappedPageCache}.
+ * <p>
+ * The whole pages of the file are memory mapped in regions of at most {@link #MAX_REGION_SIZE} bytes, such that no page ever straddles
+ * two regions. If the file ends with a partial page, then that page is read into a zero padded buffer of its own, since reading beyond the
+ * end of a memory mapped file is not allowed.
+ */
+final class MappedPagedFile implements PagedFile
+{
+    private static final int MAX_REGION_SIZE = 1 << 30;
+
+    private final MappedPageCache pageCache;
+    private final Path path;
+    private final int filePageSize;
+    private final String databaseName;
+    private final int pagesPerRegion;
+    private final ByteBuffer[] regions;
+    private final long wholePages;
+    private final ByteBuffer tailPage;
+    private final long lastPageId;
+    // Guarded by synchronized(pageCache).
+    int refCount;
+    // Set once the last reference has been closed. A file that has been unmapped is never mapped again; the page cache makes a new one.
+    volatile boolean unmapped;
+
+    MappedPagedFile( MappedPageCache pageCache, FileSystemAbstraction fs, Path path, int filePageSize, String databaseName ) throws IOException
+    {
+        this.pageCache = pageCache;
+        this.path = path;
+        this.filePageSize = filePageSize;
+        this.databaseName = databaseName;
+        this.pagesPerRegion = MAX_REGION_SIZE / filePageSize;
+        try ( StoreChannel channel = fs.read( path ) )
+        {
+            if ( !(channel instanceof StoreFileChannel) )
+            {
+                throw new IOException( "Cannot memory map " + path + ", because the file system is not backed by real files" );
+            }
+            StoreFileChannel fileChannel = (StoreFileChannel) channel;
+            long fileSize = fileChannel.size();
+            wholePages = fileSize / filePageSize;
+            regions = new ByteBuffer[Math.toIntExact( (wholePages + pagesPerRegion - 1) / pagesPerRegion )];
+            long regionSize = (long) pagesPerRegion * filePageSize;
+            for ( int i = 0; i < regions.length; i++ )
+            {
+                long position = i * regionSize;
+                regions[i] = fileChannel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( regionSize, wholePages * filePageSize - position ) );
+            }
+            int tailBytes = (int) (fileSize % filePageSize);
+            if ( tailBytes > 0 )
+            {
+                tailPage = ByteBuffer.allocate( filePageSize );
+                tailPage.limit( tailBytes );
+                fileChannel.position( wholePages * filePageSize );
+                fileChannel.readAll( tailPage );
+                tailPage.clear();
+            }
+            else
+            {
+                tailPage = null;
+            }
+            lastPageId = (fileSize + filePageSize - 1) / filePageSize - 1;
+        }
+    }
+
+    @Override
+    public PageCursor io( long pageId, int pf_flags, PageCursorTracer tracer )
+    {
+        int lockFlags = pf_flags & (PF_SHARED_READ_LOCK | PF_SHARED_WRITE_LOCK);
+        if ( lockFlags == PF_SHARED_WRITE_LOCK )
+        {
+            throw new UnsupportedOperationException( "Cannot write to " + path + ", because it is mapped by a read-only memory mapped page cache" );
+        }
+        if ( lockFlags != PF_SHARED_READ_LOCK )
+        {
+            throw new IllegalArgumentException( lockFlags == 0 ? "Must specify either PF_SHARED_WRITE_LOCK or PF_SHARED_READ_LOCK"
+                                                               : "Cannot specify both PF_SHARED_WRITE_LOCK and PF_SHARED_READ_LOCK" );
+        }
+        return new MappedPageCursor( this, pageId, pf_flags );
+    }
+
+    /**
+     * @return the buffer that holds the given page, which must be between zero and the last page id, inclusive.
+     */
+    ByteBuffer bufferOf( long pageId )
+    {
+        return pageId < wholePages ? regions[(int) (pageId / pagesPerRegion)] : tailPage;
+    }
+
+    /**
+     * @return the offset of the given page in the {@link #bufferOf(long) buffer} that holds it.
+     */
+    int offsetOf( long pageId )
+    {
+        return pageId < wholePages ? (int) (pageId % pagesPerRegion) * filePageSize : 0;
+    }
+
+    long pageCount()
+    {
+        return lastPageId + 1;
+    }
+
+    @Override
+    public void preFetch( long pageId )
+    {   // the operating system pages in mapped memory on demand, there is nothing for us to fetch
+    }
+
+    @Override
+    public int pageSize()
+    {
+        return filePageSize;
+    }
+
+    @Override
+    public long fileSize() throws FileIsNotMappedException
+    {
+        return (getLastPageId() + 1) * filePageSize;
+    }
+
+    @Override
+    public Path path()
+    {
+        return path;
+    }
+
+    @Override
+    public void flushAndForce()
+    {
+        // Nothing is ever written to the file.
+    }
+
+    @Override
+    public void flushAndForce( IOLimiter limiter )
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOPSLimiter cannot be null" );
+        }
+    }
+
+    @Override
+    public long getLastPageId() throws FileIsNotMappedException
+    {
+        if ( unmapped )
+        {
+            throw new FileIsNotMappedException( path );
+        }
+        return lastPageId;
+    }
+
+    @Override
+    public void close()
+    {
+        pageCache.unmap( this );
+    }
+
+    @Override
+    public void setDeleteOnClose( boolean deleteOnClose )
+    {
+        if ( deleteOnClose )
+        {
+            throw new UnsupportedOperationException( "Cannot delete " + path + ", because it is mapped by a read-only memory mapped page cache" );
+        }
+    }
+
+    @Override
+    public boolean isDeleteOnClose()
+    {
+        return false;
+    }
+
+    @Override
+    public Optional<String> getDatabaseName()
+    {
+        return Optional.ofNullable( databaseName );
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + path + "]";
+    }
+}
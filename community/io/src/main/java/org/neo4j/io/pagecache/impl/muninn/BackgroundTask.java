@@ -35,7 +35,7 @@ abstract class BackgroundTask implements Runnable
     public void run()
     {
         int pageCacheId = pageCache.getPageCacheId();
-        String taskName = getClass().getSimpleName();
+        String taskName = taskName();
         String threadName = "MuninnPageCache[" + pageCacheId + "]-" + taskName;
         Thread thread = Thread.currentThread();
         String previousName = thread.getName();
@@ -50,5 +50,10 @@ abstract class BackgroundTask implements Runnable
         }
     }
 
+    protected String taskName()
+    {
+        return getClass().getSimpleName();
+    }
+
     protected abstract void run( MuninnPageCache pageCache );
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The usage counters of the {@link PageReplacementPolicy#CLOCK} policy.
+ */
+final class ClockUsagePolicy extends PageUsagePolicy
+{
+    static final PageUsagePolicy INSTANCE = new ClockUsagePolicy();
+
+    private static final int MAX_USAGE_COUNT = 4;
+
+    private ClockUsagePolicy()
+    {
+    }
+
+    /**
+     * Increment the usage stamp to at most 4.
+     **/
+    @Override
+    void incrementUsage( PageList pages, long pageRef )
+    {
+        int usage = pages.getUsage( pageRef );
+        if ( usage < MAX_USAGE_COUNT ) // avoid cache sloshing by not doing a write if counter is already maxed out
+        {
+            pages.compareAndSetUsage( pageRef, usage, usage + 1 );
+        }
+    }
+
+    /**
+     * Decrement the usage stamp. Returns true if it reaches 0.
+     **/
+    @Override
+    boolean decrementUsage( PageList pages, long pageRef )
+    {
+        int usage = pages.getUsage( pageRef );
+        if ( usage > 0 )
+        {
+            pages.compareAndSetUsage( pageRef, usage, usage - 1 );
+        }
+        return usage <= 1;
+    }
+
+    @Override
+    void faulted( PageList pages, long pageRef, int swapperId, long filePageId )
+    {
+    }
+
+    @Override
+    void evicted( PageList pages, long pageRef, int swapperId, long filePageId )
+    {
+    }
+}
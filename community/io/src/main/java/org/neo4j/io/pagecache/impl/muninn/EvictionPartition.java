@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+
+/**
+ * A contiguous range of cache pages in the {@link PageList}, with its own free-list, clock arm and background eviction thread.
+ * <p>
+ * Splitting the page list into partitions lets several eviction threads sweep the cache concurrently, and spreads the page
+ * faulting threads over several free-lists, such that they do not all contend on the same free-list head.
+ * <p>
+ * The free-list is a thread-safe linked-list of {@link FreePage} objects, or an {@link AtomicInteger}, or null.
+ * Initially, the field is an AtomicInteger that counts from the first to the last page id of the partition, at which point all of the
+ * pages of the partition have been put in use. Once this happens, the field is set to null to allow the background eviction thread
+ * of the partition to start its work. From that point on, the field will operate as a concurrent stack of FreePage objects.
+ * The eviction thread pushes newly freed FreePage objects onto the stack, and page faulting threads pops FreePage
+ * objects from the stack. The FreePage objects are single-use, to avoid running into the ABA-problem.
+ */
+final class EvictionPartition
+{
+    // The field offset to unsafely access the freelist field.
+    private static final long freelistOffset = UnsafeUtil.getFieldOffset( EvictionPartition.class, "freelist" );
+
+    final int index;
+    final int startPageId;
+    final int endPageId;
+    // The number of free pages we will normally try to keep in this partition.
+    final int keepFree;
+    // The upper bound on how far the keep-free target is allowed to grow under heavy page faulting.
+    final int maxKeepFree;
+
+    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
+    private volatile Object freelist;
+
+    // The thread that runs the eviction algorithm for this partition. We unpark this when we've run out of free pages to grab.
+    volatile Thread evictionThread;
+    // True if the eviction thread is currently parked, without someone having signalled it to wake up. This is used as a weak guard
+    // for unparking the eviction thread, because calling unpark too much (from many page faulting threads) can cause contention on
+    // the locks protecting that threads scheduling meta-data in the OS kernel.
+    volatile boolean evictorParked;
+    // The number of times a page faulting thread found this partition, and all the other partitions, empty, and had to evict a page itself.
+    // Reset by the eviction thread of this partition.
+    volatile int cooperativeEvictions;
+
+    // Only accessed by the eviction thread of this partition.
+    int clockArm;
+    int currentKeepFree;
+
+    EvictionPartition( int index, int startPageId, int endPageId, int keepFree, int maxKeepFree )
+    {
+        this.index = index;
+        this.startPageId = startPageId;
+        this.endPageId = endPageId;
+        this.keepFree = keepFree;
+        this.maxKeepFree = Math.max( keepFree, maxKeepFree );
+        this.clockArm = startPageId;
+        this.currentKeepFree = keepFree;
+        setFreelistHead( new AtomicInteger( startPageId ) );
+    }
+
+    int pageCount()
+    {
+        return endPageId - startPageId;
+    }
+
+    boolean contains( int pageId )
+    {
+        return startPageId <= pageId && pageId < endPageId;
+    }
+
+    /**
+     * Adjust the keep-free target of this partition to the observed page fault pressure. If page faulting threads had to evict pages
+     * themselves since the last eviction run, then we are not keeping up, and the target is doubled. Otherwise the target decays back
+     * towards its normal value.
+     *
+     * @return the keep-free target to use for the next eviction run.
+     */
+    int adjustKeepFree()
+    {
+        if ( cooperativeEvictions > 0 )
+        {
+            cooperativeEvictions = 0;
+            currentKeepFree = Math.min( maxKeepFree, currentKeepFree * 2 );
+        }
+        else if ( currentKeepFree > keepFree )
+        {
+            currentKeepFree = Math.max( keepFree, currentKeepFree - (currentKeepFree >>> 3) - 1 );
+        }
+        return currentKeepFree;
+    }
+
+    Object getFreelistHead()
+    {
+        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+    }
+
+    boolean compareAndSetFreelistHead( Object expected, Object update )
+    {
+        return UnsafeUtil.compareAndSwapObject( this, freelistOffset, expected, update );
+    }
+
+    void setFreelistHead( Object newFreelistHead )
+    {
+        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EvictionPartition[index:" + index + ", pages:" + startPageId + "-" + endPageId + "]";
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.FlushEvent;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.neo4j.scheduler.JobMonitoringParams.systemJob;
+
+/**
+ * Issues the vectored writes of a flush in the background, with a bounded number of writes in flight at any time.
+ * <p>
+ * The flushing thread walks the translation tables of one or more files, flush-locks the dirty pages, and submits every run of
+ * consecutive dirty file pages as one vectored write. The runs come out of the translation tables in ascending file page order,
+ * so the writes of each file are sorted, and as large as the dirty runs allow. The writes are issued by
+ * {@link Group#FILE_IO_HELPER} jobs, while the flushing thread moves on to collect the next run. If the maximum number of writes
+ * are already in flight, then the flushing thread waits for one of them to complete, such that a flush cannot run arbitrarily
+ * far ahead of the storage device while holding flush locks.
+ * <p>
+ * The {@link IOLimiter} is called by the flushing thread for every submitted write, with the number of IOs that have completed
+ * since the previous call, and with a single stamp for the whole pipeline. The limiter therefore throttles the aggregate IO rate of
+ * all the files flushed through the pipeline, rather than that of each file on its own.
+ * <p>
+ * Tracer events are not thread-safe, so the IO threads never touch them. Each write records its outcome into an event of its own, and
+ * the flushing thread reports the recorded outcomes of the completed writes to the flush events of the tracer, whenever it submits a write
+ * and when it awaits the completion of the pipeline.
+ */
+final class FlushPipeline
+{
+    private final JobScheduler scheduler;
+    private final IOLimiter limiter;
+    private final int maxWritesInFlight;
+    private final Semaphore writesInFlight;
+    private final AtomicInteger completedIOs = new AtomicInteger();
+    private final Queue<WriteEvent> completedWrites = new ConcurrentLinkedQueue<>();
+    private long limiterStamp = IOLimiter.INITIAL_STAMP;
+    private IOException failure;
+
+    FlushPipeline( JobScheduler scheduler, IOLimiter limiter, int maxWritesInFlight )
+    {
+        this.scheduler = scheduler;
+        this.limiter = limiter;
+        this.maxWritesInFlight = maxWritesInFlight;
+        this.writesInFlight = new Semaphore( maxWritesInFlight );
+    }
+
+    /**
+     * Submit a write to the pipeline, and apply the IO limit. The write is always carried out, even if an earlier write has failed,
+     * because it is responsible for unlocking the pages it covers.
+     *
+     * @param file the file being flushed, which the {@link IOLimiter} is allowed to force.
+     * @param ios the number of IOs the write amounts to.
+     * @param flushEvent the flush event of the tracer, which the outcome of the write is reported to by the flushing thread.
+     * @param write the write to perform.
+     * @throws IOException if this or an earlier write has failed.
+     */
+    void submit( Flushable file, int ios, FlushEvent flushEvent, Write write ) throws IOException
+    {
+        WriteEvent writeEvent = new WriteEvent( flushEvent );
+        writesInFlight.acquireUninterruptibly();
+        Runnable job = () ->
+        {
+            try
+            {
+                write.write( writeEvent );
+                completedIOs.addAndGet( ios );
+            }
+            catch ( IOException e )
+            {
+                failed( e );
+            }
+            finally
+            {
+                completedWrites.add( writeEvent );
+                writesInFlight.release();
+            }
+        };
+        try
+        {
+            scheduler.schedule( Group.FILE_IO_HELPER, systemJob( "Page cache flush" ), job );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            // The scheduler is shutting down, so we do the write ourselves.
+            job.run();
+        }
+        limiterStamp = limiter.maybeLimitIO( limiterStamp, completedIOs.getAndSet( 0 ), file );
+        reportCompletedWrites();
+        throwIfFailed();
+    }
+
+    /**
+     * Wait for all submitted writes to complete. This must always be called before the flush completes, even if it failed,
+     * so that no writes are left running in the background.
+     */
+    void awaitCompletion()
+    {
+        writesInFlight.acquireUninterruptibly( maxWritesInFlight );
+        writesInFlight.release( maxWritesInFlight );
+        reportCompletedWrites();
+    }
+
+    private void reportCompletedWrites()
+    {
+        WriteEvent writeEvent;
+        while ( (writeEvent = completedWrites.poll()) != null )
+        {
+            writeEvent.report();
+        }
+    }
+
+    private synchronized void failed( IOException e )
+    {
+        if ( failure == null )
+        {
+            failure = e;
+        }
+        else
+        {
+            failure.addSuppressed( e );
+        }
+    }
+
+    /**
+     * @throws IOException if any of the writes completed so far has failed.
+     */
+    synchronized void throwIfFailed() throws IOException
+    {
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    @FunctionalInterface
+    interface Write
+    {
+        /**
+         * @param flushEvent the event of this write, which is only ever used by the thread that performs the write.
+         */
+        void write( FlushEvent flushEvent ) throws IOException;
+    }
+
+    /**
+     * The outcome of a single write, recorded by the IO thread that performs it, and reported to the flush event of the tracer by the
+     * flushing thread once the write has completed.
+     */
+    private static final class WriteEvent implements FlushEvent
+    {
+        private final FlushEvent flushEvent;
+        private long bytesWritten;
+        private int pagesFlushed;
+        private int pagesMerged;
+        private boolean done;
+        private IOException exception;
+
+        WriteEvent( FlushEvent flushEvent )
+        {
+            this.flushEvent = flushEvent;
+        }
+
+        @Override
+        public void addBytesWritten( long bytes )
+        {
+            bytesWritten += bytes;
+        }
+
+        @Override
+        public void done()
+        {
+            done = true;
+        }
+
+        @Override
+        public void done( IOException exception )
+        {
+            this.exception = exception;
+        }
+
+        @Override
+        public void addPagesFlushed( int pageCount )
+        {
+            pagesFlushed += pageCount;
+        }
+
+        @Override
+        public void addPagesMerged( int pagesMerged )
+        {
+            this.pagesMerged += pagesMerged;
+        }
+
+        void report()
+        {
+            flushEvent.addBytesWritten( bytesWritten );
+            flushEvent.addPagesFlushed( pagesFlushed );
+            flushEvent.addPagesMerged( pagesMerged );
+            if ( exception != null )
+            {
+                flushEvent.done( exception );
+            }
+            else if ( done )
+            {
+                flushEvent.done();
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,15 +42,19 @@ import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PageCachePriority;
+import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.buffer.IOBufferFactory;
+import org.neo4j.io.pagecache.impl.CompressedPageSwapperFactory;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.memory.EmptyMemoryTracker;
 import org.neo4j.memory.MemoryTracker;
@@ -63,6 +68,7 @@ import org.neo4j.time.SystemNanoClock;
 import static java.lang.String.format;
 import static org.neo4j.common.Subject.SYSTEM;
 import static org.neo4j.internal.helpers.Numbers.isPowerOfTwo;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.scheduler.Group.FILE_IO_HELPER;
 import static org.neo4j.io.pagecache.buffer.IOBufferFactory.DISABLED_BUFFER_FACTORY;
 import static org.neo4j.scheduler.JobMonitoringParams.systemJob;
@@ -132,6 +138,36 @@ public class MuninnPageCache implements PageCache
     private static final int pagesToKeepFree = getInteger(
             MuninnPageCache.class, "pagesToKeepFree", 30 );
 
+    // The number of background eviction threads. The page list is split into this many partitions, each with its own free-list,
+    // clock arm and eviction thread, as long as every partition gets at least minPagesPerEvictionPartition pages.
+    // By default we use one eviction thread for every 16 processors, since every eviction thread can feed many page faulting threads.
+    private static final int evictionThreads = getInteger(
+            MuninnPageCache.class, "evictionThreads", Math.max( 1, Runtime.getRuntime().availableProcessors() / 16 ) );
+
+    // The smallest number of pages we are willing to give an eviction partition.
+    private static final int minPagesPerEvictionPartition = getInteger(
+            MuninnPageCache.class, "minPagesPerEvictionPartition", 4096 );
+
+    // How many times larger than pagesToKeepFree the keep-free target of a partition can grow, when page faulting threads
+    // repeatedly find the free-lists empty and have to evict pages themselves.
+    private static final int maxKeepFreeMultiplier = getInteger(
+            MuninnPageCache.class, "maxKeepFreeMultiplier", 32 );
+
+    // The percentage of the cache that the pages of high priority files are allowed to occupy, before they are evicted like normal pages.
+    // This is capped at 90%, such that there is always room for the pages of the other files.
+    private static final int highPriorityPageBudgetPercent = getInteger(
+            MuninnPageCache.class, "highPriorityPageBudgetPercent", 10 );
+
+    // The number of vectored writes that a flush is allowed to have in flight on the background IO threads at a time. When this is
+    // zero, the flushing thread does all the writes itself, one after the other. See FlushPipeline.
+    private static final int flushWritesInFlight = getInteger(
+            MuninnPageCache.class, "flushWritesInFlight", 0 );
+
+    // The number of pages that can be queued up or in the process of being pre-fetched by PagedFile.preFetch at a time. Further
+    // pre-fetch hints are ignored until some of those have completed. Zero disables pre-fetching of individual pages.
+    private static final int maxPreFetchesInFlight = getInteger(
+            MuninnPageCache.class, "maxPreFetchesInFlight", 64 );
+
     // This is how many times that, during cooperative eviction, we'll iterate through the entire set of pages looking
     // for a page to evict, before we give up and throw CacheLiveLockException. This MUST be greater than 1.
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
@@ -142,10 +178,6 @@ public class MuninnPageCache implements PageCache
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -165,40 +197,42 @@ public class MuninnPageCache implements PageCache
     // Used when trying to figure out number of available pages in a page cache. Could be returned from tryGetNumberOfAvailablePages.
     private static final int UNKNOWN_AVAILABLE_PAGES = -1;
 
+    private static final String TRACER_PAGE_PRE_FETCHER_TAG = "Page pre-fetcher";
+
     private final int pageCacheId;
     private final PageSwapperFactory swapperFactory;
+    private final PageSwapperFactory compressedSwapperFactory;
     private final int cachePageSize;
-    private final int keepFree;
     private final PageCacheTracer pageCacheTracer;
     private final VersionContextSupplier versionContextSupplier;
     private final IOBufferFactory bufferFactory;
+    private final PageReplacementPolicy replacementPolicy;
     final PageList pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
     // accesses to take place without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
-    // Initially, the field is an AtomicInteger that counts from zero to the max page count, at which point all of the
-    // pages have been put in use. Once this happens, the field is set to null to allow the background eviction thread
-    // to start its work. From that point on, the field will operate as a concurrent stack of FreePage objects. The
-    // eviction thread pushes newly freed FreePage objects onto the stack, and page faulting threads pops FreePage
-    // objects from the stack. The FreePage objects are single-use, to avoid running into the ABA-problem.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    // The page list is split into eviction partitions, each with its own free-list, clock arm and eviction thread.
+    // Review the comment on the EvictionPartition class before making changes to the free-list handling.
+    final EvictionPartition[] partitions;
+    private final int pagesPerPartition;
+
+    // The number of cache pages that the pages of high priority files are allowed to occupy.
+    private final long highPriorityPageBudget;
+    // The number of pre-fetches of individual pages that have been scheduled, but not yet completed.
+    private final AtomicInteger preFetchesInFlight = new AtomicInteger();
+    // Set once a file has been mapped with a priority other than normal. Until then, eviction can skip looking up the priority of pages.
+    private volatile boolean hasPrioritisedFiles;
+    // True while the high priority pages are within their budget, as observed at the start of the most recent eviction run.
+    private volatile boolean pinHighPriorityPages;
+
+    // The number of writes in flight allowed for asynchronous flushes, or zero if flushes are synchronous.
+    private volatile int maxFlushWritesInFlight = flushWritesInFlight;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
     private volatile IOException evictorException;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
@@ -256,6 +290,24 @@ public class MuninnPageCache implements PageCache
         this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, versionContextSupplier, jobScheduler, clock, memoryTracker, bufferFactory );
     }
 
+    /**
+     * Create page cache.
+     * @param swapperFactory page cache swapper factory
+     * @param memoryAllocator the source of native memory the page cache should use
+     * @param pageCacheTracer global page cache tracer
+     * @param versionContextSupplier supplier of thread local (transaction local) version context that will provide access to thread local version context
+     * @param memoryTracker underlying buffers allocation memory tracker
+     * @param bufferFactory temporal flush buffer factories
+     * @param replacementPolicy the policy that decides which pages to evict
+     */
+    public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, PageCacheTracer pageCacheTracer,
+            VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, MemoryTracker memoryTracker,
+            IOBufferFactory bufferFactory, PageReplacementPolicy replacementPolicy )
+    {
+        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, versionContextSupplier, jobScheduler, clock, memoryTracker, bufferFactory,
+                calculateEvictionPartitionCount( calculatePageCount( memoryAllocator, PAGE_SIZE ) ), replacementPolicy );
+    }
+
     /**
      * Constructor variant that allows setting a non-standard cache page size.
      * Only ever use this for testing.
@@ -265,6 +317,18 @@ public class MuninnPageCache implements PageCache
     public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, int cachePageSize, PageCacheTracer pageCacheTracer,
             VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, MemoryTracker memoryTracker,
             IOBufferFactory bufferFactory )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, pageCacheTracer, versionContextSupplier, jobScheduler, clock, memoryTracker, bufferFactory,
+                calculateEvictionPartitionCount( calculatePageCount( memoryAllocator, cachePageSize ) ), PageReplacementPolicy.CLOCK );
+    }
+
+    /**
+     * Constructor variant that allows setting the number of eviction partitions, and thereby background eviction threads, directly.
+     * Only ever use this for testing.
+     */
+    MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, int cachePageSize, PageCacheTracer pageCacheTracer,
+            VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, MemoryTracker memoryTracker,
+            IOBufferFactory bufferFactory, int evictionPartitions, PageReplacementPolicy replacementPolicy )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -275,18 +339,32 @@ public class MuninnPageCache implements PageCache
 
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
+        this.compressedSwapperFactory = new CompressedPageSwapperFactory( swapperFactory );
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.pageCacheTracer = pageCacheTracer;
         this.versionContextSupplier = versionContextSupplier;
         this.printExceptionsOnClose = true;
         this.bufferFactory = bufferFactory;
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize, memoryTracker );
-        this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, UnsafeUtil.pageSize() );
+        this.replacementPolicy = replacementPolicy;
+        this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, UnsafeUtil.pageSize(),
+                replacementPolicy.createUsagePolicy( maxPages ) );
         this.scheduler = jobScheduler;
         this.clock = clock;
 
-        setFreelistHead( new AtomicInteger() );
+        int partitionCount = Math.max( 1, Math.min( evictionPartitions, maxPages / 2 ) );
+        this.pagesPerPartition = maxPages / partitionCount;
+        this.partitions = new EvictionPartition[partitionCount];
+        for ( int i = 0; i < partitionCount; i++ )
+        {
+            int startPageId = i * pagesPerPartition;
+            int endPageId = i == partitionCount - 1 ? maxPages : startPageId + pagesPerPartition;
+            int keepFree = Math.min( pagesToKeepFree, (endPageId - startPageId) / 2 );
+            int maxKeepFree = Math.min( keepFree * maxKeepFreeMultiplier, (endPageId - startPageId) / 8 );
+            partitions[i] = new EvictionPartition( i, startPageId, endPageId, keepFree, maxKeepFree );
+        }
+        this.highPriorityPageBudget = (long) maxPages * Math.max( 0, Math.min( highPriorityPageBudgetPercent, 90 ) ) / 100;
+        this.pinHighPriorityPages = highPriorityPageBudget > 0;
     }
 
     private static void verifyHacks()
@@ -304,6 +382,11 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    private static int calculateEvictionPartitionCount( int maxPages )
+    {
+        return Math.max( 1, Math.min( evictionThreads, maxPages / minPagesPerEvictionPartition ) );
+    }
+
     private static int calculatePageCount( MemoryAllocator memoryAllocator, int cachePageSize )
     {
         long memoryPerPage = cachePageSize + PageList.META_DATA_BYTES_PER_PAGE;
@@ -337,6 +420,8 @@ public class MuninnPageCache implements PageCache
         boolean deleteOnClose = false;
         boolean anyPageSize = false;
         boolean useDirectIO = false;
+        boolean compressed = false;
+        PageCachePriority priority = PageCachePriority.NORMAL;
         for ( OpenOption option : openOptions )
         {
             if ( option.equals( StandardOpenOption.CREATE ) )
@@ -359,6 +444,14 @@ public class MuninnPageCache implements PageCache
             {
                 useDirectIO = true;
             }
+            else if ( option.equals( PageCacheOpenOptions.COMPRESSED ) )
+            {
+                compressed = true;
+            }
+            else if ( option instanceof PageCachePriority )
+            {
+                priority = (PageCachePriority) option;
+            }
             else if ( !ignoredOpenOptions.contains( option ) )
             {
                 throw new UnsupportedOperationException( "Unsupported OpenOption: " + option );
@@ -405,13 +498,18 @@ public class MuninnPageCache implements PageCache
                 path,
                 this,
                 filePageSize,
-                swapperFactory,
+                compressed ? compressedSwapperFactory : swapperFactory,
                 pageCacheTracer, versionContextSupplier,
                 createIfNotExists,
-                truncateExisting, useDirectIO,
+                truncateExisting, useDirectIO && !compressed,
+                priority,
                 databaseName );
         pagedFile.incrementRefCount();
         pagedFile.setDeleteOnClose( deleteOnClose );
+        if ( priority != PageCachePriority.NORMAL )
+        {
+            hasPrioritisedFiles = true;
+        }
         current = new FileMapping( path, pagedFile );
         current.next = mappedFiles;
         mappedFiles = current;
@@ -486,8 +584,11 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            var monitoringParams = systemJob( "Eviction of pages from the page cache" );
-            scheduler.schedule( Group.PAGE_CACHE_EVICTION, monitoringParams, new EvictionTask( this ) );
+            for ( EvictionPartition partition : partitions )
+            {
+                var monitoringParams = systemJob( "Eviction of pages from partition " + partition.index + " of the page cache" );
+                scheduler.schedule( Group.PAGE_CACHE_EVICTION, monitoringParams, new EvictionTask( this, partition ) );
+            }
         }
         catch ( Exception e )
         {
@@ -587,7 +688,11 @@ public class MuninnPageCache implements PageCache
 
         try ( MajorFlushEvent ignored = pageCacheTracer.beginCacheFlush() )
         {
-            if ( limiter.isLimited() )
+            if ( maxFlushWritesInFlight > 0 )
+            {
+                flushAllPagesPipelined( files, limiter );
+            }
+            else if ( limiter.isLimited() )
             {
                 flushAllPages( files, limiter );
             }
@@ -607,6 +712,73 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    /**
+     * Flush all files through a single {@link FlushPipeline}, such that the writes of all files share the same background IO threads and
+     * the same IO limit, and then force the files once all of the writes have completed.
+     */
+    private void flushAllPagesPipelined( List<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        FlushPipeline pipeline = createFlushPipeline( limiter );
+        List<MuninnPagedFile> pipelinedFiles = new ArrayList<>( files.size() );
+        List<MajorFlushEvent> fileFlushes = new ArrayList<>( files.size() );
+        try
+        {
+            try
+            {
+                for ( PagedFile file : files )
+                {
+                    MuninnPagedFile muninnPagedFile = (MuninnPagedFile) file;
+                    MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( muninnPagedFile.swapper );
+                    fileFlushes.add( fileFlush );
+                    try ( var buffer = bufferFactory.createBuffer() )
+                    {
+                        if ( buffer.isEnabled() )
+                        {
+                            // All the writes of a flush go through the same temporary buffer, so they cannot be in flight at the same time.
+                            muninnPagedFile.flushAndForceInternal( fileFlush.flushEventOpportunity(), false, limiter, buffer );
+                        }
+                        else
+                        {
+                            muninnPagedFile.flushDirtyPages( fileFlush.flushEventOpportunity(), false, limiter, buffer, pipeline );
+                            pipelinedFiles.add( muninnPagedFile );
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                pipeline.awaitCompletion();
+            }
+            pipeline.throwIfFailed();
+            for ( MuninnPagedFile file : pipelinedFiles )
+            {
+                file.forceAfterPipelinedFlush();
+            }
+        }
+        finally
+        {
+            fileFlushes.forEach( MajorFlushEvent::close );
+        }
+    }
+
+    /**
+     * @return a new pipeline for an asynchronous flush limited by the given limiter, or {@code null} if flushes should be synchronous.
+     */
+    FlushPipeline createFlushPipeline( IOLimiter limiter )
+    {
+        int maxWritesInFlight = maxFlushWritesInFlight;
+        return maxWritesInFlight > 0 ? new FlushPipeline( scheduler, limiter, maxWritesInFlight ) : null;
+    }
+
+    /**
+     * Set the number of writes that flushes are allowed to have in flight, where zero means that flushes are synchronous.
+     * Only ever use this for testing.
+     */
+    void setMaxFlushWritesInFlight( int maxFlushWritesInFlight )
+    {
+        this.maxFlushWritesInFlight = maxFlushWritesInFlight;
+    }
+
     private void flushAllPagesParallel( List<PagedFile> files, IOLimiter limiter ) throws IOException
     {
         List<JobHandle<?>> flushes = new ArrayList<>( files.size() );
@@ -680,8 +852,11 @@ public class MuninnPageCache implements PageCache
 
         closed = true;
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( EvictionPartition partition : partitions )
+        {
+            interrupt( partition.evictionThread );
+            partition.evictionThread = null;
+        }
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -744,52 +919,91 @@ public class MuninnPageCache implements PageCache
 
     long grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
+        // Review the comment on the EvictionPartition class before making changes to
         // this part of the code.
-        // Whatever the case, we're going to the head-pointer of the freelist,
+        // We start at the free-list of the home partition of the current thread, and
+        // move on to the free-lists of the other partitions if that one is empty.
+        // Whatever the case, we're going to the head-pointer of a freelist,
         // and in doing so, we can discover a number of things.
-        // We can discover a MuninnPage object, in which case we can try to
-        // CAS the freelist pointer to the value of the MuninnPage.nextFree
-        // pointer, and if this succeeds then we've grabbed that page.
+        // We can discover an AtomicInteger, in which case we can try to
+        // increment it to claim the next never-used page of that partition.
         // We can discover a FreePage object, in which case we'll do a similar
         // dance by attempting to CAS the freelist to the FreePage objects next
-        // pointer, and again, if we succeed then we've grabbed the MuninnPage
+        // pointer, and if we succeed then we've grabbed the MuninnPage
         // given by the FreePage object.
         // We can discover a null-pointer, in which case the freelist has just
         // been emptied for whatever it contained before. New FreePage objects
         // are eventually going to be added to the freelist, but we are not
-        // going to wait around for that to happen. If the freelist is empty,
+        // going to wait around for that to happen. If all the freelists are empty,
         // then we do our own eviction to get a free page.
         // If we find a FreePage object on the freelist, then it is important
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
-        Object current;
+        EvictionPartition home = homePartition();
         for (;;)
         {
             assertHealthy();
-            current = getFreelistHead();
-            if ( current == null )
+            long pageRef = grabFreePage( home );
+            if ( pageRef != 0 )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
+                return pageRef;
+            }
+            unparkEvictor( home );
+            for ( int i = 1; i < partitions.length; i++ )
+            {
+                EvictionPartition partition = partitions[(home.index + i) % partitions.length];
+                pageRef = grabFreePage( partition );
                 if ( pageRef != 0 )
                 {
                     return pageRef;
                 }
+                unparkEvictor( partition );
+            }
+            home.cooperativeEvictions++;
+            pageRef = cooperativelyEvict( faultEvent );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+    }
+
+    private EvictionPartition homePartition()
+    {
+        if ( partitions.length == 1 )
+        {
+            return partitions[0];
+        }
+        return partitions[(int) (Thread.currentThread().getId() % partitions.length)];
+    }
+
+    /**
+     * Try to grab a free page from the free-list of the given partition.
+     *
+     * @return the page reference of the grabbed page, or {@code 0} if the free-list of the partition is empty.
+     */
+    private long grabFreePage( EvictionPartition partition )
+    {
+        Object current;
+        for (;;)
+        {
+            current = partition.getFreelistHead();
+            if ( current == null )
+            {
+                return 0;
             }
             else if ( current instanceof AtomicInteger )
             {
-                int pageCount = pages.getPageCount();
                 AtomicInteger counter = (AtomicInteger) current;
                 int pageId = counter.get();
-                if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
+                if ( pageId < partition.endPageId && counter.compareAndSet( pageId, pageId + 1 ) )
                 {
                     return pages.deref( pageId );
                 }
-                if ( pageId >= pageCount )
+                if ( pageId >= partition.endPageId )
                 {
-                    compareAndSetFreelistHead( current, null );
+                    partition.compareAndSetFreelistHead( current, null );
                 }
             }
             else if ( current instanceof FreePage )
@@ -800,7 +1014,7 @@ public class MuninnPageCache implements PageCache
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( partition.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.pageRef;
                 }
@@ -808,6 +1022,18 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    private boolean hasFreePages()
+    {
+        for ( EvictionPartition partition : partitions )
+        {
+            if ( partition.getFreelistHead() != null )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private long cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
     {
         int iterations = 0;
@@ -818,7 +1044,7 @@ public class MuninnPageCache implements PageCache
         do
         {
             assertHealthy();
-            if ( getFreelistHead() != null )
+            if ( hasFreePages() )
             {
                 return 0;
             }
@@ -834,7 +1060,7 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && decrementUsage( pageRef ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -859,79 +1085,73 @@ public class MuninnPageCache implements PageCache
                 "your database." );
     }
 
-    private void unparkEvictor()
+    private static void unparkEvictor( EvictionPartition partition )
     {
-        if ( evictorParked )
+        if ( partition.evictorParked )
         {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
+            partition.evictorParked = false;
+            LockSupport.unpark( partition.evictionThread );
         }
     }
 
-    private void parkEvictor( long parkNanos )
+    private void parkEvictor( EvictionPartition partition, long parkNanos )
     {
-        // Only called from the background eviction thread!
-        evictorParked = true;
+        // Only called from the background eviction thread of the partition!
+        partition.evictorParked = true;
         LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
-    }
-
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+        partition.evictorParked = false;
     }
 
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
+    private EvictionPartition partitionOf( long pageRef )
     {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private void setFreelistHead( Object newFreelistHead )
-    {
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
+        if ( partitions.length == 1 )
+        {
+            return partitions[0];
+        }
+        return partitions[Math.min( pages.toId( pageRef ) / pagesPerPartition, partitions.length - 1 )];
     }
 
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
+     * Scan through all the pages of the given partition, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( EvictionPartition partition )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        partition.evictionThread = Thread.currentThread();
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
-            try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( pageCountToEvict ) )
+            int pageCountToEvict = parkUntilEvictionRequired( partition );
+            try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( partition.index, pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                evictionRunEvent.freeListSize( partition.index, countFreePages( partition ) );
+                observeResidentPages( evictionRunEvent );
+                partition.clockArm = evictPages( partition, pageCountToEvict, partition.clockArm, evictionRunEvent );
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
         // the freelist. This signal is looked out for in grabFreePage.
-        setFreelistHead( shutdownSignal );
+        partition.setFreelistHead( shutdownSignal );
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired( EvictionPartition partition )
     {
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            parkEvictor( partition, parkNanos );
             if ( Thread.interrupted() || closed )
             {
                 return 0;
             }
 
-            int availablePages = tryGetNumberOfAvailablePages( keepFree );
+            int availablePages = tryGetNumberOfAvailablePages( partition, partition.adjustKeepFree() );
             if ( availablePages != UNKNOWN_AVAILABLE_PAGES )
             {
                 return availablePages;
@@ -939,41 +1159,98 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private int tryGetNumberOfAvailablePages( int keepFree )
+    private int tryGetNumberOfAvailablePages( EvictionPartition partition, int keepFree )
+    {
+        int freePages = countFreePages( partition );
+        if ( freePages < keepFree )
+        {
+            return keepFree - freePages;
+        }
+        return UNKNOWN_AVAILABLE_PAGES;
+    }
+
+    private static int countFreePages( EvictionPartition partition )
     {
-        Object freelistHead = getFreelistHead();
+        Object freelistHead = partition.getFreelistHead();
 
         if ( freelistHead == null )
         {
-            return keepFree;
+            return 0;
         }
         else if ( freelistHead.getClass() == FreePage.class )
         {
-            int availablePages = ((FreePage) freelistHead).count;
-            if ( availablePages < keepFree )
-            {
-                return keepFree - availablePages;
-            }
+            return ((FreePage) freelistHead).count;
         }
         else if ( freelistHead.getClass() == AtomicInteger.class )
         {
             AtomicInteger counter = (AtomicInteger) freelistHead;
-            long count = pages.getPageCount() - counter.get();
-            if ( count < keepFree )
+            return Math.max( 0, partition.endPageId - counter.get() );
+        }
+        return 0;
+    }
+
+    private void observeResidentPages( EvictionRunEvent evictionRunEvent )
+    {
+        SwapperSet swappers = pages.getSwappers();
+        for ( PageCachePriority priority : PageCachePriority.values() )
+        {
+            long residentPages = swappers.countResidentPages( priority );
+            evictionRunEvent.residentPages( priority, residentPages );
+            if ( priority == PageCachePriority.HIGH )
             {
-                return count < 0 ? keepFree : (int) (keepFree - count);
+                pinHighPriorityPages = residentPages < highPriorityPageBudget;
             }
         }
-        return UNKNOWN_AVAILABLE_PAGES;
     }
 
+    /**
+     * Decrement the usage counter of the given loaded page, taking the priority class of the file it is bound to into account.
+     * Pages of high priority files are not aged while the high priority pages are within their budget, and pages of low priority files
+     * age twice as fast as normal pages.
+     *
+     * @return {@code true} if the page should be evicted.
+     */
+    private boolean decrementUsage( long pageRef )
+    {
+        if ( hasPrioritisedFiles )
+        {
+            int swapperId = pages.getSwapperId( pageRef );
+            SwapperSet.SwapperMapping swapperMapping = swapperId == 0 ? null : pages.getSwappers().getAllocation( swapperId );
+            if ( swapperMapping != null )
+            {
+                if ( swapperMapping.priority == PageCachePriority.HIGH && pinHighPriorityPages )
+                {
+                    return false;
+                }
+                if ( swapperMapping.priority == PageCachePriority.LOW && pages.decrementUsage( pageRef ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return pages.decrementUsage( pageRef );
+    }
+
+    /**
+     * Evict pages from anywhere in the page list, starting at the given clock arm.
+     */
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        return evictPages( 0, pages.getPageCount(), pageCountToEvict, clockArm, evictionRunEvent );
+    }
+
+    private int evictPages( EvictionPartition partition, int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        return evictPages( partition.startPageId, partition.endPageId, pageCountToEvict, clockArm, evictionRunEvent );
+    }
+
+    private int evictPages( int startPageId, int endPageId, int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.getPageCount() )
+            if ( clockArm == endPageId )
             {
-                clockArm = 0;
+                clockArm = startPageId;
             }
 
             if ( closed )
@@ -983,7 +1260,7 @@ public class MuninnPageCache implements PageCache
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && decrementUsage( pageRef ) )
             {
                 try
                 {
@@ -1017,18 +1294,19 @@ public class MuninnPageCache implements PageCache
 
     void addFreePageToFreelist( long pageRef )
     {
+        EvictionPartition partition = partitionOf( pageRef );
         Object current;
         FreePage freePage = new FreePage( pageRef );
         do
         {
-            current = getFreelistHead();
-            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > pages.getPageCount() )
+            current = partition.getFreelistHead();
+            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > partition.endPageId )
             {
                 current = null;
             }
             freePage.setNext( current );
         }
-        while ( !compareAndSetFreelistHead( current, freePage ) );
+        while ( !partition.compareAndSetFreelistHead( current, freePage ) );
     }
 
     void clearEvictorException()
@@ -1042,14 +1320,18 @@ public class MuninnPageCache implements PageCache
     @Override
     public String toString()
     {
-        int availablePages = tryGetNumberOfAvailablePages( keepFree );
-        return format( "%s[pageCacheId:%d, pageSize:%d, pages:%d, availablePages:%s]", getClass().getSimpleName(),
-                pageCacheId, cachePageSize, pages.getPageCount(), availablePages != UNKNOWN_AVAILABLE_PAGES ? String.valueOf( availablePages ) : "N/A" );
+        long availablePages = 0;
+        for ( EvictionPartition partition : partitions )
+        {
+            availablePages += countFreePages( partition );
+        }
+        return format( "%s[pageCacheId:%d, pageSize:%d, pages:%d, availablePages:%d, evictionPartitions:%d, replacementPolicy:%s]",
+                getClass().getSimpleName(), pageCacheId, cachePageSize, pages.getPageCount(), availablePages, partitions.length, replacementPolicy );
     }
 
     void vacuum( SwapperSet swappers )
     {
-        if ( getFreelistHead() instanceof AtomicInteger && swappers.countAvailableIds() > 200 )
+        if ( isStillHandingOutUnusedPages() && swappers.countAvailableIds() > 200 )
         {
             return; // We probably still have plenty of free pages left. Don't bother vacuuming just yet.
         }
@@ -1078,6 +1360,18 @@ public class MuninnPageCache implements PageCache
         } );
     }
 
+    private boolean isStillHandingOutUnusedPages()
+    {
+        for ( EvictionPartition partition : partitions )
+        {
+            if ( !(partition.getFreelistHead() instanceof AtomicInteger) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     void startPreFetching( MuninnPageCursor cursor, CursorFactory cursorFactory )
     {
         PreFetcher preFetcher = new PreFetcher( cursor, cursorFactory, pageCacheTracer, clock );
@@ -1087,6 +1381,41 @@ public class MuninnPageCache implements PageCache
         cursor.preFetcher = scheduler.schedule( Group.PAGE_CACHE_PRE_FETCHER, monitoringParams, preFetcher );
     }
 
+    void preFetchAsync( MuninnPagedFile pagedFile, long filePageId )
+    {
+        if ( preFetchesInFlight.incrementAndGet() > maxPreFetchesInFlight )
+        {
+            preFetchesInFlight.decrementAndGet();
+            return;
+        }
+        try
+        {
+            scheduler.schedule( Group.PAGE_CACHE_PRE_FETCHER, systemJob( pagedFile.databaseName, "Pre-fetching of page" ),
+                    () -> preFetch( pagedFile, filePageId ) );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            preFetchesInFlight.decrementAndGet();
+        }
+    }
+
+    private void preFetch( MuninnPagedFile pagedFile, long filePageId )
+    {
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( TRACER_PAGE_PRE_FETCHER_TAG );
+              PageCursor cursor = pagedFile.io( filePageId, PF_SHARED_READ_LOCK, cursorTracer ) )
+        {
+            cursor.next();
+        }
+        catch ( IOException | IllegalStateException e )
+        {
+            // Pre-fetching is only a hint, and the file may have been unmapped in the meantime.
+        }
+        finally
+        {
+            preFetchesInFlight.decrementAndGet();
+        }
+    }
+
     void allocateFileAsync( PageSwapper swapper, long newFileSize )
     {
         scheduler.schedule( FILE_IO_HELPER, systemJob( "File size increase" ), new AllocateFileTask( swapper, newFileSize ) );
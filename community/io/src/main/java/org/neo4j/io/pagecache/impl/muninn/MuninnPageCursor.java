@@ -41,9 +41,11 @@ import org.neo4j.util.VisibleForTesting;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
+import static org.neo4j.util.FeatureToggles.getInteger;
 
 public abstract class MuninnPageCursor extends PageCursor
 {
@@ -52,6 +54,18 @@ public abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    /**
+     * The largest number of consecutive file pages that a {@link PagedFile#PF_READ_AHEAD} cursor will fault in with a single vectored read.
+     * The read-ahead window starts out at a single page, and doubles with every page fault that continues a sequential scan, up to this limit.
+     * A value of 1 or less disables read-ahead.
+     */
+    private static final int readAheadMaxPages = getInteger( MuninnPageCursor.class, "readAheadMaxPages", 32 );
+
+    /**
+     * Read-ahead is limited to this fraction of the cache, so that small caches are not flooded by a single scan.
+     */
+    private static final int READ_AHEAD_CACHE_FRACTION = 16;
+
     private static final int BYTE_ARRAY_BASE_OFFSET = UnsafeUtil.arrayBaseOffset( byte[].class );
     private static final int BYTE_ARRAY_INDEX_SCALE = UnsafeUtil.arrayIndexScale( byte[].class );
     private static final long CURRENT_PAGE_ID = UnsafeUtil.getFieldOffset( MuninnPageCursor.class, "currentPageId" );
@@ -86,6 +100,15 @@ public abstract class MuninnPageCursor extends PageCursor
     private int offset;
     private int mark;
     private boolean outOfBounds;
+    // The read-ahead state. The window is the number of pages to fault in with the next page fault, and the next page id is the file page
+    // id that a page fault would have if the cursor keeps scanning sequentially. The arrays hold the extra pages of a read-ahead fault.
+    private int readAheadLimit;
+    private int readAheadWindow;
+    private long readAheadNextPageId;
+    private long[] readAheadPageRefs;
+    private LatchMap.Latch[] readAheadLatches;
+    private int[][] readAheadChunks;
+    private long[] readAheadChunkOffsets;
     // This is a String with the exception message if usePreciseCursorErrorStackTraces is false, otherwise it is a
     // CursorExceptionWithPreciseStackTrace with the message and stack trace pointing more or less directly at the
     // offending code.
@@ -110,6 +133,10 @@ public abstract class MuninnPageCursor extends PageCursor
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
         this.noGrow = noFault || isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
+        boolean readAhead = !noFault && isFlagRaised( pf_flags, PF_READ_AHEAD ) && !isFlagRaised( pf_flags, PF_SHARED_WRITE_LOCK );
+        this.readAheadLimit = readAhead ? Math.min( readAheadMaxPages, pagedFile.getPageCount() / READ_AHEAD_CACHE_FRACTION ) : 0;
+        this.readAheadWindow = 1;
+        this.readAheadNextPageId = UNBOUND_PAGE_ID;
     }
 
     private boolean isFlagRaised( int flagSet, int flag )
@@ -392,6 +419,7 @@ public abstract class MuninnPageCursor extends PageCursor
         // we must make sure to release that write lock as well.
         PageFaultEvent faultEvent = pinEvent.beginPageFault();
         long pageRef;
+        int readAheadPages = 0;
         try
         {
             // The grabFreePage method might throw.
@@ -415,21 +443,36 @@ public abstract class MuninnPageCursor extends PageCursor
             // here, so the unmapping would have already happened. We do this
             // check before page.fault(), because that would otherwise reopen
             // the file channel.
-            assertPagedFileStillMappedAndGetIdOfLastPage();
+            long lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
             pagedFile.initBuffer( pageRef );
-            pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            if ( readAheadLimit > 1 )
+            {
+                readAheadPages = grabReadAheadPages( filePageId, lastPageId, faultEvent );
+            }
+            if ( readAheadPages == 0 )
+            {
+                pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            }
+            else
+            {
+                readAheadPageRefs[0] = pageRef;
+                pagedFile.fault( readAheadPageRefs, readAheadPages + 1, swapper, pagedFile.swapperId, filePageId, filePageSize, faultEvent );
+            }
         }
         catch ( Throwable throwable )
         {
-            // Make sure to unlock the page, so the eviction thread can pick up our trash.
+            // Make sure to unlock the pages, so the eviction thread can pick up our trash.
+            abortReadAheadPages( readAheadPages );
             pagedFile.unlockExclusive( pageRef );
             // Make sure to release the page fault latch.
             abortPageFault( throwable, chunk, chunkOffset, latch, faultEvent );
             throw throwable;
         }
+        pagedFile.swapperMapping.residentPages.add( readAheadPages + 1 );
         // Put the page in the translation table before we undo the exclusive lock, as we could otherwise race with
         // eviction, and the onEvict callback expects to find a MuninnPage object in the table.
         UnsafeUtil.putIntVolatile( chunk, chunkOffset, pagedFile.toId( pageRef ) );
+        publishReadAheadPages( readAheadPages );
         // Once we page has been published to the translation table, we can convert our exclusive lock to whatever we
         // need for the page cursor.
         convertPageFaultLock( pageRef );
@@ -438,6 +481,114 @@ public abstract class MuninnPageCursor extends PageCursor
         return pageRef;
     }
 
+    /**
+     * Grab, lock and latch free pages for the file pages that follow the given file page id, if this cursor is scanning sequentially.
+     * <p>
+     * The read-ahead stops early at the first file page that is beyond the end of the file, already mapped, or being faulted in by
+     * someone else. We never wait for page fault latches here, because we are already holding the latch for the given file page, and
+     * waiting while holding a latch could deadlock with other read-ahead faults.
+     *
+     * @return the number of read-ahead pages, which are stored from index 1 and onwards in the read-ahead arrays.
+     */
+    private int grabReadAheadPages( long filePageId, long lastPageId, PageFaultEvent faultEvent ) throws IOException
+    {
+        if ( filePageId >= readAheadNextPageId && filePageId - readAheadNextPageId < readAheadWindow )
+        {
+            readAheadWindow = Math.min( readAheadLimit, readAheadWindow * 2 );
+        }
+        else
+        {
+            readAheadWindow = 1;
+        }
+        long maxPages = Math.min( readAheadWindow - 1, lastPageId - filePageId );
+        int count = 0;
+        if ( maxPages > 0 && readAheadPageRefs == null )
+        {
+            readAheadPageRefs = new long[readAheadLimit];
+            readAheadLatches = new LatchMap.Latch[readAheadLimit];
+            readAheadChunks = new int[readAheadLimit][];
+            readAheadChunkOffsets = new long[readAheadLimit];
+        }
+        try
+        {
+            while ( count < maxPages )
+            {
+                long readAheadPageId = filePageId + count + 1;
+                int[][] tt = pagedFile.translationTable;
+                int chunkId = MuninnPagedFile.computeChunkId( readAheadPageId );
+                if ( chunkId >= tt.length )
+                {
+                    break;
+                }
+                int[] chunk = tt[chunkId];
+                long chunkOffset = MuninnPagedFile.computeChunkOffset( readAheadPageId );
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    break;
+                }
+                LatchMap.Latch latch = pagedFile.pageFaultLatches.tryTakeLatch( readAheadPageId );
+                if ( latch == null )
+                {
+                    break;
+                }
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    latch.release();
+                    break;
+                }
+                long pageRef;
+                try
+                {
+                    pageRef = pagedFile.grabFreeAndExclusivelyLockedPage( faultEvent );
+                }
+                catch ( Throwable throwable )
+                {
+                    latch.release();
+                    throw throwable;
+                }
+                count++;
+                readAheadPageRefs[count] = pageRef;
+                readAheadLatches[count] = latch;
+                readAheadChunks[count] = chunk;
+                readAheadChunkOffsets[count] = chunkOffset;
+                pagedFile.initBuffer( pageRef );
+            }
+        }
+        catch ( Throwable throwable )
+        {
+            // None of the grabbed pages have been bound yet, so they can go straight back to the free-list.
+            for ( int i = 1; i <= count; i++ )
+            {
+                readAheadLatches[i].release();
+                pagedFile.pageCache.addFreePageToFreelist( readAheadPageRefs[i] );
+            }
+            throw throwable;
+        }
+        readAheadNextPageId = filePageId + count + 1;
+        return count;
+    }
+
+    private void publishReadAheadPages( int readAheadPages )
+    {
+        for ( int i = 1; i <= readAheadPages; i++ )
+        {
+            long pageRef = readAheadPageRefs[i];
+            UnsafeUtil.putIntVolatile( readAheadChunks[i], readAheadChunkOffsets[i], pagedFile.toId( pageRef ) );
+            pagedFile.unlockExclusive( pageRef );
+            readAheadLatches[i].release();
+        }
+    }
+
+    private void abortReadAheadPages( int readAheadPages )
+    {
+        for ( int i = 1; i <= readAheadPages; i++ )
+        {
+            pagedFile.unlockExclusive( readAheadPageRefs[i] );
+            UnsafeUtil.putIntVolatile( readAheadChunks[i], readAheadChunkOffsets[i], UNMAPPED_TTE );
+            readAheadLatches[i].release();
+        }
+    }
+
     private void abortPageFault( Throwable throwable, int[] chunk, long chunkOffset,
                                  LatchMap.Latch latch,
                                  PageFaultEvent faultEvent )
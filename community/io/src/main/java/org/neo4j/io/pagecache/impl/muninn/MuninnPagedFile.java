@@ -23,10 +23,12 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.neo4j.internal.unsafe.UnsafeUtil;
 import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageEvictionCallback;
 import org.neo4j.io.pagecache.PageSwapper;
@@ -77,6 +79,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 
     final PageSwapper swapper;
     final int swapperId;
+    final SwapperSet.SwapperMapping swapperMapping;
     private final CursorFactory cursorFactory;
     final String databaseName;
 
@@ -118,13 +121,14 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
      * access to thread local version context
      * @param createIfNotExists should create file if it does not exists
      * @param truncateExisting should truncate file if it exists
+     * @param priority the priority class of the pages of this file, when the page cache picks pages to evict
      * @param databaseName an optional name of the database this file belongs to. This option associates the mapped file with a database.
      * This information is currently used only for monitoring purposes.
      * @throws IOException If the {@link PageSwapper} could not be created.
      */
     MuninnPagedFile( Path path, MuninnPageCache pageCache, int filePageSize, PageSwapperFactory swapperFactory, PageCacheTracer pageCacheTracer,
-            VersionContextSupplier versionContextSupplier, boolean createIfNotExists, boolean truncateExisting, boolean useDirectIo, String databaseName )
-            throws IOException
+            VersionContextSupplier versionContextSupplier, boolean createIfNotExists, boolean truncateExisting, boolean useDirectIo,
+            PageCachePriority priority, String databaseName ) throws IOException
     {
         super( pageCache.pages );
         this.pageCache = pageCache;
@@ -168,7 +172,8 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         translationTable = tt;
 
         initialiseLastPageId( lastPageId );
-        this.swapperId = getSwappers().allocate( swapper );
+        this.swapperId = getSwappers().allocate( swapper, priority );
+        this.swapperMapping = getSwappers().getAllocation( swapperId );
     }
 
     @Override
@@ -203,6 +208,28 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return cursor;
     }
 
+    @Override
+    public void preFetch( long pageId )
+    {
+        long state = getHeaderState();
+        if ( pageId < 0 || refCountOf( state ) == 0 || pageId > (state & headerStateLastPageIdMask) || isMapped( pageId ) )
+        {
+            return;
+        }
+        pageCache.preFetchAsync( this, pageId );
+    }
+
+    /**
+     * A cheap look-up in the translation table, which may be outdated by the time it returns.
+     * @return {@code true} if the given file page is in memory, or is in the process of being faulted in.
+     */
+    private boolean isMapped( long filePageId )
+    {
+        int[][] tt = translationTable;
+        int chunkId = computeChunkId( filePageId );
+        return chunkId < tt.length && UnsafeUtil.getIntVolatile( tt[chunkId], computeChunkOffset( filePageId ) ) != UNMAPPED_TTE;
+    }
+
     private IllegalArgumentException wrongLocksArgument( int lockFlags )
     {
         if ( lockFlags == 0 )
@@ -370,25 +397,69 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     {
         try
         {
-            doFlushAndForceInternal( flushes, forClosing, limiter, ioBuffer );
+            // Flushes for closing take exclusive locks, which must be released by the flushing thread, so those are never asynchronous.
+            FlushPipeline pipeline = forClosing || ioBuffer.isEnabled() ? null : pageCache.createFlushPipeline( limiter );
+            if ( pipeline == null )
+            {
+                flushDirtyPages( flushes, forClosing, limiter, ioBuffer, null );
+            }
+            else
+            {
+                try
+                {
+                    flushDirtyPages( flushes, false, limiter, ioBuffer, pipeline );
+                }
+                finally
+                {
+                    pipeline.awaitCompletion();
+                }
+                pipeline.throwIfFailed();
+            }
+            swapper.force();
         }
         catch ( ClosedChannelException e )
         {
-            if ( getRefCount() > 0 )
-            {
-                // The file is not supposed to be closed, since we have a positive ref-count, yet we got a
-                // ClosedChannelException anyway? It's an odd situation, so let's tell the outside world about
-                // this failure.
-                e.addSuppressed( closeStackTrace );
-                throw e;
-            }
-            // Otherwise: The file was closed while we were trying to flush it. Since unmapping implies a flush
-            // anyway, we can safely assume that this is not a problem. The file was flushed, and it doesn't
-            // really matter how that happened. We'll ignore this exception.
+            rethrowUnlessUnmapped( e );
         }
     }
 
-    private void doFlushAndForceInternal( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter, NativeIOBuffer ioBuffer )
+    /**
+     * Force the file after its dirty pages have been written through the given pipeline by
+     * {@link #flushDirtyPages(FlushEventOpportunity, boolean, IOLimiter, NativeIOBuffer, FlushPipeline)}, and all writes in the
+     * pipeline have completed.
+     */
+    void forceAfterPipelinedFlush() throws IOException
+    {
+        try
+        {
+            swapper.force();
+        }
+        catch ( ClosedChannelException e )
+        {
+            rethrowUnlessUnmapped( e );
+        }
+    }
+
+    private void rethrowUnlessUnmapped( ClosedChannelException e ) throws ClosedChannelException
+    {
+        if ( getRefCount() > 0 )
+        {
+            // The file is not supposed to be closed, since we have a positive ref-count, yet we got a
+            // ClosedChannelException anyway? It's an odd situation, so let's tell the outside world about
+            // this failure.
+            e.addSuppressed( closeStackTrace );
+            throw e;
+        }
+        // Otherwise: The file was closed while we were trying to flush it. Since unmapping implies a flush
+        // anyway, we can safely assume that this is not a problem. The file was flushed, and it doesn't
+        // really matter how that happened. We'll ignore this exception.
+    }
+
+    /**
+     * Write out all dirty pages of this file, without forcing the file. If a pipeline is given, the writes are submitted to it,
+     * and may still be in progress when this method returns.
+     */
+    void flushDirtyPages( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter, NativeIOBuffer ioBuffer, FlushPipeline pipeline )
             throws IOException
     {
         // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
@@ -528,8 +599,8 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                 }
                 if ( pagesGrabbed > 0 )
                 {
-                    vectoredFlush( pages, bufferAddresses, flushStamps, bufferLengths, numberOfBuffers, pagesGrabbed, mergedPages, flushes, forClosing );
-                    limiterStamp = limiter.maybeLimitIO( limiterStamp, numberOfBuffers, this );
+                    limiterStamp = flushGrabbedPages( pages, bufferAddresses, flushStamps, bufferLengths, numberOfBuffers, pagesGrabbed, mergedPages,
+                            flushes, forClosing, limiter, limiterStamp, pipeline );
                     pagesGrabbed = 0;
                     nextSequentialAddress = -1;
                     numberOfBuffers = 0;
@@ -542,28 +613,61 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             }
             if ( pagesGrabbed > 0 )
             {
-                vectoredFlush( pages, bufferAddresses, flushStamps, bufferLengths, numberOfBuffers, pagesGrabbed, mergedPages, flushes, forClosing );
-                limiterStamp = limiter.maybeLimitIO( limiterStamp, numberOfBuffers, this );
+                limiterStamp = flushGrabbedPages( pages, bufferAddresses, flushStamps, bufferLengths, numberOfBuffers, pagesGrabbed, mergedPages,
+                        flushes, forClosing, limiter, limiterStamp, pipeline );
                 flushPerChunk++;
             }
             chunkEvent.chunkFlushed( notModifiedPages, flushPerChunk, buffersPerChunk, mergesPerChunk );
         }
+    }
 
-        swapper.force();
+    private long flushGrabbedPages(
+            long[] pages, long[] bufferAddresses, long[] flushStamps, int[] bufferLengths, int numberOfBuffers, int pagesGrabbed, int pagesMerged,
+            FlushEventOpportunity flushOpportunity, boolean forClosing, IOLimiter limiter, long limiterStamp, FlushPipeline pipeline ) throws IOException
+    {
+        if ( pipeline == null )
+        {
+            FlushEvent flush = beginFlush( flushOpportunity, pages[0], pagesGrabbed, pagesMerged );
+            vectoredFlush( pages, bufferAddresses, flushStamps, bufferLengths, numberOfBuffers, pagesGrabbed, pagesMerged, flush, forClosing );
+            return limiter.maybeLimitIO( limiterStamp, numberOfBuffers, this );
+        }
+
+        // The arrays are reused for the next run of dirty pages, so the write gets its own copies.
+        long[] writePages = Arrays.copyOf( pages, pagesGrabbed );
+        long[] writeFlushStamps = Arrays.copyOf( flushStamps, pagesGrabbed );
+        long[] writeBufferAddresses = Arrays.copyOf( bufferAddresses, numberOfBuffers );
+        int[] writeBufferLengths = Arrays.copyOf( bufferLengths, numberOfBuffers );
+        // The flush event is begun here, on the flushing thread, and the pipeline hands the write an event of its own to record into.
+        FlushEvent flush = beginFlush( flushOpportunity, pages[0], pagesGrabbed, pagesMerged );
+        pipeline.submit( this, numberOfBuffers, flush, writeEvent ->
+        {
+            try
+            {
+                vectoredFlush( writePages, writeBufferAddresses, writeFlushStamps, writeBufferLengths, numberOfBuffers, pagesGrabbed, pagesMerged,
+                        writeEvent, false );
+            }
+            catch ( ClosedChannelException e )
+            {
+                rethrowUnlessUnmapped( e );
+            }
+        } );
+        return limiterStamp;
+    }
+
+    private FlushEvent beginFlush( FlushEventOpportunity flushOpportunity, long firstPageRef, int pagesGrabbed, int pagesMerged )
+    {
+        return flushOpportunity.beginFlush( getFilePageId( firstPageRef ), toId( firstPageRef ), swapper, pagesGrabbed, pagesMerged );
     }
 
     private void vectoredFlush(
             long[] pages, long[] bufferAddresses, long[] flushStamps, int[] bufferLengths, int numberOfBuffers, int pagesGrabbed, int pagesMerged,
-            FlushEventOpportunity flushOpportunity, boolean forClosing ) throws IOException
+            FlushEvent flush, boolean forClosing ) throws IOException
     {
-        FlushEvent flush = null;
         boolean successful = false;
         try
         {
             // Write the pages vector
-            long firstPageRef = pages[0];
-            long startFilePageId = getFilePageId( firstPageRef );
-            flush = flushOpportunity.beginFlush( startFilePageId, toId( firstPageRef ), swapper, pagesGrabbed, pagesMerged );
+            long startFilePageId = getFilePageId( pages[0] );
             long bytesWritten = swapper.write( startFilePageId, bufferAddresses, bufferLengths, numberOfBuffers, pagesGrabbed );
 
             // Update the flush event
@@ -577,10 +681,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
         catch ( IOException ioe )
         {
-            if ( flush != null )
-            {
-                flush.done( ioe );
-            }
+            flush.done( ioe );
             throw ioe;
         }
         finally
@@ -47,6 +47,8 @@ import static org.neo4j.util.FeatureToggles.flag;
  * The following (low order) 21 bits (2 bytes and 5 bits) are the swapper id.
  * The last (lowest order) 3 bits are the page usage counter.</td></tr>
  * </table>
+ * <p>
+ * The usage counter is maintained by the {@link PageUsagePolicy} of the {@link PageReplacementPolicy} in use.
  */
 class PageList
 {
@@ -56,7 +58,6 @@ class PageList
     static final long MAX_PAGES = Integer.MAX_VALUE;
 
     private static final int UNBOUND_LAST_MODIFIED_TX_ID = -1;
-    private static final long MAX_USAGE_COUNT = 4;
     private static final int SHIFT_FILE_PAGE_ID = 24;
     private static final int SHIFT_SWAPPER_ID = 3;
     private static final int SHIFT_PARTIAL_FILE_PAGE_ID = SHIFT_FILE_PAGE_ID - SHIFT_SWAPPER_ID;
@@ -84,9 +85,16 @@ class PageList
     private final long victimPageAddress;
     private final long baseAddress;
     private final long bufferAlignment;
+    private final PageUsagePolicy usagePolicy;
 
     PageList( int pageCount, int cachePageSize, MemoryAllocator memoryAllocator, SwapperSet swappers,
               long victimPageAddress, long bufferAlignment )
+    {
+        this( pageCount, cachePageSize, memoryAllocator, swappers, victimPageAddress, bufferAlignment, ClockUsagePolicy.INSTANCE );
+    }
+
+    PageList( int pageCount, int cachePageSize, MemoryAllocator memoryAllocator, SwapperSet swappers,
+              long victimPageAddress, long bufferAlignment, PageUsagePolicy usagePolicy )
     {
         this.pageCount = pageCount;
         this.cachePageSize = cachePageSize;
@@ -96,6 +104,7 @@ class PageList
         long bytes = ((long) pageCount) * META_DATA_BYTES_PER_PAGE;
         this.baseAddress = memoryAllocator.allocateAligned( bytes, Long.BYTES );
         this.bufferAlignment = bufferAlignment;
+        this.usagePolicy = usagePolicy;
         clearMemory( baseAddress, pageCount );
     }
 
@@ -116,6 +125,7 @@ class PageList
         this.victimPageAddress = pageList.victimPageAddress;
         this.baseAddress = pageList.baseAddress;
         this.bufferAlignment = pageList.bufferAlignment;
+        this.usagePolicy = pageList.usagePolicy;
     }
 
     private void clearMemory( long baseAddress, long pageCount )
@@ -301,48 +311,55 @@ class PageList
         }
     }
 
-    private byte getUsageCounter( long pageRef )
+    int getUsage( long pageRef )
     {
-        return (byte) (UnsafeUtil.getLongVolatile( offPageBinding( pageRef ) ) & MASK_USAGE_COUNT);
+        return (int) (UnsafeUtil.getLongVolatile( offPageBinding( pageRef ) ) & MASK_USAGE_COUNT);
     }
 
     /**
-     * Increment the usage stamp to at most 4.
-     **/
-    void incrementUsage( long pageRef )
+     * Set the usage counter to the given value, if it currently has the expected value.
+     * The usage counter shares its word-line with the file page id, and the swapper id. Those fields are updated under guard of the
+     * exclusive lock, but we *might* race with that here, and in that case we would never want a usage counter update to clobber a
+     * page binding update. This is why we use {@code compareAndSwapLong} to only store the usage counter if nothing else changed.
+     *
+     * @return {@code true} if the usage counter was updated.
+     */
+    boolean compareAndSetUsage( long pageRef, int expectedUsage, int usage )
     {
-        // This is intentionally left benignly racy for performance.
         long address = offPageBinding( pageRef );
         long value = UnsafeUtil.getLongVolatile( address );
-        long usage = value & MASK_USAGE_COUNT;
-        if ( usage < MAX_USAGE_COUNT ) // avoid cache sloshing by not doing a write if counter is already maxed out
+        if ( (value & MASK_USAGE_COUNT) != expectedUsage )
         {
-            long update = value + 1;
-            // Use compareAndSwapLong to only actually store the updated count if nothing else changed
-            // in this word-line. The word-line is shared with the file page id, and the swapper id.
-            // Those fields are updated under guard of the exclusive lock, but we *might* race with
-            // that here, and in that case we would never want a usage counter update to clobber a page
-            // binding update.
-            UnsafeUtil.compareAndSwapLong( null, address, value, update );
+            return false;
         }
+        long update = (value & ~MASK_USAGE_COUNT) | (usage & MASK_USAGE_COUNT);
+        return UnsafeUtil.compareAndSwapLong( null, address, value, update );
+    }
+
+    /**
+     * Set the usage counter of a page that is exclusively locked.
+     */
+    void setUsage( long pageRef, int usage )
+    {
+        long address = offPageBinding( pageRef );
+        long value = UnsafeUtil.getLong( address );
+        UnsafeUtil.putLong( address, (value & ~MASK_USAGE_COUNT) | (usage & MASK_USAGE_COUNT) );
     }
 
     /**
-     * Decrement the usage stamp. Returns true if it reaches 0.
+     * Record that the page has been pinned, according to the page replacement policy.
+     **/
+    void incrementUsage( long pageRef )
+    {
+        usagePolicy.incrementUsage( this, pageRef );
+    }
+
+    /**
+     * Age the page, according to the page replacement policy. Returns true if the page should be evicted.
      **/
     boolean decrementUsage( long pageRef )
     {
-        // This is intentionally left benignly racy for performance.
-        long address = offPageBinding( pageRef );
-        long value = UnsafeUtil.getLongVolatile( address );
-        long usage = value & MASK_USAGE_COUNT;
-        if ( usage > 0 )
-        {
-            long update = value - 1;
-            // See `incrementUsage` about why we use `compareAndSwapLong`.
-            UnsafeUtil.compareAndSwapLong( null, address, value, update );
-        }
-        return usage <= 1;
+        return usagePolicy.decrementUsage( this, pageRef );
     }
 
     long getFilePageId( long pageRef )
@@ -431,12 +448,54 @@ class PageList
         // the file page, so any subsequent thread that finds the page in their
         // translation table will re-do the page fault.
         setFilePageId( pageRef, filePageId ); // Page now considered isLoaded()
+        usagePolicy.faulted( this, pageRef, swapperId, filePageId );
         long bytesRead = swapper.read( filePageId, getAddress( pageRef ) );
         event.addBytesRead( bytesRead );
         event.setCachePageId( toId( pageRef ) );
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Fault in a run of consecutive file pages with a single vectored read, starting at the given file page id.
+     * The pages are bound to the file pages in the order they appear in the given array, and must all be exclusively locked.
+     */
+    void fault( long[] pageRefs, int length, PageSwapper swapper, int swapperId, long startFilePageId, int filePageSize, PageFaultEvent event )
+            throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        long[] bufferAddresses = new long[length];
+        int[] bufferLengths = new int[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( !isExclusivelyLocked( pageRef ) || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+            bufferAddresses[i] = getAddress( pageRef );
+            bufferLengths[i] = filePageSize;
+        }
+        // See the single page fault method above, for why the file page ids are assigned before the swapping, and the swapper id after.
+        for ( int i = 0; i < length; i++ )
+        {
+            setFilePageId( pageRefs[i], startFilePageId + i );
+            usagePolicy.faulted( this, pageRefs[i], swapperId, startFilePageId + i );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, bufferLengths, length );
+        event.addBytesRead( bytesRead );
+        event.setCachePageId( toId( pageRefs[0] ) );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
+    }
+
     private static IllegalArgumentException swapperCannotBeNull()
     {
         return new IllegalArgumentException( "swapper cannot be null" );
@@ -493,8 +552,10 @@ class PageList
                     flushModifiedPage( pageRef, evictionEvent, filePageId, swapper );
                 }
                 swapper.evicted( filePageId );
+                swapperMapping.residentPages.decrement();
             }
         }
+        usagePolicy.evicted( this, pageRef, swapperId, filePageId );
         clearBinding( pageRef );
     }
 
@@ -531,7 +592,7 @@ class PageList
         sb.append( ", address = " ).append( getAddress( pageRef ) );
         sb.append( ", filePageId = " ).append( getFilePageId( pageRef ) );
         sb.append( ", swapperId = " ).append( getSwapperId( pageRef ) );
-        sb.append( ", usageCounter = " ).append( getUsageCounter( pageRef ) );
+        sb.append( ", usageCounter = " ).append( getUsage( pageRef ) );
         sb.append( " ] " ).append( OffHeapPageLock.toString( offLock( pageRef ) ) );
     }
 }
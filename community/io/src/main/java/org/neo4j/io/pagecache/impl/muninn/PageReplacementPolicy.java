@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The page replacement policies supported by the {@link MuninnPageCache}. The policy decides which cache pages the eviction threads pick,
+ * when the page cache needs free pages for page faults.
+ */
+public enum PageReplacementPolicy
+{
+    /**
+     * The classic CLOCK policy, where every pin increments a usage counter of the page, up to a maximum of 4, and the clock arm of the
+     * eviction threads decrements it, evicting the pages whose counter reaches zero.
+     */
+    CLOCK
+    {
+        @Override
+        PageUsagePolicy createUsagePolicy( int pageCount )
+        {
+            return ClockUsagePolicy.INSTANCE;
+        }
+    },
+    /**
+     * A scan-resistant CLOCK variant of the 2Q policy. Pages are first admitted to a probationary set, and are only promoted to the hot set
+     * when they are pinned again before the clock arm comes around. Evicted probationary pages are remembered in a ghost table, and pages
+     * found in the ghost table when they are faulted back in are admitted directly to the hot set. The clock arm does not age hot pages
+     * while the probationary set holds more than a quarter of the cache, so a large scan only cycles through the probationary pages.
+     */
+    TWO_QUEUE
+    {
+        @Override
+        PageUsagePolicy createUsagePolicy( int pageCount )
+        {
+            return new TwoQueueUsagePolicy( pageCount );
+        }
+    };
+
+    abstract PageUsagePolicy createUsagePolicy( int pageCount );
+}
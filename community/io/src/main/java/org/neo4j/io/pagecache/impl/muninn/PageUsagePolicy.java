@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * Maintains the usage counters of the pages in a {@link PageList}, on behalf of a {@link PageReplacementPolicy}.
+ * <p>
+ * The usage counter is the lowest 3 bits of the page binding word, and the policy is free to interpret these bits however it likes.
+ * The counter is cleared whenever a page is evicted.
+ */
+abstract class PageUsagePolicy
+{
+    /**
+     * Called every time a page is pinned by a page cursor. This is the hot path, and is intentionally allowed to be benignly racy.
+     */
+    abstract void incrementUsage( PageList pages, long pageRef );
+
+    /**
+     * Called by the clock arm of the eviction threads, and by page faulting threads that evict cooperatively.
+     *
+     * @return {@code true} if the page should be evicted.
+     */
+    abstract boolean decrementUsage( PageList pages, long pageRef );
+
+    /**
+     * Called when the given page is about to be faulted in. The page is exclusively locked, and its usage counter is zero.
+     */
+    abstract void faulted( PageList pages, long pageRef, int swapperId, long filePageId );
+
+    /**
+     * Called when the given page is about to be evicted. The page is exclusively locked, and its usage counter is still intact.
+     * The swapper id is zero if the page was loaded, but never successfully bound to its file page.
+     */
+    abstract void evicted( PageList pages, long pageRef, int swapperId, long filePageId );
+}
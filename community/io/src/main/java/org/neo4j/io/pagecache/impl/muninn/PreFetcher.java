@@ -32,6 +32,7 @@ import org.neo4j.scheduler.CancelListener;
 import org.neo4j.time.SystemNanoClock;
 
 import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 
 /**
@@ -123,8 +124,10 @@ class PreFetcher implements Runnable, CancelListener
         // The initial value don't matter so much. Just same as offset, so we initially fetch one page.
         long jump = offset;
 
+        // When pre-fetching forward, our own cursor is scanning sequentially as well, so it can fault in runs of pages with vectored reads.
+        int prefetchFlags = forward ? PF_SHARED_READ_LOCK | PF_READ_AHEAD : PF_SHARED_READ_LOCK;
         try ( PageCursorTracer cursorTracer = tracer.createPageCursorTracer( TRACER_PRE_FETCHER_TAG );
-              PageCursor prefetchCursor = cursorFactory.takeReadCursor( 0, PF_SHARED_READ_LOCK, cursorTracer ) )
+              PageCursor prefetchCursor = cursorFactory.takeReadCursor( 0, prefetchFlags, cursorTracer ) )
         {
             currentPageId = getCurrentObservedPageId();
             while ( currentPageId != UNBOUND_PAGE_ID )
@@ -25,8 +25,10 @@ import org.eclipse.collections.api.set.primitive.MutableIntSet;
 import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.PageSwapper;
 
 /**
@@ -40,10 +42,10 @@ import org.neo4j.io.pagecache.PageSwapper;
 final class SwapperSet
 {
     // The sentinel is used to reserve swapper id 0 as a special value.
-    private static final SwapperMapping SENTINEL = new SwapperMapping( 0, null );
+    private static final SwapperMapping SENTINEL = new SwapperMapping( 0, null, PageCachePriority.NORMAL );
     // The tombstone is used as a marker to reserve allocation entries that have been freed, but not yet vacuumed.
     // An allocation cannot be reused until it has been vacuumed.
-    private static final SwapperMapping TOMBSTONE = new SwapperMapping( 0, null );
+    private static final SwapperMapping TOMBSTONE = new SwapperMapping( 0, null, PageCachePriority.NORMAL );
     private static final int MAX_SWAPPER_ID = (1 << 21) - 1;
     private volatile SwapperMapping[] swapperMappings = new SwapperMapping[] { SENTINEL };
     private final MutableIntSet free = new IntHashSet();
@@ -57,11 +59,15 @@ final class SwapperSet
     {
         public final int id;
         public final PageSwapper swapper;
+        public final PageCachePriority priority;
+        // The number of cache pages that are currently bound to this swapper.
+        public final LongAdder residentPages = new LongAdder();
 
-        private SwapperMapping( int id, PageSwapper swapper )
+        private SwapperMapping( int id, PageSwapper swapper, PageCachePriority priority )
         {
             this.id = id;
             this.swapper = swapper;
+            this.priority = priority;
         }
     }
 
@@ -88,9 +94,17 @@ final class SwapperSet
     }
 
     /**
-     * Allocate a new swapper id for the given {@link PageSwapper}.
+     * Allocate a new swapper id for the given {@link PageSwapper}, with {@link PageCachePriority#NORMAL normal} priority.
      */
-    synchronized int allocate( PageSwapper swapper )
+    int allocate( PageSwapper swapper )
+    {
+        return allocate( swapper, PageCachePriority.NORMAL );
+    }
+
+    /**
+     * Allocate a new swapper id for the given {@link PageSwapper}, with the given priority class.
+     */
+    synchronized int allocate( PageSwapper swapper, PageCachePriority priority )
     {
         SwapperMapping[] swapperMappings = this.swapperMappings;
 
@@ -101,7 +115,7 @@ final class SwapperSet
             {
                 int id = free.intIterator().next();
                 free.remove( id );
-                swapperMappings[id] = new SwapperMapping( id, swapper );
+                swapperMappings[id] = new SwapperMapping( id, swapper, priority );
                 this.swapperMappings = swapperMappings; // Volatile store synchronizes-with loads in getters.
                 return id;
             }
@@ -114,7 +128,7 @@ final class SwapperSet
             throw new IllegalStateException( "All swapper ids are allocated: " + MAX_SWAPPER_ID );
         }
         swapperMappings = Arrays.copyOf( swapperMappings, id + 1 );
-        swapperMappings[id] = new SwapperMapping( id, swapper );
+        swapperMappings[id] = new SwapperMapping( id, swapper, priority );
         this.swapperMappings = swapperMappings; // Volatile store synchronizes-with loads in getters.
         return id;
     }
@@ -196,6 +210,23 @@ final class SwapperSet
         }
     }
 
+    /**
+     * Count the cache pages that are bound to the currently allocated swappers of the given priority class.
+     * The count is only an estimate, since pages can be faulted in and evicted concurrently.
+     */
+    long countResidentPages( PageCachePriority priority )
+    {
+        long residentPages = 0;
+        for ( SwapperMapping swapperMapping : swapperMappings )
+        {
+            if ( swapperMapping != null && swapperMapping.swapper != null && swapperMapping.priority == priority )
+            {
+                residentPages += swapperMapping.residentPages.sum();
+            }
+        }
+        return residentPages;
+    }
+
     synchronized int countAvailableIds()
     {
         // the max id is one less than the allowed count, but we subtract one for the reserved id 0
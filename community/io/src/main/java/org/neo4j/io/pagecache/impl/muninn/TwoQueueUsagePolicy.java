@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The usage counters of the {@link PageReplacementPolicy#TWO_QUEUE} policy.
+ * <p>
+ * The highest of the 3 usage bits tells if the page is in the hot set, and the lower 2 bits are a CLOCK usage counter, up to 3.
+ * A probationary page that is visited by the clock arm is evicted if it has been pinned at most once since it was faulted in, and is
+ * otherwise promoted to the hot set. Hot pages are aged and evicted like in CLOCK, but only while the probationary set is no larger than
+ * its target size of a quarter of the cache.
+ * <p>
+ * The ghost table is a direct-mapped table of fingerprints of recently evicted probationary pages. It is lossy, and racy, by design;
+ * a lost or false ghost only means a single page is admitted to the wrong set.
+ */
+final class TwoQueueUsagePolicy extends PageUsagePolicy
+{
+    private static final int HOT = 0b100;
+    private static final int MASK_COUNT = 0b011;
+    private static final int MAX_USAGE_COUNT = 3;
+    // The ghost table holds half as many entries as there are pages in the cache, but never takes more than 16 MiBs of heap.
+    private static final int MAX_GHOSTS = 1 << 22;
+
+    private final int probationaryTarget;
+    private final AtomicInteger probationaryPages = new AtomicInteger();
+    private final int[] ghosts;
+    private final int ghostMask;
+
+    TwoQueueUsagePolicy( int pageCount )
+    {
+        this.probationaryTarget = pageCount / 4;
+        int ghostCount = Math.min( MAX_GHOSTS, Integer.highestOneBit( Math.max( 2, pageCount / 2 ) ) );
+        this.ghosts = new int[ghostCount];
+        this.ghostMask = ghostCount - 1;
+    }
+
+    @Override
+    void incrementUsage( PageList pages, long pageRef )
+    {
+        int usage = pages.getUsage( pageRef );
+        if ( (usage & MASK_COUNT) < MAX_USAGE_COUNT )
+        {
+            pages.compareAndSetUsage( pageRef, usage, usage + 1 );
+        }
+    }
+
+    @Override
+    boolean decrementUsage( PageList pages, long pageRef )
+    {
+        int usage = pages.getUsage( pageRef );
+        int count = usage & MASK_COUNT;
+        if ( (usage & HOT) == 0 )
+        {
+            if ( count <= 1 )
+            {
+                return true;
+            }
+            if ( pages.compareAndSetUsage( pageRef, usage, HOT | (count - 1) ) )
+            {
+                probationaryPages.decrementAndGet();
+            }
+            return false;
+        }
+        if ( probationaryPages.get() > probationaryTarget )
+        {
+            // Leave the hot pages alone, while there are plenty of probationary pages to evict.
+            return false;
+        }
+        if ( count > 0 )
+        {
+            pages.compareAndSetUsage( pageRef, usage, usage - 1 );
+        }
+        return count <= 1;
+    }
+
+    @Override
+    void faulted( PageList pages, long pageRef, int swapperId, long filePageId )
+    {
+        long hash = hash( swapperId, filePageId );
+        int slot = (int) hash & ghostMask;
+        int fingerprint = fingerprint( hash );
+        if ( ghosts[slot] == fingerprint )
+        {
+            ghosts[slot] = 0;
+            pages.setUsage( pageRef, HOT );
+        }
+        else
+        {
+            probationaryPages.incrementAndGet();
+        }
+    }
+
+    @Override
+    void evicted( PageList pages, long pageRef, int swapperId, long filePageId )
+    {
+        if ( (pages.getUsage( pageRef ) & HOT) == 0 )
+        {
+            probationaryPages.decrementAndGet();
+            if ( swapperId != 0 )
+            {
+                long hash = hash( swapperId, filePageId );
+                ghosts[(int) hash & ghostMask] = fingerprint( hash );
+            }
+        }
+    }
+
+    int probationaryPages()
+    {
+        return probationaryPages.get();
+    }
+
+    private static long hash( int swapperId, long filePageId )
+    {
+        long hash = (filePageId * 0x9E3779B97F4A7C15L) ^ (swapperId * 0xC2B2AE3D27D4EB4FL);
+        return hash ^ (hash >>> 29);
+    }
+
+    private static int fingerprint( long hash )
+    {
+        // Zero marks an empty slot, so fingerprints are never zero.
+        return (int) (hash >>> 32) | 1;
+    }
+}
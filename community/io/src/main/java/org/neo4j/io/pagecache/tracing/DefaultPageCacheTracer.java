@@ -21,10 +21,13 @@ package org.neo4j.io.pagecache.tracing;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.neo4j.internal.helpers.MathUtil;
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
@@ -47,6 +50,10 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
     protected final AtomicLong maxPages = new AtomicLong();
+    protected final ConcurrentHashMap<Integer,Integer> freeListSizes = new ConcurrentHashMap<>();
+    protected final AtomicLongArray residentPages = new AtomicLongArray( PageCachePriority.values().length );
+
+    private final ConcurrentHashMap<Integer,PartitionEvictionRunEvent> partitionEvictionRunEvents = new ConcurrentHashMap<>();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -145,12 +152,57 @@ public class DefaultPageCacheTracer implements PageCacheTracer
             return evictionEvent;
         }
 
+        @Override
+        public void freeListSize( int partition, int freePages )
+        {
+            freeListSizes.put( partition, freePages );
+        }
+
+        @Override
+        public void residentPages( PageCachePriority priority, long pages )
+        {
+            residentPages.set( priority.ordinal(), pages );
+        }
+
         @Override
         public void close()
         {
         }
     };
 
+    /**
+     * Eviction run of the background eviction thread of a partition, which also counts the evictions of that partition. There is one
+     * instance per partition, which is reused by every eviction run of the eviction thread of that partition.
+     */
+    private class PartitionEvictionRunEvent implements EvictionRunEvent
+    {
+        private final LongAdder evictionsOfPartition = new LongAdder();
+
+        @Override
+        public EvictionEvent beginEviction()
+        {
+            evictionsOfPartition.increment();
+            return evictionEvent;
+        }
+
+        @Override
+        public void freeListSize( int partition, int freePages )
+        {
+            evictionRunEvent.freeListSize( partition, freePages );
+        }
+
+        @Override
+        public void residentPages( PageCachePriority priority, long pages )
+        {
+            evictionRunEvent.residentPages( priority, pages );
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
     private final MajorFlushEvent majorFlushEvent = new MajorFlushEvent()
     {
         @Override
@@ -189,6 +241,13 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return evictionRunEvent;
     }
 
+    @Override
+    public EvictionRunEvent beginPageEvictions( int partition, int pageCountToEvict )
+    {
+        PartitionEvictionRunEvent event = partitionEvictionRunEvents.get( partition );
+        return event != null ? event : partitionEvictionRunEvents.computeIfAbsent( partition, p -> new PartitionEvictionRunEvent() );
+    }
+
     @Override
     public MajorFlushEvent beginFileFlush( PageSwapper swapper )
     {
@@ -273,6 +332,33 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return evictionExceptions.sum();
     }
 
+    /**
+     * @return the number of free pages in the free-list of the given eviction partition, as observed at the start of the most recent
+     * eviction run of that partition, or {@code -1} if no eviction run has been observed for the partition.
+     */
+    public int freeListSize( int partition )
+    {
+        return freeListSizes.getOrDefault( partition, -1 );
+    }
+
+    /**
+     * @return the number of pages evicted by the background eviction thread of the given eviction partition.
+     */
+    public long evictions( int partition )
+    {
+        PartitionEvictionRunEvent event = partitionEvictionRunEvents.get( partition );
+        return event == null ? 0 : event.evictionsOfPartition.sum();
+    }
+
+    /**
+     * @return the number of cache pages that were bound to files of the given priority class, as observed at the start of the most recent
+     * eviction run.
+     */
+    public long residentPages( PageCachePriority priority )
+    {
+        return residentPages.get( priority.ordinal() );
+    }
+
     @Override
     public double hitRatio()
     {
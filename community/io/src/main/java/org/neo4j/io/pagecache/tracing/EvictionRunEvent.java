@@ -19,10 +19,13 @@
  */
 package org.neo4j.io.pagecache.tracing;
 
+import org.neo4j.io.pagecache.PageCachePriority;
+
 /**
  * An eviction run is started when the page cache has determined that it
- * needs to evict a batch of pages. The dedicated eviction thread is
- * mostly sleeping when it is not performing an eviction run.
+ * needs to evict a batch of pages from one of its eviction partitions. The
+ * eviction thread of each partition is mostly sleeping when it is not
+ * performing an eviction run.
  */
 public interface EvictionRunEvent extends AutoCloseablePageCacheTracerEvent, EvictionEventOpportunity
 {
@@ -37,9 +40,31 @@ public interface EvictionRunEvent extends AutoCloseablePageCacheTracerEvent, Evi
             return EvictionEvent.NULL;
         }
 
+        @Override
+        public void freeListSize( int partition, int freePages )
+        {
+        }
+
+        @Override
+        public void residentPages( PageCachePriority priority, long pages )
+        {
+        }
+
         @Override
         public void close()
         {
         }
     };
+
+    /**
+     * Report the number of free pages in the free-list of the given eviction partition, as observed at the start of this eviction run.
+     * Called from the background eviction thread of the partition.
+     */
+    void freeListSize( int partition, int freePages );
+
+    /**
+     * Report the number of cache pages that are bound to files of the given priority class, as observed at the start of this eviction run.
+     * Called from the background eviction thread of a partition, once for every priority class.
+     */
+    void residentPages( PageCachePriority priority, long pages );
 }
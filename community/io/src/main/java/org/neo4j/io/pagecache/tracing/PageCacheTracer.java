@@ -243,6 +243,16 @@ public interface PageCacheTracer extends PageCacheCounters
      **/
     EvictionRunEvent beginPageEvictions( int pageCountToEvict );
 
+    /**
+     * A background eviction has begun in the given eviction partition. Called from the background eviction thread of that partition.
+     *
+     * The method returns an EvictionRunEvent to represent the event of this eviction run.
+     */
+    default EvictionRunEvent beginPageEvictions( int partition, int pageCountToEvict )
+    {
+        return beginPageEvictions( pageCountToEvict );
+    }
+
     /**
      * A PagedFile wants to flush all its bound pages.
      */
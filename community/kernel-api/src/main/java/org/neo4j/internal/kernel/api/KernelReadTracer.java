@@ -49,7 +49,9 @@ public interface KernelReadTracer extends ReadTracer
     void onAllNodesScan();
 
     /**
-     * Called on {@link Read#nodeLabelScan(int, NodeLabelIndexCursor, IndexOrder)}.
+     * Called on {@link Read#nodeLabelScan(int, NodeLabelIndexCursor, IndexOrder)}, and for each of the labels
+     * on {@link Read#nodeLabelIntersectionScan(int[], NodeLabelIndexCursor, IndexOrder)} and
+     * {@link Read#nodeLabelUnionScan(int[], NodeLabelIndexCursor, IndexOrder)}.
      */
     void onLabelScan( int label );
 
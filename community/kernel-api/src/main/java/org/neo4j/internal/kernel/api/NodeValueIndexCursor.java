@@ -68,6 +68,38 @@ public interface NodeValueIndexCursor extends NodeIndexCursor
 
     Value propertyValue( int offset );
 
+    /**
+     * @return the number of included properties of the index, i.e. properties whose values are stored in the index in addition to the
+     * indexed values, in the order of {@link org.neo4j.internal.schema.IndexDescriptor#getIncludedPropertyIds()}.
+     */
+    default int numberOfIncludedProperties()
+    {
+        return 0;
+    }
+
+    /**
+     * Check before trying to access included values with {@link #includedPropertyValue(int)}. Result can change with each call to
+     * {@link #next()}. Included values are only available for entries read from the index, where the node has no property changes in
+     * the transaction and the current user can read all the included properties.
+     *
+     * @return {@code true} if {@link #includedPropertyValue(int)} can be used to get included property values on cursor's current location,
+     * else {@code false}.
+     */
+    default boolean hasIncludedValues()
+    {
+        return false;
+    }
+
+    /**
+     * @param offset offset of the included property, between 0 and {@link #numberOfIncludedProperties()}.
+     * @return the value of the included property, {@link org.neo4j.values.storable.Values#NO_VALUE} if the node doesn't have the property,
+     * or {@code null} if the value is too big to be stored in the index and has to be read from the node instead.
+     */
+    default Value includedPropertyValue( int offset )
+    {
+        throw new IllegalStateException( "No included values available" );
+    }
+
     class Empty extends DoNothingCloseListenable implements NodeValueIndexCursor
     {
 
@@ -115,6 +115,25 @@ public interface Read
 
     Scan<NodeLabelIndexCursor> nodeLabelScan( int label );
 
+    /**
+     * Scan all nodes with all of the given labels. The labels are intersected in the label index,
+     * rather than scanning the nodes of one label and filtering them on the others.
+     *
+     * @param labels the labels
+     * @param cursor the cursor to use for consuming the results.
+     * @param order the requested order on the query result.
+     */
+    void nodeLabelIntersectionScan( int[] labels, NodeLabelIndexCursor cursor, IndexOrder order );
+
+    /**
+     * Scan all nodes with any of the given labels. Each node is returned once, even if it has several of the labels.
+     *
+     * @param labels the labels
+     * @param cursor the cursor to use for consuming the results.
+     * @param order the requested order on the query result.
+     */
+    void nodeLabelUnionScan( int[] labels, NodeLabelIndexCursor cursor, IndexOrder order );
+
     /**
      * Return all nodes in the graph.
      *
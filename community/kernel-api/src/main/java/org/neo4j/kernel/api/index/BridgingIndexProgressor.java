@@ -107,4 +107,10 @@ public class BridgingIndexProgressor implements IndexProgressor.EntityValueClien
     {
         return client.acceptEntity( reference, score, values );
     }
+
+    @Override
+    public boolean acceptEntity( long reference, float score, Value[] values, Value[] includedValues )
+    {
+        return client.acceptEntity( reference, score, values, includedValues );
+    }
 }
@@ -70,6 +70,21 @@ public interface IndexAccessor extends Closeable, ConsistencyCheckable, MinimalI
      */
     void force( IOLimiter ioLimiter, PageCursorTracer cursorTracer );
 
+    /**
+     * Rewrites this index into a denser and more ordered form if it has become fragmented, e.g. after many removals.
+     * Like other changes, the result becomes durable by the next {@link #force(IOLimiter, PageCursorTracer)}.
+     *
+     * @param minFragmentation how fragmented, between 0 and 1, the index must be for it to be compacted.
+     * @param ioLimiter The {@link IOLimiter} to use for implementations living on top of {@link org.neo4j.io.pagecache.PageCache}.
+     * @param cursorTracer underlying page cursor tracer
+     * @return {@code true} if the index was compacted, otherwise {@code false}.
+     * @throws UncheckedIOException if there was a problem compacting the index.
+     */
+    default boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+    {
+        return false;
+    }
+
     /**
      * Refreshes this index, so that {@link #newReader() readers} created after completion of this call
      * will see the latest updates. This happens automatically on closing {@link #newUpdater(IndexUpdateMode, PageCursorTracer)}
@@ -295,6 +310,12 @@ public interface IndexAccessor extends Closeable, ConsistencyCheckable, MinimalI
             delegate.force( ioLimiter, cursorTracer );
         }
 
+        @Override
+        public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+        {
+            return delegate.compact( minFragmentation, ioLimiter, cursorTracer );
+        }
+
         @Override
         public void refresh()
         {
@@ -96,6 +96,20 @@ public interface IndexProgressor extends AutoCloseable
          */
         boolean acceptEntity( long reference, float score, Value... values );
 
+        /**
+         * Accept the node id, values and included values of a candidate entry of an index with included properties, see
+         * {@link IndexDescriptor#getIncludedPropertyIds()}. Only called if {@link #needsValues()}. By default the included values are ignored.
+         * @param reference the node id of the candidate index entry
+         * @param score a score figure for the quality of the match, for indexes where this makes sense, otherwise {@link Float#NaN}.
+         * @param values the values of the candidate index entry
+         * @param includedValues the values of the included properties of the node, where values not stored in the index are {@code null}
+         * @return true if the entry is accepted, false otherwise
+         */
+        default boolean acceptEntity( long reference, float score, Value[] values, Value[] includedValues )
+        {
+            return acceptEntity( reference, score, values );
+        }
+
         boolean needsValues();
     }
 
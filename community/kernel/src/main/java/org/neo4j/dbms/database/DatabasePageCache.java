@@ -163,6 +163,12 @@ public class DatabasePageCache implements PageCache
             return delegate.io( pageId, pf_flags, tracer );
         }
 
+        @Override
+        public void preFetch( long pageId )
+        {
+            delegate.preFetch( pageId );
+        }
+
         @Override
         public int pageSize()
         {
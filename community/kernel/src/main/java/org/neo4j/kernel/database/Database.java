@@ -99,6 +99,8 @@ import org.neo4j.kernel.impl.factory.KernelTransactionFactory;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.pagecache.PageCacheLifecycle;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerLifecycle;
 import org.neo4j.kernel.impl.query.QueryEngineProvider;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
 import org.neo4j.kernel.impl.store.stats.DatabaseEntityCounters;
@@ -430,7 +432,7 @@ public class Database extends LifecycleAdapter
 
             storageEngine = storageEngineFactory.instantiate( fs, databaseLayout, databaseConfig, databasePageCache, tokenHolders, databaseSchemaState,
                     constraintSemantics, indexProviderMap, lockService, idGeneratorFactory, idController, databaseHealth, internalLogProvider,
-                    recoveryCleanupWorkCollector, pageCacheTracer, !storageExists, otherDatabaseMemoryTracker );
+                    recoveryCleanupWorkCollector, scheduler, pageCacheTracer, !storageExists, otherDatabaseMemoryTracker );
 
             life.add( storageEngine );
             life.add( storageEngine.schemaAndTokensLifecycle() );
@@ -494,6 +496,13 @@ public class Database extends LifecycleAdapter
             databaseDependencies.satisfyDependency( indexStatisticsStore );
             databaseDependencies.satisfyDependency( indexProviderMap );
             databaseDependencies.satisfyDependency( forceOperation );
+            IndexCompaction indexCompaction = new IndexCompaction( indexingService, labelScanStore, relationshipTypeScanStore, ioLimiter, pageCacheTracer,
+                    scheduler, databaseConfig, namedDatabaseId.name(), clock, internalLogProvider.getLog( IndexCompaction.class ), readOnly );
+            databaseDependencies.satisfyDependency( indexCompaction );
+            NodeDefragmenter nodeDefragmenter = new NodeDefragmenter( storageEngine, databaseDependencies.resolveDependency( TransactionCommitProcess.class ),
+                    locks, leaseService, metadataProvider, versionContextSupplier, pageCacheTracer, scheduler, databaseConfig, namedDatabaseId.name(), clock,
+                    internalLogProvider.getLog( NodeDefragmenter.class ) );
+            databaseDependencies.satisfyDependency( nodeDefragmenter );
             databaseDependencies.satisfyDependency(
                     new DatabaseEntityCounters( this.idGeneratorFactory, databaseDependencies.resolveDependency( CountsAccessor.class ) ) );
 
@@ -505,6 +514,9 @@ public class Database extends LifecycleAdapter
             life.add( databaseHealth );
             life.add( databaseAvailabilityGuard );
             life.add( databaseAvailability );
+            life.add( buildPageCacheWarmer( pageCacheTracer ) );
+            life.add( indexCompaction );
+            life.add( nodeDefragmenter );
             life.setLast( checkpointerLifecycle );
 
             databaseDependencies.resolveDependency( DbmsDiagnosticsManager.class ).dumpDatabaseDiagnostics( this );
@@ -526,6 +538,14 @@ public class Database extends LifecycleAdapter
         }
     }
 
+    private PageCacheWarmerLifecycle buildPageCacheWarmer( PageCacheTracer pageCacheTracer )
+    {
+        PageCacheWarmer warmer = new PageCacheWarmer( fs, databasePageCache, scheduler, databaseLayout.databaseDirectory(), namedDatabaseId.name(),
+                pageCacheTracer );
+        return new PageCacheWarmerLifecycle( warmer, scheduler, databaseConfig, namedDatabaseId.name(), clock,
+                internalLogProvider.getLog( PageCacheWarmer.class ), readOnly );
+    }
+
     private void validateStoreAndTxLogs( LogFiles logFiles, PageCacheTracer pageCacheTracer, boolean storageExists )
             throws IOException
     {
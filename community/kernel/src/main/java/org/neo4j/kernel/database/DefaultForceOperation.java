@@ -27,6 +27,7 @@ import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerImpl;
+import org.neo4j.kernel.impl.transaction.tracing.IndexForceEvents;
 import org.neo4j.storageengine.api.StorageEngine;
 
 public class DefaultForceOperation implements CheckPointerImpl.ForceOperation
@@ -46,9 +47,9 @@ public class DefaultForceOperation implements CheckPointerImpl.ForceOperation
     }
 
     @Override
-    public void flushAndForce( IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException
+    public void flushAndForce( IOLimiter ioLimiter, PageCursorTracer cursorTracer, IndexForceEvents indexForceEvents ) throws IOException
     {
-        indexingService.forceAll( ioLimiter, cursorTracer );
+        indexingService.forceAll( ioLimiter, cursorTracer, indexForceEvents );
         labelScanStore.force( ioLimiter, cursorTracer );
         relationshipTypeScanStore.force( ioLimiter, cursorTracer );
         storageEngine.flushAndForce( ioLimiter, cursorTracer );
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.database;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.internal.index.label.LabelScanStore;
+import org.neo4j.internal.index.label.RelationshipTypeScanStore;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobMonitoringParams;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_compaction_interval;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_compaction_min_fragmentation;
+
+/**
+ * Compacts the fragmented indexes and token scan stores of a database, either when asked to or in the background at the configured
+ * interval. Compaction of an index blocks updates to, and checkpoints of, that index while it lasts and is throttled by the same
+ * {@link IOLimiter} as checkpoints are.
+ */
+public class IndexCompaction extends LifecycleAdapter
+{
+    private static final String INDEX_COMPACTION_TAG = "indexCompaction";
+
+    private final IndexingService indexingService;
+    private final LabelScanStore labelScanStore;
+    private final RelationshipTypeScanStore relationshipTypeScanStore;
+    private final IOLimiter ioLimiter;
+    private final PageCacheTracer pageCacheTracer;
+    private final JobScheduler scheduler;
+    private final Config config;
+    private final String databaseName;
+    private final SystemNanoClock clock;
+    private final Log log;
+    private final boolean readOnly;
+    private JobHandle<?> compactionJob;
+
+    public IndexCompaction( IndexingService indexingService, LabelScanStore labelScanStore, RelationshipTypeScanStore relationshipTypeScanStore,
+            IOLimiter ioLimiter, PageCacheTracer pageCacheTracer, JobScheduler scheduler, Config config, String databaseName, SystemNanoClock clock,
+            Log log, boolean readOnly )
+    {
+        this.indexingService = indexingService;
+        this.labelScanStore = labelScanStore;
+        this.relationshipTypeScanStore = relationshipTypeScanStore;
+        this.ioLimiter = ioLimiter;
+        this.pageCacheTracer = pageCacheTracer;
+        this.scheduler = scheduler;
+        this.config = config;
+        this.databaseName = databaseName;
+        this.clock = clock;
+        this.log = log;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public void start()
+    {
+        long interval = config.get( index_compaction_interval ).toMillis();
+        if ( interval == 0 || readOnly )
+        {
+            return;
+        }
+        double minFragmentation = config.get( index_compaction_min_fragmentation );
+        compactionJob = scheduler.scheduleRecurring( Group.INDEX_COMPACTION, JobMonitoringParams.systemJob( databaseName, "Index compaction" ),
+                () -> backgroundCompaction( minFragmentation ), interval, interval, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        if ( compactionJob != null )
+        {
+            compactionJob.cancel();
+            try
+            {
+                compactionJob.waitTermination();
+            }
+            catch ( CancellationException | ExecutionException ignore )
+            {
+                // Failures have already been logged by the job itself, and cancellation is expected.
+            }
+            compactionJob = null;
+        }
+    }
+
+    /**
+     * Compacts all indexes and token scan stores which are at least {@code minFragmentation} fragmented.
+     *
+     * @param minFragmentation how fragmented, between 0 and 1, an index must be for it to be compacted.
+     * @return the number of compacted indexes and token scan stores.
+     * @throws IOException on error compacting a token scan store.
+     */
+    public synchronized int compact( double minFragmentation ) throws IOException
+    {
+        long start = clock.millis();
+        int compacted;
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( INDEX_COMPACTION_TAG ) )
+        {
+            compacted = indexingService.compactAll( minFragmentation, ioLimiter, cursorTracer );
+            compacted += labelScanStore.compact( minFragmentation, ioLimiter, cursorTracer ) ? 1 : 0;
+            compacted += relationshipTypeScanStore.compact( minFragmentation, ioLimiter, cursorTracer ) ? 1 : 0;
+        }
+        if ( compacted > 0 )
+        {
+            log.info( "Index compaction completed. %d indexes compacted. Duration: %d ms.", compacted, clock.millis() - start );
+        }
+        return compacted;
+    }
+
+    private void backgroundCompaction( double minFragmentation )
+    {
+        try
+        {
+            compact( minFragmentation );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Index compaction failed.", e );
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.database;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.internal.kernel.api.security.AuthSubject;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
+import org.neo4j.kernel.impl.api.LeaseClient;
+import org.neo4j.kernel.impl.api.LeaseService;
+import org.neo4j.kernel.impl.api.TransactionCommitProcess;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.lock.LockTracer;
+import org.neo4j.lock.ResourceTypes;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobMonitoringParams;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.MetadataProvider;
+import org.neo4j.storageengine.api.NodeDefragmentation;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.apache.commons.lang3.ArrayUtils.EMPTY_BYTE_ARRAY;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.node_defragmentation_max_nodes_per_second;
+import static org.neo4j.kernel.impl.locking.Locks.Client.INVALID_TRANSACTION_ID;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+
+/**
+ * Moves the records of nodes closer together in the store, see {@link StorageEngine#defragmentNode(long, PageCursorTracer)}, as a
+ * background job throttled to the configured number of nodes per second. Each node is exclusively locked while its records are moved
+ * and the move is committed as a transaction of its own, so that it is logged, replicated and recovered like any other change.
+ */
+public class NodeDefragmenter extends LifecycleAdapter
+{
+    private static final String NODE_DEFRAGMENTATION_TAG = "nodeDefragmentation";
+
+    private final StorageEngine storageEngine;
+    private final TransactionCommitProcess commitProcess;
+    private final Locks locks;
+    private final LeaseService leaseService;
+    private final MetadataProvider metadataProvider;
+    private final VersionContextSupplier versionContextSupplier;
+    private final PageCacheTracer pageCacheTracer;
+    private final JobScheduler scheduler;
+    private final Config config;
+    private final String databaseName;
+    private final SystemNanoClock clock;
+    private final Log log;
+    private volatile boolean stopped;
+
+    public NodeDefragmenter( StorageEngine storageEngine, TransactionCommitProcess commitProcess, Locks locks, LeaseService leaseService,
+            MetadataProvider metadataProvider, VersionContextSupplier versionContextSupplier, PageCacheTracer pageCacheTracer, JobScheduler scheduler,
+            Config config, String databaseName, SystemNanoClock clock, Log log )
+    {
+        this.storageEngine = storageEngine;
+        this.commitProcess = commitProcess;
+        this.locks = locks;
+        this.leaseService = leaseService;
+        this.metadataProvider = metadataProvider;
+        this.versionContextSupplier = versionContextSupplier;
+        this.pageCacheTracer = pageCacheTracer;
+        this.scheduler = scheduler;
+        this.config = config;
+        this.databaseName = databaseName;
+        this.clock = clock;
+        this.log = log;
+    }
+
+    @Override
+    public void start()
+    {
+        stopped = false;
+    }
+
+    @Override
+    public void stop()
+    {
+        // A running job stops after the node it's currently defragmenting
+        stopped = true;
+    }
+
+    /**
+     * Schedules defragmentation of the given nodes as a background job.
+     *
+     * @param nodeIds ids of the nodes to defragment. Nodes which don't exist are skipped.
+     * @return {@link JobHandle} of the job, which completes with the {@link Report} of the defragmentation.
+     */
+    public JobHandle<Report> schedule( long[] nodeIds )
+    {
+        return scheduler.schedule( Group.NODE_DEFRAGMENTATION,
+                JobMonitoringParams.systemJob( databaseName, "Defragmentation of " + nodeIds.length + " nodes" ), () -> defragment( nodeIds ) );
+    }
+
+    /**
+     * Defragments the given nodes, one transaction per node, in the calling thread.
+     *
+     * @param nodeIds ids of the nodes to defragment. Nodes which don't exist are skipped.
+     * @return {@link Report} of the defragmentation.
+     * @throws TransactionFailureException if a transaction moving the records of a node could not be committed.
+     */
+    public synchronized Report defragment( long[] nodeIds ) throws TransactionFailureException
+    {
+        int maxNodesPerSecond = config.get( node_defragmentation_max_nodes_per_second );
+        long nanosPerNode = maxNodesPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos( 1 ) / maxNodesPerSecond;
+        long start = clock.millis();
+        long nextStart = clock.nanos();
+        Report report = new Report();
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( NODE_DEFRAGMENTATION_TAG ) )
+        {
+            for ( long nodeId : nodeIds )
+            {
+                if ( stopped )
+                {
+                    break;
+                }
+                long wait = nextStart - clock.nanos();
+                if ( wait > 0 )
+                {
+                    LockSupport.parkNanos( wait );
+                }
+                nextStart = Math.max( nextStart, clock.nanos() ) + nanosPerNode;
+                defragment( nodeId, report, cursorTracer );
+            }
+        }
+        if ( report.nodes > 0 )
+        {
+            log.info( "Node defragmentation completed. %d of %d nodes defragmented, reading them touched %d pages before and %d pages after. " +
+                    "Duration: %d ms.", report.defragmentedNodes, report.nodes, report.pagesBefore, report.pagesAfter, clock.millis() - start );
+        }
+        return report;
+    }
+
+    private void defragment( long nodeId, Report report, PageCursorTracer cursorTracer ) throws TransactionFailureException
+    {
+        try ( Locks.Client locksClient = locks.newClient() )
+        {
+            LeaseClient leaseClient = leaseService.newClient();
+            locksClient.initialize( leaseClient, INVALID_TRANSACTION_ID );
+            locksClient.acquireExclusive( LockTracer.NONE, ResourceTypes.NODE, nodeId );
+            long startTime = clock.millis();
+            long lastTransactionIdWhenStarted = metadataProvider.getLastCommittedTransactionId();
+            NodeDefragmentation defragmentation = storageEngine.defragmentNode( nodeId, cursorTracer );
+            report.nodes++;
+            report.pagesBefore += defragmentation.pagesBefore();
+            report.pagesAfter += defragmentation.pagesAfter();
+            if ( defragmentation.commands().isEmpty() )
+            {
+                return;
+            }
+
+            leaseClient.ensureValid();
+            PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( defragmentation.commands() );
+            transaction.setHeader( EMPTY_BYTE_ARRAY, startTime, lastTransactionIdWhenStarted, clock.millis(), leaseClient.leaseId(),
+                    AuthSubject.AUTH_DISABLED );
+            commitProcess.commit( new TransactionToApply( transaction, versionContextSupplier.getVersionContext(), cursorTracer ), CommitEvent.NULL,
+                    INTERNAL );
+            report.defragmentedNodes++;
+        }
+    }
+
+    /**
+     * Outcome of defragmenting a number of nodes.
+     */
+    public static class Report
+    {
+        private long nodes;
+        private long defragmentedNodes;
+        private long pagesBefore;
+        private long pagesAfter;
+
+        /**
+         * @return number of nodes which were looked at, including ones which did not exist.
+         */
+        public long nodes()
+        {
+            return nodes;
+        }
+
+        /**
+         * @return number of nodes which had their records moved.
+         */
+        public long defragmentedNodes()
+        {
+            return defragmentedNodes;
+        }
+
+        /**
+         * @return total number of pages reading the records of the nodes touched before they were moved.
+         */
+        public long pagesBefore()
+        {
+            return pagesBefore;
+        }
+
+        /**
+         * @return total number of pages reading the records of the nodes touch after they were moved.
+         */
+        public long pagesAfter()
+        {
+            return pagesAfter;
+        }
+    }
+}
@@ -1031,6 +1031,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             statistics.reset();
             releaseStatementResources();
             operations.release();
+            commandCreationContext.reset();
             pageCursorTracer.reportEvents();
             initializationTrace = NONE;
             pool.release( this );
@@ -80,6 +80,12 @@ public abstract class AbstractDelegatingIndexProxy implements IndexProxy
         getDelegate().force( ioLimiter, cursorTracer );
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException
+    {
+        return getDelegate().compact( minFragmentation, ioLimiter, cursorTracer );
+    }
+
     @Override
     public void refresh() throws IOException
     {
@@ -67,6 +67,12 @@ public abstract class AbstractSwallowingIndexProxy implements IndexProxy
     {
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+    {
+        return false;
+    }
+
     @Override
     public void refresh()
     {
@@ -135,6 +135,23 @@ class ContractCheckingIndexProxy extends DelegatingIndexProxy
         }
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( tryOpenCall() )
+        {
+            try
+            {
+                return super.compact( minFragmentation, ioLimiter, cursorTracer );
+            }
+            finally
+            {
+                closeCall();
+            }
+        }
+        return false;
+    }
+
     @Override
     public void drop()
     {
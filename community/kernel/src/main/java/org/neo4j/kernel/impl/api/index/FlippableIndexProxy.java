@@ -147,6 +147,20 @@ public class FlippableIndexProxy extends AbstractDelegatingIndexProxy
         }
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException
+    {
+        barge( lock.readLock() );
+        try
+        {
+            return delegate.compact( minFragmentation, ioLimiter, cursorTracer );
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void refresh() throws IOException
     {
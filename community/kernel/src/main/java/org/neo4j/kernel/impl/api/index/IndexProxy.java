@@ -84,6 +84,13 @@ public interface IndexProxy extends MinimalIndexAccessor
 
     void force( IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException;
 
+    /**
+     * Compacts the index if it's at least {@code minFragmentation} fragmented, see {@link IndexAccessor#compact(double, IOLimiter, PageCursorTracer)}.
+     *
+     * @return {@code true} if the index was compacted, otherwise {@code false}.
+     */
+    boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException;
+
     void refresh() throws IOException;
 
     /**
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.api.index;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.eclipse.collections.api.LongIterable;
 import org.eclipse.collections.api.block.procedure.primitive.LongObjectProcedure;
 import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
@@ -40,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
@@ -52,6 +54,7 @@ import org.neo4j.exceptions.KernelException;
 import org.neo4j.exceptions.UnderlyingStorageException;
 import org.neo4j.function.ThrowingConsumer;
 import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.internal.helpers.Exceptions;
 import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.internal.kernel.api.InternalIndexState;
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotFoundKernelException;
@@ -72,10 +75,13 @@ import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingController;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingMode;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
+import org.neo4j.kernel.impl.transaction.tracing.IndexForceEvents;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
 import org.neo4j.storageengine.api.IndexUpdateListener;
@@ -93,6 +99,7 @@ import static org.neo4j.internal.kernel.api.InternalIndexState.FAILED;
 import static org.neo4j.internal.kernel.api.InternalIndexState.ONLINE;
 import static org.neo4j.internal.kernel.api.InternalIndexState.POPULATING;
 import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
+import static org.neo4j.scheduler.JobMonitoringParams.systemJob;
 
 /**
  * Manages neo4j indexes. Each index has an {@link IndexDescriptor}, which it uses to filter
@@ -111,6 +118,7 @@ import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
 public class IndexingService extends LifecycleAdapter implements IndexUpdateListener, IndexingProvidersService
 {
     private static final String INDEX_SERVICE_INDEX_CLOSING_TAG = "indexServiceIndexClosing";
+    private static final String INDEX_FORCE_TAG = "indexForce";
     private final IndexSamplingController samplingController;
     private final IndexProxyCreator indexProxyCreator;
     private final IndexStoreView storeView;
@@ -744,9 +752,78 @@ public class IndexingService extends LifecycleAdapter implements IndexUpdateList
     }
 
     public void forceAll( IOLimiter limiter, PageCursorTracer cursorTracer ) throws IOException
+    {
+        forceAll( limiter, cursorTracer, IndexForceEvents.NULL );
+    }
+
+    /**
+     * Forces all indexes. Indexes are forced concurrently, on {@link Group#INDEX_FORCE}, all of them sharing the IO rate of the given
+     * {@code limiter}.
+     * The time it took to force each index is reported to {@code events}.
+     */
+    public void forceAll( IOLimiter limiter, PageCursorTracer cursorTracer, IndexForceEvents events ) throws IOException
     {
         indexStatisticsStore.checkpoint( limiter, cursorTracer );
-        indexMapRef.indexMapSnapshot().forEachIndexProxy( indexProxyOperation( "force", proxy -> proxy.force( limiter, cursorTracer ) ) );
+        List<JobHandle<?>> forces = new ArrayList<>();
+        LongObjectProcedure<IndexProxy> force = indexProxyOperation( "force", proxy -> forceIndex( proxy, limiter, events ) );
+        indexMapRef.indexMapSnapshot().forEachIndexProxy( ( id, proxy ) ->
+        {
+            var monitoringParams = systemJob( databaseName, "Force of index '" + proxy.getDescriptor().getName() + "'" );
+            forces.add( jobScheduler.schedule( Group.INDEX_FORCE, monitoringParams, () -> force.value( id, proxy ) ) );
+        } );
+
+        RuntimeException failure = null;
+        for ( JobHandle<?> handle : forces )
+        {
+            try
+            {
+                handle.waitTermination();
+            }
+            catch ( ExecutionException e )
+            {
+                Throwable cause = e.getCause();
+                failure = Exceptions.chain( failure, cause instanceof RuntimeException ? (RuntimeException) cause
+                                                                                         : new UnderlyingStorageException( "Unable to force index", cause ) );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure = Exceptions.chain( failure, new UnderlyingStorageException( "Interrupted while waiting for indexes to be forced", e ) );
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    private void forceIndex( IndexProxy proxy, IOLimiter limiter, IndexForceEvents events ) throws IOException
+    {
+        // Page cursor tracers are not thread safe, so every concurrent force gets its own
+        try ( var cursorTracer = pageCacheTracer.createPageCursorTracer( INDEX_FORCE_TAG ) )
+        {
+            long startTime = System.nanoTime();
+            proxy.force( limiter, cursorTracer );
+            events.indexForced( proxy.getDescriptor(), TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startTime ) );
+        }
+    }
+
+    /**
+     * Compacts all online indexes which are at least {@code minFragmentation} fragmented.
+     *
+     * @return the number of compacted indexes.
+     */
+    public int compactAll( double minFragmentation, IOLimiter limiter, PageCursorTracer cursorTracer )
+    {
+        MutableInt compacted = new MutableInt();
+        indexMapRef.indexMapSnapshot().forEachIndexProxy( indexProxyOperation( "compact", proxy ->
+        {
+            if ( proxy.compact( minFragmentation, limiter, cursorTracer ) )
+            {
+                compacted.increment();
+            }
+        } ) );
+        return compacted.intValue();
     }
 
     private LongObjectProcedure<IndexProxy> indexProxyOperation( String name, ThrowingConsumer<IndexProxy, Exception> operation )
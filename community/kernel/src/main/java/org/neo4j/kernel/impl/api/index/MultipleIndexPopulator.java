@@ -125,23 +125,29 @@ public class MultipleIndexPopulator
     public static final String BATCH_SIZE_NAME = "batch_size";
     public static final String BATCH_MAX_BYTE_SIZE_NAME = "batch_max_byte_size";
     static final String AWAIT_TIMEOUT_MINUTES_NAME = "await_timeout_minutes";
+    static final String SCAN_WORKERS_NAME = "scan_workers";
     private static final String EOL = System.lineSeparator();
 
     static final int DEFAULT_BATCH_SIZE_SCAN = 10_000;
     static final int DEFAULT_QUEUE_THRESHOLD = 20_000;
     static final int DEFAULT_BATCH_MAX_BYTE_SIZE = (int) mebiBytes( 10 );
     static final int DEFAULT_AWAIT_TIMEOUT_MINUTES = 30;
+    static final int DEFAULT_SCAN_WORKERS = Math.min( 4, Runtime.getRuntime().availableProcessors() );
 
     private final int QUEUE_THRESHOLD;
     final int BATCH_SIZE_SCAN;
     final int BATCH_MAX_BYTE_SIZE_SCAN;
     private final boolean PRINT_DEBUG = FeatureToggles.flag( MultipleIndexPopulator.class, "print_debug", false );
     private final int AWAIT_TIMEOUT_MINUTES;
+    private final int SCAN_WORKERS = FeatureToggles.getInteger( MultipleIndexPopulator.class, SCAN_WORKERS_NAME, DEFAULT_SCAN_WORKERS );
 
     // Concurrency queue since multiple concurrent threads may enqueue updates into it. It is important for this queue
     // to have fast #size() method since it might be drained in batches
     private final Queue<IndexEntryUpdate<?>> concurrentUpdateQueue = new LinkedBlockingQueue<>();
     private final AtomicLong concurrentUpdateQueueByteSize = new AtomicLong();
+    // Updates taken from the queue which the store scan couldn't yet tell whether or not it will see, see StoreScan#acceptUpdate.
+    // Only accessed while draining the queue, which happens at a fixed position of the store scan, i.e. one drain at a time.
+    private final List<IndexEntryUpdate<?>> deferredConcurrentUpdates = new ArrayList<>();
 
     // Populators are added into this list. The same thread adding populators will later call #createStoreScan.
     // Multiple concurrent threads might fail individual populations.
@@ -259,6 +265,8 @@ public class MultipleIndexPopulator
                     cursorTracer, memoryTracker );
         }
         storeScan.setPhaseTracker( phaseTracker );
+        storeScan.setParallelism( SCAN_WORKERS, cacheTracer, worker -> jobScheduler.schedule( Group.INDEX_POPULATION_SCAN,
+                new JobMonitoringParams( subject, databaseName, "Index population store scan worker" ), worker ) );
         return new BatchingStoreScan<>( storeScan );
     }
 
@@ -408,7 +416,7 @@ public class MultipleIndexPopulator
 
     private IntStream propertyKeyIds( IndexPopulation population )
     {
-        return IntStream.of( population.schema().getPropertyIds() );
+        return IntStream.concat( IntStream.of( population.schema().getPropertyIds() ), IntStream.of( population.getIncludedPropertyIds() ) );
     }
 
     private int[] entityTokenIds()
@@ -507,36 +515,14 @@ public class MultipleIndexPopulator
     private boolean applyConcurrentUpdateQueue( int queueThreshold, long currentlyIndexedNodeId )
     {
         int queueSize = concurrentUpdateQueue.size();
-        if ( (queueSize > 0 && queueSize >= queueThreshold) || concurrentUpdateQueueByteSize.get() >= BATCH_MAX_BYTE_SIZE_SCAN )
+        if ( (queueSize > 0 && queueSize >= queueThreshold) || concurrentUpdateQueueByteSize.get() >= BATCH_MAX_BYTE_SIZE_SCAN ||
+             (queueThreshold == 0 && !deferredConcurrentUpdates.isEmpty()) )
         {
             if ( PRINT_DEBUG )
             {
                 log.info( "Populating from queue at %d", currentlyIndexedNodeId );
             }
-            // Before applying updates from the updates queue any pending scan updates needs to be applied, i.e. flushed.
-            // This is because 'currentlyIndexedNodeId' is based on how far the scan has come.
-            flushAll();
-
-            long updateByteSizeDrained = 0;
-            try ( MultipleIndexUpdater updater = newPopulatingUpdater( propertyAccessor, cursorTracer ) )
-            {
-                do
-                {
-                    // no need to check for null as nobody else is emptying this queue
-                    IndexEntryUpdate<?> update = concurrentUpdateQueue.poll();
-                    // Since updates can be added concurrently with us draining the queue simply setting the value to 0
-                    // after drained will not be 100% synchronized with the queue contents and could potentially cause a large
-                    // drift over time. Therefore each update polled from the queue will subtract its size instead.
-                    updateByteSizeDrained += update != null ? roughSizeOfUpdate( update ) : 0;
-                    storeScan.acceptUpdate( updater, update, currentlyIndexedNodeId );
-                    if ( PRINT_DEBUG )
-                    {
-                        log.info( "Applied %s from queue" + (update == null ? null : update.describe( tokenNameLookup ) ) );
-                    }
-                }
-                while ( !concurrentUpdateQueue.isEmpty() );
-                concurrentUpdateQueueByteSize.addAndGet( -updateByteSizeDrained );
-            }
+            storeScan.applyUpdatesAtFixedPosition( () -> drainConcurrentUpdateQueue( currentlyIndexedNodeId ) );
             if ( PRINT_DEBUG )
             {
                 log.info( "Done applying updates from queue" );
@@ -546,6 +532,48 @@ public class MultipleIndexPopulator
         return false;
     }
 
+    private void drainConcurrentUpdateQueue( long currentlyIndexedNodeId )
+    {
+        // Before applying updates from the updates queue any pending scan updates needs to be applied, i.e. flushed.
+        // This is because 'currentlyIndexedNodeId' is based on how far the scan has come.
+        flushAll();
+
+        long updateByteSizeDrained = 0;
+        try ( MultipleIndexUpdater updater = newPopulatingUpdater( propertyAccessor, cursorTracer ) )
+        {
+            // Updates deferred by an earlier drain go first, they are older than anything in the queue
+            List<IndexEntryUpdate<?>> deferred = new ArrayList<>( deferredConcurrentUpdates );
+            deferredConcurrentUpdates.clear();
+            deferred.forEach( update -> acceptConcurrentUpdate( updater, update, currentlyIndexedNodeId ) );
+
+            IndexEntryUpdate<?> update;
+            while ( (update = concurrentUpdateQueue.poll()) != null )
+            {
+                // Since updates can be added concurrently with us draining the queue simply setting the value to 0
+                // after drained will not be 100% synchronized with the queue contents and could potentially cause a large
+                // drift over time. Therefore each update polled from the queue will subtract its size instead.
+                updateByteSizeDrained += roughSizeOfUpdate( update );
+                acceptConcurrentUpdate( updater, update, currentlyIndexedNodeId );
+            }
+        }
+        finally
+        {
+            concurrentUpdateQueueByteSize.addAndGet( -updateByteSizeDrained );
+        }
+    }
+
+    private void acceptConcurrentUpdate( MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
+    {
+        if ( !storeScan.acceptUpdate( updater, update, currentlyIndexedNodeId ) )
+        {
+            deferredConcurrentUpdates.add( update );
+        }
+        else if ( PRINT_DEBUG )
+        {
+            log.info( "Applied %s from queue", update.describe( tokenNameLookup ) );
+        }
+    }
+
     private void forEachPopulation( ThrowingConsumer<IndexPopulation,Exception> action, PageCursorTracer cursorTracer )
     {
         for ( IndexPopulation population : populations )
@@ -771,8 +799,14 @@ public class MultipleIndexPopulator
 
         private void onUpdateFromScan( IndexEntryUpdate<?> update )
         {
-            populator.includeSample( update );
-            if ( addToBatchFromScan( update ) )
+            boolean batchFull;
+            // The store scan may be processing entities in several threads
+            synchronized ( this )
+            {
+                populator.includeSample( update );
+                batchFull = addToBatchFromScan( update );
+            }
+            if ( batchFull )
             {
                 flush( this );
             }
@@ -832,6 +866,12 @@ public class MultipleIndexPopulator
             return indexUserDescription;
         }
 
+        @Override
+        public int[] getIncludedPropertyIds()
+        {
+            return indexDescriptor.getIncludedPropertyIds();
+        }
+
         boolean addToBatchFromScan( IndexEntryUpdate<?> update )
         {
             batchedUpdatesFromScan.add( update );
@@ -839,7 +879,7 @@ public class MultipleIndexPopulator
             return batchedUpdatesFromScan.size() >= BATCH_SIZE_SCAN || sizeOfBatchedUpdates >= BATCH_MAX_BYTE_SIZE_SCAN;
         }
 
-        List<IndexEntryUpdate<?>> takeCurrentBatchFromScan()
+        synchronized List<IndexEntryUpdate<?>> takeCurrentBatchFromScan()
         {
             if ( batchedUpdatesFromScan.isEmpty() )
             {
@@ -947,9 +987,9 @@ public class MultipleIndexPopulator
         }
 
         @Override
-        public void acceptUpdate( MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
+        public boolean acceptUpdate( MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
         {
-            delegate.acceptUpdate( updater, update, currentlyIndexedNodeId );
+            return delegate.acceptUpdate( updater, update, currentlyIndexedNodeId );
         }
 
         @Override
@@ -963,6 +1003,18 @@ public class MultipleIndexPopulator
         {
             delegate.setPhaseTracker( phaseTracker );
         }
+
+        @Override
+        public void setParallelism( int workers, PageCacheTracer pageCacheTracer, WorkerScheduler workerScheduler )
+        {
+            delegate.setParallelism( workers, pageCacheTracer, workerScheduler );
+        }
+
+        @Override
+        public void applyUpdatesAtFixedPosition( Runnable applyUpdates )
+        {
+            delegate.applyUpdatesAtFixedPosition( applyUpdates );
+        }
     }
 
     /**
@@ -143,6 +143,12 @@ public class OnlineIndexProxy implements IndexProxy
         accessor.force( ioLimiter, cursorTracer );
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+    {
+        return accessor.compact( minFragmentation, ioLimiter, cursorTracer );
+    }
+
     @Override
     public void refresh()
     {
@@ -106,6 +106,13 @@ public class PopulatingIndexProxy implements IndexProxy
         // Ignored... this isn't called from the outside while we're populating the index.
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+    {
+        // A populating index is built in key order anyway.
+        return false;
+    }
+
     @Override
     public void refresh()
     {
@@ -19,7 +19,11 @@
  */
 package org.neo4j.kernel.impl.api.index;
 
+import java.util.concurrent.Callable;
+
 import org.neo4j.internal.kernel.api.PopulationProgress;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.scheduler.JobHandle;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
 
 public interface StoreScan<FAILURE extends Exception>
@@ -28,7 +32,17 @@ public interface StoreScan<FAILURE extends Exception>
 
     void stop();
 
-    void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update,
+    /**
+     * Applies an external update to the given updater if the scan has already passed the entity of the update,
+     * otherwise the scan will see the change itself.
+     *
+     * @param updater updater to apply the update to.
+     * @param update external update, made during the scan.
+     * @param currentlyIndexedNodeId id of the entity the scan is currently at, when scanning sequentially.
+     * @return {@code true} if the update was applied or can be ignored, {@code false} if it can't be decided yet whether or not
+     * the scan will see it, in which case it must be offered again later, before any newer update.
+     */
+    boolean acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update,
             long currentlyIndexedNodeId );
 
     PopulationProgress getProgress();
@@ -41,4 +55,31 @@ public interface StoreScan<FAILURE extends Exception>
     default void setPhaseTracker( PhaseTracker phaseTracker )
     {   // no-op
     }
+
+    /**
+     * Let this {@link StoreScan} split its work among up to the given number of workers, if it can.
+     * Must not be called once scan has already started.
+     * @param workers maximum number of workers to scan with, including the thread calling {@link #run()}.
+     * @param pageCacheTracer tracer for the page cursors of the workers.
+     * @param workerScheduler schedules workers, other than the thread calling {@link #run()}.
+     */
+    default void setParallelism( int workers, PageCacheTracer pageCacheTracer, WorkerScheduler workerScheduler )
+    {   // no-op
+    }
+
+    /**
+     * Runs {@code applyUpdates}, which applies external updates using {@link #acceptUpdate(MultipleIndexPopulator.MultipleIndexUpdater,
+     * IndexEntryUpdate, long)}, while the scan is kept from moving on to further entities.
+     * @param applyUpdates applies external updates.
+     */
+    default void applyUpdatesAtFixedPosition( Runnable applyUpdates )
+    {
+        applyUpdates.run();
+    }
+
+    @FunctionalInterface
+    interface WorkerScheduler
+    {
+        JobHandle<?> schedule( Callable<?> worker );
+    }
 }
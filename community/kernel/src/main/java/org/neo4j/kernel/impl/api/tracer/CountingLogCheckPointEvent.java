@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.api.tracer;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 
+import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
@@ -30,12 +31,14 @@ import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
 
 /**
  * Log checkpoint event that counts number of checkpoint that occurred and amount of time elapsed
- * for all of them and for the last one.
+ * for all of them and for the last one, as well as time spent forcing indexes.
  */
 class CountingLogCheckPointEvent implements LogCheckPointEvent
 {
     private final AtomicLong checkpointCounter = new AtomicLong();
     private final AtomicLong accumulatedCheckpointTotalTimeMillis = new AtomicLong();
+    private final AtomicLong indexForceCounter = new AtomicLong();
+    private final AtomicLong accumulatedIndexForceTotalTimeMillis = new AtomicLong();
     private final BiConsumer<LogPosition,LogPosition> logFileAppendConsumer;
     private final CountingLogRotateEvent countingLogRotateEvent;
     private volatile long lastCheckpointTimeMillis;
@@ -54,6 +57,13 @@ class CountingLogCheckPointEvent implements LogCheckPointEvent
         lastCheckpointTimeMillis = checkpointMillis;
     }
 
+    @Override
+    public void indexForced( IndexDescriptor index, long forceMillis )
+    {
+        indexForceCounter.incrementAndGet();
+        accumulatedIndexForceTotalTimeMillis.addAndGet( forceMillis );
+    }
+
     @Override
     public void close()
     {
@@ -93,6 +103,16 @@ class CountingLogCheckPointEvent implements LogCheckPointEvent
         return lastCheckpointTimeMillis;
     }
 
+    long numberOfIndexForces()
+    {
+        return indexForceCounter.get();
+    }
+
+    long indexForceAccumulatedTotalTimeMillis()
+    {
+        return accumulatedIndexForceTotalTimeMillis.get();
+    }
+
     @Override
     public LogRotateEvent beginLogRotate()
     {
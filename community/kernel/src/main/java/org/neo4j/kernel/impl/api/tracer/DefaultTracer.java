@@ -104,6 +104,18 @@ public class DefaultTracer implements DatabaseTracer
         return logCheckPointEvent.lastCheckpointTimeMillis();
     }
 
+    @Override
+    public long numberOfIndexForces()
+    {
+        return logCheckPointEvent.numberOfIndexForces();
+    }
+
+    @Override
+    public long indexForceAccumulatedTotalTimeMillis()
+    {
+        return logCheckPointEvent.indexForceAccumulatedTotalTimeMillis();
+    }
+
     @Override
     public LogCheckPointEvent beginCheckPoint()
     {
@@ -20,14 +20,17 @@
 package org.neo4j.kernel.impl.index.schema;
 
 import java.nio.file.Path;
+import java.util.function.Supplier;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.exceptions.UnsatisfiedDependencyException;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.internal.schema.IndexProviderDescriptor;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.index.IndexProvider;
 import org.neo4j.kernel.api.index.LoggingMonitor;
+import org.neo4j.kernel.database.DatabaseMemoryTrackers;
 import org.neo4j.kernel.extension.ExtensionFactory;
 import org.neo4j.kernel.extension.ExtensionType;
 import org.neo4j.kernel.extension.context.ExtensionContext;
@@ -35,6 +38,8 @@ import org.neo4j.kernel.impl.factory.OperationalMode;
 import org.neo4j.kernel.recovery.RecoveryExtension;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.internal.LogService;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.monitoring.Monitors;
 
 @RecoveryExtension
@@ -59,7 +64,24 @@ public abstract class AbstractIndexProviderFactory extends ExtensionFactory<Abst
         Config config = dependencies.getConfig();
         OperationalMode operationalMode = context.dbmsInfo().operationalMode;
         RecoveryCleanupWorkCollector recoveryCleanupWorkCollector = dependencies.recoveryCleanupWorkCollector();
-        return internalCreate( pageCache, databaseDir, fs, monitor, config, operationalMode, recoveryCleanupWorkCollector );
+        MemoryTracker memoryTracker = memoryTracker( dependencies );
+        return internalCreate( pageCache, databaseDir, fs, monitor, config, operationalMode, recoveryCleanupWorkCollector, memoryTracker );
+    }
+
+    /**
+     * Database memory trackers are only available to index providers of a running database, not e.g. to those used by recovery or
+     * consistency checking, which get an {@link EmptyMemoryTracker} instead.
+     */
+    private static MemoryTracker memoryTracker( Dependencies dependencies )
+    {
+        try
+        {
+            return dependencies.memoryTrackers().get().getOtherTracker();
+        }
+        catch ( UnsatisfiedDependencyException e )
+        {
+            return EmptyMemoryTracker.INSTANCE;
+        }
     }
 
     protected abstract Class<?> loggingClass();
@@ -68,7 +90,7 @@ public abstract class AbstractIndexProviderFactory extends ExtensionFactory<Abst
 
     protected abstract IndexProvider internalCreate( PageCache pageCache, Path storeDir, FileSystemAbstraction fs,
             IndexProvider.Monitor monitor, Config config, OperationalMode operationalMode,
-            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector );
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, MemoryTracker memoryTracker );
 
     public interface Dependencies
     {
@@ -83,5 +105,7 @@ public abstract class AbstractIndexProviderFactory extends ExtensionFactory<Abst
         Config getConfig();
 
         RecoveryCleanupWorkCollector recoveryCleanupWorkCollector();
+
+        Supplier<DatabaseMemoryTrackers> memoryTrackers();
     }
 }
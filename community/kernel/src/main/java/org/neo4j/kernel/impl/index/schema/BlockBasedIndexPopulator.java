@@ -33,6 +33,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.neo4j.configuration.GraphDatabaseInternalSettings;
+import org.neo4j.index.internal.gbptree.BulkLoader;
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.Writer;
@@ -66,7 +67,7 @@ import static org.neo4j.internal.helpers.collection.Iterables.first;
 import static org.neo4j.io.ByteUnit.kibiBytes;
 import static org.neo4j.io.IOUtils.closeAllUnchecked;
 import static org.neo4j.kernel.impl.index.schema.BlockStorage.Monitor.NO_MONITOR;
-import static org.neo4j.kernel.impl.index.schema.NativeIndexUpdater.initializeKeyFromUpdate;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexUpdater.initializeKeyAndValueFromUpdate;
 import static org.neo4j.util.concurrent.Runnables.runAll;
 
 /**
@@ -205,15 +206,14 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>,V
         }
     }
 
-    private void storeUpdate( long entityId, Value[] values, BlockStorage<KEY,VALUE> blockStorage )
+    private void storeUpdate( long entityId, Value[] values, Value[] includedValues, BlockStorage<KEY,VALUE> blockStorage )
     {
         try
         {
             validator.validate( entityId, values );
             KEY key = layout.newKey();
             VALUE value = layout.newValue();
-            initializeKeyFromUpdate( key, entityId, values );
-            value.from( values );
+            initializeKeyAndValueFromUpdate( key, value, entityId, values, includedValues );
             blockStorage.add( key, value );
         }
         catch ( IOException e )
@@ -224,7 +224,7 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>,V
 
     private void storeUpdate( IndexEntryUpdate<?> update, BlockStorage<KEY,VALUE> blockStorage )
     {
-        storeUpdate( update.getEntityId(), update.values(), blockStorage );
+        storeUpdate( update.getEntityId(), update.values(), update.includedValues(), blockStorage );
     }
 
     private synchronized boolean markMergeStarted()
@@ -437,18 +437,61 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>,V
                 }
             }
 
-            int asMuchAsPossibleToTheLeft = 1;
-            try ( Writer<KEY,VALUE> writer = tree.writer( asMuchAsPossibleToTheLeft, cursorTracer ) )
+            // The merged entries come in the sort order of the tree, so the tree can be built bottom-up instead of
+            // inserting every entry from the root
+            try ( BulkLoader<KEY,VALUE> loader = tree.bulkLoader( cursorTracer ) )
             {
+                KEY previousKey = layout.newKey();
+                boolean hasPrevious = false;
                 while ( allEntries.next() && !cancellation.cancelled() )
                 {
-                    writeToTree( writer, recordingConflictDetector, allEntries.key(), allEntries.value() );
+                    KEY key = allEntries.key();
+                    VALUE value = allEntries.value();
+                    if ( !hasPrevious || layout.compare( previousKey, key ) != 0 )
+                    {
+                        if ( hasPrevious )
+                        {
+                            checkConflictWithPrevious( recordingConflictDetector, previousKey, key, value );
+                        }
+                        loader.add( key, value );
+                        layout.copyKey( key, previousKey );
+                        hasPrevious = true;
+                    }
                     numberOfAppliedScanUpdates.incrementAndGet();
                 }
             }
         }
     }
 
+    /**
+     * Entries with the same value are adjacent in the sorted scan updates, so for unique indexes comparing with the previous entry
+     * records the same conflicts as merging each entry into the tree would.
+     */
+    private void checkConflictWithPrevious( RecordingConflictDetector<KEY,VALUE> recordingConflictDetector, KEY previousKey, KEY key, VALUE value )
+            throws IndexEntryConflictException
+    {
+        recordingConflictDetector.controlConflictDetection( previousKey );
+        recordingConflictDetector.controlConflictDetection( key );
+        try
+        {
+            if ( layout.compare( previousKey, key ) == 0 )
+            {
+                recordingConflictDetector.merge( previousKey, key, value, value );
+                if ( recordingConflictDetector.wasConflicting() )
+                {
+                    KEY copy = layout.newKey();
+                    layout.copyKey( key, copy );
+                    recordingConflictDetector.reportConflict( copy );
+                }
+            }
+        }
+        finally
+        {
+            recordingConflictDetector.relaxUniqueness( previousKey );
+            recordingConflictDetector.relaxUniqueness( key );
+        }
+    }
+
     @Override
     public IndexUpdater newPopulatingUpdater( PageCursorTracer cursorTracer )
     {
@@ -53,8 +53,10 @@ abstract class ConflictDetectingValueMerger<KEY extends NativeIndexKey<KEY>, VAL
             conflict = true;
             existingNodeId = existingKey.getEntityId();
             addedNodeId = newKey.getEntityId();
+            return MergeResult.UNCHANGED;
         }
-        return MergeResult.UNCHANGED;
+        // Same entry, but the included values of the entity may have changed since it was written
+        return existingValue.sameAs( newValue ) ? MergeResult.UNCHANGED : MergeResult.REPLACED;
     }
 
     /**
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.util.StringJoiner;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.lang.String.format;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
+
+/**
+ * Value of entries in indexes with included properties, see {@link org.neo4j.internal.schema.IndexRef#getIncludedPropertyIds()}.
+ * Holds the values of the included properties of the entity of the entry, such that queries projecting those properties
+ * can be answered from the index alone, without reading the entity from the store.
+ * <p>
+ * Each included value is serialized like a slot in a {@link GenericKey}, preceded by a byte telling whether the entity has the property.
+ * Values that serialize to more than {@link #MAX_INCLUDED_VALUE_SIZE} bytes aren't stored, but marked as such, since the whole entry
+ * must fit in a tree node. Readers have to read those from the store instead.
+ */
+class CoveringIndexValue extends NativeIndexValue
+{
+    static final int MAX_INCLUDED_VALUE_SIZE = 128;
+
+    private static final byte ABSENT = 0;
+    private static final byte STORED = 1;
+    private static final byte NOT_STORED = 2;
+
+    private final IndexSpecificSpaceFillingCurveSettings spatialSettings;
+    private final GenericKey[] includedValues;
+    private final byte[] states;
+
+    CoveringIndexValue( int numberOfIncludedProperties, IndexSpecificSpaceFillingCurveSettings spatialSettings )
+    {
+        this.spatialSettings = spatialSettings;
+        this.includedValues = new GenericKey[numberOfIncludedProperties];
+        this.states = new byte[numberOfIncludedProperties];
+        for ( int i = 0; i < numberOfIncludedProperties; i++ )
+        {
+            includedValues[i] = new GenericKey( spatialSettings );
+            states[i] = NOT_STORED;
+        }
+    }
+
+    /**
+     * @param numberOfIncludedProperties number of included properties of the index.
+     * @return the biggest size, in bytes, of a serialized value with that many included properties.
+     */
+    static int maxSize( int numberOfIncludedProperties )
+    {
+        return numberOfIncludedProperties * (Byte.BYTES + MAX_INCLUDED_VALUE_SIZE);
+    }
+
+    @Override
+    void include( Value... values )
+    {
+        for ( int i = 0; i < states.length; i++ )
+        {
+            // Removals don't carry any included values, although nothing should be written for those anyway
+            Value value = i < values.length ? values[i] : null;
+            if ( value == null )
+            {
+                states[i] = NOT_STORED;
+            }
+            else if ( value == Values.NO_VALUE )
+            {
+                states[i] = ABSENT;
+            }
+            else
+            {
+                GenericKey includedValue = includedValues[i];
+                includedValue.clear();
+                includedValue.writeValue( value, NEUTRAL );
+                states[i] = includedValue.sizeInternal() <= MAX_INCLUDED_VALUE_SIZE ? STORED : NOT_STORED;
+            }
+        }
+    }
+
+    /**
+     * @return the included values, in the order of the included property key ids of the index. Properties the entity doesn't have
+     * are {@link Values#NO_VALUE}, and values that aren't stored in the index are {@code null}.
+     */
+    Value[] includedValues()
+    {
+        Value[] values = new Value[states.length];
+        for ( int i = 0; i < states.length; i++ )
+        {
+            values[i] = states[i] == STORED ? includedValues[i].asValue() : states[i] == ABSENT ? Values.NO_VALUE : null;
+        }
+        return values;
+    }
+
+    @Override
+    boolean sameAs( NativeIndexValue other )
+    {
+        CoveringIndexValue that = (CoveringIndexValue) other;
+        for ( int i = 0; i < states.length; i++ )
+        {
+            if ( states[i] != that.states[i] )
+            {
+                return false;
+            }
+            if ( states[i] == STORED && (includedValues[i].type != that.includedValues[i].type ||
+                    includedValues[i].compareValueToInternal( that.includedValues[i] ) != 0) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    CoveringIndexValue copy()
+    {
+        CoveringIndexValue copy = new CoveringIndexValue( states.length, spatialSettings );
+        for ( int i = 0; i < states.length; i++ )
+        {
+            copy.states[i] = states[i];
+            if ( states[i] == STORED )
+            {
+                copy.includedValues[i].copyFromInternal( includedValues[i] );
+            }
+        }
+        return copy;
+    }
+
+    int size()
+    {
+        int size = 0;
+        for ( int i = 0; i < states.length; i++ )
+        {
+            size += Byte.BYTES + (states[i] == STORED ? includedValues[i].sizeInternal() : 0);
+        }
+        return size;
+    }
+
+    void put( PageCursor cursor )
+    {
+        for ( int i = 0; i < states.length; i++ )
+        {
+            cursor.putByte( states[i] );
+            if ( states[i] == STORED )
+            {
+                includedValues[i].putInternal( cursor );
+            }
+        }
+    }
+
+    boolean get( PageCursor cursor, int size )
+    {
+        int remaining = size;
+        for ( int i = 0; i < states.length; i++ )
+        {
+            if ( remaining < Byte.BYTES )
+            {
+                cursor.setCursorException( format( "Failed to read %s due to valueSize too small, more precisely %d", getClass().getSimpleName(), size ) );
+                return false;
+            }
+            byte state = cursor.getByte();
+            remaining -= Byte.BYTES;
+            if ( state != ABSENT && state != STORED && state != NOT_STORED )
+            {
+                cursor.setCursorException( "non-valid included value state, " + state );
+                return false;
+            }
+            states[i] = state;
+            if ( state == STORED )
+            {
+                GenericKey includedValue = includedValues[i];
+                if ( !includedValue.getInternal( cursor, remaining ) )
+                {
+                    return false;
+                }
+                remaining -= includedValue.sizeInternal();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringJoiner joiner = new StringJoiner( ",", "[", "]" );
+        for ( int i = 0; i < states.length; i++ )
+        {
+            joiner.add( states[i] == STORED ? includedValues[i].toStringInternal() : states[i] == ABSENT ? "absent" : "not stored" );
+        }
+        return joiner.toString();
+    }
+}
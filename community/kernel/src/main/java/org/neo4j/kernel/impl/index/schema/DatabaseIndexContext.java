@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.index.schema;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.index.IndexProvider;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.memory.MemoryTracker;
 
 public class DatabaseIndexContext
 {
@@ -29,13 +31,16 @@ public class DatabaseIndexContext
     final FileSystemAbstraction fileSystem;
     final IndexProvider.Monitor monitor;
     final boolean readOnly;
+    final MemoryTracker memoryTracker;
 
-    private DatabaseIndexContext( PageCache pageCache, FileSystemAbstraction fileSystem, IndexProvider.Monitor monitor, boolean readOnly )
+    private DatabaseIndexContext( PageCache pageCache, FileSystemAbstraction fileSystem, IndexProvider.Monitor monitor, boolean readOnly,
+            MemoryTracker memoryTracker )
     {
         this.pageCache = pageCache;
         this.fileSystem = fileSystem;
         this.monitor = monitor;
         this.readOnly = readOnly;
+        this.memoryTracker = memoryTracker;
     }
 
     /**
@@ -54,6 +59,7 @@ public class DatabaseIndexContext
         private final FileSystemAbstraction fileSystem;
         private IndexProvider.Monitor monitor;
         private boolean readOnly;
+        private MemoryTracker memoryTracker;
 
         private Builder( PageCache pageCache, FileSystemAbstraction fileSystem )
         {
@@ -61,6 +67,7 @@ public class DatabaseIndexContext
             this.fileSystem = fileSystem;
             this.monitor = IndexProvider.Monitor.EMPTY;
             this.readOnly = false;
+            this.memoryTracker = EmptyMemoryTracker.INSTANCE;
         }
 
         /**
@@ -87,9 +94,21 @@ public class DatabaseIndexContext
             return this;
         }
 
+        /**
+         * Default is {@link EmptyMemoryTracker#INSTANCE}.
+         *
+         * @param memoryTracker {@link MemoryTracker} for heap held by the indexes, e.g. by their write buffers.
+         * @return {@link Builder this builder}
+         */
+        public Builder withMemoryTracker( MemoryTracker memoryTracker )
+        {
+            this.memoryTracker = memoryTracker;
+            return this;
+        }
+
         public DatabaseIndexContext build()
         {
-            return new DatabaseIndexContext( pageCache, fileSystem, monitor, readOnly );
+            return new DatabaseIndexContext( pageCache, fileSystem, monitor, readOnly, memoryTracker );
         }
     }
 }
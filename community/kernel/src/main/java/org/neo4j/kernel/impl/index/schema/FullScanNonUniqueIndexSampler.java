@@ -37,10 +37,10 @@ import org.neo4j.kernel.api.index.NonUniqueIndexSampler;
 class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue>
         extends NonUniqueIndexSampler.Adapter
 {
-    private final GBPTree<KEY,VALUE> gbpTree;
+    private final Seeker.Factory<KEY,VALUE> gbpTree;
     private final IndexLayout<KEY,VALUE> layout;
 
-    FullScanNonUniqueIndexSampler( GBPTree<KEY,VALUE> gbpTree, IndexLayout<KEY,VALUE> layout )
+    FullScanNonUniqueIndexSampler( Seeker.Factory<KEY,VALUE> gbpTree, IndexLayout<KEY,VALUE> layout )
     {
         this.gbpTree = gbpTree;
         this.layout = layout;
@@ -64,6 +64,6 @@ class GenericBlockBasedIndexPopulator extends BlockBasedIndexPopulator<GenericKe
     @Override
     protected IndexValueValidator instantiateValueValidator()
     {
-        return new GenericIndexKeyValidator( tree.keyValueSizeCap(), descriptor, layout, tokenNameLookup );
+        return new GenericIndexKeyValidator( maxKeySize(), descriptor, layout, tokenNameLookup );
     }
 }
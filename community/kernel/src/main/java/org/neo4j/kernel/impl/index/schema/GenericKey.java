@@ -353,6 +353,16 @@ public class GenericKey extends NativeIndexKey<GenericKey>
         putInternal( cursor );
     }
 
+    /**
+     * Writes the value bytes before the entity id, such that neighbouring keys in a {@link GenericLayout#compressKeyPrefixes() prefix compressed}
+     * leaf share their leading bytes as far as their values do. Read back with {@link #getValuesFirst(PageCursor, int)}.
+     */
+    void putValuesFirst( PageCursor cursor )
+    {
+        putInternal( cursor );
+        cursor.putLong( getEntityId() );
+    }
+
     void putInternal( PageCursor cursor )
     {
         cursor.putByte( type.typeId );
@@ -378,6 +388,28 @@ public class GenericKey extends NativeIndexKey<GenericKey>
         return true;
     }
 
+    /**
+     * Reads a key written by {@link #putValuesFirst(PageCursor)}.
+     */
+    boolean getValuesFirst( PageCursor cursor, int size )
+    {
+        if ( size < ENTITY_ID_SIZE )
+        {
+            initializeToDummyValue();
+            cursor.setCursorException( format( "Failed to read " + getClass().getSimpleName() +
+                    " due to keySize < ENTITY_ID_SIZE, more precisely %d", size ) );
+            return false;
+        }
+
+        if ( !getInternal( cursor, size - ENTITY_ID_SIZE ) )
+        {
+            initializeToDummyValue();
+            return false;
+        }
+        initialize( cursor.getLong() );
+        return true;
+    }
+
     boolean getInternal( PageCursor cursor, int size )
     {
         if ( size <= TYPE_ID_SIZE )
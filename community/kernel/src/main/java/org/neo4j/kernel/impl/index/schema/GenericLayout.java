@@ -19,20 +19,67 @@
  */
 package org.neo4j.kernel.impl.index.schema;
 
+import org.neo4j.hashing.HashFunction;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.values.storable.IntegralValue;
+import org.neo4j.values.storable.NumberArray;
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.PointArray;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.TextArray;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
 
 class GenericLayout extends IndexLayout<GenericKey,NativeIndexValue>
 {
     private final int numberOfSlots;
+    private final int numberOfIncludedProperties;
     private final IndexSpecificSpaceFillingCurveSettings spatialSettings;
+    private final boolean bloomFilter;
+    private final boolean compressKeyPrefixes;
 
     GenericLayout( int numberOfSlots, IndexSpecificSpaceFillingCurveSettings spatialSettings )
     {
-        super( false, Layout.namedIdentifier( "NSIL", numberOfSlots ), 0, 5 );
+        this( numberOfSlots, spatialSettings, false );
+    }
+
+    /**
+     * @param bloomFilter whether or not the tree should keep a bloom filter over the indexed values. Worth it for unique indexes,
+     * where most lookups are uniqueness checks and merges for values which aren't in the index.
+     */
+    GenericLayout( int numberOfSlots, IndexSpecificSpaceFillingCurveSettings spatialSettings, boolean bloomFilter )
+    {
+        this( numberOfSlots, 0, spatialSettings, bloomFilter );
+    }
+
+    /**
+     * @param numberOfIncludedProperties number of properties whose values are stored in the {@link CoveringIndexValue values} of the entries,
+     * in addition to the indexed values in the keys. Indexes with included properties have a different identifier.
+     */
+    GenericLayout( int numberOfSlots, int numberOfIncludedProperties, IndexSpecificSpaceFillingCurveSettings spatialSettings, boolean bloomFilter )
+    {
+        this( numberOfSlots, numberOfIncludedProperties, spatialSettings, bloomFilter, false );
+    }
+
+    /**
+     * @param compressKeyPrefixes whether or not keys are written with their values first, in prefix compressed leaves.
+     * This is a different key format, with minor version 6 instead of 5, so it must match the format of an existing tree.
+     */
+    GenericLayout( int numberOfSlots, int numberOfIncludedProperties, IndexSpecificSpaceFillingCurveSettings spatialSettings, boolean bloomFilter,
+            boolean compressKeyPrefixes )
+    {
+        super( false, numberOfIncludedProperties == 0 ? Layout.namedIdentifier( "NSIL", numberOfSlots )
+                                                      : Layout.namedIdentifier( "NSIC", numberOfIncludedProperties << Short.SIZE | numberOfSlots ), 0,
+                compressKeyPrefixes ? 6 : 5 );
         this.numberOfSlots = numberOfSlots;
+        this.numberOfIncludedProperties = numberOfIncludedProperties;
         this.spatialSettings = spatialSettings;
+        this.bloomFilter = bloomFilter;
+        this.compressKeyPrefixes = compressKeyPrefixes;
     }
 
     @Override
@@ -45,6 +92,48 @@ class GenericLayout extends IndexLayout<GenericKey,NativeIndexValue>
                : new CompositeGenericKey( numberOfSlots, spatialSettings );
     }
 
+    @Override
+    public NativeIndexValue newValue()
+    {
+        return numberOfIncludedProperties == 0 ? super.newValue() : new CoveringIndexValue( numberOfIncludedProperties, spatialSettings );
+    }
+
+    @Override
+    NativeIndexValue copyValue( NativeIndexValue value )
+    {
+        return numberOfIncludedProperties == 0 ? value : ((CoveringIndexValue) value).copy();
+    }
+
+    @Override
+    int maxValueSize()
+    {
+        return CoveringIndexValue.maxSize( numberOfIncludedProperties );
+    }
+
+    @Override
+    public int valueSize( NativeIndexValue value )
+    {
+        return numberOfIncludedProperties == 0 ? super.valueSize( value ) : ((CoveringIndexValue) value).size();
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, NativeIndexValue value )
+    {
+        if ( numberOfIncludedProperties > 0 )
+        {
+            ((CoveringIndexValue) value).put( cursor );
+        }
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, NativeIndexValue into, int valueSize )
+    {
+        if ( numberOfIncludedProperties > 0 )
+        {
+            ((CoveringIndexValue) into).get( cursor, valueSize );
+        }
+    }
+
     @Override
     public GenericKey copyKey( GenericKey key, GenericKey into )
     {
@@ -61,13 +150,27 @@ class GenericLayout extends IndexLayout<GenericKey,NativeIndexValue>
     @Override
     public void writeKey( PageCursor cursor, GenericKey key )
     {
-        key.put( cursor );
+        if ( compressKeyPrefixes )
+        {
+            key.putValuesFirst( cursor );
+        }
+        else
+        {
+            key.put( cursor );
+        }
     }
 
     @Override
     public void readKey( PageCursor cursor, GenericKey into, int keySize )
     {
-        into.get( cursor, keySize );
+        if ( compressKeyPrefixes )
+        {
+            into.getValuesFirst( cursor, keySize );
+        }
+        else
+        {
+            into.get( cursor, keySize );
+        }
     }
 
     @Override
@@ -76,6 +179,113 @@ class GenericLayout extends IndexLayout<GenericKey,NativeIndexValue>
         right.minimalSplitter( left, right, into );
     }
 
+    /**
+     * If enabled, keys are written with their values first, see {@link GenericKey#putValuesFirst(PageCursor)}, so keys of indexed strings
+     * with long shared prefixes, like urls or email addresses, take up a lot less space in the leaves.
+     */
+    @Override
+    public boolean compressKeyPrefixes()
+    {
+        return compressKeyPrefixes;
+    }
+
+    @Override
+    public boolean bloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    @Override
+    public long filterHash( GenericKey key )
+    {
+        HashFunction hashFunction = HashFunction.incrementalXXH64();
+        long hash = hashFunction.initialise( 1 );
+        for ( Value value : key.asValues() )
+        {
+            hash = updateFilterHash( hashFunction, hash, value );
+        }
+        return hashFunction.finalise( hash );
+    }
+
+    /**
+     * The entity id isn't part of the filter hash, so any seek between keys of the same exact values is a lookup of those values,
+     * which is how {@link NativeIndexReader} seeks exact matches.
+     */
+    @Override
+    public boolean isFilterKeyLookup( GenericKey fromInclusive, GenericKey toExclusive )
+    {
+        for ( int slot = 0; slot < fromInclusive.numberOfStateSlots(); slot++ )
+        {
+            if ( fromInclusive.stateSlot( slot ).inclusion != NEUTRAL )
+            {
+                return false;
+            }
+        }
+        return fromInclusive.compareValueTo( toExclusive ) == 0;
+    }
+
+    /**
+     * Values which are equal in the index must hash the same. Numbers are therefore hashed by their numeric value regardless of type,
+     * text by its string regardless of being chars or strings, and points only by their coordinate reference system, since the index
+     * compares them by their position on a space filling curve.
+     */
+    private static long updateFilterHash( HashFunction hashFunction, long hash, Value value )
+    {
+        if ( value instanceof NumberValue )
+        {
+            return hashFunction.update( hash, numericHash( (NumberValue) value ) );
+        }
+        if ( value instanceof NumberArray )
+        {
+            NumberArray array = (NumberArray) value;
+            hash = hashFunction.update( hash, array.length() );
+            for ( int i = 0; i < array.length(); i++ )
+            {
+                hash = hashFunction.update( hash, numericHash( (NumberValue) array.value( i ) ) );
+            }
+            return hash;
+        }
+        if ( value instanceof TextValue )
+        {
+            return hashFunction.update( hash, ((TextValue) value).stringValue().hashCode() );
+        }
+        if ( value instanceof TextArray )
+        {
+            TextArray array = (TextArray) value;
+            hash = hashFunction.update( hash, array.length() );
+            for ( int i = 0; i < array.length(); i++ )
+            {
+                hash = hashFunction.update( hash, array.stringValue( i ).hashCode() );
+            }
+            return hash;
+        }
+        if ( value instanceof PointValue )
+        {
+            return hashFunction.update( hash, ((PointValue) value).getCoordinateReferenceSystem().getCode() );
+        }
+        if ( value instanceof PointArray )
+        {
+            return hashFunction.update( hash, ((PointArray) value).length() );
+        }
+        return value.updateHash( hashFunction, hash );
+    }
+
+    private static long numericHash( NumberValue number )
+    {
+        if ( number instanceof IntegralValue )
+        {
+            return number.longValue();
+        }
+        double value = number.doubleValue();
+        boolean integral = value == Math.rint( value ) && value >= Long.MIN_VALUE && value < 0x1p63;
+        return integral ? (long) value : Double.doubleToLongBits( value );
+    }
+
+    int getNumberOfIncludedProperties()
+    {
+        return numberOfIncludedProperties;
+    }
+
     IndexSpecificSpaceFillingCurveSettings getSpaceFillingCurveSettings()
     {
         return spatialSettings;
@@ -53,7 +53,16 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<GenericKey,NativeIn
             IndexLayout<GenericKey,NativeIndexValue> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, IndexDescriptor descriptor,
             IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings, SpaceFillingCurveConfiguration configuration, TokenNameLookup tokenNameLookup )
     {
-        super( databaseIndexContext, indexFiles, layout, descriptor, NO_HEADER_WRITER );
+        this( databaseIndexContext, indexFiles, layout, recoveryCleanupWorkCollector, descriptor, spaceFillingCurveSettings, configuration, tokenNameLookup,
+                0 );
+    }
+
+    GenericNativeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles,
+            IndexLayout<GenericKey,NativeIndexValue> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, IndexDescriptor descriptor,
+            IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings, SpaceFillingCurveConfiguration configuration, TokenNameLookup tokenNameLookup,
+            long writeBufferSize )
+    {
+        super( databaseIndexContext, indexFiles, layout, descriptor, NO_HEADER_WRITER, writeBufferSize );
         this.spaceFillingCurveSettings = spaceFillingCurveSettings;
         this.configuration = configuration;
         this.tokenNameLookup = tokenNameLookup;
@@ -63,14 +72,15 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<GenericKey,NativeIn
     @Override
     protected void afterTreeInstantiation( GBPTree<GenericKey,NativeIndexValue> tree )
     {
-        validator = new GenericIndexKeyValidator( tree.keyValueSizeCap(), descriptor, layout, tokenNameLookup );
+        super.afterTreeInstantiation( tree );
+        validator = new GenericIndexKeyValidator( maxKeySize(), descriptor, layout, tokenNameLookup );
     }
 
     @Override
     public IndexReader newReader()
     {
         assertOpen();
-        return new GenericNativeIndexReader( tree, layout, descriptor, spaceFillingCurveSettings, configuration );
+        return new GenericNativeIndexReader( seekerFactory(), layout, descriptor, spaceFillingCurveSettings, configuration );
     }
 
     @Override
@@ -82,6 +92,7 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<GenericKey,NativeIn
     @Override
     public void force( IOLimiter ioLimiter, PageCursorTracer cursorTracer )
     {
+        flushWriteBuffer( cursorTracer );
         // This accessor needs to use the header writer here because coordinate reference systems may have changed since last checkpoint.
         tree.checkpoint( ioLimiter, headerWriter, cursorTracer );
     }
@@ -103,6 +114,8 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<GenericKey,NativeIn
         GenericKey highest = layout.newKey();
         highest.initialize( Long.MAX_VALUE );
         highest.initValuesAsHighest();
+        // The partitioned seek reads the tree directly
+        flushWriteBuffer( cursorTracer );
         try
         {
             Collection<Seeker<GenericKey,NativeIndexValue>> seekers = tree.partitionedSeek( lowest, highest, partitions, cursorTracer );
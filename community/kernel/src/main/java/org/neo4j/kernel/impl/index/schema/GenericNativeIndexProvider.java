@@ -19,6 +19,11 @@
  */
 package org.neo4j.kernel.impl.index.schema;
 
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.mutable.MutableBoolean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.Map;
 
@@ -27,6 +32,10 @@ import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.gis.spatial.index.curves.SpaceFillingCurveConfiguration;
 import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.GBPTreeStructure;
+import org.neo4j.index.internal.gbptree.GBPTreeVisitor;
+import org.neo4j.index.internal.gbptree.Meta;
+import org.neo4j.index.internal.gbptree.MetadataMismatchException;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.internal.schema.IndexBehaviour;
 import org.neo4j.internal.schema.IndexCapability;
@@ -48,6 +57,7 @@ import org.neo4j.values.storable.CoordinateReferenceSystem;
 import org.neo4j.values.storable.ValueCategory;
 
 import static org.neo4j.configuration.GraphDatabaseSettings.SchemaIndex.NATIVE_BTREE10;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 import static org.neo4j.kernel.impl.index.schema.config.SpaceFillingCurveSettingsFactory.getConfiguredSpaceFillingCurveConfiguration;
 
 /**
@@ -118,6 +128,8 @@ public class GenericNativeIndexProvider extends NativeIndexProvider<GenericKey,N
      */
     private final SpaceFillingCurveConfiguration configuration;
     private final boolean archiveFailedIndex;
+    private final long writeBufferSize;
+    private final boolean keyPrefixCompression;
 
     public GenericNativeIndexProvider( DatabaseIndexContext databaseIndexContext, IndexDirectoryStructure.Factory directoryStructureFactory,
             RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, Config config )
@@ -127,6 +139,8 @@ public class GenericNativeIndexProvider extends NativeIndexProvider<GenericKey,N
         this.configuredSettings = new ConfiguredSpaceFillingCurveSettingsCache( config );
         this.configuration = getConfiguredSpaceFillingCurveConfiguration( config );
         this.archiveFailedIndex = config.get( GraphDatabaseInternalSettings.archive_failed_index );
+        this.writeBufferSize = config.get( GraphDatabaseInternalSettings.native_index_write_buffer_size );
+        this.keyPrefixCompression = config.get( GraphDatabaseInternalSettings.native_index_key_prefix_compression );
     }
 
     @Override
@@ -158,7 +172,43 @@ public class GenericNativeIndexProvider extends NativeIndexProvider<GenericKey,N
         int numberOfSlots = descriptor.schema().getPropertyIds().length;
         IndexConfig indexConfig = descriptor.getIndexConfig();
         Map<CoordinateReferenceSystem,SpaceFillingCurveSettings> settings = SpatialIndexConfig.extractSpatialConfig( indexConfig );
-        return new GenericLayout( numberOfSlots, new IndexSpecificSpaceFillingCurveSettings( settings ) );
+        int numberOfIncludedProperties = descriptor.getIncludedPropertyIds().length;
+        IndexSpecificSpaceFillingCurveSettings spatialSettings = new IndexSpecificSpaceFillingCurveSettings( settings );
+        GenericLayout layout = new GenericLayout( numberOfSlots, numberOfIncludedProperties, spatialSettings, descriptor.isUnique(), keyPrefixCompression );
+        if ( storeFile != null && databaseIndexContext.fileSystem.fileExists( storeFile ) && !matchesTree( layout, storeFile ) )
+        {
+            // An existing index keeps the key format it was created with
+            layout = new GenericLayout( numberOfSlots, numberOfIncludedProperties, spatialSettings, descriptor.isUnique(), !keyPrefixCompression );
+        }
+        return layout;
+    }
+
+    private boolean matchesTree( GenericLayout layout, Path storeFile )
+    {
+        MutableBoolean matches = new MutableBoolean( true );
+        try
+        {
+            GBPTreeStructure.visitMeta( databaseIndexContext.pageCache, storeFile, new GBPTreeVisitor.Adaptor<>()
+            {
+                @Override
+                public void meta( Meta meta )
+                {
+                    try
+                    {
+                        meta.verify( layout );
+                    }
+                    catch ( MetadataMismatchException e )
+                    {
+                        matches.setFalse();
+                    }
+                }
+            }, NULL );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        return matches.booleanValue();
     }
 
     @Override
@@ -173,13 +223,14 @@ public class GenericNativeIndexProvider extends NativeIndexProvider<GenericKey,N
     protected IndexAccessor newIndexAccessor( IndexFiles indexFiles, GenericLayout layout, IndexDescriptor descriptor, TokenNameLookup tokenNameLookup )
     {
         return new GenericNativeIndexAccessor( databaseIndexContext, indexFiles, layout, recoveryCleanupWorkCollector, descriptor,
-                layout.getSpaceFillingCurveSettings(), configuration, tokenNameLookup );
+                layout.getSpaceFillingCurveSettings(), configuration, tokenNameLookup, writeBufferSize );
     }
 
     @Override
     public void validatePrototype( IndexPrototype prototype )
     {
         super.validatePrototype( prototype );
+        validateIncludedProperties( prototype );
         IndexConfig indexConfig = prototype.getIndexConfig();
         indexConfig = completeSpatialConfiguration( indexConfig );
         try
@@ -192,6 +243,21 @@ public class GenericNativeIndexProvider extends NativeIndexProvider<GenericKey,N
         }
     }
 
+    private static void validateIncludedProperties( IndexPrototype prototype )
+    {
+        int[] propertyIds = prototype.schema().getPropertyIds();
+        int[] includedPropertyIds = prototype.getIncludedPropertyIds();
+        for ( int i = 0; i < includedPropertyIds.length; i++ )
+        {
+            int includedPropertyId = includedPropertyIds[i];
+            if ( ArrayUtils.contains( propertyIds, includedPropertyId ) || ArrayUtils.indexOf( includedPropertyIds, includedPropertyId, i + 1 ) != -1 )
+            {
+                throw new IllegalArgumentException( "Included properties must be distinct and not part of the index key, but property key id " +
+                        includedPropertyId + " was included twice or is indexed." );
+            }
+        }
+    }
+
     private static class GenericIndexCapability implements IndexCapability
     {
         private final IndexBehaviour[] behaviours = {IndexBehaviour.SLOW_CONTAINS};
@@ -59,6 +59,24 @@ abstract class IndexLayout<KEY extends NativeIndexKey<KEY>, VALUE extends Native
         // nothing to read
     }
 
+    /**
+     * @param value value to copy.
+     * @return a value with the same contents as {@code value}, which isn't affected by later changes to {@code value}.
+     */
+    VALUE copyValue( VALUE value )
+    {
+        // Values carry no data, so they can be shared
+        return value;
+    }
+
+    /**
+     * @return the biggest size, in bytes, of a value in this layout. Keys must leave room for it within the key/value size cap of the tree.
+     */
+    int maxValueSize()
+    {
+        return NativeIndexValue.SIZE;
+    }
+
     @Override
     public final int compare( KEY o1, KEY o2 )
     {
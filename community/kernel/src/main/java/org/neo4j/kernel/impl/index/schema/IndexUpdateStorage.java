@@ -62,7 +62,7 @@ public class IndexUpdateStorage<KEY extends NativeIndexKey<KEY>, VALUE extends N
         switch ( updateMode )
         {
         case ADDED:
-            initializeKeyAndValueFromUpdate( key1, value, update.getEntityId(), update.values() );
+            initializeKeyAndValueFromUpdate( key1, value, update.getEntityId(), update.values(), update.includedValues() );
             entrySize += BlockEntry.entrySize( layout, key1, value );
             break;
         case REMOVED:
@@ -71,7 +71,7 @@ public class IndexUpdateStorage<KEY extends NativeIndexKey<KEY>, VALUE extends N
             break;
         case CHANGED:
             initializeKeyFromUpdate( key1, update.getEntityId(), update.beforeValues() );
-            initializeKeyAndValueFromUpdate( key2, value, update.getEntityId(), update.values() );
+            initializeKeyAndValueFromUpdate( key2, value, update.getEntityId(), update.values(), update.includedValues() );
             entrySize += BlockEntry.keySize( layout, key1 ) + BlockEntry.entrySize( layout, key2, value );
             break;
         default:
@@ -23,7 +23,6 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Iterator;
 
-import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.internal.helpers.collection.BoundedIterable;
@@ -32,14 +31,14 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
 public class NativeAllEntriesReader<KEY extends NativeIndexKey<KEY>,VALUE extends NativeIndexValue> implements BoundedIterable<Long>
 {
-    private final GBPTree<KEY,VALUE> tree;
+    private final Seeker.Factory<KEY,VALUE> tree;
     private final Layout<KEY,VALUE> layout;
     private final long fromIdInclusive;
     private final long toIdExclusive;
     private final PageCursorTracer cursorTracer;
     private Seeker<KEY,VALUE> seeker;
 
-    NativeAllEntriesReader( GBPTree<KEY,VALUE> tree, Layout<KEY,VALUE> layout, long fromIdInclusive, long toIdExclusive, PageCursorTracer cursorTracer )
+    NativeAllEntriesReader( Seeker.Factory<KEY,VALUE> tree, Layout<KEY,VALUE> layout, long fromIdInclusive, long toIdExclusive, PageCursorTracer cursorTracer )
     {
         this.tree = tree;
         this.layout = layout;
@@ -42,7 +42,7 @@ public class NativeHitIndexProgressor<KEY extends NativeIndexKey<KEY>, VALUE ext
             {
                 KEY key = seeker.key();
                 Value[] values = extractValues( key );
-                if ( acceptValue( values ) && client.acceptEntity( key.getEntityId(), Float.NaN, values ) )
+                if ( acceptValue( values ) && accept( key.getEntityId(), values, extractIncludedValues( seeker.value() ) ) )
                 {
                     return true;
                 }
@@ -55,6 +55,11 @@ public class NativeHitIndexProgressor<KEY extends NativeIndexKey<KEY>, VALUE ext
         }
     }
 
+    private boolean accept( long entityId, Value[] values, Value[] includedValues )
+    {
+        return includedValues == null ? client.acceptEntity( entityId, Float.NaN, values ) : client.acceptEntity( entityId, Float.NaN, values, includedValues );
+    }
+
     protected boolean acceptValue( Value[] values )
     {
         return true;
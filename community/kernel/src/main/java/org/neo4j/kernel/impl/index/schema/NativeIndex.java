@@ -49,7 +49,7 @@ abstract class NativeIndex<KEY extends NativeIndexKey<KEY>, VALUE extends Native
     final IndexDescriptor descriptor;
     private final IndexProvider.Monitor monitor;
     private final GBPTree.Monitor treeMonitor;
-    private final boolean readOnly;
+    final boolean readOnly;
 
     protected GBPTree<KEY,VALUE> tree;
 
@@ -80,6 +80,14 @@ abstract class NativeIndex<KEY extends NativeIndexKey<KEY>, VALUE extends Native
     {   // no-op per default
     }
 
+    /**
+     * @return the biggest size, in bytes, of a key in this index, such that the entry still fits in the tree with the biggest value of the layout.
+     */
+    int maxKeySize()
+    {
+        return tree.keyValueSizeCap() - layout.maxValueSize();
+    }
+
     private GBPTree.Monitor treeMonitor( )
     {
         return new NativeIndexTreeMonitor();
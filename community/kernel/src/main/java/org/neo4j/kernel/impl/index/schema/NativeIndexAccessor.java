@@ -26,6 +26,7 @@ import java.util.function.Consumer;
 
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.TreeInconsistencyException;
 import org.neo4j.internal.helpers.collection.BoundedIterable;
 import org.neo4j.internal.schema.IndexDescriptor;
@@ -35,6 +36,7 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.index.IndexAccessor;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.storageengine.api.NodePropertyAccessor;
 
 import static org.neo4j.internal.helpers.collection.Iterators.asResourceIterator;
@@ -46,18 +48,66 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
 {
     private final NativeIndexUpdater<KEY,VALUE> singleUpdater;
     final NativeIndexHeaderWriter headerWriter;
+    private final long writeBufferSize;
+    private final MemoryTracker memoryTracker;
+    private NativeIndexWriteBuffer<KEY,VALUE> writeBuffer;
 
+    /**
+     * @param writeBufferSize maximum size, in bytes, of the {@link NativeIndexWriteBuffer} kept in front of the tree,
+     * or zero to write updates straight into the tree.
+     */
     NativeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles, IndexLayout<KEY,VALUE> layout,
-            IndexDescriptor descriptor, Consumer<PageCursor> additionalHeaderWriter )
+            IndexDescriptor descriptor, Consumer<PageCursor> additionalHeaderWriter, long writeBufferSize )
     {
         super( databaseIndexContext, layout, indexFiles, descriptor, GBPTree.NO_MONITOR );
         singleUpdater = new NativeIndexUpdater<>( layout.newKey(), layout.newValue() );
         headerWriter = new NativeIndexHeaderWriter( BYTE_ONLINE, additionalHeaderWriter );
+        this.writeBufferSize = writeBufferSize;
+        this.memoryTracker = databaseIndexContext.memoryTracker;
+    }
+
+    @Override
+    protected void afterTreeInstantiation( GBPTree<KEY,VALUE> tree )
+    {
+        if ( writeBufferSize > 0 && !readOnly )
+        {
+            writeBuffer = new NativeIndexWriteBuffer<>( tree, layout, writeBufferSize, memoryTracker );
+        }
+    }
+
+    /**
+     * @return the {@link Seeker.Factory} readers of this index should seek in, i.e. the tree merged with the write buffer, if any.
+     */
+    Seeker.Factory<KEY,VALUE> seekerFactory()
+    {
+        return writeBuffer != null ? writeBuffer : tree;
+    }
+
+    /**
+     * Applies any updates in the write buffer to the tree. Must be called before reading from the tree directly.
+     */
+    void flushWriteBuffer( PageCursorTracer cursorTracer )
+    {
+        if ( writeBuffer != null )
+        {
+            try
+            {
+                writeBuffer.flush( cursorTracer );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        }
     }
 
     @Override
     public void drop()
     {
+        if ( writeBuffer != null )
+        {
+            writeBuffer.clear();
+        }
         tree.setDeleteOnClose( true );
         closeTree();
         indexFiles.clear();
@@ -69,7 +119,7 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
         assertOpen();
         try
         {
-            return singleUpdater.initialize( tree.writer( cursorTracer ) );
+            return singleUpdater.initialize( writeBuffer != null ? writeBuffer.writer( cursorTracer ) : tree.writer( cursorTracer ) );
         }
         catch ( IOException e )
         {
@@ -80,9 +130,24 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
     @Override
     public void force( IOLimiter ioLimiter, PageCursorTracer cursorTracer )
     {
+        flushWriteBuffer( cursorTracer );
         tree.checkpoint( ioLimiter, cursorTracer );
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+    {
+        flushWriteBuffer( cursorTracer );
+        try
+        {
+            return tree.compact( minFragmentation, ioLimiter, cursorTracer );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
     @Override
     public void refresh()
     {
@@ -92,6 +157,10 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
     @Override
     public void close()
     {
+        if ( tree != null )
+        {
+            flushWriteBuffer( PageCursorTracer.NULL );
+        }
         closeTree();
     }
 
@@ -101,7 +170,7 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
     @Override
     public BoundedIterable<Long> newAllEntriesReader( long fromIdInclusive, long toIdExclusive, PageCursorTracer cursorTracer )
     {
-        return new NativeAllEntriesReader<>( tree, layout, fromIdInclusive, toIdExclusive, cursorTracer );
+        return new NativeAllEntriesReader<>( seekerFactory(), layout, fromIdInclusive, toIdExclusive, cursorTracer );
     }
 
     @Override
@@ -59,4 +59,9 @@ abstract class NativeIndexProgressor<KEY extends NativeIndexKey<KEY>, VALUE exte
     {
         return client.needsValues() ? key.asValues() : null;
     }
+
+    Value[] extractIncludedValues( VALUE value )
+    {
+        return client.needsValues() && value instanceof CoveringIndexValue ? ((CoveringIndexValue) value).includedValues() : null;
+    }
 }
@@ -22,7 +22,6 @@ package org.neo4j.kernel.impl.index.schema;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 
-import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.internal.kernel.api.IndexQuery;
 import org.neo4j.internal.kernel.api.IndexQueryConstraints;
@@ -44,9 +43,9 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>, VALUE extends
 {
     protected final IndexDescriptor descriptor;
     final IndexLayout<KEY,VALUE> layout;
-    final GBPTree<KEY,VALUE> tree;
+    final Seeker.Factory<KEY,VALUE> tree;
 
-    NativeIndexReader( GBPTree<KEY,VALUE> tree, IndexLayout<KEY,VALUE> layout, IndexDescriptor descriptor )
+    NativeIndexReader( Seeker.Factory<KEY,VALUE> tree, IndexLayout<KEY,VALUE> layout, IndexDescriptor descriptor )
     {
         this.tree = tree;
         this.layout = layout;
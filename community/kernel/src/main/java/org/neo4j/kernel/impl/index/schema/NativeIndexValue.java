@@ -41,6 +41,24 @@ class NativeIndexValue
         // not needed a.t.m.
     }
 
+    /**
+     * Sets values of the included properties of the entity of the entry, for indexes which store them.
+     * @param includedValues values of the included properties, see {@link CoveringIndexValue}.
+     */
+    void include( Value... includedValues )
+    {
+        // no included properties
+    }
+
+    /**
+     * @param other value of another entry of the same entity.
+     * @return whether or not writing {@code other} in place of this value would leave the entry unchanged.
+     */
+    boolean sameAs( NativeIndexValue other )
+    {
+        return true;
+    }
+
     @Override
     public String toString()
     {
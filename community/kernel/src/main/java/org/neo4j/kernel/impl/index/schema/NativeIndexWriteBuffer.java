@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.memory.MemoryTracker;
+
+/**
+ * Sorted, memory bounded, in-memory layer of updates in front of the {@link GBPTree} of a native index.
+ * <p>
+ * Updates written through {@link #writer(PageCursorTracer)} are kept in this buffer, sorted by the index layout, instead of being
+ * written straight into the tree. This turns the random leaf writes of every committed transaction into large sorted batches, which are
+ * applied to the tree when the buffer is {@link #flush(PageCursorTracer) flushed}. That happens when the index is forced as part of a
+ * checkpoint, and when the estimated size of the buffered updates reaches the configured maximum. The estimated size is also accounted
+ * as heap in the {@link MemoryTracker} of the index.
+ * <p>
+ * The buffer needs no log of its own. Buffered updates are not yet part of any checkpoint, and recovery replays all index updates of
+ * transactions committed after the last checkpoint from the transaction log, which includes everything that was buffered at a crash.
+ * <p>
+ * Seeks, see {@link #seek(NativeIndexKey, NativeIndexKey, PageCursorTracer)}, merge the results from the tree with the buffered updates in
+ * the seek range, where buffered removals hide entries in the tree.
+ * <p>
+ * Writes are single threaded, just like writes to the tree. Seeks may run concurrently with writes and flushes. A flush never empties the
+ * buffered updates a seek has already started from. It writes them to the tree and then replaces them with a new, empty buffer, so that
+ * every seek sees each update in the buffer it started from, in the tree, or both.
+ *
+ * @param <KEY> type of keys in the index.
+ * @param <VALUE> type of values in the index.
+ */
+class NativeIndexWriteBuffer<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> implements Seeker.Factory<KEY,VALUE>
+{
+    /**
+     * Rough estimate of the heap used by a buffered entry, on top of the size of the key, i.e. the key object and the skip list node.
+     */
+    static final int ENTRY_OVERHEAD = 128;
+
+    private final GBPTree<KEY,VALUE> tree;
+    private final IndexLayout<KEY,VALUE> layout;
+    private final long maxBufferedBytes;
+    private final MemoryTracker memoryTracker;
+    // Replaced, never cleared, by flush, since seeks may still be iterating over the previous updates
+    private volatile ConcurrentSkipListMap<KEY,BufferedUpdate<VALUE>> updates;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BufferWriter bufferWriter;
+    private long bufferedBytes;
+
+    NativeIndexWriteBuffer( GBPTree<KEY,VALUE> tree, IndexLayout<KEY,VALUE> layout, long maxBufferedBytes, MemoryTracker memoryTracker )
+    {
+        this.tree = tree;
+        this.layout = layout;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.memoryTracker = memoryTracker;
+        this.updates = new ConcurrentSkipListMap<>( layout );
+        this.bufferWriter = new BufferWriter();
+    }
+
+    /**
+     * Returns the single {@link Writer} of this buffer. The returned writer must be closed before another caller can acquire it.
+     * <p>
+     * {@link Writer#merge(Object, Object, ValueMerger)}, {@link Writer#mergeIfExists(Object, Object, ValueMerger)} and
+     * {@link Writer#remove(Object)} behave like they do on a tree writer. They look for an existing entry in the buffered updates first
+     * and then in the tree, so they read the tree for every key that isn't buffered. {@link Writer#put(Object, Object)} never reads the tree.
+     *
+     * @param cursorTracer underlying page cursor tracer, used if the buffer gets flushed because it is full.
+     * @return the single {@link Writer} of this buffer.
+     */
+    Writer<KEY,VALUE> writer( PageCursorTracer cursorTracer )
+    {
+        writeLock.lock();
+        return bufferWriter.initialize( cursorTracer );
+    }
+
+    /**
+     * Applies all buffered updates to the tree, in sorted order, and empties the buffer. Waits for any open writer to be closed.
+     *
+     * @param cursorTracer underlying page cursor tracer.
+     * @throws IOException on error writing to the tree.
+     */
+    void flush( PageCursorTracer cursorTracer ) throws IOException
+    {
+        writeLock.lock();
+        try
+        {
+            if ( updates.isEmpty() )
+            {
+                return;
+            }
+            try ( Writer<KEY,VALUE> writer = tree.writer( cursorTracer ) )
+            {
+                for ( Map.Entry<KEY,BufferedUpdate<VALUE>> entry : updates.entrySet() )
+                {
+                    VALUE value = entry.getValue().value;
+                    if ( value == null )
+                    {
+                        writer.remove( entry.getKey() );
+                    }
+                    else
+                    {
+                        writer.put( entry.getKey(), value );
+                    }
+                }
+            }
+            // Only replace after all updates are in the tree, so that later seeks find them there
+            updates = new ConcurrentSkipListMap<>( layout );
+            releaseBufferedBytes();
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drops all buffered updates without applying them, e.g. when the index is dropped.
+     */
+    void clear()
+    {
+        writeLock.lock();
+        try
+        {
+            updates = new ConcurrentSkipListMap<>( layout );
+            releaseBufferedBytes();
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    private void releaseBufferedBytes()
+    {
+        memoryTracker.releaseHeap( bufferedBytes );
+        bufferedBytes = 0;
+    }
+
+    int numberOfBufferedUpdates()
+    {
+        return updates.size();
+    }
+
+    long bufferedBytes()
+    {
+        return bufferedBytes;
+    }
+
+    @Override
+    public Seeker<KEY,VALUE> seek( KEY fromInclusive, KEY toExclusive, PageCursorTracer cursorTracer ) throws IOException
+    {
+        int direction = layout.compare( fromInclusive, toExclusive );
+        // Updates buffered before the tree seek starts are either still in these updates or, if flushed, also in the tree
+        ConcurrentSkipListMap<KEY,BufferedUpdate<VALUE>> seekUpdates = updates;
+        NavigableMap<KEY,BufferedUpdate<VALUE>> range;
+        if ( direction < 0 )
+        {
+            range = seekUpdates.subMap( fromInclusive, true, toExclusive, false );
+        }
+        else if ( direction > 0 )
+        {
+            range = seekUpdates.subMap( toExclusive, false, fromInclusive, true ).descendingMap();
+        }
+        else
+        {
+            // An exact match seek, just like in the tree
+            range = seekUpdates.subMap( fromInclusive, true, fromInclusive, true );
+        }
+        Seeker<KEY,VALUE> treeSeeker = tree.seek( fromInclusive, toExclusive, cursorTracer );
+        if ( range.isEmpty() )
+        {
+            return treeSeeker;
+        }
+        return new MergingSeeker( treeSeeker, range.entrySet().iterator(), direction > 0 );
+    }
+
+    private void buffer( KEY key, BufferedUpdate<VALUE> update, PageCursorTracer cursorTracer )
+    {
+        KEY bufferedKey = layout.copyKey( key, layout.newKey() );
+        if ( updates.put( bufferedKey, update ) == null )
+        {
+            long entryBytes = layout.keySize( bufferedKey ) + (update.value != null ? layout.valueSize( update.value ) : 0) + ENTRY_OVERHEAD;
+            memoryTracker.allocateHeap( entryBytes );
+            bufferedBytes += entryBytes;
+            if ( bufferedBytes >= maxBufferedBytes )
+            {
+                try
+                {
+                    flush( cursorTracer );
+                }
+                catch ( IOException e )
+                {
+                    throw new UncheckedIOException( e );
+                }
+            }
+        }
+    }
+
+    private static class BufferedUpdate<VALUE>
+    {
+        private static final BufferedUpdate<?> REMOVAL = new BufferedUpdate<>( null );
+
+        /**
+         * Value to put, or {@code null} if the key is removed.
+         */
+        private final VALUE value;
+
+        BufferedUpdate( VALUE value )
+        {
+            this.value = value;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        static <VALUE> BufferedUpdate<VALUE> removal()
+        {
+            return (BufferedUpdate<VALUE>) REMOVAL;
+        }
+    }
+
+    private class BufferWriter implements Writer<KEY,VALUE>
+    {
+        private final KEY existingKey = layout.newKey();
+        private VALUE existingValue;
+        private PageCursorTracer cursorTracer;
+
+        BufferWriter initialize( PageCursorTracer cursorTracer )
+        {
+            this.cursorTracer = cursorTracer;
+            return this;
+        }
+
+        @Override
+        public void put( KEY key, VALUE value )
+        {
+            buffer( key, new BufferedUpdate<>( layout.copyValue( value ) ), cursorTracer );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            if ( !mergeIfExists( key, value, valueMerger, true ) )
+            {
+                put( key, value );
+            }
+        }
+
+        @Override
+        public void mergeIfExists( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            mergeIfExists( key, value, valueMerger, false );
+        }
+
+        @Override
+        public VALUE remove( KEY key )
+        {
+            if ( !find( key ) )
+            {
+                return null;
+            }
+            buffer( key, BufferedUpdate.removal(), cursorTracer );
+            return existingValue;
+        }
+
+        @Override
+        public void close()
+        {
+            cursorTracer = null;
+            existingValue = null;
+            writeLock.unlock();
+        }
+
+        /**
+         * @return whether or not the key exists, i.e. whether or not the merger was consulted.
+         */
+        private boolean mergeIfExists( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists )
+        {
+            if ( !find( key ) )
+            {
+                return false;
+            }
+            switch ( valueMerger.merge( existingKey, key, existingValue, value ) )
+            {
+            case UNCHANGED:
+                break;
+            case REPLACED:
+                buffer( existingKey, new BufferedUpdate<>( layout.copyValue( value ) ), cursorTracer );
+                break;
+            case MERGED:
+                buffer( existingKey, new BufferedUpdate<>( layout.copyValue( existingValue ) ), cursorTracer );
+                break;
+            case REMOVED:
+                buffer( existingKey, BufferedUpdate.removal(), cursorTracer );
+                break;
+            default:
+                throw new IllegalArgumentException( "Unknown merge result" );
+            }
+            return true;
+        }
+
+        /**
+         * Looks the key up in the buffered updates and, if not buffered, in the tree. If found, the key and value are available in
+         * {@link #existingKey} and {@link #existingValue}.
+         *
+         * @return whether or not the key exists.
+         */
+        private boolean find( KEY key )
+        {
+            BufferedUpdate<VALUE> buffered = updates.get( key );
+            if ( buffered != null )
+            {
+                if ( buffered.value == null )
+                {
+                    return false;
+                }
+                layout.copyKey( key, existingKey );
+                existingValue = layout.copyValue( buffered.value );
+                return true;
+            }
+            try ( Seeker<KEY,VALUE> seeker = tree.seek( key, key, cursorTracer ) )
+            {
+                if ( !seeker.next() )
+                {
+                    return false;
+                }
+                layout.copyKey( seeker.key(), existingKey );
+                existingValue = layout.copyValue( seeker.value() );
+                return true;
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
+
+    /**
+     * Merges the results of a tree seek with the buffered updates in the same range and order. A buffered update wins over an entry
+     * in the tree with the same key, since it's newer.
+     */
+    private class MergingSeeker implements Seeker<KEY,VALUE>
+    {
+        private final Seeker<KEY,VALUE> treeSeeker;
+        private final Iterator<Map.Entry<KEY,BufferedUpdate<VALUE>>> bufferIterator;
+        private final boolean backwards;
+        private final KEY key = layout.newKey();
+        private VALUE value;
+        private boolean treeHasNext;
+        private boolean treeConsumed = true;
+        private Map.Entry<KEY,BufferedUpdate<VALUE>> bufferNext;
+
+        MergingSeeker( Seeker<KEY,VALUE> treeSeeker, Iterator<Map.Entry<KEY,BufferedUpdate<VALUE>>> bufferIterator, boolean backwards )
+        {
+            this.treeSeeker = treeSeeker;
+            this.bufferIterator = bufferIterator;
+            this.backwards = backwards;
+        }
+
+        @Override
+        public boolean next() throws IOException
+        {
+            while ( true )
+            {
+                if ( treeConsumed )
+                {
+                    treeHasNext = treeSeeker.next();
+                    treeConsumed = false;
+                }
+                if ( bufferNext == null && bufferIterator.hasNext() )
+                {
+                    bufferNext = bufferIterator.next();
+                }
+
+                if ( bufferNext == null )
+                {
+                    if ( !treeHasNext )
+                    {
+                        return false;
+                    }
+                    return takeFromTree();
+                }
+                int comparison = treeHasNext ? compareInSeekOrder( treeSeeker.key(), bufferNext.getKey() ) : 1;
+                if ( comparison < 0 )
+                {
+                    return takeFromTree();
+                }
+                if ( comparison == 0 )
+                {
+                    // Shadowed by the buffered update
+                    treeConsumed = true;
+                }
+                Map.Entry<KEY,BufferedUpdate<VALUE>> buffered = bufferNext;
+                bufferNext = null;
+                if ( buffered.getValue().value != null )
+                {
+                    layout.copyKey( buffered.getKey(), key );
+                    value = buffered.getValue().value;
+                    return true;
+                }
+            }
+        }
+
+        private boolean takeFromTree()
+        {
+            layout.copyKey( treeSeeker.key(), key );
+            value = treeSeeker.value();
+            treeConsumed = true;
+            return true;
+        }
+
+        private int compareInSeekOrder( KEY treeKey, KEY bufferKey )
+        {
+            int comparison = layout.compare( treeKey, bufferKey );
+            return backwards ? -comparison : comparison;
+        }
+
+        @Override
+        public KEY key()
+        {
+            return key;
+        }
+
+        @Override
+        public VALUE value()
+        {
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            treeSeeker.close();
+        }
+    }
+}
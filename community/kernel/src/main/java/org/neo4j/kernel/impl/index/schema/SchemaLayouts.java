@@ -95,10 +95,13 @@ public class SchemaLayouts implements LayoutBootstrapper
             int maxNumberOfSlots = 10;
             for ( int numberOfSlots = 1; numberOfSlots < maxNumberOfSlots; numberOfSlots++ )
             {
-                final GenericLayout genericLayout = new GenericLayout( numberOfSlots, settings );
-                if ( matchingLayout( meta, genericLayout ) )
+                for ( boolean compressKeyPrefixes : new boolean[]{false, true} )
                 {
-                    return genericLayout;
+                    final GenericLayout genericLayout = new GenericLayout( numberOfSlots, 0, settings, false, compressKeyPrefixes );
+                    if ( matchingLayout( meta, genericLayout ) )
+                    {
+                        return genericLayout;
+                    }
                 }
             }
             return null;
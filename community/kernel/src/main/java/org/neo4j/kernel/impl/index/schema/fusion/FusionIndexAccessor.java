@@ -80,6 +80,12 @@ class FusionIndexAccessor extends FusionIndexBase<IndexAccessor> implements Inde
         instanceSelector.forAll( accessor -> accessor.force( ioLimiter, cursorTracer ) );
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+    {
+        return instanceSelector.transform( accessor -> accessor.compact( minFragmentation, ioLimiter, cursorTracer ) ).contains( true );
+    }
+
     @Override
     public void refresh()
     {
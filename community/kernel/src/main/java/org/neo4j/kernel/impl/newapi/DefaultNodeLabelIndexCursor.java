@@ -21,6 +21,8 @@ package org.neo4j.kernel.impl.newapi;
 
 import org.eclipse.collections.api.iterator.LongIterator;
 import org.eclipse.collections.api.set.primitive.LongSet;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 
 import org.neo4j.internal.kernel.api.NodeCursor;
 import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
@@ -65,24 +67,7 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<IndexProgressor> implement
         if ( read.hasTxStateWithChanges() )
         {
             final LongDiffSets changes = read.txState().nodesWithLabelChanged( label );
-            LongSet frozenAdded = changes.getAdded().freeze();
-            switch ( order )
-            {
-            case NONE:
-                useMergeSort = false;
-                added = frozenAdded.longIterator();
-                break;
-            case ASCENDING:
-            case DESCENDING:
-                useMergeSort = true;
-                sortedMergeJoin.initialize( order );
-                long[] addedSortedArray = frozenAdded.toSortedArray();
-                added = DESCENDING == order ? reverseIterator( addedSortedArray ) : iterator( addedSortedArray );
-                break;
-            default:
-                throw new IllegalArgumentException( "Unsupported index order:" + order );
-            }
-            removed = mergeToSet( read.txState().addedAndRemovedNodes().getRemoved(), changes.getRemoved() );
+            initializeTxStateChanges( changes.getAdded().freeze(), changes.getRemoved(), order );
         }
         else
         {
@@ -96,6 +81,84 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<IndexProgressor> implement
         initSecurity( label );
     }
 
+    /**
+     * Scan nodes having all, or any, of the given labels, where the progressor comes from a scan combining the labels in the label index.
+     *
+     * @param progressor the progressor of the combined label scan.
+     * @param labels the labels to scan.
+     * @param trueForAll if {@code true} nodes having all of the labels are scanned, otherwise nodes having any of them.
+     * @param order the order of the scan.
+     */
+    public void scan( IndexProgressor progressor, int[] labels, boolean trueForAll, IndexOrder order )
+    {
+        super.initialize( progressor );
+        if ( read.hasTxStateWithChanges() )
+        {
+            // Nodes which got any of the labels added or removed in this transaction are decided from their labels as seen
+            // by this transaction, so they are hidden from the label index and added back if they still match
+            MutableLongSet changed = new LongHashSet();
+            for ( int label : labels )
+            {
+                LongDiffSets changes = read.txState().nodesWithLabelChanged( label );
+                changed.addAll( changes.getAdded() );
+                changed.addAll( changes.getRemoved() );
+            }
+            LongSet matching = changed.select( node -> hasLabels( node, labels, trueForAll ) );
+            initializeTxStateChanges( matching, changed, order );
+        }
+        else
+        {
+            useMergeSort = false;
+        }
+
+        if ( tracer != null )
+        {
+            for ( int label : labels )
+            {
+                tracer.onLabelScan( label );
+            }
+        }
+        initSecurity( labels );
+    }
+
+    private void initializeTxStateChanges( LongSet frozenAdded, LongSet removedWithLabel, IndexOrder order )
+    {
+        switch ( order )
+        {
+        case NONE:
+            useMergeSort = false;
+            added = frozenAdded.longIterator();
+            break;
+        case ASCENDING:
+        case DESCENDING:
+            useMergeSort = true;
+            sortedMergeJoin.initialize( order );
+            long[] addedSortedArray = frozenAdded.toSortedArray();
+            added = DESCENDING == order ? reverseIterator( addedSortedArray ) : iterator( addedSortedArray );
+            break;
+        default:
+            throw new IllegalArgumentException( "Unsupported index order:" + order );
+        }
+        removed = mergeToSet( read.txState().addedAndRemovedNodes().getRemoved(), removedWithLabel );
+    }
+
+    private boolean hasLabels( long node, int[] labels, boolean trueForAll )
+    {
+        read.singleNode( node, nodeCursor );
+        if ( !nodeCursor.next() )
+        {
+            return false;
+        }
+        for ( int label : labels )
+        {
+            if ( nodeCursor.hasLabel( label ) != trueForAll )
+            {
+                return !trueForAll;
+            }
+        }
+        return trueForAll;
+    }
+
     public void scan( IndexProgressor progressor, LongIterator added, LongSet removed, int label )
     {
         super.initialize( progressor );
@@ -132,6 +195,19 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<IndexProgressor> implement
         shortcutSecurity = accessMode.allowsTraverseAllNodesWithLabel( label );
     }
 
+    private void initSecurity( int[] labels )
+    {
+        if ( accessMode == null )
+        {
+            accessMode = read.ktx.securityContext().mode();
+        }
+        shortcutSecurity = true;
+        for ( int label : labels )
+        {
+            shortcutSecurity &= accessMode.allowsTraverseAllNodesWithLabel( label );
+        }
+    }
+
     protected boolean allowed( long reference, TokenSet labels )
     {
         if ( shortcutSecurity )
@@ -80,6 +80,7 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
     private float score;
     private IndexQuery[] query;
     private Value[] values;
+    private Value[] includedValues;
     private LongObjectPair<Value[]> cachedValues;
     private ResourceIterator<LongObjectPair<Value[]>> eagerPointIterator;
     private LongIterator added = ImmutableEmptyLongIterator.INSTANCE;
@@ -94,6 +95,8 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
     private AccessMode accessMode;
     private boolean shortcutSecurity;
     private int[] propertyIds;
+    private int numberOfIncludedProperties;
+    private boolean includedValuesAllowed;
 
     DefaultNodeValueIndexCursor( CursorPool<DefaultNodeValueIndexCursor> pool, DefaultNodeCursor nodeCursor, MemoryTracker memoryTracker )
     {
@@ -126,6 +129,8 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
         }
 
         shortcutSecurity = setupSecurity( descriptor );
+        numberOfIncludedProperties = descriptor.getIncludedPropertyIds().length;
+        includedValuesAllowed = shortcutSecurity && allowsReadingProperties( descriptor.getIncludedPropertyIds(), entityTokenIds( descriptor ) );
 
         if ( !indexIncludesTransactionState && read.hasTxStateWithChanges() && query.length > 0 )
         {
@@ -207,7 +212,7 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
             accessMode = read.ktx.securityContext().mode();
         }
         propertyIds = descriptor.schema().getPropertyIds();
-        final long[] labelIds = Arrays.stream( descriptor.schema().getEntityTokenIds() ).mapToLong( i -> i ).toArray();
+        final long[] labelIds = entityTokenIds( descriptor );
 
         for ( long label : labelIds )
         {
@@ -220,7 +225,16 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
                 return false;
             }
         }
+        return allowsReadingProperties( propertyIds, labelIds );
+    }
 
+    private static long[] entityTokenIds( IndexDescriptor descriptor )
+    {
+        return Arrays.stream( descriptor.schema().getEntityTokenIds() ).mapToLong( i -> i ).toArray();
+    }
+
+    private boolean allowsReadingProperties( int[] propertyIds, long[] labelIds )
+    {
         for ( int propId : propertyIds )
         {
             /*
@@ -278,10 +292,34 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
             this.node = reference;
             this.score = score;
             this.values = values;
+            this.includedValues = null;
             return true;
         }
     }
 
+    @Override
+    public boolean acceptEntity( long reference, float score, Value[] values, Value[] includedValues )
+    {
+        if ( !acceptEntity( reference, score, values ) )
+        {
+            return false;
+        }
+        if ( includedValuesAllowed && !hasPropertyChangesInTransaction( reference ) )
+        {
+            this.includedValues = includedValues;
+        }
+        return true;
+    }
+
+    /**
+     * The included values in the index are those of the last committed state of the node, so they can't be used for nodes
+     * whose properties have changed in this transaction.
+     */
+    private boolean hasPropertyChangesInTransaction( long reference )
+    {
+        return read.hasTxStateWithChanges() && read.txState().getNodeState( reference ).hasPropertyChanges();
+    }
+
     protected boolean allowed( long reference )
     {
         if ( shortcutSecurity )
@@ -330,6 +368,7 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
         {
             this.node = added.next();
             this.values = null;
+            this.includedValues = null;
             if ( tracer != null )
             {
                 tracer.onNode( node );
@@ -341,6 +380,7 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
             NodeWithPropertyValues nodeWithPropertyValues = addedWithValues.next();
             this.node = nodeWithPropertyValues.getNodeId();
             this.values = nodeWithPropertyValues.getValues();
+            this.includedValues = null;
             if ( tracer != null )
             {
                 tracer.onNode( node );
@@ -489,11 +529,13 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
             LongObjectPair<Value[]> nextPair = eagerPointIterator.next();
             node = nextPair.getOne();
             values = nextPair.getTwo();
+            includedValues = null;
             return true;
         }
         else if ( cachedValues != null )
         {
             values = cachedValues.getTwo();
+            includedValues = null;
             node = cachedValues.getOne();
             eagerPointIterator = null;
             cachedValues = null;
@@ -508,8 +550,10 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
     @Override
     public void acceptSortedMergeJoin( long nodeId, Value[] values )
     {
+        // Included values don't survive the merge with the transaction state
         this.node = nodeId;
         this.values = values;
+        this.includedValues = null;
     }
 
     @Override
@@ -560,6 +604,28 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
         return values[offset];
     }
 
+    @Override
+    public int numberOfIncludedProperties()
+    {
+        return numberOfIncludedProperties;
+    }
+
+    @Override
+    public boolean hasIncludedValues()
+    {
+        return includedValues != null;
+    }
+
+    @Override
+    public Value includedPropertyValue( int offset )
+    {
+        if ( includedValues == null )
+        {
+            throw new IllegalStateException( "No included values available" );
+        }
+        return includedValues[offset];
+    }
+
     @Override
     public void closeInternal()
     {
@@ -570,6 +636,8 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
             this.score = Float.NaN;
             this.query = null;
             this.values = null;
+            this.includedValues = null;
+            this.numberOfIncludedProperties = 0;
             this.read = null;
             this.accessMode = null;
             this.added = ImmutableEmptyLongIterator.INSTANCE;
@@ -254,6 +254,28 @@ abstract class Read implements TxStateHolder,
         indexCursor.scan( labelScan.initialize( indexCursor.nodeLabelClient(), order, cursorTracer ), label, order );
     }
 
+    @Override
+    public final void nodeLabelIntersectionScan( int[] labels, NodeLabelIndexCursor cursor, IndexOrder order )
+    {
+        nodeLabelScan( labels, true, cursor, order );
+    }
+
+    @Override
+    public final void nodeLabelUnionScan( int[] labels, NodeLabelIndexCursor cursor, IndexOrder order )
+    {
+        nodeLabelScan( labels, false, cursor, order );
+    }
+
+    private void nodeLabelScan( int[] labels, boolean trueForAll, NodeLabelIndexCursor cursor, IndexOrder order )
+    {
+        ktx.assertOpen();
+
+        DefaultNodeLabelIndexCursor indexCursor = (DefaultNodeLabelIndexCursor) cursor;
+        indexCursor.setRead( this );
+        TokenScan labelScan = labelScanReader().entityTokenScan( labels, trueForAll, cursorTracer );
+        indexCursor.scan( labelScan.initialize( indexCursor.nodeLabelClient(), order, cursorTracer ), labels, trueForAll, order );
+    }
+
     @Override
     public final Scan<NodeLabelIndexCursor> nodeLabelScan( int label )
     {
@@ -20,9 +20,12 @@
 package org.neo4j.kernel.impl.pagecache;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.mapped.MappedPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.logging.Level;
@@ -61,7 +64,8 @@ public final class ConfigurableStandalonePageCacheFactory
     }
 
     /**
-     * Create page cache
+     * Create page cache. If {@link GraphDatabaseInternalSettings#pagecache_memory_mapped_read_only} is enabled, and the file system is
+     * backed by real files, then the page cache is a read-only {@link MappedPageCache}.
      * @param fileSystem file system that page cache will be based on
      * @param pageCacheTracer global page cache tracer
      * @param config page cache configuration
@@ -72,6 +76,10 @@ public final class ConfigurableStandalonePageCacheFactory
     public static PageCache createPageCache( FileSystemAbstraction fileSystem, PageCacheTracer pageCacheTracer, Config config,
             VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, MemoryPools memoryPools )
     {
+        if ( config.get( GraphDatabaseInternalSettings.pagecache_memory_mapped_read_only ) && fileSystem instanceof DefaultFileSystemAbstraction )
+        {
+            return new MappedPageCache( fileSystem, versionContextSupplier );
+        }
         config.setIfNotSet( GraphDatabaseSettings.pagecache_memory, "8M" );
         Neo4jLoggerContext loggerContext =
                 LogConfig.createBuilder( System.err, Level.INFO )
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.internal.helpers.Exceptions;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobMonitoringParams;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+
+/**
+ * The page cache warmer brings the pages that were hot before a restart back into the page cache.
+ * <p>
+ * While the database is running, the warmer periodically {@link #profile() profiles} the page cache by recording which pages of each
+ * mapped file are currently resident. A profile is a gzip compressed bitmap with one bit per file page, stored in the
+ * {@value #PROFILE_DIRECTORY} directory of the database. Profiles are first written to a temporary file, and then atomically moved
+ * in place of the previous profile, so a crash while profiling never leaves a torn profile behind.
+ * <p>
+ * On startup the warmer {@link #reheat() reheats} the page cache by loading the profiled pages back in, with one job per mapped file
+ * running in parallel, each touching its pages in ascending file page order so the reads are as sequential as the profile allows.
+ * Alternatively, the warmer can {@link #preload(Predicate) preload} whole files, which is preferable when the page cache is big
+ * enough to hold the entire store.
+ */
+public class PageCacheWarmer
+{
+    public static final String PROFILE_DIRECTORY = "profiles";
+    static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_TMP = ".tmp";
+    private static final String PROFILE_TAG = "pageCacheWarmerProfile";
+    private static final String WARMUP_TAG = "pageCacheWarmerWarmup";
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final Path databaseDirectory;
+    private final Path profilesDirectory;
+    private final String databaseName;
+    private final PageCacheTracer pageCacheTracer;
+    private volatile boolean stopped;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, Path databaseDirectory, String databaseName,
+            PageCacheTracer pageCacheTracer )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.databaseDirectory = databaseDirectory;
+        this.profilesDirectory = databaseDirectory.resolve( PROFILE_DIRECTORY );
+        this.databaseName = databaseName;
+        this.pageCacheTracer = pageCacheTracer;
+    }
+
+    /**
+     * Stop any ongoing {@link #reheat()} or {@link #preload(Predicate)}. Profiling is not affected, so that a final profile can still
+     * be taken after the warmup has been stopped.
+     */
+    public void stopWarmup()
+    {
+        stopped = true;
+    }
+
+    /**
+     * Load the pages recorded in the most recent profile of each mapped file back into the page cache.
+     *
+     * @return the number of pages that were touched.
+     * @throws IOException if a profile could not be read, or a page could not be faulted in.
+     */
+    public long reheat() throws IOException
+    {
+        List<JobHandle<Long>> jobs = new ArrayList<>();
+        for ( PagedFile file : pageCache.listExistingMappings() )
+        {
+            Path profile = profileOf( file );
+            if ( profile != null && fs.fileExists( profile ) )
+            {
+                jobs.add( scheduler.schedule( Group.FILE_IO_HELPER, JobMonitoringParams.systemJob( databaseName, "Page cache reheat of " + file.path() ),
+                        () -> reheat( file, profile ) ) );
+            }
+        }
+        return awaitAll( jobs );
+    }
+
+    /**
+     * Load every page of every mapped file accepted by the given filter into the page cache.
+     *
+     * @param fileFilter decides which mapped files should be preloaded.
+     * @return the number of pages that were touched.
+     * @throws IOException if a page could not be faulted in.
+     */
+    public long preload( Predicate<Path> fileFilter ) throws IOException
+    {
+        List<JobHandle<Long>> jobs = new ArrayList<>();
+        for ( PagedFile file : pageCache.listExistingMappings() )
+        {
+            if ( fileFilter.test( file.path() ) )
+            {
+                jobs.add( scheduler.schedule( Group.FILE_IO_HELPER, JobMonitoringParams.systemJob( databaseName, "Page cache preload of " + file.path() ),
+                        () -> preload( file ) ) );
+            }
+        }
+        return awaitAll( jobs );
+    }
+
+    /**
+     * Record which pages of every mapped file are currently resident in the page cache, replacing any previous profile.
+     *
+     * @return the number of resident pages that were recorded.
+     * @throws IOException if a profile could not be written.
+     */
+    public long profile() throws IOException
+    {
+        long pagesInMemory = 0;
+        for ( PagedFile file : pageCache.listExistingMappings() )
+        {
+            Path profile = profileOf( file );
+            if ( profile != null )
+            {
+                pagesInMemory += profile( file, profile );
+            }
+        }
+        return pagesInMemory;
+    }
+
+    private long profile( PagedFile file, Path profile ) throws IOException
+    {
+        long lastPageId = file.getLastPageId();
+        if ( lastPageId < 0 )
+        {
+            return 0;
+        }
+        byte[] bitmap = new byte[Math.toIntExact( (lastPageId >>> 3) + 1 )];
+        long pagesInMemory = 0;
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( PROFILE_TAG );
+              PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT, cursorTracer ) )
+        {
+            long pageId = 0;
+            while ( pageId <= lastPageId && cursor.next( pageId ) )
+            {
+                if ( cursor.getCurrentPageId() != UNBOUND_PAGE_ID )
+                {
+                    bitmap[(int) (pageId >>> 3)] |= 1 << (pageId & 7);
+                    pagesInMemory++;
+                }
+                pageId++;
+            }
+        }
+
+        fs.mkdirs( profile.getParent() );
+        Path tmpProfile = profile.resolveSibling( profile.getFileName() + SUFFIX_TMP );
+        try ( OutputStream out = fs.openAsOutputStream( tmpProfile, false );
+              DataOutputStream data = new DataOutputStream( new GZIPOutputStream( out ) ) )
+        {
+            data.writeLong( lastPageId );
+            data.write( bitmap );
+        }
+        fs.renameFile( tmpProfile, profile, ATOMIC_MOVE, REPLACE_EXISTING );
+        return pagesInMemory;
+    }
+
+    private long reheat( PagedFile file, Path profile ) throws IOException
+    {
+        long lastPageId;
+        byte[] bitmap;
+        try ( InputStream in = fs.openAsInputStream( profile );
+              DataInputStream data = new DataInputStream( new GZIPInputStream( in ) ) )
+        {
+            lastPageId = data.readLong();
+            bitmap = new byte[Math.toIntExact( (lastPageId >>> 3) + 1 )];
+            data.readFully( bitmap );
+        }
+        // The file may have shrunk since it was profiled.
+        lastPageId = Math.min( lastPageId, file.getLastPageId() );
+
+        long pagesLoaded = 0;
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( WARMUP_TAG );
+              PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD, cursorTracer ) )
+        {
+            for ( long pageId = 0; pageId <= lastPageId && !stopped; pageId++ )
+            {
+                if ( (bitmap[(int) (pageId >>> 3)] & (1 << (pageId & 7))) != 0 )
+                {
+                    if ( !cursor.next( pageId ) )
+                    {
+                        break;
+                    }
+                    pagesLoaded++;
+                }
+            }
+        }
+        return pagesLoaded;
+    }
+
+    private long preload( PagedFile file ) throws IOException
+    {
+        long pagesLoaded = 0;
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( WARMUP_TAG );
+              PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD, cursorTracer ) )
+        {
+            while ( !stopped && cursor.next() )
+            {
+                pagesLoaded++;
+            }
+        }
+        return pagesLoaded;
+    }
+
+    /**
+     * @return the profile file for the given mapped file, or {@code null} if the file does not belong to the database directory.
+     */
+    private Path profileOf( PagedFile file )
+    {
+        Path path = file.path();
+        if ( !path.startsWith( databaseDirectory ) || path.startsWith( profilesDirectory ) )
+        {
+            return null;
+        }
+        Path relativePath = databaseDirectory.relativize( path );
+        return profilesDirectory.resolve( relativePath.toString().replace( relativePath.getFileSystem().getSeparator(), "_" ) + SUFFIX_CACHEPROF );
+    }
+
+    private static long awaitAll( List<JobHandle<Long>> jobs ) throws IOException
+    {
+        long pages = 0;
+        IOException failure = null;
+        for ( JobHandle<Long> job : jobs )
+        {
+            try
+            {
+                pages += job.get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure = Exceptions.chain( failure, new IOException( e ) );
+            }
+            catch ( ExecutionException e )
+            {
+                Throwable cause = e.getCause();
+                failure = Exceptions.chain( failure, cause instanceof IOException ? (IOException) cause : new IOException( cause ) );
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobMonitoringParams;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_enabled;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch_allowlist;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_profiling_interval;
+
+/**
+ * Drives the {@link PageCacheWarmer} of a database: warms up the page cache once when the database starts, and then keeps the
+ * profiles up to date by profiling the page cache at the configured interval, and one final time when the database stops.
+ */
+public class PageCacheWarmerLifecycle extends LifecycleAdapter
+{
+    private final PageCacheWarmer warmer;
+    private final JobScheduler scheduler;
+    private final Config config;
+    private final String databaseName;
+    private final SystemNanoClock clock;
+    private final Log log;
+    private final boolean readOnly;
+    private JobHandle<?> warmupJob;
+    private JobHandle<?> profileJob;
+
+    public PageCacheWarmerLifecycle( PageCacheWarmer warmer, JobScheduler scheduler, Config config, String databaseName, SystemNanoClock clock, Log log,
+            boolean readOnly )
+    {
+        this.warmer = warmer;
+        this.scheduler = scheduler;
+        this.config = config;
+        this.databaseName = databaseName;
+        this.clock = clock;
+        this.log = log;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public void start()
+    {
+        if ( !config.get( pagecache_warmup_enabled ) )
+        {
+            return;
+        }
+        boolean preload = config.get( pagecache_warmup_prefetch );
+        warmupJob = scheduler.schedule( Group.FILE_IO_HELPER, JobMonitoringParams.systemJob( databaseName, "Page cache warmup" ),
+                () -> warmup( preload ) );
+        if ( !preload && !readOnly )
+        {
+            long interval = config.get( pagecache_warmup_profiling_interval ).toMillis();
+            profileJob = scheduler.scheduleRecurring( Group.FILE_IO_HELPER, JobMonitoringParams.systemJob( databaseName, "Page cache profiling" ),
+                    this::profile, interval, interval, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        if ( warmupJob == null )
+        {
+            return;
+        }
+        warmer.stopWarmup();
+        if ( profileJob != null )
+        {
+            profileJob.cancel();
+            awaitTermination( profileJob );
+            profileJob = null;
+            profile();
+        }
+        awaitTermination( warmupJob );
+        warmupJob = null;
+    }
+
+    private void warmup( boolean preload )
+    {
+        long start = clock.millis();
+        try
+        {
+            long pagesLoaded;
+            if ( preload )
+            {
+                Pattern allowlist = Pattern.compile( config.get( pagecache_warmup_prefetch_allowlist ) );
+                pagesLoaded = warmer.preload( path -> allowlist.matcher( path.getFileName().toString() ).matches() );
+            }
+            else
+            {
+                pagesLoaded = warmer.reheat();
+            }
+            log.info( "Page cache warmup completed. %d pages loaded. Duration: %d ms.", pagesLoaded, clock.millis() - start );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache warmup failed.", e );
+        }
+    }
+
+    private void profile()
+    {
+        try
+        {
+            long pagesInMemory = warmer.profile();
+            log.debug( "Page cache profile completed. %d pages in memory.", pagesInMemory );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache profiling failed.", e );
+        }
+    }
+
+    private static void awaitTermination( JobHandle<?> job ) throws InterruptedException
+    {
+        try
+        {
+            job.waitTermination();
+        }
+        catch ( CancellationException | ExecutionException ignore )
+        {
+            // Failures have already been logged by the job itself, and cancellation is expected.
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.Flushable;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.kernel.impl.transaction.log.files.LogForceMonitor;
+import org.neo4j.time.SystemNanoClock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * An {@link IOLimiter} that adapts the IO rate of checkpoints to the commit latency, instead of following a static IOPS limit.
+ * <p>
+ * The limiter is a {@link LogForceMonitor}, and records the time committing transactions wait for the transaction log to be forced
+ * into a coarse logarithmic histogram. Once every {@link #ADJUSTMENT_INTERVAL_MILLIS adjustment interval}, the checkpoint thread
+ * computes the 99th percentile of the recorded waits. If the percentile is above the target, the checkpoint is competing too hard for
+ * the storage device, and the IO rate is halved. If the percentile is comfortably below the target, the IO rate grows by a quarter,
+ * such that checkpoints finish as quickly as the commit latency allows. The rate never goes below {@link #MIN_IOPS}, so checkpoints
+ * always make progress, and once it reaches {@link #MAX_IOPS} the flushing is no longer limited at all.
+ * <p>
+ * The IO rate is enforced in {@link #QUANTUM_MILLIS} quanta: once the IOs allowed in a quantum have been spent, the flushing thread
+ * sleeps for the remainder of the quantum. Checkpoints flush files, and force indexes, from several threads at once, so the quantum is
+ * shared by all of them rather than kept in each caller's stamp; otherwise every concurrent flush would get the whole rate to itself.
+ * IOs reported beyond the allowance of a quantum are carried over into the quanta that follow, so the aggregate rate stays within the
+ * limit even when many threads overshoot the same quantum.
+ */
+public class AdaptiveIOLimiter implements IOLimiter, LogForceMonitor
+{
+    static final int MIN_IOPS = 100;
+    public static final int MAX_IOPS = (1 << 20) - 1;
+    static final long ADJUSTMENT_INTERVAL_MILLIS = 1000;
+    static final long QUANTUM_MILLIS = 10;
+    private static final int QUANTUMS_PER_SECOND = (int) (1000 / QUANTUM_MILLIS);
+    private static final int STAMP_IOS_BITS = 20;
+    private static final long STAMP_IOS_MASK = (1L << STAMP_IOS_BITS) - 1;
+
+    // Latencies are bucketed by their power of two in microseconds, and each power of two is split into four sub-buckets,
+    // which keeps the error of the percentile estimate below 25%.
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int BUCKETS = 40 << SUB_BUCKET_BITS;
+
+    private final long targetNanos;
+    private final SystemNanoClock clock;
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray( BUCKETS );
+    private final AtomicInteger disableCounter = new AtomicInteger();
+    private final AtomicLong quantum = new AtomicLong(); // the start of the current quantum and the IOs spent in it, as a stamp
+    private volatile int iops;
+    private volatile long lastCommitLatencyPercentileNanos;
+    private volatile long lastAdjustmentMillis;
+
+    /**
+     * @param commitLatencyTarget the target for the 99th percentile of the time commits wait for the transaction log to be forced.
+     * @param initialIOPS the IO rate to start out with, before any commit latency has been observed.
+     * @param clock the clock used for measuring the IO rate and the adjustment interval.
+     */
+    public AdaptiveIOLimiter( Duration commitLatencyTarget, int initialIOPS, SystemNanoClock clock )
+    {
+        if ( commitLatencyTarget.isNegative() || commitLatencyTarget.isZero() )
+        {
+            throw new IllegalArgumentException( "Commit latency target must be positive, but was " + commitLatencyTarget );
+        }
+        this.targetNanos = commitLatencyTarget.toNanos();
+        this.clock = clock;
+        this.iops = clampIOPS( initialIOPS );
+        this.lastAdjustmentMillis = clock.millis();
+    }
+
+    @Override
+    public void logForceWaited( long waitNanos )
+    {
+        latencyHistogram.incrementAndGet( bucketOf( waitNanos ) );
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+    {
+        long now = clock.millis();
+        maybeAdjust( now );
+        int currentIOPS = iops;
+        if ( !isLimited() || currentIOPS >= MAX_IOPS )
+        {
+            return previousStamp;
+        }
+
+        long allowance = Math.max( 1, currentIOPS / QUANTUMS_PER_SECOND );
+        long current;
+        long next;
+        long elapsedMillis;
+        do
+        {
+            current = quantum.get();
+            long quantumStart = current >>> STAMP_IOS_BITS;
+            long ios = current & STAMP_IOS_MASK;
+            elapsedMillis = now - quantumStart;
+            if ( elapsedMillis >= QUANTUM_MILLIS )
+            {
+                // Start a new quantum, with whatever the previous quanta could not pay for.
+                long quantaPassed = elapsedMillis / QUANTUM_MILLIS;
+                long carried = quantaPassed > ios / allowance ? 0 : ios - quantaPassed * allowance;
+                quantumStart = now;
+                elapsedMillis = 0;
+                ios = carried;
+            }
+            next = stamp( quantumStart, ios + recentlyCompletedIOs );
+        }
+        while ( !quantum.compareAndSet( current, next ) );
+
+        if ( (next & STAMP_IOS_MASK) < allowance )
+        {
+            return next;
+        }
+        try
+        {
+            MILLISECONDS.sleep( QUANTUM_MILLIS - elapsedMillis );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        return quantum.get();
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        disableCounter.getAndIncrement();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        disableCounter.getAndDecrement();
+    }
+
+    @Override
+    public boolean isLimited()
+    {
+        return disableCounter.get() == 0;
+    }
+
+    /**
+     * @return the IO rate, in IOs per second, that checkpoints are currently limited to.
+     */
+    public int currentIOPS()
+    {
+        return iops;
+    }
+
+    /**
+     * @return the 99th percentile of the commit latency, in nanoseconds, as observed at the most recent rate adjustment.
+     */
+    public long lastCommitLatencyPercentileNanos()
+    {
+        return lastCommitLatencyPercentileNanos;
+    }
+
+    /**
+     * Adjust the IO rate to the commit latency observed since the previous adjustment, if the adjustment interval has passed.
+     * This is only ever called by flushing threads, and a racing adjustment merely causes one interval to be measured twice.
+     */
+    void maybeAdjust( long nowMillis )
+    {
+        if ( nowMillis - lastAdjustmentMillis < ADJUSTMENT_INTERVAL_MILLIS )
+        {
+            return;
+        }
+        lastAdjustmentMillis = nowMillis;
+
+        long[] counts = new long[BUCKETS];
+        long samples = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            counts[i] = latencyHistogram.getAndSet( i, 0 );
+            samples += counts[i];
+        }
+        long percentileNanos = percentile( counts, samples, 0.99 );
+        lastCommitLatencyPercentileNanos = percentileNanos;
+
+        int currentIOPS = iops;
+        if ( percentileNanos > targetNanos )
+        {
+            iops = clampIOPS( currentIOPS / 2 );
+        }
+        else if ( percentileNanos < targetNanos - (targetNanos >>> 2) )
+        {
+            iops = clampIOPS( currentIOPS + Math.max( MIN_IOPS, currentIOPS >>> 2 ) );
+        }
+    }
+
+    private static long percentile( long[] counts, long samples, double percentile )
+    {
+        if ( samples == 0 )
+        {
+            return 0;
+        }
+        long rank = (long) Math.ceil( samples * percentile );
+        long seen = 0;
+        int bucket = 0;
+        while ( bucket < BUCKETS - 1 && (seen += counts[bucket]) < rank )
+        {
+            bucket++;
+        }
+        return upperBoundOf( bucket );
+    }
+
+    static int bucketOf( long nanos )
+    {
+        long micros = Math.max( 1, nanos / 1000 );
+        int exponent = 63 - Long.numberOfLeadingZeros( micros );
+        int subBucket = (int) ((exponent >= SUB_BUCKET_BITS ? micros >>> (exponent - SUB_BUCKET_BITS) : micros << (SUB_BUCKET_BITS - exponent))
+                & ((1 << SUB_BUCKET_BITS) - 1));
+        return Math.min( BUCKETS - 1, (exponent << SUB_BUCKET_BITS) + subBucket );
+    }
+
+    static long upperBoundOf( int bucket )
+    {
+        int exponent = bucket >>> SUB_BUCKET_BITS;
+        long subBucket = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+        long upperMicros = (((1L << SUB_BUCKET_BITS) + subBucket + 1) << exponent) >>> SUB_BUCKET_BITS;
+        return upperMicros * 1000;
+    }
+
+    private static long stamp( long quantumStartMillis, long ios )
+    {
+        return (quantumStartMillis << STAMP_IOS_BITS) | Math.min( ios, STAMP_IOS_MASK );
+    }
+
+    private static int clampIOPS( int iops )
+    {
+        return Math.max( MIN_IOPS, Math.min( MAX_IOPS, iops ) );
+    }
+}
@@ -29,6 +29,7 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.database.DatabaseTracers;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.tracing.IndexForceEvents;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
@@ -191,7 +192,11 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
              */
             msgLog.info( checkpointReason + " checkpoint started..." );
             Stopwatch startTime = Stopwatch.start();
-            forceOperation.flushAndForce( ioLimiter, cursorTracer );
+            forceOperation.flushAndForce( ioLimiter, cursorTracer, ( index, forceMillis ) ->
+            {
+                msgLog.debug( checkpointReason + " forced index '" + index.getName() + "' in " + duration( forceMillis ) );
+                event.indexForced( index, forceMillis );
+            } );
             /*
              * Check kernel health before going to write the next check point.  In case of a panic this check point
              * will be aborted, which is the safest alternative so that the next recovery will have a chance to
@@ -231,6 +236,11 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     @FunctionalInterface
     public interface ForceOperation
     {
-        void flushAndForce( IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException;
+        void flushAndForce( IOLimiter ioLimiter, PageCursorTracer cursorTracer, IndexForceEvents indexForceEvents ) throws IOException;
+
+        default void flushAndForce( IOLimiter ioLimiter, PageCursorTracer cursorTracer ) throws IOException
+        {
+            flushAndForce( ioLimiter, cursorTracer, IndexForceEvents.NULL );
+        }
     }
 }
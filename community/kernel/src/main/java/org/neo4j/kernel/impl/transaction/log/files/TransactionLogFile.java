@@ -84,6 +84,7 @@ public class TransactionLogFile extends LifecycleAdapter implements LogFile
     private final TransactionLogFileInformation logFileInformation;
     private final TransactionLogChannelAllocator channelAllocator;
     private final DatabaseHealth databaseHealth;
+    private final LogForceMonitor logForceMonitor;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
     private PositionAwarePhysicalFlushableChecksumChannel writer;
@@ -106,6 +107,7 @@ public class TransactionLogFile extends LifecycleAdapter implements LogFile
         this.readerLogVersionBridge = new ReaderLogVersionBridge( this );
         this.pageCacheTracer = context.getDatabaseTracers().getPageCacheTracer();
         this.memoryTracker = context.getMemoryTracker();
+        this.logForceMonitor = context.getMonitors().newMonitor( LogForceMonitor.class );
     }
 
     @Override
@@ -349,6 +351,7 @@ public class TransactionLogFile extends LifecycleAdapter implements LogFile
     {
         // There's a benign race here, where we add our link before we update our next pointer.
         // This is okay, however, because unparkAll() spins when it sees a null next pointer.
+        long startNanos = System.nanoTime();
         ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
         threadLink.next = threadLinkHead.getAndSet( threadLink );
         boolean attemptedForce = false;
@@ -392,6 +395,7 @@ public class TransactionLogFile extends LifecycleAdapter implements LogFile
                 databaseHealth.assertHealthy( IOException.class );
             }
         }
+        logForceMonitor.logForceWaited( System.nanoTime() - startNanos );
         return attemptedForce;
     }
 
@@ -30,6 +30,7 @@ import org.neo4j.lock.LockService;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.storageengine.api.EntityUpdates;
 import org.neo4j.storageengine.api.EntityTokenUpdate;
+import org.neo4j.storageengine.api.StorageNodeCursor;
 import org.neo4j.storageengine.api.StorageReader;
 
 /**
@@ -60,4 +61,10 @@ public class LabelViewNodeStoreScan<FAILURE extends Exception> extends NodeStore
     {
         return new TokenScanViewIdIterator<>( labelScanStore.newReader(), labelIds, entityCursor, cursorTracer );
     }
+
+    @Override
+    protected EntityIdIterator getEntityIdIterator( StorageNodeCursor cursor, PageCursorTracer cursorTracer, long fromId, long toId )
+    {
+        return TokenScanViewIdIterator.rangeIterator( labelScanStore.newReader(), labelIds, cursor, cursorTracer, fromId, toId );
+    }
 }
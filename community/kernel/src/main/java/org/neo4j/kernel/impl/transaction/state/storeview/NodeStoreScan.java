@@ -26,9 +26,11 @@ import org.neo4j.internal.helpers.collection.Visitor;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.lock.LockService;
 import org.neo4j.memory.MemoryTracker;
+import org.neo4j.storageengine.api.AllNodeScan;
 import org.neo4j.storageengine.api.EntityTokenUpdate;
 import org.neo4j.storageengine.api.EntityUpdates;
 import org.neo4j.storageengine.api.StorageNodeCursor;
+import org.neo4j.storageengine.api.StoragePropertyCursor;
 import org.neo4j.storageengine.api.StorageReader;
 
 import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
@@ -43,6 +45,7 @@ public class NodeStoreScan<FAILURE extends Exception> extends PropertyAwareEntit
     private final Visitor<EntityTokenUpdate,FAILURE> labelUpdateVisitor;
     private final Visitor<EntityUpdates,FAILURE> propertyUpdatesVisitor;
     protected final int[] labelIds;
+    private AllNodeScan allNodeScan;
 
     public NodeStoreScan( StorageReader storageReader, LockService locks,
             @Nullable Visitor<EntityTokenUpdate,FAILURE> labelUpdateVisitor,
@@ -63,7 +66,17 @@ public class NodeStoreScan<FAILURE extends Exception> extends PropertyAwareEntit
     }
 
     @Override
-    public boolean process( StorageNodeCursor cursor ) throws FAILURE
+    protected boolean scanBatch( StorageNodeCursor cursor, int size )
+    {
+        if ( allNodeScan == null )
+        {
+            allNodeScan = storageReader.allNodeScan();
+        }
+        return cursor.scanBatch( allNodeScan, size );
+    }
+
+    @Override
+    public boolean process( StorageNodeCursor cursor, StoragePropertyCursor propertyCursor ) throws FAILURE
     {
         long[] labels = cursor.labels();
         if ( labels.length == 0 && labelIds.length != 0 )
@@ -83,7 +96,7 @@ public class NodeStoreScan<FAILURE extends Exception> extends PropertyAwareEntit
             // Notify the property update visitor
             EntityUpdates.Builder updates = EntityUpdates.forEntity( cursor.entityReference(), true ).withTokens( labels );
 
-            if ( hasRelevantProperty( cursor, updates ) )
+            if ( hasRelevantProperty( cursor, propertyCursor, updates ) )
             {
                 return propertyUpdatesVisitor.visit( updates.build() );
             }
@@ -21,18 +21,26 @@ package org.neo4j.kernel.impl.transaction.state.storeview;
 
 import org.apache.commons.lang3.ArrayUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.IntPredicate;
 import java.util.function.LongFunction;
 
+import org.neo4j.internal.helpers.Exceptions;
 import org.neo4j.internal.index.label.LabelScanStore;
 import org.neo4j.internal.index.label.RelationshipTypeScanStore;
 import org.neo4j.internal.kernel.api.PopulationProgress;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.api.index.MultipleIndexPopulator;
 import org.neo4j.kernel.impl.api.index.PhaseTracker;
 import org.neo4j.kernel.impl.api.index.StoreScan;
 import org.neo4j.lock.Lock;
 import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.JobHandle;
 import org.neo4j.storageengine.api.EntityUpdates;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
 import org.neo4j.storageengine.api.StorageEntityScanCursor;
@@ -48,28 +56,48 @@ import static org.neo4j.io.IOUtils.closeAllUnchecked;
  *
  * The {@link #entityCursor cursor} is placed on each record and then {@link #process(StorageEntityScanCursor) processed},
  * this is where we extract updates for indexes that we are populating.
+ * <p>
+ * If given {@link #setParallelism(int, PageCacheTracer, WorkerScheduler) parallelism} the scan is instead split into ranges of
+ * {@link #RANGE_SIZE} entity ids, given out in order to workers which each have cursors of their own, see
+ * {@link #getEntityIdIterator(StorageEntityScanCursor, PageCursorTracer, long, long)}.
+ * How far each worker has come is kept track of, such that {@link #acceptUpdate(MultipleIndexPopulator.MultipleIndexUpdater, IndexEntryUpdate, long)}
+ * can tell whether or not the scan has passed the entity of an update.
  *
  * @param <CURSOR> the type of cursor used to read the records.
  * @param <FAILURE> on failure during processing.
  */
 public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityScanCursor, FAILURE extends Exception> implements StoreScan<FAILURE>
 {
+    static final int RANGE_SIZE = 10_000;
+    private static final String SCAN_WORKER_TAG = "storeScanWorker";
+
     final CURSOR entityCursor;
+    final StorageReader storageReader;
     private final StoragePropertyCursor propertyCursor;
-    private final StorageReader storageReader;
+    private final MemoryTracker memoryTracker;
     private volatile boolean continueScanning;
-    private long count;
+    private final LongAdder count = new LongAdder();
     private final long totalCount;
     private final IntPredicate propertyKeyIdFilter;
     private final LongFunction<Lock> lockFunction;
     private PhaseTracker phaseTracker;
 
+    private int workers = 1;
+    private PageCacheTracer workerCacheTracer;
+    private WorkerScheduler workerScheduler;
+    // Set when scanning in parallel. Ranges are given out, and the scan is found exhausted, under the monitor of this scan
+    // and under the lock of the worker taking the range.
+    private volatile List<ScanWorker<CURSOR>> scanWorkers;
+    private long nextRangeStart;
+    private long exhaustedFrom = Long.MAX_VALUE;
+
     protected PropertyAwareEntityStoreScan( StorageReader storageReader, long totalEntityCount, IntPredicate propertyKeyIdFilter,
             LongFunction<Lock> lockFunction, PageCursorTracer cursorTracer, MemoryTracker memoryTracker )
     {
         this.storageReader = storageReader;
         this.entityCursor = allocateCursor( storageReader, cursorTracer );
         this.propertyCursor = storageReader.allocatePropertyCursor( cursorTracer, memoryTracker );
+        this.memoryTracker = memoryTracker;
         this.propertyKeyIdFilter = propertyKeyIdFilter;
         this.lockFunction = lockFunction;
         this.totalCount = totalEntityCount;
@@ -78,6 +106,16 @@ public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityS
 
     protected abstract CURSOR allocateCursor( StorageReader storageReader, PageCursorTracer cursorTracer );
 
+    /**
+     * Initializes {@code cursor} to scan the next batch of {@code size} entity ids of a batched scan over all entities,
+     * shared by all cursors given to this method. Batches are given out as consecutive ranges of ids, in the order of the calls.
+     *
+     * @param cursor cursor to initialize.
+     * @param size number of entity ids in the batch.
+     * @return {@code true} if there are entities in this or later batches, otherwise {@code false}.
+     */
+    protected abstract boolean scanBatch( CURSOR cursor, int size );
+
     static boolean containsAnyEntityToken( int[] entityTokenFilter, long... entityTokens )
     {
         for ( long candidate : entityTokens )
@@ -90,7 +128,7 @@ public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityS
         return false;
     }
 
-    boolean hasRelevantProperty( CURSOR cursor, EntityUpdates.Builder updates )
+    boolean hasRelevantProperty( CURSOR cursor, StoragePropertyCursor propertyCursor, EntityUpdates.Builder updates )
     {
         if ( !cursor.hasProperties() )
         {
@@ -118,17 +156,24 @@ public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityS
     @Override
     public void run() throws FAILURE
     {
+        continueScanning = true;
+        int workerCount = (int) Math.min( workers, totalCount / RANGE_SIZE );
+        if ( workerCount > 1 )
+        {
+            runInParallel( workerCount );
+            return;
+        }
+
         entityCursor.scan();
         try ( EntityIdIterator entityIdIterator = getEntityIdIterator() )
         {
-            continueScanning = true;
             while ( continueScanning && entityIdIterator.hasNext() )
             {
                 phaseTracker.enterPhase( PhaseTracker.Phase.SCAN );
                 long id = entityIdIterator.next();
                 try ( Lock ignored = lockFunction.apply( id ) )
                 {
-                    count++;
+                    count.increment();
                     if ( process( entityCursor ) )
                     {
                         entityIdIterator.invalidateCache();
@@ -142,13 +187,201 @@ public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityS
         }
     }
 
+    private void runInParallel( int workerCount ) throws FAILURE
+    {
+        List<ScanWorker<CURSOR>> scanWorkers = new ArrayList<>( workerCount );
+        for ( int i = 0; i < workerCount; i++ )
+        {
+            PageCursorTracer cursorTracer = workerCacheTracer.createPageCursorTracer( SCAN_WORKER_TAG );
+            scanWorkers.add( new ScanWorker<>( allocateCursor( storageReader, cursorTracer ),
+                    storageReader.allocatePropertyCursor( cursorTracer, memoryTracker ), cursorTracer ) );
+        }
+        this.scanWorkers = scanWorkers;
+
+        List<JobHandle<?>> handles = new ArrayList<>( workerCount - 1 );
+        Throwable failure = null;
+        try
+        {
+            for ( ScanWorker<CURSOR> worker : scanWorkers.subList( 1, workerCount ) )
+            {
+                handles.add( workerScheduler.schedule( () ->
+                {
+                    // Only the thread running the scan reports scan phases, the tracker is shared with the index populators
+                    scan( worker, PhaseTracker.nullInstance );
+                    return null;
+                } ) );
+            }
+            scan( scanWorkers.get( 0 ), phaseTracker );
+        }
+        catch ( Throwable t )
+        {
+            failure = t;
+        }
+        for ( JobHandle<?> handle : handles )
+        {
+            try
+            {
+                handle.waitTermination();
+            }
+            catch ( ExecutionException e )
+            {
+                failure = Exceptions.chain( failure, e.getCause() );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure = Exceptions.chain( failure, e );
+            }
+        }
+        closeAllUnchecked( propertyCursor, entityCursor, storageReader );
+        if ( failure != null )
+        {
+            throwFailure( failure );
+        }
+    }
+
+    private void scan( ScanWorker<CURSOR> worker, PhaseTracker phaseTracker ) throws FAILURE
+    {
+        try
+        {
+            EntityIdIterator range;
+            while ( continueScanning && (range = nextRange( worker )) != null )
+            {
+                try ( EntityIdIterator entityIdIterator = range )
+                {
+                    while ( continueScanning && entityIdIterator.hasNext() )
+                    {
+                        phaseTracker.enterPhase( PhaseTracker.Phase.SCAN );
+                        long id = entityIdIterator.next();
+                        try ( Lock ignored = lockFunction.apply( id ) )
+                        {
+                            count.increment();
+                            // External updates are applied by looking at how far the workers have come, rather than by the entity of the
+                            // worker applying them, which means that there are no caches in the entity id iterator to invalidate here
+                            process( worker.entityCursor, worker.propertyCursor );
+                            worker.scanned( id );
+                        }
+                    }
+                }
+            }
+        }
+        catch ( Throwable t )
+        {
+            continueScanning = false;
+            throw t;
+        }
+        finally
+        {
+            closeAllUnchecked( worker.propertyCursor, worker.entityCursor, worker.cursorTracer );
+        }
+    }
+
+    private EntityIdIterator nextRange( ScanWorker<CURSOR> worker )
+    {
+        worker.lock.lock();
+        try
+        {
+            worker.setRange( -1, -1 );
+            synchronized ( this )
+            {
+                if ( nextRangeStart >= exhaustedFrom )
+                {
+                    return null;
+                }
+                long start = nextRangeStart;
+                nextRangeStart += RANGE_SIZE;
+                EntityIdIterator entityIdIterator = getEntityIdIterator( worker.entityCursor, worker.cursorTracer, start, start + RANGE_SIZE );
+                if ( entityIdIterator == null )
+                {
+                    exhaustedFrom = start;
+                    return null;
+                }
+                worker.setRange( start, start + RANGE_SIZE );
+                return entityIdIterator;
+            }
+        }
+        finally
+        {
+            worker.lock.unlock();
+        }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void throwFailure( Throwable failure ) throws FAILURE
+    {
+        if ( failure instanceof RuntimeException )
+        {
+            throw (RuntimeException) failure;
+        }
+        if ( failure instanceof Error )
+        {
+            throw (Error) failure;
+        }
+        throw (FAILURE) failure;
+    }
+
     @Override
-    public void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update,
+    public boolean acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update,
             long currentlyIndexedNodeId )
     {
-        if ( update.getEntityId() <= currentlyIndexedNodeId )
+        long id = update.getEntityId();
+        List<ScanWorker<CURSOR>> scanWorkers = this.scanWorkers;
+        if ( scanWorkers == null )
         {
-            updater.process( update );
+            if ( id <= currentlyIndexedNodeId )
+            {
+                updater.process( update );
+            }
+            return true;
+        }
+
+        // How far the workers have come can't change here, see applyUpdatesAtFixedPosition
+        if ( id < exhaustedFrom )
+        {
+            for ( ScanWorker<CURSOR> worker : scanWorkers )
+            {
+                if ( worker.rangeStart <= id && id < worker.rangeEnd )
+                {
+                    if ( id > worker.position )
+                    {
+                        // The worker may or may not see the latest state of this entity, depending on what it has already read ahead.
+                        // Wait with this update until the worker has passed it.
+                        return false;
+                    }
+                    updater.process( update );
+                    return true;
+                }
+            }
+            if ( id >= nextRangeStart )
+            {
+                // The range of this entity has yet to be given out and will see the latest state of it
+                return true;
+            }
+        }
+        updater.process( update );
+        return true;
+    }
+
+    @Override
+    public void applyUpdatesAtFixedPosition( Runnable applyUpdates )
+    {
+        List<ScanWorker<CURSOR>> scanWorkers = this.scanWorkers;
+        if ( scanWorkers == null )
+        {
+            applyUpdates.run();
+            return;
+        }
+        // Workers pass entities, and take new ranges, while holding their own lock, so holding all of them keeps the scan where it is.
+        // Entities which a worker has passed have been processed too, so their updates are flushed by applyUpdates before any
+        // external updates are applied.
+        scanWorkers.forEach( worker -> worker.lock.lock() );
+        try
+        {
+            applyUpdates.run();
+        }
+        finally
+        {
+            scanWorkers.forEach( worker -> worker.lock.unlock() );
         }
     }
 
@@ -160,7 +393,21 @@ public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityS
      * i.e. invalidate any caches if it has any.
      * @throws FAILURE on failure.
      */
-    protected abstract boolean process( CURSOR cursor ) throws FAILURE;
+    protected boolean process( CURSOR cursor ) throws FAILURE
+    {
+        return process( cursor, propertyCursor );
+    }
+
+    /**
+     * Process the given {@code record}, reading its properties using {@code propertyCursor}.
+     *
+     * @param cursor CURSOR with information to process.
+     * @param propertyCursor cursor for reading properties of the record.
+     * @return {@code true} if external updates have been applied such that the scan iterator needs to be 100% up to date with store,
+     * i.e. invalidate any caches if it has any.
+     * @throws FAILURE on failure.
+     */
+    protected abstract boolean process( CURSOR cursor, StoragePropertyCursor propertyCursor ) throws FAILURE;
 
     @Override
     public void stop()
@@ -173,7 +420,7 @@ public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityS
     {
         if ( totalCount > 0 )
         {
-            return PopulationProgress.single( count, totalCount );
+            return PopulationProgress.single( count.sum(), totalCount );
         }
 
         // nothing to do 100% completed
@@ -186,47 +433,117 @@ public abstract class PropertyAwareEntityStoreScan<CURSOR extends StorageEntityS
         this.phaseTracker = phaseTracker;
     }
 
+    @Override
+    public void setParallelism( int workers, PageCacheTracer pageCacheTracer, WorkerScheduler workerScheduler )
+    {
+        this.workers = workers;
+        this.workerCacheTracer = pageCacheTracer;
+        this.workerScheduler = workerScheduler;
+    }
+
     protected EntityIdIterator getEntityIdIterator()
     {
-        return new EntityIdIterator()
+        return new CursorEntityIdIterator<>( entityCursor );
+    }
+
+    /**
+     * Called in order of ranges when scanning in parallel, to get the ids of the entities in the range from {@code fromId}, inclusive,
+     * to {@code toId}, exclusive. The ids are read into {@code cursor}.
+     *
+     * @param cursor cursor of the worker which is to scan the range.
+     * @param cursorTracer page cursor tracer of the worker which is to scan the range.
+     * @param fromId first entity id of the range.
+     * @param toId entity id after the last one of the range.
+     * @return iterator over the entities in the range, or {@code null} if there are no entities in this or any later range.
+     */
+    protected EntityIdIterator getEntityIdIterator( CURSOR cursor, PageCursorTracer cursorTracer, long fromId, long toId )
+    {
+        return scanBatch( cursor, Math.toIntExact( toId - fromId ) ) ? new CursorEntityIdIterator<>( cursor ) : null;
+    }
+
+    private static class CursorEntityIdIterator<CURSOR extends StorageEntityScanCursor> implements EntityIdIterator
+    {
+        private final CURSOR entityCursor;
+        private boolean hasSeenNext;
+        private boolean hasNext;
+
+        CursorEntityIdIterator( CURSOR entityCursor )
         {
-            private boolean hasSeenNext;
-            private boolean hasNext;
+            this.entityCursor = entityCursor;
+        }
 
-            @Override
-            public void invalidateCache()
+        @Override
+        public void invalidateCache()
+        {
+            // Nothing to invalidate, we're reading directly from the store
+        }
+
+        @Override
+        public long next()
+        {
+            if ( !hasNext() )
             {
-                // Nothing to invalidate, we're reading directly from the store
+                throw new IllegalStateException();
             }
+            hasSeenNext = false;
+            hasNext = false;
+            return entityCursor.entityReference();
+        }
 
-            @Override
-            public long next()
+        @Override
+        public boolean hasNext()
+        {
+            if ( !hasSeenNext )
             {
-                if ( !hasNext() )
-                {
-                    throw new IllegalStateException();
-                }
-                hasSeenNext = false;
-                hasNext = false;
-                return entityCursor.entityReference();
+                hasNext = entityCursor.next();
+                hasSeenNext = true;
             }
+            return hasNext;
+        }
+
+        @Override
+        public void close()
+        {
+            // Nothing to close
+        }
+    }
+
+    private static class ScanWorker<CURSOR extends StorageEntityScanCursor>
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final CURSOR entityCursor;
+        private final StoragePropertyCursor propertyCursor;
+        private final PageCursorTracer cursorTracer;
+        // Range the worker is scanning and the last entity in it which the worker has passed, only changed while holding the lock
+        private long rangeStart = -1;
+        private long rangeEnd = -1;
+        private long position = -1;
+
+        ScanWorker( CURSOR entityCursor, StoragePropertyCursor propertyCursor, PageCursorTracer cursorTracer )
+        {
+            this.entityCursor = entityCursor;
+            this.propertyCursor = propertyCursor;
+            this.cursorTracer = cursorTracer;
+        }
 
-            @Override
-            public boolean hasNext()
+        void setRange( long start, long end )
+        {
+            rangeStart = start;
+            rangeEnd = end;
+            position = start - 1;
+        }
+
+        void scanned( long id )
+        {
+            lock.lock();
+            try
             {
-                if ( !hasSeenNext )
-                {
-                     hasNext = entityCursor.next();
-                     hasSeenNext = true;
-                }
-                return hasNext;
+                position = id;
             }
-
-            @Override
-            public void close()
+            finally
             {
-                // Nothing to close
+                lock.unlock();
             }
-        };
+        }
     }
 }
@@ -26,8 +26,10 @@ import org.neo4j.internal.helpers.collection.Visitor;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.lock.LockService;
 import org.neo4j.memory.MemoryTracker;
+import org.neo4j.storageengine.api.AllRelationshipsScan;
 import org.neo4j.storageengine.api.EntityTokenUpdate;
 import org.neo4j.storageengine.api.EntityUpdates;
+import org.neo4j.storageengine.api.StoragePropertyCursor;
 import org.neo4j.storageengine.api.StorageReader;
 import org.neo4j.storageengine.api.StorageRelationshipScanCursor;
 
@@ -43,6 +45,7 @@ public class RelationshipStoreScan<FAILURE extends Exception> extends PropertyAw
     private final Visitor<EntityTokenUpdate,FAILURE> relationshipTypeUpdateVisitor;
     final int[] relationshipTypeIds;
     private final Visitor<EntityUpdates,FAILURE> propertyUpdatesVisitor;
+    private AllRelationshipsScan allRelationshipsScan;
 
     public RelationshipStoreScan( StorageReader storageReader, LockService locks,
             @Nullable Visitor<EntityTokenUpdate,FAILURE> relationshipTypeUpdateVisitor,
@@ -63,7 +66,17 @@ public class RelationshipStoreScan<FAILURE extends Exception> extends PropertyAw
     }
 
     @Override
-    protected boolean process( StorageRelationshipScanCursor cursor ) throws FAILURE
+    protected boolean scanBatch( StorageRelationshipScanCursor cursor, int size )
+    {
+        if ( allRelationshipsScan == null )
+        {
+            allRelationshipsScan = storageReader.allRelationshipScan();
+        }
+        return cursor.scanBatch( allRelationshipsScan, size );
+    }
+
+    @Override
+    protected boolean process( StorageRelationshipScanCursor cursor, StoragePropertyCursor propertyCursor ) throws FAILURE
     {
         int relType = cursor.type();
 
@@ -77,7 +90,7 @@ public class RelationshipStoreScan<FAILURE extends Exception> extends PropertyAw
             // Notify the property update visitor
             EntityUpdates.Builder updates = EntityUpdates.forEntity( cursor.entityReference(), true ).withTokens( relType );
 
-            if ( hasRelevantProperty( cursor, updates ) )
+            if ( hasRelevantProperty( cursor, propertyCursor, updates ) )
             {
                 return propertyUpdatesVisitor.visit( updates.build() );
             }
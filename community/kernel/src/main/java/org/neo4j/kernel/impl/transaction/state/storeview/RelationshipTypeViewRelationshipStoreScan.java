@@ -30,6 +30,7 @@ import org.neo4j.memory.MemoryTracker;
 import org.neo4j.storageengine.api.EntityTokenUpdate;
 import org.neo4j.storageengine.api.EntityUpdates;
 import org.neo4j.storageengine.api.StorageReader;
+import org.neo4j.storageengine.api.StorageRelationshipScanCursor;
 
 public class RelationshipTypeViewRelationshipStoreScan<FAILURE extends Exception> extends RelationshipStoreScan<FAILURE>
 {
@@ -53,4 +54,10 @@ public class RelationshipTypeViewRelationshipStoreScan<FAILURE extends Exception
     {
         return new TokenScanViewIdIterator<>( relationshipTypeScanStore.newReader(), relationshipTypeIds, entityCursor, cursorTracer );
     }
+
+    @Override
+    protected EntityIdIterator getEntityIdIterator( StorageRelationshipScanCursor cursor, PageCursorTracer cursorTracer, long fromId, long toId )
+    {
+        return TokenScanViewIdIterator.rangeIterator( relationshipTypeScanStore.newReader(), relationshipTypeIds, cursor, cursorTracer, fromId, toId );
+    }
 }
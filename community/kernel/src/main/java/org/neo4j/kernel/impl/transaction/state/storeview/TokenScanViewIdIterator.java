@@ -19,11 +19,15 @@
  */
 package org.neo4j.kernel.impl.transaction.state.storeview;
 
+import java.util.NoSuchElementException;
+
 import org.neo4j.collection.PrimitiveLongResourceIterator;
 import org.neo4j.internal.index.label.TokenScanReader;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.storageengine.api.StorageEntityScanCursor;
 
+import static org.neo4j.internal.index.label.TokenScanReader.NO_ID;
+
 /**
  * Entity id iterator used during index population when we go over entity ids indexed in a token scan store.
  */
@@ -34,16 +38,44 @@ class TokenScanViewIdIterator<CURSOR extends StorageEntityScanCursor> implements
     private final CURSOR entityCursor;
     private final PageCursorTracer cursorTracer;
 
+    private final long toId;
+
     private PrimitiveLongResourceIterator idIterator;
-    private long lastReturnedId = -1;
+    private long nextId = NO_ID;
+    private long lastReturnedId = NO_ID;
 
     TokenScanViewIdIterator( TokenScanReader tokenScanReader, int[] tokenIds, CURSOR entityCursor, PageCursorTracer cursorTracer )
+    {
+        this( tokenScanReader, tokenIds, entityCursor, cursorTracer, tokenScanReader.entitiesWithAnyOfTokens( tokenIds, cursorTracer ), Long.MAX_VALUE );
+    }
+
+    private TokenScanViewIdIterator( TokenScanReader tokenScanReader, int[] tokenIds, CURSOR entityCursor, PageCursorTracer cursorTracer,
+            PrimitiveLongResourceIterator idIterator, long toId )
     {
         this.tokenScanReader = tokenScanReader;
         this.entityCursor = entityCursor;
         this.cursorTracer = cursorTracer;
-        this.idIterator = tokenScanReader.entitiesWithAnyOfTokens( tokenIds, cursorTracer );
+        this.idIterator = idIterator;
         this.tokenIds = tokenIds;
+        this.toId = toId;
+    }
+
+    /**
+     * @return iterator over the entities with any of the given tokens from {@code fromId}, inclusive, to {@code toId}, exclusive,
+     * or {@code null} if there are no such entities from {@code fromId} and on.
+     */
+    static <CURSOR extends StorageEntityScanCursor> EntityIdIterator rangeIterator( TokenScanReader tokenScanReader, int[] tokenIds,
+            CURSOR entityCursor, PageCursorTracer cursorTracer, long fromId, long toId )
+    {
+        // The id to seek from is exclusive
+        PrimitiveLongResourceIterator idIterator = tokenScanReader.entitiesWithAnyOfTokens( fromId - 1, tokenIds, cursorTracer );
+        TokenScanViewIdIterator<CURSOR> iterator = new TokenScanViewIdIterator<>( tokenScanReader, tokenIds, entityCursor, cursorTracer, idIterator, toId );
+        if ( !iterator.peek() )
+        {
+            iterator.close();
+            return null;
+        }
+        return iterator;
     }
 
     @Override
@@ -55,13 +87,18 @@ class TokenScanViewIdIterator<CURSOR extends StorageEntityScanCursor> implements
     @Override
     public boolean hasNext()
     {
-        return idIterator.hasNext();
+        return peek() && nextId < toId;
     }
 
     @Override
     public long next()
     {
-        long next = idIterator.next();
+        if ( !hasNext() )
+        {
+            throw new NoSuchElementException();
+        }
+        long next = nextId;
+        nextId = NO_ID;
         entityCursor.single( next );
         entityCursor.next();
         lastReturnedId = next;
@@ -72,6 +109,16 @@ class TokenScanViewIdIterator<CURSOR extends StorageEntityScanCursor> implements
     public void invalidateCache()
     {
         this.idIterator.close();
+        this.nextId = NO_ID;
         this.idIterator = tokenScanReader.entitiesWithAnyOfTokens( lastReturnedId, tokenIds, cursorTracer );
     }
+
+    private boolean peek()
+    {
+        if ( nextId == NO_ID && idIterator.hasNext() )
+        {
+            nextId = idIterator.next();
+        }
+        return nextId != NO_ID;
+    }
 }
@@ -38,4 +38,17 @@ public interface CheckpointCounters
      * @return last checkpoint duration in milliseconds
      */
     long lastCheckpointTimeMillis();
+
+    /**
+     * Total number of indexes forced as part of checkpoints
+     * @return number of index forces
+     */
+    long numberOfIndexForces();
+
+    /**
+     * Accumulated duration in milliseconds of forcing each index as part of checkpoints.
+     * Indexes are forced concurrently, so this can be greater than the time the checkpoints took
+     * @return accumulated index force duration in milliseconds
+     */
+    long indexForceAccumulatedTotalTimeMillis();
 }
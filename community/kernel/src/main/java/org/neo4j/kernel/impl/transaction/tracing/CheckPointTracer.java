@@ -48,6 +48,18 @@ public interface CheckPointTracer extends CheckpointCounters
         {
             return 0;
         }
+
+        @Override
+        public long numberOfIndexForces()
+        {
+            return 0;
+        }
+
+        @Override
+        public long indexForceAccumulatedTotalTimeMillis()
+        {
+            return 0;
+        }
     };
 
     /**
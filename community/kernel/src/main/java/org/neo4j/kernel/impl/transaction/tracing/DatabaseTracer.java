@@ -43,6 +43,18 @@ public interface DatabaseTracer extends TransactionTracer, CheckPointTracer
             return 0;
         }
 
+        @Override
+        public long numberOfIndexForces()
+        {
+            return 0;
+        }
+
+        @Override
+        public long indexForceAccumulatedTotalTimeMillis()
+        {
+            return 0;
+        }
+
         @Override
         public LogFileCreateEvent createLogFile()
         {
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.tracing;
+
+import org.neo4j.internal.schema.IndexDescriptor;
+
+public interface IndexForceEvents
+{
+    IndexForceEvents NULL = ( index, forceMillis ) ->
+    {
+    };
+
+    /**
+     * Notify about an index having been forced, as part of forcing all indexes, which took {@code forceMillis} to complete.
+     * Indexes may be forced concurrently, so this can be called from several threads at the same time.
+     * @param index the index which was forced.
+     * @param forceMillis force duration.
+     */
+    void indexForced( IndexDescriptor index, long forceMillis );
+}
@@ -19,12 +19,13 @@
  */
 package org.neo4j.kernel.impl.transaction.tracing;
 
+import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 
 /**
  * Represents the process of appending a check point to the transaction log.
  */
-public interface LogCheckPointEvent extends LogForceEvents, LogRotateEvents, AutoCloseable
+public interface LogCheckPointEvent extends LogForceEvents, LogRotateEvents, IndexForceEvents, AutoCloseable
 {
     LogCheckPointEvent NULL = new LogCheckPointEvent()
     {
@@ -46,6 +47,11 @@ public interface LogCheckPointEvent extends LogForceEvents, LogRotateEvents, Aut
             return LogForceEvent.NULL;
         }
 
+        @Override
+        public void indexForced( IndexDescriptor index, long forceMillis )
+        {
+        }
+
         @Override
         public void checkpointCompleted( long checkpointMillis )
         {
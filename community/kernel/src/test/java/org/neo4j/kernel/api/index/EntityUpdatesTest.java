@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.neo4j.common.EntityType;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.IndexPrototype;
 import org.neo4j.internal.schema.LabelSchemaDescriptor;
 import org.neo4j.internal.schema.SchemaDescriptor;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
@@ -71,6 +73,8 @@ class EntityUpdatesTest
     private static final LabelSchemaDescriptor index3 = SchemaDescriptor.forLabel( labelId1, propertyKeyId3 );
     private static final LabelSchemaDescriptor index123 = SchemaDescriptor.forLabel( labelId1, propertyKeyId1, propertyKeyId2, propertyKeyId3 );
     private static final List<LabelSchemaDescriptor> indexes = Arrays.asList( index1, index2, index3, index123 );
+    private static final IndexDescriptor index1Including2 =
+            IndexPrototype.forSchema( index1 ).withName( "index1Including2" ).materialise( 1 ).withIncludedPropertyIds( propertyKeyId2 );
     private static final SchemaDescriptor nonSchemaIndex = SchemaDescriptor.fulltext( EntityType.NODE, new int[]{labelId1, labelId2},
             new int[]{propertyKeyId1, propertyKeyId2, propertyKeyId3} );
 
@@ -507,6 +511,43 @@ class EntityUpdatesTest
                 .contains( IndexEntryUpdate.remove( nodeId, nonSchemaIndex, values123 ) );
     }
 
+    @Test
+    void shouldGenerateChangeWhenOnlyIncludedPropertyChanges()
+    {
+        // When
+        EntityUpdates updates = EntityUpdates.forEntity( nodeId, false ).withTokens( label )
+                .changed( propertyKeyId2, Values.of( 100L ), Values.of( 200L ) )
+                .build();
+
+        // Then
+        assertThat( updates.forIndexKeys( singleton( index1Including2 ), propertyLoader( property1 ), EntityType.NODE, NULL, INSTANCE ) )
+                .containsExactly( IndexEntryUpdate.change( nodeId, index1Including2, property1.value(), property1.value() )
+                        .withIncludedValues( Values.of( 200L ) ) );
+    }
+
+    @Test
+    void shouldNotGenerateUpdateForIncludedPropertyChangeOfEntityNotInIndex()
+    {
+        // When
+        EntityUpdates updates = EntityUpdates.forEntity( nodeId, false ).withTokens( label )
+                .changed( propertyKeyId2, Values.of( 100L ), Values.of( 200L ) )
+                .build();
+
+        // Then
+        assertThat( updates.forIndexKeys( singleton( index1Including2 ), propertyLoader(), EntityType.NODE, NULL, INSTANCE ) ).isEmpty();
+    }
+
+    @Test
+    void shouldIncludeNoValueForMissingIncludedProperty()
+    {
+        // When
+        EntityUpdates updates = EntityUpdates.forEntity( nodeId, false ).withTokens( empty ).withTokensAfter( label ).build();
+
+        // Then
+        assertThat( updates.forIndexKeys( singleton( index1Including2 ), propertyLoader( property1 ), EntityType.NODE, NULL, INSTANCE ) )
+                .containsExactly( IndexEntryUpdate.add( nodeId, index1Including2, property1.value() ).withIncludedValues( Values.NO_VALUE ) );
+    }
+
     private static StorageReader propertyLoader( StorageProperty... properties )
     {
         StubStorageCursors stub = new StubStorageCursors();
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.internal.index.label.LabelScanStore;
+import org.neo4j.internal.index.label.RelationshipTypeScanStore;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.logging.NullLog;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.time.Clocks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_compaction_interval;
+
+class IndexCompactionTest
+{
+    private final IndexingService indexingService = mock( IndexingService.class );
+    private final LabelScanStore labelScanStore = mock( LabelScanStore.class );
+    private final RelationshipTypeScanStore relationshipTypeScanStore = mock( RelationshipTypeScanStore.class );
+    private final JobScheduler scheduler = mock( JobScheduler.class );
+
+    @Test
+    void shouldCompactIndexesAndTokenScanStores() throws Exception
+    {
+        when( indexingService.compactAll( eq( 0.3 ), any(), any() ) ).thenReturn( 2 );
+        when( labelScanStore.compact( eq( 0.3 ), any(), any() ) ).thenReturn( true );
+        when( relationshipTypeScanStore.compact( eq( 0.3 ), any(), any() ) ).thenReturn( false );
+
+        assertThat( indexCompaction( Config.defaults(), false ).compact( 0.3 ) ).isEqualTo( 3 );
+    }
+
+    @Test
+    void shouldNotScheduleCompactionByDefault()
+    {
+        indexCompaction( Config.defaults(), false ).start();
+
+        verifyNoInteractions( scheduler );
+    }
+
+    @Test
+    void shouldScheduleCompactionAtConfiguredInterval()
+    {
+        indexCompaction( Config.defaults( index_compaction_interval, Duration.ofMinutes( 10 ) ), false ).start();
+
+        verify( scheduler ).scheduleRecurring( eq( Group.INDEX_COMPACTION ), any(), any(), eq( Duration.ofMinutes( 10 ).toMillis() ),
+                eq( Duration.ofMinutes( 10 ).toMillis() ), any() );
+    }
+
+    @Test
+    void shouldNotScheduleCompactionOfReadOnlyDatabase()
+    {
+        indexCompaction( Config.defaults( index_compaction_interval, Duration.ofMinutes( 10 ) ), true ).start();
+
+        verifyNoInteractions( scheduler );
+    }
+
+    private IndexCompaction indexCompaction( Config config, boolean readOnly )
+    {
+        return new IndexCompaction( indexingService, labelScanStore, relationshipTypeScanStore, IOLimiter.UNLIMITED, PageCacheTracer.NULL, scheduler,
+                config, "neo4j", Clocks.nanoClock(), NullLog.getInstance(), readOnly );
+    }
+}
@@ -181,6 +181,43 @@ class KernelTransactionImplementationTest extends KernelTransactionTestBase
         verifyExtraInteractionWithTheMonitor( transactionMonitor, isWriteTx );
     }
 
+    @ParameterizedTest
+    @MethodSource( "parameters" )
+    void shouldResetCommandCreationContextOnCommit( String name, boolean isWriteTx, Consumer<KernelTransaction> transactionInitializer ) throws Exception
+    {
+        // GIVEN
+        try ( KernelTransaction transaction = newTransaction( loginContext( isWriteTx ) ) )
+        {
+            transactionInitializer.accept( transaction );
+            verify( commandCreationContext, never() ).reset();
+
+            // WHEN
+            transaction.commit();
+        }
+
+        // THEN
+        verify( commandCreationContext ).reset();
+        verify( commandCreationContext, never() ).close();
+    }
+
+    @ParameterizedTest
+    @MethodSource( "parameters" )
+    void shouldResetCommandCreationContextOnRollback( String name, boolean isWriteTx, Consumer<KernelTransaction> transactionInitializer ) throws Exception
+    {
+        // GIVEN
+        try ( KernelTransaction transaction = newTransaction( loginContext( isWriteTx ) ) )
+        {
+            transactionInitializer.accept( transaction );
+
+            // WHEN
+            transaction.rollback();
+        }
+
+        // THEN
+        verify( commandCreationContext ).reset();
+        verify( commandCreationContext, never() ).close();
+    }
+
     @ParameterizedTest
     @MethodSource( "parameters" )
     void shouldRollbackFailedTransaction( String name, boolean isWriteTx, Consumer<KernelTransaction> transactionInitializer ) throws Exception
@@ -148,12 +148,13 @@ class IndexPopulationTest
                     }
 
                     @Override
-                    public void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate update, long currentlyIndexedNodeId )
+                    public boolean acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate update, long currentlyIndexedNodeId )
                     {
                         if ( update.getEntityId() <= currentlyIndexedNodeId )
                         {
                             updater.process( update );
                         }
+                        return true;
                     }
 
                     @Override
@@ -65,6 +65,12 @@ public class IndexProxyAdapter implements IndexProxy
     {
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter ioLimiter, PageCursorTracer cursorTracer )
+    {
+        return false;
+    }
+
     @Override
     public void refresh()
     {
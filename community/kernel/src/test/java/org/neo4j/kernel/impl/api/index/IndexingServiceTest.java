@@ -38,6 +38,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -1225,6 +1227,7 @@ class IndexingServiceTest
         } ).when( deletedIndexProxy ).force( any( IOLimiter.class ), any( PageCursorTracer.class ) );
 
         IndexingService indexingService = createIndexServiceWithCustomIndexMap( indexMapReference );
+        life.start();
 
         indexingService.forceAll( IOLimiter.UNLIMITED, NULL );
         verify( validIndex1 ).force( IOLimiter.UNLIMITED, NULL );
@@ -1252,12 +1255,36 @@ class IndexingServiceTest
         } );
 
         IndexingService indexingService = createIndexServiceWithCustomIndexMap( indexMapReference );
+        life.start();
 
         var e = assertThrows( UnderlyingStorageException.class,
                 () -> indexingService.forceAll( IOLimiter.UNLIMITED, NULL ) );
         assertThat( e.getMessage() ).startsWith( "Unable to force" );
     }
 
+    @Test
+    void forceAllShouldReportForceOfEveryIndex() throws IOException
+    {
+        IndexMapReference indexMapReference = new IndexMapReference();
+        IndexProxy index1 = createIndexProxyMock( 1 );
+        IndexProxy index2 = createIndexProxyMock( 2 );
+        IndexProxy index3 = createIndexProxyMock( 3 );
+        indexMapReference.modify( indexMap ->
+        {
+            indexMap.putIndexProxy( index1 );
+            indexMap.putIndexProxy( index2 );
+            indexMap.putIndexProxy( index3 );
+            return indexMap;
+        } );
+        IndexingService indexingService = createIndexServiceWithCustomIndexMap( indexMapReference );
+        life.start();
+
+        Set<IndexDescriptor> forcedIndexes = ConcurrentHashMap.newKeySet();
+        indexingService.forceAll( IOLimiter.UNLIMITED, NULL, ( index, forceMillis ) -> forcedIndexes.add( index ) );
+
+        assertThat( forcedIndexes ).containsExactlyInAnyOrder( index1.getDescriptor(), index2.getDescriptor(), index3.getDescriptor() );
+    }
+
     @Test
     void shouldRefreshIndexesOnStart() throws Exception
     {
@@ -1545,9 +1572,9 @@ class IndexingServiceTest
                 }
 
                 @Override
-                public void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
+                public boolean acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update, long currentlyIndexedNodeId )
                 {
-                    // no-op
+                    return true;
                 }
 
                 @Override
@@ -1632,7 +1659,7 @@ class IndexingServiceTest
         return new IndexingService( mock( IndexProxyCreator.class ), mock( IndexProviderMap.class ),
                 indexMapReference, mock( IndexStoreView.class ), Collections.emptyList(),
                 mock( IndexSamplingController.class ), nameLookup,
-                mock( JobScheduler.class ), mock( SchemaState.class ),
+                life.add( scheduler ), mock( SchemaState.class ),
                 internalLogProvider, userLogProvider, IndexingService.NO_MONITOR, mock( IndexStatisticsStore.class ), PageCacheTracer.NULL, INSTANCE, "",
                 false );
     }
@@ -25,9 +25,15 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
+import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
 
 class GenericLayoutTest
 {
@@ -47,4 +53,106 @@ class GenericLayoutTest
                                     "firstSlotCount=%s, secondSlotCount=%s.", previous, i ) );
         }
     }
+
+    @Test
+    void shouldHaveSameFilterHashForValuesWhichAreEqualInIndex()
+    {
+        GenericLayout layout = new GenericLayout( 1, spatialSettings, true );
+
+        assertThat( layout.filterHash( key( layout, 1, Values.intValue( 10 ) ) ) )
+                .isEqualTo( layout.filterHash( key( layout, 2, Values.doubleValue( 10.0 ) ) ) )
+                .isEqualTo( layout.filterHash( key( layout, 3, Values.longValue( 10 ) ) ) );
+        assertThat( layout.filterHash( key( layout, 1, Values.longArray( new long[]{1, 2} ) ) ) )
+                .isEqualTo( layout.filterHash( key( layout, 2, Values.floatArray( new float[]{1f, 2f} ) ) ) );
+        assertThat( layout.filterHash( key( layout, 1, Values.stringValue( "a" ) ) ) )
+                .isEqualTo( layout.filterHash( key( layout, 2, Values.charValue( 'a' ) ) ) );
+        assertThat( layout.filterHash( key( layout, 1, Values.stringArray( "a", "b" ) ) ) )
+                .isEqualTo( layout.filterHash( key( layout, 2, Values.charArray( new char[]{'a', 'b'} ) ) ) );
+        assertThat( layout.filterHash( key( layout, 1, Values.intValue( 10 ) ) ) )
+                .isNotEqualTo( layout.filterHash( key( layout, 1, Values.doubleValue( 10.5 ) ) ) );
+    }
+
+    @Test
+    void shouldOnlyConsiderSeeksForExactValuesAsFilterKeyLookups()
+    {
+        GenericLayout layout = new GenericLayout( 2, spatialSettings, true );
+
+        GenericKey exactFrom = key( layout, Long.MIN_VALUE, Values.intValue( 1 ), Values.stringValue( "a" ) );
+        GenericKey exactTo = key( layout, Long.MAX_VALUE, Values.intValue( 1 ), Values.stringValue( "a" ) );
+        assertThat( layout.isFilterKeyLookup( exactFrom, exactTo ) ).isTrue();
+
+        GenericKey otherTo = key( layout, Long.MAX_VALUE, Values.intValue( 1 ), Values.stringValue( "b" ) );
+        assertThat( layout.isFilterKeyLookup( exactFrom, otherTo ) ).isFalse();
+
+        GenericKey rangeFrom = key( layout, Long.MIN_VALUE, Values.intValue( 1 ) );
+        rangeFrom.initValueAsLowest( 1, Values.stringValue( "a" ).valueGroup() );
+        GenericKey rangeTo = key( layout, Long.MAX_VALUE, Values.intValue( 1 ) );
+        rangeTo.initValueAsLowest( 1, Values.stringValue( "a" ).valueGroup() );
+        assertThat( layout.isFilterKeyLookup( rangeFrom, rangeTo ) ).isFalse();
+    }
+
+    @Test
+    void shouldHaveDifferentIdentifierWithIncludedProperties()
+    {
+        assertThat( new GenericLayout( 1, 1, spatialSettings, false ).identifier() )
+                .isNotEqualTo( new GenericLayout( 1, spatialSettings ).identifier() )
+                .isNotEqualTo( new GenericLayout( 1, 2, spatialSettings, false ).identifier() )
+                .isNotEqualTo( new GenericLayout( 2, 1, spatialSettings, false ).identifier() );
+    }
+
+    @Test
+    void shouldWriteAndReadIncludedValues()
+    {
+        GenericLayout layout = new GenericLayout( 1, 3, spatialSettings, false );
+        NativeIndexValue value = layout.newValue();
+        value.include( Values.stringValue( "Neo" ), Values.NO_VALUE, Values.longArray( new long[]{1, 2, 3} ) );
+        PageCursor cursor = ByteArrayPageCursor.wrap( 1000 );
+
+        layout.writeValue( cursor, value );
+        int size = cursor.getOffset();
+        cursor.setOffset( 0 );
+        NativeIndexValue read = layout.newValue();
+        layout.readValue( cursor, read, size );
+
+        assertThat( size ).isEqualTo( layout.valueSize( value ) );
+        assertThat( ((CoveringIndexValue) read).includedValues() )
+                .containsExactly( Values.stringValue( "Neo" ), Values.NO_VALUE, Values.longArray( new long[]{1, 2, 3} ) );
+        assertThat( read.sameAs( value ) ).isTrue();
+    }
+
+    @Test
+    void shouldNotStoreIncludedValuesTooBigForTheEntry()
+    {
+        GenericLayout layout = new GenericLayout( 1, 2, spatialSettings, false );
+        NativeIndexValue value = layout.newValue();
+        value.include( Values.stringValue( "a".repeat( CoveringIndexValue.MAX_INCLUDED_VALUE_SIZE ) ), Values.intValue( 1 ) );
+
+        assertThat( ((CoveringIndexValue) value).includedValues() ).containsExactly( null, Values.intValue( 1 ) );
+        assertThat( layout.valueSize( value ) ).isLessThanOrEqualTo( layout.maxValueSize() );
+    }
+
+    @Test
+    void shouldCopyIncludedValues()
+    {
+        GenericLayout layout = new GenericLayout( 1, 1, spatialSettings, false );
+        NativeIndexValue value = layout.newValue();
+        value.include( Values.stringValue( "before" ) );
+        NativeIndexValue copy = layout.copyValue( value );
+
+        value.include( Values.stringValue( "after" ) );
+
+        assertThat( ((CoveringIndexValue) copy).includedValues() ).containsExactly( Values.stringValue( "before" ) );
+        assertThat( copy.sameAs( value ) ).isFalse();
+    }
+
+    private static GenericKey key( GenericLayout layout, long entityId, Value... values )
+    {
+        GenericKey key = layout.newKey();
+        key.initialize( entityId );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            key.initFromValue( i, values[i], NEUTRAL );
+        }
+        return key;
+    }
 }
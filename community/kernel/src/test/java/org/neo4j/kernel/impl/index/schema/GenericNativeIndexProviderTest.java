@@ -21,29 +21,49 @@ package org.neo4j.kernel.impl.index.schema;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.GBPTreeBuilder;
 import org.neo4j.internal.schema.IndexConfig;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.internal.schema.IndexPrototype;
 import org.neo4j.internal.schema.IndexProviderDescriptor;
 import org.neo4j.internal.schema.LabelSchemaDescriptor;
 import org.neo4j.internal.schema.SchemaDescriptor;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheExtension;
+import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.values.storable.CoordinateReferenceSystem;
 import org.neo4j.values.storable.DoubleArray;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.graphdb.schema.IndexSettingUtil.spatialMaxSettingForCrs;
 import static org.neo4j.graphdb.schema.IndexSettingUtil.spatialMinSettingForCrs;
 
+@PageCacheExtension
 class GenericNativeIndexProviderTest
 {
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private TestDirectory directory;
+
     @Test
     void mustCompleteIndexDescriptorConfigurationsWithSpatialConfig()
     {
@@ -106,4 +126,51 @@ class GenericNativeIndexProviderTest
             }
         }
     }
+
+    @Test
+    void newIndexesMustOnlyCompressKeyPrefixesIfEnabled()
+    {
+        IndexDescriptor descriptor = indexDescriptor();
+        assertFalse( provider( false ).layout( descriptor, null ).compressKeyPrefixes() );
+        assertTrue( provider( true ).layout( descriptor, null ).compressKeyPrefixes() );
+    }
+
+    @Test
+    void existingIndexMustKeepKeyFormatItWasCreatedWith() throws IOException
+    {
+        IndexDescriptor descriptor = indexDescriptor();
+        Path uncompressedFile = directory.file( "uncompressed" );
+        Path compressedFile = directory.file( "compressed" );
+        createTree( uncompressedFile, provider( false ).layout( descriptor, null ) );
+        createTree( compressedFile, provider( true ).layout( descriptor, null ) );
+
+        for ( boolean keyPrefixCompression : new boolean[]{false, true} )
+        {
+            GenericNativeIndexProvider provider = provider( keyPrefixCompression );
+            assertFalse( provider.layout( descriptor, uncompressedFile ).compressKeyPrefixes() );
+            assertTrue( provider.layout( descriptor, compressedFile ).compressKeyPrefixes() );
+        }
+    }
+
+    private GenericNativeIndexProvider provider( boolean keyPrefixCompression )
+    {
+        DatabaseIndexContext context = DatabaseIndexContext.builder( pageCache, fs ).build();
+        Config config = Config.defaults( GraphDatabaseInternalSettings.native_index_key_prefix_compression, keyPrefixCompression );
+        return new GenericNativeIndexProvider( context, IndexDirectoryStructure.NONE, null, config );
+    }
+
+    private IndexDescriptor indexDescriptor()
+    {
+        IndexDescriptor descriptor =
+                IndexPrototype.forSchema( SchemaDescriptor.forLabel( 1, 1 ), GenericNativeIndexProvider.DESCRIPTOR ).withName( "index" ).materialise( 1 );
+        return provider( false ).completeConfiguration( descriptor );
+    }
+
+    private void createTree( Path file, GenericLayout layout ) throws IOException
+    {
+        try ( GBPTree<GenericKey,NativeIndexValue> ignored = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            // Only the layout in the meta page matters here
+        }
+    }
 }
@@ -629,6 +629,35 @@ abstract class NativeIndexAccessorTests<KEY extends NativeIndexKey<KEY>, VALUE e
     }
 
     @SuppressWarnings( "unchecked" )
+    @Test
+    void compactShouldKeepRemainingEntries() throws Exception
+    {
+        // given
+        IndexEntryUpdate<IndexDescriptor>[] data = someUpdatesSingleType();
+        processAll( data );
+        List<IndexEntryUpdate<IndexDescriptor>> remaining = new ArrayList<>();
+        for ( int i = 0; i < data.length; i++ )
+        {
+            if ( i % 2 == 0 )
+            {
+                processAll( remove( data[i].getEntityId(), indexDescriptor, data[i].values() ) );
+            }
+            else
+            {
+                remaining.add( data[i] );
+            }
+        }
+
+        // when
+        accessor.compact( 0, IOLimiter.UNLIMITED, NULL );
+        accessor.force( IOLimiter.UNLIMITED, NULL );
+        accessor.close();
+
+        // then
+        //noinspection unchecked
+        verifyUpdates( remaining.toArray( new IndexEntryUpdate[0] ) );
+    }
+
     @Test
     void closeShouldCloseTreeWithoutCheckpoint() throws Exception
     {
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.gis.spatial.index.curves.StandardConfiguration;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+
+import static org.neo4j.io.ByteUnit.kibiBytes;
+
+/**
+ * Runs all accessor tests with a write buffer small enough to be flushed both when full and when the index is forced.
+ */
+class NativeIndexAccessorWriteBufferTest extends NativeIndexAccessorTest
+{
+    @Override
+    NativeIndexAccessor<GenericKey,NativeIndexValue> makeAccessor( PageCache pageCache )
+    {
+        RecoveryCleanupWorkCollector cleanup = RecoveryCleanupWorkCollector.immediate();
+        DatabaseIndexContext context = DatabaseIndexContext.builder( pageCache, fs ).withMonitor( monitor ).withReadOnly( false ).build();
+        return new GenericNativeIndexAccessor( context, indexFiles, layout, cleanup, indexDescriptor,
+                IndexSpecificSpaceFillingCurveSettings.fromConfig( Config.defaults() ), new StandardConfiguration(), tokenNameLookup, kibiBytes( 4 ) );
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
+import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.test.Race;
+import org.neo4j.values.storable.Values;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.internal.schema.IndexPrototype.forSchema;
+import static org.neo4j.internal.schema.SchemaDescriptor.forLabel;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.index.internal.gbptree.ValueMerger.MergeResult.REMOVED;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
+import static org.neo4j.kernel.impl.index.schema.ValueCreatorUtil.FRACTION_DUPLICATE_NON_UNIQUE;
+import static org.neo4j.test.Race.throwing;
+import static org.neo4j.values.storable.RandomValues.typesOfGroup;
+import static org.neo4j.values.storable.ValueGroup.NUMBER;
+
+class NativeIndexWriteBufferTest extends NativeIndexTestUtil<GenericKey,NativeIndexValue>
+{
+    private static final IndexSpecificSpaceFillingCurveSettings specificSettings = IndexSpecificSpaceFillingCurveSettings.fromConfig( Config.defaults() );
+
+    private final LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+    private GBPTree<GenericKey,NativeIndexValue> tree;
+
+    @BeforeEach
+    void openTree() throws IOException
+    {
+        tree = getTree();
+        // Entity i has value 2*i
+        try ( Writer<GenericKey,NativeIndexValue> writer = tree.writer( NULL ) )
+        {
+            for ( long id = 0; id < 10; id++ )
+            {
+                writer.put( key( id, 2 * id ), NativeIndexValue.INSTANCE );
+            }
+        }
+    }
+
+    @AfterEach
+    void closeTree() throws IOException
+    {
+        tree.close();
+    }
+
+    @Test
+    void seekMustMergeBufferedUpdatesWithTree() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        writeSomeUpdates( buffer );
+
+        // then
+        assertThat( buffer.numberOfBufferedUpdates() ).isEqualTo( 3 );
+        assertThat( memoryTracker.estimatedHeapMemory() ).isEqualTo( buffer.bufferedBytes() ).isPositive();
+        assertThat( seekIds( buffer, false ) ).containsExactly( 0L, 1L, 10L, 3L, 5L, 6L, 7L, 8L, 9L );
+        assertThat( seekIds( buffer, true ) ).containsExactly( 9L, 8L, 7L, 6L, 5L, 3L, 10L, 1L, 0L );
+        assertThat( seekIds( tree, false ) ).containsExactly( 0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L );
+    }
+
+    @Test
+    void exactSeekMustNotFindBufferedRemoval() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        writeSomeUpdates( buffer );
+
+        // then
+        assertThat( exactSeekIds( buffer, 2, 4 ) ).isEmpty();
+        assertThat( exactSeekIds( buffer, 10, 5 ) ).containsExactly( 10L );
+        assertThat( exactSeekIds( buffer, 3, 6 ) ).containsExactly( 3L );
+    }
+
+    @Test
+    void flushMustApplyBufferedUpdatesToTree() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        writeSomeUpdates( buffer );
+
+        // when
+        buffer.flush( NULL );
+
+        // then
+        assertThat( buffer.numberOfBufferedUpdates() ).isZero();
+        assertThat( buffer.bufferedBytes() ).isZero();
+        assertThat( memoryTracker.estimatedHeapMemory() ).isZero();
+        assertThat( seekIds( tree, false ) ).containsExactly( 0L, 1L, 10L, 3L, 5L, 6L, 7L, 8L, 9L );
+        assertThat( seekIds( buffer, false ) ).containsExactly( 0L, 1L, 10L, 3L, 5L, 6L, 7L, 8L, 9L );
+    }
+
+    @Test
+    void mustFlushWhenFull() throws IOException
+    {
+        // given
+        GenericKey key = key( 10, 5 );
+        long entrySize = layout.keySize( key ) + NativeIndexWriteBuffer.ENTRY_OVERHEAD;
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, 2 * entrySize, memoryTracker );
+
+        // when
+        try ( Writer<GenericKey,NativeIndexValue> writer = buffer.writer( NULL ) )
+        {
+            writer.put( key, NativeIndexValue.INSTANCE );
+            assertThat( buffer.numberOfBufferedUpdates() ).isOne();
+            writer.remove( key( 2, 4 ) );
+        }
+
+        // then
+        assertThat( buffer.numberOfBufferedUpdates() ).isZero();
+        assertThat( seekIds( tree, false ) ).containsExactly( 0L, 1L, 10L, 3L, 4L, 5L, 6L, 7L, 8L, 9L );
+    }
+
+    @Test
+    void seekMustFindUpdatesFlushedAfterItStarted() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        writeSomeUpdates( buffer );
+
+        List<Long> ids = new ArrayList<>();
+        try ( Seeker<GenericKey,NativeIndexValue> seeker = buffer.seek( lowest(), highest(), NULL ) )
+        {
+            // when the seek has read its first batch from the tree before the flush
+            assertThat( seeker.next() ).isTrue();
+            ids.add( seeker.key().getEntityId() );
+            buffer.flush( NULL );
+
+            // then
+            while ( seeker.next() )
+            {
+                ids.add( seeker.key().getEntityId() );
+            }
+        }
+        assertThat( ids ).containsExactly( 0L, 1L, 10L, 3L, 5L, 6L, 7L, 8L, 9L );
+    }
+
+    @Test
+    void concurrentSeeksMustFindAllUpdatesWrittenBeforeThemWhileFlushing() throws Throwable
+    {
+        // given
+        int rounds = 300;
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        AtomicInteger completedRounds = new AtomicInteger();
+        Race race = new Race().withEndCondition( () -> completedRounds.get() >= rounds );
+
+        // Each round adds entity 10+round and removes one of the entities 0-9 in the tree, flushing every few rounds
+        race.addContestant( throwing( () ->
+        {
+            int round = completedRounds.get();
+            try ( Writer<GenericKey,NativeIndexValue> writer = buffer.writer( NULL ) )
+            {
+                long id = 10 + round;
+                writer.put( key( id, 2 * id ), NativeIndexValue.INSTANCE );
+                if ( round < 10 )
+                {
+                    writer.remove( key( round, 2 * round ) );
+                }
+            }
+            if ( round % 7 == 0 )
+            {
+                buffer.flush( NULL );
+            }
+            completedRounds.incrementAndGet();
+        } ), rounds );
+        race.addContestants( 2, throwing( () ->
+        {
+            int roundsBeforeSeek = completedRounds.get();
+            List<Long> ids = seekIds( buffer, false );
+            for ( long round = 0; round < roundsBeforeSeek; round++ )
+            {
+                assertThat( ids ).contains( 10 + round );
+                if ( round < 10 )
+                {
+                    assertThat( ids ).doesNotContain( round );
+                }
+            }
+        } ) );
+
+        // when
+        race.go();
+
+        // then
+        buffer.flush( NULL );
+        assertThat( seekIds( tree, false ) ).hasSize( rounds );
+    }
+
+    @Test
+    void clearMustReleaseBufferedBytes() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        writeSomeUpdates( buffer );
+
+        // when
+        buffer.clear();
+
+        // then
+        assertThat( buffer.numberOfBufferedUpdates() ).isZero();
+        assertThat( memoryTracker.estimatedHeapMemory() ).isZero();
+        assertThat( seekIds( buffer, false ) ).containsExactly( 0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L );
+    }
+
+    @Test
+    void removeMustReturnExistingValueFromBufferOrTree() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        writeSomeUpdates( buffer );
+
+        try ( Writer<GenericKey,NativeIndexValue> writer = buffer.writer( NULL ) )
+        {
+            // when/then
+            assertThat( writer.remove( key( 3, 6 ) ) ).isNotNull();
+            assertThat( writer.remove( key( 10, 5 ) ) ).isNotNull();
+            assertThat( writer.remove( key( 2, 4 ) ) ).isNull();
+            assertThat( writer.remove( key( 3, 6 ) ) ).isNull();
+            assertThat( writer.remove( key( 11, 100 ) ) ).isNull();
+        }
+        assertThat( buffer.numberOfBufferedUpdates() ).isEqualTo( 4 );
+        assertThat( seekIds( buffer, false ) ).containsExactly( 0L, 1L, 5L, 6L, 7L, 8L, 9L );
+    }
+
+    @Test
+    void mergeIfExistsMustOnlyMergeWithBufferedOrTreeEntries() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        writeSomeUpdates( buffer );
+        List<Long> mergedIds = new ArrayList<>();
+        ValueMerger<GenericKey,NativeIndexValue> removingMerger = ( existingKey, newKey, existingValue, newValue ) ->
+        {
+            mergedIds.add( existingKey.getEntityId() );
+            return REMOVED;
+        };
+
+        // when
+        try ( Writer<GenericKey,NativeIndexValue> writer = buffer.writer( NULL ) )
+        {
+            writer.mergeIfExists( key( 3, 6 ), NativeIndexValue.INSTANCE, removingMerger );
+            writer.mergeIfExists( key( 10, 5 ), NativeIndexValue.INSTANCE, removingMerger );
+            writer.mergeIfExists( key( 2, 4 ), NativeIndexValue.INSTANCE, removingMerger );
+            writer.mergeIfExists( key( 11, 100 ), NativeIndexValue.INSTANCE, removingMerger );
+        }
+
+        // then
+        assertThat( mergedIds ).containsExactly( 3L, 10L );
+        assertThat( seekIds( buffer, false ) ).containsExactly( 0L, 1L, 5L, 6L, 7L, 8L, 9L );
+        buffer.flush( NULL );
+        assertThat( seekIds( tree, false ) ).containsExactly( 0L, 1L, 5L, 6L, 7L, 8L, 9L );
+    }
+
+    @Test
+    void mergeMustMergeWithTreeEntriesAndPutOtherwise() throws IOException
+    {
+        // given
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        List<Long> mergedIds = new ArrayList<>();
+        ValueMerger<GenericKey,NativeIndexValue> removingMerger = ( existingKey, newKey, existingValue, newValue ) ->
+        {
+            mergedIds.add( existingKey.getEntityId() );
+            return REMOVED;
+        };
+
+        // when
+        try ( Writer<GenericKey,NativeIndexValue> writer = buffer.writer( NULL ) )
+        {
+            writer.merge( key( 3, 6 ), NativeIndexValue.INSTANCE, removingMerger );
+            writer.merge( key( 11, 100 ), NativeIndexValue.INSTANCE, removingMerger );
+        }
+
+        // then
+        assertThat( mergedIds ).containsExactly( 3L );
+        assertThat( seekIds( buffer, false ) ).containsExactly( 0L, 1L, 2L, 4L, 5L, 6L, 7L, 8L, 9L, 11L );
+    }
+
+    @Test
+    void seekMustFindUpdatesFlushedIntoLeavesItHasAlreadyPassed() throws IOException
+    {
+        // given a tree spanning many leaves, with values 1000, 1010, 1020..., and buffered values filling every gap between them
+        int treeEntries = 2_000;
+        try ( Writer<GenericKey,NativeIndexValue> writer = tree.writer( NULL ) )
+        {
+            for ( long value = 1000; value < 1000 + 10 * treeEntries; value += 10 )
+            {
+                writer.put( key( value, value ), NativeIndexValue.INSTANCE );
+            }
+        }
+        NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer = new NativeIndexWriteBuffer<>( tree, layout, Long.MAX_VALUE, memoryTracker );
+        try ( Writer<GenericKey,NativeIndexValue> writer = buffer.writer( NULL ) )
+        {
+            for ( long value = 1000; value < 1000 + 10 * treeEntries; value++ )
+            {
+                if ( value % 10 != 0 )
+                {
+                    writer.put( key( value, value ), NativeIndexValue.INSTANCE );
+                }
+            }
+        }
+
+        // when flushing right after the tree seeker has moved on to the next leaf, which is when the first buffered update after
+        // the last entry of the previous leaf is returned. The rest of that gap then goes into the leaf the tree seeker has passed.
+        DefaultPageCursorTracer cursorTracer = new DefaultPageCursorTracer( new DefaultPageCacheTracer(), "test" );
+        List<Long> ids = new ArrayList<>();
+        boolean flushed = false;
+        try ( Seeker<GenericKey,NativeIndexValue> seeker = buffer.seek( lowest(), highest(), cursorTracer ) )
+        {
+            long pins = cursorTracer.pins();
+            while ( seeker.next() )
+            {
+                long id = seeker.key().getEntityId();
+                ids.add( id );
+                boolean movedToNextLeaf = cursorTracer.pins() > pins;
+                pins = cursorTracer.pins();
+                if ( !flushed && movedToNextLeaf && id > 1000 && id % 10 == 1 )
+                {
+                    buffer.flush( NULL );
+                    flushed = true;
+                }
+            }
+        }
+
+        // then
+        assertThat( flushed ).isTrue();
+        assertThat( ids ).hasSize( 10 + 10 * treeEntries ).doesNotHaveDuplicates();
+    }
+
+    private void writeSomeUpdates( NativeIndexWriteBuffer<GenericKey,NativeIndexValue> buffer ) throws IOException
+    {
+        try ( Writer<GenericKey,NativeIndexValue> writer = buffer.writer( NULL ) )
+        {
+            writer.remove( key( 2, 4 ) );
+            writer.remove( key( 4, 8 ) );
+            writer.put( key( 10, 5 ), NativeIndexValue.INSTANCE );
+            // Removing and re-adding a key only keeps the latest update
+            writer.remove( key( 10, 5 ) );
+            writer.put( key( 10, 5 ), NativeIndexValue.INSTANCE );
+        }
+    }
+
+    private List<Long> seekIds( Seeker.Factory<GenericKey,NativeIndexValue> seekerFactory, boolean backwards ) throws IOException
+    {
+        return backwards ? collectIds( seekerFactory, highest(), lowest() ) : collectIds( seekerFactory, lowest(), highest() );
+    }
+
+    private GenericKey lowest()
+    {
+        GenericKey low = layout.newKey();
+        low.initialize( Long.MIN_VALUE );
+        low.initValuesAsLowest();
+        return low;
+    }
+
+    private GenericKey highest()
+    {
+        GenericKey high = layout.newKey();
+        high.initialize( Long.MAX_VALUE );
+        high.initValuesAsHighest();
+        return high;
+    }
+
+    private List<Long> exactSeekIds( Seeker.Factory<GenericKey,NativeIndexValue> seekerFactory, long id, long value ) throws IOException
+    {
+        GenericKey key = key( id, value );
+        return collectIds( seekerFactory, key, key );
+    }
+
+    private static List<Long> collectIds( Seeker.Factory<GenericKey,NativeIndexValue> seekerFactory, GenericKey from, GenericKey to ) throws IOException
+    {
+        List<Long> ids = new ArrayList<>();
+        try ( Seeker<GenericKey,NativeIndexValue> seeker = seekerFactory.seek( from, to, NULL ) )
+        {
+            while ( seeker.next() )
+            {
+                ids.add( seeker.key().getEntityId() );
+            }
+        }
+        return ids;
+    }
+
+    private GenericKey key( long id, long value )
+    {
+        GenericKey key = layout.newKey();
+        key.initialize( id );
+        key.initFromValue( 0, Values.longValue( value ), NEUTRAL );
+        return key;
+    }
+
+    @Override
+    ValueCreatorUtil<GenericKey,NativeIndexValue> createValueCreatorUtil()
+    {
+        IndexDescriptor index = forSchema( forLabel( 42, 666 ) ).withName( "index" ).materialise( 0 );
+        return new ValueCreatorUtil<>( index, typesOfGroup( NUMBER ), FRACTION_DUPLICATE_NON_UNIQUE );
+    }
+
+    @Override
+    IndexLayout<GenericKey,NativeIndexValue> createLayout()
+    {
+        return new GenericLayout( 1, specificSettings );
+    }
+}
@@ -23,11 +23,14 @@ import org.junit.jupiter.api.Test;
 
 import java.nio.file.Path;
 
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.io.fs.DefaultFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.mapped.MappedPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.scheduler.JobScheduler;
@@ -36,6 +39,10 @@ import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
 import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.eclipse.collections.api.factory.Sets.immutable;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestDirectoryExtension
@@ -68,4 +75,41 @@ class ConfigurableStandalonePageCacheFactoryTest
             }
         }
     }
+
+    @Test
+    void mustCreateReadOnlyMemoryMappedPageCacheWhenConfigured() throws Exception
+    {
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              JobScheduler jobScheduler = new ThreadPoolJobScheduler() )
+        {
+            Path file = testDirectory.homePath().resolve( "a" ).normalize();
+            try ( PageCache cache = ConfigurableStandalonePageCacheFactory.createPageCache( fs, jobScheduler, PageCacheTracer.NULL );
+                  PagedFile pf = cache.map( file, 4096, immutable.of( CREATE ) );
+                  PageCursor cursor = pf.io( 0, PagedFile.PF_SHARED_WRITE_LOCK, PageCursorTracer.NULL ) )
+            {
+                for ( int i = 0; i < 100; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putInt( i );
+                }
+            }
+
+            Config config = Config.defaults( GraphDatabaseInternalSettings.pagecache_memory_mapped_read_only, true );
+            try ( PageCache cache = ConfigurableStandalonePageCacheFactory.createPageCache( fs, config, jobScheduler, PageCacheTracer.NULL );
+                  PagedFile pf = cache.map( file, 4096 ) )
+            {
+                assertThat( cache ).isInstanceOf( MappedPageCache.class );
+                try ( PageCursor cursor = pf.io( 0, PagedFile.PF_SHARED_READ_LOCK, PageCursorTracer.NULL ) )
+                {
+                    for ( int i = 0; i < 100; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                        assertThat( cursor.getInt() ).isEqualTo( i );
+                    }
+                }
+                assertThatThrownBy( () -> pf.io( 0, PagedFile.PF_SHARED_WRITE_LOCK, PageCursorTracer.NULL ) )
+                        .isInstanceOf( UnsupportedOperationException.class );
+            }
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheExtension;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.collections.api.factory.Sets.immutable;
+import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@PageCacheExtension
+class PageCacheWarmerTest
+{
+    private static final int PAGES = 16;
+
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private TestDirectory testDirectory;
+
+    private ThreadPoolJobScheduler scheduler;
+    private Path databaseDirectory;
+    private Path file;
+    private PageCacheWarmer warmer;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        scheduler = new ThreadPoolJobScheduler();
+        databaseDirectory = testDirectory.directory( "db" );
+        file = databaseDirectory.resolve( "store" );
+        warmer = new PageCacheWarmer( fs, pageCache, scheduler, databaseDirectory, "db", PageCacheTracer.NULL );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize(), immutable.of( CREATE ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( int i = 0; i < PAGES; i++ )
+            {
+                cursor.next();
+                cursor.putInt( i );
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        scheduler.close();
+    }
+
+    @Test
+    void reheatMustLoadProfiledPages() throws IOException
+    {
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 3 );
+            touch( pagedFile, 7 );
+            touch( pagedFile, 11 );
+            assertThat( warmer.profile() ).isEqualTo( 3 );
+        }
+        assertThat( fs.fileExists( databaseDirectory.resolve( PageCacheWarmer.PROFILE_DIRECTORY ).resolve( "store" + PageCacheWarmer.SUFFIX_CACHEPROF ) ) )
+                .isTrue();
+
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.reheat() ).isEqualTo( 3 );
+            for ( int i = 0; i < PAGES; i++ )
+            {
+                assertThat( isResident( pagedFile, i ) ).as( "page " + i ).isEqualTo( i == 3 || i == 7 || i == 11 );
+            }
+        }
+    }
+
+    @Test
+    void preloadMustLoadAllPagesOfAcceptedFiles() throws IOException
+    {
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.preload( path -> false ) ).isZero();
+            assertThat( warmer.preload( path -> path.equals( file ) ) ).isEqualTo( PAGES );
+            for ( int i = 0; i < PAGES; i++ )
+            {
+                assertThat( isResident( pagedFile, i ) ).as( "page " + i ).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void reheatMustIgnoreFilesWithoutProfile() throws IOException
+    {
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.reheat() ).isZero();
+            assertThat( isResident( pagedFile, 0 ) ).isFalse();
+        }
+    }
+
+    @Test
+    void stoppedWarmerMustNotLoadPages() throws IOException
+    {
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            warmer.stopWarmup();
+            assertThat( warmer.preload( path -> true ) ).isZero();
+        }
+    }
+
+    private static void touch( PagedFile pagedFile, long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            assertThat( cursor.next() ).isTrue();
+        }
+    }
+
+    private static boolean isResident( PagedFile pagedFile, long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK | PF_NO_FAULT, NULL ) )
+        {
+            return cursor.next() && cursor.getCurrentPageId() != UNBOUND_PAGE_ID;
+        }
+    }
+}
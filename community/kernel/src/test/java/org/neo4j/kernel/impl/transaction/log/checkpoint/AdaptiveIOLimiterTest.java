@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Flushable;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.test.Race;
+import org.neo4j.time.Clocks;
+import org.neo4j.time.FakeClock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.io.pagecache.IOLimiter.INITIAL_STAMP;
+import static org.neo4j.kernel.impl.transaction.log.checkpoint.AdaptiveIOLimiter.ADJUSTMENT_INTERVAL_MILLIS;
+import static org.neo4j.kernel.impl.transaction.log.checkpoint.AdaptiveIOLimiter.MAX_IOPS;
+import static org.neo4j.kernel.impl.transaction.log.checkpoint.AdaptiveIOLimiter.MIN_IOPS;
+
+class AdaptiveIOLimiterTest
+{
+    private static final Flushable FLUSHABLE = () -> {};
+
+    private final FakeClock clock = new FakeClock();
+    private final AdaptiveIOLimiter limiter = new AdaptiveIOLimiter( Duration.ofMillis( 10 ), 1000, clock );
+
+    @Test
+    void mustHalveRateWhenCommitLatencyExceedsTarget()
+    {
+        recordCommits( 100, Duration.ofMillis( 50 ) );
+        adjust();
+
+        assertThat( limiter.currentIOPS() ).isEqualTo( 500 );
+        assertThat( limiter.lastCommitLatencyPercentileNanos() ).isGreaterThanOrEqualTo( Duration.ofMillis( 50 ).toNanos() );
+    }
+
+    @Test
+    void mustRaiseRateWhenCommitLatencyIsWellWithinTarget()
+    {
+        recordCommits( 100, Duration.ofMillis( 1 ) );
+        adjust();
+
+        assertThat( limiter.currentIOPS() ).isEqualTo( 1250 );
+    }
+
+    @Test
+    void mustRaiseRateWhenThereAreNoCommits()
+    {
+        adjust();
+        assertThat( limiter.currentIOPS() ).isEqualTo( 1250 );
+        assertThat( limiter.lastCommitLatencyPercentileNanos() ).isZero();
+    }
+
+    @Test
+    void mustHoldRateWhenCommitLatencyIsCloseToTarget()
+    {
+        recordCommits( 100, Duration.ofMillis( 8 ) );
+        adjust();
+
+        assertThat( limiter.currentIOPS() ).isEqualTo( 1000 );
+    }
+
+    @Test
+    void mustFollowNinetyNinthPercentileRatherThanMedian()
+    {
+        recordCommits( 95, Duration.ofMillis( 1 ) );
+        recordCommits( 5, Duration.ofMillis( 100 ) );
+        adjust();
+
+        assertThat( limiter.currentIOPS() ).isEqualTo( 500 );
+    }
+
+    @Test
+    void mustOnlyAdjustOncePerInterval()
+    {
+        recordCommits( 100, Duration.ofMillis( 50 ) );
+        limiter.maybeLimitIO( INITIAL_STAMP, 0, FLUSHABLE );
+        assertThat( limiter.currentIOPS() ).isEqualTo( 1000 );
+
+        adjust();
+        adjust();
+        assertThat( limiter.currentIOPS() ).isEqualTo( 500 + 125 );
+    }
+
+    @Test
+    void mustKeepRateWithinBounds()
+    {
+        for ( int i = 0; i < 20; i++ )
+        {
+            recordCommits( 10, Duration.ofSeconds( 1 ) );
+            adjust();
+        }
+        assertThat( limiter.currentIOPS() ).isEqualTo( MIN_IOPS );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            adjust();
+        }
+        assertThat( limiter.currentIOPS() ).isEqualTo( MAX_IOPS );
+    }
+
+    @Test
+    void mustNotLimitWhenLimitIsDisabled()
+    {
+        limiter.disableLimit();
+        assertThat( limiter.isLimited() ).isFalse();
+        long stamp = limiter.maybeLimitIO( INITIAL_STAMP, 1_000_000, FLUSHABLE );
+        assertThat( limiter.maybeLimitIO( stamp, 1_000_000, FLUSHABLE ) ).isEqualTo( stamp );
+        limiter.enableLimit();
+        assertThat( limiter.isLimited() ).isTrue();
+    }
+
+    @Test
+    void mustCarryIOsWithinQuantumInStamp()
+    {
+        // 1000 IOPS allows 10 IOs per 10 millisecond quantum.
+        long stamp = limiter.maybeLimitIO( INITIAL_STAMP, 3, FLUSHABLE );
+        long next = limiter.maybeLimitIO( stamp, 3, FLUSHABLE );
+        assertThat( next ).isEqualTo( stamp + 3 );
+
+        clock.forward( 10, MILLISECONDS );
+        assertThat( limiter.maybeLimitIO( next, 3, FLUSHABLE ) ).isEqualTo( (clock.millis() << 20) | 3 );
+    }
+
+    @Test
+    void mustShareQuantumBetweenConcurrentFlushes()
+    {
+        long stamp = limiter.maybeLimitIO( INITIAL_STAMP, 3, FLUSHABLE );
+        assertThat( limiter.maybeLimitIO( INITIAL_STAMP, 4, FLUSHABLE ) ).isEqualTo( stamp + 4 );
+        assertThat( limiter.maybeLimitIO( stamp, 2, FLUSHABLE ) ).isEqualTo( stamp + 4 + 2 );
+    }
+
+    @Test
+    void mustCarryIOsBeyondQuantumAllowanceIntoFollowingQuanta()
+    {
+        limiter.maybeLimitIO( INITIAL_STAMP, 25, FLUSHABLE );
+
+        clock.forward( 10, MILLISECONDS );
+        assertThat( limiter.maybeLimitIO( INITIAL_STAMP, 1, FLUSHABLE ) ).isEqualTo( (clock.millis() << 20) | (15 + 1) );
+        clock.forward( 20, MILLISECONDS );
+        assertThat( limiter.maybeLimitIO( INITIAL_STAMP, 1, FLUSHABLE ) ).isEqualTo( (clock.millis() << 20) | 1 );
+    }
+
+    @Test
+    void concurrentFlushesMustShareTheRate() throws Throwable
+    {
+        int threads = 4;
+        long durationMillis = 500;
+        int iops = 1000;
+        AdaptiveIOLimiter limiter = new AdaptiveIOLimiter( Duration.ofMillis( 10 ), iops, Clocks.nanoClock() );
+        AtomicLong totalIOs = new AtomicLong();
+        Race race = new Race();
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + MILLISECONDS.toNanos( durationMillis );
+        race.addContestants( threads, () ->
+        {
+            long stamp = INITIAL_STAMP;
+            while ( System.nanoTime() < deadline )
+            {
+                stamp = limiter.maybeLimitIO( stamp, 1, FLUSHABLE );
+                totalIOs.incrementAndGet();
+            }
+        }, 1 );
+        race.go();
+        long elapsedMillis = NANOSECONDS.toMillis( System.nanoTime() - startNanos );
+
+        // Every thread may overshoot the quantum it is in by one IO before it sleeps, and a thread that is sleeping when the deadline
+        // passes gets to do one more.
+        long allowedIOs = iops * elapsedMillis / 1000 + 10 + 2 * threads;
+        assertThat( totalIOs.get() ).isLessThanOrEqualTo( allowedIOs );
+    }
+
+    @Test
+    void mustRejectNonPositiveTarget()
+    {
+        assertThatThrownBy( () -> new AdaptiveIOLimiter( Duration.ZERO, 1000, clock ) ).isInstanceOf( IllegalArgumentException.class );
+    }
+
+    @Test
+    void bucketUpperBoundsMustCoverRecordedLatencies()
+    {
+        for ( long micros = 1; micros < 10_000_000; micros = micros * 3 / 2 + 1 )
+        {
+            long nanos = micros * 1000;
+            long upperBound = AdaptiveIOLimiter.upperBoundOf( AdaptiveIOLimiter.bucketOf( nanos ) );
+            assertThat( upperBound ).as( "upper bound of " + micros + "us" ).isGreaterThanOrEqualTo( nanos ).isLessThanOrEqualTo( nanos * 5 / 4 + 1000 );
+        }
+    }
+
+    private void recordCommits( int count, Duration latency )
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            limiter.logForceWaited( latency.toNanos() );
+        }
+    }
+
+    private void adjust()
+    {
+        clock.forward( ADJUSTMENT_INTERVAL_MILLIS, MILLISECONDS );
+        limiter.maybeAdjust( clock.millis() );
+    }
+}
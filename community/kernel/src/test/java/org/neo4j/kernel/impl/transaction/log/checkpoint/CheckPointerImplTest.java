@@ -37,6 +37,9 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BooleanSupplier;
 
 import org.neo4j.function.ThrowingConsumer;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.IndexPrototype;
+import org.neo4j.internal.schema.SchemaDescriptor;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.database.DatabaseTracers;
@@ -44,6 +47,7 @@ import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerImpl.ForceOperation;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
 import org.neo4j.kernel.impl.transaction.tracing.DatabaseTracer;
+import org.neo4j.kernel.impl.transaction.tracing.IndexForceEvents;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.monitoring.DatabaseHealth;
@@ -131,7 +135,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( any( LogCheckPointEvent.class ), eq( logPosition ), any( Instant.class ), any( String.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -142,6 +146,30 @@ class CheckPointerImplTest
         verifyNoMoreInteractions( forceOperation, health, appender, threshold, tracer );
     }
 
+    @Test
+    void shouldReportForcedIndexesToCheckPointEvent() throws Throwable
+    {
+        // Given
+        CheckPointerImpl checkPointing = checkPointer();
+        mockTxIdStore();
+        LogCheckPointEvent event = mock( LogCheckPointEvent.class );
+        when( tracer.beginCheckPoint() ).thenReturn( event );
+        IndexDescriptor index = IndexPrototype.forSchema( SchemaDescriptor.forLabel( 1, 2 ) ).withName( "index" ).materialise( 3 );
+        doAnswer( invocation ->
+        {
+            invocation.getArgument( 2, IndexForceEvents.class ).indexForced( index, 17 );
+            return null;
+        } ).when( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
+
+        checkPointing.start();
+
+        // When
+        checkPointing.forceCheckPoint( INFO );
+
+        // Then
+        verify( event ).indexForced( index, 17 );
+    }
+
     @Test
     void shouldForceCheckPointAlways() throws Throwable
     {
@@ -157,7 +185,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( any( LogCheckPointEvent.class ), eq( logPosition ), any( Instant.class ), any( String.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -182,7 +210,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( any( LogCheckPointEvent.class ), eq( logPosition ), any( Instant.class ), any( String.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -207,7 +235,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( any( LogCheckPointEvent.class ), eq( logPosition ), any( Instant.class ), any( String.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -347,7 +375,7 @@ class CheckPointerImplTest
         checkPointing.start();
         checkPointing.checkPointIfNeeded( INFO );
 
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
     }
 
     @Test
@@ -437,7 +465,7 @@ class CheckPointerImplTest
             arriveFlushAndForce.release();
             finishFlushAndForce.await();
             return null;
-        } ).when( forceOperation ).flushAndForce( limiter, NULL );
+        } ).when( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
 
         Thread forceCheckPointThread = new Thread( () ->
         {
@@ -511,7 +539,7 @@ class CheckPointerImplTest
             long newValue = limitDisableCounter.get();
             observedRushCount.set( newValue );
             return null;
-        } ).when( forceOperation ).flushAndForce( limiter, NULL );
+        } ).when( forceOperation ).flushAndForce( eq( limiter ), eq( NULL ), any() );
 
         Future<Object> forceCheckPointer = forkFuture( () ->
         {
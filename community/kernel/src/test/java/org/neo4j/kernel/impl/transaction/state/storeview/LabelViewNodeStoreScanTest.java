@@ -33,6 +33,7 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.lock.LockService;
 import org.neo4j.storageengine.api.EntityTokenUpdate;
 import org.neo4j.storageengine.api.EntityUpdates;
+import org.neo4j.storageengine.api.StorageNodeCursor;
 import org.neo4j.storageengine.api.StubStorageCursors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -80,6 +81,37 @@ class LabelViewNodeStoreScanTest
         assertThat( idIterator.hasNext() ).isEqualTo( false );
     }
 
+    @Test
+    void iterateOverLabeledNodeIdsInRange()
+    {
+        for ( long i = 0; i < 15; i++ )
+        {
+            cursors.withNode( i );
+        }
+        int[] labelIds = new int[]{1, 2};
+        when( labelScanReader.entitiesWithAnyOfTokens( eq( 1L ), eq( labelIds ), any() ) )
+                .thenReturn( PrimitiveLongResourceCollections.iterator( null, 4, 8, 12 ) );
+        when( labelScanReader.entitiesWithAnyOfTokens( eq( 9L ), eq( labelIds ), any() ) )
+                .thenReturn( PrimitiveLongResourceCollections.iterator( null, 12 ) );
+        when( labelScanReader.entitiesWithAnyOfTokens( eq( 12L ), eq( labelIds ), any() ) )
+                .thenReturn( PrimitiveLongResourceCollections.emptyIterator() );
+
+        LabelViewNodeStoreScan<Exception> storeScan = getLabelScanViewStoreScan( labelIds );
+        StorageNodeCursor cursor = cursors.allocateNodeCursor( PageCursorTracer.NULL );
+
+        EntityIdIterator idIterator = storeScan.getEntityIdIterator( cursor, PageCursorTracer.NULL, 2, 10 );
+        assertThat( idIterator.next() ).isEqualTo( 4L );
+        assertThat( cursor.entityReference() ).isEqualTo( 4L );
+        assertThat( idIterator.next() ).isEqualTo( 8L );
+        assertThat( idIterator.hasNext() ).isEqualTo( false );
+
+        idIterator = storeScan.getEntityIdIterator( cursor, PageCursorTracer.NULL, 10, 13 );
+        assertThat( idIterator.next() ).isEqualTo( 12L );
+        assertThat( idIterator.hasNext() ).isEqualTo( false );
+
+        assertThat( storeScan.getEntityIdIterator( cursor, PageCursorTracer.NULL, 13, 20 ) ).isNull();
+    }
+
     private LabelViewNodeStoreScan<Exception> getLabelScanViewStoreScan( int[] labelIds )
     {
         return new LabelViewNodeStoreScan<>( cursors, LockService.NO_LOCK_SERVICE,
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.api.map.primitive.MutableIntObjectMap;
+import org.eclipse.collections.impl.factory.primitive.IntObjectMaps;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.neo4j.index.internal.gbptree.BulkLoader;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.memory.ByteBuffers;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.storageengine.api.EntityTokenUpdate;
+
+import static java.lang.Math.toIntExact;
+import static org.neo4j.internal.index.label.NativeTokenScanWriter.offsetOf;
+import static org.neo4j.internal.index.label.NativeTokenScanWriter.rangeOf;
+import static org.neo4j.util.Preconditions.checkArgument;
+
+/**
+ * {@link TokenScanWriter} for building an empty token scan store from updates given in ascending entity id order,
+ * e.g. when rebuilding from a {@link FullStoreChangeStream}.
+ * <p>
+ * Updates in entity order produce ranges which are sorted per token, but interleaved between tokens, whereas the tree is sorted
+ * by token first. Completed ranges are therefore collected per token, in chunks which are spilled to a temporary file when full,
+ * and all of them are loaded into the tree using a {@link BulkLoader}, token by token, when this writer is closed.
+ * If the updates turn out not to be in entity order after all, the collected ranges are instead merged into the tree one by one.
+ */
+class BulkLoadingNativeTokenScanWriter implements TokenScanWriter
+{
+    private static final int ENTRY_SIZE = Long.BYTES * 2;
+    private static final int CHUNK_SIZE = 512 * ENTRY_SIZE;
+
+    private final GBPTree<TokenScanKey,TokenScanValue> index;
+    private final FileSystemAbstraction fs;
+    private final Path spillFile;
+    private final PageCursorTracer cursorTracer;
+    private final MemoryTracker memoryTracker;
+    private final MutableIntObjectMap<TokenRanges> tokens = IntObjectMaps.mutable.empty();
+    private StoreChannel spillChannel;
+    private long spillPosition;
+    private boolean sorted = true;
+
+    BulkLoadingNativeTokenScanWriter( GBPTree<TokenScanKey,TokenScanValue> index, FileSystemAbstraction fs, Path spillFile,
+            PageCursorTracer cursorTracer, MemoryTracker memoryTracker )
+    {
+        this.index = index;
+        this.fs = fs;
+        this.spillFile = spillFile;
+        this.cursorTracer = cursorTracer;
+        this.memoryTracker = memoryTracker;
+    }
+
+    @Override
+    public void write( EntityTokenUpdate update ) throws IOException
+    {
+        checkArgument( update.getTokensBefore().length == 0, "Was expecting no tokens before, was %s", Arrays.toString( update.getTokensBefore() ) );
+        long idRange = rangeOf( update.getEntityId() );
+        int previousTokenId = -1;
+        for ( long tokenId : update.getTokensAfter() )
+        {
+            int intTokenId = toIntExact( tokenId );
+            checkArgument( intTokenId > previousTokenId, "Detected unsorted tokens in %s", update );
+            previousTokenId = intTokenId;
+            TokenRanges ranges = tokens.getIfAbsentPut( intTokenId, () -> new TokenRanges( ByteBuffers.allocate( CHUNK_SIZE, memoryTracker ) ) );
+            if ( ranges.idRange != idRange )
+            {
+                if ( ranges.idRange != -1 )
+                {
+                    sorted &= idRange > ranges.idRange;
+                    addCompletedRange( ranges );
+                }
+                ranges.idRange = idRange;
+                ranges.bits = 0;
+            }
+            ranges.bits |= 1L << offsetOf( update.getEntityId() );
+        }
+    }
+
+    private void addCompletedRange( TokenRanges ranges ) throws IOException
+    {
+        if ( !ranges.chunk.hasRemaining() )
+        {
+            ranges.spilledChunks.add( spill( ranges.chunk ) );
+        }
+        ranges.chunk.putLong( ranges.idRange ).putLong( ranges.bits );
+    }
+
+    private long spill( ByteBuffer chunk ) throws IOException
+    {
+        if ( spillChannel == null )
+        {
+            spillChannel = fs.write( spillFile );
+        }
+        long position = spillPosition;
+        chunk.flip();
+        spillChannel.writeAll( chunk, position );
+        chunk.clear();
+        spillPosition += CHUNK_SIZE;
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            int[] tokenIds = tokens.keySet().toSortedArray();
+            for ( int tokenId : tokenIds )
+            {
+                addCompletedRange( tokens.get( tokenId ) );
+            }
+            if ( sorted )
+            {
+                try ( BulkLoader<TokenScanKey,TokenScanValue> loader = index.bulkLoader( cursorTracer ) )
+                {
+                    load( tokenIds, ( key, value ) -> loader.add( key, value ) );
+                }
+            }
+            else
+            {
+                ValueMerger<TokenScanKey,TokenScanValue> merger = new AddMerger( NativeTokenScanWriter.EMPTY );
+                try ( Writer<TokenScanKey,TokenScanValue> writer = index.writer( cursorTracer ) )
+                {
+                    load( tokenIds, ( key, value ) -> writer.merge( key, value, merger ) );
+                }
+            }
+        }
+        finally
+        {
+            tokens.forEachValue( ranges -> memoryTracker.releaseHeap( CHUNK_SIZE ) );
+            if ( spillChannel != null )
+            {
+                spillChannel.close();
+                fs.deleteFileOrThrow( spillFile );
+            }
+        }
+    }
+
+    private void load( int[] tokenIds, EntrySink sink ) throws IOException
+    {
+        TokenScanKey key = new TokenScanKey();
+        TokenScanValue value = new TokenScanValue();
+        ByteBuffer spilledChunk = spillChannel != null ? ByteBuffer.allocate( CHUNK_SIZE ) : null;
+        for ( int tokenId : tokenIds )
+        {
+            TokenRanges ranges = tokens.get( tokenId );
+            for ( int i = 0; i < ranges.spilledChunks.size(); i++ )
+            {
+                spilledChunk.clear();
+                spillChannel.position( ranges.spilledChunks.get( i ) );
+                spillChannel.readAll( spilledChunk );
+                spilledChunk.flip();
+                load( tokenId, spilledChunk, key, value, sink );
+            }
+            ranges.chunk.flip();
+            load( tokenId, ranges.chunk, key, value, sink );
+        }
+    }
+
+    private static void load( int tokenId, ByteBuffer chunk, TokenScanKey key, TokenScanValue value, EntrySink sink )
+    {
+        while ( chunk.hasRemaining() )
+        {
+            key.set( tokenId, chunk.getLong() );
+            value.bits = chunk.getLong();
+            sink.add( key, value );
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntrySink
+    {
+        void add( TokenScanKey key, TokenScanValue value );
+    }
+
+    private static class TokenRanges
+    {
+        private final ByteBuffer chunk;
+        private final MutableLongList spilledChunks = new LongArrayList();
+        private long idRange = -1;
+        private long bits;
+
+        TokenRanges( ByteBuffer chunk )
+        {
+            this.chunk = chunk;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.internal.schema.IndexOrder;
+import org.neo4j.io.IOUtils;
+
+/**
+ * {@link Seeker} which combines seekers of multiple tokens, all seeking the same entity id range in the same order,
+ * into one seeker of {@link TokenScanValue} bit sets. Seekers are stepped in lock-step by {@link TokenScanKey#idRange}
+ * and bit sets of the same range are combined a whole range at a time, either using {@code AND} or {@code OR} merging.
+ * The keys returned from this seeker all have the token id of the first of the given seekers.
+ */
+class CompositeTokenScanSeeker implements Seeker<TokenScanKey,TokenScanValue>
+{
+    private final List<Seeker<TokenScanKey,TokenScanValue>> seekers;
+    private final boolean trueForAll;
+    private final boolean descending;
+    private final long[] ranges;
+    private final long[] bits;
+    private final boolean[] exhausted;
+    private final TokenScanKey key = new TokenScanKey();
+    private final TokenScanValue value = new TokenScanValue();
+    private boolean initialized;
+
+    /**
+     * @param seekers seekers to combine, one per token.
+     * @param trueForAll if {@code true} using {@code AND} merging, otherwise {@code OR} merging.
+     * @param indexOrder the order which all the given seekers seek in.
+     */
+    CompositeTokenScanSeeker( List<Seeker<TokenScanKey,TokenScanValue>> seekers, boolean trueForAll, IndexOrder indexOrder )
+    {
+        this.seekers = seekers;
+        this.trueForAll = trueForAll;
+        this.descending = indexOrder == IndexOrder.DESCENDING;
+        this.ranges = new long[seekers.size()];
+        this.bits = new long[seekers.size()];
+        this.exhausted = new boolean[seekers.size()];
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        if ( !initialized )
+        {
+            for ( int i = 0; i < seekers.size(); i++ )
+            {
+                advance( i );
+            }
+            initialized = true;
+        }
+
+        boolean found;
+        do
+        {
+            found = trueForAll ? nextIntersection() : nextUnion();
+        }
+        while ( found && value.isEmpty() );
+        return found;
+    }
+
+    private boolean nextIntersection() throws IOException
+    {
+        long target = -1;
+        boolean aligned = false;
+        while ( !aligned )
+        {
+            aligned = true;
+            for ( int i = 0; i < seekers.size(); i++ )
+            {
+                if ( exhausted[i] )
+                {
+                    return false;
+                }
+                if ( target == -1 || before( target, ranges[i] ) )
+                {
+                    target = ranges[i];
+                }
+            }
+            for ( int i = 0; i < seekers.size(); i++ )
+            {
+                // Skip ranges which can't be in the intersection, since at least one token has nothing in them
+                while ( !exhausted[i] && before( ranges[i], target ) )
+                {
+                    advance( i );
+                }
+                if ( exhausted[i] )
+                {
+                    return false;
+                }
+                aligned &= ranges[i] == target;
+            }
+        }
+
+        long combined = -1L;
+        for ( int i = 0; i < seekers.size(); i++ )
+        {
+            combined &= bits[i];
+            advance( i );
+        }
+        setCurrent( target, combined );
+        return true;
+    }
+
+    private boolean nextUnion() throws IOException
+    {
+        long target = -1;
+        for ( int i = 0; i < seekers.size(); i++ )
+        {
+            if ( !exhausted[i] && (target == -1 || before( ranges[i], target )) )
+            {
+                target = ranges[i];
+            }
+        }
+        if ( target == -1 )
+        {
+            return false;
+        }
+
+        long combined = 0;
+        for ( int i = 0; i < seekers.size(); i++ )
+        {
+            if ( !exhausted[i] && ranges[i] == target )
+            {
+                combined |= bits[i];
+                advance( i );
+            }
+        }
+        setCurrent( target, combined );
+        return true;
+    }
+
+    /**
+     * @return whether or not range {@code a} comes before range {@code b} in the order of this seek.
+     */
+    private boolean before( long a, long b )
+    {
+        return descending ? a > b : a < b;
+    }
+
+    private void advance( int i ) throws IOException
+    {
+        Seeker<TokenScanKey,TokenScanValue> seeker = seekers.get( i );
+        if ( !exhausted[i] && seeker.next() )
+        {
+            ranges[i] = seeker.key().idRange;
+            bits[i] = seeker.value().bits;
+        }
+        else
+        {
+            exhausted[i] = true;
+        }
+    }
+
+    private void setCurrent( long idRange, long combinedBits )
+    {
+        key.set( seekers.get( 0 ).key().tokenId, idRange );
+        value.bits = combinedBits;
+    }
+
+    @Override
+    public TokenScanKey key()
+    {
+        return key;
+    }
+
+    @Override
+    public TokenScanValue value()
+    {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        IOUtils.closeAll( seekers );
+    }
+}
@@ -92,6 +92,12 @@ public final class EmptyingRelationshipTypeScanStore implements RelationshipType
     {   // no-op
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter limiter, PageCursorTracer cursorTracer )
+    {
+        return false;
+    }
+
     @Override
     public AllEntriesTokenScanReader allEntityTokenRanges( PageCursorTracer cursorTracer )
     {
@@ -239,6 +245,12 @@ public final class EmptyingRelationshipTypeScanStore implements RelationshipType
             return EmptyTokenScan.INSTANCE;
         }
 
+        @Override
+        public TokenScan entityTokenScan( int[] tokenIds, boolean trueForAll, PageCursorTracer cursorTracer )
+        {
+            return EmptyTokenScan.INSTANCE;
+        }
+
         @Override
         public PrimitiveLongResourceIterator entitiesWithAnyOfTokens( long fromId, int[] tokenIds, PageCursorTracer cursorTracer )
         {
@@ -31,6 +31,7 @@ import org.neo4j.collection.PrimitiveLongResourceIterator;
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.internal.schema.IndexOrder;
+import org.neo4j.io.IOUtils;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.index.IndexProgressor;
 import org.neo4j.util.VisibleForTesting;
@@ -84,7 +85,27 @@ class NativeTokenScanReader implements TokenScanReader
         try
         {
             long highestEntityIdForToken = highestEntityIdForToken( tokenId, cursorTracer );
-            return new NativeTokenScan( tokenId, highestEntityIdForToken );
+            return new NativeTokenScan( new int[]{tokenId}, true, highestEntityIdForToken );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public TokenScan entityTokenScan( int[] tokenIds, boolean trueForAll, PageCursorTracer cursorTracer )
+    {
+        try
+        {
+            // An intersection can't go beyond the token ending first, whereas a union must go to the one ending last
+            long max = trueForAll ? Long.MAX_VALUE : 0;
+            for ( int tokenId : tokenIds )
+            {
+                long highestEntityIdForToken = highestEntityIdForToken( tokenId, cursorTracer );
+                max = trueForAll ? Math.min( max, highestEntityIdForToken ) : Math.max( max, highestEntityIdForToken );
+            }
+            return new NativeTokenScan( tokenIds.clone(), trueForAll, tokenIds.length == 0 ? 0 : max );
         }
         catch ( IOException e )
         {
@@ -154,12 +175,14 @@ class NativeTokenScanReader implements TokenScanReader
     private class NativeTokenScan implements TokenScan
     {
         private final AtomicLong nextStart;
-        private final int tokenId;
+        private final int[] tokenIds;
+        private final boolean trueForAll;
         private final long max;
 
-        NativeTokenScan( int tokenId, long max )
+        NativeTokenScan( int[] tokenIds, boolean trueForAll, long max )
         {
-            this.tokenId = tokenId;
+            this.tokenIds = tokenIds;
+            this.trueForAll = trueForAll;
             this.max = max;
             nextStart = new AtomicLong( 0 );
         }
@@ -189,10 +212,15 @@ class NativeTokenScanReader implements TokenScanReader
 
         private IndexProgressor init( IndexProgressor.EntityTokenClient client, long start, long stop, IndexOrder indexOrder, PageCursorTracer cursorTracer )
         {
+            if ( tokenIds.length == 0 )
+            {
+                return IndexProgressor.EMPTY;
+            }
             Seeker<TokenScanKey,TokenScanValue> cursor;
             try
             {
-                cursor = seekerForToken( start, stop, tokenId, indexOrder, cursorTracer );
+                cursor = tokenIds.length == 1 ? seekerForToken( start, stop, tokenIds[0], indexOrder, cursorTracer )
+                                              : seekerForTokens( start, stop, indexOrder, cursorTracer );
             }
             catch ( IOException e )
             {
@@ -201,5 +229,24 @@ class NativeTokenScanReader implements TokenScanReader
 
             return new TokenScanValueIndexProgressor( cursor, client, indexOrder );
         }
+
+        private Seeker<TokenScanKey,TokenScanValue> seekerForTokens( long start, long stop, IndexOrder indexOrder, PageCursorTracer cursorTracer )
+                throws IOException
+        {
+            List<Seeker<TokenScanKey,TokenScanValue>> seekers = new ArrayList<>( tokenIds.length );
+            try
+            {
+                for ( int tokenId : tokenIds )
+                {
+                    seekers.add( seekerForToken( start, stop, tokenId, indexOrder, cursorTracer ) );
+                }
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                IOUtils.closeAllSilently( seekers );
+                throw e;
+            }
+            return new CompositeTokenScanSeeker( seekers, trueForAll, indexOrder );
+        }
     }
 }
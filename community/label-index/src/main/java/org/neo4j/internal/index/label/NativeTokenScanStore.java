@@ -46,6 +46,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
@@ -314,6 +315,12 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
         writeMonitor.force();
     }
 
+    @Override
+    public boolean compact( double minFragmentation, IOLimiter limiter, PageCursorTracer cursorTracer ) throws IOException
+    {
+        return index.compact( minFragmentation, limiter, cursorTracer );
+    }
+
     @Override
     public AllEntriesTokenScanReader allEntityTokenRanges( PageCursorTracer cursorTracer )
     {
@@ -429,7 +436,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
         try
         {
             index = new GBPTree<>( pageCache, storeFile, new TokenScanLayout(), monitor, readRebuilding,
-                    needsRebuildingWriter, recoveryCleanupWorkCollector, readOnly, cacheTracer, immutable.empty(), tokenStoreName );
+                    needsRebuildingWriter, recoveryCleanupWorkCollector, readOnly, cacheTracer, immutable.of( PageCachePriority.HIGH ), tokenStoreName );
             return isRebuilding.getValue();
         }
         catch ( TreeFileNotFoundException e )
@@ -484,7 +491,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
 
             // Intentionally ignore read-only flag here when rebuilding.
             final PageCursorTracer cursorTracer = cacheTracer.createPageCursorTracer( TOKEN_SCAN_REBUILD_TAG );
-            try ( TokenScanWriter writer = newBulkAppendWriter( cursorTracer ) )
+            try ( TokenScanWriter writer = newRebuildWriter( cursorTracer ) )
             {
                 numberOfEntities = fullStoreChangeStream.applyTo( writer, cursorTracer, memoryTracker );
             }
@@ -496,6 +503,19 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
         }
     }
 
+    /**
+     * The tree is normally empty when rebuilding, in which case it can be built bottom-up from the full store change stream.
+     */
+    private TokenScanWriter newRebuildWriter( PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( isEmpty( cursorTracer ) )
+        {
+            Path spillFile = storeFile.resolveSibling( storeFile.getFileName() + ".rebuild" );
+            return new BulkLoadingNativeTokenScanWriter( index, fileSystem, spillFile, cursorTracer, memoryTracker );
+        }
+        return newBulkAppendWriter( cursorTracer );
+    }
+
     private NativeTokenScanWriter writer( PageCursorTracer cursorTracer ) throws IOException
     {
         return singleWriter.initialize( index.writer( cursorTracer ) );
@@ -46,6 +46,16 @@ public interface TokenScanReader
      */
     TokenScan entityTokenScan( int tokenId, PageCursorTracer cursorTracer );
 
+    /**
+     * Sets the client up for a scan of entities having all, or any, of the given tokens. The tokens are combined in the index,
+     * a whole range of entity ids at a time, instead of the client having to filter the entities of one token on the others.
+     *
+     * @param tokenIds token ids
+     * @param trueForAll if {@code true} only entities having all of the given tokens are scanned, otherwise entities having any of them.
+     * @param cursorTracer underlying page cursor tracer
+     */
+    TokenScan entityTokenScan( int[] tokenIds, boolean trueForAll, PageCursorTracer cursorTracer );
+
     /**
      * @param tokenIds token ids.
      * @param cursorTracer underlying page cursor tracer
@@ -120,6 +120,18 @@ public interface TokenScanStore extends Lifecycle, ConsistencyCheckable
      */
     void force( IOLimiter limiter, PageCursorTracer cursorTracer ) throws IOException;
 
+    /**
+     * Rewrites the store into key order if it has become fragmented, e.g. after many removals.
+     * The result becomes durable by the next {@link #force(IOLimiter, PageCursorTracer)}.
+     *
+     * @param minFragmentation how fragmented, between 0 and 1, the store must be for it to be compacted.
+     * @param limiter {@link IOLimiter} to consult as the store is rewritten.
+     * @param cursorTracer underlying page cursor events tracer.
+     * @return {@code true} if the store was compacted, otherwise {@code false}.
+     * @throws IOException if there was a problem compacting the store.
+     */
+    boolean compact( double minFragmentation, IOLimiter limiter, PageCursorTracer cursorTracer ) throws IOException;
+
     /**
      * Acquire a reader for all {@link EntityTokenRange entity token} ranges.
      *
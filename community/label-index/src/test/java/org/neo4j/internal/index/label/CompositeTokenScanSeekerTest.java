@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.internal.schema.IndexOrder;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompositeTokenScanSeekerTest
+{
+    @Test
+    void shouldIntersectBitSetsOfSameRanges() throws IOException
+    {
+        // given
+        Seeker<TokenScanKey,TokenScanValue> first = seeker( 1, new long[]{0, 2, 3, 7}, new long[]{0b0110, 0b1111, 0b1000, 0b1} );
+        Seeker<TokenScanKey,TokenScanValue> second = seeker( 2, new long[]{1, 2, 3, 7}, new long[]{0b1, 0b0101, 0b0001, 0b11} );
+
+        // when
+        List<long[]> result = drain( new CompositeTokenScanSeeker( asList( first, second ), true, IndexOrder.ASCENDING ) );
+
+        // then range 3 has no bits in common and range 0 and 1 are only in one of them
+        assertThat( result ).containsExactly( new long[]{2, 0b0101}, new long[]{7, 0b1} );
+    }
+
+    @Test
+    void shouldUnionBitSetsOfAllRanges() throws IOException
+    {
+        // given
+        Seeker<TokenScanKey,TokenScanValue> first = seeker( 1, new long[]{0, 2, 7}, new long[]{0b0110, 0b1010, 0b1} );
+        Seeker<TokenScanKey,TokenScanValue> second = seeker( 2, new long[]{1, 2}, new long[]{0b1, 0b0101} );
+
+        // when
+        List<long[]> result = drain( new CompositeTokenScanSeeker( asList( first, second ), false, IndexOrder.ASCENDING ) );
+
+        // then
+        assertThat( result ).containsExactly( new long[]{0, 0b0110}, new long[]{1, 0b1}, new long[]{2, 0b1111}, new long[]{7, 0b1} );
+    }
+
+    @Test
+    void shouldCombineDescendingSeekers() throws IOException
+    {
+        // given
+        Seeker<TokenScanKey,TokenScanValue> first = seeker( 1, new long[]{9, 5, 2}, new long[]{0b1, 0b11, 0b10} );
+        Seeker<TokenScanKey,TokenScanValue> second = seeker( 2, new long[]{5, 4, 2}, new long[]{0b10, 0b1, 0b10} );
+
+        // when
+        List<long[]> intersection = drain( new CompositeTokenScanSeeker( asList( first, second ), true, IndexOrder.DESCENDING ) );
+
+        // then
+        assertThat( intersection ).containsExactly( new long[]{5, 0b10}, new long[]{2, 0b10} );
+    }
+
+    @Test
+    void shouldEndIntersectionWhenAnySeekerIsExhausted() throws IOException
+    {
+        // given
+        Seeker<TokenScanKey,TokenScanValue> first = seeker( 1, new long[]{0}, new long[]{0b1} );
+        Seeker<TokenScanKey,TokenScanValue> second = seeker( 2, new long[]{0, 1, 2}, new long[]{0b1, 0b1, 0b1} );
+
+        // when
+        List<long[]> result = drain( new CompositeTokenScanSeeker( asList( first, second ), true, IndexOrder.ASCENDING ) );
+
+        // then
+        assertThat( result ).containsExactly( new long[]{0, 0b1} );
+    }
+
+    private static List<long[]> drain( Seeker<TokenScanKey,TokenScanValue> seeker ) throws IOException
+    {
+        List<long[]> result = new ArrayList<>();
+        while ( seeker.next() )
+        {
+            result.add( new long[]{seeker.key().idRange, seeker.value().bits} );
+        }
+        seeker.close();
+        return result;
+    }
+
+    private static Seeker<TokenScanKey,TokenScanValue> seeker( int tokenId, long[] ranges, long[] bits )
+    {
+        return new Seeker<>()
+        {
+            private final TokenScanKey key = new TokenScanKey();
+            private final TokenScanValue value = new TokenScanValue();
+            private int cursor = -1;
+
+            @Override
+            public boolean next()
+            {
+                if ( ++cursor >= ranges.length )
+                {
+                    return false;
+                }
+                key.set( tokenId, ranges[cursor] );
+                value.bits = bits[cursor];
+                return true;
+            }
+
+            @Override
+            public TokenScanKey key()
+            {
+                return key;
+            }
+
+            @Override
+            public TokenScanValue value()
+            {
+                return value;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+}
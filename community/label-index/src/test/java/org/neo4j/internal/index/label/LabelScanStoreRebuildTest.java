@@ -19,12 +19,16 @@
  */
 package org.neo4j.internal.index.label;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.neo4j.collection.PrimitiveLongCollections;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.PageCache;
@@ -44,6 +48,7 @@ import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.imme
 import static org.neo4j.internal.index.label.FullStoreChangeStream.EMPTY;
 import static org.neo4j.internal.index.label.FullStoreChangeStream.asStream;
 import static org.neo4j.internal.index.label.TokenScanStore.labelScanStore;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
 
 @PageCacheExtension
@@ -127,6 +132,85 @@ class LabelScanStoreRebuildTest
         }
     }
 
+    @Test
+    void shouldRebuildFromFullStoreChangeStreamInEntityOrder() throws Exception
+    {
+        // given enough entities for the ranges of each label to be spilled to disk during the rebuild
+        List<EntityTokenUpdate> existingData = new ArrayList<>();
+        int entityCount = 100_000;
+        for ( long entityId = 0; entityId < entityCount; entityId++ )
+        {
+            existingData.add( EntityTokenUpdate.tokenChanges( entityId, new long[0], labelsOf( entityId ) ) );
+        }
+
+        // when
+        LabelScanStore labelScanStore = labelScanStore( pageCache, databaseLayout, fileSystem, asStream( existingData ), false, new Monitors(),
+                immediate(), PageCacheTracer.NULL, INSTANCE );
+        try
+        {
+            labelScanStore.init();
+            labelScanStore.start();
+
+            // then
+            assertLabels( labelScanStore, existingData );
+            assertThat( fileSystem.listFiles( databaseLayout.labelScanStore().getParent() ) )
+                    .noneMatch( file -> file.getFileName().toString().endsWith( ".rebuild" ) );
+        }
+        finally
+        {
+            labelScanStore.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRebuildFromFullStoreChangeStreamNotInEntityOrder() throws Exception
+    {
+        // given
+        List<EntityTokenUpdate> existingData = new ArrayList<>();
+        for ( long entityId = 1_000; entityId >= 0; entityId-- )
+        {
+            existingData.add( EntityTokenUpdate.tokenChanges( entityId, new long[0], labelsOf( entityId ) ) );
+        }
+
+        // when
+        LabelScanStore labelScanStore = labelScanStore( pageCache, databaseLayout, fileSystem, asStream( existingData ), false, new Monitors(),
+                immediate(), PageCacheTracer.NULL, INSTANCE );
+        try
+        {
+            labelScanStore.init();
+            labelScanStore.start();
+
+            // then
+            assertLabels( labelScanStore, existingData );
+        }
+        finally
+        {
+            labelScanStore.shutdown();
+        }
+    }
+
+    private static long[] labelsOf( long entityId )
+    {
+        return entityId % 3 == 0 ? new long[]{0, 1} : entityId % 3 == 1 ? new long[]{1} : new long[]{2, 3, 4};
+    }
+
+    private static void assertLabels( LabelScanStore labelScanStore, List<EntityTokenUpdate> existingData )
+    {
+        TokenScanReader reader = labelScanStore.newReader();
+        for ( int labelId = 0; labelId <= 4; labelId++ )
+        {
+            Set<Long> expected = new HashSet<>();
+            for ( EntityTokenUpdate update : existingData )
+            {
+                if ( ArrayUtils.contains( update.getTokensAfter(), labelId ) )
+                {
+                    expected.add( update.getEntityId() );
+                }
+            }
+            assertThat( PrimitiveLongCollections.toSet( reader.entitiesWithToken( labelId, NULL ) ) ).isEqualTo( expected );
+        }
+    }
+
     private void createDirtyIndex( PageCache pageCache ) throws IOException
     {
         LabelScanStore labelScanStore = null;
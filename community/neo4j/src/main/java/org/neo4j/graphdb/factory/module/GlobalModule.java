@@ -353,9 +353,11 @@ public class GlobalModule
     {
         JobScheduler jobScheduler = JobSchedulerFactory.createInitialisedScheduler( globalClock );
         jobScheduler.setParallelism( Group.INDEX_SAMPLING, globalConfig.get( GraphDatabaseInternalSettings.index_sampling_parallelism ) );
+        jobScheduler.setParallelism( Group.INDEX_FORCE, globalConfig.get( GraphDatabaseInternalSettings.index_force_parallelism ) );
         jobScheduler.setParallelism( Group.INDEX_POPULATION, globalConfig.get( GraphDatabaseInternalSettings.index_population_parallelism ) );
         jobScheduler.setParallelism( Group.INDEX_POPULATION_WORK, globalConfig.get( GraphDatabaseInternalSettings.index_population_workers ) );
         jobScheduler.setParallelism( Group.PAGE_CACHE_PRE_FETCHER, globalConfig.get( GraphDatabaseSettings.pagecache_scan_prefetch ) );
+        jobScheduler.setParallelism( Group.PARALLEL_APPLY, globalConfig.get( GraphDatabaseInternalSettings.parallel_apply_threads ) );
         return jobScheduler;
     }
 
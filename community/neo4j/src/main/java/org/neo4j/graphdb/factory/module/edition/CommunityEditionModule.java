@@ -19,6 +19,7 @@
  */
 package org.neo4j.graphdb.factory.module.edition;
 
+import java.time.Duration;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -29,6 +30,7 @@ import org.neo4j.bolt.txtracking.SimpleReconciledTransactionTracker;
 import org.neo4j.collection.Dependencies;
 import org.neo4j.common.DependencyResolver;
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.configuration.connectors.BoltConnector;
 import org.neo4j.configuration.connectors.ConnectorPortRegister;
@@ -72,6 +74,7 @@ import org.neo4j.kernel.impl.locking.LocksFactory;
 import org.neo4j.kernel.impl.locking.SimpleStatementLocksFactory;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.query.QueryEngineProvider;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.AdaptiveIOLimiter;
 import org.neo4j.kernel.lifecycle.Lifecycle;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
@@ -137,7 +140,7 @@ public class CommunityEditionModule extends StandaloneEditionModule
 
         constraintSemantics = createSchemaRuleVerifier();
 
-        ioLimiter = IOLimiter.UNLIMITED;
+        ioLimiter = createIOLimiter( globalModule );
 
         connectionTracker = globalDependencies.satisfyDependency( createConnectionTracker() );
         globalAvailabilityGuard = globalModule.getGlobalAvailabilityGuard();
@@ -145,6 +148,23 @@ public class CommunityEditionModule extends StandaloneEditionModule
         fabricServicesBootstrap = new FabricServicesBootstrap.Community( globalModule.getGlobalLife(), globalDependencies, globalModule.getLogService() );
     }
 
+    private static IOLimiter createIOLimiter( GlobalModule globalModule )
+    {
+        Config globalConfig = globalModule.getGlobalConfig();
+        Duration commitLatencyTarget = globalConfig.get( GraphDatabaseInternalSettings.checkpoint_commit_latency_target );
+        if ( commitLatencyTarget.isZero() )
+        {
+            return IOLimiter.UNLIMITED;
+        }
+        int iopsLimit = globalConfig.get( GraphDatabaseSettings.check_point_iops_limit );
+        AdaptiveIOLimiter limiter = new AdaptiveIOLimiter( commitLatencyTarget, iopsLimit > 0 ? iopsLimit : AdaptiveIOLimiter.MAX_IOPS,
+                globalModule.getGlobalClock() );
+        // Commit latencies are reported through the database monitors, which propagate to the global monitors.
+        globalModule.getGlobalMonitors().addMonitorListener( limiter );
+        // The current IO rate is published for metrics.
+        return globalModule.getGlobalDependencies().satisfyDependency( limiter );
+    }
+
     protected Function<NamedDatabaseId,TokenHolders> createTokenHolderProvider( GlobalModule platform )
     {
         Config globalConfig = platform.getGlobalConfig();
@@ -19,6 +19,7 @@
  */
 package org.neo4j.procedure.builtin;
 
+import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -27,6 +28,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -56,6 +58,8 @@ import org.neo4j.internal.schema.SchemaDescriptor;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.api.procedure.SystemProcedure;
+import org.neo4j.kernel.database.IndexCompaction;
+import org.neo4j.kernel.database.NodeDefragmenter;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
@@ -363,6 +367,38 @@ public class BuiltInProcedures
         indexProcedures.resampleIndex( indexName );
     }
 
+    @Admin
+    @SystemProcedure
+    @Description( "Compacts all indexes which have become fragmented, e.g. after many removals, by rewriting them into key order. " +
+            "Writes to an index, and so transactions updating it, wait while it's being rewritten." )
+    @Procedure( name = "db.compactIndexes", mode = READ )
+    public void compactIndexes() throws IOException
+    {
+        if ( callContext.isSystemDatabase() )
+        {
+            return;
+        }
+
+        resolver.resolveDependency( IndexCompaction.class ).compact( 0 );
+    }
+
+    @Admin
+    @SystemProcedure
+    @Description( "Moves the property and relationship group records of the given nodes next to each other in the store, " +
+            "so that reading the nodes touches fewer pages, and reports how many pages that was before and after." )
+    @Procedure( name = "db.defragmentNodes", mode = READ )
+    public Stream<NodeDefragmentationResult> defragmentNodes( @Name( "nodeIds" ) List<Long> nodeIds ) throws ExecutionException, InterruptedException
+    {
+        if ( callContext.isSystemDatabase() )
+        {
+            return Stream.empty();
+        }
+
+        long[] ids = nodeIds.stream().mapToLong( Long::longValue ).toArray();
+        NodeDefragmenter.Report report = resolver.resolveDependency( NodeDefragmenter.class ).schedule( ids ).get();
+        return Stream.of( new NodeDefragmentationResult( report ) );
+    }
+
     @SystemProcedure
     @Description( "Schedule resampling of all outdated indexes." )
     @Procedure( name = "db.resampleOutdatedIndexes", mode = READ )
@@ -576,6 +612,22 @@ public class BuiltInProcedures
         }
     }
 
+    public static class NodeDefragmentationResult
+    {
+        public final long nodes;
+        public final long defragmentedNodes;
+        public final long pagesBefore;
+        public final long pagesAfter;
+
+        private NodeDefragmentationResult( NodeDefragmenter.Report report )
+        {
+            this.nodes = report.nodes();
+            this.defragmentedNodes = report.defragmentedNodes();
+            this.pagesBefore = report.pagesBefore();
+            this.pagesAfter = report.pagesAfter();
+        }
+    }
+
     public static class BooleanResult
     {
         public BooleanResult( Boolean success )
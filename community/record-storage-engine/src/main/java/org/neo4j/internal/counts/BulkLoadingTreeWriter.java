@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.counts;
+
+import org.eclipse.collections.api.map.primitive.MutableObjectLongMap;
+import org.eclipse.collections.api.tuple.primitive.ObjectLongPair;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectLongHashMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.neo4j.index.internal.gbptree.BulkLoader;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.util.concurrent.OutOfOrderSequence;
+
+import static org.apache.commons.lang3.ArrayUtils.EMPTY_LONG_ARRAY;
+
+/**
+ * Used when building the initial counts of an empty tree. Counts are summed up in memory and loaded into the tree using a {@link BulkLoader}
+ * in the natural tree order when closed, instead of being merged into the tree one by one. There are comparably few counts keys,
+ * so keeping them all in memory is fine.
+ */
+class BulkLoadingTreeWriter implements CountUpdater.CountWriter
+{
+    private final MutableObjectLongMap<CountsKey> counts = new ObjectLongHashMap<>();
+    private final GBPTree<CountsKey,CountsValue> tree;
+    private final CountsLayout layout;
+    private final OutOfOrderSequence idSequence;
+    private final long txId;
+    private final PageCursorTracer cursorTracer;
+
+    BulkLoadingTreeWriter( GBPTree<CountsKey,CountsValue> tree, CountsLayout layout, OutOfOrderSequence idSequence, long txId,
+            PageCursorTracer cursorTracer )
+    {
+        this.tree = tree;
+        this.layout = layout;
+        this.idSequence = idSequence;
+        this.txId = txId;
+        this.cursorTracer = cursorTracer;
+    }
+
+    @Override
+    public void write( CountsKey key, long delta )
+    {
+        counts.addToValue( key, delta );
+    }
+
+    @Override
+    public void close()
+    {
+        List<ObjectLongPair<CountsKey>> sortedCounts = counts.keyValuesView().toSortedList( ( e1, e2 ) -> layout.compare( e1.getOne(), e2.getOne() ) );
+        try ( BulkLoader<CountsKey,CountsValue> loader = tree.bulkLoader( cursorTracer ) )
+        {
+            CountsValue value = new CountsValue();
+            for ( ObjectLongPair<CountsKey> entry : sortedCounts )
+            {
+                long count = entry.getTwo();
+                if ( count < 0 )
+                {
+                    throw new IllegalStateException( "Count for " + entry.getOne() + " got negative: " + count );
+                }
+                if ( count > 0 )
+                {
+                    loader.add( entry.getOne(), value.initialize( count ) );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        idSequence.set( txId, EMPTY_LONG_ARRAY );
+    }
+}
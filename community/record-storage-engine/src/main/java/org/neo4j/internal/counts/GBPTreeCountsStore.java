@@ -49,10 +49,12 @@ import org.neo4j.index.internal.gbptree.MetadataMismatchException;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.TreeFileNotFoundException;
+import org.neo4j.index.internal.gbptree.ValueMerger;
 import org.neo4j.index.internal.gbptree.Writer;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCachePriority;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.memory.MemoryTracker;
@@ -62,12 +64,13 @@ import org.neo4j.util.concurrent.OutOfOrderSequence;
 
 import static org.eclipse.collections.api.factory.Sets.immutable;
 import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+import static org.neo4j.index.internal.gbptree.ValueMerger.MergeResult.REMOVED;
+import static org.neo4j.index.internal.gbptree.ValueMerger.MergeResult.REPLACED;
 import static org.neo4j.internal.counts.CountsKey.MAX_STRAY_TX_ID;
 import static org.neo4j.internal.counts.CountsKey.MIN_STRAY_TX_ID;
 import static org.neo4j.internal.counts.CountsKey.nodeKey;
 import static org.neo4j.internal.counts.CountsKey.relationshipKey;
 import static org.neo4j.internal.counts.CountsKey.strayTxId;
-import static org.neo4j.internal.counts.TreeWriter.merge;
 import static org.neo4j.io.IOUtils.closeAllUnchecked;
 import static org.neo4j.io.pagecache.tracing.PageCacheTracer.NULL;
 import static org.neo4j.storageengine.api.TransactionIdStore.BASE_TX_ID;
@@ -84,6 +87,8 @@ public class GBPTreeCountsStore implements CountsStore
     public static final Monitor NO_MONITOR = txId -> {};
     private static final long NEEDS_REBUILDING_HIGH_ID = 0;
     private static final String OPEN_COUNT_STORE_TAG = "openCountStore";
+    private static final ValueMerger<CountsKey,CountsValue> MERGER =
+            ( existingKey, newKey, existingValue, newValue ) -> newValue.count > 0 ? REPLACED : REMOVED;
 
     private final GBPTree<CountsKey,CountsValue> tree;
     private final OutOfOrderSequence idSequence;
@@ -144,7 +149,7 @@ public class GBPTreeCountsStore implements CountsStore
         try
         {
             return new GBPTree<>( pageCache, file, layout, GBPTree.NO_MONITOR, header, header, recoveryCollector, readOnly, pageCacheTracer,
-                    immutable.empty(), "Counts store" );
+                    immutable.of( PageCachePriority.HIGH ), "Counts store" );
         }
         catch ( TreeFileNotFoundException e )
         {
@@ -167,7 +172,7 @@ public class GBPTreeCountsStore implements CountsStore
             }
             Lock lock = lock( this.lock.writeLock() );
             long txId = initialCountsBuilder.lastCommittedTxId();
-            try ( CountsAccessor.Updater updater = new CountUpdater( new TreeWriter( tree.writer( cursorTracer ), idSequence, txId ), lock ) )
+            try ( CountsAccessor.Updater updater = new CountUpdater( new BulkLoadingTreeWriter( tree, layout, idSequence, txId, cursorTracer ), lock ) )
             {
                 initialCountsBuilder.initialize( updater, cursorTracer, memoryTracker );
             }
@@ -269,6 +274,22 @@ public class GBPTreeCountsStore implements CountsStore
         }
     }
 
+    private static void merge( Writer<CountsKey,CountsValue> writer, CountsKey key, CountsValue value )
+    {
+        if ( value.count > 0 )
+        {
+            writer.merge( key, value, MERGER );
+        }
+        else if ( value.count == 0 )
+        {
+            writer.remove( key );
+        }
+        else
+        {
+            throw new IllegalStateException( "Count for " + key + " got negative: " + value.count );
+        }
+    }
+
     private void updateTxIdInformationInTree( OutOfOrderSequence.Snapshot txIdSnapshot, PageCursorTracer cursorTracer ) throws IOException
     {
         PrimitiveLongArrayQueue strayIds = new PrimitiveLongArrayQueue();
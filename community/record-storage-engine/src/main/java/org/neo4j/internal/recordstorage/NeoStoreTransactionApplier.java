@@ -50,9 +50,17 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
     private final LockService lockService;
     private final IdUpdateListener idUpdateListener;
     private final PageCursorTracer cursorTracer;
+    // Node, relationship, relationship group and property records which have yet to be written, or null if they are written right away
+    private final ParallelRecordUpdater.PendingUpdates pendingUpdates;
 
     public NeoStoreTransactionApplier( CommandVersion version, NeoStores neoStores, CacheAccessBackDoor cacheAccess, LockService lockService,
             long transactionId, BatchContext batchContext, PageCursorTracer cursorTracer )
+    {
+        this( version, neoStores, cacheAccess, lockService, transactionId, batchContext, cursorTracer, ParallelRecordUpdater.SEQUENTIAL );
+    }
+
+    NeoStoreTransactionApplier( CommandVersion version, NeoStores neoStores, CacheAccessBackDoor cacheAccess, LockService lockService,
+            long transactionId, BatchContext batchContext, PageCursorTracer cursorTracer, ParallelRecordUpdater parallelRecordUpdater )
     {
         this.version = version;
         this.lockGroup = batchContext.getLockGroup();
@@ -62,6 +70,7 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         this.cacheAccess = cacheAccess;
         this.idUpdateListener = batchContext.getIdUpdateListener();
         this.cursorTracer = cursorTracer;
+        this.pendingUpdates = parallelRecordUpdater.isEnabled() ? parallelRecordUpdater.newPendingUpdates() : null;
     }
 
     @Override
@@ -71,7 +80,7 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         lockGroup.add( lockService.acquireNodeLock( command.getKey(), EXCLUSIVE ) );
 
         // update store
-        updateStore( neoStores.getNodeStore(), command );
+        updateStoreEventually( neoStores.getNodeStore(), command );
         return false;
     }
 
@@ -80,7 +89,7 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
     {
         lockGroup.add( lockService.acquireRelationshipLock( command.getKey(), EXCLUSIVE ) );
 
-        updateStore( neoStores.getRelationshipStore(), command );
+        updateStoreEventually( neoStores.getRelationshipStore(), command );
         return false;
     }
 
@@ -97,14 +106,14 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
             lockGroup.add( lockService.acquireRelationshipLock( command.getRelId(), EXCLUSIVE ) );
         }
 
-        updateStore( neoStores.getPropertyStore(), command );
+        updateStoreEventually( neoStores.getPropertyStore(), command );
         return false;
     }
 
     @Override
     public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
     {
-        updateStore( neoStores.getRelationshipGroupStore(), command );
+        updateStoreEventually( neoStores.getRelationshipGroupStore(), command );
         return false;
     }
 
@@ -141,6 +150,8 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         //    job might get those as updates
         // 4) the population job will apply those updates as added properties, and might end up with duplicate
         //    entries for the same property
+        // Index updates are applied when the rule is, and they read the records of this transaction, so write those first
+        applyPendingUpdates();
         updateStore( neoStores.getSchemaStore(), command );
         SchemaRule schemaRule = command.getSchemaRule();
         boolean isConstraint = command.getAfter().isConstraint();
@@ -175,6 +186,44 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         }
     }
 
+    @Override
+    public void beforeClose()
+    {
+        // Appliers later in the chain read records of this transaction from the store when they are closed, f.ex. to gather index updates
+        applyPendingUpdates();
+    }
+
+    @Override
+    public void close()
+    {
+        // In case this applier isn't part of a chain
+        applyPendingUpdates();
+    }
+
+    private void applyPendingUpdates()
+    {
+        if ( pendingUpdates != null )
+        {
+            pendingUpdates.apply( idUpdateListener, cursorTracer );
+        }
+    }
+
+    /**
+     * Like {@link #updateStore(CommonAbstractStore, BaseCommand)}, but may hold on to the record until the end of the transaction,
+     * to write all records of a large transaction using several threads.
+     */
+    private <RECORD extends AbstractBaseRecord> void updateStoreEventually( CommonAbstractStore<RECORD,?> store, BaseCommand<RECORD> command )
+    {
+        if ( pendingUpdates != null )
+        {
+            pendingUpdates.add( store, selectRecordByCommandVersion( command ) );
+        }
+        else
+        {
+            updateStore( store, command );
+        }
+    }
+
     private <RECORD extends AbstractBaseRecord> void updateStore( CommonAbstractStore<RECORD,?> store, BaseCommand<RECORD> command )
     {
         store.updateRecord( selectRecordByCommandVersion( command ), idUpdateListener, cursorTracer );
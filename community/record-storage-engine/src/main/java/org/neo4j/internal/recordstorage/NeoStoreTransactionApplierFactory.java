@@ -38,20 +38,28 @@ public class NeoStoreTransactionApplierFactory implements TransactionApplierFact
     // Ideally we don't want any cache access in here, but it is how it is. At least we try to minimize use of it
     private final CacheAccessBackDoor cacheAccess;
     private final LockService lockService;
+    private final ParallelRecordUpdater parallelRecordUpdater;
 
     NeoStoreTransactionApplierFactory( TransactionApplicationMode mode, NeoStores store, CacheAccessBackDoor cacheAccess, LockService lockService )
+    {
+        this( mode, store, cacheAccess, lockService, ParallelRecordUpdater.SEQUENTIAL );
+    }
+
+    NeoStoreTransactionApplierFactory( TransactionApplicationMode mode, NeoStores store, CacheAccessBackDoor cacheAccess, LockService lockService,
+            ParallelRecordUpdater parallelRecordUpdater )
     {
         this.version = mode.version();
         this.neoStores = store;
         this.cacheAccess = cacheAccess;
         this.lockService = lockService;
+        this.parallelRecordUpdater = parallelRecordUpdater;
     }
 
     @Override
     public TransactionApplier startTx( CommandsToApply transaction, BatchContext batchContext )
     {
         return new NeoStoreTransactionApplier( version, neoStores, cacheAccess, lockService, transaction.transactionId(), batchContext,
-                transaction.cursorTracer() );
+                transaction.cursorTracer(), parallelRecordUpdater );
     }
 
 }
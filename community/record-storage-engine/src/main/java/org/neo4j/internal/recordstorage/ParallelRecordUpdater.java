@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.neo4j.exceptions.UnderlyingStorageException;
+import org.neo4j.internal.id.IdGenerator;
+import org.neo4j.internal.id.IdType;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.store.CommonAbstractStore;
+import org.neo4j.kernel.impl.store.IdUpdateListener;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.lang.Math.floorMod;
+import static org.neo4j.scheduler.JobMonitoringParams.NOT_MONITORED;
+
+/**
+ * Writes the records changed by large transactions to the stores using several threads. The records are partitioned by store and page,
+ * so that all records of a page, and so all changes to a record, are written by the same thread in the order they were changed.
+ * This also keeps threads from contending for the same pages. The partitions are written by jobs in the {@link Group#PARALLEL_APPLY} group.
+ * <p>
+ * Concurrent readers must never see a record pointing to a record which isn't written yet, or which is already deleted. The commands of a
+ * transaction are ordered to guarantee that, see {@link TransactionRecordState#extractCommands}: creates come before updates, which come
+ * before deletes, and within each of those the stores come in a fixed order. The records are therefore written one run of consecutive
+ * records of the same store and {@link Command.Mode mode} at a time, and only the records of a run are written in parallel.
+ * <p>
+ * Locks from the {@link org.neo4j.lock.LockService} are still acquired by the applying thread, before handing records over to be written,
+ * and held until the whole batch of transactions has been applied. Id changes are recorded by the writing threads and handed to the
+ * {@link IdUpdateListener} of the applying thread afterwards, since it isn't thread safe.
+ */
+class ParallelRecordUpdater
+{
+    static final ParallelRecordUpdater SEQUENTIAL = new ParallelRecordUpdater( 1, 0, null, PageCacheTracer.NULL );
+
+    private static final String PARALLEL_APPLY_TAG = "parallelApply";
+
+    private final int threads;
+    private final int minRecords;
+    private final JobScheduler jobScheduler;
+    private final PageCacheTracer cacheTracer;
+
+    ParallelRecordUpdater( int threads, int minRecords, JobScheduler jobScheduler, PageCacheTracer cacheTracer )
+    {
+        this.threads = threads;
+        this.minRecords = minRecords;
+        this.jobScheduler = jobScheduler;
+        this.cacheTracer = cacheTracer;
+    }
+
+    boolean isEnabled()
+    {
+        return threads > 1 && minRecords > 0;
+    }
+
+    /**
+     * @return a new buffer for the records changed by one transaction.
+     */
+    PendingUpdates newPendingUpdates()
+    {
+        return new PendingUpdates();
+    }
+
+    private static <RECORD extends AbstractBaseRecord> void write( Update<RECORD> update, IdUpdateListener idUpdateListener,
+            PageCursorTracer cursorTracer )
+    {
+        update.store.updateRecord( update.record, idUpdateListener, cursorTracer );
+    }
+
+    /**
+     * The records changed by one transaction, in the order they were changed.
+     */
+    class PendingUpdates
+    {
+        private final List<Update<?>> updates = new ArrayList<>();
+
+        <RECORD extends AbstractBaseRecord> void add( CommonAbstractStore<RECORD,?> store, RECORD record )
+        {
+            updates.add( new Update<>( store, record ) );
+        }
+
+        /**
+         * Writes all pending records to their stores, in order, one run of records of the same store and mode at a time. Each run is written
+         * on several threads if it has enough records, and completed before the next one is started.
+         */
+        void apply( IdUpdateListener idUpdateListener, PageCursorTracer cursorTracer )
+        {
+            try
+            {
+                int runStart = 0;
+                for ( int i = 1; i <= updates.size(); i++ )
+                {
+                    if ( i == updates.size() || !updates.get( i ).inSameRunAs( updates.get( runStart ) ) )
+                    {
+                        applyRun( updates.subList( runStart, i ), idUpdateListener, cursorTracer );
+                        runStart = i;
+                    }
+                }
+            }
+            finally
+            {
+                updates.clear();
+            }
+        }
+
+        private void applyRun( List<Update<?>> run, IdUpdateListener idUpdateListener, PageCursorTracer cursorTracer )
+        {
+            if ( run.size() < minRecords )
+            {
+                for ( Update<?> update : run )
+                {
+                    write( update, idUpdateListener, cursorTracer );
+                }
+            }
+            else
+            {
+                applyInParallel( run, idUpdateListener, cursorTracer );
+            }
+        }
+
+        private void applyInParallel( List<Update<?>> run, IdUpdateListener idUpdateListener, PageCursorTracer cursorTracer )
+        {
+            List<List<Update<?>>> partitions = new ArrayList<>( threads );
+            for ( int i = 0; i < threads; i++ )
+            {
+                partitions.add( new ArrayList<>() );
+            }
+            for ( Update<?> update : run )
+            {
+                partitions.get( update.partition( threads ) ).add( update );
+            }
+
+            List<JobHandle<RecordingIdUpdateListener>> jobs = new ArrayList<>( threads - 1 );
+            for ( int i = 1; i < threads; i++ )
+            {
+                List<Update<?>> partition = partitions.get( i );
+                if ( !partition.isEmpty() )
+                {
+                    jobs.add( jobScheduler.schedule( Group.PARALLEL_APPLY, NOT_MONITORED, () -> writePartition( partition ) ) );
+                }
+            }
+
+            // The applying thread writes one of the partitions itself, meanwhile
+            Throwable failure = null;
+            try
+            {
+                for ( Update<?> update : partitions.get( 0 ) )
+                {
+                    write( update, idUpdateListener, cursorTracer );
+                }
+            }
+            catch ( Throwable t )
+            {
+                failure = t;
+            }
+            // Wait for all of the partitions, even if one failed, so that no records are written after application has failed
+            for ( JobHandle<RecordingIdUpdateListener> job : jobs )
+            {
+                try
+                {
+                    RecordingIdUpdateListener recordedIdUpdates = job.get();
+                    if ( failure == null )
+                    {
+                        recordedIdUpdates.replay( idUpdateListener, cursorTracer );
+                    }
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    failure = failure == null ? e : failure;
+                }
+                catch ( ExecutionException e )
+                {
+                    failure = failure == null ? e.getCause() : failure;
+                }
+            }
+            if ( failure instanceof RuntimeException )
+            {
+                throw (RuntimeException) failure;
+            }
+            if ( failure instanceof Error )
+            {
+                throw (Error) failure;
+            }
+            if ( failure != null )
+            {
+                throw new UnderlyingStorageException( failure );
+            }
+        }
+
+        private RecordingIdUpdateListener writePartition( List<Update<?>> partition )
+        {
+            RecordingIdUpdateListener recordingIdUpdates = new RecordingIdUpdateListener();
+            try ( PageCursorTracer workerCursorTracer = cacheTracer.createPageCursorTracer( PARALLEL_APPLY_TAG ) )
+            {
+                for ( Update<?> update : partition )
+                {
+                    write( update, recordingIdUpdates, workerCursorTracer );
+                }
+            }
+            return recordingIdUpdates;
+        }
+    }
+
+    private static class Update<RECORD extends AbstractBaseRecord>
+    {
+        private final CommonAbstractStore<RECORD,?> store;
+        private final RECORD record;
+        private final Command.Mode mode;
+
+        Update( CommonAbstractStore<RECORD,?> store, RECORD record )
+        {
+            this.store = store;
+            this.record = record;
+            this.mode = Command.Mode.fromRecordState( record );
+        }
+
+        boolean inSameRunAs( Update<?> other )
+        {
+            return store == other.store && mode == other.mode;
+        }
+
+        int partition( int partitions )
+        {
+            // Spread consecutive pages of a store over all partitions
+            long pageId = record.getId() / store.getRecordsPerPage();
+            return floorMod( pageId * 31 + store.getIdType().ordinal(), partitions );
+        }
+    }
+
+    private static class RecordingIdUpdateListener implements IdUpdateListener
+    {
+        private final List<IdUpdate> idUpdates = new ArrayList<>();
+
+        @Override
+        public void markIdAsUsed( IdType idType, IdGenerator idGenerator, long id, PageCursorTracer cursorTracer )
+        {
+            idUpdates.add( new IdUpdate( idType, idGenerator, id, true ) );
+        }
+
+        @Override
+        public void markIdAsUnused( IdType idType, IdGenerator idGenerator, long id, PageCursorTracer cursorTracer )
+        {
+            idUpdates.add( new IdUpdate( idType, idGenerator, id, false ) );
+        }
+
+        void replay( IdUpdateListener idUpdateListener, PageCursorTracer cursorTracer )
+        {
+            for ( IdUpdate idUpdate : idUpdates )
+            {
+                if ( idUpdate.used )
+                {
+                    idUpdateListener.markIdAsUsed( idUpdate.idType, idUpdate.idGenerator, idUpdate.id, cursorTracer );
+                }
+                else
+                {
+                    idUpdateListener.markIdAsUnused( idUpdate.idType, idUpdate.idGenerator, idUpdate.id, cursorTracer );
+                }
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            // Nothing to close, the recorded changes are replayed on the listener of the applying thread
+        }
+    }
+
+    private static class IdUpdate
+    {
+        private final IdType idType;
+        private final IdGenerator idGenerator;
+        private final long id;
+        private final boolean used;
+
+        IdUpdate( IdType idType, IdGenerator idGenerator, long id, boolean used )
+        {
+            this.idType = idType;
+            this.idGenerator = idGenerator;
+            this.id = id;
+            this.used = used;
+        }
+    }
+}
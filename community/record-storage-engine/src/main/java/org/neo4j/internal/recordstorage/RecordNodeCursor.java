@@ -49,6 +49,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
     private final PageCursorTracer cursorTracer;
     private final RelationshipStore relationshipStore;
     private final RelationshipGroupStore groupStore;
+    private final RelationshipGroupDirectory groupDirectory;
     private PageCursor pageCursor;
     private long next;
     private long highMark;
@@ -59,13 +60,15 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
     private RecordRelationshipTraversalCursor relationshipCursor;
     private RecordLoadOverride loadMode;
 
-    RecordNodeCursor( NodeStore read, RelationshipStore relationshipStore, RelationshipGroupStore groupStore, PageCursorTracer cursorTracer )
+    RecordNodeCursor( NodeStore read, RelationshipStore relationshipStore, RelationshipGroupStore groupStore, RelationshipGroupDirectory groupDirectory,
+            PageCursorTracer cursorTracer )
     {
         super( NO_ID );
         this.read = read;
         this.cursorTracer = cursorTracer;
         this.relationshipStore = relationshipStore;
         this.groupStore = groupStore;
+        this.groupDirectory = groupDirectory;
         this.loadMode = RecordLoadOverride.none();
     }
 
@@ -195,7 +198,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         {
             if ( relationshipCursor == null )
             {
-                relationshipCursor = new RecordRelationshipTraversalCursor( relationshipStore, groupStore, cursorTracer );
+                relationshipCursor = new RecordRelationshipTraversalCursor( relationshipStore, groupStore, groupDirectory, cursorTracer );
             }
             relationshipCursor.init( this, ALL_RELATIONSHIPS );
             while ( relationshipCursor.next() )
@@ -207,7 +210,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         {
             if ( groupCursor == null )
             {
-                groupCursor = new RecordRelationshipGroupCursor( relationshipStore, groupStore, cursorTracer, loadMode );
+                groupCursor = new RecordRelationshipGroupCursor( relationshipStore, groupStore, groupDirectory, cursorTracer, loadMode );
             }
             groupCursor.init( entityReference(), getNextRel(), true );
             while ( groupCursor.next() )
@@ -225,7 +228,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         {
             if ( relationshipCursor == null )
             {
-                relationshipCursor = new RecordRelationshipTraversalCursor( relationshipStore, groupStore, cursorTracer );
+                relationshipCursor = new RecordRelationshipTraversalCursor( relationshipStore, groupStore, groupDirectory, cursorTracer );
             }
             relationshipCursor.init( this, ALL_RELATIONSHIPS );
             while ( relationshipCursor.next() )
@@ -261,11 +264,15 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         {
             if ( groupCursor == null )
             {
-                groupCursor = new RecordRelationshipGroupCursor( relationshipStore, groupStore, cursorTracer, loadMode );
+                groupCursor = new RecordRelationshipGroupCursor( relationshipStore, groupStore, groupDirectory, cursorTracer, loadMode );
             }
             groupCursor.init( entityReference(), getNextRel(), isDense() );
             int criteriaMet = 0;
             boolean typeLimited = selection.isTypeLimited();
+            if ( typeLimited )
+            {
+                groupCursor.selectTypes( selection );
+            }
             int numCriteria = selection.numberOfCriteria();
             while ( groupCursor.next() )
             {
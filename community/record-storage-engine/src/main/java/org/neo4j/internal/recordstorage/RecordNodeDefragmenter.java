@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.internal.id.IdGenerator;
+import org.neo4j.internal.id.IdRange;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.store.CommonAbstractStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.storageengine.api.NodeDefragmentation;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static java.util.Collections.emptyList;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+/**
+ * Moves the property records and, for dense nodes, the relationship group records of a node into consecutive ids, so that reading the
+ * properties of the node, or finding the relationship chains of a dense node, touches as few pages as possible.
+ * Relationship records are not moved since their ids are the ids of the relationships themselves. A chain is only moved if
+ * that makes it span fewer pages. The node, its labels and its property values are left as they are, only records pointing
+ * to the moved records change.
+ */
+class RecordNodeDefragmenter
+{
+    private final NodeStore nodeStore;
+    private final PropertyStore propertyStore;
+    private final RelationshipGroupStore groupStore;
+
+    RecordNodeDefragmenter( NeoStores neoStores )
+    {
+        this.nodeStore = neoStores.getNodeStore();
+        this.propertyStore = neoStores.getPropertyStore();
+        this.groupStore = neoStores.getRelationshipGroupStore();
+    }
+
+    NodeDefragmentation defragment( long nodeId, PageCursorTracer cursorTracer )
+    {
+        NodeRecord node = nodeStore.getRecord( nodeId, nodeStore.newRecord(), CHECK, cursorTracer );
+        if ( !node.inUse() )
+        {
+            return new NodeDefragmentation( emptyList(), 0, 0 );
+        }
+
+        List<PropertyRecord> properties = propertyStore.getRecords( node.getNextProp(), NORMAL, true, cursorTracer );
+        List<RelationshipGroupRecord> groups = node.isDense() ? groupStore.getRecords( node.getNextRel(), NORMAL, true, cursorTracer ) : emptyList();
+        long[] propertyIds = ids( properties );
+        long[] groupIds = ids( groups );
+        long pagesBefore = pages( propertyIds, propertyStore ) + pages( groupIds, groupStore );
+        long[] newPropertyIds = allocateCompactRange( propertyIds, propertyStore, cursorTracer );
+        long[] newGroupIds = allocateCompactRange( groupIds, groupStore, cursorTracer );
+        if ( newPropertyIds == null && newGroupIds == null )
+        {
+            return new NodeDefragmentation( emptyList(), pagesBefore, pagesBefore );
+        }
+
+        List<StorageCommand> created = new ArrayList<>();
+        List<StorageCommand> deleted = new ArrayList<>();
+        NodeRecord nodeAfter = new NodeRecord( node );
+        long pagesAfter = 0;
+        if ( newPropertyIds != null )
+        {
+            moveProperties( node, properties, newPropertyIds, created, deleted, cursorTracer );
+            nodeAfter.setNextProp( newPropertyIds[0] );
+            pagesAfter += pages( newPropertyIds, propertyStore );
+        }
+        else
+        {
+            pagesAfter += pages( propertyIds, propertyStore );
+        }
+        if ( newGroupIds != null )
+        {
+            moveGroups( groups, newGroupIds, created, deleted, cursorTracer );
+            nodeAfter.setNextRel( newGroupIds[0] );
+            pagesAfter += pages( newGroupIds, groupStore );
+        }
+        else
+        {
+            pagesAfter += pages( groupIds, groupStore );
+        }
+
+        // The new records are written before the node points to them and the old ones are removed after, same as when
+        // a transaction creates and deletes records, so that a concurrent reader never follows a pointer to a record not yet written.
+        List<StorageCommand> commands = new ArrayList<>( created.size() + deleted.size() + 1 );
+        commands.addAll( created );
+        commands.add( new Command.NodeCommand( node, nodeAfter ) );
+        commands.addAll( deleted );
+        return new NodeDefragmentation( commands, pagesBefore, pagesAfter );
+    }
+
+    private void moveProperties( NodeRecord node, List<PropertyRecord> properties, long[] newIds, List<StorageCommand> created,
+            List<StorageCommand> deleted, PageCursorTracer cursorTracer )
+    {
+        for ( int i = 0; i < newIds.length; i++ )
+        {
+            PropertyRecord record = properties.get( i );
+            record.setNodeId( node.getId() );
+            PropertyRecord moved = new PropertyRecord( newIds[i], node );
+            moved.initialize( true, i == 0 ? Record.NO_PREVIOUS_PROPERTY.longValue() : newIds[i - 1],
+                    i == newIds.length - 1 ? Record.NO_NEXT_PROPERTY.longValue() : newIds[i + 1] );
+            for ( PropertyBlock block : record )
+            {
+                // The blocks are moved as they are, dynamic records holding large values stay where they are
+                moved.addPropertyBlock( block );
+            }
+            moved.setCreated();
+            propertyStore.prepareForCommit( moved, cursorTracer );
+            created.add( new Command.PropertyCommand( new PropertyRecord( newIds[i], node ), moved ) );
+
+            PropertyRecord removed = new PropertyRecord( record );
+            removed.clearPropertyBlocks();
+            removed.setInUse( false );
+            deleted.add( new Command.PropertyCommand( record, removed ) );
+        }
+    }
+
+    private void moveGroups( List<RelationshipGroupRecord> groups, long[] newIds, List<StorageCommand> created, List<StorageCommand> deleted,
+            PageCursorTracer cursorTracer )
+    {
+        for ( int i = 0; i < newIds.length; i++ )
+        {
+            RelationshipGroupRecord record = groups.get( i );
+            RelationshipGroupRecord moved = new RelationshipGroupRecord( newIds[i] ).initialize( true, record.getType(), record.getFirstOut(),
+                    record.getFirstIn(), record.getFirstLoop(), record.getOwningNode(),
+                    i == newIds.length - 1 ? Record.NO_NEXT_RELATIONSHIP.longValue() : newIds[i + 1] );
+            moved.setCreated();
+            groupStore.prepareForCommit( moved, cursorTracer );
+            created.add( new Command.RelationshipGroupCommand( new RelationshipGroupRecord( newIds[i] ), moved ) );
+
+            RelationshipGroupRecord removed = new RelationshipGroupRecord( record );
+            removed.setInUse( false );
+            deleted.add( new Command.RelationshipGroupCommand( record, removed ) );
+        }
+    }
+
+    /**
+     * Allocates a consecutive range of ids to move a chain of records with the given ids to, if that makes the chain span fewer pages.
+     *
+     * @return the ids to move the records to, or {@code null} if the chain should stay where it is.
+     */
+    private static long[] allocateCompactRange( long[] ids, CommonAbstractStore<?,?> store, PageCursorTracer cursorTracer )
+    {
+        int recordsPerPage = store.getRecordsPerPage();
+        long pagesBefore = pages( ids, store );
+        if ( pagesBefore <= (ids.length + recordsPerPage - 1) / recordsPerPage )
+        {
+            return null;
+        }
+
+        IdGenerator idGenerator = store.getIdGenerator();
+        IdRange range = idGenerator.nextIdBatch( ids.length, true, cursorTracer );
+        long[] newIds = new long[ids.length];
+        for ( int i = 0; i < newIds.length; i++ )
+        {
+            newIds[i] = range.getRangeStart() + i;
+        }
+        if ( pages( newIds, store ) >= pagesBefore )
+        {
+            // The range happened to straddle as many page boundaries as the chain already does
+            idGenerator.releaseUnusedIds( newIds, cursorTracer );
+            return null;
+        }
+        return newIds;
+    }
+
+    private static long pages( long[] ids, CommonAbstractStore<?,?> store )
+    {
+        int recordsPerPage = store.getRecordsPerPage();
+        return Arrays.stream( ids ).map( id -> id / recordsPerPage ).distinct().count();
+    }
+
+    private static long[] ids( List<? extends AbstractBaseRecord> records )
+    {
+        return records.stream().mapToLong( AbstractBaseRecord::getId ).toArray();
+    }
+}
@@ -19,6 +19,9 @@
  */
 package org.neo4j.internal.recordstorage;
 
+import java.util.Arrays;
+
+import org.neo4j.internal.recordstorage.RelationshipGroupDirectory.Groups;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.store.RelationshipGroupStore;
@@ -26,6 +29,7 @@ import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.record.RecordLoadOverride;
 import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.storageengine.api.RelationshipSelection;
 
 import static org.neo4j.kernel.impl.store.record.RecordLoad.ALWAYS;
 
@@ -33,6 +37,7 @@ class RecordRelationshipGroupCursor extends RelationshipGroupRecord implements A
 {
     private final RelationshipStore relationshipStore;
     private final RelationshipGroupStore groupStore;
+    private final RelationshipGroupDirectory directory;
     private final PageCursorTracer cursorTracer;
     private final RelationshipRecord edge = new RelationshipRecord( NO_ID );
 
@@ -41,12 +46,23 @@ class RecordRelationshipGroupCursor extends RelationshipGroupRecord implements A
     private boolean open;
     RecordLoadOverride loadMode;
 
-    RecordRelationshipGroupCursor( RelationshipStore relationshipStore, RelationshipGroupStore groupStore, PageCursorTracer cursorTracer,
-            RecordLoadOverride loadMode )
+    // Set when only the groups of some types are to be visited, which are then looked up in the directory
+    private int[] types;
+    private int typeIndex;
+    private Groups groups;
+    private boolean rebuilt;
+    private long nodeReference;
+    private long firstGroupReference;
+    private boolean addToDirectory;
+    private int walkedGroups;
+
+    RecordRelationshipGroupCursor( RelationshipStore relationshipStore, RelationshipGroupStore groupStore, RelationshipGroupDirectory directory,
+            PageCursorTracer cursorTracer, RecordLoadOverride loadMode )
     {
         super( NO_ID );
         this.relationshipStore = relationshipStore;
         this.groupStore = groupStore;
+        this.directory = directory;
         this.cursorTracer = cursorTracer;
         this.loadMode = loadMode;
     }
@@ -77,10 +93,46 @@ class RecordRelationshipGroupCursor extends RelationshipGroupRecord implements A
         {
             page = groupPage( reference );
         }
+        this.types = null;
+        this.addToDirectory = false;
+        this.nodeReference = nodeReference;
+        this.firstGroupReference = reference;
+    }
+
+    /**
+     * Limits this cursor, after having been initialized, to the groups of the types of the given type limited selection.
+     * If the groups of the node are in the {@link RelationshipGroupDirectory} they are looked up there instead of walking
+     * the whole group chain, which matters for nodes with many relationship types. Groups are visited in type order either way.
+     */
+    void selectTypes( RelationshipSelection selection )
+    {
+        if ( !directory.isEnabled() || firstGroupReference == NO_ID )
+        {
+            return;
+        }
+        Groups nodeGroups = directory.cachedGroups( nodeReference );
+        if ( nodeGroups != null )
+        {
+            this.types = selectedTypes( selection );
+            this.typeIndex = 0;
+            this.groups = nodeGroups;
+            this.rebuilt = false;
+        }
+        else
+        {
+            // Walk the chain this time, but add the node to the directory if it turns out to have many groups
+            this.walkedGroups = 0;
+            this.addToDirectory = true;
+        }
     }
 
     boolean next()
     {
+        if ( types != null )
+        {
+            return nextOfSelectedType();
+        }
+
         do
         {
             if ( getNext() == NO_ID )
@@ -92,9 +144,99 @@ class RecordRelationshipGroupCursor extends RelationshipGroupRecord implements A
             group( this, getNext(), page );
         } while ( !inUse() );
 
+        if ( addToDirectory && ++walkedGroups >= RelationshipGroupDirectory.MIN_GROUPS )
+        {
+            addToDirectory = false;
+            directory.add( nodeReference, firstGroupReference, cursorTracer );
+        }
         return true;
     }
 
+    private boolean nextOfSelectedType()
+    {
+        while ( typeIndex < types.length )
+        {
+            int type = types[typeIndex];
+            long groupId = groups.groupId( type );
+            if ( groupId == NO_ID )
+            {
+                // The directory is only a positive hint, it may have been read before a group of this type was created
+                if ( nextInChain( type ) )
+                {
+                    typeIndex++;
+                    return true;
+                }
+            }
+            else
+            {
+                group( this, groupId, page );
+                if ( inUse() && getType() == type && getOwningNode() == nodeReference )
+                {
+                    typeIndex++;
+                    return true;
+                }
+                if ( !rebuilt )
+                {
+                    // The directory was out of date with the store, so walk the group chain once more and retry
+                    rebuilt = true;
+                    Groups rebuiltGroups = directory.rebuild( nodeReference, firstGroupReference, cursorTracer );
+                    if ( rebuiltGroups != null )
+                    {
+                        groups = rebuiltGroups;
+                        continue;
+                    }
+                }
+            }
+            typeIndex++;
+        }
+        return false;
+    }
+
+    /**
+     * Looks for the group of the given type in the chain, which is sorted by type, starting from the group which the directory has
+     * right before it, or from the start of the chain if that group is out of date with the store.
+     */
+    private boolean nextInChain( int type )
+    {
+        long groupId = firstGroupReference;
+        long before = groups.groupIdBefore( type );
+        if ( before != NO_ID )
+        {
+            group( this, before, page );
+            if ( inUse() && getType() < type && getOwningNode() == nodeReference )
+            {
+                groupId = getNext();
+            }
+        }
+        while ( groupId != NO_ID )
+        {
+            group( this, groupId, page );
+            if ( inUse() && getOwningNode() == nodeReference )
+            {
+                if ( getType() == type )
+                {
+                    return true;
+                }
+                if ( getType() > type )
+                {
+                    return false;
+                }
+            }
+            groupId = getNext();
+        }
+        return false;
+    }
+
+    private static int[] selectedTypes( RelationshipSelection selection )
+    {
+        int[] selected = new int[selection.numberOfCriteria()];
+        for ( int i = 0; i < selected.length; i++ )
+        {
+            selected[i] = selection.criterion( i ).type();
+        }
+        return Arrays.stream( selected ).sorted().distinct().toArray();
+    }
+
     int outgoingCount()
     {
         return count( outgoingRawId() );
@@ -52,10 +52,11 @@ class RecordRelationshipTraversalCursor extends RecordRelationshipCursor impleme
     private GroupState groupState;
     private boolean open;
 
-    RecordRelationshipTraversalCursor( RelationshipStore relationshipStore, RelationshipGroupStore groupStore, PageCursorTracer cursorTracer )
+    RecordRelationshipTraversalCursor( RelationshipStore relationshipStore, RelationshipGroupStore groupStore, RelationshipGroupDirectory groupDirectory,
+            PageCursorTracer cursorTracer )
     {
         super( relationshipStore, cursorTracer );
-        this.group = new RecordRelationshipGroupCursor( relationshipStore, groupStore, cursorTracer, loadMode );
+        this.group = new RecordRelationshipGroupCursor( relationshipStore, groupStore, groupDirectory, cursorTracer, loadMode );
     }
 
     void init( RecordNodeCursor nodeCursor, RelationshipSelection selection )
@@ -125,6 +126,10 @@ class RecordRelationshipTraversalCursor extends RecordRelationshipCursor impleme
         this.groupState = GroupState.INCOMING;
         this.originNodeReference = nodeReference;
         this.group.direct( nodeReference, groupReference );
+        if ( selection.isTypeLimited() )
+        {
+            this.group.selectTypes( selection );
+        }
     }
 
     @Override
@@ -19,6 +19,7 @@
  */
 package org.neo4j.internal.recordstorage;
 
+import org.neo4j.internal.id.CachedIdSequence;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.PropertyStore;
@@ -43,14 +44,23 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
     private final PropertyCreator propertyCreator;
     private final PropertyDeleter propertyDeleter;
     private final PageCursorTracer cursorTracer;
+    private final CachedIdSequence nodeIds;
+    private final CachedIdSequence relationshipIds;
+    private final CachedIdSequence relationshipGroupIds;
+    private final CachedIdSequence propertyIds;
 
-    RecordStorageCommandCreationContext( NeoStores neoStores, int denseNodeThreshold, PageCursorTracer cursorTracer, MemoryTracker memoryTracker )
+    RecordStorageCommandCreationContext( NeoStores neoStores, RelationshipGroupDirectory relationshipGroupDirectory, int denseNodeThreshold,
+            int idBatchSize, PageCursorTracer cursorTracer, MemoryTracker memoryTracker )
     {
         this.cursorTracer = cursorTracer;
         this.neoStores = neoStores;
         this.memoryTracker = memoryTracker;
         this.loaders = new Loaders( neoStores );
-        RelationshipGroupGetter relationshipGroupGetter = new RelationshipGroupGetter( neoStores.getRelationshipGroupStore(), cursorTracer );
+        this.nodeIds = new CachedIdSequence( neoStores.getNodeStore().getIdGenerator(), idBatchSize );
+        this.relationshipIds = new CachedIdSequence( neoStores.getRelationshipStore().getIdGenerator(), idBatchSize );
+        this.relationshipGroupIds = new CachedIdSequence( neoStores.getRelationshipGroupStore().getIdGenerator(), idBatchSize );
+        this.propertyIds = new CachedIdSequence( neoStores.getPropertyStore().getIdGenerator(), idBatchSize );
+        RelationshipGroupGetter relationshipGroupGetter = new RelationshipGroupGetter( relationshipGroupIds, relationshipGroupDirectory, cursorTracer );
         this.relationshipCreator = new RelationshipCreator( relationshipGroupGetter, denseNodeThreshold, cursorTracer );
         PropertyTraverser propertyTraverser = new PropertyTraverser( cursorTracer );
         this.propertyDeleter = new PropertyDeleter( propertyTraverser, cursorTracer );
@@ -58,7 +68,7 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
         PropertyStore propertyStore = neoStores.getPropertyStore();
         this.propertyCreator = new PropertyCreator(
                 new StandardDynamicRecordAllocator( propertyStore.getStringStore(), propertyStore.getStringStore().getRecordDataSize() ),
-                new StandardDynamicRecordAllocator( propertyStore.getArrayStore(), propertyStore.getArrayStore().getRecordDataSize() ), propertyStore,
+                new StandardDynamicRecordAllocator( propertyStore.getArrayStore(), propertyStore.getArrayStore().getRecordDataSize() ), propertyIds,
                 propertyTraverser, propertyStore.allowStorePointsAndTemporal(), cursorTracer, memoryTracker );
     }
 
@@ -70,13 +80,13 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
     @Override
     public long reserveNode()
     {
-        return nextId( StoreType.NODE );
+        return nodeIds.nextId( cursorTracer );
     }
 
     @Override
     public long reserveRelationship()
     {
-        return nextId( StoreType.RELATIONSHIP );
+        return relationshipIds.nextId( cursorTracer );
     }
 
     @Override
@@ -103,9 +113,19 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
         return toIntExact( neoStores.getLabelTokenStore().nextId( cursorTracer ) );
     }
 
+    @Override
+    public void reset()
+    {
+        nodeIds.releaseUnused( cursorTracer );
+        relationshipIds.releaseUnused( cursorTracer );
+        relationshipGroupIds.releaseUnused( cursorTracer );
+        propertyIds.releaseUnused( cursorTracer );
+    }
+
     @Override
     public void close()
     {
+        reset();
     }
 
     TransactionRecordState createTransactionRecordState( IntegrityValidator integrityValidator, long lastTransactionIdWhenStarted,
@@ -74,12 +74,14 @@ import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.monitoring.Health;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.CommandCreationContext;
 import org.neo4j.storageengine.api.CommandsToApply;
 import org.neo4j.storageengine.api.ConstraintRuleAccessor;
 import org.neo4j.storageengine.api.EntityTokenUpdateListener;
 import org.neo4j.storageengine.api.IndexUpdateListener;
 import org.neo4j.storageengine.api.MetadataProvider;
+import org.neo4j.storageengine.api.NodeDefragmentation;
 import org.neo4j.storageengine.api.StorageCommand;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.StorageReader;
@@ -125,6 +127,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final MemoryTracker otherMemoryTracker;
     private final GBPTreeCountsStore countsStore;
     private final int denseNodeThreshold;
+    private final int recordIdBatchSize;
+    private final RelationshipGroupDirectory relationshipGroupDirectory;
+    private final ParallelRecordUpdater parallelRecordUpdater;
     private final Map<IdType,WorkSync<IdGenerator,IdGeneratorUpdateWork>> idGeneratorWorkSyncs = new EnumMap<>( IdType.class );
     private final Map<TransactionApplicationMode,TransactionApplierFactoryChain> applierChains = new EnumMap<>( TransactionApplicationMode.class );
 
@@ -147,6 +152,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             IdGeneratorFactory idGeneratorFactory,
             IdController idController,
             RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            JobScheduler jobScheduler,
             PageCacheTracer cacheTracer,
             boolean createStoreIfNotExists,
             MemoryTracker otherMemoryTracker )
@@ -177,10 +183,16 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             cacheAccess = new BridgingCacheAccess( schemaCache, schemaState, tokenHolders );
 
             denseNodeThreshold = config.get( GraphDatabaseSettings.dense_node_threshold );
+            recordIdBatchSize = config.get( GraphDatabaseInternalSettings.record_id_batch_size );
+            relationshipGroupDirectory = new RelationshipGroupDirectory( neoStores.getRelationshipGroupStore(),
+                    config.get( GraphDatabaseInternalSettings.relationship_group_directory_max_nodes ) );
 
             countsStore = openCountsStore( pageCache, fs, databaseLayout, config, logProvider, recoveryCleanupWorkCollector, cacheTracer );
 
             consistencyCheckApply = config.get( GraphDatabaseInternalSettings.consistency_check_on_apply );
+            int parallelApplyThreads = config.get( GraphDatabaseInternalSettings.parallel_apply_threads );
+            parallelRecordUpdater = new ParallelRecordUpdater( parallelApplyThreads == 0 ? Runtime.getRuntime().availableProcessors() : parallelApplyThreads,
+                    config.get( GraphDatabaseInternalSettings.parallel_apply_min_records ), jobScheduler, cacheTracer );
         }
         catch ( Throwable failure )
         {
@@ -207,7 +219,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         {
             appliers.add( new ConsistencyCheckingApplierFactory( neoStores ) );
         }
-        appliers.add( new NeoStoreTransactionApplierFactory( mode, neoStores, cacheAccess, lockService( mode ) ) );
+        appliers.add( new NeoStoreTransactionApplierFactory( mode, neoStores, cacheAccess, lockService( mode ), parallelRecordUpdater ) );
+        appliers.add( new RelationshipGroupDirectoryTransactionApplierFactory( mode, relationshipGroupDirectory ) );
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdTransactionApplierFactory( neoStores ) );
@@ -261,13 +274,14 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public RecordStorageReader newReader()
     {
-        return new RecordStorageReader( tokenHolders, neoStores, countsStore, schemaCache );
+        return new RecordStorageReader( tokenHolders, neoStores, countsStore, schemaCache, relationshipGroupDirectory );
     }
 
     @Override
     public RecordStorageCommandCreationContext newCommandCreationContext( PageCursorTracer cursorTracer, MemoryTracker memoryTracker )
     {
-        return new RecordStorageCommandCreationContext( neoStores, denseNodeThreshold, cursorTracer, memoryTracker );
+        return new RecordStorageCommandCreationContext( neoStores, relationshipGroupDirectory, denseNodeThreshold, recordIdBatchSize, cursorTracer,
+                memoryTracker );
     }
 
     @Override
@@ -370,6 +384,12 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         }
     }
 
+    @Override
+    public NodeDefragmentation defragmentNode( long nodeId, PageCursorTracer cursorTracer )
+    {
+        return new RecordNodeDefragmenter( neoStores ).defragment( nodeId, cursorTracer );
+    }
+
     /**
      * Provides a {@link TransactionApplierFactoryChain} that is to be used for all transactions
      * in a batch. Each transaction is handled by a {@link TransactionApplierFacade} which wraps the
@@ -63,10 +63,12 @@ public class RecordStorageReader implements StorageReader
     private final PropertyStore propertyStore;
     private final CountsAccessor counts;
     private final SchemaCache schemaCache;
+    private final RelationshipGroupDirectory relationshipGroupDirectory;
 
     private boolean closed;
 
-    RecordStorageReader( TokenHolders tokenHolders, NeoStores neoStores, CountsAccessor counts, SchemaCache schemaCache )
+    RecordStorageReader( TokenHolders tokenHolders, NeoStores neoStores, CountsAccessor counts, SchemaCache schemaCache,
+            RelationshipGroupDirectory relationshipGroupDirectory )
     {
         this.tokenHolders = tokenHolders;
         this.nodeStore = neoStores.getNodeStore();
@@ -75,6 +77,7 @@ public class RecordStorageReader implements StorageReader
         this.propertyStore = neoStores.getPropertyStore();
         this.counts = counts;
         this.schemaCache = schemaCache;
+        this.relationshipGroupDirectory = relationshipGroupDirectory;
     }
 
     /**
@@ -83,7 +86,7 @@ public class RecordStorageReader implements StorageReader
      */
     public RecordStorageReader( NeoStores stores )
     {
-        this( null, stores, null, null );
+        this( null, stores, null, null, RelationshipGroupDirectory.NO_DIRECTORY );
     }
 
     @Override
@@ -314,13 +317,13 @@ public class RecordStorageReader implements StorageReader
     @Override
     public RecordNodeCursor allocateNodeCursor( PageCursorTracer cursorTracer )
     {
-        return new RecordNodeCursor( nodeStore, relationshipStore, relationshipGroupStore, cursorTracer );
+        return new RecordNodeCursor( nodeStore, relationshipStore, relationshipGroupStore, relationshipGroupDirectory, cursorTracer );
     }
 
     @Override
     public StorageRelationshipTraversalCursor allocateRelationshipTraversalCursor( PageCursorTracer cursorTracer )
     {
-        return new RecordRelationshipTraversalCursor( relationshipStore, relationshipGroupStore, cursorTracer );
+        return new RecordRelationshipTraversalCursor( relationshipStore, relationshipGroupStore, relationshipGroupDirectory, cursorTracer );
     }
 
     @Override
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import org.eclipse.collections.api.list.primitive.MutableIntList;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.impl.factory.primitive.IntLists;
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+
+import static org.neo4j.kernel.impl.store.record.AbstractBaseRecord.NO_ID;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.ALWAYS;
+
+/**
+ * In-memory directory of the relationship groups of dense nodes with many relationship types, which finds the group of a type
+ * by binary search instead of by walking the group chain of the node. The directory of a node is built by walking its group chain
+ * once a traversal has seen that it's long, see {@link #add(long, long, PageCursorTracer)}, and is kept up to date as groups of the node
+ * are created and deleted, see {@link #groupChanged(RelationshipGroupRecord, RelationshipGroupRecord)}. Only nodes with at least
+ * {@link #MIN_GROUPS} groups are kept, and at most a configured number of them.
+ * <p>
+ * Since the directory is read without any locks, concurrently with transactions being applied, it is only a hint:
+ * callers must check that the group they load is in use, owned by the node and of the type they asked for, and must not take
+ * a type missing from the directory to mean that the node has no group of that type.
+ */
+public class RelationshipGroupDirectory
+{
+    /**
+     * Walking chains of fewer groups than this is cheap enough to not be worth keeping a directory for.
+     */
+    static final int MIN_GROUPS = 32;
+
+    public static final RelationshipGroupDirectory NO_DIRECTORY = new RelationshipGroupDirectory( null, 0 );
+
+    private final RelationshipGroupStore groupStore;
+    private final int maxNodes;
+    private final ConcurrentHashMap<Long,Groups> directory = new ConcurrentHashMap<>();
+    // Bumped on every change of any group, so that a directory built concurrently with a change isn't kept
+    private volatile long changes;
+
+    public RelationshipGroupDirectory( RelationshipGroupStore groupStore, int maxNodes )
+    {
+        this.groupStore = groupStore;
+        this.maxNodes = maxNodes;
+    }
+
+    boolean isEnabled()
+    {
+        return maxNodes > 0;
+    }
+
+    /**
+     * Adds a dense node to the directory, by walking its group chain, unless the directory is full.
+     *
+     * @param nodeId dense node to add the groups of.
+     * @param firstGroupId id of the first group in the group chain of the node.
+     * @param cursorTracer underlying page cursor tracer.
+     */
+    void add( long nodeId, long firstGroupId, PageCursorTracer cursorTracer )
+    {
+        if ( isEnabled() && directory.size() < maxNodes )
+        {
+            build( nodeId, firstGroupId, cursorTracer );
+        }
+    }
+
+    /**
+     * Walks the group chain of a node once more, e.g. after a group from the directory turned out to be out of date with the store.
+     *
+     * @return the groups of the node, or {@code null} if the group chain isn't sorted by type.
+     */
+    Groups rebuild( long nodeId, long firstGroupId, PageCursorTracer cursorTracer )
+    {
+        return build( nodeId, firstGroupId, cursorTracer );
+    }
+
+    /**
+     * @param nodeId dense node to get the groups of.
+     * @return the groups of the node if they are in the directory, otherwise {@code null}.
+     */
+    Groups cachedGroups( long nodeId )
+    {
+        return isEnabled() ? directory.get( nodeId ) : null;
+    }
+
+    /**
+     * Keeps the directory up to date with a group record being applied to the store. Must be called after the record has been written.
+     */
+    void groupChanged( RelationshipGroupRecord before, RelationshipGroupRecord after )
+    {
+        if ( !isEnabled() || before.inUse() == after.inUse() )
+        {
+            // Changes of the pointers of a group don't change which group a type has
+            return;
+        }
+
+        synchronized ( this )
+        {
+            changes++;
+            long nodeId = after.inUse() ? after.getOwningNode() : before.getOwningNode();
+            Groups groups = directory.get( nodeId );
+            if ( groups == null )
+            {
+                return;
+            }
+            if ( after.inUse() )
+            {
+                directory.put( nodeId, groups.with( after.getType(), after.getId() ) );
+            }
+            else
+            {
+                Groups remaining = groups.without( before.getType(), before.getId() );
+                if ( remaining.types.length == 0 )
+                {
+                    directory.remove( nodeId );
+                }
+                else
+                {
+                    directory.put( nodeId, remaining );
+                }
+            }
+        }
+    }
+
+    private Groups build( long nodeId, long firstGroupId, PageCursorTracer cursorTracer )
+    {
+        long changesBefore = changes;
+        MutableIntList types = IntLists.mutable.empty();
+        MutableLongList groupIds = LongLists.mutable.empty();
+        RelationshipGroupRecord record = groupStore.newRecord();
+        try ( PageCursor cursor = groupStore.openPageCursorForReading( firstGroupId, cursorTracer ) )
+        {
+            long groupId = firstGroupId;
+            while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+            {
+                // Load forcefully, same as the group cursor, to be able to walk past groups which have been concurrently deleted
+                groupStore.getRecordByCursor( groupId, record, ALWAYS, cursor );
+                if ( record.inUse() )
+                {
+                    if ( !types.isEmpty() && types.getLast() >= record.getType() )
+                    {
+                        return null;
+                    }
+                    types.add( record.getType() );
+                    groupIds.add( groupId );
+                }
+                groupId = record.getNext();
+            }
+        }
+
+        Groups groups = new Groups( types.toArray(), groupIds.toArray() );
+        if ( groups.types.length >= MIN_GROUPS && isEnabled() )
+        {
+            synchronized ( this )
+            {
+                if ( changes == changesBefore && (directory.containsKey( nodeId ) || directory.size() < maxNodes) )
+                {
+                    directory.put( nodeId, groups );
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * The groups of a node, sorted by type, same as in the group chain.
+     */
+    static class Groups
+    {
+        private final int[] types;
+        private final long[] groupIds;
+
+        Groups( int[] types, long[] groupIds )
+        {
+            this.types = types;
+            this.groupIds = groupIds;
+        }
+
+        /**
+         * @return id of the group of the given type, or {@link org.neo4j.kernel.impl.store.record.AbstractBaseRecord#NO_ID} if there's none.
+         */
+        long groupId( int type )
+        {
+            int index = Arrays.binarySearch( types, type );
+            return index >= 0 ? groupIds[index] : NO_ID;
+        }
+
+        /**
+         * @return id of the group with the highest type lower than the given type, i.e. the group which comes before a group of the
+         * given type in the chain, or {@link org.neo4j.kernel.impl.store.record.AbstractBaseRecord#NO_ID} if there's none.
+         */
+        long groupIdBefore( int type )
+        {
+            int index = Arrays.binarySearch( types, type );
+            int before = (index >= 0 ? index : -index - 1) - 1;
+            return before >= 0 ? groupIds[before] : NO_ID;
+        }
+
+        private Groups with( int type, long groupId )
+        {
+            int index = Arrays.binarySearch( types, type );
+            if ( index >= 0 )
+            {
+                long[] newGroupIds = groupIds.clone();
+                newGroupIds[index] = groupId;
+                return new Groups( types, newGroupIds );
+            }
+            int insertionPoint = -index - 1;
+            int[] newTypes = new int[types.length + 1];
+            long[] newGroupIds = new long[groupIds.length + 1];
+            System.arraycopy( types, 0, newTypes, 0, insertionPoint );
+            System.arraycopy( groupIds, 0, newGroupIds, 0, insertionPoint );
+            newTypes[insertionPoint] = type;
+            newGroupIds[insertionPoint] = groupId;
+            System.arraycopy( types, insertionPoint, newTypes, insertionPoint + 1, types.length - insertionPoint );
+            System.arraycopy( groupIds, insertionPoint, newGroupIds, insertionPoint + 1, groupIds.length - insertionPoint );
+            return new Groups( newTypes, newGroupIds );
+        }
+
+        private Groups without( int type, long groupId )
+        {
+            int index = Arrays.binarySearch( types, type );
+            if ( index < 0 || groupIds[index] != groupId )
+            {
+                // Another group of this type has already taken its place, e.g. when the groups have been moved
+                return this;
+            }
+            int[] newTypes = new int[types.length - 1];
+            long[] newGroupIds = new long[groupIds.length - 1];
+            System.arraycopy( types, 0, newTypes, 0, index );
+            System.arraycopy( groupIds, 0, newGroupIds, 0, index );
+            System.arraycopy( types, index + 1, newTypes, index, types.length - index - 1 );
+            System.arraycopy( groupIds, index + 1, newGroupIds, index, groupIds.length - index - 1 );
+            return new Groups( newTypes, newGroupIds );
+        }
+    }
+}
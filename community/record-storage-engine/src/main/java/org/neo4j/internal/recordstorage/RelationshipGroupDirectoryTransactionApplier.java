@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import org.neo4j.internal.recordstorage.Command.RelationshipGroupCommand;
+import org.neo4j.storageengine.api.CommandVersion;
+
+/**
+ * Keeps the {@link RelationshipGroupDirectory} up to date with the relationship groups being created and deleted.
+ */
+public class RelationshipGroupDirectoryTransactionApplier extends TransactionApplier.Adapter
+{
+    private final CommandVersion version;
+    private final RelationshipGroupDirectory directory;
+
+    public RelationshipGroupDirectoryTransactionApplier( CommandVersion version, RelationshipGroupDirectory directory )
+    {
+        this.version = version;
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean visitRelationshipGroupCommand( RelationshipGroupCommand command )
+    {
+        if ( version == CommandVersion.AFTER )
+        {
+            directory.groupChanged( command.getBefore(), command.getAfter() );
+        }
+        else
+        {
+            // Reverse recovery writes the before state of the command
+            directory.groupChanged( command.getAfter(), command.getBefore() );
+        }
+        return false;
+    }
+}
@@ -29,11 +29,18 @@ import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 public class RelationshipGroupGetter
 {
     private final IdSequence idGenerator;
+    private final RelationshipGroupDirectory directory;
     private final PageCursorTracer cursorTracer;
 
     public RelationshipGroupGetter( IdSequence idGenerator, PageCursorTracer cursorTracer )
+    {
+        this( idGenerator, RelationshipGroupDirectory.NO_DIRECTORY, cursorTracer );
+    }
+
+    public RelationshipGroupGetter( IdSequence idGenerator, RelationshipGroupDirectory directory, PageCursorTracer cursorTracer )
     {
         this.idGenerator = idGenerator;
+        this.directory = directory;
         this.cursorTracer = cursorTracer;
     }
 
@@ -44,6 +51,14 @@ public class RelationshipGroupGetter
         long previousGroupId = Record.NO_NEXT_RELATIONSHIP.intValue();
         RecordProxy<RelationshipGroupRecord, Integer> previous = null;
         RecordProxy<RelationshipGroupRecord, Integer> current;
+        RecordProxy<RelationshipGroupRecord, Integer> start = closestPreviousInDirectory( node, type, relGroupRecords );
+        if ( start != null )
+        {
+            // The groups are sorted in the chain, so the group of this type, if any, comes after this one
+            previous = start;
+            previousGroupId = start.getKey();
+            groupId = start.forReadingData().getNext();
+        }
         while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
         {
             current = relGroupRecords.getOrLoad( groupId, null, cursorTracer );
@@ -65,6 +80,28 @@ public class RelationshipGroupGetter
         return new RelationshipGroupPosition( previous, null );
     }
 
+    /**
+     * @return the group which comes closest before the group of the given type in the chain of the node, as known by the directory,
+     * or {@code null} if the node isn't in the directory or the directory is out of date with the group.
+     */
+    private RecordProxy<RelationshipGroupRecord, Integer> closestPreviousInDirectory( NodeRecord node, int type,
+            RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords )
+    {
+        RelationshipGroupDirectory.Groups groups = directory.cachedGroups( node.getId() );
+        if ( groups == null )
+        {
+            return null;
+        }
+        long groupId = groups.groupIdBefore( type );
+        if ( groupId == Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            return null;
+        }
+        RecordProxy<RelationshipGroupRecord, Integer> candidate = relGroupRecords.getOrLoad( groupId, null, cursorTracer );
+        RelationshipGroupRecord record = candidate.forReadingData();
+        return record.inUse() && record.getOwningNode() == node.getId() && record.getType() < type ? candidate : null;
+    }
+
     public RecordProxy<RelationshipGroupRecord, Integer> getOrCreateRelationshipGroup(
             RecordProxy<NodeRecord,Void> nodeChange, int type, RecordAccess<RelationshipGroupRecord, Integer> relGroupRecords )
     {
@@ -74,7 +111,10 @@ public class RelationshipGroupGetter
         {
             NodeRecord node = nodeChange.forChangingLinkage();
             assert node.isDense() : "Node " + node + " should have been dense at this point";
-            long id = idGenerator.nextId( cursorTracer );
+            // Place the new group close to the other groups of this node, if there are any
+            RecordProxy<RelationshipGroupRecord, Integer> closestPreviousChange = existingGroup.closestPrevious();
+            long nearId = closestPreviousChange != null ? closestPreviousChange.getKey() : node.getNextRel();
+            long id = nearId != Record.NO_NEXT_RELATIONSHIP.intValue() ? idGenerator.nextIdNear( nearId, cursorTracer ) : idGenerator.nextId( cursorTracer );
             change = relGroupRecords.create( id, type, cursorTracer );
             RelationshipGroupRecord record = change.forChangingData();
             record.setInUse( true );
@@ -82,7 +122,6 @@ public class RelationshipGroupGetter
             record.setOwningNode( node.getId() );
 
             // Attach it...
-            RecordProxy<RelationshipGroupRecord, Integer> closestPreviousChange = existingGroup.closestPrevious();
             if ( closestPreviousChange != null )
             {   // ...after the closest previous one
                 RelationshipGroupRecord closestPrevious = closestPreviousChange.forChangingLinkage();
@@ -19,6 +19,7 @@
  */
 package org.neo4j.internal.recordstorage;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
 import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
 import org.eclipse.collections.impl.set.mutable.UnifiedSet;
@@ -243,6 +244,7 @@ public class SchemaCache
         private final Map<SchemaDescriptor,IndexDescriptor> indexesBySchema;
         private final SchemaDescriptorLookupSet<IndexDescriptor> indexesByNode;
         private final SchemaDescriptorLookupSet<IndexDescriptor> indexesByRelationship;
+        private final Set<IndexDescriptor> indexesWithIncludedProperties;
         private final SchemaDescriptorLookupSet<IndexBackedConstraintDescriptor> uniquenessConstraintsByNode;
         private final SchemaDescriptorLookupSet<IndexBackedConstraintDescriptor> uniquenessConstraintsByRelationship;
         private final Map<String,IndexDescriptor> indexesByName;
@@ -263,6 +265,7 @@ public class SchemaCache
             this.indexesBySchema = new HashMap<>();
             this.indexesByNode = new SchemaDescriptorLookupSet<>();
             this.indexesByRelationship = new SchemaDescriptorLookupSet<>();
+            this.indexesWithIncludedProperties = new HashSet<>();
             this.uniquenessConstraintsByNode = new SchemaDescriptorLookupSet<>();
             this.uniquenessConstraintsByRelationship = new SchemaDescriptorLookupSet<>();
             this.indexesByName = new HashMap<>();
@@ -284,6 +287,7 @@ public class SchemaCache
             this.indexesBySchema = new HashMap<>( schemaCacheState.indexesBySchema );
             this.indexesByNode = new SchemaDescriptorLookupSet<>();
             this.indexesByRelationship = new SchemaDescriptorLookupSet<>();
+            this.indexesWithIncludedProperties = new HashSet<>( schemaCacheState.indexesWithIncludedProperties );
             this.uniquenessConstraintsByNode = new SchemaDescriptorLookupSet<>();
             this.uniquenessConstraintsByRelationship = new SchemaDescriptorLookupSet<>();
             // Now fill the node/relationship sets
@@ -409,8 +413,36 @@ public class SchemaCache
             {
                 return result;
             }
-            return indexCache.computeIfAbsent( key,
-                    k -> getSchemaRelatedTo( set, changedEntityTokens, unchangedEntityTokens, properties, propertyListIsComplete ) );
+            return indexCache.computeIfAbsent( key, k ->
+            {
+                Set<IndexDescriptor> indexes = getSchemaRelatedTo( set, changedEntityTokens, unchangedEntityTokens, properties, propertyListIsComplete );
+                addIndexesIncludingAnyOf( indexes, entityType, changedEntityTokens, unchangedEntityTokens, properties );
+                return indexes;
+            } );
+        }
+
+        /**
+         * The lookup sets only know about the indexed properties, but indexes with included properties must also be updated when any of
+         * the included properties of an entity in the index changes.
+         */
+        private void addIndexesIncludingAnyOf( Set<IndexDescriptor> indexes, EntityType entityType, long[] changedEntityTokens,
+                long[] unchangedEntityTokens, int[] properties )
+        {
+            for ( IndexDescriptor index : indexesWithIncludedProperties )
+            {
+                SchemaDescriptor schema = index.schema();
+                if ( schema.entityType() == entityType && (schema.isAffected( changedEntityTokens ) || schema.isAffected( unchangedEntityTokens )) )
+                {
+                    for ( int includedPropertyId : index.getIncludedPropertyIds() )
+                    {
+                        if ( ArrayUtils.contains( properties, includedPropertyId ) )
+                        {
+                            indexes.add( index );
+                            break;
+                        }
+                    }
+                }
+            }
         }
 
         Set<IndexBackedConstraintDescriptor> getUniquenessConstraintsRelatedTo( EntityType entityType, long[] changedEntityTokens,
@@ -530,6 +562,10 @@ public class SchemaCache
                 indexesBySchema.put( schemaDescriptor, index );
                 indexesByName.put( rule.getName(), index );
                 selectIndexSetByEntityType( schemaDescriptor.entityType() ).add( index );
+                if ( index.getIncludedPropertyIds().length > 0 )
+                {
+                    indexesWithIncludedProperties.add( index );
+                }
             }
         }
 
@@ -552,6 +588,7 @@ public class SchemaCache
                 indexesBySchema.remove( schema );
                 indexesByName.remove( index.getName(), index );
                 selectIndexSetByEntityType( schema.entityType() ).remove( index );
+                indexesWithIncludedProperties.remove( index );
             }
         }
     }
@@ -41,6 +41,15 @@ import org.neo4j.storageengine.api.StorageCommand;
  */
 public interface TransactionApplier extends Visitor<StorageCommand,IOException>, CommandVisitor, AutoCloseable
 {
+    /**
+     * Called when all commands of the transaction have been visited, before any of the appliers of the transaction is closed.
+     * Work that other appliers depend on when they are closed, like writing records they read from the store, should be completed here.
+     */
+    default void beforeClose() throws Exception
+    {
+        // Nothing to complete by default
+    }
+
     /**
      * Delegates to individual visit methods (see {@link CommandVisitor}) which need to be implemented, as well as
      * {@link #close()} if applicable.
@@ -26,7 +26,7 @@ import org.neo4j.storageengine.api.StorageCommand;
 /**
  * Wraps several {@link TransactionApplier}s. In this case, each individual visit-call will delegate to {@link
  * #visit(StorageCommand)} instead, which will call each wrapped {@link TransactionApplier} in turn. In
- * {@link #close()},
+ * {@link #close()}, all appliers are first told that the transaction is about to close, in order, and then
  * the appliers are closed in reversed order.
  */
 public class TransactionApplierFacade implements TransactionApplier
@@ -41,11 +41,21 @@ public class TransactionApplierFacade implements TransactionApplier
     @Override
     public void close() throws Exception
     {
-        // Need to close in reverse order or LuceneRecoveryIT can hang on database shutdown, when
-        // errors are thrown
-        for ( int i = appliers.length - 1; i >= 0; i-- )
+        try
         {
-            appliers[i].close();
+            for ( TransactionApplier applier : appliers )
+            {
+                applier.beforeClose();
+            }
+        }
+        finally
+        {
+            // Need to close in reverse order or LuceneRecoveryIT can hang on database shutdown, when
+            // errors are thrown
+            for ( int i = appliers.length - 1; i >= 0; i-- )
+            {
+                appliers[i].close();
+            }
         }
     }
 
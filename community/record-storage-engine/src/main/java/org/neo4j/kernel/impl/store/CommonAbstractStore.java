@@ -61,6 +61,7 @@ import static java.lang.String.format;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static org.neo4j.internal.helpers.Exceptions.throwIfUnchecked;
 import static org.neo4j.io.pagecache.PageCacheOpenOptions.ANY_PAGE_SIZE;
+import static org.neo4j.io.pagecache.PageCacheOpenOptions.COMPRESSED;
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
@@ -230,7 +231,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
                     // Create the id generator, and also open it because some stores may need the id generator when initializing their store
                     boolean readOnly = configuration.get( GraphDatabaseSettings.read_only );
                     idGenerator = idGeneratorFactory.create( pageCache, idFile, idType, getNumberOfReservedLowIds(), false, recordFormat.getMaxId(),
-                            readOnly, cursorTracer, openOptions );
+                            readOnly, cursorTracer, openOptions.newWithout( COMPRESSED ) );
 
                     // Map the file (w/ the CREATE flag) and initialize the header
                     pagedFile = pageCache.map( storageFile, filePageSize, openOptions.newWith( CREATE ) );
@@ -606,7 +607,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     {
         boolean readOnly = configuration.get( GraphDatabaseSettings.read_only );
         idGenerator = idGeneratorFactory.open( pageCache, idFile, getIdType(), () -> scanForHighId( cursorTracer ), recordFormat.getMaxId(), readOnly,
-                cursorTracer, openOptions );
+                cursorTracer, openOptions.newWithout( COMPRESSED ) );
     }
 
     /**
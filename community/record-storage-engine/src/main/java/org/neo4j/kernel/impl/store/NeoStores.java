@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseInternalSettings;
@@ -39,6 +41,8 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.impl.CompressedPageSwapper;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.store.format.FormatFamily;
@@ -84,6 +88,7 @@ public class NeoStores implements AutoCloseable
     private final CommonAbstractStore[] stores;
     private final PageCacheTracer pageCacheTracer;
     private final ImmutableSet<OpenOption> openOptions;
+    private final Set<Path> compressedStoreFiles;
 
     NeoStores(
             FileSystemAbstraction fileSystem,
@@ -108,6 +113,7 @@ public class NeoStores implements AutoCloseable
         this.createIfNotExist = createIfNotExist;
         this.pageCacheTracer = pageCacheTracer;
         this.openOptions = openOptions;
+        this.compressedStoreFiles = compressedStoreFiles( config, layout );
 
         stores = new CommonAbstractStore[StoreType.values().length];
         // First open the meta data store so that we can verify the record format. We know that this store is of the type MetaDataStore
@@ -429,7 +435,8 @@ public class NeoStores implements AutoCloseable
     {
         return initialize(
                 new NodeStore( layout.nodeStore(), layout.idNodeStore(), config, idGeneratorFactory, pageCache, logProvider,
-                        (DynamicArrayStore) getOrOpenStore( StoreType.NODE_LABEL, cursorTracer ), recordFormats, openOptions ), cursorTracer );
+                        (DynamicArrayStore) getOrOpenStore( StoreType.NODE_LABEL, cursorTracer ), recordFormats,
+                        openOptions( layout.nodeStore() ) ), cursorTracer );
     }
 
     CommonAbstractStore createNodeLabelStore( PageCursorTracer cursorTracer )
@@ -442,7 +449,7 @@ public class NeoStores implements AutoCloseable
     {
         return initialize( new PropertyKeyTokenStore( layout.propertyKeyTokenStore(), layout.idPropertyKeyTokenStore(), config,
                 idGeneratorFactory, pageCache, logProvider, (DynamicStringStore) getOrOpenStore( StoreType.PROPERTY_KEY_TOKEN_NAME, cursorTracer ),
-                recordFormats, openOptions ), cursorTracer );
+                recordFormats, openOptions( layout.propertyKeyTokenStore() ) ), cursorTracer );
     }
 
     CommonAbstractStore createPropertyKeyTokenNamesStore( PageCursorTracer cursorTracer )
@@ -456,7 +463,8 @@ public class NeoStores implements AutoCloseable
         return initialize( new PropertyStore( layout.propertyStore(), layout.idPropertyStore(), config, idGeneratorFactory, pageCache,
                 logProvider, (DynamicStringStore) getOrOpenStore( StoreType.PROPERTY_STRING, cursorTracer ),
                 (PropertyKeyTokenStore) getOrOpenStore( StoreType.PROPERTY_KEY_TOKEN, cursorTracer ),
-                (DynamicArrayStore) getOrOpenStore( StoreType.PROPERTY_ARRAY, cursorTracer ), recordFormats, openOptions ), cursorTracer );
+                (DynamicArrayStore) getOrOpenStore( StoreType.PROPERTY_ARRAY, cursorTracer ), recordFormats,
+                openOptions( layout.propertyStore() ) ), cursorTracer );
     }
 
     CommonAbstractStore createPropertyStringStore( PageCursorTracer cursorTracer )
@@ -474,7 +482,7 @@ public class NeoStores implements AutoCloseable
     {
         return initialize(
                 new RelationshipStore( layout.relationshipStore(), layout.idRelationshipStore(), config, idGeneratorFactory,
-                        pageCache, logProvider, recordFormats, openOptions ), cursorTracer );
+                        pageCache, logProvider, recordFormats, openOptions( layout.relationshipStore() ) ), cursorTracer );
     }
 
     CommonAbstractStore createRelationshipTypeTokenStore( PageCursorTracer cursorTracer )
@@ -483,7 +491,7 @@ public class NeoStores implements AutoCloseable
                 new RelationshipTypeTokenStore( layout.relationshipTypeTokenStore(), layout.idRelationshipTypeTokenStore(), config,
                         idGeneratorFactory,
                         pageCache, logProvider, (DynamicStringStore) getOrOpenStore( StoreType.RELATIONSHIP_TYPE_TOKEN_NAME, cursorTracer ),
-                        recordFormats, openOptions ), cursorTracer );
+                        recordFormats, openOptions( layout.relationshipTypeTokenStore() ) ), cursorTracer );
     }
 
     CommonAbstractStore createRelationshipTypeTokenNamesStore( PageCursorTracer cursorTracer )
@@ -496,7 +504,8 @@ public class NeoStores implements AutoCloseable
     {
         return initialize(
                 new LabelTokenStore( layout.labelTokenStore(), layout.idLabelTokenStore(), config, idGeneratorFactory, pageCache,
-                        logProvider, (DynamicStringStore) getOrOpenStore( StoreType.LABEL_TOKEN_NAME, cursorTracer ), recordFormats, openOptions ),
+                        logProvider, (DynamicStringStore) getOrOpenStore( StoreType.LABEL_TOKEN_NAME, cursorTracer ), recordFormats,
+                        openOptions( layout.labelTokenStore() ) ),
                 cursorTracer );
     }
 
@@ -506,13 +515,13 @@ public class NeoStores implements AutoCloseable
                 new SchemaStore( layout.schemaStore(), layout.idSchemaStore(), config, IdType.SCHEMA, idGeneratorFactory, pageCache,
                         logProvider,
                         (PropertyStore) getOrOpenStore( StoreType.PROPERTY, cursorTracer ),
-                        recordFormats, openOptions ), cursorTracer );
+                        recordFormats, openOptions( layout.schemaStore() ) ), cursorTracer );
     }
 
     CommonAbstractStore createRelationshipGroupStore( PageCursorTracer cursorTracer )
     {
         return initialize( new RelationshipGroupStore( layout.relationshipGroupStore(), layout.idRelationshipGroupStore(), config,
-                idGeneratorFactory, pageCache, logProvider, recordFormats, openOptions ), cursorTracer );
+                idGeneratorFactory, pageCache, logProvider, recordFormats, openOptions( layout.relationshipGroupStore() ) ), cursorTracer );
     }
 
     CommonAbstractStore createLabelTokenNamesStore( PageCursorTracer cursorTracer )
@@ -525,7 +534,7 @@ public class NeoStores implements AutoCloseable
     {
         return initialize(
                 new MetaDataStore( layout.metadataStore(), layout.idMetadataStore(), config, idGeneratorFactory, pageCache, logProvider,
-                        recordFormats.metaData(), recordFormats.storeVersion(), pageCacheTracer, openOptions ), cursorTracer );
+                        recordFormats.metaData(), recordFormats.storeVersion(), pageCacheTracer, openOptions( layout.metadataStore() ) ), cursorTracer );
     }
 
     private CommonAbstractStore createDynamicStringStore( Path storeFile, Path idFile, PageCursorTracer cursorTracer )
@@ -537,7 +546,7 @@ public class NeoStores implements AutoCloseable
     {
         return initialize( new DynamicStringStore( storeFile, idFile, config, idType, idGeneratorFactory,
                 pageCache, logProvider, blockSize, recordFormats.dynamic(), recordFormats.storeVersion(),
-                openOptions ), cursorTracer );
+                openOptions( storeFile ) ), cursorTracer );
     }
 
     private CommonAbstractStore createDynamicArrayStore( Path storeFile, Path idFile, IdType idType, Setting<Integer> blockSizeProperty,
@@ -553,7 +562,32 @@ public class NeoStores implements AutoCloseable
             throw new IllegalArgumentException( "Block size of dynamic array store should be positive integer." );
         }
         return initialize( new DynamicArrayStore( storeFile, idFile, config, idType, idGeneratorFactory, pageCache,
-                logProvider, blockSize, recordFormats, openOptions ), cursorTracer );
+                logProvider, blockSize, recordFormats, openOptions( storeFile ) ), cursorTracer );
+    }
+
+    /**
+     * The open options of a store file are the options of this NeoStores, plus {@link PageCacheOpenOptions#COMPRESSED} if the store file
+     * is compressed. An existing store file is compressed if it has a page map, regardless of configuration, and a new store file is
+     * compressed if its store type is listed in {@link RecordStoreSettings#compressed_store_types}.
+     */
+    private ImmutableSet<OpenOption> openOptions( Path storeFile )
+    {
+        if ( fileSystem.fileExists( CompressedPageSwapper.pageMapFile( storeFile ) ) ||
+             (compressedStoreFiles.contains( storeFile ) && !fileSystem.fileExists( storeFile )) )
+        {
+            return openOptions.newWith( PageCacheOpenOptions.COMPRESSED );
+        }
+        return openOptions;
+    }
+
+    private static Set<Path> compressedStoreFiles( Config config, DatabaseLayout layout )
+    {
+        Set<Path> storeFiles = new HashSet<>();
+        for ( StoreType storeType : config.get( RecordStoreSettings.compressed_store_types ) )
+        {
+            storeFiles.add( layout.file( storeType.getDatabaseFile() ) );
+        }
+        return storeFiles;
     }
 
     @SuppressWarnings( "unchecked" )
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.annotations.service.ServiceProvider;
+import org.neo4j.configuration.Description;
+import org.neo4j.configuration.Internal;
+import org.neo4j.configuration.SettingsDeclaration;
+import org.neo4j.graphdb.config.Setting;
+
+import static java.util.Collections.emptyList;
+import static org.neo4j.configuration.SettingImpl.newBuilder;
+import static org.neo4j.configuration.SettingValueParsers.listOf;
+import static org.neo4j.configuration.SettingValueParsers.ofPartialEnum;
+
+@ServiceProvider
+public class RecordStoreSettings implements SettingsDeclaration
+{
+    @Internal
+    @Description( "Record store types, e.g. 'PROPERTY' and 'PROPERTY_STRING', whose store files should be stored with " +
+            "their pages compressed. This parameter is only honored when a store is created, otherwise it is ignored. " +
+            "Compressed stores take up less disk space and need fewer reads for cold scans, at the cost of CPU time when pages are " +
+            "read from or written to disk. Each compressed store file is accompanied by a '.pagemap' file that must be kept with it. " +
+            "The META_DATA store cannot be compressed, since it's also read and written by tools that map it directly." )
+    public static final Setting<List<StoreType>> compressed_store_types =
+            newBuilder( "unsupported.dbms.record_format.compressed_stores", listOf( ofPartialEnum( compressibleStoreTypes() ) ), emptyList() ).build();
+
+    private static StoreType[] compressibleStoreTypes()
+    {
+        return Arrays.stream( StoreType.values() ).filter( type -> type != StoreType.META_DATA ).toArray( StoreType[]::new );
+    }
+}
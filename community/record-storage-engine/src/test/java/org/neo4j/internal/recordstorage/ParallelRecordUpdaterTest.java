@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.internal.id.DefaultIdGeneratorFactory;
+import org.neo4j.internal.id.IdType;
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.store.IdUpdateListener;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.Race;
+import org.neo4j.test.extension.EphemeralNeo4jLayoutExtension;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.EphemeralPageCacheExtension;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.test.Race.throwing;
+import static org.neo4j.kernel.impl.store.record.Record.NO_LABELS_FIELD;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_PROPERTY;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_RELATIONSHIP;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.ALWAYS;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+@EphemeralPageCacheExtension
+@EphemeralNeo4jLayoutExtension
+class ParallelRecordUpdaterTest
+{
+    private static final int NODES = 1_000;
+
+    @Inject
+    private EphemeralFileSystemAbstraction fs;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private DatabaseLayout databaseLayout;
+
+    private NeoStores neoStores;
+    private NodeStore nodeStore;
+    private RelationshipStore relationshipStore;
+    private RelationshipGroupStore relationshipGroupStore;
+    private JobScheduler jobScheduler;
+
+    @BeforeEach
+    void openStore()
+    {
+        StoreFactory storeFactory = new StoreFactory( databaseLayout, Config.defaults(), new DefaultIdGeneratorFactory( fs, immediate() ), pageCache, fs,
+                NullLogProvider.getInstance(), PageCacheTracer.NULL );
+        neoStores = storeFactory.openNeoStores( true, StoreType.NODE, StoreType.NODE_LABEL, StoreType.RELATIONSHIP, StoreType.RELATIONSHIP_GROUP );
+        nodeStore = neoStores.getNodeStore();
+        relationshipStore = neoStores.getRelationshipStore();
+        relationshipGroupStore = neoStores.getRelationshipGroupStore();
+        jobScheduler = new ThreadPoolJobScheduler();
+    }
+
+    @AfterEach
+    void closeStore() throws Exception
+    {
+        jobScheduler.close();
+        neoStores.close();
+    }
+
+    @Test
+    void shouldWriteManyRecordsUsingSeveralThreads()
+    {
+        // given
+        ParallelRecordUpdater updater = new ParallelRecordUpdater( 4, 10, jobScheduler, PageCacheTracer.NULL );
+        ParallelRecordUpdater.PendingUpdates pendingUpdates = updater.newPendingUpdates();
+        List<NodeRecord> nodes = createdNodes();
+        nodes.forEach( node -> pendingUpdates.add( nodeStore, node ) );
+        IdUpdateListener idUpdateListener = mock( IdUpdateListener.class );
+
+        // when
+        pendingUpdates.apply( idUpdateListener, NULL );
+
+        // then
+        assertWritten( nodes );
+        for ( NodeRecord node : nodes )
+        {
+            verify( idUpdateListener ).markIdAsUsed( eq( IdType.NODE ), any(), eq( node.getId() ), any() );
+        }
+    }
+
+    @Test
+    void shouldWriteLaterChangesToRecordAfterEarlierOnes()
+    {
+        // given
+        ParallelRecordUpdater updater = new ParallelRecordUpdater( 4, 10, jobScheduler, PageCacheTracer.NULL );
+        ParallelRecordUpdater.PendingUpdates pendingUpdates = updater.newPendingUpdates();
+        List<NodeRecord> nodes = createdNodes();
+        nodes.forEach( node -> pendingUpdates.add( nodeStore, node ) );
+        List<NodeRecord> deletedNodes = new ArrayList<>();
+        for ( int i = 0; i < NODES; i += 2 )
+        {
+            deletedNodes.add( new NodeRecord( i ) );
+        }
+        deletedNodes.forEach( node -> pendingUpdates.add( nodeStore, node ) );
+        IdUpdateListener idUpdateListener = mock( IdUpdateListener.class );
+
+        // when
+        pendingUpdates.apply( idUpdateListener, NULL );
+
+        // then
+        for ( NodeRecord node : nodes )
+        {
+            NodeRecord stored = nodeStore.getRecord( node.getId(), nodeStore.newRecord(), ALWAYS, NULL );
+            assertThat( stored.inUse() ).isEqualTo( node.getId() % 2 == 1 );
+        }
+        verify( idUpdateListener, times( NODES / 2 ) ).markIdAsUnused( eq( IdType.NODE ), any(), anyLong(), any() );
+    }
+
+    @Test
+    void shouldWriteFewRecordsOnApplyingThread()
+    {
+        // given
+        JobScheduler unusedScheduler = mock( JobScheduler.class );
+        ParallelRecordUpdater updater = new ParallelRecordUpdater( 4, NODES + 1, unusedScheduler, PageCacheTracer.NULL );
+        ParallelRecordUpdater.PendingUpdates pendingUpdates = updater.newPendingUpdates();
+        List<NodeRecord> nodes = createdNodes();
+        nodes.forEach( node -> pendingUpdates.add( nodeStore, node ) );
+        IdUpdateListener idUpdateListener = mock( IdUpdateListener.class );
+
+        // when
+        pendingUpdates.apply( idUpdateListener, NULL );
+
+        // then
+        assertWritten( nodes );
+        verify( idUpdateListener, times( NODES ) ).markIdAsUsed( eq( IdType.NODE ), any(), anyLong(), any() );
+        verify( idUpdateListener, never() ).markIdAsUnused( any(), any(), anyLong(), any() );
+        verifyNoInteractions( unusedScheduler );
+    }
+
+    @Test
+    void concurrentReadersMustNeverSeeRecordsPointingToRecordsWhichAreNotWrittenYet() throws Throwable
+    {
+        // given created relationships followed by created groups pointing to them, like in the commands of a transaction
+        ParallelRecordUpdater updater = new ParallelRecordUpdater( 4, 10, jobScheduler, PageCacheTracer.NULL );
+        ParallelRecordUpdater.PendingUpdates pendingUpdates = updater.newPendingUpdates();
+        long noRelationship = NO_NEXT_RELATIONSHIP.longValue();
+        for ( int i = 0; i < NODES; i++ )
+        {
+            RelationshipRecord relationship = new RelationshipRecord( i ).initialize( true, NO_NEXT_PROPERTY.longValue(), i, i, 0,
+                    1, noRelationship, 1, noRelationship, true, true );
+            relationship.setCreated();
+            pendingUpdates.add( relationshipStore, relationship );
+        }
+        for ( int i = 0; i < NODES; i++ )
+        {
+            RelationshipGroupRecord group = new RelationshipGroupRecord( i ).initialize( true, 0, i, noRelationship, noRelationship, i, noRelationship );
+            group.setCreated();
+            pendingUpdates.add( relationshipGroupStore, group );
+        }
+        AtomicBoolean applied = new AtomicBoolean();
+        Race race = new Race();
+        race.addContestant( () ->
+        {
+            pendingUpdates.apply( mock( IdUpdateListener.class ), NULL );
+            applied.set( true );
+        }, 1 );
+
+        // when reading groups, and the relationships they point to, while the records are written
+        race.addContestant( throwing( () ->
+        {
+            RelationshipGroupRecord group = relationshipGroupStore.newRecord();
+            RelationshipRecord relationship = relationshipStore.newRecord();
+            boolean done;
+            do
+            {
+                done = applied.get();
+                for ( int i = NODES - 1; i >= 0; i-- )
+                {
+                    relationshipGroupStore.getRecord( i, group, CHECK, NULL );
+                    if ( group.inUse() )
+                    {
+                        // then
+                        relationshipStore.getRecord( group.getFirstOut(), relationship, CHECK, NULL );
+                        assertThat( relationship.inUse() ).isTrue();
+                    }
+                }
+            }
+            while ( !done );
+        } ), 1 );
+        race.go();
+    }
+
+    @Test
+    void shouldNotBeEnabledWithOneThread()
+    {
+        assertThat( new ParallelRecordUpdater( 1, 10, jobScheduler, PageCacheTracer.NULL ).isEnabled() ).isFalse();
+        assertThat( new ParallelRecordUpdater( 4, 0, jobScheduler, PageCacheTracer.NULL ).isEnabled() ).isFalse();
+        assertThat( ParallelRecordUpdater.SEQUENTIAL.isEnabled() ).isFalse();
+    }
+
+    private static List<NodeRecord> createdNodes()
+    {
+        List<NodeRecord> nodes = new ArrayList<>();
+        for ( int i = 0; i < NODES; i++ )
+        {
+            NodeRecord node = new NodeRecord( i ).initialize( true, NO_NEXT_PROPERTY.longValue(), false, i, NO_LABELS_FIELD.longValue() );
+            node.setCreated();
+            nodes.add( node );
+        }
+        return nodes;
+    }
+
+    private void assertWritten( List<NodeRecord> nodes )
+    {
+        for ( NodeRecord node : nodes )
+        {
+            NodeRecord stored = nodeStore.getRecord( node.getId(), nodeStore.newRecord(), NORMAL, NULL );
+            assertThat( stored.getNextRel() ).isEqualTo( node.getId() );
+        }
+    }
+}
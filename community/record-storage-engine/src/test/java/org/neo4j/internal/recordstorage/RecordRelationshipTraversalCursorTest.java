@@ -385,7 +385,8 @@ public class RecordRelationshipTraversalCursorTest
 
     protected RecordRelationshipTraversalCursor getNodeRelationshipCursor()
     {
-        return new RecordRelationshipTraversalCursor( neoStores.getRelationshipStore(), neoStores.getRelationshipGroupStore(), PageCursorTracer.NULL );
+        return new RecordRelationshipTraversalCursor( neoStores.getRelationshipStore(), neoStores.getRelationshipGroupStore(),
+                RelationshipGroupDirectory.NO_DIRECTORY, PageCursorTracer.NULL );
     }
 
     protected RelationshipSpec[] homogenousRelationships( int count, int type, RelationshipDirection direction )
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.internal.id.DefaultIdGeneratorFactory;
+import org.neo4j.internal.recordstorage.RelationshipGroupDirectory.Groups;
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.record.RecordLoadOverride;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.extension.EphemeralNeo4jLayoutExtension;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.EphemeralPageCacheExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
+import static org.neo4j.internal.recordstorage.RelationshipGroupDirectory.MIN_GROUPS;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.kernel.impl.store.record.AbstractBaseRecord.NO_ID;
+import static org.neo4j.kernel.impl.store.record.Record.NULL_REFERENCE;
+import static org.neo4j.storageengine.api.RelationshipSelection.selection;
+
+@EphemeralPageCacheExtension
+@EphemeralNeo4jLayoutExtension
+class RelationshipGroupDirectoryTest
+{
+    @Inject
+    private EphemeralFileSystemAbstraction fs;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private DatabaseLayout databaseLayout;
+
+    private NeoStores neoStores;
+    private RelationshipGroupStore store;
+    private long nextGroupId;
+
+    @BeforeEach
+    void openStore()
+    {
+        StoreFactory storeFactory = new StoreFactory( databaseLayout, Config.defaults(), new DefaultIdGeneratorFactory( fs, immediate() ), pageCache, fs,
+                NullLogProvider.getInstance(), PageCacheTracer.NULL );
+        neoStores = storeFactory.openNeoStores( true, StoreType.RELATIONSHIP_GROUP );
+        store = neoStores.getRelationshipGroupStore();
+    }
+
+    @AfterEach
+    void closeStore()
+    {
+        neoStores.close();
+    }
+
+    @Test
+    void shouldNotAddNodeWithFewGroups()
+    {
+        // given
+        RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 10 );
+        RelationshipGroupRecord[] groups = createGroupChain( 0, MIN_GROUPS - 1 );
+
+        // when
+        directory.add( 0, groups[0].getId(), NULL );
+
+        // then
+        assertThat( directory.cachedGroups( 0 ) ).isNull();
+    }
+
+    @Test
+    void shouldLookUpGroupsOfNodeWithManyGroupsByType()
+    {
+        // given
+        RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 10 );
+        RelationshipGroupRecord[] groups = createGroupChain( 0, MIN_GROUPS * 2 );
+
+        // when
+        directory.add( 0, groups[0].getId(), NULL );
+
+        // then
+        Groups cached = directory.cachedGroups( 0 );
+        assertThat( cached ).isNotNull();
+        for ( RelationshipGroupRecord group : groups )
+        {
+            assertThat( cached.groupId( group.getType() ) ).isEqualTo( group.getId() );
+            assertThat( cached.groupId( group.getType() + 1 ) ).isEqualTo( NO_ID );
+        }
+        assertThat( cached.groupIdBefore( groups[0].getType() ) ).isEqualTo( NO_ID );
+        assertThat( cached.groupIdBefore( groups[1].getType() ) ).isEqualTo( groups[0].getId() );
+        assertThat( cached.groupIdBefore( groups[1].getType() + 1 ) ).isEqualTo( groups[1].getId() );
+    }
+
+    @Test
+    void shouldNotAddMoreThanMaxNodes()
+    {
+        // given
+        RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 1 );
+        RelationshipGroupRecord[] firstNodeGroups = createGroupChain( 0, MIN_GROUPS );
+        RelationshipGroupRecord[] secondNodeGroups = createGroupChain( 1, MIN_GROUPS );
+
+        // when
+        directory.add( 0, firstNodeGroups[0].getId(), NULL );
+        directory.add( 1, secondNodeGroups[0].getId(), NULL );
+
+        // then
+        assertThat( directory.cachedGroups( 0 ) ).isNotNull();
+        assertThat( directory.cachedGroups( 1 ) ).isNull();
+    }
+
+    @Test
+    void shouldKeepNodeUpToDateWithCreatedAndDeletedGroups()
+    {
+        // given
+        RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 10 );
+        RelationshipGroupRecord[] groups = createGroupChain( 0, MIN_GROUPS );
+        directory.add( 0, groups[0].getId(), NULL );
+
+        // when
+        RelationshipGroupRecord created = group( 0, 1 );
+        directory.groupChanged( new RelationshipGroupRecord( created.getId() ), created );
+        RelationshipGroupRecord deleted = groups[2];
+        RelationshipGroupRecord afterDelete = new RelationshipGroupRecord( deleted.getId() );
+        afterDelete.setOwningNode( deleted.getOwningNode() );
+        directory.groupChanged( deleted, afterDelete );
+
+        // then
+        Groups cached = directory.cachedGroups( 0 );
+        assertThat( cached.groupId( 1 ) ).isEqualTo( created.getId() );
+        assertThat( cached.groupIdBefore( 2 ) ).isEqualTo( created.getId() );
+        assertThat( cached.groupId( deleted.getType() ) ).isEqualTo( NO_ID );
+        assertThat( cached.groupIdBefore( deleted.getType() + 1 ) ).isEqualTo( groups[1].getId() );
+    }
+
+    @Test
+    void shouldFindGroupsInChainWhichDirectoryReadByCursorDoesNotHave()
+    {
+        // given
+        RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 10 );
+        RelationshipGroupRecord[] groups = createGroupChain( 0, MIN_GROUPS );
+        directory.add( 0, groups[0].getId(), NULL );
+        try ( RecordRelationshipGroupCursor cursor = new RecordRelationshipGroupCursor( null, store, directory, NULL, RecordLoadOverride.NONE ) )
+        {
+            cursor.init( 0, groups[0].getId(), true );
+            cursor.selectTypes( selection( new int[]{1, 3}, Direction.BOTH ) );
+
+            // when a group of a selected type is created after the cursor has read the directory
+            RelationshipGroupRecord created = group( 0, 3 );
+            created.setNext( groups[2].getId() );
+            groups[1].setNext( created.getId() );
+            store.updateRecord( created, NULL );
+            store.updateRecord( groups[1], NULL );
+            directory.groupChanged( new RelationshipGroupRecord( created.getId() ), created );
+
+            // then
+            assertThat( cursor.next() ).isTrue();
+            assertThat( cursor.getId() ).isEqualTo( created.getId() );
+            assertThat( cursor.next() ).isFalse();
+        }
+    }
+
+    @Test
+    void shouldFallBackToChainWalkForUnsortedChain()
+    {
+        // given
+        RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 10 );
+        RelationshipGroupRecord first = group( 0, 10 );
+        RelationshipGroupRecord second = group( 0, 4 );
+        first.setNext( second.getId() );
+        store.updateRecord( first, NULL );
+        store.updateRecord( second, NULL );
+
+        // when/then
+        assertThat( directory.rebuild( 0, first.getId(), NULL ) ).isNull();
+    }
+
+    @Test
+    void shouldBeDisabledWithZeroMaxNodes()
+    {
+        // given
+        RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 0 );
+        RelationshipGroupRecord[] groups = createGroupChain( 0, MIN_GROUPS );
+
+        // when
+        directory.add( 0, groups[0].getId(), NULL );
+
+        // then
+        assertThat( directory.isEnabled() ).isFalse();
+        assertThat( directory.cachedGroups( 0 ) ).isNull();
+    }
+
+    /**
+     * Creates a chain of groups of the even types starting from zero.
+     */
+    private RelationshipGroupRecord[] createGroupChain( long nodeId, int count )
+    {
+        RelationshipGroupRecord[] groups = new RelationshipGroupRecord[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            groups[i] = group( nodeId, i * 2 );
+            if ( i > 0 )
+            {
+                groups[i - 1].setNext( groups[i].getId() );
+            }
+        }
+        for ( RelationshipGroupRecord group : groups )
+        {
+            store.updateRecord( group, NULL );
+        }
+        return groups;
+    }
+
+    private RelationshipGroupRecord group( long nodeId, int type )
+    {
+        return new RelationshipGroupRecord( nextGroupId++ )
+                .initialize( true, type, NULL_REFERENCE.longValue(), NULL_REFERENCE.longValue(), NULL_REFERENCE.longValue(), nodeId,
+                        NULL_REFERENCE.longValue() );
+    }
+}
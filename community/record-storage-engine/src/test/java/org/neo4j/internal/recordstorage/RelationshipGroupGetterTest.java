@@ -31,6 +31,7 @@ import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
@@ -49,6 +50,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 import static org.neo4j.kernel.impl.store.record.Record.NULL_REFERENCE;
@@ -107,6 +109,48 @@ class RelationshipGroupGetterTest
         }
     }
 
+    @Test
+    void shouldStartLookingForGroupFromClosestPreviousGroupInDirectory()
+    {
+        // GIVEN a node with a chain of many relationship groups, which is in the relationship group directory
+        LogProvider logProvider = NullLogProvider.getInstance();
+        StoreFactory storeFactory = new StoreFactory( databaseLayout, Config.defaults(),
+                new DefaultIdGeneratorFactory( fs, immediate()  ), pageCache, fs, logProvider, PageCacheTracer.NULL );
+        try ( NeoStores stores = storeFactory.openNeoStores( true, StoreType.RELATIONSHIP_GROUP ) )
+        {
+            RelationshipGroupStore store = stores.getRelationshipGroupStore();
+            RelationshipGroupRecord[] groups = new RelationshipGroupRecord[RelationshipGroupDirectory.MIN_GROUPS];
+            for ( int i = 0; i < groups.length; i++ )
+            {
+                groups[i] = group( i, i * 2 );
+                groups[i].setOwningNode( 0 );
+            }
+            link( groups );
+            for ( RelationshipGroupRecord group : groups )
+            {
+                store.updateRecord( group, NULL );
+            }
+            RelationshipGroupDirectory directory = new RelationshipGroupDirectory( store, 10 );
+            directory.add( 0, groups[0].getId(), NULL );
+            RecordStore<RelationshipGroupRecord> spiedStore = spy( store );
+            RelationshipGroupGetter groupGetter = new RelationshipGroupGetter( spiedStore, directory, NULL );
+            NodeRecord node = new NodeRecord( 0 ).initialize( false, -1, true, groups[0].getId(), 0 );
+
+            // WHEN trying to find an existing and a missing relationship group
+            RecordAccess<RelationshipGroupRecord, Integer> access =
+                    new DirectRecordAccess<>( spiedStore, Loaders.relationshipGroupLoader( spiedStore ) );
+            RelationshipGroupPosition existing = groupGetter.getRelationshipGroup( node, 20, access );
+            RelationshipGroupPosition missing = groupGetter.getRelationshipGroup( node, 21, access );
+
+            // THEN they should be found without walking the chain from its start
+            assertEquals( groups[10], existing.group().forReadingData() );
+            assertEquals( groups[9], existing.closestPrevious().forReadingData() );
+            assertNull( missing.group() );
+            assertEquals( groups[10], missing.closestPrevious().forReadingData() );
+            verify( spiedStore, never() ).getRecord( eq( groups[0].getId() ), any( RelationshipGroupRecord.class ), any( RecordLoad.class ), any() );
+        }
+    }
+
     private static void link( RelationshipGroupRecord... groups )
     {
         for ( int i = 0; i < groups.length; i++ )
@@ -458,6 +458,20 @@ class SchemaCacheTest
         assertThat( cache.getIndexesRelatedTo( entityTokens( 5 ), noEntityToken, properties(), false, NODE ) ).contains( schema5_8, schema5_6_7, node35_8 );
     }
 
+    @Test
+    void shouldGetRelatedIndexForIncludedProperty()
+    {
+        IndexDescriptor schema34Including9 = newIndexRule( 13, 3, 4 ).withIncludedPropertyIds( 9 );
+        SchemaCache cache = newSchemaCache( schema3_4, schema34Including9 );
+
+        assertThat( cache.getIndexesRelatedTo( noEntityToken, entityTokens( 3 ), properties( 9 ), false, NODE ) ).containsExactly( schema34Including9 );
+        assertThat( cache.getIndexesRelatedTo( noEntityToken, entityTokens( 3 ), properties( 9 ), true, NODE ) ).containsExactly( schema34Including9 );
+        assertThat( cache.getIndexesRelatedTo( noEntityToken, entityTokens( 5 ), properties( 9 ), false, NODE ) ).isEmpty();
+
+        cache.removeSchemaRule( schema34Including9.getId() );
+        assertThat( cache.getIndexesRelatedTo( noEntityToken, entityTokens( 3 ), properties( 9 ), false, NODE ) ).isEmpty();
+    }
+
     @Test
     void shouldOnlyGetRelIndexesForRelUpdates()
     {
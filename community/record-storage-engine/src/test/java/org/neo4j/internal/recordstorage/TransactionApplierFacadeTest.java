@@ -24,9 +24,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class TransactionApplierFacadeTest
@@ -62,6 +67,41 @@ class TransactionApplierFacadeTest
         inOrder.verify( txApplier1 ).close();
     }
 
+    @Test
+    void shouldLetAllAppliersCompleteBeforeClosingAny() throws Exception
+    {
+        // WHEN
+        facade.close();
+
+        // THEN
+        InOrder inOrder = inOrder( txApplier1, txApplier2, txApplier3 );
+
+        inOrder.verify( txApplier1 ).beforeClose();
+        inOrder.verify( txApplier2 ).beforeClose();
+        inOrder.verify( txApplier3 ).beforeClose();
+        inOrder.verify( txApplier3 ).close();
+        inOrder.verify( txApplier2 ).close();
+        inOrder.verify( txApplier1 ).close();
+    }
+
+    @Test
+    void shouldCloseAllAppliersIfCompletingFails() throws Exception
+    {
+        // GIVEN
+        RuntimeException failure = new RuntimeException( "Failed to write records" );
+        doThrow( failure ).when( txApplier1 ).beforeClose();
+
+        // WHEN
+        RuntimeException e = assertThrows( RuntimeException.class, () -> facade.close() );
+
+        // THEN
+        assertSame( failure, e );
+        verify( txApplier2, never() ).beforeClose();
+        verify( txApplier1 ).close();
+        verify( txApplier2 ).close();
+        verify( txApplier3 ).close();
+    }
+
     @Test
     void testVisit() throws Exception
     {
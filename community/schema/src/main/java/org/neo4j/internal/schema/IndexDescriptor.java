@@ -46,6 +46,7 @@ public final class IndexDescriptor implements IndexRef<IndexDescriptor>, SchemaR
     private final IndexCapability capability;
     private final IndexType indexType;
     private final IndexConfig indexConfig;
+    private final int[] includedPropertyIds;
 
     IndexDescriptor( long id, IndexPrototype prototype )
     {
@@ -77,6 +78,7 @@ public final class IndexDescriptor implements IndexRef<IndexDescriptor>, SchemaR
         this.capability = capability;
         this.indexType = indexType;
         this.indexConfig = indexConfig;
+        this.includedPropertyIds = IndexRef.includedPropertyIds( indexConfig );
     }
 
     /**
@@ -93,6 +95,7 @@ public final class IndexDescriptor implements IndexRef<IndexDescriptor>, SchemaR
         this.capability = IndexCapability.NO_CAPABILITY;
         this.indexType = IndexType.BTREE;
         this.indexConfig = IndexConfig.empty();
+        this.includedPropertyIds = NO_INCLUDED_PROPERTIES;
     }
 
     @Override
@@ -153,6 +156,12 @@ public final class IndexDescriptor implements IndexRef<IndexDescriptor>, SchemaR
         return new IndexDescriptor( id, name, schema, isUnique, indexProvider, owningConstraintId, capability, indexType, indexConfig );
     }
 
+    @Override
+    public int[] getIncludedPropertyIds()
+    {
+        return includedPropertyIds;
+    }
+
     /**
      * @return The id of the constraint that owns this index, if such a constraint exists. Otherwise {@code empty}.
      */
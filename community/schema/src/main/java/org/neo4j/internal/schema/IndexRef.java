@@ -19,8 +19,22 @@
  */
 package org.neo4j.internal.schema;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.values.storable.IntArray;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
 public interface IndexRef<T extends IndexRef<T>> extends SchemaDescriptorSupplier
 {
+    /**
+     * Key in the {@link IndexConfig} under which the ids of the {@link #getIncludedPropertyIds() included property keys} are kept.
+     */
+    String INCLUDED_PROPERTIES = "included_properties";
+
+    int[] NO_INCLUDED_PROPERTIES = new int[0];
+
     /**
      * Returns true if this index is only meant to allow one value per key.
      */
@@ -63,4 +77,33 @@ public interface IndexRef<T extends IndexRef<T>> extends SchemaDescriptorSupplie
      * @return A new index reference with the given index config.
      */
     T withIndexConfig( IndexConfig indexConfig );
+
+    /**
+     * Returns the ids of the property keys whose values are stored in the entries of this index, in addition to the indexed values.
+     * Queries projecting these properties can then be answered from the index alone.
+     */
+    @Override
+    default int[] getIncludedPropertyIds()
+    {
+        return includedPropertyIds( getIndexConfig() );
+    }
+
+    /**
+     * Produce a new index reference that is the same as this index reference in every way, except it also stores the values of the given
+     * property keys in its entries.
+     * @param propertyKeyIds ids of the property keys to include.
+     * @return A new index reference with the given included properties.
+     */
+    default T withIncludedPropertyIds( int... propertyKeyIds )
+    {
+        Map<String,Value> config = new HashMap<>( getIndexConfig().asMap() );
+        config.put( INCLUDED_PROPERTIES, Values.intArray( propertyKeyIds ) );
+        return withIndexConfig( IndexConfig.with( config ) );
+    }
+
+    static int[] includedPropertyIds( IndexConfig indexConfig )
+    {
+        IntArray propertyKeyIds = indexConfig.get( INCLUDED_PROPERTIES );
+        return propertyKeyIds == null ? NO_INCLUDED_PROPERTIES : propertyKeyIds.asObjectCopy();
+    }
 }
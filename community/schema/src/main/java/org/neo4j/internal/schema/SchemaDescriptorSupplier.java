@@ -32,4 +32,15 @@ public interface SchemaDescriptorSupplier
      * @return a user friendly description of this schema entity.
      */
     String userDescription( TokenNameLookup tokenNameLookup );
+
+    /**
+     * Ids of the property keys whose values are stored alongside, but aren't part of, the key of each entry of this schema entity.
+     * Changes to these properties require the entries to be updated even though their keys stay the same.
+     *
+     * @return ids of the included property keys, or an empty array if there are none.
+     */
+    default int[] getIncludedPropertyIds()
+    {
+        return IndexRef.NO_INCLUDED_PROPERTIES;
+    }
 }
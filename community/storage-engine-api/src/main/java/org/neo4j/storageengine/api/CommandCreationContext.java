@@ -70,6 +70,12 @@ public interface CommandCreationContext extends AutoCloseable
      */
     int reserveRelationshipTypeTokenId();
 
+    /**
+     * Called when the transaction using this context has committed or rolled back, before the context is used by another transaction.
+     * Releases what was reserved ahead of use for the transaction, like ids which it didn't end up using.
+     */
+    void reset();
+
     @Override
     void close();
 }
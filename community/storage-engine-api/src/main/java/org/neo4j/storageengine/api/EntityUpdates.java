@@ -39,6 +39,7 @@ import org.neo4j.internal.schema.SchemaDescriptorSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
 
 import static java.lang.String.format;
 import static org.neo4j.internal.schema.PropertySchemaType.COMPLETE_ALL_TOKENS;
@@ -189,7 +190,7 @@ public class EntityUpdates
     public <INDEX_KEY extends SchemaDescriptorSupplier> Iterable<IndexEntryUpdate<INDEX_KEY>> forIndexKeys(
             Iterable<INDEX_KEY> indexKeys )
     {
-        Iterable<INDEX_KEY> potentiallyRelevant = Iterables.filter( indexKey -> atLeastOneRelevantChange( indexKey.schema() ), indexKeys );
+        Iterable<INDEX_KEY> potentiallyRelevant = Iterables.filter( this::atLeastOneRelevantChange, indexKeys );
 
         return gatherUpdatesForPotentials( potentiallyRelevant );
     }
@@ -217,10 +218,11 @@ public class EntityUpdates
 
         for ( INDEX_KEY indexKey : indexKeys )
         {
-            if ( atLeastOneRelevantChange( indexKey.schema() ) )
+            if ( atLeastOneRelevantChange( indexKey ) )
             {
                 potentiallyRelevant.add( indexKey );
-                gatherPropsToLoad( indexKey.schema(), additionalPropertiesToLoad );
+                gatherPropsToLoad( indexKey.schema().getPropertyIds(), additionalPropertiesToLoad );
+                gatherPropsToLoad( indexKey.getIncludedPropertyIds(), additionalPropertiesToLoad );
             }
         }
 
@@ -243,19 +245,21 @@ public class EntityUpdates
             boolean relevantBefore = relevantBefore( schema );
             boolean relevantAfter = relevantAfter( schema );
             int[] propertyIds = schema.getPropertyIds();
+            int[] includedPropertyIds = indexKey.getIncludedPropertyIds();
             if ( relevantBefore && !relevantAfter )
             {
                 indexUpdates.add( IndexEntryUpdate.remove( entityId, indexKey, valuesBefore( propertyIds ) ) );
             }
             else if ( !relevantBefore && relevantAfter )
             {
-                indexUpdates.add( IndexEntryUpdate.add( entityId, indexKey, valuesAfter( propertyIds ) ) );
+                indexUpdates.add( withIncludedValues( IndexEntryUpdate.add( entityId, indexKey, valuesAfter( propertyIds ) ), includedPropertyIds ) );
             }
             else if ( relevantBefore && relevantAfter )
             {
-                if ( valuesChanged( propertyIds, schema.propertySchemaType() ) )
+                if ( valuesChanged( propertyIds, schema.propertySchemaType() ) || includedValuesChanged( includedPropertyIds ) )
                 {
-                    indexUpdates.add( IndexEntryUpdate.change( entityId, indexKey, valuesBefore( propertyIds ), valuesAfter( propertyIds ) ) );
+                    IndexEntryUpdate<INDEX_KEY> change = IndexEntryUpdate.change( entityId, indexKey, valuesBefore( propertyIds ), valuesAfter( propertyIds ) );
+                    indexUpdates.add( withIncludedValues( change, includedPropertyIds ) );
                 }
             }
         }
@@ -321,9 +325,9 @@ public class EntityUpdates
         }
     }
 
-    private void gatherPropsToLoad( SchemaDescriptor schema, MutableIntSet target )
+    private void gatherPropsToLoad( int[] propertyIds, MutableIntSet target )
     {
-        for ( int propertyId : schema.getPropertyIds() )
+        for ( int propertyId : propertyIds )
         {
             if ( knownProperties.get( propertyId ) == null )
             {
@@ -332,22 +336,28 @@ public class EntityUpdates
         }
     }
 
-    private boolean atLeastOneRelevantChange( SchemaDescriptor schema )
+    private boolean atLeastOneRelevantChange( SchemaDescriptorSupplier indexKey )
     {
+        SchemaDescriptor schema = indexKey.schema();
         boolean affectedBefore = schema.isAffected( entityTokensBefore );
         boolean affectedAfter = schema.isAffected( entityTokensAfter );
         if ( affectedBefore && affectedAfter )
         {
-            for ( int propertyId : schema.getPropertyIds() )
+            return anyKnown( schema.getPropertyIds() ) || anyKnown( indexKey.getIncludedPropertyIds() );
+        }
+        return affectedBefore || affectedAfter;
+    }
+
+    private boolean anyKnown( int[] propertyIds )
+    {
+        for ( int propertyId : propertyIds )
+        {
+            if ( knownProperties.containsKey( propertyId ) )
             {
-                if ( knownProperties.containsKey( propertyId ) )
-                {
-                    return true;
-                }
+                return true;
             }
-            return false;
         }
-        return affectedBefore || affectedAfter;
+        return false;
     }
 
     private boolean hasPropsBefore( int[] propertyIds, PropertySchemaType propertySchemaType )
@@ -413,6 +423,35 @@ public class EntityUpdates
         return values;
     }
 
+    private <INDEX_KEY extends SchemaDescriptorSupplier> IndexEntryUpdate<INDEX_KEY> withIncludedValues( IndexEntryUpdate<INDEX_KEY> update,
+            int[] includedPropertyIds )
+    {
+        if ( includedPropertyIds.length == 0 )
+        {
+            return update;
+        }
+        Value[] includedValues = new Value[includedPropertyIds.length];
+        for ( int i = 0; i < includedPropertyIds.length; i++ )
+        {
+            PropertyValue propertyValue = knownProperties.get( includedPropertyIds[i] );
+            includedValues[i] = propertyValue == null || propertyValue.after == null ? Values.NO_VALUE : propertyValue.after;
+        }
+        return update.withIncludedValues( includedValues );
+    }
+
+    private boolean includedValuesChanged( int[] includedPropertyIds )
+    {
+        for ( int propertyId : includedPropertyIds )
+        {
+            PropertyValue propertyValue = knownProperties.get( propertyId );
+            if ( propertyValue != null && propertyValue.type != UnChanged && propertyValue.type != NoValue )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * This method should only be called in a context where you know that your entity is relevant both before and after
      */
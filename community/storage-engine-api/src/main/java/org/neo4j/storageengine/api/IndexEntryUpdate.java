@@ -36,10 +36,13 @@ import static java.lang.String.format;
  */
 public class IndexEntryUpdate<INDEX_KEY extends SchemaDescriptorSupplier>
 {
+    private static final Value[] NO_INCLUDED_VALUES = new Value[0];
+
     private final long entityId;
     private final UpdateMode updateMode;
     private final Value[] before;
     private final Value[] values;
+    private final Value[] includedValues;
     private final INDEX_KEY indexKey;
 
     private IndexEntryUpdate( long entityId, INDEX_KEY indexKey, UpdateMode updateMode, Value... values )
@@ -49,6 +52,12 @@ public class IndexEntryUpdate<INDEX_KEY extends SchemaDescriptorSupplier>
 
     private IndexEntryUpdate( long entityId, INDEX_KEY indexKey, UpdateMode updateMode, Value[] before,
             Value[] values )
+    {
+        this( entityId, indexKey, updateMode, before, values, NO_INCLUDED_VALUES );
+    }
+
+    private IndexEntryUpdate( long entityId, INDEX_KEY indexKey, UpdateMode updateMode, Value[] before,
+            Value[] values, Value[] includedValues )
     {
         // we do not support partial index entries
         assert indexKey.schema().getPropertyIds().length == values.length :
@@ -60,6 +69,7 @@ public class IndexEntryUpdate<INDEX_KEY extends SchemaDescriptorSupplier>
         this.indexKey = indexKey;
         this.before = before;
         this.values = values;
+        this.includedValues = includedValues;
         this.updateMode = updateMode;
     }
 
@@ -83,6 +93,25 @@ public class IndexEntryUpdate<INDEX_KEY extends SchemaDescriptorSupplier>
         return values;
     }
 
+    /**
+     * @return values, after this update, of the {@link SchemaDescriptorSupplier#getIncludedPropertyIds() included properties} of the index,
+     * in the same order as the included property key ids. Properties the entity doesn't have are represented by {@code NO_VALUE}.
+     * Empty for updates to indexes without included properties and for removals.
+     */
+    public Value[] includedValues()
+    {
+        return includedValues;
+    }
+
+    /**
+     * @param includedValues values of the included properties of the index, see {@link #includedValues()}.
+     * @return a copy of this update which also carries the given included values.
+     */
+    public IndexEntryUpdate<INDEX_KEY> withIncludedValues( Value... includedValues )
+    {
+        return new IndexEntryUpdate<>( entityId, indexKey, updateMode, before, values, includedValues );
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -113,6 +142,10 @@ public class IndexEntryUpdate<INDEX_KEY extends SchemaDescriptorSupplier>
         {
             return false;
         }
+        if ( !Arrays.equals( includedValues, that.includedValues ) )
+        {
+            return false;
+        }
         return indexKey != null ? indexKey.schema().equals( that.indexKey.schema() ) : that.indexKey == null;
     }
 
@@ -123,15 +156,17 @@ public class IndexEntryUpdate<INDEX_KEY extends SchemaDescriptorSupplier>
         result = 31 * result + (updateMode != null ? updateMode.hashCode() : 0);
         result = 31 * result + Arrays.hashCode( before );
         result = 31 * result + Arrays.hashCode( values );
+        result = 31 * result + Arrays.hashCode( includedValues );
         result = 31 * result + (indexKey != null ? indexKey.schema().hashCode() : 0);
         return result;
     }
 
     public String describe( TokenNameLookup tokenNameLookup )
     {
-        return String.format( "IndexEntryUpdate[id=%d, mode=%s, %s, beforeValues=%s, values=%s]", entityId, updateMode,
+        String description = String.format( "IndexEntryUpdate[id=%d, mode=%s, %s, beforeValues=%s, values=%s", entityId, updateMode,
                 indexKey().schema().userDescription( tokenNameLookup ),
                 Arrays.toString( before ), Arrays.toString( values ) );
+        return includedValues.length == 0 ? description + "]" : description + ", includedValues=" + Arrays.toString( includedValues ) + "]";
     }
 
     public static <INDEX_KEY extends SchemaDescriptorSupplier> IndexEntryUpdate<INDEX_KEY> add(
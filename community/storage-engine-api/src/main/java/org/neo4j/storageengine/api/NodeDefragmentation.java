@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.storageengine.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Commands which move the records of a node's chains closer together in the store, together with how many pages reading those chains
+ * touched before and will touch after the commands have been applied. See {@link StorageEngine#defragmentNode(long,
+ * org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer)}.
+ */
+public class NodeDefragmentation
+{
+    public static final NodeDefragmentation NOT_SUPPORTED = new NodeDefragmentation( Collections.emptyList(), 0, 0 );
+
+    private final List<StorageCommand> commands;
+    private final long pagesBefore;
+    private final long pagesAfter;
+
+    public NodeDefragmentation( List<StorageCommand> commands, long pagesBefore, long pagesAfter )
+    {
+        this.commands = commands;
+        this.pagesBefore = pagesBefore;
+        this.pagesAfter = pagesAfter;
+    }
+
+    /**
+     * @return the commands to apply, as a transaction of their own, or an empty list if nothing was worth moving.
+     */
+    public List<StorageCommand> commands()
+    {
+        return commands;
+    }
+
+    /**
+     * @return number of distinct pages the chains of the node are spread across before the commands are applied.
+     */
+    public long pagesBefore()
+    {
+        return pagesBefore;
+    }
+
+    /**
+     * @return number of distinct pages the chains of the node are spread across after the commands are applied.
+     */
+    public long pagesAfter()
+    {
+        return pagesAfter;
+    }
+}
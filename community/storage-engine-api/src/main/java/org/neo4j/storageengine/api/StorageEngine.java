@@ -104,6 +104,22 @@ public interface StorageEngine extends Lifecycle
             MemoryTracker memoryTracker )
             throws KernelException;
 
+    /**
+     * Generates {@link StorageCommand commands} which move the records the given node's properties and relationships are reached through
+     * into consecutive ranges, so that reading the node and expanding its relationships touches fewer pages. The commands don't change
+     * any data and are meant to be committed as a transaction of their own, so that they are logged and recovered like any other.
+     * The caller must hold an exclusive lock on the node from before this call until the commands have been applied.
+     *
+     * @param nodeId id of the node to defragment.
+     * @param cursorTracer underlying page cursor tracer.
+     * @return the {@link NodeDefragmentation} with the commands to commit, which has no commands if the node doesn't exist or
+     * already is as compact as it can be. Storage engines which have no notion of record locality return {@link NodeDefragmentation#NOT_SUPPORTED}.
+     */
+    default NodeDefragmentation defragmentNode( long nodeId, PageCursorTracer cursorTracer )
+    {
+        return NodeDefragmentation.NOT_SUPPORTED;
+    }
+
     /**
      * Apply a batch of groups of commands to this storage.
      *
@@ -79,8 +79,8 @@ public interface StorageEngineFactory
     StorageEngine instantiate( FileSystemAbstraction fs, DatabaseLayout databaseLayout, Config config, PageCache pageCache, TokenHolders tokenHolders,
             SchemaState schemaState, ConstraintRuleAccessor constraintSemantics, IndexConfigCompleter indexConfigCompleter, LockService lockService,
             IdGeneratorFactory idGeneratorFactory, IdController idController, DatabaseHealth databaseHealth,
-            LogProvider logProvider, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, PageCacheTracer cacheTracer, boolean createStoreIfNotExists,
-            MemoryTracker memoryTracker );
+            LogProvider logProvider, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, JobScheduler jobScheduler, PageCacheTracer cacheTracer,
+            boolean createStoreIfNotExists, MemoryTracker memoryTracker );
 
     /**
      * Lists files of a specific storage location.
@@ -62,6 +62,12 @@ public class AdversarialPagedFile implements PagedFile
         return new AdversarialWritePageCursor( pageCursor, adversary );
     }
 
+    @Override
+    public void preFetch( long pageId )
+    {
+        delegate.preFetch( pageId );
+    }
+
     @Override
     public int pageSize()
     {
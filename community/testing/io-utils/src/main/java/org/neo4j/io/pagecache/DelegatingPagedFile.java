@@ -52,6 +52,12 @@ public class DelegatingPagedFile implements PagedFile
         return delegate.getLastPageId();
     }
 
+    @Override
+    public void preFetch( long pageId )
+    {
+        delegate.preFetch( pageId );
+    }
+
     @Override
     public int pageSize()
     {
@@ -49,6 +49,11 @@ public class StubPagedFile implements PagedFile
     {
     }
 
+    @Override
+    public void preFetch( long pageId )
+    {
+    }
+
     @Override
     public int pageSize()
     {
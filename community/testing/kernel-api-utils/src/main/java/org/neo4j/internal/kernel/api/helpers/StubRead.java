@@ -88,6 +88,18 @@ public class StubRead implements Read
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void nodeLabelIntersectionScan( int[] labels, NodeLabelIndexCursor cursor, IndexOrder order )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void nodeLabelUnionScan( int[] labels, NodeLabelIndexCursor cursor, IndexOrder order )
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void allNodesScan( NodeCursor cursor )
     {